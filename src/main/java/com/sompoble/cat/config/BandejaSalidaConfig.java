@@ -0,0 +1,48 @@
+package com.sompoble.cat.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Clase de configuración del despachador de la bandeja de salida. Define el
+ * grupo de hilos que entrega los correos y notificaciones pendientes fuera del
+ * hilo de la petición HTTP.
+ */
+@Configuration
+public class BandejaSalidaConfig {
+
+    /**
+     * Número de hilos que entregan mensajes en paralelo.
+     */
+    @Value("${bandeja.despachador.hilos:4}")
+    private int hilos;
+
+    /**
+     * Capacidad de la cola de mensajes a la espera de un hilo libre.
+     */
+    @Value("${bandeja.despachador.cola:500}")
+    private int capacidadCola;
+
+    /**
+     * Crea el grupo de hilos del despachador. Si la cola está llena el mensaje
+     * se descarta de la cola, pero sigue pendiente en la base de datos y lo
+     * recoge la siguiente pasada del despachador.
+     *
+     * @return el ejecutor de tareas del despachador.
+     */
+    @Bean(name = "despachadorExecutor")
+    public ThreadPoolTaskExecutor despachadorExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("bandeja-salida-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
 
 /**
  * Clase de configuración para el servicio de correo electrónico. Esta clase
@@ -33,6 +32,25 @@ public class EmailConfig {
     @Value("${email.password}")
     private String password;
 
+    /**
+     * Número máximo de conexiones SMTP abiertas a la vez.
+     */
+    @Value("${email.smtp.conexiones:3}")
+    private int conexiones = 3;
+
+    /**
+     * Tiempo que una conexión SMTP libre se reutiliza antes de volver a
+     * abrirla.
+     */
+    @Value("${email.smtp.inactividad-maxima-ms:30000}")
+    private long inactividadMaximaMs = 30_000;
+
+    /**
+     * Tiempo máximo de conexión, lectura y escritura con el servidor SMTP.
+     */
+    @Value("${email.smtp.timeout-ms:5000}")
+    private int timeoutMs = 5000;
+
     /**
      * Configura las propiedades necesarias para la conexión SMTP.
      *
@@ -45,19 +63,22 @@ public class EmailConfig {
         properties.put("mail.smtp.starttls.enable", "true");
         properties.put("mail.smtp.host", "smtp.gmail.com");
         properties.put("mail.smtp.port", "587");
+        properties.put("mail.smtp.connectiontimeout", String.valueOf(timeoutMs));
+        properties.put("mail.smtp.timeout", String.valueOf(timeoutMs));
+        properties.put("mail.smtp.writetimeout", String.valueOf(timeoutMs));
         return properties;
     }
 
     /**
      * Crea y configura un bean JavaMailSender para el envío de correos
-     * electrónicos.
+     * electrónicos, que reutiliza un grupo de conexiones SMTP autenticadas.
      *
      * @return Una instancia configurada de JavaMailSender lista para enviar
      * correos.
      */
     @Bean
     public JavaMailSender javaMailSender() {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        PooledJavaMailSender mailSender = new PooledJavaMailSender(conexiones, inactividadMaximaMs);
         mailSender.setJavaMailProperties(getMailProperties());
         mailSender.setUsername(email);
         mailSender.setPassword(password);
@@ -0,0 +1,29 @@
+package com.sompoble.cat.config;
+
+import com.sompoble.cat.service.IdempotenciaService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Clase de configuración de las peticiones idempotentes. Registra
+ * {@link IdempotenciaFilter} delante de los endpoints de reservas, donde los
+ * reintentos de los clientes móviles pueden crear reservas duplicadas.
+ */
+@Configuration
+public class IdempotenciaConfig {
+
+    /**
+     * Registra el filtro de idempotencia para las rutas de reservas.
+     *
+     * @param idempotenciaService el servicio que registra las claves.
+     * @return el registro del filtro.
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(IdempotenciaService idempotenciaService) {
+        FilterRegistrationBean<IdempotenciaFilter> registro =
+                new FilterRegistrationBean<>(new IdempotenciaFilter(idempotenciaService));
+        registro.addUrlPatterns("/api/reservas", "/api/reservas/*");
+        return registro;
+    }
+}
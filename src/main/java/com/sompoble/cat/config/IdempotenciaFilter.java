@@ -0,0 +1,260 @@
+package com.sompoble.cat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sompoble.cat.domain.PeticionIdempotente;
+import com.sompoble.cat.service.IdempotenciaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Filtro que hace idempotentes las peticiones {@code POST} y {@code PUT} que
+ * incluyen la cabecera {@code Idempotency-Key}.
+ * <p>
+ * La primera petición con una clave se procesa normalmente y su respuesta se
+ * guarda. Los reintentos con la misma clave y el mismo contenido reciben la
+ * respuesta guardada, con la cabecera {@code Idempotent-Replayed}, sin volver
+ * a validar, guardar ni enviar correos. Un reintento mientras la primera
+ * petición sigue en curso recibe 409, y reutilizar la clave con otro
+ * contenido, 422. Las respuestas 5xx no se guardan, para que el cliente pueda
+ * reintentar.
+ * </p>
+ */
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    /**
+     * Cabecera con la clave de idempotencia.
+     */
+    public static final String CABECERA_CLAVE = "Idempotency-Key";
+
+    /**
+     * Cabecera que marca una respuesta repetida.
+     */
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    /**
+     * Longitud máxima de la clave.
+     */
+    static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    /**
+     * Serializador de los cuerpos de error.
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Servicio que registra las claves y sus respuestas.
+     */
+    private final IdempotenciaService idempotenciaService;
+
+    /**
+     * Crea el filtro.
+     *
+     * @param idempotenciaService el servicio que registra las claves.
+     */
+    public IdempotenciaFilter(IdempotenciaService idempotenciaService) {
+        this.idempotenciaService = idempotenciaService;
+    }
+
+    /**
+     * Solo se filtran las peticiones {@code POST} y {@code PUT} con clave.
+     *
+     * @param request la petición.
+     * @return {@code true} si la petición no debe filtrarse.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String metodo = request.getMethod();
+        return request.getHeader(CABECERA_CLAVE) == null
+                || !("POST".equals(metodo) || "PUT".equals(metodo));
+    }
+
+    /**
+     * Procesa la petición o devuelve la respuesta guardada.
+     *
+     * @param request la petición.
+     * @param response la respuesta.
+     * @param filterChain la cadena de filtros.
+     * @throws ServletException si falla el procesamiento.
+     * @throws IOException si falla la lectura o la escritura.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        String clave = request.getHeader(CABECERA_CLAVE).trim();
+        if (clave.isEmpty() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            escribirError(response, HttpStatus.BAD_REQUEST,
+                    "La cabecera " + CABECERA_CLAVE + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+            return;
+        }
+
+        PeticionReleible peticion = new PeticionReleible(request);
+        String huella = huella(request, peticion.cuerpo);
+
+        PeticionIdempotente previa = idempotenciaService.iniciar(clave, huella);
+        if (previa != null) {
+            if (!previa.getHuella().equals(huella)) {
+                escribirError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "La clave de idempotencia ya se ha usado con otra petición");
+            } else if (previa.getEstado() == PeticionIdempotente.EstadoPeticion.EN_CURSO) {
+                escribirError(response, HttpStatus.CONFLICT,
+                        "Hay una petición en curso con la misma clave de idempotencia");
+            } else {
+                repetir(previa, response);
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        boolean completada = false;
+        try {
+            filterChain.doFilter(peticion, respuesta);
+            if (respuesta.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotenciaService.completar(clave, huella, respuesta.getStatus(),
+                        respuesta.getContentType(), respuesta.getContentAsByteArray());
+                completada = true;
+            }
+        } finally {
+            if (!completada) {
+                idempotenciaService.liberar(clave);
+            }
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Escribe la respuesta guardada.
+     *
+     * @param previa la petición completada.
+     * @param response la respuesta.
+     * @throws IOException si falla la escritura.
+     */
+    private static void repetir(PeticionIdempotente previa, HttpServletResponse response) throws IOException {
+        response.setStatus(previa.getCodigoEstado());
+        if (previa.getTipoContenido() != null) {
+            response.setContentType(previa.getTipoContenido());
+        }
+        response.setHeader(CABECERA_REPETIDA, "true");
+        byte[] cuerpo = previa.getCuerpo() != null ? previa.getCuerpo() : new byte[0];
+        response.setContentLength(cuerpo.length);
+        response.getOutputStream().write(cuerpo);
+    }
+
+    /**
+     * Escribe un error con el mismo formato que {@code GlobalExceptionHandler}.
+     *
+     * @param response la respuesta.
+     * @param status el estado HTTP.
+     * @param mensaje el mensaje de error.
+     * @throws IOException si falla la escritura.
+     */
+    private static void escribirError(HttpServletResponse response, HttpStatus status, String mensaje) throws IOException {
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("status", status.value());
+        cuerpo.put("error", status.getReasonPhrase());
+        cuerpo.put("message", mensaje);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getOutputStream().write(OBJECT_MAPPER.writeValueAsBytes(cuerpo));
+    }
+
+    /**
+     * Calcula la huella SHA-256 del método, la ruta y el cuerpo de la
+     * petición.
+     *
+     * @param request la petición.
+     * @param cuerpo el cuerpo de la petición.
+     * @return la huella en hexadecimal.
+     */
+    static String huella(HttpServletRequest request, byte[] cuerpo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(cuerpo);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Petición cuyo cuerpo se lee por completo al crearla, para calcular la
+     * huella antes de procesarla y poder leerlo de nuevo en el controlador.
+     */
+    private static class PeticionReleible extends HttpServletRequestWrapper {
+
+        /**
+         * Cuerpo de la petición.
+         */
+        private final byte[] cuerpo;
+
+        /**
+         * Lee el cuerpo de la petición.
+         *
+         * @param request la petición original.
+         * @throws IOException si falla la lectura.
+         */
+        PeticionReleible(HttpServletRequest request) throws IOException {
+            super(request);
+            this.cuerpo = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String codificacion = getCharacterEncoding();
+            Charset charset = codificacion != null ? Charset.forName(codificacion) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
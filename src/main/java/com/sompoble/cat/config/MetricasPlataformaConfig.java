@@ -0,0 +1,49 @@
+package com.sompoble.cat.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Clase de configuración de las métricas de la plataforma. Define el grupo de
+ * hilos que calcula en paralelo las particiones de empresas, separado del
+ * resto para que una consulta de la plataforma no ocupe los hilos de la
+ * bandeja de salida ni más conexiones de las previstas.
+ */
+@Configuration
+public class MetricasPlataformaConfig {
+
+    /**
+     * Número de hilos que calculan particiones en paralelo.
+     */
+    @Value("${metricas.plataforma.hilos:4}")
+    private int hilos;
+
+    /**
+     * Capacidad de la cola de particiones a la espera de un hilo libre.
+     */
+    @Value("${metricas.plataforma.cola:64}")
+    private int capacidadCola;
+
+    /**
+     * Crea el grupo de hilos de las métricas de la plataforma. Si la cola está
+     * llena la partición la calcula el hilo que hizo la petición, de modo que
+     * nunca se pierde.
+     *
+     * @return el ejecutor de tareas de las métricas de la plataforma.
+     */
+    @Bean(name = "metricasPlataformaExecutor")
+    public ThreadPoolTaskExecutor metricasPlataformaExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("metricas-plataforma-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
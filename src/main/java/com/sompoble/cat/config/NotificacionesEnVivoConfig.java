@@ -0,0 +1,47 @@
+package com.sompoble.cat.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Clase de configuración del canal de notificaciones en vivo. Define el grupo
+ * de hilos que escribe los eventos en las conexiones de los suscriptores, de
+ * modo que un cliente lento no retiene el hilo que guardó la notificación.
+ */
+@Configuration
+public class NotificacionesEnVivoConfig {
+
+    /**
+     * Número de hilos que escriben eventos en paralelo.
+     */
+    @Value("${notificaciones.stream.hilos:2}")
+    private int hilos;
+
+    /**
+     * Capacidad de la cola de suscriptores a la espera de un hilo libre.
+     */
+    @Value("${notificaciones.stream.cola:1000}")
+    private int capacidadCola;
+
+    /**
+     * Crea el grupo de hilos del canal de notificaciones en vivo. Si la cola
+     * está llena la tarea se rechaza y el servicio cierra la conexión del
+     * suscriptor, que al reconectar recupera lo pendiente de la base de datos.
+     *
+     * @return el ejecutor de tareas del canal de notificaciones en vivo.
+     */
+    @Bean(name = "notificacionesEnVivoExecutor")
+    public ThreadPoolTaskExecutor notificacionesEnVivoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("notificaciones-vivo-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -0,0 +1,238 @@
+package com.sompoble.cat.config;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+/**
+ * {@link JavaMailSenderImpl} que mantiene abiertas unas pocas conexiones SMTP
+ * autenticadas y las reutiliza entre envíos.
+ * <p>
+ * La implementación de Spring abre una conexión por cada llamada a
+ * {@code send}, repitiendo la negociación STARTTLS y la autenticación. Aquí
+ * cada llamada toma una conexión libre del grupo (o abre una si no hay
+ * ninguna y no se ha alcanzado el máximo), envía todos los mensajes por ella
+ * y la devuelve al grupo. Las conexiones que llevan más tiempo inactivas del
+ * permitido se cierran antes de reutilizarlas, porque el servidor suele
+ * cortarlas. Si la conexión se pierde a mitad de un lote, se abre otra para
+ * los mensajes restantes.
+ * </p>
+ * <p>
+ * Como en la clase base, los mensajes que no se pueden enviar se devuelven en
+ * una {@link MailSendException} con el error de cada uno, sin impedir el
+ * envío de los demás. Cada lote de más de un mensaje registra su duración y
+ * su rendimiento.
+ * </p>
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledJavaMailSender.class);
+
+    /**
+     * Limita las conexiones abiertas a la vez.
+     */
+    private final Semaphore permisos;
+
+    /**
+     * Conexiones libres; la más reciente primero.
+     */
+    private final Deque<Conexion> libres = new ArrayDeque<>();
+
+    private final long inactividadMaximaMs;
+
+    private final AtomicLong conexionesAbiertas = new AtomicLong();
+
+    private final AtomicLong mensajesEnviados = new AtomicLong();
+
+    /**
+     * Crea el emisor.
+     *
+     * @param conexiones el número máximo de conexiones abiertas a la vez.
+     * @param inactividadMaximaMs el tiempo que una conexión libre puede
+     * reutilizarse sin volver a abrirla.
+     */
+    public PooledJavaMailSender(int conexiones, long inactividadMaximaMs) {
+        if (conexiones < 1) {
+            throw new IllegalArgumentException("El grupo necesita al menos una conexión");
+        }
+        this.permisos = new Semaphore(conexiones, true);
+        this.inactividadMaximaMs = inactividadMaximaMs;
+    }
+
+    /**
+     * Envía los mensajes por una conexión del grupo.
+     *
+     * @param mimeMessages los mensajes a enviar.
+     * @param originalMessages los mensajes originales, con los que se
+     * identifican los fallidos, o {@code null}.
+     * @throws MailException si falla la autenticación o algún mensaje.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) throws MailException {
+        Map<Object, Exception> fallidos = new LinkedHashMap<>();
+        long inicio = System.nanoTime();
+        try {
+            permisos.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrumpido esperando una conexión SMTP", e);
+        }
+        Conexion conexion = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                if (conexion == null) {
+                    try {
+                        conexion = obtener();
+                    } catch (AuthenticationFailedException e) {
+                        throw new MailAuthenticationException(e);
+                    } catch (Exception e) {
+                        // Sin conexión no se puede enviar ninguno de los restantes
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            fallidos.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], e);
+                        }
+                        throw new MailSendException("No se ha podido conectar con el servidor SMTP", e, fallidos);
+                    }
+                }
+                try {
+                    enviar(conexion.transporte, mimeMessages[i]);
+                    mensajesEnviados.incrementAndGet();
+                } catch (Exception e) {
+                    fallidos.put(original, e);
+                    if (!conexion.transporte.isConnected()) {
+                        cerrar(conexion);
+                        conexion = null;
+                    }
+                }
+            }
+        } finally {
+            if (conexion != null) {
+                devolver(conexion);
+            }
+            permisos.release();
+        }
+        if (mimeMessages.length > 1) {
+            long ms = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            int enviados = mimeMessages.length - fallidos.size();
+            logger.info("Lote SMTP: {} de {} correos enviados en {} ms ({} correos/s)",
+                    enviados, mimeMessages.length, ms, enviados * 1000L / ms);
+        }
+        if (!fallidos.isEmpty()) {
+            throw new MailSendException(fallidos);
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres al detener la aplicación.
+     */
+    @Override
+    public void destroy() {
+        Conexion conexion;
+        while ((conexion = tomarLibre()) != null) {
+            cerrar(conexion);
+        }
+    }
+
+    /**
+     * Devuelve el número de conexiones abiertas desde el arranque.
+     *
+     * @return el número de conexiones abiertas.
+     */
+    public long getConexionesAbiertas() {
+        return conexionesAbiertas.get();
+    }
+
+    /**
+     * Devuelve el número de mensajes enviados desde el arranque.
+     *
+     * @return el número de mensajes enviados.
+     */
+    public long getMensajesEnviados() {
+        return mensajesEnviados.get();
+    }
+
+    /**
+     * Toma una conexión libre que siga viva o abre una nueva.
+     */
+    private Conexion obtener() throws MessagingException {
+        Conexion conexion;
+        while ((conexion = tomarLibre()) != null) {
+            if (System.currentTimeMillis() - conexion.ultimoUso <= inactividadMaximaMs
+                    && conexion.transporte.isConnected()) {
+                return conexion;
+            }
+            cerrar(conexion);
+        }
+        Transport transporte = connectTransport();
+        conexionesAbiertas.incrementAndGet();
+        return new Conexion(transporte);
+    }
+
+    private Conexion tomarLibre() {
+        synchronized (libres) {
+            return libres.pollFirst();
+        }
+    }
+
+    private void devolver(Conexion conexion) {
+        conexion.ultimoUso = System.currentTimeMillis();
+        synchronized (libres) {
+            libres.addFirst(conexion);
+        }
+    }
+
+    /**
+     * Envía un mensaje como lo hace la clase base, conservando su
+     * {@code Message-ID}.
+     */
+    private static void enviar(Transport transporte, MimeMessage mensaje) throws MessagingException {
+        if (mensaje.getSentDate() == null) {
+            mensaje.setSentDate(new Date());
+        }
+        String messageId = mensaje.getMessageID();
+        mensaje.saveChanges();
+        if (messageId != null) {
+            mensaje.setHeader("Message-ID", messageId);
+        }
+        Address[] destinatarios = mensaje.getAllRecipients();
+        transporte.sendMessage(mensaje, destinatarios != null ? destinatarios : new Address[0]);
+    }
+
+    private static void cerrar(Conexion conexion) {
+        try {
+            conexion.transporte.close();
+        } catch (MessagingException e) {
+            logger.debug("Error al cerrar una conexión SMTP", e);
+        }
+    }
+
+    /**
+     * Conexión SMTP del grupo con el momento de su último uso.
+     */
+    private static final class Conexion {
+
+        private final Transport transporte;
+
+        private long ultimoUso = System.currentTimeMillis();
+
+        Conexion(Transport transporte) {
+            this.transporte = transporte;
+        }
+    }
+}
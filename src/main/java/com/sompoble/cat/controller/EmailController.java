@@ -1,8 +1,11 @@
 package com.sompoble.cat.controller;
 
+import com.sompoble.cat.domain.MensajeFallido;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.service.BandejaSalidaService;
 import com.sompoble.cat.service.EmailService;
 import com.sompoble.cat.service.NotificationService;
 import com.sompoble.cat.service.ReminderService;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.mail.MessagingException;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -49,6 +53,12 @@ public class EmailController {
     @Autowired
     private ReminderService reminderService;
 
+    /**
+     * Servicio de la bandeja de salida de correos.
+     */
+    @Autowired
+    private BandejaSalidaService bandejaSalidaService;
+
     /**
      * Envía un correo electrónico personalizado basado en un DTO, luego guarda
      * la notificación y reenvía por email la notificación.
@@ -128,8 +138,11 @@ public class EmailController {
     }
 
     /**
-     * Configura notificaciones: guarda un registro en Notificacion y envía un
-     * email resumen de la nueva configuración.
+     * Configura notificaciones: guarda la configuración, que comparten todas
+     * las instancias, y devuelve los valores aplicados. Con {@code enabled} a true y una
+     * frecuencia horaria o diaria ("hourly", "daily"), los correos
+     * informativos se agrupan en un resumen por destinatario que se envía a
+     * la hora indicada en {@code sendTime}.
      *
      * @param cfg Mapa con los parámetros de configuración (enabled, frequency,
      * sendTime)
@@ -144,22 +157,14 @@ public class EmailController {
             String frequency = cfg.containsKey("frequency") ? cfg.get("frequency").toString() : null;
             String sendTime = cfg.containsKey("sendTime") ? cfg.get("sendTime").toString() : null;
 
-            String msg = String.format(
+            notificationService.setConfig(enabled, frequency, sendTime);
+
+            return ResponseEntity.ok(String.format(
                     "Configuración actualizada: enabled=%s, frequency=%s, sendTime=%s",
                     enabled, frequency, sendTime
-            );
-
-            Notificacion notConfig = new Notificacion(
-                    null,
-                    null,
-                    msg,
-                    Notificacion.TipoNotificacion.INFORMACION
-            );
-
-            notificationService.saveNotification(notConfig);
-            emailService.sendNotificationEmail(notConfig);
-
-            return ResponseEntity.ok("Configuración aplicada y notificación enviada");
+            ));
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace(); // ⚠️ Esto debe mostrar el error real en la consola (a la derecha en rojo)
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -170,6 +175,48 @@ public class EmailController {
 
 
 
+    /**
+     * Lista los correos que no se han podido entregar, con el último error de
+     * cada uno. Se pagina por identificador: para obtener la página
+     * siguiente se pasa el identificador del último mensaje recibido.
+     *
+     * @param despuesDe el último identificador de la página anterior
+     * (opcional).
+     * @param limite el número máximo de mensajes (por defecto 50, máximo
+     * 500).
+     * @return los mensajes fallidos.
+     */
+    @GetMapping("/fallidos")
+    public ResponseEntity<List<MensajeFallido>> listarFallidos(@RequestParam(required = false) Long despuesDe,
+            @RequestParam(defaultValue = "50") int limite) {
+        return ResponseEntity.ok(bandejaSalidaService.listarFallidos(despuesDe, Math.max(1, Math.min(limite, 500))));
+    }
+
+    /**
+     * Vuelve a encolar un correo fallido en la bandeja de salida.
+     *
+     * @param id el identificador del mensaje fallido.
+     * @return ResponseEntity con mensaje de confirmación
+     */
+    @PostMapping("/fallidos/{id}/reenviar")
+    public ResponseEntity<String> reenviarFallido(@PathVariable Long id) {
+        bandejaSalidaService.reenviarFallido(id);
+        return ResponseEntity.ok("Correo encolado de nuevo");
+    }
+
+    /**
+     * Vuelve a encolar todos los correos fallidos, o los dirigidos a un
+     * dominio. Se entregan respetando los límites de envío.
+     *
+     * @param dominio el dominio de los destinatarios (opcional).
+     * @return el número de correos encolados.
+     */
+    @PostMapping("/fallidos/reenviar")
+    public ResponseEntity<Map<String, Integer>> reenviarFallidos(@RequestParam(required = false) String dominio) {
+        int reenviados = bandejaSalidaService.reenviarFallidos(dominio);
+        return ResponseEntity.ok(Map.of("reenviados", reenviados));
+    }
+
     /**
      * Método para pruebas internas de backend. Envía un correo de prueba en
      * formato texto plano.
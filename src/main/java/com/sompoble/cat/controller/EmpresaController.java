@@ -13,7 +13,13 @@ import com.sompoble.cat.service.EmpresaService;
 import com.sompoble.cat.exception.BadRequestException;
 import com.sompoble.cat.exception.ResourceNotFoundException;
 import com.sompoble.cat.service.EmpresarioService;
+import com.sompoble.cat.service.ExportacionService;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,8 +27,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Controlador REST que expone endpoints para administrar empresas y
@@ -47,6 +57,11 @@ public class EmpresaController {
      */
     @Autowired
     private EmpresarioHibernate empresarioHibernate;
+    /**
+     * Servicio que exporta las reservas y métricas de las empresas.
+     */
+    @Autowired
+    private ExportacionService exportacionService;
 
     /**
      * Obtiene todas las empresas registradas en la base de datos.
@@ -98,6 +113,79 @@ public class EmpresaController {
         }
     }
 
+    /**
+     * Exporta las reservas o las métricas diarias de una empresa en CSV o
+     * NDJSON. Las filas se leen de la base de datos y se escriben en la
+     * respuesta a medida que llegan, por lo que la memoria usada no depende
+     * del tamaño de la exportación. Si el cliente acepta gzip, la respuesta
+     * se comprime.
+     *
+     * @param identificadorFiscal Identificador fiscal de la empresa.
+     * @param format Formato de salida: {@code csv} o {@code ndjson}.
+     * @param datos Datos a exportar: {@code reservas} (por defecto) o
+     * {@code metricas}.
+     * @param desde Primera fecha (inclusive, formato yyyy-MM-dd), opcional.
+     * @param hasta Última fecha (inclusive, formato yyyy-MM-dd), opcional.
+     * @param aceptaCodificacion Cabecera {@code Accept-Encoding} de la
+     * petición.
+     * @return ResponseEntity con el cuerpo de la exportación en streaming.
+     * @throws BadRequestException si el formato, los datos o el rango de
+     * fechas no son válidos.
+     * @throws ResourceNotFoundException si la empresa no existe.
+     */
+    @GetMapping("/{identificadorFiscal}/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @PathVariable String identificadorFiscal,
+            @RequestParam("format") String format,
+            @RequestParam(value = "datos", defaultValue = "reservas") String datos,
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceptaCodificacion) {
+        ExportacionService.Formato formato;
+        try {
+            formato = ExportacionService.Formato.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Formato de exportación no válido: " + format + ". Use csv o ndjson");
+        }
+        if (!datos.equals("reservas") && !datos.equals("metricas")) {
+            throw new BadRequestException("Datos de exportación no válidos: " + datos + ". Use reservas o metricas");
+        }
+        if (desde != null && hasta != null && hasta.isBefore(desde)) {
+            throw new BadRequestException("La fecha 'hasta' no puede ser anterior a la fecha 'desde'");
+        }
+        EmpresaDTO empresa = empresaService.findByIdentificadorFiscal(identificadorFiscal);
+        if (empresa == null) {
+            throw new ResourceNotFoundException("Empresa o autónomo con " + identificadorFiscal + " no encontrada");
+        }
+
+        boolean gzip = aceptaCodificacion != null && aceptaCodificacion.toLowerCase(Locale.ROOT).contains("gzip");
+        String extension = formato == ExportacionService.Formato.CSV ? "csv" : "ndjson";
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(formato == ExportacionService.Formato.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON);
+        cabeceras.setContentDisposition(ContentDisposition.attachment()
+                .filename(datos + "-" + identificadorFiscal + "." + extension)
+                .build());
+        cabeceras.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            cabeceras.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        StreamingResponseBody cuerpo = salida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(salida, 8192) : salida;
+            if (datos.equals("reservas")) {
+                exportacionService.exportarReservas(identificadorFiscal, desde, hasta, formato, destino);
+            } else {
+                exportacionService.exportarMetricas(empresa.getIdEmpresa(), desde, hasta, formato, destino);
+            }
+            if (destino instanceof GZIPOutputStream comprimido) {
+                comprimido.finish();
+            }
+        };
+        return ResponseEntity.ok().headers(cabeceras).body(cuerpo);
+    }
+
     //IMPORTANTE: se comenta este metodo ya que se hace uso del que permite realizar la subida de imagenes. No se borra
     //ya que se desea mantener por si en un futuro es necesario recuperarlo
     /*
@@ -1,6 +1,11 @@
 package com.sompoble.cat.controller;
 
+import com.sompoble.cat.dto.EstadisticasCacheDTO;
+import com.sompoble.cat.dto.HistogramasServicioDTO;
 import com.sompoble.cat.dto.PanelMetricasDTO;
+import com.sompoble.cat.dto.PanelPlataformaDTO;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.MetricasPlataformaService;
 import com.sompoble.cat.service.MetricasService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -19,6 +24,12 @@ public class MetricasController {
     @Autowired
     private MetricasService metricasService;
 
+    @Autowired
+    private MetricasPlataformaService metricasPlataformaService;
+
+    @Autowired
+    private HistogramasService histogramasService;
+
     /**
      * Obtiene las métricas generales, por servicio y mensuales de una empresa
      * en un rango de fechas.
@@ -36,4 +47,52 @@ public class MetricasController {
 
         return metricasService.obtenerMetricas(empresaIdFiscal, fechaInicio, fechaFin);
     }
+
+    /**
+     * Obtiene los totales de todas las empresas de la plataforma y las que
+     * más ingresan y más reservas reciben en un rango de fechas.
+     *
+     * @param fechaInicio Fecha de inicio del rango (formato yyyy-MM-dd).
+     * @param fechaFin Fecha de fin del rango (formato yyyy-MM-dd).
+     * @param top Número de empresas de cada clasificación.
+     * @return DTO con los totales y las clasificaciones.
+     */
+    @GetMapping("/plataforma")
+    public PanelPlataformaDTO obtenerMetricasPlataforma(
+            @RequestParam(value = "fechaInicio", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(value = "fechaFin", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(value = "top", required = false) Integer top) {
+
+        return metricasPlataformaService.obtenerMetricasPlataforma(fechaInicio, fechaFin, top);
+    }
+
+    /**
+     * Obtiene los histogramas de las reservas de un servicio en un rango de
+     * fechas: por hora del día, por antelación y por ocupación de cada día
+     * respecto al límite de reservas, en total y por día de la semana.
+     *
+     * @param idServicio Identificador del servicio.
+     * @param fechaInicio Fecha de inicio del rango (formato yyyy-MM-dd).
+     * @param fechaFin Fecha de fin del rango (formato yyyy-MM-dd).
+     * @return DTO con los histogramas del servicio.
+     */
+    @GetMapping("/servicios/{idServicio}/histogramas")
+    public HistogramasServicioDTO obtenerHistogramas(
+            @PathVariable("idServicio") Long idServicio,
+            @RequestParam(value = "fechaInicio", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(value = "fechaFin", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+
+        return histogramasService.obtener(idServicio, fechaInicio, fechaFin);
+    }
+
+    /**
+     * Obtiene los contadores de aciertos, fallos, desalojos, caducidades e
+     * invalidaciones de cada nivel de la caché de métricas.
+     *
+     * @return DTO con las estadísticas de la caché.
+     */
+    @GetMapping("/cache")
+    public EstadisticasCacheDTO estadisticasCache() {
+        return metricasService.estadisticasCache();
+    }
 }
@@ -2,13 +2,17 @@ package com.sompoble.cat.controller;
 
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.dto.ClienteDTO;
+import com.sompoble.cat.exception.BadRequestException;
 import com.sompoble.cat.exception.ResourceNotFoundException;
 import com.sompoble.cat.service.ClienteService;
+import com.sompoble.cat.service.NotificacionesEnVivoService;
 import com.sompoble.cat.service.NotificationService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -34,6 +38,12 @@ public class NotificationController {
     @Autowired
     private ClienteService clienteService;
 
+    /**
+     * Servicio que envía las notificaciones a los clientes conectados.
+     */
+    @Autowired
+    private NotificacionesEnVivoService notificacionesEnVivoService;
+
     private final NotificationService notificationService;
 
     /**
@@ -59,6 +69,39 @@ public class NotificationController {
         return ResponseEntity.ok(notificacion);
     }
 
+    /**
+     * Abre un canal Server-Sent Events por el que el cliente recibe sus
+     * notificaciones en el momento en que se guardan, en lugar de consultar
+     * periódicamente el listado. Cada evento lleva como identificador el de
+     * la notificación; al reconectar, el navegador envía el último recibido
+     * en la cabecera {@code Last-Event-ID} y se reenvían las posteriores.
+     *
+     * @param dni el DNI del cliente.
+     * @param ultimoEventoId el identificador de la última notificación
+     * recibida, si es una reconexión.
+     * @return el emisor de eventos de la conexión.
+     * @throws ResourceNotFoundException si el cliente no existe.
+     * @throws BadRequestException si la cabecera {@code Last-Event-ID} no es
+     * un identificador de notificación.
+     */
+    @GetMapping(value = "/stream/{dni}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirNotificaciones(@PathVariable String dni,
+            @RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        ClienteDTO cliente = clienteService.findByDni(dni);
+        if (cliente == null) {
+            throw new ResourceNotFoundException("Cliente con DNI " + dni + " no encontrado.");
+        }
+        Long ultimoId = null;
+        if (ultimoEventoId != null && !ultimoEventoId.isBlank()) {
+            try {
+                ultimoId = Long.valueOf(ultimoEventoId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Last-Event-ID no válido: " + ultimoEventoId);
+            }
+        }
+        return notificacionesEnVivoService.suscribir(dni, ultimoId);
+    }
+
     //------------------------------------------------------------------------//
     // PARA ADMINISTRACION INTERNA:
     /**
@@ -3,30 +3,41 @@ package com.sompoble.cat.controller;
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Empresa;
 import com.sompoble.cat.domain.Horario;
-import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.dto.ReservaDTO;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.sompoble.cat.dto.ClienteDTO;
-import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
 import com.sompoble.cat.dto.EmpresaDTO;
 import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ConflictoException;
+import com.sompoble.cat.exception.LimiteReservasException;
 import com.sompoble.cat.exception.ResourceNotFoundException;
 import com.sompoble.cat.repository.impl.ReservaHibernate;
 import com.sompoble.cat.service.ClienteService;
-import com.sompoble.cat.service.EmailService;
 import com.sompoble.cat.service.EmpresaService;
-import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.service.ListaEsperaService;
 import com.sompoble.cat.service.ReservaService;
 import com.sompoble.cat.service.ServicioService;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Controlador REST para la entidad {@code Reserva}.
@@ -41,6 +52,13 @@ import java.util.Map;
 @RequestMapping("/api/reservas")
 public class ReservaController {
 
+    /**
+     * Serializador de cada línea de las respuestas NDJSON. {@link ReservaDTO}
+     * solo contiene cadenas y números, por lo que no necesita la configuración
+     * del {@code ObjectMapper} de la aplicación.
+     */
+    private static final ObjectWriter ESCRITOR_NDJSON = new ObjectMapper().writerFor(ReservaDTO.class);
+
     /**
      * Servicio que gestiona las operaciones relacionadas con las reservas.
      */
@@ -69,47 +87,137 @@ public class ReservaController {
      */
     @Autowired
     private ReservaHibernate reservaHibernate;
+    /**
+     * Servicio que gestiona las listas de espera de los servicios completos.
+     */
     @Autowired
-    private EmailService emailService;
-
-    @Autowired
-    private NotificationService notificationService;
+    private ListaEsperaService listaEsperaService;
 
     /**
-     * Obtiene todas las reservas asociadas a un cliente mediante su DNI.
+     * Obtiene las reservas asociadas a un cliente mediante su DNI.
+     * <p>
+     * Si se indica {@code cursor} o {@code limite}, se devuelve una página
+     * ordenada por fecha, hora e identificador junto con el cursor de la
+     * página siguiente; en caso contrario, se devuelven todas las reservas.
+     * </p>
      *
      * @param dni el documento nacional de identidad del cliente.
-     * @return una lista de DTOs de reservas realizadas por el cliente.
+     * @param cursor el cursor devuelto con la página anterior (opcional).
+     * @param limite el número máximo de reservas de la página (opcional).
+     * @return una lista de DTOs de reservas realizadas por el cliente, o una
+     * página de reservas.
      */
     @GetMapping("/clientes/{dni}")
-    public ResponseEntity<List<ReservaDTO>> getReservasByCliente(@PathVariable String dni) {
+    public ResponseEntity<?> getReservasByCliente(@PathVariable String dni,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
         ClienteDTO cliente = clienteService.findByDni(dni);
         if (cliente == null) {
             throw new ResourceNotFoundException("Cliente con DNI " + dni + " no encontrado.");
         }
 
+        if (cursor != null || limite != null) {
+            return ResponseEntity.ok(reservaService.findPaginaByClienteDni(dni, cursor, limite));
+        }
         List<ReservaDTO> reservas = reservaService.findByClienteDni(dni);
         return ResponseEntity.ok(reservas);
     }
 
     /**
-     * Obtiene todas las reservas asociadas a una empresa (o autónomo) mediante
-     * su identificador fiscal.
+     * Envía todas las reservas de un cliente como NDJSON (una reserva por
+     * línea), leyéndolas de la base de datos a medida que se escriben.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @return el flujo de reservas del cliente.
+     */
+    @GetMapping(value = "/clientes/{dni}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReservasByCliente(@PathVariable String dni) {
+        ClienteDTO cliente = clienteService.findByDni(dni);
+        if (cliente == null) {
+            throw new ResourceNotFoundException("Cliente con DNI " + dni + " no encontrado.");
+        }
+
+        return ndjson(salida -> reservaService.recorrerByClienteDni(dni, escritorNdjson(salida)));
+    }
+
+    /**
+     * Obtiene las reservas asociadas a una empresa (o autónomo) mediante su
+     * identificador fiscal.
+     * <p>
+     * Si se indica {@code cursor} o {@code limite}, se devuelve una página
+     * ordenada por fecha, hora e identificador junto con el cursor de la
+     * página siguiente; en caso contrario, se devuelven todas las reservas.
+     * </p>
      *
      * @param identificadorFiscal el identificador fiscal de la empresa.
-     * @return una lista de DTOs de reservas asociadas a la empresa.
+     * @param cursor el cursor devuelto con la página anterior (opcional).
+     * @param limite el número máximo de reservas de la página (opcional).
+     * @return una lista de DTOs de reservas asociadas a la empresa, o una
+     * página de reservas.
      */
     @GetMapping("/empresas/{identificadorFiscal}")
-    public ResponseEntity<List<ReservaDTO>> getReservasByEmpresa(@PathVariable String identificadorFiscal) {
+    public ResponseEntity<?> getReservasByEmpresa(@PathVariable String identificadorFiscal,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
         EmpresaDTO empresa = empresaService.findByIdentificadorFiscal(identificadorFiscal);
         if (empresa == null) {
             throw new ResourceNotFoundException("Empresa con identificador fiscal " + identificadorFiscal + " no encontrado.");
         }
 
+        if (cursor != null || limite != null) {
+            return ResponseEntity.ok(reservaService.findPaginaByEmpresaIdentificadorFiscal(identificadorFiscal, cursor, limite));
+        }
         List<ReservaDTO> reservas = reservaService.findByEmpresaIdentificadorFiscal(identificadorFiscal);
         return ResponseEntity.ok(reservas);
     }
 
+    /**
+     * Envía todas las reservas de una empresa (o autónomo) como NDJSON (una
+     * reserva por línea), leyéndolas de la base de datos a medida que se
+     * escriben.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @return el flujo de reservas de la empresa.
+     */
+    @GetMapping(value = "/empresas/{identificadorFiscal}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamReservasByEmpresa(@PathVariable String identificadorFiscal) {
+        EmpresaDTO empresa = empresaService.findByIdentificadorFiscal(identificadorFiscal);
+        if (empresa == null) {
+            throw new ResourceNotFoundException("Empresa con identificador fiscal " + identificadorFiscal + " no encontrado.");
+        }
+
+        return ndjson(salida -> reservaService.recorrerByEmpresaIdentificadorFiscal(identificadorFiscal, escritorNdjson(salida)));
+    }
+
+    /**
+     * Construye una respuesta NDJSON cuyo cuerpo se escribe en streaming.
+     *
+     * @param cuerpo el cuerpo de la respuesta.
+     * @return la respuesta con el tipo de contenido NDJSON.
+     */
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody cuerpo) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
+    /**
+     * Crea la acción que escribe cada reserva como una línea JSON.
+     *
+     * @param salida el flujo de salida de la respuesta.
+     * @return la acción que escribe cada reserva.
+     */
+    private static Consumer<ReservaDTO> escritorNdjson(OutputStream salida) {
+        return reserva -> {
+            try {
+                salida.write(ESCRITOR_NDJSON.writeValueAsBytes(reserva));
+                salida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
     /**
      * Busca una reserva por su identificador único.
      *
@@ -144,11 +252,15 @@ public class ReservaController {
      * <li>Verificar que la hora de reserva esté dentro de los horarios
      * disponibles del servicio.</li>
      * </ul>
-     * Después de crear la reserva, el método también:
-     * <ul>
-     * <li>Envía un correo electrónico de confirmación al cliente.</li>
-     * <li>Registra una notificación en la base de datos para el cliente.</li>
-     * </ul>
+     * Al crear la reserva se encolan, en la misma transacción, el correo de
+     * confirmación y la notificación para el cliente, que se entregan en
+     * segundo plano.
+     * <p>
+     * Si el servicio está completo en la fecha indicada y la petición incluye
+     * {@code listaEspera: true}, el cliente se apunta en la lista de espera en
+     * lugar de recibir un error; la reserva se creará automáticamente cuando
+     * se libere una plaza.
+     * </p>
      *
      * @param request Un mapa que contiene los datos de la reserva, en el
      * siguiente formato:
@@ -161,17 +273,18 @@ public class ReservaController {
      * <li>cliente: { dni (String) }</li>
      * <li>empresa: { identificadorFiscal (String) }</li>
      * <li>servicio: { idServicio (Long o Integer) }</li>
+     * <li>listaEspera (Boolean, opcional)</li>
      * </ul>
      * }</li>
      * </ul>
      * @return Un {@link ResponseEntity} con los siguientes posibles resultados:
      * <ul>
      * <li>201 Created si la reserva se creó exitosamente.</li>
+     * <li>202 Accepted con la entrada de la lista de espera si el servicio
+     * está completo y se ha pedido la lista de espera.</li>
      * <li>400 Bad Request si hay algún error de validación (cliente, empresa,
      * servicio inexistente, límite de reservas superado, hora inválida,
      * etc.).</li>
-     * <li>500 Internal Server Error si ocurre un error al enviar el correo o
-     * registrar la notificación.</li>
      * </ul>
      *
      * @throws BadRequestException si ocurre algún error de validación durante
@@ -218,14 +331,14 @@ public class ReservaController {
             throw new BadRequestException("Fecha, hora y estado son obligatorios");
         }
 
-        int currentReservations = reservaService.countReservasByServicioIdAndFecha(idServicio, fechaReserva);
-        Integer limiteReservasServicio = servicio.getLimiteReservas();
-
-        if (currentReservations >= limiteReservasServicio) {
-            throw new BadRequestException("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada");
+        LocalDate fecha;
+        LocalTime horaReserva;
+        try {
+            fecha = LocalDate.parse(fechaReserva);
+            horaReserva = LocalTime.parse(hora);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("La fecha debe tener el formato yyyy-MM-dd y la hora el formato HH:mm");
         }
-
-        LocalTime horaReserva = LocalTime.parse(hora);
         List<Horario> horariosServicio = servicio.getHorarios();
 
         if (horariosServicio == null || horariosServicio.isEmpty()) {
@@ -246,55 +359,25 @@ public class ReservaController {
             throw new BadRequestException("La hora de reserva no está dentro del horario disponible para este servicio");
         }
 
-        // 2. Crear la reserva
+        // 2. Crear la reserva (la admisión frente al límite de reservas es atómica en el servicio)
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva(fechaReserva);
-        reserva.setHora(hora);
+        reserva.setFechaReserva(fecha);
+        reserva.setHora(horaReserva);
         reserva.setEstado(estado);
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
         reserva.setServicio(servicio);
-        reservaService.addReserva(reserva);
-
-        // 3. Enviar correo electrónico al cliente
         try {
-            EmailDTO emailDTO = new EmailDTO();
-            emailDTO.setDestinatario(cliente.getEmail());
-            emailDTO.setAsunto("Confirmación de Reserva");
-            emailDTO.setMensaje(String.format(
-                    "Estimado/a %s,\n\nSu reserva ha sido confirmada con éxito.\n"
-                    + "Detalles de la reserva:\n"
-                    + "- Fecha: %s\n"
-                    + "- Hora: %s\n"
-                    + "- Servicio: %s\n"
-                    + "- Empresa: %s",
-                    cliente.getNombre(),
-                    fechaReserva,
-                    hora,
-                    servicio.getNombre(),
-                    empresa.getNombre()
-            ));
-            emailService.sendMail(emailDTO);
-
-            // 4. Registrar la notificación en la base de datos
-            Notificacion notificacion = new Notificacion();
-            notificacion.setCliente(cliente);
-            notificacion.setMensaje(String.format(
-                    "Se ha realizado una nueva reserva para el servicio '%s' el día %s a las %s.",
-                    servicio.getNombre(),
-                    fechaReserva,
-                    hora
-            ));
-            notificacion.setTipo(Notificacion.TipoNotificacion.INFORMACION);
-            notificationService.saveNotification(notificacion);
-
-        } catch (Exception e) {
-            // Manejar errores de envío de correo o persistencia de notificaciones
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error al enviar correo o registrar notificación: " + e.getMessage());
+            reservaService.addReserva(reserva);
+        } catch (LimiteReservasException e) {
+            if (!Boolean.TRUE.equals(reservaData.get("listaEspera"))) {
+                throw e;
+            }
+            EntradaListaEsperaDTO entrada = listaEsperaService.apuntar(cliente, servicio, fecha, horaReserva);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(entrada);
         }
 
-        // 5. Respuesta exitosa
+        // 3. Respuesta exitosa (el correo y la notificación se entregan en segundo plano)
         return ResponseEntity.ok("Reserva con ID " + reserva.getIdReserva() + " creada correctamente");
     }
 
@@ -315,9 +398,8 @@ public class ReservaController {
      * <li>Que la hora proporcionada esté dentro del rango de horarios definidos
      * para el servicio.</li>
      * </ul>
-     * También se envía un correo electrónico de confirmación al cliente y se
-     * registra una notificación en la base de datos al finalizar exitosamente
-     * la actualización.
+     * El correo de confirmación y la notificación para el cliente se encolan
+     * junto con la actualización y se entregan en segundo plano.
      *
      * @param id El ID de la reserva a actualizar.
      * @param updates Un mapa con los campos a actualizar. Puede incluir:
@@ -329,6 +411,8 @@ public class ReservaController {
      * <li>cliente (objeto que contiene el dni del cliente)</li>
      * <li>empresa (objeto que contiene el identificadorFiscal de la
      * empresa)</li>
+     * <li>version (Long), la versión de la reserva que se leyó, para rechazar
+     * el cambio si otra petición la ha modificado entretanto</li>
      * </ul>
      * @return Un {@link ResponseEntity} indicando el resultado de la operación:
      * <ul>
@@ -337,24 +421,32 @@ public class ReservaController {
      * servicio inválidos, límite de reservas alcanzado, hora inválida,
      * etc.).</li>
      * <li>404 Not Found si no se encuentra la reserva.</li>
-     * <li>500 Internal Server Error si ocurre un problema enviando el correo o
-     * registrando la notificación.</li>
+     * <li>409 Conflict si la reserva ha cambiado desde la versión indicada o
+     * si otra petición está modificando el mismo servicio y fecha.</li>
      * </ul>
      *
      * @throws ResourceNotFoundException si no se encuentra la reserva.
      * @throws BadRequestException si ocurre algún error de validación durante
      * la actualización.
+     * @throws ConflictoException si hay una modificación concurrente.
      */
     @PutMapping("/{id}")
     public ResponseEntity<?> updateReserva(@PathVariable Long id, @RequestBody Map<String, Object> updates) {
         try {
-            // Obtener la reserva existente completa para comparar valores originales
-            Reserva originalReserva = reservaService.findByIdFull(id);
-            if (originalReserva == null) {
+            ReservaDTO existingReserva = reservaService.findById(id);
+            if (existingReserva == null) {
                 throw new ResourceNotFoundException("No se encontró una reserva con ID " + id);
             }
 
-            ReservaDTO existingReserva = reservaService.findById(id);
+            // Si el cliente indica la versión que leyó, se rechaza el cambio cuando
+            // la reserva ya ha sido modificada por otra petición
+            if (updates.get("version") != null) {
+                Long versionLeida = Long.valueOf(updates.get("version").toString());
+                if (!versionLeida.equals(existingReserva.getVersion())) {
+                    throw new ConflictoException("La reserva con ID " + id
+                            + " ha sido modificada por otra petición. Vuelva a consultarla y repita el cambio");
+                }
+            }
 
             // Guardar valores originales para comparación
             String originalFecha = existingReserva.getFechaReserva();
@@ -454,26 +546,11 @@ public class ReservaController {
             boolean horaChanged = !originalHora.equals(existingReserva.getHora());
 
             if (fechaChanged || servicioChanged || horaChanged) {
-                // Obtener el servicio para verificar el límite
+                // Obtener el servicio para validar el horario; el límite de reservas lo
+                // comprueba el libro de capacidad al guardar la reserva
                 Long servicioId = existingReserva.getIdServicio();
-                String fechaReserva = existingReserva.getFechaReserva();
                 Servicio servicio = servicioService.obtenerPorId(servicioId);
 
-                // Contar reservas actuales para esa fecha y servicio, excluyendo esta reserva
-                int currentReservations = reservaService.countReservasByServicioIdAndFecha(servicioId, fechaReserva);
-
-                // Si no hemos cambiado la fecha ni el servicio, estamos contando la reserva actual también
-                // así que debemos restar 1 para no contarla dos veces
-                if (!fechaChanged && !servicioChanged) {
-                    currentReservations--;
-                }
-
-                Integer limiteReservasServicio = servicio.getLimiteReservas();
-
-                if (currentReservations >= limiteReservasServicio) {
-                    throw new BadRequestException("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada");
-                }
-
                 String hora = existingReserva.getHora();
                 LocalTime horaReserva = LocalTime.parse(hora);
 
@@ -501,41 +578,9 @@ public class ReservaController {
             Reserva reserva = reservaHibernate.convertToEntity(existingReserva);
             reservaService.updateReserva(reserva);
 
-            // Enviar correo electrónico al cliente
-            Cliente cliente = clienteService.findByDniFull(existingReserva.getDniCliente());
-            try {
-                EmailDTO emailDTO = new EmailDTO();
-                emailDTO.setDestinatario(cliente.getEmail());
-                emailDTO.setAsunto("Actualización de Reserva");
-                emailDTO.setMensaje(String.format(
-                        "Estimado/a %s,\n\nSu reserva ha sido actualizada con éxito.\n"
-                        + "Detalles actualizados:\n"
-                        + "- Fecha: %s\n"
-                        + "- Hora: %s",
-                        cliente.getNombre(),
-                        existingReserva.getFechaReserva(),
-                        existingReserva.getHora()
-                ));
-                emailService.sendMail(emailDTO);
-
-                // Registrar la notificación en la base de datos
-                Notificacion notificacion = new Notificacion();
-                notificacion.setCliente(cliente);
-                notificacion.setMensaje(String.format(
-                        "Se ha actualizado su reserva para el día %s a las %s.",
-                        existingReserva.getFechaReserva(),
-                        existingReserva.getHora()
-                ));
-                notificacion.setTipo(Notificacion.TipoNotificacion.INFORMACION);
-                notificationService.saveNotification(notificacion);
-
-            } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Error al enviar correo o registrar notificación: " + e.getMessage());
-            }
-
             return ResponseEntity.ok("Reserva con ID " + id + " actualizada correctamente");////**************************************//
-        } catch (ResourceNotFoundException | BadRequestException e) {
+        } catch (ResourceNotFoundException | BadRequestException | ConflictoException
+                | ObjectOptimisticLockingFailureException e) {
             throw e;
         } catch (Exception e) {
             throw new BadRequestException("Error al actualizar la reserva: " + e.getMessage());
@@ -550,17 +595,10 @@ public class ReservaController {
      * <ul>
      * <li>Verifica que exista una reserva con el ID proporcionado.</li>
      * <li>Elimina la reserva de la base de datos.</li>
-     * <li>Envía un correo electrónico al cliente informando sobre la
-     * cancelación de la reserva.</li>
-     * <li>Registra una notificación en la base de datos asociada al
-     * cliente.</li>
+     * <li>Encola el correo y la notificación que informan al cliente de la
+     * cancelación, que se entregan en segundo plano.</li>
      * </ul>
      *
-     * <p>
-     * Si ocurre algún error durante el proceso (por ejemplo, al enviar correos
-     * o registrar notificaciones), se devuelve una respuesta HTTP con código
-     * 500 Internal Server Error.</p>
-     *
      * @param id el identificador único de la reserva que se desea eliminar.
      * @return una respuesta HTTP con código 200 OK si la reserva se elimina
      * correctamente.
@@ -568,8 +606,6 @@ public class ReservaController {
      * proporcionado.
      * @see ReservaService#findById(Long)
      * @see ReservaService#deleteById(Long)
-     * @see EmailService#sendMail(EmailDTO)
-     * @see NotificationService#saveNotification(Notificacion)
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteReserva(@PathVariable Long id) {
@@ -578,44 +614,9 @@ public class ReservaController {
             throw new ResourceNotFoundException("No se encontró una reserva con ID " + id);
         }
 
-        // Obtener el cliente asociado a la reserva
-        Cliente cliente = clienteService.findByDniFull(existing.getDniCliente());
-
-        // Eliminar la reserva
+        // Eliminar la reserva (el aviso al cliente se encola en la misma transacción)
         reservaService.deleteById(id);
 
-        // Enviar correo electrónico al cliente
-        try {
-            EmailDTO emailDTO = new EmailDTO();
-            emailDTO.setDestinatario(cliente.getEmail());
-            emailDTO.setAsunto("Cancelación de Reserva");
-            emailDTO.setMensaje(String.format(
-                    "Estimado/a %s,\n\nSu reserva ha sido cancelada.\n"
-                    + "Detalles de la reserva cancelada:\n"
-                    + "- Fecha: %s\n"
-                    + "- Hora: %s",
-                    cliente.getNombre(),
-                    existing.getFechaReserva(),
-                    existing.getHora()
-            ));
-            emailService.sendMail(emailDTO);
-
-            // Registrar la notificación en la base de datos
-            Notificacion notificacion = new Notificacion();
-            notificacion.setCliente(cliente);
-            notificacion.setMensaje(String.format(
-                    "Se ha cancelado su reserva para el día %s a las %s.",
-                    existing.getFechaReserva(),
-                    existing.getHora()
-            ));
-            notificacion.setTipo(Notificacion.TipoNotificacion.ADVERTENCIA);
-            notificationService.saveNotification(notificacion);
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error al enviar correo o registrar notificación: " + e.getMessage());
-        }
-
         return ResponseEntity.ok("Reserva con ID " + id + " eliminada correctamente");
     }
 
@@ -628,17 +629,10 @@ public class ReservaController {
      * <li>Verifica que exista un cliente con el DNI proporcionado.</li>
      * <li>Elimina todas las reservas asociadas al cliente en la base de
      * datos.</li>
-     * <li>Envía un correo electrónico al cliente informando sobre la
-     * cancelación de sus reservas.</li>
-     * <li>Registra una notificación en la base de datos asociada al
-     * cliente.</li>
+     * <li>Encola el correo y la notificación que informan al cliente de la
+     * cancelación, que se entregan en segundo plano.</li>
      * </ul>
      *
-     * <p>
-     * Si ocurre algún error durante el proceso (por ejemplo, al enviar correos
-     * o registrar notificaciones), se devuelve una respuesta HTTP con código
-     * 500 Internal Server Error.</p>
-     *
      * @param dni el documento nacional de identidad del cliente cuyas reservas
      * se desean eliminar.
      * @return una respuesta HTTP con código 200 OK si las reservas se eliminan
@@ -647,8 +641,6 @@ public class ReservaController {
      * proporcionado.
      * @see ClienteService#existsByDni(String)
      * @see ReservaService#deleteByClienteDni(String)
-     * @see EmailService#sendMail(EmailDTO)
-     * @see NotificationService#saveNotification(Notificacion)
      */
     @DeleteMapping("/clientes/{dni}")
     public ResponseEntity<String> deleteReservasByCliente(@PathVariable String dni) {
@@ -657,35 +649,9 @@ public class ReservaController {
             throw new BadRequestException("No existe un cliente con DNI " + dni + ".");
         }
 
-        // Obtener el cliente asociado al DNI
-        Cliente cliente = clienteService.findByDniFull(dni);
-
-        // Eliminar todas las reservas del cliente
+        // Eliminar todas las reservas del cliente (el aviso se encola en la misma transacción)
         reservaService.deleteByClienteDni(dni);
 
-        // Enviar correo electrónico al cliente
-        try {
-            EmailDTO emailDTO = new EmailDTO();
-            emailDTO.setDestinatario(cliente.getEmail());
-            emailDTO.setAsunto("Cancelación de Reservas");
-            emailDTO.setMensaje(String.format(
-                    "Estimado/a %s,\n\nTodas sus reservas han sido canceladas.",
-                    cliente.getNombre()
-            ));
-            emailService.sendMail(emailDTO);
-
-            // Registrar la notificación en la base de datos
-            Notificacion notificacion = new Notificacion();
-            notificacion.setCliente(cliente);
-            notificacion.setMensaje("Se han cancelado todas sus reservas.");
-            notificacion.setTipo(Notificacion.TipoNotificacion.ADVERTENCIA);
-            notificationService.saveNotification(notificacion);
-
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error al enviar correo o registrar notificación: " + e.getMessage());
-        }
-
         return ResponseEntity.ok("Reservas para el cliente con DNI " + dni + " eliminadas correctamente");
     }
 
@@ -705,4 +671,34 @@ public class ReservaController {
         reservaService.deleteByEmpresaIdentificadorFiscal(identificadorFiscal);
         return ResponseEntity.ok("Reservas para la empresa con identificador fiscal " + identificadorFiscal + " eliminadas correctamente");
     }
+
+    /**
+     * Obtiene las entradas en lista de espera de un cliente, con su posición
+     * en cada lista.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @return las entradas en espera del cliente.
+     * @throws ResourceNotFoundException si no existe el cliente.
+     */
+    @GetMapping("/lista-espera/clientes/{dni}")
+    public ResponseEntity<List<EntradaListaEsperaDTO>> getListaEsperaByCliente(@PathVariable String dni) {
+        if (!clienteService.existsByDni(dni)) {
+            throw new ResourceNotFoundException("Cliente con DNI " + dni + " no encontrado.");
+        }
+        return ResponseEntity.ok(listaEsperaService.findEnEsperaByClienteDni(dni));
+    }
+
+    /**
+     * Saca a un cliente de una lista de espera.
+     *
+     * @param idEntrada el identificador de la entrada en espera.
+     * @return una respuesta HTTP con código 200 OK si la entrada se cancela.
+     * @throws ResourceNotFoundException si la entrada no existe o ya no está
+     * en espera.
+     */
+    @DeleteMapping("/lista-espera/{idEntrada}")
+    public ResponseEntity<String> deleteEntradaListaEspera(@PathVariable Long idEntrada) {
+        listaEsperaService.cancelar(idEntrada);
+        return ResponseEntity.ok("Entrada " + idEntrada + " de la lista de espera cancelada correctamente");
+    }
 }
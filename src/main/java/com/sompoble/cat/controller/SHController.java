@@ -6,6 +6,8 @@ import com.sompoble.cat.dto.ServicioHorarioDTO;
 import com.sompoble.cat.repository.EmpresaRepository;
 import com.sompoble.cat.repository.HorarioRepository;
 import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.MetricasService;
 import com.sompoble.cat.service.ReservaService;
 
 import org.springframework.http.ResponseEntity;
@@ -17,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -47,6 +50,18 @@ public class SHController {
      */
     @Autowired
     private ReservaService reservaService;
+    /**
+     * Calendario de disponibilidad, que se invalida al modificar un servicio.
+     */
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    /**
+     * Métricas del panel, cuya caché se invalida al cambiar el precio o el
+     * nombre de un servicio.
+     */
+    @Autowired
+    private MetricasService metricasService;
 
     /**
      * Crea un nuevo servicio y su horario asociado utilizando el identificador
@@ -165,7 +180,9 @@ public class SHController {
         Servicio servicio = servicioRepository.findByIdAndEmpresaId(idServicio, empresa.getIdEmpresa())
                 .orElseThrow(() -> new RuntimeException("Servicio no encontrado para la empresa"));
 
-        // Actualizar datos del servicio
+        // Actualizar datos del servicio. Los ingresos del panel de métricas
+        // usan el precio guardado en cada reserva, así que solo el nombre lo cambia
+        boolean cambiaPanel = !Objects.equals(servicio.getNombre(), dto.getNombre());
         servicio.setNombre(dto.getNombre());
         servicio.setDescripcion(dto.getDescripcion());
         servicio.setDuracion(dto.getDuracion());
@@ -183,6 +200,10 @@ public class SHController {
         horario.setHorarioFin(dto.getHorarioFin());
         horario.setFechaModificacion(LocalDateTime.now());
         horarioRepository.save(horario);
+        disponibilidadService.invalidarServicio(servicio.getIdServicio());
+        if (cambiaPanel) {
+            metricasService.invalidarServicio(servicio.getIdServicio());
+        }
 
         return ResponseEntity.ok(new ServicioHorarioDTO(servicio, horario));
     }
@@ -0,0 +1,53 @@
+package com.sompoble.cat.controller;
+
+import com.sompoble.cat.dto.DisponibilidadDTO;
+import com.sompoble.cat.service.DisponibilidadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Controlador REST para consultar información de los servicios ofrecidos por
+ * las empresas.
+ */
+@RestController
+@RequestMapping("/api/servicios")
+public class ServicioController {
+
+    /**
+     * Número de días que se devuelven cuando no se indica la fecha final.
+     */
+    private static final int DIAS_POR_DEFECTO = 30;
+
+    /**
+     * Servicio que calcula el calendario de disponibilidad.
+     */
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    /**
+     * Obtiene el calendario de disponibilidad de un servicio: para cada día del
+     * rango, las horas de inicio reservables y las plazas libres.
+     *
+     * @param id el identificador del servicio.
+     * @param desde primera fecha del rango (formato yyyy-MM-dd); por defecto,
+     * hoy.
+     * @param hasta última fecha del rango (formato yyyy-MM-dd); por defecto,
+     * 30 días después de {@code desde}.
+     * @return el calendario de disponibilidad, 400 si el rango no es válido o
+     * 404 si el servicio no existe.
+     */
+    @GetMapping("/{id}/disponibilidad")
+    public ResponseEntity<DisponibilidadDTO> getDisponibilidad(
+            @PathVariable Long id,
+            @RequestParam(value = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(value = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        LocalDate fin = hasta != null ? hasta : inicio.plusDays(DIAS_POR_DEFECTO - 1);
+        return ResponseEntity.ok(disponibilidadService.obtenerDisponibilidad(id, inicio, fin));
+    }
+}
@@ -0,0 +1,126 @@
+package com.sompoble.cat.domain;
+
+import com.sompoble.cat.util.HyperLogLog;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Entidad que representa el estimador de clientes distintos con reserva en
+ * una empresa y fecha.
+ * <p>
+ * Guarda los registros de un {@link HyperLogLog}. Los clientes únicos de un
+ * período se estiman uniendo los estimadores de sus días, sin recorrer las
+ * reservas.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "CLIENTES_DIARIOS", uniqueConstraints = {
+    @UniqueConstraint(name = "UK_CLIENTES_DIARIOS_EMPRESA_FECHA", columnNames = {"ID_EMPRESA", "FECHA"})
+})
+public class ClientesDiarios implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del estimador.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_CLIENTES_DIARIOS")
+    private Long idClientesDiarios;
+
+    /**
+     * Identificador de la empresa.
+     */
+    @Column(name = "ID_EMPRESA", nullable = false)
+    @NotNull
+    private Long idEmpresa;
+
+    /**
+     * Fecha de las reservas.
+     */
+    @Column(name = "FECHA", nullable = false)
+    @NotNull
+    private LocalDate fecha;
+
+    /**
+     * Registros del estimador.
+     */
+    @Column(name = "REGISTROS", nullable = false, length = HyperLogLog.REGISTROS)
+    @NotNull
+    private byte[] registros;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public ClientesDiarios() {
+    }
+
+    /**
+     * Constructor con parámetros para inicializar un estimador.
+     *
+     * @param idEmpresa Identificador de la empresa.
+     * @param fecha Fecha de las reservas.
+     * @param registros Registros del estimador.
+     */
+    public ClientesDiarios(Long idEmpresa, LocalDate fecha, byte[] registros) {
+        this.idEmpresa = idEmpresa;
+        this.fecha = fecha;
+        this.registros = registros;
+    }
+
+    /**
+     * Obtiene el identificador del estimador.
+     *
+     * @return ID del estimador.
+     */
+    public Long getIdClientesDiarios() {
+        return idClientesDiarios;
+    }
+
+    /**
+     * Obtiene el identificador de la empresa.
+     *
+     * @return ID de la empresa.
+     */
+    public Long getIdEmpresa() {
+        return idEmpresa;
+    }
+
+    /**
+     * Obtiene la fecha del estimador.
+     *
+     * @return Fecha de las reservas.
+     */
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Obtiene los registros del estimador.
+     *
+     * @return Registros.
+     */
+    public byte[] getRegistros() {
+        return registros;
+    }
+
+    /**
+     * Establece los registros del estimador.
+     *
+     * @param registros Registros.
+     */
+    public void setRegistros(byte[] registros) {
+        this.registros = registros;
+    }
+}
@@ -0,0 +1,218 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Entidad que guarda la configuración del envío de notificaciones por correo.
+ * <p>
+ * Es una tabla de una sola fila, de modo que todas las instancias de la
+ * aplicación leen la misma configuración. Si está activada con una frecuencia
+ * horaria o diaria, los correos informativos no se envían uno a uno, sino que
+ * se agrupan en un resumen por destinatario que sale a la hora configurada.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "CONFIGURACION_NOTIFICACIONES")
+public class ConfiguracionNotificaciones implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador de la única fila de la tabla.
+     */
+    public static final Long ID = 1L;
+
+    /**
+     * Frecuencias con las que se envían los correos.
+     */
+    public enum Frecuencia {
+        /**
+         * Cada correo se envía en cuanto se produce el evento.
+         */
+        INMEDIATA,
+        /**
+         * Un resumen cada hora, en el minuto de la hora de envío.
+         */
+        HORARIA,
+        /**
+         * Un resumen al día, a la hora de envío.
+         */
+        DIARIA;
+
+        /**
+         * Interpreta la frecuencia indicada en la configuración, en castellano
+         * o en inglés.
+         *
+         * @param texto la frecuencia, por ejemplo "diaria" o "hourly".
+         * @return la frecuencia, o {@code null} si no se reconoce.
+         */
+        public static Frecuencia desde(String texto) {
+            if (texto == null || texto.isBlank()) {
+                return INMEDIATA;
+            }
+            switch (texto.trim().toLowerCase(Locale.ROOT)) {
+                case "inmediata":
+                case "immediate":
+                case "instant":
+                    return INMEDIATA;
+                case "horaria":
+                case "hourly":
+                case "cada hora":
+                    return HORARIA;
+                case "diaria":
+                case "daily":
+                    return DIARIA;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Identificador de la fila; siempre {@link #ID}.
+     */
+    @Id
+    @Column(name = "ID_CONFIGURACION")
+    private Long idConfiguracion = ID;
+
+    /**
+     * Indica si el envío agrupado está activado.
+     */
+    @Column(name = "ACTIVADO")
+    private Boolean activado;
+
+    /**
+     * Frecuencia de envío, tal como se configuró.
+     */
+    @Column(name = "FRECUENCIA", length = 20)
+    private String frecuencia;
+
+    /**
+     * Hora de envío en formato HH:mm.
+     */
+    @Column(name = "HORA_ENVIO", length = 5)
+    private String horaEnvio;
+
+    /**
+     * Fecha de la última modificación.
+     */
+    @Column(name = "FECHA_MODIFICACION")
+    private LocalDateTime fechaModificacion;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public ConfiguracionNotificaciones() {
+    }
+
+    /**
+     * Devuelve la frecuencia con la que se envían los correos informativos:
+     * la configurada si el envío agrupado está activado, o inmediata en otro
+     * caso.
+     *
+     * @return la frecuencia efectiva.
+     */
+    public Frecuencia getFrecuenciaEfectiva() {
+        Frecuencia efectiva = Frecuencia.desde(frecuencia);
+        return Boolean.TRUE.equals(activado) && efectiva != null ? efectiva : Frecuencia.INMEDIATA;
+    }
+
+    /**
+     * Devuelve la hora de envío de los resúmenes.
+     *
+     * @return la hora configurada, o las 08:00 si no hay ninguna.
+     */
+    public LocalTime getHoraEnvioEfectiva() {
+        return horaEnvio != null ? LocalTime.parse(horaEnvio) : LocalTime.of(8, 0);
+    }
+
+    /**
+     * Obtiene el identificador de la configuración.
+     *
+     * @return El identificador.
+     */
+    public Long getIdConfiguracion() {
+        return idConfiguracion;
+    }
+
+    /**
+     * Indica si el envío agrupado está activado.
+     *
+     * @return true si está activado.
+     */
+    public Boolean getActivado() {
+        return activado;
+    }
+
+    /**
+     * Establece si el envío agrupado está activado.
+     *
+     * @param activado true para activarlo.
+     */
+    public void setActivado(Boolean activado) {
+        this.activado = activado;
+    }
+
+    /**
+     * Obtiene la frecuencia de envío configurada.
+     *
+     * @return La frecuencia.
+     */
+    public String getFrecuencia() {
+        return frecuencia;
+    }
+
+    /**
+     * Establece la frecuencia de envío.
+     *
+     * @param frecuencia La frecuencia.
+     */
+    public void setFrecuencia(String frecuencia) {
+        this.frecuencia = frecuencia;
+    }
+
+    /**
+     * Obtiene la hora de envío configurada.
+     *
+     * @return La hora en formato HH:mm.
+     */
+    public String getHoraEnvio() {
+        return horaEnvio;
+    }
+
+    /**
+     * Establece la hora de envío.
+     *
+     * @param horaEnvio La hora en formato HH:mm.
+     */
+    public void setHoraEnvio(String horaEnvio) {
+        this.horaEnvio = horaEnvio;
+    }
+
+    /**
+     * Obtiene la fecha de la última modificación.
+     *
+     * @return La fecha de modificación.
+     */
+    public LocalDateTime getFechaModificacion() {
+        return fechaModificacion;
+    }
+
+    /**
+     * Establece la fecha de la última modificación.
+     *
+     * @param fechaModificacion La fecha de modificación.
+     */
+    public void setFechaModificacion(LocalDateTime fechaModificacion) {
+        this.fechaModificacion = fechaModificacion;
+    }
+}
@@ -0,0 +1,275 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Entidad que representa a un cliente en la lista de espera de un servicio
+ * para una fecha completa.
+ * <p>
+ * Las entradas se atienden por orden de llegada: cuando se libera una plaza
+ * del servicio en esa fecha, la entrada en espera más antigua se convierte en
+ * una reserva y se avisa al cliente.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "LISTA_ESPERA", indexes = {
+    @Index(name = "IDX_LISTA_ESPERA_COLA", columnList = "ESTADO, ID_SERVICIO, FECHA, ID_ENTRADA"),
+    @Index(name = "IDX_LISTA_ESPERA_CLIENTE", columnList = "ID_CLIENTE, ESTADO")
+})
+public class EntradaListaEspera implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Estados por los que pasa una entrada de la lista de espera.
+     */
+    public enum EstadoEspera {
+        EN_ESPERA,
+        PROMOVIDA,
+        CANCELADA,
+        CADUCADA
+    }
+
+    /**
+     * Identificador único de la entrada. Determina el orden de llegada.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_ENTRADA")
+    private Long idEntrada;
+
+    /**
+     * Cliente que espera una plaza.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ID_CLIENTE", referencedColumnName = "ID_PERSONA", nullable = false)
+    @NotNull
+    private Cliente cliente;
+
+    /**
+     * Servicio para el que se espera una plaza.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ID_SERVICIO", referencedColumnName = "ID_SERVICIO", nullable = false)
+    @NotNull
+    private Servicio servicio;
+
+    /**
+     * Fecha para la que se espera una plaza.
+     */
+    @Column(name = "FECHA", nullable = false)
+    @NotNull
+    private LocalDate fechaReserva;
+
+    /**
+     * Hora solicitada para la reserva.
+     */
+    @Column(name = "HORA", nullable = false)
+    @NotNull
+    private LocalTime hora;
+
+    /**
+     * Estado de la entrada.
+     */
+    @Column(name = "ESTADO", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private EstadoEspera estado = EstadoEspera.EN_ESPERA;
+
+    /**
+     * Reserva creada al promover la entrada.
+     */
+    @Column(name = "ID_RESERVA")
+    private Long idReserva;
+
+    /**
+     * Fecha de alta de la entrada en la lista de espera.
+     */
+    @Column(name = "FECHA_ALTA", updatable = false, nullable = false)
+    @CreationTimestamp
+    private LocalDateTime fechaAlta;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public EntradaListaEspera() {
+    }
+
+    /**
+     * Crea una entrada en espera.
+     *
+     * @param cliente el cliente que espera una plaza.
+     * @param servicio el servicio solicitado.
+     * @param fechaReserva la fecha solicitada.
+     * @param hora la hora solicitada.
+     */
+    public EntradaListaEspera(Cliente cliente, Servicio servicio, LocalDate fechaReserva, LocalTime hora) {
+        this.cliente = cliente;
+        this.servicio = servicio;
+        this.fechaReserva = fechaReserva;
+        this.hora = hora;
+    }
+
+    /**
+     * Obtiene el identificador de la entrada.
+     *
+     * @return El identificador.
+     */
+    public Long getIdEntrada() {
+        return idEntrada;
+    }
+
+    /**
+     * Establece el identificador de la entrada.
+     *
+     * @param idEntrada El identificador.
+     */
+    public void setIdEntrada(Long idEntrada) {
+        this.idEntrada = idEntrada;
+    }
+
+    /**
+     * Obtiene el cliente que espera una plaza.
+     *
+     * @return El cliente.
+     */
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    /**
+     * Establece el cliente que espera una plaza.
+     *
+     * @param cliente El cliente.
+     */
+    public void setCliente(Cliente cliente) {
+        this.cliente = cliente;
+    }
+
+    /**
+     * Obtiene el servicio solicitado.
+     *
+     * @return El servicio.
+     */
+    public Servicio getServicio() {
+        return servicio;
+    }
+
+    /**
+     * Establece el servicio solicitado.
+     *
+     * @param servicio El servicio.
+     */
+    public void setServicio(Servicio servicio) {
+        this.servicio = servicio;
+    }
+
+    /**
+     * Obtiene la fecha solicitada.
+     *
+     * @return La fecha.
+     */
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    /**
+     * Establece la fecha solicitada.
+     *
+     * @param fechaReserva La fecha.
+     */
+    public void setFechaReserva(LocalDate fechaReserva) {
+        this.fechaReserva = fechaReserva;
+    }
+
+    /**
+     * Obtiene la hora solicitada.
+     *
+     * @return La hora.
+     */
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    /**
+     * Establece la hora solicitada.
+     *
+     * @param hora La hora.
+     */
+    public void setHora(LocalTime hora) {
+        this.hora = hora;
+    }
+
+    /**
+     * Obtiene el estado de la entrada.
+     *
+     * @return El estado.
+     */
+    public EstadoEspera getEstado() {
+        return estado;
+    }
+
+    /**
+     * Establece el estado de la entrada.
+     *
+     * @param estado El estado.
+     */
+    public void setEstado(EstadoEspera estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Obtiene la reserva creada al promover la entrada.
+     *
+     * @return El identificador de la reserva, o {@code null}.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Establece la reserva creada al promover la entrada.
+     *
+     * @param idReserva El identificador de la reserva.
+     */
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+
+    /**
+     * Obtiene la fecha de alta de la entrada.
+     *
+     * @return La fecha de alta.
+     */
+    public LocalDateTime getFechaAlta() {
+        return fechaAlta;
+    }
+
+    /**
+     * Establece la fecha de alta de la entrada.
+     *
+     * @param fechaAlta La fecha de alta.
+     */
+    public void setFechaAlta(LocalDateTime fechaAlta) {
+        this.fechaAlta = fechaAlta;
+    }
+}
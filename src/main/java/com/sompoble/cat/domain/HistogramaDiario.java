@@ -0,0 +1,143 @@
+package com.sompoble.cat.domain;
+
+import com.sompoble.cat.util.HistogramaReservas;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Entidad que representa el histograma de las reservas de un servicio en una
+ * fecha, por hora del día y por antelación.
+ * <p>
+ * Guarda las cubetas de un {@link HistogramaReservas}. Los histogramas de un
+ * período se obtienen sumando los de sus días, sin recorrer las reservas.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "HISTOGRAMA_DIARIO", uniqueConstraints = {
+    @UniqueConstraint(name = "UK_HISTOGRAMA_DIARIO_SERVICIO_FECHA", columnNames = {"ID_SERVICIO", "FECHA"})
+})
+public class HistogramaDiario implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del histograma.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_HISTOGRAMA_DIARIO")
+    private Long idHistogramaDiario;
+
+    /**
+     * Identificador de la empresa propietaria del servicio.
+     */
+    @Column(name = "ID_EMPRESA", nullable = false)
+    @NotNull
+    private Long idEmpresa;
+
+    /**
+     * Identificador del servicio.
+     */
+    @Column(name = "ID_SERVICIO", nullable = false)
+    @NotNull
+    private Long idServicio;
+
+    /**
+     * Fecha de las reservas.
+     */
+    @Column(name = "FECHA", nullable = false)
+    @NotNull
+    private LocalDate fecha;
+
+    /**
+     * Cubetas del histograma.
+     */
+    @Column(name = "CUBETAS", nullable = false, length = HistogramaReservas.BYTES)
+    @NotNull
+    private byte[] cubetas;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public HistogramaDiario() {
+    }
+
+    /**
+     * Constructor con parámetros para inicializar un histograma.
+     *
+     * @param idEmpresa Identificador de la empresa.
+     * @param idServicio Identificador del servicio.
+     * @param fecha Fecha de las reservas.
+     * @param cubetas Cubetas del histograma.
+     */
+    public HistogramaDiario(Long idEmpresa, Long idServicio, LocalDate fecha, byte[] cubetas) {
+        this.idEmpresa = idEmpresa;
+        this.idServicio = idServicio;
+        this.fecha = fecha;
+        this.cubetas = cubetas;
+    }
+
+    /**
+     * Obtiene el identificador del histograma.
+     *
+     * @return ID del histograma.
+     */
+    public Long getIdHistogramaDiario() {
+        return idHistogramaDiario;
+    }
+
+    /**
+     * Obtiene el identificador de la empresa.
+     *
+     * @return ID de la empresa.
+     */
+    public Long getIdEmpresa() {
+        return idEmpresa;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return ID del servicio.
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene la fecha del histograma.
+     *
+     * @return Fecha de las reservas.
+     */
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Obtiene las cubetas del histograma.
+     *
+     * @return Cubetas.
+     */
+    public byte[] getCubetas() {
+        return cubetas;
+    }
+
+    /**
+     * Establece las cubetas del histograma.
+     *
+     * @param cubetas Cubetas.
+     */
+    public void setCubetas(byte[] cubetas) {
+        this.cubetas = cubetas;
+    }
+}
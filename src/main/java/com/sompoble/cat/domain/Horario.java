@@ -66,6 +66,13 @@ public class Horario implements Serializable {
     @UpdateTimestamp
     @Column(name = "FECHA_MODIFICACION", nullable = false)
     private LocalDateTime fechaModificacion;
+    /**
+     * Versión del horario, utilizada para detectar modificaciones
+     * concurrentes del horario.
+     */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
     /**
      * Empresa asociada a este horario. Relación muchos a uno con la entidad
      * {@link Empresa}.
@@ -232,6 +239,24 @@ public class Horario implements Serializable {
         this.fechaModificacion = fechaModificacion;
     }
 
+    /**
+     * Obtiene la versión del horario.
+     *
+     * @return La versión.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión del horario.
+     *
+     * @param version La versión.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * Obtiene el servicio asociado al horario.
      *
@@ -0,0 +1,361 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un correo de la bandeja de salida que no se ha
+ * podido entregar.
+ * <p>
+ * Cuando un mensaje agota sus intentos, o el servidor de correo lo rechaza de
+ * forma definitiva, se traslada a esta tabla con el último error y deja de
+ * reintentarse. Desde la administración puede volver a encolarse en la bandeja
+ * de salida una vez resuelto el problema.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "MENSAJE_FALLIDO", indexes = {
+    @Index(name = "IDX_MENSAJE_FALLIDO_FECHA", columnList = "FECHA_FALLO")
+})
+public class MensajeFallido implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del mensaje fallido.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_FALLIDO")
+    private Long idFallido;
+
+    /**
+     * Identificador que tenía el mensaje en la bandeja de salida.
+     */
+    @Column(name = "ID_MENSAJE_ORIGINAL", nullable = false)
+    private Long idMensajeOriginal;
+
+    /**
+     * DNI del cliente al que se registrará la notificación (puede ser nulo).
+     */
+    @Column(name = "DNI_CLIENTE", length = 50)
+    private String dniCliente;
+
+    /**
+     * Dirección de correo del destinatario.
+     */
+    @Column(name = "DESTINATARIO", nullable = false)
+    @NotNull
+    private String destinatario;
+
+    /**
+     * Asunto del correo.
+     */
+    @Column(name = "ASUNTO", nullable = false)
+    @NotNull
+    private String asunto;
+
+    /**
+     * Cuerpo del correo.
+     */
+    @Column(name = "CUERPO", nullable = false, columnDefinition = "TEXT")
+    @NotNull
+    private String cuerpo;
+
+    /**
+     * Texto de la notificación a registrar (nulo si no hay notificación).
+     */
+    @Column(name = "TEXTO_NOTIFICACION", length = 500)
+    private String textoNotificacion;
+
+    /**
+     * Tipo de la notificación a registrar.
+     */
+    @Column(name = "TIPO_NOTIFICACION")
+    @Enumerated(EnumType.STRING)
+    private Notificacion.TipoNotificacion tipoNotificacion;
+
+    /**
+     * Indica si la notificación ya se había registrado.
+     */
+    @Column(name = "NOTIFICACION_REGISTRADA", nullable = false)
+    private boolean notificacionRegistrada;
+
+    /**
+     * Número de intentos de entrega realizados.
+     */
+    @Column(name = "INTENTOS", nullable = false)
+    private int intentos;
+
+    /**
+     * Último error producido al entregar el mensaje.
+     */
+    @Column(name = "ULTIMO_ERROR", length = 1000)
+    private String ultimoError;
+
+    /**
+     * Fecha en que se encoló el mensaje original.
+     */
+    @Column(name = "FECHA_ALTA", nullable = false)
+    @NotNull
+    private LocalDateTime fechaAlta;
+
+    /**
+     * Fecha en que el mensaje se dio por fallido.
+     */
+    @Column(name = "FECHA_FALLO", nullable = false)
+    @NotNull
+    private LocalDateTime fechaFallo;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public MensajeFallido() {
+    }
+
+    /**
+     * Obtiene el identificador del mensaje fallido.
+     *
+     * @return El identificador del mensaje fallido.
+     */
+    public Long getIdFallido() {
+        return idFallido;
+    }
+
+    /**
+     * Establece el identificador del mensaje fallido.
+     *
+     * @param idFallido El identificador del mensaje fallido.
+     */
+    public void setIdFallido(Long idFallido) {
+        this.idFallido = idFallido;
+    }
+
+    /**
+     * Obtiene el identificador original del mensaje.
+     *
+     * @return El identificador original del mensaje.
+     */
+    public Long getIdMensajeOriginal() {
+        return idMensajeOriginal;
+    }
+
+    /**
+     * Establece el identificador original del mensaje.
+     *
+     * @param idMensajeOriginal El identificador original del mensaje.
+     */
+    public void setIdMensajeOriginal(Long idMensajeOriginal) {
+        this.idMensajeOriginal = idMensajeOriginal;
+    }
+
+    /**
+     * Obtiene el DNI del cliente.
+     *
+     * @return El DNI del cliente.
+     */
+    public String getDniCliente() {
+        return dniCliente;
+    }
+
+    /**
+     * Establece el DNI del cliente.
+     *
+     * @param dniCliente El DNI del cliente.
+     */
+    public void setDniCliente(String dniCliente) {
+        this.dniCliente = dniCliente;
+    }
+
+    /**
+     * Obtiene la dirección de correo del destinatario.
+     *
+     * @return La dirección de correo del destinatario.
+     */
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    /**
+     * Establece la dirección de correo del destinatario.
+     *
+     * @param destinatario La dirección de correo del destinatario.
+     */
+    public void setDestinatario(String destinatario) {
+        this.destinatario = destinatario;
+    }
+
+    /**
+     * Obtiene el asunto.
+     *
+     * @return El asunto.
+     */
+    public String getAsunto() {
+        return asunto;
+    }
+
+    /**
+     * Establece el asunto.
+     *
+     * @param asunto El asunto.
+     */
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    /**
+     * Obtiene el cuerpo del correo.
+     *
+     * @return El cuerpo del correo.
+     */
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    /**
+     * Establece el cuerpo del correo.
+     *
+     * @param cuerpo El cuerpo del correo.
+     */
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    /**
+     * Obtiene el texto de la notificación.
+     *
+     * @return El texto de la notificación.
+     */
+    public String getTextoNotificacion() {
+        return textoNotificacion;
+    }
+
+    /**
+     * Establece el texto de la notificación.
+     *
+     * @param textoNotificacion El texto de la notificación.
+     */
+    public void setTextoNotificacion(String textoNotificacion) {
+        this.textoNotificacion = textoNotificacion;
+    }
+
+    /**
+     * Obtiene el tipo de la notificación.
+     *
+     * @return El tipo de la notificación.
+     */
+    public Notificacion.TipoNotificacion getTipoNotificacion() {
+        return tipoNotificacion;
+    }
+
+    /**
+     * Establece el tipo de la notificación.
+     *
+     * @param tipoNotificacion El tipo de la notificación.
+     */
+    public void setTipoNotificacion(Notificacion.TipoNotificacion tipoNotificacion) {
+        this.tipoNotificacion = tipoNotificacion;
+    }
+
+    /**
+     * Indica si la notificación ya se había registrado.
+     *
+     * @return Si la notificación ya se había registrado.
+     */
+    public boolean isNotificacionRegistrada() {
+        return notificacionRegistrada;
+    }
+
+    /**
+     * Establece si la notificación ya se había registrado.
+     *
+     * @param notificacionRegistrada Si la notificación ya se había registrado.
+     */
+    public void setNotificacionRegistrada(boolean notificacionRegistrada) {
+        this.notificacionRegistrada = notificacionRegistrada;
+    }
+
+    /**
+     * Obtiene el número de intentos.
+     *
+     * @return El número de intentos.
+     */
+    public int getIntentos() {
+        return intentos;
+    }
+
+    /**
+     * Establece el número de intentos.
+     *
+     * @param intentos El número de intentos.
+     */
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    /**
+     * Obtiene el último error.
+     *
+     * @return El último error.
+     */
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    /**
+     * Establece el último error.
+     *
+     * @param ultimoError El último error.
+     */
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    /**
+     * Obtiene la fecha de alta del mensaje original.
+     *
+     * @return La fecha de alta del mensaje original.
+     */
+    public LocalDateTime getFechaAlta() {
+        return fechaAlta;
+    }
+
+    /**
+     * Establece la fecha de alta del mensaje original.
+     *
+     * @param fechaAlta La fecha de alta del mensaje original.
+     */
+    public void setFechaAlta(LocalDateTime fechaAlta) {
+        this.fechaAlta = fechaAlta;
+    }
+
+    /**
+     * Obtiene la fecha del fallo.
+     *
+     * @return La fecha del fallo.
+     */
+    public LocalDateTime getFechaFallo() {
+        return fechaFallo;
+    }
+
+    /**
+     * Establece la fecha del fallo.
+     *
+     * @param fechaFallo La fecha del fallo.
+     */
+    public void setFechaFallo(LocalDateTime fechaFallo) {
+        this.fechaFallo = fechaFallo;
+    }
+}
@@ -0,0 +1,393 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import org.hibernate.annotations.CreationTimestamp;
+
+/**
+ * Entidad que representa un mensaje pendiente en la bandeja de salida.
+ * <p>
+ * Cada fila contiene un correo electrónico y, opcionalmente, la notificación
+ * asociada para el cliente. Se guarda en la misma transacción que la operación
+ * sobre la reserva que la origina y la entrega se realiza después, en segundo
+ * plano, por el despachador de la bandeja de salida.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "MENSAJE_SALIDA", indexes = {
+    @Index(name = "IDX_MENSAJE_SALIDA_ESTADO", columnList = "ESTADO, PROXIMO_INTENTO"),
+    @Index(name = "IDX_MENSAJE_SALIDA_RESUMEN", columnList = "ESTADO, DESTINATARIO, FECHA_ALTA")
+})
+public class MensajeSalida implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Estados por los que pasa un mensaje de la bandeja de salida. Los
+     * mensajes que no se pueden entregar se trasladan a
+     * {@link MensajeFallido}; los que esperan a incluirse en el resumen
+     * periódico de su destinatario están en {@code RESUMEN}.
+     */
+    public enum EstadoMensaje {
+        PENDIENTE,
+        ENVIADO,
+        RESUMEN
+    }
+
+    /**
+     * Identificador único del mensaje.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_MENSAJE")
+    private Long idMensaje;
+
+    /**
+     * DNI del cliente al que se registrará la notificación (puede ser nulo).
+     */
+    @Column(name = "DNI_CLIENTE", length = 50)
+    private String dniCliente;
+
+    /**
+     * Dirección de correo del destinatario.
+     */
+    @Column(name = "DESTINATARIO", nullable = false)
+    @NotNull
+    private String destinatario;
+
+    /**
+     * Asunto del correo.
+     */
+    @Column(name = "ASUNTO", nullable = false)
+    @NotNull
+    private String asunto;
+
+    /**
+     * Cuerpo del correo.
+     */
+    @Column(name = "CUERPO", nullable = false, columnDefinition = "TEXT")
+    @NotNull
+    private String cuerpo;
+
+    /**
+     * Texto de la notificación a registrar (nulo si no hay notificación).
+     */
+    @Column(name = "TEXTO_NOTIFICACION", length = 500)
+    private String textoNotificacion;
+
+    /**
+     * Tipo de la notificación a registrar.
+     */
+    @Column(name = "TIPO_NOTIFICACION")
+    @Enumerated(EnumType.STRING)
+    private Notificacion.TipoNotificacion tipoNotificacion;
+
+    /**
+     * Indica si la notificación ya se ha registrado, para no duplicarla al
+     * reintentar el envío del correo.
+     */
+    @Column(name = "NOTIFICACION_REGISTRADA", nullable = false)
+    private boolean notificacionRegistrada;
+
+    /**
+     * Estado actual del mensaje.
+     */
+    @Column(name = "ESTADO", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private EstadoMensaje estado = EstadoMensaje.PENDIENTE;
+
+    /**
+     * Número de intentos de entrega fallidos.
+     */
+    @Column(name = "INTENTOS", nullable = false)
+    private int intentos;
+
+    /**
+     * Número de veces que se ha aplazado el mensaje porque el proveedor
+     * limitaba los envíos, que no cuentan como intentos.
+     */
+    @Column(name = "APLAZAMIENTOS", nullable = false)
+    private int aplazamientos;
+
+    /**
+     * Momento a partir del cual el mensaje puede volver a procesarse.
+     */
+    @Column(name = "PROXIMO_INTENTO", nullable = false)
+    @NotNull
+    private LocalDateTime proximoIntento;
+
+    /**
+     * Último error producido al entregar el mensaje.
+     */
+    @Column(name = "ULTIMO_ERROR", length = 1000)
+    private String ultimoError;
+
+    /**
+     * Fecha de creación del mensaje.
+     */
+    @Column(name = "FECHA_ALTA", updatable = false, nullable = false)
+    @CreationTimestamp
+    private LocalDateTime fechaAlta;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public MensajeSalida() {
+    }
+
+    /**
+     * Obtiene el identificador del mensaje.
+     *
+     * @return El ID del mensaje.
+     */
+    public Long getIdMensaje() {
+        return idMensaje;
+    }
+
+    /**
+     * Establece el identificador del mensaje.
+     *
+     * @param idMensaje El ID del mensaje.
+     */
+    public void setIdMensaje(Long idMensaje) {
+        this.idMensaje = idMensaje;
+    }
+
+    /**
+     * Obtiene el DNI del cliente de la notificación.
+     *
+     * @return El DNI del cliente.
+     */
+    public String getDniCliente() {
+        return dniCliente;
+    }
+
+    /**
+     * Establece el DNI del cliente de la notificación.
+     *
+     * @param dniCliente El DNI del cliente.
+     */
+    public void setDniCliente(String dniCliente) {
+        this.dniCliente = dniCliente;
+    }
+
+    /**
+     * Obtiene el destinatario del correo.
+     *
+     * @return La dirección de correo del destinatario.
+     */
+    public String getDestinatario() {
+        return destinatario;
+    }
+
+    /**
+     * Establece el destinatario del correo.
+     *
+     * @param destinatario La dirección de correo del destinatario.
+     */
+    public void setDestinatario(String destinatario) {
+        this.destinatario = destinatario;
+    }
+
+    /**
+     * Obtiene el asunto del correo.
+     *
+     * @return El asunto.
+     */
+    public String getAsunto() {
+        return asunto;
+    }
+
+    /**
+     * Establece el asunto del correo.
+     *
+     * @param asunto El asunto.
+     */
+    public void setAsunto(String asunto) {
+        this.asunto = asunto;
+    }
+
+    /**
+     * Obtiene el cuerpo del correo.
+     *
+     * @return El cuerpo del correo.
+     */
+    public String getCuerpo() {
+        return cuerpo;
+    }
+
+    /**
+     * Establece el cuerpo del correo.
+     *
+     * @param cuerpo El cuerpo del correo.
+     */
+    public void setCuerpo(String cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    /**
+     * Obtiene el texto de la notificación.
+     *
+     * @return El texto de la notificación, o null si no hay.
+     */
+    public String getTextoNotificacion() {
+        return textoNotificacion;
+    }
+
+    /**
+     * Establece el texto de la notificación.
+     *
+     * @param textoNotificacion El texto de la notificación.
+     */
+    public void setTextoNotificacion(String textoNotificacion) {
+        this.textoNotificacion = textoNotificacion;
+    }
+
+    /**
+     * Obtiene el tipo de la notificación.
+     *
+     * @return El tipo de la notificación.
+     */
+    public Notificacion.TipoNotificacion getTipoNotificacion() {
+        return tipoNotificacion;
+    }
+
+    /**
+     * Establece el tipo de la notificación.
+     *
+     * @param tipoNotificacion El tipo de la notificación.
+     */
+    public void setTipoNotificacion(Notificacion.TipoNotificacion tipoNotificacion) {
+        this.tipoNotificacion = tipoNotificacion;
+    }
+
+    /**
+     * Indica si la notificación ya se ha registrado.
+     *
+     * @return true si ya se ha registrado.
+     */
+    public boolean isNotificacionRegistrada() {
+        return notificacionRegistrada;
+    }
+
+    /**
+     * Establece si la notificación ya se ha registrado.
+     *
+     * @param notificacionRegistrada true si ya se ha registrado.
+     */
+    public void setNotificacionRegistrada(boolean notificacionRegistrada) {
+        this.notificacionRegistrada = notificacionRegistrada;
+    }
+
+    /**
+     * Obtiene el estado del mensaje.
+     *
+     * @return El estado del mensaje.
+     */
+    public EstadoMensaje getEstado() {
+        return estado;
+    }
+
+    /**
+     * Establece el estado del mensaje.
+     *
+     * @param estado El estado del mensaje.
+     */
+    public void setEstado(EstadoMensaje estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Obtiene el número de intentos fallidos.
+     *
+     * @return El número de intentos.
+     */
+    public int getIntentos() {
+        return intentos;
+    }
+
+    /**
+     * Establece el número de intentos fallidos.
+     *
+     * @param intentos El número de intentos.
+     */
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    /**
+     * Obtiene el número de aplazamientos por límite del proveedor.
+     *
+     * @return El número de aplazamientos.
+     */
+    public int getAplazamientos() {
+        return aplazamientos;
+    }
+
+    /**
+     * Establece el número de aplazamientos por límite del proveedor.
+     *
+     * @param aplazamientos El número de aplazamientos.
+     */
+    public void setAplazamientos(int aplazamientos) {
+        this.aplazamientos = aplazamientos;
+    }
+
+    /**
+     * Obtiene el momento del próximo intento.
+     *
+     * @return El momento del próximo intento.
+     */
+    public LocalDateTime getProximoIntento() {
+        return proximoIntento;
+    }
+
+    /**
+     * Establece el momento del próximo intento.
+     *
+     * @param proximoIntento El momento del próximo intento.
+     */
+    public void setProximoIntento(LocalDateTime proximoIntento) {
+        this.proximoIntento = proximoIntento;
+    }
+
+    /**
+     * Obtiene el último error de entrega.
+     *
+     * @return El último error, o null si no hay.
+     */
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    /**
+     * Establece el último error de entrega.
+     *
+     * @param ultimoError El último error.
+     */
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+
+    /**
+     * Obtiene la fecha de creación del mensaje.
+     *
+     * @return La fecha de creación.
+     */
+    public LocalDateTime getFechaAlta() {
+        return fechaAlta;
+    }
+}
@@ -0,0 +1,140 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Entidad que representa el resumen diario de reservas e ingresos de un
+ * servicio.
+ * <p>
+ * Cada fila acumula las reservas del par (servicio, fecha) y los ingresos
+ * que suponen al precio del servicio, en céntimos para que las sumas sean
+ * exactas. Se actualiza de forma incremental con
+ * cada alta, cambio o baja de reserva y se reconcilia cada noche con la
+ * tabla de reservas, de modo que el panel de métricas lee unas pocas filas
+ * por día en lugar de recorrer todas las reservas.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "METRICA_DIARIA", uniqueConstraints = {
+    @UniqueConstraint(name = "UK_METRICA_DIARIA_SERVICIO_FECHA", columnNames = {"ID_SERVICIO", "FECHA"})
+}, indexes = {
+    @Index(name = "IDX_METRICA_DIARIA_EMPRESA_FECHA",
+            columnList = "ID_EMPRESA, FECHA, ID_SERVICIO, RESERVAS, INGRESOS_CENTIMOS")
+})
+public class MetricaDiaria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del resumen.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_METRICA")
+    private Long idMetrica;
+
+    /**
+     * Identificador de la empresa a la que pertenece el servicio.
+     */
+    @Column(name = "ID_EMPRESA", nullable = false)
+    @NotNull
+    private Long idEmpresa;
+
+    /**
+     * Identificador del servicio reservado.
+     */
+    @Column(name = "ID_SERVICIO", nullable = false)
+    @NotNull
+    private Long idServicio;
+
+    /**
+     * Fecha de las reservas resumidas.
+     */
+    @Column(name = "FECHA", nullable = false)
+    @NotNull
+    private LocalDate fecha;
+
+    /**
+     * Número de reservas del servicio en la fecha.
+     */
+    @Column(name = "RESERVAS", nullable = false)
+    private long reservas;
+
+    /**
+     * Ingresos de las reservas del servicio en la fecha, en céntimos.
+     */
+    @Column(name = "INGRESOS_CENTIMOS", nullable = false)
+    private long ingresosCentimos;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public MetricaDiaria() {
+    }
+
+    /**
+     * Obtiene el identificador del resumen.
+     *
+     * @return ID del resumen.
+     */
+    public Long getIdMetrica() {
+        return idMetrica;
+    }
+
+    /**
+     * Obtiene el identificador de la empresa.
+     *
+     * @return ID de la empresa.
+     */
+    public Long getIdEmpresa() {
+        return idEmpresa;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return ID del servicio.
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene la fecha del resumen.
+     *
+     * @return Fecha de las reservas.
+     */
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Obtiene el número de reservas.
+     *
+     * @return Reservas del día.
+     */
+    public long getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Obtiene los ingresos en céntimos.
+     *
+     * @return Ingresos del día, en céntimos.
+     */
+    public long getIngresosCentimos() {
+        return ingresosCentimos;
+    }
+}
@@ -0,0 +1,143 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Entidad que representa el contador de plazas ocupadas de un servicio en una
+ * fecha concreta.
+ * <p>
+ * Cada fila actúa como libro de capacidad para el par (servicio, fecha): la
+ * admisión de una reserva incrementa {@code ocupadas} de forma condicional y
+ * su anulación lo decrementa, de modo que no es necesario contar las reservas
+ * existentes en cada alta.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "OCUPACION_SERVICIO", uniqueConstraints = {
+    @UniqueConstraint(name = "UK_OCUPACION_SERVICIO_FECHA", columnNames = {"ID_SERVICIO", "FECHA"})
+})
+public class OcupacionServicio implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del contador.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_OCUPACION")
+    private Long idOcupacion;
+
+    /**
+     * Identificador del servicio al que pertenece el contador.
+     */
+    @Column(name = "ID_SERVICIO", nullable = false)
+    @NotNull
+    private Long idServicio;
+
+    /**
+     * Fecha de las reservas contabilizadas.
+     */
+    @Column(name = "FECHA", nullable = false)
+    @NotNull
+    private LocalDate fecha;
+
+    /**
+     * Número de plazas ocupadas para el servicio en la fecha.
+     */
+    @Column(name = "OCUPADAS", nullable = false)
+    private int ocupadas;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public OcupacionServicio() {
+    }
+
+    /**
+     * Constructor con parámetros para inicializar un contador.
+     *
+     * @param idServicio Identificador del servicio.
+     * @param fecha Fecha de las reservas.
+     * @param ocupadas Plazas ocupadas iniciales.
+     */
+    public OcupacionServicio(Long idServicio, LocalDate fecha, int ocupadas) {
+        this.idServicio = idServicio;
+        this.fecha = fecha;
+        this.ocupadas = ocupadas;
+    }
+
+    /**
+     * Obtiene el identificador del contador.
+     *
+     * @return ID del contador.
+     */
+    public Long getIdOcupacion() {
+        return idOcupacion;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return ID del servicio.
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Establece el identificador del servicio.
+     *
+     * @param idServicio ID del servicio.
+     */
+    public void setIdServicio(Long idServicio) {
+        this.idServicio = idServicio;
+    }
+
+    /**
+     * Obtiene la fecha del contador.
+     *
+     * @return Fecha de las reservas.
+     */
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Establece la fecha del contador.
+     *
+     * @param fecha Fecha de las reservas.
+     */
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    /**
+     * Obtiene el número de plazas ocupadas.
+     *
+     * @return Plazas ocupadas.
+     */
+    public int getOcupadas() {
+        return ocupadas;
+    }
+
+    /**
+     * Establece el número de plazas ocupadas.
+     *
+     * @param ocupadas Plazas ocupadas.
+     */
+    public void setOcupadas(int ocupadas) {
+        this.ocupadas = ocupadas;
+    }
+}
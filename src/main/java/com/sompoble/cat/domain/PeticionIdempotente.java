@@ -0,0 +1,250 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa una petición identificada con la cabecera
+ * {@code Idempotency-Key}.
+ * <p>
+ * Mientras la petición se procesa la clave queda reservada; al terminar se
+ * guarda la respuesta, que se devuelve tal cual a los reintentos con la misma
+ * clave hasta que caduca.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "PETICION_IDEMPOTENTE", indexes = {
+    @Index(name = "IDX_PETICION_IDEMPOTENTE_EXPIRA", columnList = "EXPIRA_EN")
+})
+public class PeticionIdempotente implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Estados por los que pasa una petición idempotente.
+     */
+    public enum EstadoPeticion {
+        EN_CURSO,
+        COMPLETADA
+    }
+
+    /**
+     * Clave de idempotencia enviada por el cliente.
+     */
+    @Id
+    @Column(name = "CLAVE", length = 255)
+    private String clave;
+
+    /**
+     * Huella SHA-256 del método, la ruta y el cuerpo de la petición original.
+     */
+    @Column(name = "HUELLA", nullable = false, length = 64)
+    @NotNull
+    private String huella;
+
+    /**
+     * Estado de la petición.
+     */
+    @Column(name = "ESTADO", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    @NotNull
+    private EstadoPeticion estado;
+
+    /**
+     * Código de estado HTTP de la respuesta guardada.
+     */
+    @Column(name = "CODIGO_ESTADO")
+    private Integer codigoEstado;
+
+    /**
+     * Tipo de contenido de la respuesta guardada.
+     */
+    @Column(name = "TIPO_CONTENIDO", length = 255)
+    private String tipoContenido;
+
+    /**
+     * Cuerpo de la respuesta guardada.
+     */
+    @Column(name = "CUERPO", columnDefinition = "MEDIUMBLOB")
+    private byte[] cuerpo;
+
+    /**
+     * Momento a partir del cual la clave deja de tener efecto.
+     */
+    @Column(name = "EXPIRA_EN", nullable = false)
+    @NotNull
+    private LocalDateTime expiraEn;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public PeticionIdempotente() {
+    }
+
+    /**
+     * Crea una petición completada con su respuesta.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @param codigoEstado el código de estado HTTP de la respuesta.
+     * @param tipoContenido el tipo de contenido de la respuesta.
+     * @param cuerpo el cuerpo de la respuesta.
+     * @param expiraEn el momento en que caduca la clave.
+     */
+    public PeticionIdempotente(String clave, String huella, int codigoEstado, String tipoContenido,
+            byte[] cuerpo, LocalDateTime expiraEn) {
+        this.clave = clave;
+        this.huella = huella;
+        this.estado = EstadoPeticion.COMPLETADA;
+        this.codigoEstado = codigoEstado;
+        this.tipoContenido = tipoContenido;
+        this.cuerpo = cuerpo;
+        this.expiraEn = expiraEn;
+    }
+
+    /**
+     * Indica si la clave ha caducado.
+     *
+     * @param ahora el momento actual.
+     * @return {@code true} si la clave ha caducado.
+     */
+    public boolean caducada(LocalDateTime ahora) {
+        return !expiraEn.isAfter(ahora);
+    }
+
+    /**
+     * Obtiene la clave de idempotencia.
+     *
+     * @return La clave.
+     */
+    public String getClave() {
+        return clave;
+    }
+
+    /**
+     * Establece la clave de idempotencia.
+     *
+     * @param clave La clave.
+     */
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+
+    /**
+     * Obtiene la huella de la petición original.
+     *
+     * @return La huella.
+     */
+    public String getHuella() {
+        return huella;
+    }
+
+    /**
+     * Establece la huella de la petición original.
+     *
+     * @param huella La huella.
+     */
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+
+    /**
+     * Obtiene el estado de la petición.
+     *
+     * @return El estado.
+     */
+    public EstadoPeticion getEstado() {
+        return estado;
+    }
+
+    /**
+     * Establece el estado de la petición.
+     *
+     * @param estado El estado.
+     */
+    public void setEstado(EstadoPeticion estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Obtiene el código de estado HTTP de la respuesta.
+     *
+     * @return El código de estado.
+     */
+    public Integer getCodigoEstado() {
+        return codigoEstado;
+    }
+
+    /**
+     * Establece el código de estado HTTP de la respuesta.
+     *
+     * @param codigoEstado El código de estado.
+     */
+    public void setCodigoEstado(Integer codigoEstado) {
+        this.codigoEstado = codigoEstado;
+    }
+
+    /**
+     * Obtiene el tipo de contenido de la respuesta.
+     *
+     * @return El tipo de contenido.
+     */
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    /**
+     * Establece el tipo de contenido de la respuesta.
+     *
+     * @param tipoContenido El tipo de contenido.
+     */
+    public void setTipoContenido(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    /**
+     * Obtiene el cuerpo de la respuesta.
+     *
+     * @return El cuerpo.
+     */
+    public byte[] getCuerpo() {
+        return cuerpo;
+    }
+
+    /**
+     * Establece el cuerpo de la respuesta.
+     *
+     * @param cuerpo El cuerpo.
+     */
+    public void setCuerpo(byte[] cuerpo) {
+        this.cuerpo = cuerpo;
+    }
+
+    /**
+     * Obtiene el momento en que caduca la clave.
+     *
+     * @return El momento de caducidad.
+     */
+    public LocalDateTime getExpiraEn() {
+        return expiraEn;
+    }
+
+    /**
+     * Establece el momento en que caduca la clave.
+     *
+     * @param expiraEn El momento de caducidad.
+     */
+    public void setExpiraEn(LocalDateTime expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+}
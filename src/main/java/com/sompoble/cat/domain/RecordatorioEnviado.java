@@ -0,0 +1,122 @@
+package com.sompoble.cat.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un recordatorio de una reserva ya encolado en la
+ * bandeja de salida.
+ * <p>
+ * La clave única (reserva, antelación, fecha de la cita) impide que el mismo
+ * recordatorio se envíe dos veces. Las filas se insertan en la misma
+ * transacción que el mensaje, sin cargar la entidad.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Entity
+@Table(name = "RECORDATORIO_ENVIADO", uniqueConstraints = {
+    @UniqueConstraint(name = "UK_RECORDATORIO_ENVIADO",
+            columnNames = {"ID_RESERVA", "ANTELACION_MINUTOS", "FECHA_CITA"})
+}, indexes = {
+    @Index(name = "IDX_RECORDATORIO_ENVIADO_CITA", columnList = "FECHA_CITA")
+})
+public class RecordatorioEnviado implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identificador único del recordatorio.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_RECORDATORIO_ENVIADO")
+    private Long idRecordatorioEnviado;
+
+    /**
+     * Identificador de la reserva.
+     */
+    @Column(name = "ID_RESERVA", nullable = false)
+    @NotNull
+    private Long idReserva;
+
+    /**
+     * Antelación del recordatorio respecto a la cita, en minutos.
+     */
+    @Column(name = "ANTELACION_MINUTOS", nullable = false)
+    private int antelacionMinutos;
+
+    /**
+     * Fecha y hora de la cita recordada.
+     */
+    @Column(name = "FECHA_CITA", nullable = false)
+    @NotNull
+    private LocalDateTime fechaCita;
+
+    /**
+     * Momento en que se encoló el recordatorio.
+     */
+    @Column(name = "FECHA_ENVIO", nullable = false)
+    @NotNull
+    private LocalDateTime fechaEnvio;
+
+    /**
+     * Constructor vacío requerido por JPA.
+     */
+    public RecordatorioEnviado() {
+    }
+
+    /**
+     * Obtiene el identificador del recordatorio.
+     *
+     * @return ID del recordatorio.
+     */
+    public Long getIdRecordatorioEnviado() {
+        return idRecordatorioEnviado;
+    }
+
+    /**
+     * Obtiene el identificador de la reserva.
+     *
+     * @return ID de la reserva.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene la antelación del recordatorio.
+     *
+     * @return Antelación en minutos.
+     */
+    public int getAntelacionMinutos() {
+        return antelacionMinutos;
+    }
+
+    /**
+     * Obtiene la fecha y hora de la cita recordada.
+     *
+     * @return Fecha de la cita.
+     */
+    public LocalDateTime getFechaCita() {
+        return fechaCita;
+    }
+
+    /**
+     * Obtiene el momento en que se encoló el recordatorio.
+     *
+     * @return Fecha de envío.
+     */
+    public LocalDateTime getFechaEnvio() {
+        return fechaEnvio;
+    }
+}
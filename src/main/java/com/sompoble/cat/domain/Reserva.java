@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,11 +16,25 @@ import org.hibernate.annotations.UpdateTimestamp;
  * Contiene la información de la empresa, cliente y servicio asociados, además
  * de los datos de fecha, hora y estado de la reserva.
  * </p>
+ * <p>
+ * La fecha y la hora se guardan como {@code DATE} y {@code TIME}; los índices
+ * por empresa y fecha y por servicio y fecha permiten resolver las consultas
+ * por rango de fechas sin recorrer la tabla.
+ * </p>
+ * <p>
+ * El precio se guarda en cada reserva al crearla, de modo que los ingresos de
+ * las métricas no cambian si después cambia el precio del servicio.
+ * </p>
  *
  * @author SomPoble
  */
 @Entity
-@Table(name = "RESERVA")
+@Table(name = "RESERVA", indexes = {
+    @Index(name = "IDX_RESERVA_EMPRESA_FECHA", columnList = "ID_EMPRESA, FECHA, ID_SERVICIO, ID_CLIENTE"),
+    @Index(name = "IDX_RESERVA_SERVICIO_FECHA", columnList = "ID_SERVICIO, FECHA"),
+    @Index(name = "IDX_RESERVA_CLIENTE_ORDEN", columnList = "ID_CLIENTE, FECHA, HORA"),
+    @Index(name = "IDX_RESERVA_EMPRESA_ORDEN", columnList = "ID_EMPRESA, FECHA, HORA")
+})
 public class Reserva implements Serializable {
 
     /**
@@ -58,16 +74,14 @@ public class Reserva implements Serializable {
      */
     @Column(name = "FECHA", nullable = false)
     @NotNull(message = "La fecha de la reserva es obligatoria")
-    @Size(max = 50, message = "El campo no puede exceder los 50 caracteres")
-    private String fechaReserva;
+    private LocalDate fechaReserva;
 
     /**
      * Hora de la reserva.
      */
     @Column(name = "HORA", nullable = false)
     @NotNull(message = "La hora de la reserva es obligatoria")
-    @Size(max = 50, message = "El campo no puede exceder los 50 caracteres")
-    private String hora;
+    private LocalTime hora;
 
     /**
      * Estado actual de la reserva (por ejemplo: "Pendiente", "Confirmada",
@@ -94,6 +108,22 @@ public class Reserva implements Serializable {
     @UpdateTimestamp
     private LocalDateTime fechaModificacion;
 
+    /**
+     * Versión de la reserva para el control de concurrencia optimista.
+     * Hibernate la incrementa en cada actualización y rechaza la escritura si
+     * otra transacción ha modificado la reserva entretanto.
+     */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    /**
+     * Precio del servicio en el momento de la reserva, en céntimos. Solo
+     * cambia si la reserva pasa a otro servicio.
+     */
+    @Column(name = "PRECIO_CENTIMOS", nullable = false)
+    private Long precioCentimos;
+
     /**
      * Constructor vacío requerido por JPA.
      */
@@ -110,7 +140,7 @@ public class Reserva implements Serializable {
      * @param hora Hora de la reserva.
      * @param estado Estado actual de la reserva.
      */
-    public Reserva(Empresa empresa, Cliente cliente, Servicio servicio, String fechaReserva, String hora, String estado) {
+    public Reserva(Empresa empresa, Cliente cliente, Servicio servicio, LocalDate fechaReserva, LocalTime hora, String estado) {
         this.empresa = empresa;
         this.cliente = cliente;
         this.servicio = servicio;
@@ -196,7 +226,7 @@ public class Reserva implements Serializable {
      *
      * @return Fecha de la reserva.
      */
-    public String getFechaReserva() {
+    public LocalDate getFechaReserva() {
         return fechaReserva;
     }
 
@@ -205,7 +235,7 @@ public class Reserva implements Serializable {
      *
      * @param fechaReserva Fecha a asignar.
      */
-    public void setFechaReserva(String fechaReserva) {
+    public void setFechaReserva(LocalDate fechaReserva) {
         this.fechaReserva = fechaReserva;
     }
 
@@ -214,7 +244,7 @@ public class Reserva implements Serializable {
      *
      * @return Hora de la reserva.
      */
-    public String getHora() {
+    public LocalTime getHora() {
         return hora;
     }
 
@@ -223,7 +253,7 @@ public class Reserva implements Serializable {
      *
      * @param hora Hora a asignar.
      */
-    public void setHora(String hora) {
+    public void setHora(LocalTime hora) {
         this.hora = hora;
     }
 
@@ -262,4 +292,61 @@ public class Reserva implements Serializable {
     public LocalDateTime getFechaModificacion() {
         return fechaModificacion;
     }
+
+    /**
+     * Obtiene la versión de la reserva.
+     *
+     * @return La versión.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión de la reserva.
+     *
+     * @param version La versión.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Obtiene el precio de la reserva en céntimos.
+     *
+     * @return Precio de la reserva, o {@code null} si aún no se ha fijado.
+     */
+    public Long getPrecioCentimos() {
+        return precioCentimos;
+    }
+
+    /**
+     * Establece el precio de la reserva en céntimos.
+     *
+     * @param precioCentimos Precio a asignar.
+     */
+    public void setPrecioCentimos(Long precioCentimos) {
+        this.precioCentimos = precioCentimos;
+    }
+
+    /**
+     * Fija el precio de la reserva al precio actual de su servicio,
+     * redondeado a céntimos como en el resumen diario.
+     *
+     * @return el precio fijado, en céntimos.
+     */
+    public long fijarPrecio() {
+        precioCentimos = Math.round((double) servicio.getPrecio() * 100);
+        return precioCentimos;
+    }
+
+    /**
+     * Fija el precio al guardar la reserva si no se ha hecho antes.
+     */
+    @PrePersist
+    void alCrear() {
+        if (precioCentimos == null && servicio != null) {
+            fijarPrecio();
+        }
+    }
 }
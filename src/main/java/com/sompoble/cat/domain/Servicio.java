@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.io.Serializable;
@@ -93,6 +94,13 @@ public class Servicio implements Serializable {
     @UpdateTimestamp
     @Column(name = "FECHA_MODIFICACION", nullable = false)
     private LocalDateTime fechaModificacion = LocalDateTime.now();
+    /**
+     * Versión del servicio, utilizada para detectar modificaciones
+     * concurrentes del servicio.
+     */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
     /**
      * Lista de reservas asociadas a este servicio. Este campo no puede ser
      * nulo.
@@ -312,6 +320,24 @@ public class Servicio implements Serializable {
         return fechaModificacion;
     }
 
+    /**
+     * Obtiene la versión del servicio.
+     *
+     * @return La versión.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión del servicio.
+     *
+     * @param version La versión.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * Obtiene la lista de reservas asociadas a este servicio.
      *
@@ -0,0 +1,76 @@
+package com.sompoble.cat.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * DTO con la cita de una reserva pendiente de recordatorio, tal como se lee
+ * al cargar una ventana del motor de recordatorios.
+ */
+public class CitaRecordatorioDTO {
+
+    /**
+     * Identificador de la reserva
+     */
+    private final Long idReserva;
+
+    /**
+     * Fecha de la cita
+     */
+    private final LocalDate fecha;
+
+    /**
+     * Hora de la cita
+     */
+    private final LocalTime hora;
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param idReserva identificador de la reserva
+     * @param fecha fecha de la cita
+     * @param hora hora de la cita
+     */
+    public CitaRecordatorioDTO(Long idReserva, LocalDate fecha, LocalTime hora) {
+        this.idReserva = idReserva;
+        this.fecha = fecha;
+        this.hora = hora;
+    }
+
+    /**
+     * Obtiene el identificador de la reserva.
+     *
+     * @return identificador de la reserva
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene la fecha de la cita.
+     *
+     * @return fecha de la cita
+     */
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Obtiene la hora de la cita.
+     *
+     * @return hora de la cita
+     */
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    /**
+     * Devuelve la fecha y hora de la cita.
+     *
+     * @return la cita
+     */
+    public LocalDateTime getCita() {
+        return fecha.atTime(hora);
+    }
+}
@@ -0,0 +1,71 @@
+package com.sompoble.cat.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Posición de una reserva en el orden (fecha, hora, idReserva) utilizado por
+ * la paginación por clave de las listas de reservas.
+ * <p>
+ * La página siguiente empieza en la primera reserva posterior a esta
+ * posición, de modo que la consulta no depende del número de reservas
+ * anteriores.
+ * </p>
+ */
+public class CursorReserva {
+
+    /**
+     * Fecha de la última reserva devuelta.
+     */
+    private final LocalDate fechaReserva;
+
+    /**
+     * Hora de la última reserva devuelta.
+     */
+    private final LocalTime hora;
+
+    /**
+     * Identificador de la última reserva devuelta.
+     */
+    private final Long idReserva;
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param fechaReserva fecha de la última reserva devuelta
+     * @param hora hora de la última reserva devuelta
+     * @param idReserva identificador de la última reserva devuelta
+     */
+    public CursorReserva(LocalDate fechaReserva, LocalTime hora, Long idReserva) {
+        this.fechaReserva = fechaReserva;
+        this.hora = hora;
+        this.idReserva = idReserva;
+    }
+
+    /**
+     * Obtiene la fecha de la última reserva devuelta.
+     *
+     * @return fecha de la reserva
+     */
+    public LocalDate getFechaReserva() {
+        return fechaReserva;
+    }
+
+    /**
+     * Obtiene la hora de la última reserva devuelta.
+     *
+     * @return hora de la reserva
+     */
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    /**
+     * Obtiene el identificador de la última reserva devuelta.
+     *
+     * @return identificador de la reserva
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+}
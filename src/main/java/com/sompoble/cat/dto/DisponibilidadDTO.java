@@ -0,0 +1,217 @@
+package com.sompoble.cat.dto;
+
+import java.util.List;
+
+/**
+ * DTO que representa el calendario de disponibilidad de un servicio en un
+ * rango de fechas.
+ */
+public class DisponibilidadDTO {
+
+    /**
+     * Identificador del servicio
+     */
+    private Long idServicio;
+
+    /**
+     * Primera fecha del rango (yyyy-MM-dd)
+     */
+    private String desde;
+
+    /**
+     * Última fecha del rango (yyyy-MM-dd)
+     */
+    private String hasta;
+
+    /**
+     * Disponibilidad de cada día del rango
+     */
+    private List<DiaDisponibleDTO> dias;
+
+    /**
+     * Constructor vacío.
+     */
+    public DisponibilidadDTO() {
+    }
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param idServicio identificador del servicio
+     * @param desde primera fecha del rango
+     * @param hasta última fecha del rango
+     * @param dias disponibilidad de cada día
+     */
+    public DisponibilidadDTO(Long idServicio, String desde, String hasta, List<DiaDisponibleDTO> dias) {
+        this.idServicio = idServicio;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.dias = dias;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return identificador del servicio
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Establece el identificador del servicio.
+     *
+     * @param idServicio identificador del servicio
+     */
+    public void setIdServicio(Long idServicio) {
+        this.idServicio = idServicio;
+    }
+
+    /**
+     * Obtiene la primera fecha del rango.
+     *
+     * @return primera fecha del rango
+     */
+    public String getDesde() {
+        return desde;
+    }
+
+    /**
+     * Establece la primera fecha del rango.
+     *
+     * @param desde primera fecha del rango
+     */
+    public void setDesde(String desde) {
+        this.desde = desde;
+    }
+
+    /**
+     * Obtiene la última fecha del rango.
+     *
+     * @return última fecha del rango
+     */
+    public String getHasta() {
+        return hasta;
+    }
+
+    /**
+     * Establece la última fecha del rango.
+     *
+     * @param hasta última fecha del rango
+     */
+    public void setHasta(String hasta) {
+        this.hasta = hasta;
+    }
+
+    /**
+     * Obtiene la disponibilidad de cada día.
+     *
+     * @return lista de días
+     */
+    public List<DiaDisponibleDTO> getDias() {
+        return dias;
+    }
+
+    /**
+     * Establece la disponibilidad de cada día.
+     *
+     * @param dias lista de días
+     */
+    public void setDias(List<DiaDisponibleDTO> dias) {
+        this.dias = dias;
+    }
+
+    /**
+     * DTO que representa la disponibilidad de un servicio en un día concreto.
+     */
+    public static class DiaDisponibleDTO {
+
+        /**
+         * Fecha del día (yyyy-MM-dd)
+         */
+        private String fecha;
+
+        /**
+         * Plazas que quedan libres ese día
+         */
+        private int plazasLibres;
+
+        /**
+         * Horas de inicio reservables (HH:mm)
+         */
+        private List<String> horas;
+
+        /**
+         * Constructor vacío.
+         */
+        public DiaDisponibleDTO() {
+        }
+
+        /**
+         * Constructor con todos los campos.
+         *
+         * @param fecha fecha del día
+         * @param plazasLibres plazas libres
+         * @param horas horas de inicio reservables
+         */
+        public DiaDisponibleDTO(String fecha, int plazasLibres, List<String> horas) {
+            this.fecha = fecha;
+            this.plazasLibres = plazasLibres;
+            this.horas = horas;
+        }
+
+        /**
+         * Obtiene la fecha del día.
+         *
+         * @return fecha del día
+         */
+        public String getFecha() {
+            return fecha;
+        }
+
+        /**
+         * Establece la fecha del día.
+         *
+         * @param fecha fecha del día
+         */
+        public void setFecha(String fecha) {
+            this.fecha = fecha;
+        }
+
+        /**
+         * Obtiene las plazas libres.
+         *
+         * @return plazas libres
+         */
+        public int getPlazasLibres() {
+            return plazasLibres;
+        }
+
+        /**
+         * Establece las plazas libres.
+         *
+         * @param plazasLibres plazas libres
+         */
+        public void setPlazasLibres(int plazasLibres) {
+            this.plazasLibres = plazasLibres;
+        }
+
+        /**
+         * Obtiene las horas de inicio reservables.
+         *
+         * @return horas reservables
+         */
+        public List<String> getHoras() {
+            return horas;
+        }
+
+        /**
+         * Establece las horas de inicio reservables.
+         *
+         * @param horas horas reservables
+         */
+        public void setHoras(List<String> horas) {
+            this.horas = horas;
+        }
+    }
+}
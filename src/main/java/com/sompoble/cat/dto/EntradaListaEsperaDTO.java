@@ -0,0 +1,258 @@
+package com.sompoble.cat.dto;
+
+import com.sompoble.cat.domain.EntradaListaEspera.EstadoEspera;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * DTO que representa una entrada de la lista de espera de un servicio.
+ */
+public class EntradaListaEsperaDTO {
+
+    /**
+     * Formato de la hora expuesto por la API.
+     */
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    /**
+     * Identificador de la entrada
+     */
+    private Long idEntrada;
+
+    /**
+     * DNI del cliente en espera
+     */
+    private String dniCliente;
+
+    /**
+     * Identificador del servicio solicitado
+     */
+    private Long idServicio;
+
+    /**
+     * Nombre del servicio solicitado
+     */
+    private String nombreServicio;
+
+    /**
+     * Fecha solicitada, con formato yyyy-MM-dd
+     */
+    private String fechaReserva;
+
+    /**
+     * Hora solicitada, con formato HH:mm
+     */
+    private String hora;
+
+    /**
+     * Estado de la entrada
+     */
+    private String estado;
+
+    /**
+     * Posición en la lista de espera, empezando por 1, o {@code null} si la
+     * entrada ya no está en espera
+     */
+    private Long posicion;
+
+    /**
+     * Reserva creada al promover la entrada, o {@code null}
+     */
+    private Long idReserva;
+
+    /**
+     * Constructor vacío.
+     */
+    public EntradaListaEsperaDTO() {
+    }
+
+    /**
+     * Constructor con todos los campos. Se utiliza también en las consultas
+     * JPQL con proyección por constructor.
+     *
+     * @param idEntrada identificador de la entrada
+     * @param dniCliente DNI del cliente
+     * @param idServicio identificador del servicio
+     * @param nombreServicio nombre del servicio
+     * @param fechaReserva fecha solicitada
+     * @param hora hora solicitada
+     * @param estado estado de la entrada
+     * @param posicion posición en la lista de espera
+     * @param idReserva reserva creada al promover la entrada
+     */
+    public EntradaListaEsperaDTO(Long idEntrada, String dniCliente, Long idServicio, String nombreServicio,
+            LocalDate fechaReserva, LocalTime hora, EstadoEspera estado, Long posicion, Long idReserva) {
+        this.idEntrada = idEntrada;
+        this.dniCliente = dniCliente;
+        this.idServicio = idServicio;
+        this.nombreServicio = nombreServicio;
+        this.fechaReserva = fechaReserva != null ? fechaReserva.toString() : null;
+        this.hora = hora != null ? hora.format(FORMATO_HORA) : null;
+        this.estado = estado != null ? estado.name() : null;
+        this.posicion = posicion;
+        this.idReserva = idReserva;
+    }
+
+    /**
+     * Obtiene el identificador de la entrada.
+     *
+     * @return identificador de la entrada
+     */
+    public Long getIdEntrada() {
+        return idEntrada;
+    }
+
+    /**
+     * Establece el identificador de la entrada.
+     *
+     * @param idEntrada identificador de la entrada
+     */
+    public void setIdEntrada(Long idEntrada) {
+        this.idEntrada = idEntrada;
+    }
+
+    /**
+     * Obtiene el DNI del cliente.
+     *
+     * @return DNI del cliente
+     */
+    public String getDniCliente() {
+        return dniCliente;
+    }
+
+    /**
+     * Establece el DNI del cliente.
+     *
+     * @param dniCliente DNI del cliente
+     */
+    public void setDniCliente(String dniCliente) {
+        this.dniCliente = dniCliente;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return identificador del servicio
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Establece el identificador del servicio.
+     *
+     * @param idServicio identificador del servicio
+     */
+    public void setIdServicio(Long idServicio) {
+        this.idServicio = idServicio;
+    }
+
+    /**
+     * Obtiene el nombre del servicio.
+     *
+     * @return nombre del servicio
+     */
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    /**
+     * Establece el nombre del servicio.
+     *
+     * @param nombreServicio nombre del servicio
+     */
+    public void setNombreServicio(String nombreServicio) {
+        this.nombreServicio = nombreServicio;
+    }
+
+    /**
+     * Obtiene la fecha solicitada.
+     *
+     * @return fecha solicitada
+     */
+    public String getFechaReserva() {
+        return fechaReserva;
+    }
+
+    /**
+     * Establece la fecha solicitada.
+     *
+     * @param fechaReserva fecha solicitada
+     */
+    public void setFechaReserva(String fechaReserva) {
+        this.fechaReserva = fechaReserva;
+    }
+
+    /**
+     * Obtiene la hora solicitada.
+     *
+     * @return hora solicitada
+     */
+    public String getHora() {
+        return hora;
+    }
+
+    /**
+     * Establece la hora solicitada.
+     *
+     * @param hora hora solicitada
+     */
+    public void setHora(String hora) {
+        this.hora = hora;
+    }
+
+    /**
+     * Obtiene el estado de la entrada.
+     *
+     * @return estado de la entrada
+     */
+    public String getEstado() {
+        return estado;
+    }
+
+    /**
+     * Establece el estado de la entrada.
+     *
+     * @param estado estado de la entrada
+     */
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+
+    /**
+     * Obtiene la posición en la lista de espera.
+     *
+     * @return posición, o {@code null} si la entrada ya no está en espera
+     */
+    public Long getPosicion() {
+        return posicion;
+    }
+
+    /**
+     * Establece la posición en la lista de espera.
+     *
+     * @param posicion posición en la lista de espera
+     */
+    public void setPosicion(Long posicion) {
+        this.posicion = posicion;
+    }
+
+    /**
+     * Obtiene la reserva creada al promover la entrada.
+     *
+     * @return identificador de la reserva, o {@code null}
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Establece la reserva creada al promover la entrada.
+     *
+     * @param idReserva identificador de la reserva
+     */
+    public void setIdReserva(Long idReserva) {
+        this.idReserva = idReserva;
+    }
+}
@@ -0,0 +1,173 @@
+package com.sompoble.cat.dto;
+
+/**
+ * DTO con los contadores de la caché del panel de métricas, uno por nivel:
+ * empresas por identificador fiscal, empresa de cada servicio y paneles por
+ * empresa y rango de fechas.
+ */
+public class EstadisticasCacheDTO {
+
+    /**
+     * Contadores del nivel de empresas por identificador fiscal
+     */
+    private final NivelDTO empresas;
+
+    /**
+     * Contadores del nivel de empresa de cada servicio
+     */
+    private final NivelDTO servicios;
+
+    /**
+     * Contadores del nivel de paneles por empresa y rango de fechas
+     */
+    private final NivelDTO paneles;
+
+    /**
+     * Constructor de EstadisticasCacheDTO.
+     *
+     * @param empresas contadores del nivel de empresas
+     * @param servicios contadores del nivel de servicios
+     * @param paneles contadores del nivel de paneles
+     */
+    public EstadisticasCacheDTO(NivelDTO empresas, NivelDTO servicios, NivelDTO paneles) {
+        this.empresas = empresas;
+        this.servicios = servicios;
+        this.paneles = paneles;
+    }
+
+    /**
+     * Obtiene los contadores del nivel de empresas.
+     *
+     * @return contadores del nivel de empresas
+     */
+    public NivelDTO getEmpresas() {
+        return empresas;
+    }
+
+    /**
+     * Obtiene los contadores del nivel de servicios.
+     *
+     * @return contadores del nivel de servicios
+     */
+    public NivelDTO getServicios() {
+        return servicios;
+    }
+
+    /**
+     * Obtiene los contadores del nivel de paneles.
+     *
+     * @return contadores del nivel de paneles
+     */
+    public NivelDTO getPaneles() {
+        return paneles;
+    }
+
+    /**
+     * DTO interno con los contadores de un nivel de la caché.
+     */
+    public static class NivelDTO {
+
+        /**
+         * Consultas servidas desde la caché
+         */
+        private final long aciertos;
+
+        /**
+         * Consultas que no estaban en la caché o habían caducado
+         */
+        private final long fallos;
+
+        /**
+         * Entradas desalojadas por superar la capacidad
+         */
+        private final long desalojos;
+
+        /**
+         * Entradas descartadas por superar su tiempo de vida
+         */
+        private final long caducadas;
+
+        /**
+         * Entradas descartadas por un cambio en los datos
+         */
+        private final long invalidadas;
+
+        /**
+         * Entradas actuales
+         */
+        private final int entradas;
+
+        /**
+         * Constructor de NivelDTO.
+         *
+         * @param aciertos consultas servidas desde la caché
+         * @param fallos consultas no servidas desde la caché
+         * @param desalojos entradas desalojadas por capacidad
+         * @param caducadas entradas caducadas
+         * @param invalidadas entradas invalidadas
+         * @param entradas entradas actuales
+         */
+        public NivelDTO(long aciertos, long fallos, long desalojos, long caducadas, long invalidadas, int entradas) {
+            this.aciertos = aciertos;
+            this.fallos = fallos;
+            this.desalojos = desalojos;
+            this.caducadas = caducadas;
+            this.invalidadas = invalidadas;
+            this.entradas = entradas;
+        }
+
+        /**
+         * Obtiene las consultas servidas desde la caché.
+         *
+         * @return aciertos
+         */
+        public long getAciertos() {
+            return aciertos;
+        }
+
+        /**
+         * Obtiene las consultas no servidas desde la caché.
+         *
+         * @return fallos
+         */
+        public long getFallos() {
+            return fallos;
+        }
+
+        /**
+         * Obtiene las entradas desalojadas por capacidad.
+         *
+         * @return desalojos
+         */
+        public long getDesalojos() {
+            return desalojos;
+        }
+
+        /**
+         * Obtiene las entradas caducadas.
+         *
+         * @return caducadas
+         */
+        public long getCaducadas() {
+            return caducadas;
+        }
+
+        /**
+         * Obtiene las entradas invalidadas.
+         *
+         * @return invalidadas
+         */
+        public long getInvalidadas() {
+            return invalidadas;
+        }
+
+        /**
+         * Obtiene el número de entradas actuales.
+         *
+         * @return entradas
+         */
+        public int getEntradas() {
+            return entradas;
+        }
+    }
+}
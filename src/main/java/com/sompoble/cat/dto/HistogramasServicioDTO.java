@@ -0,0 +1,275 @@
+package com.sompoble.cat.dto;
+
+import java.util.List;
+
+/**
+ * DTO con los histogramas de las reservas de un servicio en un período: por
+ * hora del día, por antelación y por ocupación de cada día respecto al límite
+ * de reservas, en total y por día de la semana.
+ */
+public class HistogramasServicioDTO {
+
+    /**
+     * Identificador del servicio
+     */
+    private final Long idServicio;
+
+    /**
+     * Nombre del servicio
+     */
+    private final String nombreServicio;
+
+    /**
+     * Límite de reservas diarias del servicio con el que se calcula la
+     * ocupación
+     */
+    private final int limiteReservas;
+
+    /**
+     * Fecha de inicio del período
+     */
+    private final String fechaInicio;
+
+    /**
+     * Fecha de fin del período
+     */
+    private final String fechaFin;
+
+    /**
+     * Etiquetas de las cubetas de antelación
+     */
+    private final List<String> etiquetasAntelacion;
+
+    /**
+     * Etiquetas de las cubetas de ocupación
+     */
+    private final List<String> etiquetasOcupacion;
+
+    /**
+     * Histogramas de todo el período
+     */
+    private final HistogramaDTO total;
+
+    /**
+     * Histogramas de cada día de la semana, de lunes a domingo
+     */
+    private final List<HistogramaDTO> porDiaSemana;
+
+    /**
+     * Constructor de HistogramasServicioDTO.
+     *
+     * @param idServicio identificador del servicio
+     * @param nombreServicio nombre del servicio
+     * @param limiteReservas límite de reservas diarias del servicio
+     * @param fechaInicio fecha de inicio del período
+     * @param fechaFin fecha de fin del período
+     * @param etiquetasAntelacion etiquetas de las cubetas de antelación
+     * @param etiquetasOcupacion etiquetas de las cubetas de ocupación
+     * @param total histogramas de todo el período
+     * @param porDiaSemana histogramas de cada día de la semana
+     */
+    public HistogramasServicioDTO(Long idServicio, String nombreServicio, int limiteReservas, String fechaInicio,
+            String fechaFin, List<String> etiquetasAntelacion, List<String> etiquetasOcupacion, HistogramaDTO total,
+            List<HistogramaDTO> porDiaSemana) {
+        this.idServicio = idServicio;
+        this.nombreServicio = nombreServicio;
+        this.limiteReservas = limiteReservas;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.etiquetasAntelacion = etiquetasAntelacion;
+        this.etiquetasOcupacion = etiquetasOcupacion;
+        this.total = total;
+        this.porDiaSemana = porDiaSemana;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return identificador del servicio
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene el nombre del servicio.
+     *
+     * @return nombre del servicio
+     */
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    /**
+     * Obtiene el límite de reservas diarias del servicio.
+     *
+     * @return límite de reservas
+     */
+    public int getLimiteReservas() {
+        return limiteReservas;
+    }
+
+    /**
+     * Obtiene la fecha de inicio del período.
+     *
+     * @return fecha de inicio
+     */
+    public String getFechaInicio() {
+        return fechaInicio;
+    }
+
+    /**
+     * Obtiene la fecha de fin del período.
+     *
+     * @return fecha de fin
+     */
+    public String getFechaFin() {
+        return fechaFin;
+    }
+
+    /**
+     * Obtiene las etiquetas de las cubetas de antelación.
+     *
+     * @return etiquetas de antelación
+     */
+    public List<String> getEtiquetasAntelacion() {
+        return etiquetasAntelacion;
+    }
+
+    /**
+     * Obtiene las etiquetas de las cubetas de ocupación.
+     *
+     * @return etiquetas de ocupación
+     */
+    public List<String> getEtiquetasOcupacion() {
+        return etiquetasOcupacion;
+    }
+
+    /**
+     * Obtiene los histogramas de todo el período.
+     *
+     * @return histogramas del período
+     */
+    public HistogramaDTO getTotal() {
+        return total;
+    }
+
+    /**
+     * Obtiene los histogramas de cada día de la semana.
+     *
+     * @return histogramas de lunes a domingo
+     */
+    public List<HistogramaDTO> getPorDiaSemana() {
+        return porDiaSemana;
+    }
+
+    /**
+     * DTO con los histogramas de un conjunto de días.
+     */
+    public static class HistogramaDTO {
+
+        /**
+         * Día de la semana, o {@code null} para todo el período
+         */
+        private final String diaSemana;
+
+        /**
+         * Días con alguna reserva
+         */
+        private final int dias;
+
+        /**
+         * Total de reservas
+         */
+        private final long reservas;
+
+        /**
+         * Reservas de cada hora del día, de 0 a 23
+         */
+        private final long[] reservasPorHora;
+
+        /**
+         * Reservas de cada cubeta de antelación
+         */
+        private final long[] antelacion;
+
+        /**
+         * Días de cada cubeta de ocupación
+         */
+        private final long[] ocupacion;
+
+        /**
+         * Constructor de HistogramaDTO.
+         *
+         * @param diaSemana día de la semana, o {@code null}
+         * @param dias días con alguna reserva
+         * @param reservas total de reservas
+         * @param reservasPorHora reservas de cada hora del día
+         * @param antelacion reservas de cada cubeta de antelación
+         * @param ocupacion días de cada cubeta de ocupación
+         */
+        public HistogramaDTO(String diaSemana, int dias, long reservas, long[] reservasPorHora, long[] antelacion,
+                long[] ocupacion) {
+            this.diaSemana = diaSemana;
+            this.dias = dias;
+            this.reservas = reservas;
+            this.reservasPorHora = reservasPorHora;
+            this.antelacion = antelacion;
+            this.ocupacion = ocupacion;
+        }
+
+        /**
+         * Obtiene el día de la semana.
+         *
+         * @return día de la semana, o {@code null} para todo el período
+         */
+        public String getDiaSemana() {
+            return diaSemana;
+        }
+
+        /**
+         * Obtiene los días con alguna reserva.
+         *
+         * @return número de días
+         */
+        public int getDias() {
+            return dias;
+        }
+
+        /**
+         * Obtiene el total de reservas.
+         *
+         * @return total de reservas
+         */
+        public long getReservas() {
+            return reservas;
+        }
+
+        /**
+         * Obtiene las reservas de cada hora del día.
+         *
+         * @return reservas de 0 a 23 horas
+         */
+        public long[] getReservasPorHora() {
+            return reservasPorHora;
+        }
+
+        /**
+         * Obtiene las reservas de cada cubeta de antelación.
+         *
+         * @return reservas por antelación
+         */
+        public long[] getAntelacion() {
+            return antelacion;
+        }
+
+        /**
+         * Obtiene los días de cada cubeta de ocupación.
+         *
+         * @return días por ocupación
+         */
+        public long[] getOcupacion() {
+            return ocupacion;
+        }
+    }
+}
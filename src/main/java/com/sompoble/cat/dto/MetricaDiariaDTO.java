@@ -0,0 +1,98 @@
+package com.sompoble.cat.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO con las reservas e ingresos de un servicio en un día, tal como se leen
+ * del resumen diario, para la exportación de métricas de una empresa.
+ */
+public class MetricaDiariaDTO {
+
+    /**
+     * Fecha del resumen
+     */
+    private final String fecha;
+
+    /**
+     * Identificador del servicio
+     */
+    private final Long idServicio;
+
+    /**
+     * Nombre del servicio
+     */
+    private final String nombreServicio;
+
+    /**
+     * Reservas del servicio en el día
+     */
+    private final long reservas;
+
+    /**
+     * Ingresos del servicio en el día
+     */
+    private final BigDecimal ingresos;
+
+    /**
+     * Constructor utilizado por la proyección de la consulta.
+     *
+     * @param fecha fecha del resumen
+     * @param idServicio identificador del servicio
+     * @param nombreServicio nombre del servicio
+     * @param reservas reservas del día
+     * @param ingresosCentimos ingresos del día, en céntimos
+     */
+    public MetricaDiariaDTO(LocalDate fecha, Long idServicio, String nombreServicio, Long reservas, Long ingresosCentimos) {
+        this.fecha = fecha != null ? fecha.toString() : null;
+        this.idServicio = idServicio;
+        this.nombreServicio = nombreServicio;
+        this.reservas = reservas != null ? reservas : 0L;
+        this.ingresos = BigDecimal.valueOf(ingresosCentimos != null ? ingresosCentimos : 0L, 2);
+    }
+
+    /**
+     * Obtiene la fecha del resumen.
+     *
+     * @return fecha
+     */
+    public String getFecha() {
+        return fecha;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return identificador del servicio
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene el nombre del servicio.
+     *
+     * @return nombre del servicio
+     */
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    /**
+     * Obtiene las reservas del día.
+     *
+     * @return reservas
+     */
+    public long getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Obtiene los ingresos del día.
+     *
+     * @return ingresos, con dos decimales
+     */
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+}
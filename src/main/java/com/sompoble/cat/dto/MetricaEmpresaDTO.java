@@ -0,0 +1,99 @@
+package com.sompoble.cat.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO con las reservas e ingresos totales de una empresa en un período, tal
+ * como se leen del resumen diario agrupado por empresa, para las métricas de
+ * la plataforma.
+ */
+public class MetricaEmpresaDTO {
+
+    /**
+     * Identificador de la empresa
+     */
+    private final Long idEmpresa;
+
+    /**
+     * Identificador fiscal de la empresa
+     */
+    private final String identificadorFiscal;
+
+    /**
+     * Nombre de la empresa
+     */
+    private final String nombre;
+
+    /**
+     * Reservas de la empresa en el período
+     */
+    private final long reservas;
+
+    /**
+     * Ingresos de la empresa en el período
+     */
+    private final BigDecimal ingresos;
+
+    /**
+     * Constructor utilizado por la proyección de la consulta.
+     *
+     * @param idEmpresa identificador de la empresa
+     * @param identificadorFiscal identificador fiscal de la empresa
+     * @param nombre nombre de la empresa
+     * @param reservas reservas del período
+     * @param ingresosCentimos ingresos del período, en céntimos
+     */
+    public MetricaEmpresaDTO(Long idEmpresa, String identificadorFiscal, String nombre, Long reservas,
+            Long ingresosCentimos) {
+        this.idEmpresa = idEmpresa;
+        this.identificadorFiscal = identificadorFiscal;
+        this.nombre = nombre;
+        this.reservas = reservas != null ? reservas : 0L;
+        this.ingresos = BigDecimal.valueOf(ingresosCentimos != null ? ingresosCentimos : 0L, 2);
+    }
+
+    /**
+     * Obtiene el identificador de la empresa.
+     *
+     * @return identificador de la empresa
+     */
+    public Long getIdEmpresa() {
+        return idEmpresa;
+    }
+
+    /**
+     * Obtiene el identificador fiscal de la empresa.
+     *
+     * @return identificador fiscal
+     */
+    public String getIdentificadorFiscal() {
+        return identificadorFiscal;
+    }
+
+    /**
+     * Obtiene el nombre de la empresa.
+     *
+     * @return nombre de la empresa
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Obtiene las reservas del período.
+     *
+     * @return reservas
+     */
+    public long getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Obtiene los ingresos del período.
+     *
+     * @return ingresos, con dos decimales
+     */
+    public BigDecimal getIngresos() {
+        return ingresos;
+    }
+}
@@ -0,0 +1,96 @@
+package com.sompoble.cat.dto;
+
+/**
+ * DTO con las reservas e ingresos de un servicio en un mes, tal como se leen
+ * del resumen diario. A partir de estas filas se calculan los totales, el
+ * desglose por servicio y el desglose mensual del panel de métricas.
+ */
+public class MetricaServicioMesDTO {
+
+    /**
+     * Identificador del servicio
+     */
+    private final Long idServicio;
+
+    /**
+     * Nombre del servicio
+     */
+    private final String nombreServicio;
+
+    /**
+     * Número del mes, de 1 a 12
+     */
+    private final int mes;
+
+    /**
+     * Total de reservas del servicio en el mes
+     */
+    private final long reservas;
+
+    /**
+     * Ingresos del servicio en el mes, en céntimos
+     */
+    private final long ingresosCentimos;
+
+    /**
+     * Constructor utilizado por la proyección de la consulta.
+     *
+     * @param idServicio identificador del servicio
+     * @param nombreServicio nombre del servicio
+     * @param mes número del mes
+     * @param reservas total de reservas
+     * @param ingresosCentimos ingresos en céntimos
+     */
+    public MetricaServicioMesDTO(Long idServicio, String nombreServicio, Integer mes, Long reservas, Long ingresosCentimos) {
+        this.idServicio = idServicio;
+        this.nombreServicio = nombreServicio;
+        this.mes = mes;
+        this.reservas = reservas != null ? reservas : 0L;
+        this.ingresosCentimos = ingresosCentimos != null ? ingresosCentimos : 0L;
+    }
+
+    /**
+     * Obtiene el identificador del servicio.
+     *
+     * @return identificador del servicio
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene el nombre del servicio.
+     *
+     * @return nombre del servicio
+     */
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    /**
+     * Obtiene el número del mes.
+     *
+     * @return mes, de 1 a 12
+     */
+    public int getMes() {
+        return mes;
+    }
+
+    /**
+     * Obtiene el total de reservas.
+     *
+     * @return total de reservas
+     */
+    public long getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Obtiene los ingresos en céntimos.
+     *
+     * @return ingresos en céntimos
+     */
+    public long getIngresosCentimos() {
+        return ingresosCentimos;
+    }
+}
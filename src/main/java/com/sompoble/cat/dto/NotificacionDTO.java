@@ -0,0 +1,163 @@
+package com.sompoble.cat.dto;
+
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.domain.Notificacion.TipoNotificacion;
+import java.time.LocalDateTime;
+
+/**
+ * DTO que representa una notificación de un cliente tal como se envía por el
+ * canal de notificaciones en vivo.
+ */
+public class NotificacionDTO {
+
+    /**
+     * Identificador de la notificación
+     */
+    private Long idNotificacion;
+
+    /**
+     * DNI del cliente destinatario
+     */
+    private String dniCliente;
+
+    /**
+     * Contenido de la notificación
+     */
+    private String mensaje;
+
+    /**
+     * Tipo de la notificación
+     */
+    private String tipo;
+
+    /**
+     * Fecha de creación de la notificación
+     */
+    private LocalDateTime fechaAlta;
+
+    /**
+     * Constructor vacío.
+     */
+    public NotificacionDTO() {
+    }
+
+    /**
+     * Constructor con todos los campos. Se utiliza también en las consultas
+     * JPQL con proyección por constructor.
+     *
+     * @param idNotificacion identificador de la notificación
+     * @param dniCliente DNI del cliente destinatario
+     * @param mensaje contenido de la notificación
+     * @param tipo tipo de la notificación
+     * @param fechaAlta fecha de creación
+     */
+    public NotificacionDTO(Long idNotificacion, String dniCliente, String mensaje, TipoNotificacion tipo,
+            LocalDateTime fechaAlta) {
+        this.idNotificacion = idNotificacion;
+        this.dniCliente = dniCliente;
+        this.mensaje = mensaje;
+        this.tipo = tipo != null ? tipo.name() : null;
+        this.fechaAlta = fechaAlta;
+    }
+
+    /**
+     * Crea el DTO a partir de una notificación de un cliente.
+     *
+     * @param notificacion la notificación, con el cliente informado
+     * @return el DTO
+     */
+    public static NotificacionDTO de(Notificacion notificacion) {
+        return new NotificacionDTO(notificacion.getIdNotificacion(), notificacion.getCliente().getDni(),
+                notificacion.getMensaje(), notificacion.getTipo(), notificacion.getFechaAlta());
+    }
+
+    /**
+     * Obtiene el identificador de la notificación.
+     *
+     * @return identificador de la notificación
+     */
+    public Long getIdNotificacion() {
+        return idNotificacion;
+    }
+
+    /**
+     * Establece el identificador de la notificación.
+     *
+     * @param idNotificacion identificador de la notificación
+     */
+    public void setIdNotificacion(Long idNotificacion) {
+        this.idNotificacion = idNotificacion;
+    }
+
+    /**
+     * Obtiene el DNI del cliente destinatario.
+     *
+     * @return DNI del cliente
+     */
+    public String getDniCliente() {
+        return dniCliente;
+    }
+
+    /**
+     * Establece el DNI del cliente destinatario.
+     *
+     * @param dniCliente DNI del cliente
+     */
+    public void setDniCliente(String dniCliente) {
+        this.dniCliente = dniCliente;
+    }
+
+    /**
+     * Obtiene el contenido de la notificación.
+     *
+     * @return contenido de la notificación
+     */
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    /**
+     * Establece el contenido de la notificación.
+     *
+     * @param mensaje contenido de la notificación
+     */
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    /**
+     * Obtiene el tipo de la notificación.
+     *
+     * @return tipo de la notificación
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Establece el tipo de la notificación.
+     *
+     * @param tipo tipo de la notificación
+     */
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    /**
+     * Obtiene la fecha de creación de la notificación.
+     *
+     * @return fecha de creación
+     */
+    public LocalDateTime getFechaAlta() {
+        return fechaAlta;
+    }
+
+    /**
+     * Establece la fecha de creación de la notificación.
+     *
+     * @param fechaAlta fecha de creación
+     */
+    public void setFechaAlta(LocalDateTime fechaAlta) {
+        this.fechaAlta = fechaAlta;
+    }
+}
@@ -0,0 +1,74 @@
+package com.sompoble.cat.dto;
+
+import java.util.List;
+
+/**
+ * DTO que representa una página de reservas obtenida con paginación por
+ * clave.
+ */
+public class PaginaReservasDTO {
+
+    /**
+     * Reservas de la página, ordenadas por fecha, hora e identificador
+     */
+    private List<ReservaDTO> reservas;
+
+    /**
+     * Cursor para pedir la página siguiente, o {@code null} si no hay más
+     * reservas
+     */
+    private String siguienteCursor;
+
+    /**
+     * Constructor vacío.
+     */
+    public PaginaReservasDTO() {
+    }
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param reservas reservas de la página
+     * @param siguienteCursor cursor de la página siguiente
+     */
+    public PaginaReservasDTO(List<ReservaDTO> reservas, String siguienteCursor) {
+        this.reservas = reservas;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    /**
+     * Obtiene las reservas de la página.
+     *
+     * @return lista de reservas
+     */
+    public List<ReservaDTO> getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Establece las reservas de la página.
+     *
+     * @param reservas lista de reservas
+     */
+    public void setReservas(List<ReservaDTO> reservas) {
+        this.reservas = reservas;
+    }
+
+    /**
+     * Obtiene el cursor de la página siguiente.
+     *
+     * @return cursor de la página siguiente, o {@code null} si es la última
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Establece el cursor de la página siguiente.
+     *
+     * @param siguienteCursor cursor de la página siguiente
+     */
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+}
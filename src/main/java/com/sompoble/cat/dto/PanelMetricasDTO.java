@@ -32,8 +32,8 @@ public class PanelMetricasDTO {
     /**
      * Lista de métricas agrupadas por servicio
      */
-    //IMPORNTANTE: no se termina de implementar. Inlcuido en TEA6 como mejora de la plataforma.
-    //private List<ServicioResumenDTO> servicios;
+    private List<ServicioResumenDTO> servicios;
+
     /**
      * Lista de métricas agrupadas por mes
      */
@@ -111,27 +111,24 @@ public class PanelMetricasDTO {
         this.clientesUnicos = clientesUnicos;
     }
 
-    //IMPORNTANTE: no se termina de implementar. Inlcuido en TEA6 como mejora de la plataforma.
     /**
      * Obtiene la lista de métricas por servicio.
      *
      * @return lista de métricas por servicio
      */
-    /*
     public List<ServicioResumenDTO> getServicios() {
         return servicios;
     }
-     */
+
     /**
      * Establece la lista de métricas por servicio.
      *
      * @param servicios lista de métricas por servicio
      */
-    /*
     public void setServicios(List<ServicioResumenDTO> servicios) {
         this.servicios = servicios;
     }
-     */
+
     /**
      * Obtiene la lista de métricas mensuales.
      *
@@ -152,11 +149,14 @@ public class PanelMetricasDTO {
 
     /**
      * DTO interno que representa las métricas resumidas por servicio.
-     * IMPORNTANTE: no se termina de implementar. Inlcuido en TEA6 como mejora
-     * de la plataforma.
      */
     public static class ServicioResumenDTO {
 
+        /**
+         * Identificador del servicio
+         */
+        private Long idServicio;
+
         /**
          * Nombre del servicio
          */
@@ -185,6 +185,37 @@ public class PanelMetricasDTO {
             this.ingresos = ingresos != null ? ingresos : BigDecimal.ZERO;
         }
 
+        /**
+         * Constructor de ServicioResumenDTO con el identificador del servicio.
+         *
+         * @param idServicio identificador del servicio
+         * @param nombre nombre del servicio
+         * @param reservas total de reservas
+         * @param ingresos ingresos generados
+         */
+        public ServicioResumenDTO(Long idServicio, String nombre, Long reservas, BigDecimal ingresos) {
+            this(nombre, reservas, ingresos);
+            this.idServicio = idServicio;
+        }
+
+        /**
+         * Obtiene el identificador del servicio.
+         *
+         * @return identificador del servicio
+         */
+        public Long getIdServicio() {
+            return idServicio;
+        }
+
+        /**
+         * Establece el identificador del servicio.
+         *
+         * @param idServicio identificador del servicio
+         */
+        public void setIdServicio(Long idServicio) {
+            this.idServicio = idServicio;
+        }
+
         /**
          * Obtiene el nombre del servicio.
          *
@@ -0,0 +1,132 @@
+package com.sompoble.cat.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO con las métricas de toda la plataforma en un período: los totales de
+ * todas las empresas y las clasificaciones de las que más ingresan y más
+ * reservas reciben.
+ */
+public class PanelPlataformaDTO {
+
+    /**
+     * Fecha de inicio del período
+     */
+    private final String fechaInicio;
+
+    /**
+     * Fecha de fin del período
+     */
+    private final String fechaFin;
+
+    /**
+     * Número de empresas con alguna reserva en el período
+     */
+    private final int empresas;
+
+    /**
+     * Total de reservas de todas las empresas
+     */
+    private final long totalReservas;
+
+    /**
+     * Ingresos totales de todas las empresas
+     */
+    private final BigDecimal totalIngresos;
+
+    /**
+     * Empresas con más ingresos, de mayor a menor
+     */
+    private final List<MetricaEmpresaDTO> topIngresos;
+
+    /**
+     * Empresas con más reservas, de mayor a menor
+     */
+    private final List<MetricaEmpresaDTO> topReservas;
+
+    /**
+     * Constructor de PanelPlataformaDTO.
+     *
+     * @param fechaInicio fecha de inicio del período
+     * @param fechaFin fecha de fin del período
+     * @param empresas número de empresas con alguna reserva
+     * @param totalReservas total de reservas
+     * @param totalIngresos ingresos totales
+     * @param topIngresos empresas con más ingresos
+     * @param topReservas empresas con más reservas
+     */
+    public PanelPlataformaDTO(String fechaInicio, String fechaFin, int empresas, long totalReservas,
+            BigDecimal totalIngresos, List<MetricaEmpresaDTO> topIngresos, List<MetricaEmpresaDTO> topReservas) {
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.empresas = empresas;
+        this.totalReservas = totalReservas;
+        this.totalIngresos = totalIngresos;
+        this.topIngresos = topIngresos;
+        this.topReservas = topReservas;
+    }
+
+    /**
+     * Obtiene la fecha de inicio del período.
+     *
+     * @return fecha de inicio
+     */
+    public String getFechaInicio() {
+        return fechaInicio;
+    }
+
+    /**
+     * Obtiene la fecha de fin del período.
+     *
+     * @return fecha de fin
+     */
+    public String getFechaFin() {
+        return fechaFin;
+    }
+
+    /**
+     * Obtiene el número de empresas con alguna reserva.
+     *
+     * @return número de empresas
+     */
+    public int getEmpresas() {
+        return empresas;
+    }
+
+    /**
+     * Obtiene el total de reservas.
+     *
+     * @return total de reservas
+     */
+    public long getTotalReservas() {
+        return totalReservas;
+    }
+
+    /**
+     * Obtiene los ingresos totales.
+     *
+     * @return ingresos totales, con dos decimales
+     */
+    public BigDecimal getTotalIngresos() {
+        return totalIngresos;
+    }
+
+    /**
+     * Obtiene las empresas con más ingresos.
+     *
+     * @return empresas ordenadas por ingresos descendentes
+     */
+    public List<MetricaEmpresaDTO> getTopIngresos() {
+        return topIngresos;
+    }
+
+    /**
+     * Obtiene las empresas con más reservas.
+     *
+     * @return empresas ordenadas por reservas descendentes
+     */
+    public List<MetricaEmpresaDTO> getTopReservas() {
+        return topReservas;
+    }
+}
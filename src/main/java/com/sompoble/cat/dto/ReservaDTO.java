@@ -1,6 +1,10 @@
 package com.sompoble.cat.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Data Transfer Object (DTO) para la entidad Reserva.
@@ -13,6 +17,11 @@ import java.io.Serializable;
  */
 public class ReservaDTO implements Serializable {
 
+    /**
+     * Formato de la hora expuesto por la API.
+     */
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
     private Long idReserva;
     private String fechaReserva;
     private String hora;
@@ -21,6 +30,13 @@ public class ReservaDTO implements Serializable {
     private String identificadorFiscalEmpresa;
     private Long idServicio;
     private String nombreServicio;
+    private Long version;
+
+    /**
+     * Hora tal como está guardada, con los segundos. No se expone en la API;
+     * se utiliza para construir el cursor de paginación.
+     */
+    private LocalTime horaExacta;
 
     public ReservaDTO() {
     }
@@ -47,6 +63,34 @@ public class ReservaDTO implements Serializable {
         this.idServicio = idServicio;
     }
 
+    /**
+     * Constructor a partir de los valores tipados de la reserva. Se utiliza en
+     * las consultas JPQL con proyección por constructor, de modo que los
+     * listados se obtienen en una sola consulta sin cargar entidades.
+     *
+     * @param idReserva Identificador único de la reserva.
+     * @param fechaReserva Fecha de la reserva.
+     * @param hora Hora de la reserva.
+     * @param estado Estado actual de la reserva.
+     * @param dniCliente DNI del cliente que realizó la reserva.
+     * @param identificadorFiscalEmpresa Identificador fiscal de la empresa.
+     * @param idServicio Identificador del servicio reservado.
+     * @param nombreServicio Nombre del servicio reservado.
+     * @param version Versión de la reserva, que el cliente puede devolver al
+     * actualizarla para detectar cambios concurrentes.
+     */
+    public ReservaDTO(Long idReserva, LocalDate fechaReserva, LocalTime hora, String estado,
+            String dniCliente, String identificadorFiscalEmpresa, Long idServicio, String nombreServicio,
+            Long version) {
+        this(idReserva,
+                fechaReserva != null ? fechaReserva.toString() : null,
+                hora != null ? hora.format(FORMATO_HORA) : null,
+                estado, dniCliente, identificadorFiscalEmpresa, idServicio);
+        this.nombreServicio = nombreServicio;
+        this.version = version;
+        this.horaExacta = hora;
+    }
+
     /**
      * Obtiene el identificador único de la reserva.
      *
@@ -191,4 +235,33 @@ public class ReservaDTO implements Serializable {
     public void setNombreServicio(String nombreServicio) {
         this.nombreServicio = nombreServicio;
     }
+
+    /**
+     * Obtiene la versión de la reserva.
+     *
+     * @return Versión de la reserva.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión de la reserva.
+     *
+     * @param version Versión de la reserva.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Obtiene la hora tal como está guardada, con los segundos.
+     *
+     * @return Hora exacta de la reserva, o {@code null} si el DTO no se ha
+     * construido a partir de los valores tipados.
+     */
+    @JsonIgnore
+    public LocalTime getHoraExacta() {
+        return horaExacta;
+    }
 }
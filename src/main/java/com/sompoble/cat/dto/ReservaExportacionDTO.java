@@ -0,0 +1,128 @@
+package com.sompoble.cat.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * DTO con los datos de una reserva que se incluyen en la exportación de
+ * reservas de una empresa, junto con el precio actual del servicio.
+ *
+ * @author SomPoble
+ */
+public class ReservaExportacionDTO {
+
+    /**
+     * Formato de la hora exportada, igual al de {@link ReservaDTO}.
+     */
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final Long idReserva;
+    private final String fechaReserva;
+    private final String hora;
+    private final String estado;
+    private final String dniCliente;
+    private final Long idServicio;
+    private final String nombreServicio;
+    private final BigDecimal precio;
+
+    /**
+     * Constructor utilizado por la proyección de la consulta de exportación.
+     *
+     * @param idReserva Identificador único de la reserva.
+     * @param fechaReserva Fecha de la reserva.
+     * @param hora Hora de la reserva.
+     * @param estado Estado actual de la reserva.
+     * @param dniCliente DNI del cliente que realizó la reserva.
+     * @param idServicio Identificador del servicio reservado.
+     * @param nombreServicio Nombre del servicio reservado.
+     * @param precio Precio actual del servicio.
+     */
+    public ReservaExportacionDTO(Long idReserva, LocalDate fechaReserva, LocalTime hora, String estado,
+            String dniCliente, Long idServicio, String nombreServicio, Float precio) {
+        this.idReserva = idReserva;
+        this.fechaReserva = fechaReserva != null ? fechaReserva.toString() : null;
+        this.hora = hora != null ? hora.format(FORMATO_HORA) : null;
+        this.estado = estado;
+        this.dniCliente = dniCliente;
+        this.idServicio = idServicio;
+        this.nombreServicio = nombreServicio;
+        this.precio = precio != null
+                ? new BigDecimal(precio.toString()).setScale(2, RoundingMode.HALF_UP)
+                : null;
+    }
+
+    /**
+     * Obtiene el identificador único de la reserva.
+     *
+     * @return ID de la reserva.
+     */
+    public Long getIdReserva() {
+        return idReserva;
+    }
+
+    /**
+     * Obtiene la fecha de la reserva.
+     *
+     * @return Fecha de la reserva.
+     */
+    public String getFechaReserva() {
+        return fechaReserva;
+    }
+
+    /**
+     * Obtiene la hora de la reserva.
+     *
+     * @return Hora de la reserva.
+     */
+    public String getHora() {
+        return hora;
+    }
+
+    /**
+     * Obtiene el estado de la reserva.
+     *
+     * @return Estado de la reserva.
+     */
+    public String getEstado() {
+        return estado;
+    }
+
+    /**
+     * Obtiene el DNI del cliente.
+     *
+     * @return DNI del cliente.
+     */
+    public String getDniCliente() {
+        return dniCliente;
+    }
+
+    /**
+     * Obtiene el identificador del servicio reservado.
+     *
+     * @return ID del servicio.
+     */
+    public Long getIdServicio() {
+        return idServicio;
+    }
+
+    /**
+     * Obtiene el nombre del servicio reservado.
+     *
+     * @return Nombre del servicio.
+     */
+    public String getNombreServicio() {
+        return nombreServicio;
+    }
+
+    /**
+     * Obtiene el precio actual del servicio, con dos decimales.
+     *
+     * @return Precio del servicio.
+     */
+    public BigDecimal getPrecio() {
+        return precio;
+    }
+}
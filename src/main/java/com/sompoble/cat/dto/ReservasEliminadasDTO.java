@@ -0,0 +1,86 @@
+package com.sompoble.cat.dto;
+
+import java.util.Objects;
+
+/**
+ * Reservas eliminadas en bloque de un servicio en una fecha, con la suma de
+ * sus precios, para liberar sus plazas y retirarlas del resumen de métricas.
+ */
+public class ReservasEliminadasDTO {
+
+    /**
+     * Número de reservas eliminadas.
+     */
+    private int reservas;
+
+    /**
+     * Suma de los precios de las reservas eliminadas, en céntimos.
+     */
+    private long ingresosCentimos;
+
+    /**
+     * Constructor vacío.
+     */
+    public ReservasEliminadasDTO() {
+    }
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param reservas número de reservas eliminadas
+     * @param ingresosCentimos suma de sus precios, en céntimos
+     */
+    public ReservasEliminadasDTO(int reservas, long ingresosCentimos) {
+        this.reservas = reservas;
+        this.ingresosCentimos = ingresosCentimos;
+    }
+
+    /**
+     * Añade una reserva eliminada.
+     *
+     * @param precioCentimos el precio de la reserva, en céntimos
+     */
+    public void sumar(long precioCentimos) {
+        reservas++;
+        ingresosCentimos += precioCentimos;
+    }
+
+    /**
+     * Obtiene el número de reservas eliminadas.
+     *
+     * @return número de reservas
+     */
+    public int getReservas() {
+        return reservas;
+    }
+
+    /**
+     * Obtiene la suma de los precios de las reservas eliminadas.
+     *
+     * @return ingresos en céntimos
+     */
+    public long getIngresosCentimos() {
+        return ingresosCentimos;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof ReservasEliminadasDTO eliminadas)) {
+            return false;
+        }
+        return reservas == eliminadas.reservas && ingresosCentimos == eliminadas.ingresosCentimos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(reservas, ingresosCentimos);
+    }
+
+    @Override
+    public String toString() {
+        return reservas + " reservas, " + ingresosCentimos + " céntimos";
+    }
+}
@@ -0,0 +1,53 @@
+package com.sompoble.cat.exception;
+
+/**
+ * Excepción que representa un conflicto entre peticiones concurrentes sobre el
+ * mismo recurso, por ejemplo al actualizar una reserva que otra petición ha
+ * modificado o cuya franja está bloqueada.
+ * <p>
+ * Se responde con el estado 409. Si el conflicto es pasajero, como una franja
+ * bloqueada, se añade la cabecera {@code Retry-After} con el tiempo tras el
+ * que se puede repetir la petición. Si el recurso ha cambiado, no se indica
+ * espera: el cliente debe volver a leerlo antes de repetir el cambio.
+ * </p>
+ */
+public class ConflictoException extends RuntimeException {
+
+    /**
+     * Segundos tras los que el cliente puede reintentar, o {@code null} si
+     * debe volver a leer el recurso en lugar de reintentar.
+     */
+    private final Integer segundosReintento;
+
+    /**
+     * Construye una excepción de conflicto por una modificación concurrente
+     * del recurso. La respuesta no lleva la cabecera {@code Retry-After}.
+     *
+     * @param message el mensaje que explica el conflicto.
+     */
+    public ConflictoException(String message) {
+        super(message);
+        this.segundosReintento = null;
+    }
+
+    /**
+     * Construye una nueva excepción de conflicto.
+     *
+     * @param message el mensaje que explica el conflicto.
+     * @param segundosReintento los segundos tras los que se puede reintentar.
+     */
+    public ConflictoException(String message, int segundosReintento) {
+        super(message);
+        this.segundosReintento = segundosReintento;
+    }
+
+    /**
+     * Obtiene los segundos tras los que el cliente puede reintentar.
+     *
+     * @return los segundos de espera, o {@code null} si el cliente debe volver
+     * a leer el recurso.
+     */
+    public Integer getSegundosReintento() {
+        return segundosReintento;
+    }
+}
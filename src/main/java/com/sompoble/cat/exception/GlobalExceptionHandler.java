@@ -1,12 +1,15 @@
 package com.sompoble.cat.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 /**
  * Manejador global de excepciones para la aplicación.
@@ -33,7 +36,7 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.NOT_FOUND.value());
         response.put("error", "Not Found");
         response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        return respuesta(response, HttpStatus.NOT_FOUND);
     }
 
     /**
@@ -49,7 +52,7 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.BAD_REQUEST.value());
         response.put("error", "Bad Request");
         response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return respuesta(response, HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -66,7 +69,7 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
         response.put("error", "Internal Server Error");
         response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        return respuesta(response, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     /**
@@ -84,7 +87,7 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.BAD_REQUEST.value());
         response.put("error", "Bad Request");
         response.put("message", "Error en la deserialización de los datos JSON. Verifique el formato");
-        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        return respuesta(response, HttpStatus.BAD_REQUEST);
     }
 
     /**
@@ -100,7 +103,7 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.UNAUTHORIZED.value());
         response.put("error", "Unauthorized");
         response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+        return respuesta(response, HttpStatus.UNAUTHORIZED);
     }
 
     /**
@@ -116,6 +119,72 @@ public class GlobalExceptionHandler {
         response.put("status", HttpStatus.NOT_FOUND.value());
         response.put("error", "Not Found");
         response.put("message", ex.getMessage());
-        return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        return respuesta(response, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Maneja las excepciones de tipo ConflictoException.
+     *
+     * @param ex la excepción ConflictoException capturada
+     * @return un ResponseEntity con estado HTTP 409 (Conflict), la cabecera
+     * {@code Retry-After} si el conflicto es pasajero y un cuerpo que contiene
+     * detalles del error
+     */
+    @ExceptionHandler(ConflictoException.class)
+    public ResponseEntity<?> handleConflictoException(ConflictoException ex) {
+        return conflicto(ex.getMessage(), ex.getSegundosReintento());
+    }
+
+    /**
+     * Maneja los conflictos de versión detectados por Hibernate al guardar
+     * una entidad que otra transacción ha modificado.
+     *
+     * @param ex la excepción ObjectOptimisticLockingFailureException capturada
+     * @return un ResponseEntity con estado HTTP 409 (Conflict) y un cuerpo que
+     * contiene detalles del error. No se indica {@code Retry-After}: repetir la
+     * misma petición volvería a fallar, el cliente debe leer de nuevo el
+     * recurso.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleObjectOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex) {
+        return conflicto("El recurso ha sido modificado por otra petición. Vuelva a consultarlo y repita el cambio", null);
+    }
+
+    /**
+     * Construye la respuesta de un conflicto, con la cabecera
+     * {@code Retry-After} si se indica el tiempo de espera.
+     *
+     * @param mensaje el mensaje de error.
+     * @param segundosReintento los segundos tras los que se puede reintentar,
+     * o {@code null} si el cliente debe volver a leer el recurso.
+     * @return la respuesta de error.
+     */
+    private static ResponseEntity<?> conflicto(String mensaje, Integer segundosReintento) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", HttpStatus.CONFLICT.value());
+        response.put("error", "Conflict");
+        response.put("message", mensaje);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (segundosReintento != null) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(segundosReintento));
+        }
+        return builder
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+
+    /**
+     * Construye la respuesta de error. El tipo de contenido se fija a JSON para
+     * que el cuerpo se pueda escribir aunque la petición acepte otro formato,
+     * como {@code application/x-ndjson}.
+     *
+     * @param response el cuerpo de la respuesta.
+     * @param status el estado HTTP.
+     * @return la respuesta de error.
+     */
+    private static ResponseEntity<?> respuesta(Map<String, Object> response, HttpStatus status) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
     }
 }
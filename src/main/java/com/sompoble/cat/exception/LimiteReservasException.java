@@ -0,0 +1,19 @@
+package com.sompoble.cat.exception;
+
+/**
+ * Excepción que se lanza cuando un servicio ha alcanzado su límite de
+ * reservas en la fecha solicitada.
+ * <p>
+ * Se responde igual que una {@link BadRequestException}, pero permite al
+ * controlador distinguir este caso y apuntar al cliente en la lista de espera.
+ * </p>
+ */
+public class LimiteReservasException extends BadRequestException {
+
+    /**
+     * Construye la excepción con el mensaje habitual del límite de reservas.
+     */
+    public LimiteReservasException() {
+        super("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada");
+    }
+}
@@ -0,0 +1,55 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.ClientesDiarios;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio para los estimadores de clientes distintos de la entidad
+ * {@code ClientesDiarios}.
+ */
+public interface ClientesDiariosRepository {
+
+    /**
+     * Sube un registro del estimador de una empresa y fecha al valor
+     * indicado si es menor, creando el estimador si no existe. La operación
+     * es conmutativa, por lo que no necesita leer ni bloquear el estimador, y
+     * se ejecuta en su propia transacción.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param fecha la fecha.
+     * @param indice el índice del registro.
+     * @param posicion el valor mínimo del registro.
+     */
+    void fusionar(Long idEmpresa, LocalDate fecha, int indice, byte posicion);
+
+    /**
+     * Obtiene los registros de los estimadores de una empresa en un período.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los registros de cada día con estimador.
+     */
+    List<byte[]> findRegistros(Long idEmpresa, LocalDate inicio, LocalDate fin);
+
+    /**
+     * Obtiene los clientes distintos con reserva en cada empresa y día de un
+     * período. La empresa es la propietaria del servicio reservado.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los identificadores de cliente, agrupados por empresa y fecha.
+     */
+    Map<Long, Map<LocalDate, List<Long>>> findClientesPorEmpresaYDia(LocalDate inicio, LocalDate fin);
+
+    /**
+     * Sustituye los estimadores de un período por los indicados.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @param estimadores los nuevos estimadores del período.
+     */
+    void sustituir(LocalDate inicio, LocalDate fin, List<ClientesDiarios> estimadores);
+}
@@ -0,0 +1,25 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
+
+/**
+ * Repositorio para la entidad {@code ConfiguracionNotificaciones}, que guarda
+ * la configuración del envío de notificaciones compartida por todas las
+ * instancias.
+ */
+public interface ConfiguracionNotificacionesRepository {
+
+    /**
+     * Obtiene la configuración.
+     *
+     * @return la configuración, o {@code null} si nunca se ha guardado.
+     */
+    ConfiguracionNotificaciones find();
+
+    /**
+     * Guarda la configuración, creándola si no existe.
+     *
+     * @param configuracion la configuración.
+     */
+    void save(ConfiguracionNotificaciones configuracion);
+}
@@ -0,0 +1,54 @@
+package com.sompoble.cat.repository;
+
+import java.util.List;
+
+/**
+ * Repositorio de los arrendamientos de las tareas programadas y de los
+ * latidos de las instancias. Todos los plazos se miden con el reloj de la
+ * base de datos.
+ *
+ * @author SomPoble
+ */
+public interface CoordinacionRepository {
+
+    /**
+     * Toma o renueva el arrendamiento de una tarea si está libre, ha vencido
+     * o ya pertenece al nodo.
+     *
+     * @param nombre el nombre de la tarea.
+     * @param nodo el identificador del nodo.
+     * @param duracionMs la duración del arrendamiento en milisegundos.
+     * @return {@code true} si el nodo tiene el arrendamiento.
+     */
+    boolean adquirir(String nombre, String nodo, long duracionMs);
+
+    /**
+     * Libera los arrendamientos del nodo y borra su latido.
+     *
+     * @param nodo el identificador del nodo.
+     */
+    void liberar(String nodo);
+
+    /**
+     * Registra el latido del nodo.
+     *
+     * @param nodo el identificador del nodo.
+     */
+    void latido(String nodo);
+
+    /**
+     * Devuelve los nodos con un latido reciente.
+     *
+     * @param caducidadMs la antigüedad máxima del último latido.
+     * @return los identificadores, en orden alfabético.
+     */
+    List<String> findNodosActivos(long caducidadMs);
+
+    /**
+     * Borra los nodos sin latido desde hace tiempo.
+     *
+     * @param caducidadMs la antigüedad a partir de la cual se borran.
+     * @return el número de nodos borrados.
+     */
+    int deleteNodosInactivos(long caducidadMs);
+}
@@ -0,0 +1,57 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.HistogramaDiario;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para los histogramas diarios de reservas de la entidad
+ * {@code HistogramaDiario}.
+ */
+public interface HistogramaDiarioRepository {
+
+    /**
+     * Obtiene el histograma de un servicio y fecha bloqueado hasta el final de
+     * la transacción, creándolo vacío si no existe.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return el histograma bloqueado.
+     */
+    HistogramaDiario bloquear(Long idServicio, LocalDate fecha);
+
+    /**
+     * Obtiene los histogramas de un servicio en un período.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los histogramas de cada día con reservas, en orden de fecha.
+     */
+    List<HistogramaDiario> findByServicio(Long idServicio, LocalDate inicio, LocalDate fin);
+
+    /**
+     * Calcula los histogramas de un período a partir de las reservas.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los histogramas de cada servicio y día con reservas.
+     */
+    List<HistogramaDiario> calcular(LocalDate inicio, LocalDate fin);
+
+    /**
+     * Elimina los histogramas del período y guarda los nuevos.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @param histogramas los nuevos histogramas del período.
+     */
+    void sustituir(LocalDate inicio, LocalDate fin, List<HistogramaDiario> histogramas);
+
+    /**
+     * Elimina los histogramas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void deleteByServicioId(Long idServicio);
+}
@@ -0,0 +1,112 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.EntradaListaEspera;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio para la entidad {@code EntradaListaEspera}, que guarda las
+ * listas de espera de los servicios con la fecha completa.
+ */
+public interface ListaEsperaRepository {
+
+    /**
+     * Guarda una nueva entrada.
+     *
+     * @param entrada la entrada a guardar.
+     */
+    void save(EntradaListaEspera entrada);
+
+    /**
+     * Busca una entrada por su identificador.
+     *
+     * @param idEntrada el identificador de la entrada.
+     * @return la entrada, o {@code null} si no existe.
+     */
+    EntradaListaEspera findById(Long idEntrada);
+
+    /**
+     * Comprueba si un cliente ya está en espera para un servicio y fecha.
+     *
+     * @param idCliente el identificador del cliente.
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha solicitada.
+     * @return {@code true} si el cliente ya está en espera.
+     */
+    boolean existsEnEspera(Long idCliente, Long idServicio, LocalDate fecha);
+
+    /**
+     * Calcula la posición de una entrada en su lista de espera.
+     *
+     * @param entrada la entrada en espera.
+     * @return la posición, empezando por 1.
+     */
+    long posicion(EntradaListaEspera entrada);
+
+    /**
+     * Obtiene las entradas en espera de un cliente con su posición.
+     *
+     * @param dni el DNI del cliente.
+     * @return las entradas en espera, ordenadas por fecha.
+     */
+    List<EntradaListaEsperaDTO> findEnEsperaByClienteDni(String dni);
+
+    /**
+     * Obtiene y bloquea la primera entrada en espera de un servicio y fecha.
+     * Las entradas bloqueadas por otra transacción se saltan, de modo que dos
+     * promociones simultáneas nunca atienden la misma entrada.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return la entrada bloqueada, o {@code null} si no hay ninguna libre.
+     */
+    EntradaListaEspera bloquearPrimera(Long idServicio, LocalDate fecha);
+
+    /**
+     * Obtiene los servicios y fechas que tienen entradas en espera.
+     *
+     * @return las fechas con entradas en espera, agrupadas por servicio.
+     */
+    Map<Long, List<LocalDate>> findFranjasEnEspera();
+
+    /**
+     * Cancela una entrada si sigue en espera.
+     *
+     * @param idEntrada el identificador de la entrada.
+     * @return {@code true} si se ha cancelado.
+     */
+    boolean cancelar(Long idEntrada);
+
+    /**
+     * Cancela todas las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     * @return el número de entradas canceladas.
+     */
+    int cancelarByClienteDni(String dni);
+
+    /**
+     * Marca como caducadas las entradas en espera de fechas anteriores a la
+     * indicada.
+     *
+     * @param fecha la primera fecha que sigue vigente.
+     * @return el número de entradas caducadas.
+     */
+    int caducarAnteriores(LocalDate fecha);
+
+    /**
+     * Elimina todas las entradas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void deleteByServicioId(Long idServicio);
+
+    /**
+     * Elimina todas las entradas de los servicios de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     */
+    void deleteByEmpresaIdentificadorFiscal(String identificadorFiscal);
+}
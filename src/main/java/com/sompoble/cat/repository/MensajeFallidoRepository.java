@@ -0,0 +1,51 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.MensajeFallido;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad {@code MensajeFallido}, que guarda los correos
+ * de la bandeja de salida que no se han podido entregar.
+ */
+public interface MensajeFallidoRepository {
+
+    /**
+     * Obtiene los mensajes fallidos ordenados por identificador, a partir de
+     * uno dado.
+     *
+     * @param despuesDe el identificador a partir del cual se listan, o
+     * {@code null} para empezar por el primero.
+     * @param limite el número máximo de mensajes a devolver.
+     * @return los mensajes fallidos.
+     */
+    List<MensajeFallido> findAll(Long despuesDe, int limite);
+
+    /**
+     * Cuenta los mensajes fallidos.
+     *
+     * @return el número de mensajes fallidos.
+     */
+    long count();
+
+    /**
+     * Vuelve a encolar un mensaje fallido en la bandeja de salida, con los
+     * intentos a cero, y lo elimina de los fallidos.
+     *
+     * @param id el identificador del mensaje fallido.
+     * @param ahora el momento actual, a partir del cual se entregará.
+     * @return {@code true} si el mensaje existía y se ha encolado.
+     */
+    boolean reenviar(Long id, LocalDateTime ahora);
+
+    /**
+     * Vuelve a encolar todos los mensajes fallidos, o solo los dirigidos a un
+     * dominio, y los elimina de los fallidos.
+     *
+     * @param dominio el dominio de los destinatarios, o {@code null} para
+     * reenviar todos.
+     * @param ahora el momento actual, a partir del cual se entregarán.
+     * @return el número de mensajes encolados.
+     */
+    int reenviarTodos(String dominio, LocalDateTime ahora);
+}
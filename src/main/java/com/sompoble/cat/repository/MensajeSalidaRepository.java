@@ -0,0 +1,178 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.MensajeSalida;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad {@code MensajeSalida}, que actúa como bandeja de
+ * salida de correos y notificaciones.
+ */
+public interface MensajeSalidaRepository {
+
+    /**
+     * Guarda un nuevo mensaje en la bandeja de salida.
+     *
+     * @param mensaje el mensaje a guardar.
+     */
+    void save(MensajeSalida mensaje);
+
+    /**
+     * Busca un mensaje por su identificador.
+     *
+     * @param id el identificador del mensaje.
+     * @return el mensaje, o {@code null} si no existe.
+     */
+    MensajeSalida findById(Long id);
+
+    /**
+     * Obtiene los identificadores de los mensajes pendientes cuyo próximo
+     * intento ya ha vencido, ordenados por antigüedad.
+     *
+     * @param ahora el momento actual.
+     * @param limite el número máximo de mensajes a devolver.
+     * @return los identificadores de los mensajes listos para entregar.
+     */
+    List<Long> findPendientes(LocalDateTime ahora, int limite);
+
+    /**
+     * Reclama un mensaje pendiente para entregarlo, aplazando su próximo
+     * intento hasta {@code bloqueadoHasta}. Solo uno de los hilos que
+     * intenten reclamar el mismo mensaje lo conseguirá. El fin del bloqueo
+     * identifica el reclamo: quien vuelva a reclamar el mensaje al caducar
+     * lo hará con uno posterior, así que las operaciones que cierran la
+     * entrega lo reciben y no hacen nada si ya no coincide. Debe tener la
+     * precisión de la columna, en microsegundos.
+     *
+     * @param id el identificador del mensaje.
+     * @param ahora el momento actual.
+     * @param bloqueadoHasta el momento en que el mensaje vuelve a estar
+     * disponible si la entrega no concluye.
+     * @return {@code true} si se ha reclamado el mensaje.
+     */
+    boolean reclamar(Long id, LocalDateTime ahora, LocalDateTime bloqueadoHasta);
+
+    /**
+     * Marca como registrada la notificación de un mensaje, solo si aún no lo
+     * estaba. Debe llamarse en la misma transacción que guarda la
+     * notificación, de modo que la marca y la notificación se confirman o se
+     * deshacen juntas.
+     *
+     * @param id el identificador del mensaje.
+     * @return {@code true} si la notificación estaba pendiente y debe
+     * registrarse.
+     */
+    boolean marcarNotificacionRegistrada(Long id);
+
+    /**
+     * Marca como enviado un mensaje, solo si sigue reclamado por la entrega
+     * que lo ha enviado.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @return {@code false} si el reclamo había caducado y otra entrega lo
+     * ha vuelto a reclamar.
+     */
+    boolean marcarEnviado(Long id, LocalDateTime reclamadoHasta);
+
+    /**
+     * Registra un intento fallido y programa el siguiente, solo si el
+     * mensaje sigue reclamado por la entrega que ha fallado.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param intentos el número total de intentos fallidos.
+     * @param proximoIntento el momento del siguiente intento.
+     * @param error la descripción del error.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    boolean reprogramar(Long id, LocalDateTime reclamadoHasta, int intentos, LocalDateTime proximoIntento,
+            String error);
+
+    /**
+     * Aplaza un mensaje reclamado porque el proveedor limita los envíos:
+     * no cuenta como intento, pero sí como aplazamiento.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param aplazamientos el número total de aplazamientos.
+     * @param proximoIntento el momento en que vuelve a estar disponible.
+     * @param error la respuesta del proveedor.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    boolean posponer(Long id, LocalDateTime reclamadoHasta, int aplazamientos, LocalDateTime proximoIntento,
+            String error);
+
+    /**
+     * Aplaza un mensaje reclamado sin contarlo como intento, por ejemplo
+     * porque se ha alcanzado el límite de envíos.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param proximoIntento el momento en que vuelve a estar disponible.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    boolean aplazar(Long id, LocalDateTime reclamadoHasta, LocalDateTime proximoIntento);
+
+    /**
+     * Traslada un mensaje reclamado a la tabla de mensajes fallidos, donde
+     * deja de reintentarse, y lo elimina de la bandeja de salida.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param intentos el número total de intentos fallidos.
+     * @param error la descripción del último error.
+     * @param fechaFallo el momento en que se da por fallido.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    boolean archivarFallido(Long id, LocalDateTime reclamadoHasta, int intentos, String error,
+            LocalDateTime fechaFallo);
+
+    /**
+     * Aparta un mensaje reclamado para incluirlo en el próximo resumen de su
+     * destinatario.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    boolean marcarResumen(Long id, LocalDateTime reclamadoHasta);
+
+    /**
+     * Obtiene los destinatarios con mensajes apartados para el resumen antes
+     * de un momento dado.
+     *
+     * @param corte el momento de cierre del resumen.
+     * @param limite el número máximo de destinatarios.
+     * @return las direcciones de los destinatarios.
+     */
+    List<String> findDestinatariosResumen(LocalDateTime corte, int limite);
+
+    /**
+     * Obtiene y bloquea hasta el final de la transacción los mensajes de un
+     * destinatario apartados para el resumen antes de un momento dado. Debe
+     * llamarse dentro de una transacción.
+     *
+     * @param destinatario la dirección del destinatario.
+     * @param corte el momento de cierre del resumen.
+     * @return los mensajes, por orden de alta.
+     */
+    List<MensajeSalida> bloquearResumen(String destinatario, LocalDateTime corte);
+
+    /**
+     * Marca como enviados los mensajes incluidos en un resumen.
+     *
+     * @param ids los identificadores de los mensajes.
+     */
+    void marcarResumidos(List<Long> ids);
+
+    /**
+     * Elimina un bloque de mensajes enviados cuyo último intento de entrega
+     * es anterior a un momento dado.
+     *
+     * @param limite el momento límite.
+     * @param lote el número máximo de mensajes a eliminar.
+     * @return el número de mensajes eliminados.
+     */
+    int deleteEnviados(LocalDateTime limite, int lote);
+}
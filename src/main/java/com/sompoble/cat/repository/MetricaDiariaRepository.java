@@ -0,0 +1,128 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.dto.MetricaDiariaDTO;
+import com.sompoble.cat.dto.MetricaEmpresaDTO;
+import com.sompoble.cat.dto.MetricaServicioMesDTO;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Repositorio para el resumen diario de reservas de la entidad
+ * {@code MetricaDiaria}.
+ * <p>
+ * Los ingresos se guardan en céntimos y son la suma de los precios guardados
+ * en las reservas, y la empresa es la propietaria del servicio. Al retirar
+ * reservas su fecha queda pendiente, y la reconciliación nocturna recalcula
+ * solo los días pendientes a partir de las reservas.
+ * </p>
+ */
+public interface MetricaDiariaRepository {
+
+    /**
+     * Suma al resumen del par (servicio, fecha) el número de reservas
+     * indicado, que puede ser negativo, y sus ingresos. Si el número es
+     * positivo y el resumen no existe, se crea. Si es negativo, la fecha
+     * queda pendiente de reconciliar.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     * @param reservas el número de reservas que se añaden o, si es negativo,
+     * que se retiran.
+     * @param ingresosCentimos la suma de los precios guardados en esas
+     * reservas, con el mismo signo que {@code reservas}.
+     */
+    void acumular(Long idServicio, LocalDate fecha, long reservas, long ingresosCentimos);
+
+    /**
+     * Marca una fecha como pendiente de reconciliar, por ejemplo porque una
+     * reserva ha cambiado de cliente.
+     *
+     * @param fecha la fecha.
+     */
+    void marcarPendiente(LocalDate fecha);
+
+    /**
+     * Obtiene las reservas e ingresos de una empresa agrupados por servicio y
+     * mes a partir de los resúmenes diarios, en una única consulta de la que
+     * se derivan los totales, el desglose por servicio y el mensual.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return las métricas por servicio y mes con alguna reserva, ordenadas
+     * por mes.
+     */
+    List<MetricaServicioMesDTO> obtenerMetricasPorServicioYMes(Long idEmpresa, LocalDate inicio, LocalDate fin);
+
+    /**
+     * Obtiene las reservas e ingresos de cada empresa cuyo identificador está
+     * en un rango, agrupados por empresa en una única consulta. Con el rango
+     * completo es una sola pasada sobre toda la plataforma; con rangos
+     * disjuntos permite repartir la pasada en particiones.
+     *
+     * @param idEmpresaDesde el primer identificador de empresa (inclusive).
+     * @param idEmpresaHasta el último identificador de empresa (inclusive).
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return las métricas de las empresas del rango con alguna reserva.
+     */
+    List<MetricaEmpresaDTO> obtenerMetricasPorEmpresa(Long idEmpresaDesde, Long idEmpresaHasta,
+            LocalDate inicio, LocalDate fin);
+
+    /**
+     * Obtiene el menor y el mayor identificador de empresa con resúmenes,
+     * para repartir la pasada por empresas en rangos.
+     *
+     * @return un array con el menor y el mayor identificador, o un array
+     * vacío si no hay resúmenes.
+     */
+    long[] obtenerRangoEmpresas();
+
+    /**
+     * Recorre los resúmenes diarios con reservas de una empresa en un rango
+     * de fechas, en orden de fecha y servicio, sin cargarlos en memoria a la
+     * vez.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param consumidor la acción que recibe cada resumen.
+     */
+    void recorrer(Long idEmpresa, LocalDate desde, LocalDate hasta, Consumer<MetricaDiariaDTO> consumidor);
+
+    /**
+     * Obtiene las fechas pendientes de reconciliar posteriores a una dada.
+     *
+     * @param despues la fecha a partir de la que se buscan (exclusive), o
+     * {@code null} para empezar por la primera.
+     * @param lote el número máximo de fechas.
+     * @return las fechas, en orden ascendente.
+     */
+    List<LocalDate> findPendientes(LocalDate despues, int lote);
+
+    /**
+     * Retira la marca de pendiente de una fecha. Se llama en la misma
+     * transacción que la reconciliación de ese día, antes de recalcularlo, de
+     * modo que una reserva retirada mientras tanto la vuelve a marcar.
+     *
+     * @param fecha la fecha.
+     */
+    void retirarPendiente(LocalDate fecha);
+
+    /**
+     * Vuelve a calcular los resúmenes de un período a partir de las reservas.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    void reconciliar(LocalDate inicio, LocalDate fin);
+
+    /**
+     * Elimina los resúmenes de un servicio y marca sus fechas como
+     * pendientes de reconciliar.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void deleteByServicioId(Long idServicio);
+}
@@ -1,6 +1,8 @@
 package com.sompoble.cat.repository;
 
 import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.dto.NotificacionDTO;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -60,4 +62,28 @@ public interface NotificacionRepository {
 
     List<Notificacion> findByClienteDni(String dni);
 
+    /**
+     * Busca las notificaciones de un cliente posteriores a una dada, en orden
+     * de identificador.
+     *
+     * @param dni el DNI del cliente
+     * @param idDesde el identificador de la última notificación recibida;
+     * solo se devuelven las de identificador mayor
+     * @param limite el número máximo de notificaciones
+     * @return las notificaciones encontradas
+     */
+    List<NotificacionDTO> findByClienteDniDespuesDe(String dni, Long idDesde, int limite);
+
+    /**
+     * Busca las notificaciones de clientes creadas a partir de un momento,
+     * en orden de identificador.
+     *
+     * @param desde el momento inicial, incluido
+     * @param idDesde solo se devuelven las de identificador mayor, para leer
+     * por bloques
+     * @param limite el número máximo de notificaciones
+     * @return las notificaciones encontradas
+     */
+    List<NotificacionDTO> findDeClientesDesde(LocalDateTime desde, Long idDesde, int limite);
+
 }
@@ -0,0 +1,61 @@
+package com.sompoble.cat.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Repositorio para los contadores de ocupación de la entidad
+ * {@code OcupacionServicio}.
+ * <p>
+ * Todas las operaciones de escritura son sentencias atómicas sobre la fila del
+ * par (servicio, fecha), de forma que varias peticiones concurrentes no pueden
+ * superar el límite de reservas del servicio.
+ * </p>
+ */
+public interface OcupacionServicioRepository {
+
+    /**
+     * Crea el contador del par (servicio, fecha) si todavía no existe,
+     * inicializándolo con las reservas ya registradas para ese día.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     */
+    void inicializarSiNoExiste(Long idServicio, LocalDate fecha);
+
+    /**
+     * Incrementa el contador en una plaza solo si no se ha alcanzado el
+     * límite indicado.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     * @param limite el límite de reservas del servicio.
+     * @return {@code true} si se ha ocupado la plaza, {@code false} si el
+     * servicio ya estaba completo (o el contador no existe).
+     */
+    boolean incrementarSiHayPlaza(Long idServicio, LocalDate fecha, int limite);
+
+    /**
+     * Decrementa el contador en la cantidad indicada sin bajar de cero.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas liberadas.
+     * @param cantidad el número de plazas a liberar.
+     */
+    void decrementar(Long idServicio, LocalDate fecha, int cantidad);
+
+    /**
+     * Obtiene el número de plazas ocupadas registrado en el contador.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     * @return las plazas ocupadas, o {@code null} si el contador no existe.
+     */
+    Integer findOcupadas(Long idServicio, LocalDate fecha);
+
+    /**
+     * Elimina todos los contadores de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void deleteByServicioId(Long idServicio);
+}
@@ -0,0 +1,63 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio para la entidad {@code PeticionIdempotente}, que guarda las
+ * respuestas de las peticiones enviadas con la cabecera
+ * {@code Idempotency-Key}.
+ */
+public interface PeticionIdempotenteRepository {
+
+    /**
+     * Busca una petición por su clave.
+     *
+     * @param clave la clave de idempotencia.
+     * @return la petición, o {@code null} si no existe.
+     */
+    PeticionIdempotente findByClave(String clave);
+
+    /**
+     * Reserva una clave para una petición en curso. Solo una de las
+     * peticiones que intenten reservar la misma clave a la vez lo conseguirá.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @param expiraEn el momento en que caduca la reserva si la petición no
+     * concluye.
+     * @return {@code true} si se ha reservado la clave.
+     */
+    boolean reservar(String clave, String huella, LocalDateTime expiraEn);
+
+    /**
+     * Guarda la respuesta de una petición en curso.
+     *
+     * @param peticion la petición completada con su respuesta.
+     */
+    void completar(PeticionIdempotente peticion);
+
+    /**
+     * Elimina la reserva de una petición en curso, para que pueda volver a
+     * procesarse.
+     *
+     * @param clave la clave de idempotencia.
+     */
+    void liberar(String clave);
+
+    /**
+     * Elimina una clave si ya ha caducado.
+     *
+     * @param clave la clave de idempotencia.
+     * @param ahora el momento actual.
+     */
+    void deleteCaducada(String clave, LocalDateTime ahora);
+
+    /**
+     * Elimina todas las claves caducadas.
+     *
+     * @param ahora el momento actual.
+     * @return el número de claves eliminadas.
+     */
+    int deleteCaducadas(LocalDateTime ahora);
+}
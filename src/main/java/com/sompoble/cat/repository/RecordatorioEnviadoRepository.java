@@ -0,0 +1,59 @@
+package com.sompoble.cat.repository;
+
+import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.dto.CitaRecordatorioDTO;
+import com.sompoble.cat.util.Particion;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio del motor de recordatorios: busca las citas de cada ventana y
+ * registra los recordatorios encolados en la entidad
+ * {@code RecordatorioEnviado}.
+ */
+public interface RecordatorioEnviadoRepository {
+
+    /**
+     * Obtiene las citas de un intervalo que aún no han recibido el
+     * recordatorio de una antelación. Se descartan las reservas dadas de alta
+     * después del momento en que tocaba el recordatorio.
+     *
+     * @param desde el inicio del intervalo de citas (inclusive).
+     * @param hasta el fin del intervalo de citas (exclusive).
+     * @param antelacionMinutos la antelación del recordatorio, en minutos.
+     * @param particion la parte de las reservas, por identificador, que se
+     * busca.
+     * @return las citas, en orden de fecha y hora.
+     */
+    List<CitaRecordatorioDTO> findCitasPendientes(LocalDateTime desde, LocalDateTime hasta, int antelacionMinutos,
+            Particion particion);
+
+    /**
+     * Obtiene las reservas indicadas con su cliente, servicio y empresa.
+     *
+     * @param ids los identificadores de las reservas.
+     * @return las reservas que siguen existiendo.
+     */
+    List<Reserva> findReservas(Collection<Long> ids);
+
+    /**
+     * Registra un recordatorio como encolado. Solo una de las transacciones
+     * que intenten registrar el mismo recordatorio lo conseguirá.
+     *
+     * @param idReserva el identificador de la reserva.
+     * @param antelacionMinutos la antelación del recordatorio, en minutos.
+     * @param cita la fecha y hora de la cita.
+     * @param ahora el momento actual.
+     * @return {@code true} si se ha registrado; {@code false} si ya lo estaba.
+     */
+    boolean registrar(Long idReserva, int antelacionMinutos, LocalDateTime cita, LocalDateTime ahora);
+
+    /**
+     * Elimina los recordatorios de las citas anteriores a un momento.
+     *
+     * @param limite el momento límite.
+     * @return el número de recordatorios eliminados.
+     */
+    int deleteAnteriores(LocalDateTime limite);
+}
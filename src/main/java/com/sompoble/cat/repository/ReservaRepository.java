@@ -1,15 +1,21 @@
 package com.sompoble.cat.repository;
 
 import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.dto.CursorReserva;
 import com.sompoble.cat.dto.PanelMetricasDTO.MetricasMensualesDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.dto.ReservaExportacionDTO;
+import com.sompoble.cat.dto.ReservasEliminadasDTO;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Repositorio para la entidad {@code Reserva}.
@@ -38,6 +44,61 @@ public interface ReservaRepository {
      */
     List<ReservaDTO> findByEmpresaIdentificadorFiscal(String identificadorFiscal);
 
+    /**
+     * Obtiene una página de las reservas de un cliente, ordenadas por fecha,
+     * hora e identificador, a partir de la posición indicada.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param despues la posición de la última reserva de la página anterior,
+     * o {@code null} para la primera página.
+     * @param limite el número máximo de reservas a devolver.
+     * @return las reservas de la página.
+     */
+    List<ReservaDTO> findPaginaByClienteDni(String dni, CursorReserva despues, int limite);
+
+    /**
+     * Obtiene una página de las reservas de una empresa, ordenadas por fecha,
+     * hora e identificador, a partir de la posición indicada.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param despues la posición de la última reserva de la página anterior,
+     * o {@code null} para la primera página.
+     * @param limite el número máximo de reservas a devolver.
+     * @return las reservas de la página.
+     */
+    List<ReservaDTO> findPaginaByEmpresaIdentificadorFiscal(String identificadorFiscal, CursorReserva despues, int limite);
+
+    /**
+     * Recorre todas las reservas de un cliente, en el mismo orden que la
+     * paginación, sin cargarlas en memoria a la vez.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    void recorrerByClienteDni(String dni, Consumer<ReservaDTO> consumidor);
+
+    /**
+     * Recorre todas las reservas de una empresa, en el mismo orden que la
+     * paginación, sin cargarlas en memoria a la vez.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    void recorrerByEmpresaIdentificadorFiscal(String identificadorFiscal, Consumer<ReservaDTO> consumidor);
+
+    /**
+     * Recorre las reservas de una empresa en un rango de fechas para
+     * exportarlas, en el mismo orden que la paginación, sin cargarlas en
+     * memoria a la vez.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    void recorrerExportacion(String identificadorFiscal, LocalDate desde, LocalDate hasta,
+            Consumer<ReservaExportacionDTO> consumidor);
+
     /**
      * Busca una reserva por su identificador único.
      *
@@ -47,6 +108,22 @@ public interface ReservaRepository {
      */
     ReservaDTO findById(Long id);
 
+    /**
+     * Obtiene el momento en que se hizo una reserva.
+     *
+     * @param id el identificador de la reserva.
+     * @return la fecha de alta, o {@code null} si no se encuentra.
+     */
+    LocalDateTime findFechaAltaById(Long id);
+
+    /**
+     * Obtiene el precio guardado en una reserva.
+     *
+     * @param id el identificador de la reserva.
+     * @return el precio en céntimos, o {@code null} si no se encuentra.
+     */
+    Long findPrecioCentimosById(Long id);
+
     /**
      * Busca una reserva completa por su identificador único, devolviendo la
      * entidad completa.
@@ -66,7 +143,8 @@ public interface ReservaRepository {
     void addReserva(Reserva reserva);
 
     /**
-     * Actualiza una reserva existente en la base de datos.
+     * Actualiza una reserva existente en la base de datos. Si la reserva no
+     * indica su versión o su precio, se conservan los guardados.
      *
      * @param reserva Objeto {@link Reserva} con la información actualizada.
      */
@@ -81,42 +159,62 @@ public interface ReservaRepository {
 
     /**
      * Elimina todas las reservas asociadas a un cliente mediante su DNI.
+     * <p>
+     * Las reservas se eliminan con sentencias {@code DELETE} por lotes, sin
+     * cargar las entidades. Al terminar se vacía el contexto de persistencia.
+     * </p>
      *
      * @param dni el documento nacional de identidad del cliente.
+     * @return las reservas eliminadas por servicio y fecha, con sus precios.
      */
-    void deleteByClienteDni(String dni);
+    Map<Long, Map<LocalDate, ReservasEliminadasDTO>> deleteByClienteDni(String dni);
 
     /**
      * Elimina todas las reservas asociadas a una empresa o autónomo mediante su
      * identificador fiscal.
+     * <p>
+     * Las reservas se eliminan con sentencias {@code DELETE} por lotes, sin
+     * cargar las entidades. Al terminar se vacía el contexto de persistencia.
+     * </p>
      *
      * @param identificadorFiscal el identificador fiscal de la empresa o
      * autónomo.
+     * @return las reservas eliminadas por servicio y fecha, con sus precios.
      */
-    void deleteByEmpresaIdentificadorFiscal(String identificadorFiscal);
+    Map<Long, Map<LocalDate, ReservasEliminadasDTO>> deleteByEmpresaIdentificadorFiscal(String identificadorFiscal);
 
     /**
      * Cuenta el número de reservas para un servicio específico en una fecha
      * determinada.
      *
      * @param servicioId el identificador del servicio.
-     * @param fechaReserva la fecha de la reserva en formato String.
+     * @param fechaReserva la fecha de la reserva.
      * @return el número de reservas existentes para ese servicio en esa fecha.
      */
-    int countByServicioIdAndFechaReserva(Long servicioId, String fechaReserva);
+    int countByServicioIdAndFechaReserva(Long servicioId, LocalDate fechaReserva);
 
     /**
-     * Elimina todas las reservas asociadas a un servicio mediante su ID.
+     * Cuenta, con una única consulta agrupada, las reservas de un servicio para
+     * cada fecha de un rango.
      *
      * @param servicioId el identificador del servicio.
+     * @param inicio la primera fecha del rango (inclusive).
+     * @param fin la última fecha del rango (inclusive).
+     * @return un mapa con el número de reservas por fecha; las fechas sin
+     * reservas no aparecen.
      */
-    void deleteByServicioId(Long servicioId);
+    Map<LocalDate, Integer> contarReservasPorFecha(Long servicioId, LocalDate inicio, LocalDate fin);
 
     /**
-     * Obtiene las reservas dadas de alta en las últimas 24 horas.
+     * Elimina todas las reservas asociadas a un servicio mediante su ID.
+     * <p>
+     * Las reservas se eliminan con sentencias {@code DELETE} por lotes, sin
+     * cargar las entidades. Al terminar se vacía el contexto de persistencia.
+     * </p>
+     *
+     * @param servicioId el identificador del servicio.
      */
-    @Query("SELECT r FROM Reserva r WHERE r.fechaAlta BETWEEN CURRENT_TIMESTAMP AND CURRENT_TIMESTAMP + 1")
-    List<Reserva> findUpcomingReservations();
+    void deleteByServicioId(Long servicioId);
 
     /**
      * Cuenta el número total de reservas realizadas para una empresa en un
@@ -129,7 +227,7 @@ public interface ReservaRepository {
      */
     @Query("""
     	    SELECT COUNT(r) FROM Reserva r
-    	    WHERE r.servicio.empresa.idEmpresa = :empresaId
+    	    WHERE r.empresa.idEmpresa = :empresaId
     	      AND r.fechaReserva BETWEEN :inicio AND :fin
     	""")
     Long contarReservasPorEmpresaYFechas(@Param("empresaId") Long empresaId,
@@ -147,7 +245,7 @@ public interface ReservaRepository {
      */
     @Query("""
     	    SELECT SUM(r.servicio.precio) FROM Reserva r
-    	    WHERE r.servicio.empresa.idEmpresa = :empresaId
+    	    WHERE r.empresa.idEmpresa = :empresaId
     	      AND r.fechaReserva BETWEEN :inicio AND :fin
     	""")
     Double sumarIngresosPorEmpresaYFechas(@Param("empresaId") Long empresaId,
@@ -165,38 +263,13 @@ public interface ReservaRepository {
      */
     @Query("""
     	    SELECT COUNT(DISTINCT r.cliente.idCliente) FROM Reserva r
-    	    WHERE r.servicio.empresa.idEmpresa = :empresaId
+    	    WHERE r.empresa.idEmpresa = :empresaId
     	      AND r.fechaReserva BETWEEN :inicio AND :fin
     	""")
     Integer contarClientesUnicos(@Param("empresaId") Long empresaId,
             @Param("inicio") LocalDate inicio,
             @Param("fin") LocalDate fin);
 
-    //IMPORTANTE: metodo comentado para futura implementacion. Inlcuido en TEA6 como mejora de la plataforma.
-    /**
-     * Obtiene un resumen de métricas agrupadas por servicio, incluyendo el
-     * número de reservas y el ingreso total por servicio para una empresa y
-     * rango de fechas.
-     *
-     * @param empresaId ID de la empresa.
-     * @param inicio Fecha de inicio del rango.
-     * @param fin Fecha de fin del rango.
-     * @return Lista de
-     * {@link com.sompoble.cat.dto.PanelMetricasDTO.ServicioResumenDTO}.
-     */
-    /*
-    @Query("""
-    	    SELECT new com.sompoble.cat.dto.PanelMetricasDTO$ServicioResumenDTO(
-    	        r.servicio.nombre, COUNT(r), SUM(r.servicio.precio))
-    	    FROM Reserva r
-    	    WHERE r.servicio.empresa.idEmpresa = :empresaId
-    	      AND r.fechaReserva BETWEEN :inicio AND :fin
-    	    GROUP BY r.servicio.nombre
-    	""")
-    List<ServicioResumenDTO> obtenerMetricasPorServicio(@Param("empresaId") Long empresaId,
-            @Param("inicio") LocalDate inicio,
-            @Param("fin") LocalDate fin);
-     */
     /**
      * Obtiene las métricas mensuales de reservas e ingresos para una empresa,
      * agrupadas por nombre del mes.
@@ -209,15 +282,15 @@ public interface ReservaRepository {
      */
     @Query("""
         SELECT new com.sompoble.cat.dto.PanelMetricasDTO$MetricasMensualesDTO(
-            FUNCTION('DATE_FORMAT', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'), '%M'),
+            FUNCTION('DATE_FORMAT', r.fechaReserva, '%M'),
             COUNT(r),
             SUM(r.servicio.precio))
         FROM Reserva r
-        WHERE r.servicio.empresa.idEmpresa = :empresaId
+        WHERE r.empresa.idEmpresa = :empresaId
           AND r.fechaReserva BETWEEN :inicio AND :fin
-        GROUP BY FUNCTION('DATE_FORMAT', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'), '%M'),
-                 FUNCTION('MONTH', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'))
-        ORDER BY FUNCTION('MONTH', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'))
+        GROUP BY FUNCTION('DATE_FORMAT', r.fechaReserva, '%M'),
+                 FUNCTION('MONTH', r.fechaReserva)
+        ORDER BY FUNCTION('MONTH', r.fechaReserva)
     """)
     List<MetricasMensualesDTO> obtenerMetricasMensuales(@Param("empresaId") Long empresaId,
             @Param("inicio") LocalDate inicio,
@@ -0,0 +1,131 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.ClientesDiarios;
+import com.sompoble.cat.repository.ClientesDiariosRepository;
+import com.sompoble.cat.util.HyperLogLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link ClientesDiariosRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class ClientesDiariosHibernate implements ClientesDiariosRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Sube el registro con un único {@code INSERT ... ON DUPLICATE KEY
+     * UPDATE} que se queda con el máximo del byte del registro, de modo que
+     * las reservas concurrentes de la misma empresa y fecha no pierden
+     * registros sin leer ni bloquear la fila. Se ejecuta en su propia
+     * transacción, que solo retiene la fila mientras dura la sentencia.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param fecha la fecha.
+     * @param indice el índice del registro.
+     * @param posicion el valor mínimo del registro.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void fusionar(Long idEmpresa, LocalDate fecha, int indice, byte posicion) {
+        byte[] registros = new byte[HyperLogLog.REGISTROS];
+        registros[indice] = posicion;
+        entityManager.createNativeQuery("""
+                    INSERT INTO CLIENTES_DIARIOS (ID_EMPRESA, FECHA, REGISTROS)
+                    VALUES (:idEmpresa, :fecha, :registros)
+                    ON DUPLICATE KEY UPDATE REGISTROS =
+                        IF(ASCII(SUBSTRING(REGISTROS, :byte, 1)) < :posicion,
+                           INSERT(REGISTROS, :byte, 1, CHAR(:posicion)),
+                           REGISTROS)
+                """)
+                .setParameter("idEmpresa", idEmpresa)
+                .setParameter("fecha", fecha)
+                .setParameter("registros", registros)
+                .setParameter("byte", indice + 1)
+                .setParameter("posicion", (int) posicion)
+                .executeUpdate();
+    }
+
+    /**
+     * Obtiene los registros de los estimadores del período.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los registros de cada día con estimador.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<byte[]> findRegistros(Long idEmpresa, LocalDate inicio, LocalDate fin) {
+        return entityManager.createQuery("""
+                    SELECT c.registros FROM ClientesDiarios c
+                    WHERE c.idEmpresa = :idEmpresa AND c.fecha BETWEEN :inicio AND :fin
+                """, byte[].class)
+                .setParameter("idEmpresa", idEmpresa)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Obtiene los clientes distintos por empresa y día del período.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los identificadores de cliente, agrupados por empresa y fecha.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Map<LocalDate, List<Long>>> findClientesPorEmpresaYDia(LocalDate inicio, LocalDate fin) {
+        List<Object[]> filas = entityManager.createQuery("""
+                    SELECT DISTINCT s.empresa.idEmpresa, r.fechaReserva, r.cliente.idPersona
+                    FROM Reserva r JOIN r.servicio s
+                    WHERE r.fechaReserva BETWEEN :inicio AND :fin
+                """, Object[].class)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+        Map<Long, Map<LocalDate, List<Long>>> clientes = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            clientes.computeIfAbsent((Long) fila[0], id -> new LinkedHashMap<>())
+                    .computeIfAbsent((LocalDate) fila[1], fecha -> new ArrayList<>())
+                    .add((Long) fila[2]);
+        }
+        return clientes;
+    }
+
+    /**
+     * Elimina los estimadores del período y guarda los nuevos.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @param estimadores los nuevos estimadores del período.
+     */
+    @Override
+    public void sustituir(LocalDate inicio, LocalDate fin, List<ClientesDiarios> estimadores) {
+        entityManager.createQuery("DELETE FROM ClientesDiarios c WHERE c.fecha BETWEEN :inicio AND :fin")
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .executeUpdate();
+        for (ClientesDiarios estimador : estimadores) {
+            entityManager.persist(estimador);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
+import com.sompoble.cat.repository.ConfiguracionNotificacionesRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link ConfiguracionNotificacionesRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class ConfiguracionNotificacionesHibernate implements ConfiguracionNotificacionesRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Obtiene la única fila de configuración.
+     *
+     * @return la configuración, o {@code null} si no existe.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ConfiguracionNotificaciones find() {
+        return entityManager.find(ConfiguracionNotificaciones.class, ConfiguracionNotificaciones.ID);
+    }
+
+    /**
+     * Guarda la configuración con {@code merge}, que la inserta si aún no
+     * existe.
+     *
+     * @param configuracion la configuración.
+     */
+    @Override
+    public void save(ConfiguracionNotificaciones configuracion) {
+        entityManager.merge(configuracion);
+    }
+}
@@ -0,0 +1,133 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.repository.CoordinacionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link CoordinacionRepository} con consultas nativas
+ * sobre {@code BLOQUEO_PLANIFICADOR} y {@code NODO_PLANIFICADOR}. Cada método
+ * se confirma en su propia transacción.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class CoordinacionHibernate implements CoordinacionRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Renueva la fila con un {@code UPDATE} condicionado, que MySQL aplica
+     * de forma atómica; si la tarea no tiene fila aún, la crea con
+     * {@code INSERT IGNORE}, de modo que si dos nodos la crean a la vez solo
+     * uno la obtiene.
+     *
+     * @param nombre el nombre de la tarea.
+     * @param nodo el identificador del nodo.
+     * @param duracionMs la duración del arrendamiento en milisegundos.
+     * @return {@code true} si el nodo tiene el arrendamiento.
+     */
+    @Override
+    public boolean adquirir(String nombre, String nodo, long duracionMs) {
+        int renovados = entityManager.createNativeQuery("""
+                    UPDATE BLOQUEO_PLANIFICADOR
+                    SET PROPIETARIO = :nodo,
+                        BLOQUEADO_HASTA = UTC_TIMESTAMP(6) + INTERVAL :micros MICROSECOND,
+                        FECHA_BLOQUEO = UTC_TIMESTAMP(6)
+                    WHERE NOMBRE = :nombre AND (BLOQUEADO_HASTA <= UTC_TIMESTAMP(6) OR PROPIETARIO = :nodo)
+                """)
+                .setParameter("nodo", nodo)
+                .setParameter("micros", duracionMs * 1000)
+                .setParameter("nombre", nombre)
+                .executeUpdate();
+        if (renovados == 1) {
+            return true;
+        }
+        return entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO BLOQUEO_PLANIFICADOR (NOMBRE, PROPIETARIO, BLOQUEADO_HASTA, FECHA_BLOQUEO)
+                    VALUES (:nombre, :nodo, UTC_TIMESTAMP(6) + INTERVAL :micros MICROSECOND, UTC_TIMESTAMP(6))
+                """)
+                .setParameter("nombre", nombre)
+                .setParameter("nodo", nodo)
+                .setParameter("micros", duracionMs * 1000)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Vence los arrendamientos del nodo, para que otro los tome en su
+     * siguiente ejecución, y borra su latido.
+     *
+     * @param nodo el identificador del nodo.
+     */
+    @Override
+    public void liberar(String nodo) {
+        entityManager.createNativeQuery("""
+                    UPDATE BLOQUEO_PLANIFICADOR SET BLOQUEADO_HASTA = UTC_TIMESTAMP(6)
+                    WHERE PROPIETARIO = :nodo AND BLOQUEADO_HASTA > UTC_TIMESTAMP(6)
+                """)
+                .setParameter("nodo", nodo)
+                .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM NODO_PLANIFICADOR WHERE ID_NODO = :nodo")
+                .setParameter("nodo", nodo)
+                .executeUpdate();
+    }
+
+    /**
+     * Registra el latido del nodo, creando su fila si no existe.
+     *
+     * @param nodo el identificador del nodo.
+     */
+    @Override
+    public void latido(String nodo) {
+        entityManager.createNativeQuery("""
+                    INSERT INTO NODO_PLANIFICADOR (ID_NODO, ULTIMO_LATIDO, FECHA_ALTA)
+                    VALUES (:nodo, UTC_TIMESTAMP(6), UTC_TIMESTAMP(6))
+                    ON DUPLICATE KEY UPDATE ULTIMO_LATIDO = UTC_TIMESTAMP(6)
+                """)
+                .setParameter("nodo", nodo)
+                .executeUpdate();
+    }
+
+    /**
+     * Devuelve los nodos con un latido reciente.
+     *
+     * @param caducidadMs la antigüedad máxima del último latido.
+     * @return los identificadores, en orden alfabético.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<String> findNodosActivos(long caducidadMs) {
+        return entityManager.createNativeQuery("""
+                    SELECT ID_NODO FROM NODO_PLANIFICADOR
+                    WHERE ULTIMO_LATIDO > UTC_TIMESTAMP(6) - INTERVAL :micros MICROSECOND
+                    ORDER BY ID_NODO
+                """)
+                .setParameter("micros", caducidadMs * 1000)
+                .getResultList();
+    }
+
+    /**
+     * Borra los nodos sin latido desde hace tiempo.
+     *
+     * @param caducidadMs la antigüedad a partir de la cual se borran.
+     * @return el número de nodos borrados.
+     */
+    @Override
+    public int deleteNodosInactivos(long caducidadMs) {
+        return entityManager.createNativeQuery("""
+                    DELETE FROM NODO_PLANIFICADOR
+                    WHERE ULTIMO_LATIDO < UTC_TIMESTAMP(6) - INTERVAL :micros MICROSECOND
+                """)
+                .setParameter("micros", caducidadMs * 1000)
+                .executeUpdate();
+    }
+}
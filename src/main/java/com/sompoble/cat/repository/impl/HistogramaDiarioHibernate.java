@@ -0,0 +1,152 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.HistogramaDiario;
+import com.sompoble.cat.repository.HistogramaDiarioRepository;
+import com.sompoble.cat.util.HistogramaReservas;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link HistogramaDiarioRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class HistogramaDiarioHibernate implements HistogramaDiarioRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Crea el histograma con {@code INSERT IGNORE} si no existe y lo lee con
+     * {@code SELECT ... FOR UPDATE}, de modo que las reservas concurrentes del
+     * mismo servicio y fecha no pierden cuentas.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return el histograma bloqueado.
+     */
+    @Override
+    public HistogramaDiario bloquear(Long idServicio, LocalDate fecha) {
+        entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO HISTOGRAMA_DIARIO (ID_EMPRESA, ID_SERVICIO, FECHA, CUBETAS)
+                    SELECT s.ID_EMPRESA, s.ID_SERVICIO, :fecha, :cubetas
+                    FROM SERVICIO s WHERE s.ID_SERVICIO = :idServicio
+                """)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setParameter("cubetas", new byte[HistogramaReservas.BYTES])
+                .executeUpdate();
+        return entityManager.createQuery("""
+                    SELECT h FROM HistogramaDiario h WHERE h.idServicio = :idServicio AND h.fecha = :fecha
+                """, HistogramaDiario.class)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getSingleResult();
+    }
+
+    /**
+     * Obtiene los histogramas del período con el índice único (ID_SERVICIO,
+     * FECHA).
+     *
+     * @param idServicio el identificador del servicio.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los histogramas de cada día con reservas, en orden de fecha.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<HistogramaDiario> findByServicio(Long idServicio, LocalDate inicio, LocalDate fin) {
+        return entityManager.createQuery("""
+                    SELECT h FROM HistogramaDiario h
+                    WHERE h.idServicio = :idServicio AND h.fecha BETWEEN :inicio AND :fin
+                    ORDER BY h.fecha
+                """, HistogramaDiario.class)
+                .setParameter("idServicio", idServicio)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Lee la hora y el alta de las reservas del período y las acumula en un
+     * histograma por servicio y día.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return los histogramas de cada servicio y día con reservas.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<HistogramaDiario> calcular(LocalDate inicio, LocalDate fin) {
+        List<Object[]> filas = entityManager.createQuery("""
+                    SELECT s.empresa.idEmpresa, s.idServicio, r.fechaReserva, r.hora, r.fechaAlta
+                    FROM Reserva r JOIN r.servicio s
+                    WHERE r.fechaReserva BETWEEN :inicio AND :fin
+                """, Object[].class)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+        Map<Long, Long> empresas = new LinkedHashMap<>();
+        Map<Long, Map<LocalDate, HistogramaReservas>> histogramas = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            Long idServicio = (Long) fila[1];
+            LocalDate fecha = (LocalDate) fila[2];
+            empresas.put(idServicio, (Long) fila[0]);
+            histogramas.computeIfAbsent(idServicio, id -> new LinkedHashMap<>())
+                    .computeIfAbsent(fecha, dia -> new HistogramaReservas())
+                    .registrar(fecha, (LocalTime) fila[3], (LocalDateTime) fila[4], 1);
+        }
+        List<HistogramaDiario> resultado = new ArrayList<>();
+        histogramas.forEach((idServicio, porDia) -> porDia.forEach((fecha, histograma)
+                -> resultado.add(new HistogramaDiario(empresas.get(idServicio), idServicio, fecha,
+                        histograma.getBytes()))));
+        return resultado;
+    }
+
+    /**
+     * Elimina los histogramas del período y guarda los nuevos.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @param histogramas los nuevos histogramas del período.
+     */
+    @Override
+    public void sustituir(LocalDate inicio, LocalDate fin, List<HistogramaDiario> histogramas) {
+        entityManager.createQuery("DELETE FROM HistogramaDiario h WHERE h.fecha BETWEEN :inicio AND :fin")
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .executeUpdate();
+        for (HistogramaDiario histograma : histogramas) {
+            entityManager.persist(histograma);
+        }
+    }
+
+    /**
+     * Elimina los histogramas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void deleteByServicioId(Long idServicio) {
+        entityManager.createQuery("DELETE FROM HistogramaDiario h WHERE h.idServicio = :idServicio")
+                .setParameter("idServicio", idServicio)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,262 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.EntradaListaEspera;
+import com.sompoble.cat.domain.EntradaListaEspera.EstadoEspera;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import com.sompoble.cat.repository.ListaEsperaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link ListaEsperaRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class ListaEsperaHibernate implements ListaEsperaRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Guarda una nueva entrada.
+     *
+     * @param entrada la entrada a guardar.
+     */
+    @Override
+    public void save(EntradaListaEspera entrada) {
+        entityManager.persist(entrada);
+    }
+
+    /**
+     * Busca una entrada por su identificador.
+     *
+     * @param idEntrada el identificador de la entrada.
+     * @return la entrada, o {@code null} si no existe.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public EntradaListaEspera findById(Long idEntrada) {
+        return entityManager.find(EntradaListaEspera.class, idEntrada);
+    }
+
+    /**
+     * Comprueba si un cliente ya está en espera para un servicio y fecha.
+     *
+     * @param idCliente el identificador del cliente.
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha solicitada.
+     * @return {@code true} si el cliente ya está en espera.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsEnEspera(Long idCliente, Long idServicio, LocalDate fecha) {
+        Long total = entityManager.createQuery("""
+                    SELECT COUNT(e) FROM EntradaListaEspera e
+                    WHERE e.estado = :estado AND e.servicio.idServicio = :idServicio
+                      AND e.fechaReserva = :fecha AND e.cliente.idPersona = :idCliente
+                """, Long.class)
+                .setParameter("estado", EstadoEspera.EN_ESPERA)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setParameter("idCliente", idCliente)
+                .getSingleResult();
+        return total > 0;
+    }
+
+    /**
+     * Calcula la posición de una entrada contando las entradas en espera que
+     * llegaron antes, sobre el índice de la cola.
+     *
+     * @param entrada la entrada en espera.
+     * @return la posición, empezando por 1.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long posicion(EntradaListaEspera entrada) {
+        return entityManager.createQuery("""
+                    SELECT COUNT(e) FROM EntradaListaEspera e
+                    WHERE e.estado = :estado AND e.servicio.idServicio = :idServicio
+                      AND e.fechaReserva = :fecha AND e.idEntrada <= :idEntrada
+                """, Long.class)
+                .setParameter("estado", EstadoEspera.EN_ESPERA)
+                .setParameter("idServicio", entrada.getServicio().getIdServicio())
+                .setParameter("fecha", entrada.getFechaReserva())
+                .setParameter("idEntrada", entrada.getIdEntrada())
+                .getSingleResult();
+    }
+
+    /**
+     * Obtiene las entradas en espera de un cliente con su posición, en una
+     * sola consulta.
+     *
+     * @param dni el DNI del cliente.
+     * @return las entradas en espera, ordenadas por fecha.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<EntradaListaEsperaDTO> findEnEsperaByClienteDni(String dni) {
+        return entityManager.createQuery("""
+                    SELECT new com.sompoble.cat.dto.EntradaListaEsperaDTO(
+                        e.idEntrada, c.dni, s.idServicio, s.nombre, e.fechaReserva, e.hora, e.estado,
+                        (SELECT COUNT(o) FROM EntradaListaEspera o
+                         WHERE o.estado = e.estado AND o.servicio = e.servicio
+                           AND o.fechaReserva = e.fechaReserva AND o.idEntrada <= e.idEntrada),
+                        e.idReserva)
+                    FROM EntradaListaEspera e JOIN e.cliente c JOIN e.servicio s
+                    WHERE c.dni = :dni AND e.estado = :estado
+                    ORDER BY e.fechaReserva, e.hora, e.idEntrada
+                """, EntradaListaEsperaDTO.class)
+                .setParameter("dni", dni)
+                .setParameter("estado", EstadoEspera.EN_ESPERA)
+                .getResultList();
+    }
+
+    /**
+     * Obtiene y bloquea la primera entrada en espera con
+     * {@code SELECT ... FOR UPDATE SKIP LOCKED}. Sin {@code SKIP LOCKED}, las
+     * promociones concurrentes de la misma franja esperarían todas a la
+     * primera entrada y, al liberarse, la encontrarían ya promovida; saltando
+     * las filas bloqueadas, cada una toma la siguiente entrada libre en orden
+     * de llegada y la cola avanza sin esperas.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return la entrada bloqueada, o {@code null} si no hay ninguna libre.
+     */
+    @Override
+    public EntradaListaEspera bloquearPrimera(Long idServicio, LocalDate fecha) {
+        List<EntradaListaEspera> entradas = entityManager.unwrap(Session.class).createSelectionQuery("""
+                    SELECT e FROM EntradaListaEspera e
+                    WHERE e.estado = :estado AND e.servicio.idServicio = :idServicio AND e.fechaReserva = :fecha
+                    ORDER BY e.idEntrada
+                """, EntradaListaEspera.class)
+                .setParameter("estado", EstadoEspera.EN_ESPERA)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+                .setMaxResults(1)
+                .getResultList();
+        return entradas.isEmpty() ? null : entradas.get(0);
+    }
+
+    /**
+     * Obtiene los servicios y fechas que tienen entradas en espera.
+     *
+     * @return las fechas con entradas en espera, agrupadas por servicio.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<LocalDate>> findFranjasEnEspera() {
+        List<Object[]> filas = entityManager.createQuery("""
+                    SELECT DISTINCT e.servicio.idServicio, e.fechaReserva FROM EntradaListaEspera e
+                    WHERE e.estado = :estado
+                """, Object[].class)
+                .setParameter("estado", EstadoEspera.EN_ESPERA)
+                .getResultList();
+        Map<Long, List<LocalDate>> franjas = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            franjas.computeIfAbsent((Long) fila[0], id -> new ArrayList<>()).add((LocalDate) fila[1]);
+        }
+        return franjas;
+    }
+
+    /**
+     * Cancela una entrada si sigue en espera.
+     *
+     * @param idEntrada el identificador de la entrada.
+     * @return {@code true} si se ha cancelado.
+     */
+    @Override
+    public boolean cancelar(Long idEntrada) {
+        int filas = entityManager.createQuery("""
+                    UPDATE EntradaListaEspera e SET e.estado = :cancelada
+                    WHERE e.idEntrada = :idEntrada AND e.estado = :enEspera
+                """)
+                .setParameter("cancelada", EstadoEspera.CANCELADA)
+                .setParameter("idEntrada", idEntrada)
+                .setParameter("enEspera", EstadoEspera.EN_ESPERA)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Cancela todas las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     * @return el número de entradas canceladas.
+     */
+    @Override
+    public int cancelarByClienteDni(String dni) {
+        return entityManager.createQuery("""
+                    UPDATE EntradaListaEspera e SET e.estado = :cancelada
+                    WHERE e.estado = :enEspera
+                      AND e.cliente.idPersona IN (SELECT c.idPersona FROM Cliente c WHERE c.dni = :dni)
+                """)
+                .setParameter("cancelada", EstadoEspera.CANCELADA)
+                .setParameter("enEspera", EstadoEspera.EN_ESPERA)
+                .setParameter("dni", dni)
+                .executeUpdate();
+    }
+
+    /**
+     * Marca como caducadas las entradas en espera de fechas anteriores a la
+     * indicada.
+     *
+     * @param fecha la primera fecha que sigue vigente.
+     * @return el número de entradas caducadas.
+     */
+    @Override
+    public int caducarAnteriores(LocalDate fecha) {
+        return entityManager.createQuery("""
+                    UPDATE EntradaListaEspera e SET e.estado = :caducada
+                    WHERE e.estado = :enEspera AND e.fechaReserva < :fecha
+                """)
+                .setParameter("caducada", EstadoEspera.CADUCADA)
+                .setParameter("enEspera", EstadoEspera.EN_ESPERA)
+                .setParameter("fecha", fecha)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina todas las entradas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void deleteByServicioId(Long idServicio) {
+        entityManager.createQuery("DELETE FROM EntradaListaEspera e WHERE e.servicio.idServicio = :idServicio")
+                .setParameter("idServicio", idServicio)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina todas las entradas de los servicios de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     */
+    @Override
+    public void deleteByEmpresaIdentificadorFiscal(String identificadorFiscal) {
+        entityManager.createQuery("""
+                    DELETE FROM EntradaListaEspera e
+                    WHERE e.servicio.idServicio IN (
+                        SELECT s.idServicio FROM Servicio s WHERE s.empresa.identificadorFiscal = :identificadorFiscal)
+                """)
+                .setParameter("identificadorFiscal", identificadorFiscal)
+                .executeUpdate();
+    }
+}
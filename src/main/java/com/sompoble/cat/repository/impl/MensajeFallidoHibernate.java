@@ -0,0 +1,120 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.MensajeFallido;
+import com.sompoble.cat.repository.MensajeFallidoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link MensajeFallidoRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class MensajeFallidoHibernate implements MensajeFallidoRepository {
+
+    /**
+     * Columnas que se copian de un mensaje fallido a la bandeja de salida.
+     */
+    private static final String REENVIO = """
+            INSERT INTO MENSAJE_SALIDA (DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO, TEXTO_NOTIFICACION,
+                    TIPO_NOTIFICACION, NOTIFICACION_REGISTRADA, ESTADO, INTENTOS, PROXIMO_INTENTO, FECHA_ALTA)
+            SELECT DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO, TEXTO_NOTIFICACION, TIPO_NOTIFICACION,
+                    NOTIFICACION_REGISTRADA, 'PENDIENTE', 0, :ahora, :ahora
+            FROM MENSAJE_FALLIDO
+            """;
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Obtiene una página de mensajes fallidos.
+     *
+     * @param despuesDe el último identificador de la página anterior, o
+     * {@code null}.
+     * @param limite el número máximo de mensajes.
+     * @return los mensajes fallidos.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MensajeFallido> findAll(Long despuesDe, int limite) {
+        return entityManager.createQuery("""
+                    SELECT m FROM MensajeFallido m
+                    WHERE m.idFallido > :despuesDe
+                    ORDER BY m.idFallido
+                """, MensajeFallido.class)
+                .setParameter("despuesDe", despuesDe != null ? despuesDe : 0L)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Cuenta los mensajes fallidos.
+     *
+     * @return el número de mensajes fallidos.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long count() {
+        return entityManager.createQuery("SELECT COUNT(m) FROM MensajeFallido m", Long.class)
+                .getSingleResult();
+    }
+
+    /**
+     * Copia el mensaje a la bandeja de salida y lo borra de los fallidos en
+     * la misma transacción.
+     *
+     * @param id el identificador del mensaje fallido.
+     * @param ahora el momento actual.
+     * @return {@code true} si se ha encolado.
+     */
+    @Override
+    public boolean reenviar(Long id, LocalDateTime ahora) {
+        int filas = entityManager.createNativeQuery(REENVIO + "WHERE ID_FALLIDO = :id")
+                .setParameter("ahora", ahora)
+                .setParameter("id", id)
+                .executeUpdate();
+        entityManager.createQuery("DELETE FROM MensajeFallido m WHERE m.idFallido = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Copia los mensajes a la bandeja de salida y los borra de los fallidos.
+     * Solo se tienen en cuenta los que existían al empezar, de modo que los
+     * que fallen mientras tanto no se borran sin haberse copiado.
+     *
+     * @param dominio el dominio de los destinatarios, o {@code null}.
+     * @param ahora el momento actual.
+     * @return el número de mensajes encolados.
+     */
+    @Override
+    public int reenviarTodos(String dominio, LocalDateTime ahora) {
+        Long ultimo = entityManager.createQuery("SELECT MAX(m.idFallido) FROM MensajeFallido m", Long.class)
+                .getSingleResult();
+        if (ultimo == null) {
+            return 0;
+        }
+        String patron = dominio != null ? "%@" + dominio : "%";
+        int filas = entityManager.createNativeQuery(REENVIO + "WHERE ID_FALLIDO <= :ultimo AND DESTINATARIO LIKE :patron")
+                .setParameter("ahora", ahora)
+                .setParameter("ultimo", ultimo)
+                .setParameter("patron", patron)
+                .executeUpdate();
+        entityManager.createQuery("DELETE FROM MensajeFallido m WHERE m.idFallido <= :ultimo AND m.destinatario LIKE :patron")
+                .setParameter("ultimo", ultimo)
+                .setParameter("patron", patron)
+                .executeUpdate();
+        return filas;
+    }
+}
@@ -0,0 +1,362 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.MensajeSalida;
+import com.sompoble.cat.domain.MensajeSalida.EstadoMensaje;
+import com.sompoble.cat.repository.MensajeSalidaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link MensajeSalidaRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class MensajeSalidaHibernate implements MensajeSalidaRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Guarda un nuevo mensaje. Si existe una transacción activa (la de la
+     * reserva) el mensaje se guarda dentro de ella.
+     *
+     * @param mensaje el mensaje a guardar.
+     */
+    @Override
+    public void save(MensajeSalida mensaje) {
+        entityManager.persist(mensaje);
+    }
+
+    /**
+     * Busca un mensaje por su identificador.
+     *
+     * @param id el identificador del mensaje.
+     * @return el mensaje, o {@code null} si no existe.
+     */
+    @Override
+    public MensajeSalida findById(Long id) {
+        return entityManager.find(MensajeSalida.class, id);
+    }
+
+    /**
+     * Obtiene los mensajes pendientes listos para entregar.
+     *
+     * @param ahora el momento actual.
+     * @param limite el número máximo de mensajes.
+     * @return los identificadores de los mensajes.
+     */
+    @Override
+    public List<Long> findPendientes(LocalDateTime ahora, int limite) {
+        return entityManager.createQuery("""
+                    SELECT m.idMensaje FROM MensajeSalida m
+                    WHERE m.estado = :estado AND m.proximoIntento <= :ahora
+                    ORDER BY m.proximoIntento
+                """, Long.class)
+                .setParameter("estado", EstadoMensaje.PENDIENTE)
+                .setParameter("ahora", ahora)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Reclama un mensaje con un {@code UPDATE} condicional, de modo que dos
+     * hilos no pueden entregar el mismo mensaje a la vez.
+     *
+     * @param id el identificador del mensaje.
+     * @param ahora el momento actual.
+     * @param bloqueadoHasta el fin del bloqueo.
+     * @return {@code true} si se ha reclamado el mensaje.
+     */
+    @Override
+    public boolean reclamar(Long id, LocalDateTime ahora, LocalDateTime bloqueadoHasta) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m SET m.proximoIntento = :bloqueadoHasta
+                    WHERE m.idMensaje = :id AND m.estado = :estado AND m.proximoIntento <= :ahora
+                """)
+                .setParameter("bloqueadoHasta", bloqueadoHasta)
+                .setParameter("id", id)
+                .setParameter("estado", EstadoMensaje.PENDIENTE)
+                .setParameter("ahora", ahora)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Marca como registrada la notificación de un mensaje con un
+     * {@code UPDATE} condicional, que además bloquea la fila hasta el final
+     * de la transacción.
+     *
+     * @param id el identificador del mensaje.
+     * @return {@code true} si la notificación estaba pendiente.
+     */
+    @Override
+    public boolean marcarNotificacionRegistrada(Long id) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m SET m.notificacionRegistrada = true
+                    WHERE m.idMensaje = :id AND m.notificacionRegistrada = false
+                """)
+                .setParameter("id", id)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Marca un mensaje como enviado con un {@code UPDATE} condicional al
+     * reclamo.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean marcarEnviado(Long id, LocalDateTime reclamadoHasta) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m SET m.estado = :enviado, m.ultimoError = null
+                    WHERE m.idMensaje = :id AND m.estado = :pendiente AND m.proximoIntento = :reclamadoHasta
+                """)
+                .setParameter("enviado", EstadoMensaje.ENVIADO)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE)
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Registra un intento fallido y programa el siguiente con un
+     * {@code UPDATE} condicional al reclamo.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param intentos el número total de intentos fallidos.
+     * @param proximoIntento el momento del siguiente intento.
+     * @param error la descripción del error.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean reprogramar(Long id, LocalDateTime reclamadoHasta, int intentos, LocalDateTime proximoIntento,
+            String error) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m
+                    SET m.intentos = :intentos, m.proximoIntento = :proximoIntento, m.ultimoError = :error
+                    WHERE m.idMensaje = :id AND m.estado = :pendiente AND m.proximoIntento = :reclamadoHasta
+                """)
+                .setParameter("intentos", intentos)
+                .setParameter("proximoIntento", proximoIntento)
+                .setParameter("error", error)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE)
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Aplaza un mensaje por un límite del proveedor con un {@code UPDATE}
+     * condicional al reclamo.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param aplazamientos el número total de aplazamientos.
+     * @param proximoIntento el momento en que vuelve a estar disponible.
+     * @param error la respuesta del proveedor.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean posponer(Long id, LocalDateTime reclamadoHasta, int aplazamientos, LocalDateTime proximoIntento,
+            String error) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m
+                    SET m.aplazamientos = :aplazamientos, m.proximoIntento = :proximoIntento, m.ultimoError = :error
+                    WHERE m.idMensaje = :id AND m.estado = :pendiente AND m.proximoIntento = :reclamadoHasta
+                """)
+                .setParameter("aplazamientos", aplazamientos)
+                .setParameter("proximoIntento", proximoIntento)
+                .setParameter("error", error)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE)
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Aplaza un mensaje sin modificar su número de intentos, con un
+     * {@code UPDATE} condicional al reclamo.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param proximoIntento el momento en que vuelve a estar disponible.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean aplazar(Long id, LocalDateTime reclamadoHasta, LocalDateTime proximoIntento) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m SET m.proximoIntento = :proximoIntento
+                    WHERE m.idMensaje = :id AND m.estado = :pendiente AND m.proximoIntento = :reclamadoHasta
+                """)
+                .setParameter("proximoIntento", proximoIntento)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE)
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Copia el mensaje a {@code MENSAJE_FALLIDO} y lo borra de la bandeja de
+     * salida en la misma transacción, solo si sigue reclamado. La copia
+     * bloquea la fila leída, así que nadie puede reclamarla antes del
+     * borrado.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @param intentos el número total de intentos fallidos.
+     * @param error la descripción del último error.
+     * @param fechaFallo el momento en que se da por fallido.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean archivarFallido(Long id, LocalDateTime reclamadoHasta, int intentos, String error,
+            LocalDateTime fechaFallo) {
+        int filas = entityManager.createNativeQuery("""
+                    INSERT INTO MENSAJE_FALLIDO (ID_MENSAJE_ORIGINAL, DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO,
+                            TEXTO_NOTIFICACION, TIPO_NOTIFICACION, NOTIFICACION_REGISTRADA, INTENTOS, ULTIMO_ERROR,
+                            FECHA_ALTA, FECHA_FALLO)
+                    SELECT ID_MENSAJE, DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO, TEXTO_NOTIFICACION,
+                            TIPO_NOTIFICACION, NOTIFICACION_REGISTRADA, :intentos, :error, FECHA_ALTA, :fechaFallo
+                    FROM MENSAJE_SALIDA
+                    WHERE ID_MENSAJE = :id AND ESTADO = :pendiente AND PROXIMO_INTENTO = :reclamadoHasta
+                """)
+                .setParameter("intentos", intentos)
+                .setParameter("error", error)
+                .setParameter("fechaFallo", fechaFallo)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE.name())
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        if (filas == 0) {
+            return false;
+        }
+        entityManager.createQuery("DELETE FROM MensajeSalida m WHERE m.idMensaje = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        return true;
+    }
+
+    /**
+     * Aparta un mensaje para el resumen con un {@code UPDATE} condicional al
+     * reclamo.
+     *
+     * @param id el identificador del mensaje.
+     * @param reclamadoHasta el fin del bloqueo con el que se reclamó.
+     * @return {@code false} si el reclamo había caducado.
+     */
+    @Override
+    public boolean marcarResumen(Long id, LocalDateTime reclamadoHasta) {
+        int filas = entityManager.createQuery("""
+                    UPDATE MensajeSalida m SET m.estado = :resumen
+                    WHERE m.idMensaje = :id AND m.estado = :pendiente AND m.proximoIntento = :reclamadoHasta
+                """)
+                .setParameter("resumen", EstadoMensaje.RESUMEN)
+                .setParameter("id", id)
+                .setParameter("pendiente", EstadoMensaje.PENDIENTE)
+                .setParameter("reclamadoHasta", reclamadoHasta)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Obtiene los destinatarios con mensajes pendientes de resumen.
+     *
+     * @param corte el momento de cierre del resumen.
+     * @param limite el número máximo de destinatarios.
+     * @return las direcciones de los destinatarios.
+     */
+    @Override
+    public List<String> findDestinatariosResumen(LocalDateTime corte, int limite) {
+        return entityManager.createQuery("""
+                    SELECT DISTINCT m.destinatario FROM MensajeSalida m
+                    WHERE m.estado = :estado AND m.fechaAlta < :corte
+                """, String.class)
+                .setParameter("estado", EstadoMensaje.RESUMEN)
+                .setParameter("corte", corte)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Bloquea con {@code SELECT ... FOR UPDATE} los mensajes del resumen, de
+     * modo que si dos instancias preparan a la vez el resumen del mismo
+     * destinatario, la segunda ya no los encuentra.
+     *
+     * @param destinatario la dirección del destinatario.
+     * @param corte el momento de cierre del resumen.
+     * @return los mensajes.
+     */
+    @Override
+    public List<MensajeSalida> bloquearResumen(String destinatario, LocalDateTime corte) {
+        return entityManager.createQuery("""
+                    SELECT m FROM MensajeSalida m
+                    WHERE m.estado = :estado AND m.destinatario = :destinatario AND m.fechaAlta < :corte
+                    ORDER BY m.fechaAlta, m.idMensaje
+                """, MensajeSalida.class)
+                .setParameter("estado", EstadoMensaje.RESUMEN)
+                .setParameter("destinatario", destinatario)
+                .setParameter("corte", corte)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    /**
+     * Marca como enviados los mensajes de un resumen.
+     *
+     * @param ids los identificadores de los mensajes.
+     */
+    @Override
+    public void marcarResumidos(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        entityManager.createQuery("UPDATE MensajeSalida m SET m.estado = :estado WHERE m.idMensaje IN :ids")
+                .setParameter("estado", EstadoMensaje.ENVIADO)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina un bloque de mensajes enviados. Al reclamar un mensaje se fija
+     * {@code PROXIMO_INTENTO} al fin del bloqueo, de modo que en los enviados
+     * indica, con ese margen, el momento de la entrega; así se aprovecha el
+     * índice {@code (ESTADO, PROXIMO_INTENTO)} sin añadir columnas. El borrado
+     * se hace por bloques para no mantener bloqueos largos sobre la tabla.
+     *
+     * @param limite el momento límite.
+     * @param lote el número máximo de mensajes a eliminar.
+     * @return el número de mensajes eliminados.
+     */
+    @Override
+    public int deleteEnviados(LocalDateTime limite, int lote) {
+        return entityManager.createNativeQuery("""
+                    DELETE FROM MENSAJE_SALIDA
+                    WHERE ESTADO = :estado AND PROXIMO_INTENTO < :limite
+                    ORDER BY PROXIMO_INTENTO
+                    LIMIT :lote
+                """)
+                .setParameter("estado", EstadoMensaje.ENVIADO.name())
+                .setParameter("limite", limite)
+                .setParameter("lote", lote)
+                .executeUpdate();
+    }
+}
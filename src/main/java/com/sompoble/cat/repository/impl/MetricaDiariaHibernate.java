@@ -0,0 +1,312 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.dto.MetricaDiariaDTO;
+import com.sompoble.cat.dto.MetricaEmpresaDTO;
+import com.sompoble.cat.dto.MetricaServicioMesDTO;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link MetricaDiariaRepository} utilizando
+ * {@link EntityManager}.
+ * <p>
+ * La acumulación es una única sentencia por resumen, de modo que las reservas
+ * concurrentes del mismo servicio y fecha se suman sin perder ninguna.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class MetricaDiariaHibernate implements MetricaDiariaRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Filas que se piden al driver en cada lectura de una exportación.
+     */
+    @Value("${exportacion.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSizeExportacion = Integer.MIN_VALUE;
+
+    /**
+     * Acumula reservas en el resumen con un {@code INSERT ... ON DUPLICATE
+     * KEY UPDATE}, o con un {@code UPDATE} al retirarlas. Los ingresos son
+     * los precios guardados en las reservas, por lo que retirar una reserva
+     * resta exactamente lo que sumó.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     * @param reservas el número de reservas que se añaden o retiran.
+     * @param ingresosCentimos la suma de sus precios, en céntimos.
+     */
+    @Override
+    public void acumular(Long idServicio, LocalDate fecha, long reservas, long ingresosCentimos) {
+        if (reservas > 0) {
+            entityManager.createNativeQuery("""
+                        INSERT INTO METRICA_DIARIA (ID_EMPRESA, ID_SERVICIO, FECHA, RESERVAS, INGRESOS_CENTIMOS)
+                        SELECT s.ID_EMPRESA, s.ID_SERVICIO, :fecha, :reservas, :ingresos
+                        FROM SERVICIO s WHERE s.ID_SERVICIO = :idServicio
+                        ON DUPLICATE KEY UPDATE
+                            RESERVAS = RESERVAS + VALUES(RESERVAS),
+                            INGRESOS_CENTIMOS = INGRESOS_CENTIMOS + VALUES(INGRESOS_CENTIMOS)
+                    """)
+                    .setParameter("idServicio", idServicio)
+                    .setParameter("fecha", fecha)
+                    .setParameter("reservas", reservas)
+                    .setParameter("ingresos", ingresosCentimos)
+                    .executeUpdate();
+        } else if (reservas < 0) {
+            entityManager.createNativeQuery("""
+                        UPDATE METRICA_DIARIA
+                        SET RESERVAS = RESERVAS + :reservas,
+                            INGRESOS_CENTIMOS = INGRESOS_CENTIMOS + :ingresos
+                        WHERE ID_SERVICIO = :idServicio AND FECHA = :fecha
+                    """)
+                    .setParameter("idServicio", idServicio)
+                    .setParameter("fecha", fecha)
+                    .setParameter("reservas", reservas)
+                    .setParameter("ingresos", ingresosCentimos)
+                    .executeUpdate();
+            marcarPendiente(fecha);
+        }
+    }
+
+    /**
+     * Marca una fecha como pendiente de reconciliar con un
+     * {@code INSERT IGNORE}, que no hace nada si ya lo está.
+     *
+     * @param fecha la fecha.
+     */
+    @Override
+    public void marcarPendiente(LocalDate fecha) {
+        entityManager.createNativeQuery("INSERT IGNORE INTO METRICA_DIA_PENDIENTE (FECHA) VALUES (:fecha)")
+                .setParameter("fecha", fecha)
+                .executeUpdate();
+    }
+
+    /**
+     * Obtiene las métricas por servicio y mes de una empresa sumando sus
+     * resúmenes diarios, que se leen con el índice que empieza por
+     * (ID_EMPRESA, FECHA). El nombre se toma del servicio.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return las métricas por servicio y mes, ordenadas por mes.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<MetricaServicioMesDTO> obtenerMetricasPorServicioYMes(Long idEmpresa, LocalDate inicio, LocalDate fin) {
+        return entityManager.createQuery("""
+                    SELECT new com.sompoble.cat.dto.MetricaServicioMesDTO(
+                        s.idServicio,
+                        s.nombre,
+                        MONTH(m.fecha),
+                        SUM(m.reservas),
+                        SUM(m.ingresosCentimos))
+                    FROM MetricaDiaria m, Servicio s
+                    WHERE s.idServicio = m.idServicio
+                      AND m.idEmpresa = :idEmpresa
+                      AND m.fecha BETWEEN :inicio AND :fin
+                    GROUP BY s.idServicio, s.nombre, MONTH(m.fecha)
+                    HAVING SUM(m.reservas) > 0
+                    ORDER BY MONTH(m.fecha), s.idServicio
+                """, MetricaServicioMesDTO.class)
+                .setParameter("idEmpresa", idEmpresa)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Agrupa los resúmenes diarios por empresa en un rango de identificadores,
+     * que se lee con el índice (ID_EMPRESA, FECHA, ...) sin acceder a la
+     * tabla.
+     *
+     * @param idEmpresaDesde el primer identificador de empresa (inclusive).
+     * @param idEmpresaHasta el último identificador de empresa (inclusive).
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return las métricas de las empresas del rango con alguna reserva.
+     */
+    @Override
+    public List<MetricaEmpresaDTO> obtenerMetricasPorEmpresa(Long idEmpresaDesde, Long idEmpresaHasta,
+            LocalDate inicio, LocalDate fin) {
+        return entityManager.createQuery("""
+                    SELECT new com.sompoble.cat.dto.MetricaEmpresaDTO(
+                        e.idEmpresa,
+                        e.identificadorFiscal,
+                        e.nombre,
+                        SUM(m.reservas),
+                        SUM(m.ingresosCentimos))
+                    FROM MetricaDiaria m, Empresa e
+                    WHERE e.idEmpresa = m.idEmpresa
+                      AND m.idEmpresa BETWEEN :idEmpresaDesde AND :idEmpresaHasta
+                      AND m.fecha BETWEEN :inicio AND :fin
+                    GROUP BY e.idEmpresa, e.identificadorFiscal, e.nombre
+                    HAVING SUM(m.reservas) > 0
+                """, MetricaEmpresaDTO.class)
+                .setParameter("idEmpresaDesde", idEmpresaDesde)
+                .setParameter("idEmpresaHasta", idEmpresaHasta)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
+    }
+
+    /**
+     * Obtiene el menor y el mayor identificador de empresa, que MySQL
+     * resuelve leyendo los extremos del índice.
+     *
+     * @return un array con el menor y el mayor identificador, o un array
+     * vacío si no hay resúmenes.
+     */
+    @Override
+    public long[] obtenerRangoEmpresas() {
+        Object[] extremos = entityManager.createQuery(
+                "SELECT MIN(m.idEmpresa), MAX(m.idEmpresa) FROM MetricaDiaria m", Object[].class)
+                .getSingleResult();
+        if (extremos[0] == null || extremos[1] == null) {
+            return new long[0];
+        }
+        return new long[]{((Number) extremos[0]).longValue(), ((Number) extremos[1]).longValue()};
+    }
+
+    /**
+     * Recorre los resúmenes diarios de una empresa con un cursor de solo
+     * avance, que se lee con el índice (ID_EMPRESA, FECHA, ...).
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param consumidor la acción que recibe cada resumen.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrer(Long idEmpresa, LocalDate desde, LocalDate hasta, Consumer<MetricaDiariaDTO> consumidor) {
+        String consulta = """
+                SELECT new com.sompoble.cat.dto.MetricaDiariaDTO(
+                       m.fecha, s.idServicio, s.nombre, m.reservas, m.ingresosCentimos)
+                FROM MetricaDiaria m, Servicio s
+                WHERE s.idServicio = m.idServicio
+                  AND m.idEmpresa = :idEmpresa
+                  AND m.reservas > 0
+                %s %s
+                ORDER BY m.fecha, s.idServicio
+                """.formatted(desde != null ? "AND m.fecha >= :desde" : "",
+                        hasta != null ? "AND m.fecha <= :hasta" : "");
+        Query<MetricaDiariaDTO> query = entityManager.unwrap(Session.class)
+                .createQuery(consulta, MetricaDiariaDTO.class)
+                .setParameter("idEmpresa", idEmpresa);
+        if (desde != null) {
+            query.setParameter("desde", desde);
+        }
+        if (hasta != null) {
+            query.setParameter("hasta", hasta);
+        }
+        try (ScrollableResults<MetricaDiariaDTO> filas = query
+                .setFetchSize(fetchSizeExportacion)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (filas.next()) {
+                consumidor.accept(filas.get());
+            }
+        }
+    }
+
+    /**
+     * Obtiene las fechas pendientes de reconciliar posteriores a una dada,
+     * leyendo la clave primaria en orden.
+     *
+     * @param despues la fecha a partir de la que se buscan (exclusive), o
+     * {@code null} para empezar por la primera.
+     * @param lote el número máximo de fechas.
+     * @return las fechas, en orden ascendente.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<LocalDate> findPendientes(LocalDate despues, int lote) {
+        List<?> filas = entityManager.createNativeQuery(
+                "SELECT FECHA FROM METRICA_DIA_PENDIENTE WHERE FECHA > :despues ORDER BY FECHA LIMIT :lote")
+                .setParameter("despues", despues != null ? despues : LocalDate.of(1, 1, 1))
+                .setParameter("lote", lote)
+                .getResultList();
+        List<LocalDate> fechas = new ArrayList<>(filas.size());
+        for (Object fila : filas) {
+            fechas.add(fila instanceof Date fecha ? fecha.toLocalDate() : (LocalDate) fila);
+        }
+        return fechas;
+    }
+
+    /**
+     * Retira la marca de pendiente de una fecha.
+     *
+     * @param fecha la fecha.
+     */
+    @Override
+    public void retirarPendiente(LocalDate fecha) {
+        entityManager.createNativeQuery("DELETE FROM METRICA_DIA_PENDIENTE WHERE FECHA = :fecha")
+                .setParameter("fecha", fecha)
+                .executeUpdate();
+    }
+
+    /**
+     * Sustituye los resúmenes del período por los calculados a partir de las
+     * reservas, con el precio guardado en cada una.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    @Override
+    public void reconciliar(LocalDate inicio, LocalDate fin) {
+        entityManager.createNativeQuery("DELETE FROM METRICA_DIARIA WHERE FECHA BETWEEN :inicio AND :fin")
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .executeUpdate();
+        entityManager.createNativeQuery("""
+                    INSERT INTO METRICA_DIARIA (ID_EMPRESA, ID_SERVICIO, FECHA, RESERVAS, INGRESOS_CENTIMOS)
+                    SELECT s.ID_EMPRESA, r.ID_SERVICIO, r.FECHA, COUNT(*), SUM(r.PRECIO_CENTIMOS)
+                    FROM RESERVA r JOIN SERVICIO s ON s.ID_SERVICIO = r.ID_SERVICIO
+                    WHERE r.FECHA BETWEEN :inicio AND :fin
+                    GROUP BY s.ID_EMPRESA, r.ID_SERVICIO, r.FECHA
+                """)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina los resúmenes de un servicio y marca sus fechas como
+     * pendientes, para retirar a sus clientes de los estimadores.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void deleteByServicioId(Long idServicio) {
+        entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO METRICA_DIA_PENDIENTE (FECHA)
+                    SELECT DISTINCT FECHA FROM METRICA_DIARIA WHERE ID_SERVICIO = :idServicio
+                """)
+                .setParameter("idServicio", idServicio)
+                .executeUpdate();
+        entityManager.createQuery("DELETE FROM MetricaDiaria m WHERE m.idServicio = :idServicio")
+                .setParameter("idServicio", idServicio)
+                .executeUpdate();
+    }
+}
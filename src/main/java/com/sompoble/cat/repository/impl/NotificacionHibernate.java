@@ -1,6 +1,7 @@
 package com.sompoble.cat.repository.impl;
 
 import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.dto.NotificacionDTO;
 import com.sompoble.cat.repository.NotificacionRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +13,7 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -133,4 +135,47 @@ public class NotificacionHibernate implements NotificacionRepository {
         return entityManager.createQuery(cq).getResultList();
     }
 
+    /**
+     * Busca las notificaciones de un cliente con identificador mayor que el
+     * indicado, en orden de identificador.
+     *
+     * @param dni el DNI del cliente
+     * @param idDesde el identificador de la última notificación recibida
+     * @param limite el número máximo de notificaciones
+     * @return las notificaciones encontradas
+     */
+    @Override
+    public List<NotificacionDTO> findByClienteDniDespuesDe(String dni, Long idDesde, int limite) {
+        return entityManager.createQuery(
+                "SELECT new com.sompoble.cat.dto.NotificacionDTO(n.idNotificacion, c.dni, n.mensaje, n.tipo, n.fechaAlta) "
+                + "FROM Notificacion n JOIN n.cliente c "
+                + "WHERE c.dni = :dni AND n.idNotificacion > :idDesde "
+                + "ORDER BY n.idNotificacion", NotificacionDTO.class)
+                .setParameter("dni", dni)
+                .setParameter("idDesde", idDesde)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    /**
+     * Busca las notificaciones de clientes creadas a partir de un momento, en
+     * orden de identificador.
+     *
+     * @param desde el momento inicial, incluido
+     * @param idDesde solo se devuelven las de identificador mayor
+     * @param limite el número máximo de notificaciones
+     * @return las notificaciones encontradas
+     */
+    @Override
+    public List<NotificacionDTO> findDeClientesDesde(LocalDateTime desde, Long idDesde, int limite) {
+        return entityManager.createQuery(
+                "SELECT new com.sompoble.cat.dto.NotificacionDTO(n.idNotificacion, c.dni, n.mensaje, n.tipo, n.fechaAlta) "
+                + "FROM Notificacion n JOIN n.cliente c "
+                + "WHERE n.fechaAlta >= :desde AND n.idNotificacion > :idDesde "
+                + "ORDER BY n.idNotificacion", NotificacionDTO.class)
+                .setParameter("desde", desde)
+                .setParameter("idDesde", idDesde)
+                .setMaxResults(limite)
+                .getResultList();
+    }
 }
@@ -0,0 +1,125 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.OcupacionServicio;
+import com.sompoble.cat.repository.OcupacionServicioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link OcupacionServicioRepository} utilizando
+ * {@link EntityManager}.
+ * <p>
+ * El incremento y el decremento se resuelven con un único {@code UPDATE}
+ * condicional, por lo que la base de datos serializa las admisiones de un
+ * mismo par (servicio, fecha) sin necesidad de bloqueos explícitos.
+ * </p>
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class OcupacionServicioHibernate implements OcupacionServicioRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Crea el contador del par (servicio, fecha) si no existe. El valor inicial
+     * se calcula a partir de las reservas existentes, lo que sirve de
+     * migración perezosa para los días reservados antes de existir el libro de
+     * capacidad.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     */
+    @Override
+    public void inicializarSiNoExiste(Long idServicio, LocalDate fecha) {
+        entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO OCUPACION_SERVICIO (ID_SERVICIO, FECHA, OCUPADAS)
+                    SELECT :idServicio, :fecha, COUNT(*) FROM RESERVA
+                    WHERE ID_SERVICIO = :idServicio AND FECHA = :fecha
+                """)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .executeUpdate();
+    }
+
+    /**
+     * Ocupa una plaza con un {@code UPDATE} condicional al límite.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     * @param limite el límite de reservas del servicio.
+     * @return {@code true} si se ha actualizado la fila.
+     */
+    @Override
+    public boolean incrementarSiHayPlaza(Long idServicio, LocalDate fecha, int limite) {
+        int filas = entityManager.createQuery("""
+                    UPDATE OcupacionServicio o SET o.ocupadas = o.ocupadas + 1
+                    WHERE o.idServicio = :idServicio AND o.fecha = :fecha AND o.ocupadas < :limite
+                """)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setParameter("limite", limite)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Libera plazas del contador sin dejarlo en negativo.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas liberadas.
+     * @param cantidad el número de plazas a liberar.
+     */
+    @Override
+    public void decrementar(Long idServicio, LocalDate fecha, int cantidad) {
+        entityManager.createQuery("""
+                    UPDATE OcupacionServicio o
+                    SET o.ocupadas = CASE WHEN o.ocupadas > :cantidad THEN o.ocupadas - :cantidad ELSE 0 END
+                    WHERE o.idServicio = :idServicio AND o.fecha = :fecha
+                """)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .setParameter("cantidad", cantidad)
+                .executeUpdate();
+    }
+
+    /**
+     * Obtiene las plazas ocupadas del contador.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas.
+     * @return las plazas ocupadas, o {@code null} si no existe el contador.
+     */
+    @Override
+    public Integer findOcupadas(Long idServicio, LocalDate fecha) {
+        List<Integer> resultado = entityManager.createQuery("""
+                    SELECT o.ocupadas FROM OcupacionServicio o
+                    WHERE o.idServicio = :idServicio AND o.fecha = :fecha
+                """, Integer.class)
+                .setParameter("idServicio", idServicio)
+                .setParameter("fecha", fecha)
+                .getResultList();
+        return resultado.isEmpty() ? null : resultado.get(0);
+    }
+
+    /**
+     * Elimina todos los contadores asociados a un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void deleteByServicioId(Long idServicio) {
+        entityManager.createQuery("DELETE FROM OcupacionServicio o WHERE o.idServicio = :idServicio")
+                .setParameter("idServicio", idServicio)
+                .executeUpdate();
+    }
+}
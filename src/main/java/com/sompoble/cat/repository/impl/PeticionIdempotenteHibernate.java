@@ -0,0 +1,126 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+import com.sompoble.cat.domain.PeticionIdempotente.EstadoPeticion;
+import com.sompoble.cat.repository.PeticionIdempotenteRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link PeticionIdempotenteRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class PeticionIdempotenteHibernate implements PeticionIdempotenteRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Busca una petición por su clave.
+     *
+     * @param clave la clave de idempotencia.
+     * @return la petición, o {@code null} si no existe.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PeticionIdempotente findByClave(String clave) {
+        return entityManager.find(PeticionIdempotente.class, clave);
+    }
+
+    /**
+     * Reserva una clave con un {@code INSERT IGNORE}: si otra petición ya la
+     * ha reservado no se inserta ninguna fila, sin lanzar una excepción que
+     * invalide la transacción.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @param expiraEn el momento en que caduca la reserva.
+     * @return {@code true} si se ha reservado la clave.
+     */
+    @Override
+    public boolean reservar(String clave, String huella, LocalDateTime expiraEn) {
+        int filas = entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO PETICION_IDEMPOTENTE (CLAVE, HUELLA, ESTADO, EXPIRA_EN)
+                    VALUES (:clave, :huella, :estado, :expiraEn)
+                """)
+                .setParameter("clave", clave)
+                .setParameter("huella", huella)
+                .setParameter("estado", EstadoPeticion.EN_CURSO.name())
+                .setParameter("expiraEn", expiraEn)
+                .executeUpdate();
+        return filas == 1;
+    }
+
+    /**
+     * Guarda la respuesta de una petición en curso.
+     *
+     * @param peticion la petición completada con su respuesta.
+     */
+    @Override
+    public void completar(PeticionIdempotente peticion) {
+        entityManager.createQuery("""
+                    UPDATE PeticionIdempotente p
+                    SET p.estado = :estado, p.codigoEstado = :codigoEstado,
+                        p.tipoContenido = :tipoContenido, p.cuerpo = :cuerpo, p.expiraEn = :expiraEn
+                    WHERE p.clave = :clave AND p.huella = :huella
+                """)
+                .setParameter("estado", EstadoPeticion.COMPLETADA)
+                .setParameter("codigoEstado", peticion.getCodigoEstado())
+                .setParameter("tipoContenido", peticion.getTipoContenido())
+                .setParameter("cuerpo", peticion.getCuerpo())
+                .setParameter("expiraEn", peticion.getExpiraEn())
+                .setParameter("clave", peticion.getClave())
+                .setParameter("huella", peticion.getHuella())
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina la reserva de una petición en curso.
+     *
+     * @param clave la clave de idempotencia.
+     */
+    @Override
+    public void liberar(String clave) {
+        entityManager.createQuery("DELETE FROM PeticionIdempotente p WHERE p.clave = :clave AND p.estado = :estado")
+                .setParameter("clave", clave)
+                .setParameter("estado", EstadoPeticion.EN_CURSO)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina una clave si ya ha caducado.
+     *
+     * @param clave la clave de idempotencia.
+     * @param ahora el momento actual.
+     */
+    @Override
+    public void deleteCaducada(String clave, LocalDateTime ahora) {
+        entityManager.createQuery("DELETE FROM PeticionIdempotente p WHERE p.clave = :clave AND p.expiraEn <= :ahora")
+                .setParameter("clave", clave)
+                .setParameter("ahora", ahora)
+                .executeUpdate();
+    }
+
+    /**
+     * Elimina todas las claves caducadas.
+     *
+     * @param ahora el momento actual.
+     * @return el número de claves eliminadas.
+     */
+    @Override
+    public int deleteCaducadas(LocalDateTime ahora) {
+        return entityManager.createQuery("DELETE FROM PeticionIdempotente p WHERE p.expiraEn <= :ahora")
+                .setParameter("ahora", ahora)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,139 @@
+package com.sompoble.cat.repository.impl;
+
+import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.dto.CitaRecordatorioDTO;
+import com.sompoble.cat.repository.RecordatorioEnviadoRepository;
+import com.sompoble.cat.util.Particion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link RecordatorioEnviadoRepository} utilizando
+ * {@link EntityManager}.
+ *
+ * @author SomPoble
+ */
+@Repository
+@Transactional
+public class RecordatorioEnviadoHibernate implements RecordatorioEnviadoRepository {
+
+    /**
+     * EntityManager para gestionar las operaciones de persistencia.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Recorre el índice (FECHA, HORA) de las reservas entre las fechas del
+     * intervalo y descarta con la clave única de {@code RECORDATORIO_ENVIADO}
+     * las citas ya recordadas. La partición se filtra con el resto del
+     * identificador, que con una sola partición siempre se cumple.
+     *
+     * @param desde el inicio del intervalo de citas (inclusive).
+     * @param hasta el fin del intervalo de citas (exclusive).
+     * @param antelacionMinutos la antelación del recordatorio, en minutos.
+     * @param particion la parte de las reservas que se busca.
+     * @return las citas, en orden de fecha y hora.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<CitaRecordatorioDTO> findCitasPendientes(LocalDateTime desde, LocalDateTime hasta,
+            int antelacionMinutos, Particion particion) {
+        List<Object[]> filas = entityManager.createNativeQuery("""
+                    SELECT r.ID_RESERVA, r.FECHA, r.HORA FROM RESERVA r
+                    WHERE r.FECHA BETWEEN :fechaDesde AND :fechaHasta
+                      AND TIMESTAMP(r.FECHA, r.HORA) >= :desde AND TIMESTAMP(r.FECHA, r.HORA) < :hasta
+                      AND r.FECHA_ALTA <= TIMESTAMP(r.FECHA, r.HORA) - INTERVAL :antelacion MINUTE
+                      AND MOD(r.ID_RESERVA, :particiones) = :particion
+                      AND NOT EXISTS (
+                          SELECT 1 FROM RECORDATORIO_ENVIADO e
+                          WHERE e.ID_RESERVA = r.ID_RESERVA AND e.ANTELACION_MINUTOS = :antelacion
+                            AND e.FECHA_CITA = TIMESTAMP(r.FECHA, r.HORA))
+                    ORDER BY r.FECHA, r.HORA
+                """)
+                .unwrap(NativeQuery.class)
+                .addScalar("ID_RESERVA", Long.class)
+                .addScalar("FECHA", LocalDate.class)
+                .addScalar("HORA", LocalTime.class)
+                .setParameter("fechaDesde", desde.toLocalDate())
+                .setParameter("fechaHasta", hasta.toLocalDate())
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta)
+                .setParameter("antelacion", antelacionMinutos)
+                .setParameter("particiones", particion.getTotal())
+                .setParameter("particion", particion.getIndice())
+                .getResultList();
+        List<CitaRecordatorioDTO> citas = new ArrayList<>(filas.size());
+        for (Object[] fila : filas) {
+            citas.add(new CitaRecordatorioDTO((Long) fila[0], (LocalDate) fila[1], (LocalTime) fila[2]));
+        }
+        return citas;
+    }
+
+    /**
+     * Carga las reservas de un lote en una sola consulta.
+     *
+     * @param ids los identificadores de las reservas.
+     * @return las reservas que siguen existiendo.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Reserva> findReservas(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery("""
+                    SELECT r FROM Reserva r
+                    JOIN FETCH r.cliente JOIN FETCH r.servicio JOIN FETCH r.empresa
+                    WHERE r.idReserva IN :ids
+                """, Reserva.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * Registra el recordatorio con {@code INSERT IGNORE}: si otra transacción
+     * ya lo ha registrado, la clave única descarta la fila.
+     *
+     * @param idReserva el identificador de la reserva.
+     * @param antelacionMinutos la antelación del recordatorio, en minutos.
+     * @param cita la fecha y hora de la cita.
+     * @param ahora el momento actual.
+     * @return {@code true} si se ha registrado; {@code false} si ya lo estaba.
+     */
+    @Override
+    public boolean registrar(Long idReserva, int antelacionMinutos, LocalDateTime cita, LocalDateTime ahora) {
+        return entityManager.createNativeQuery("""
+                    INSERT IGNORE INTO RECORDATORIO_ENVIADO (ID_RESERVA, ANTELACION_MINUTOS, FECHA_CITA, FECHA_ENVIO)
+                    VALUES (:idReserva, :antelacion, :cita, :ahora)
+                """)
+                .setParameter("idReserva", idReserva)
+                .setParameter("antelacion", antelacionMinutos)
+                .setParameter("cita", cita)
+                .setParameter("ahora", ahora)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Elimina los recordatorios de las citas anteriores a un momento.
+     *
+     * @param limite el momento límite.
+     * @return el número de recordatorios eliminados.
+     */
+    @Override
+    public int deleteAnteriores(LocalDateTime limite) {
+        return entityManager.createQuery("DELETE FROM RecordatorioEnviado e WHERE e.fechaCita < :limite")
+                .setParameter("limite", limite)
+                .executeUpdate();
+    }
+}
@@ -2,8 +2,11 @@ package com.sompoble.cat.repository.impl;
 
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.dto.CursorReserva;
 import com.sompoble.cat.dto.PanelMetricasDTO.MetricasMensualesDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.dto.ReservaExportacionDTO;
+import com.sompoble.cat.dto.ReservasEliminadasDTO;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
 import com.sompoble.cat.repository.ReservaRepository;
@@ -11,17 +14,26 @@ import com.sompoble.cat.service.ClienteService;
 import com.sompoble.cat.service.EmpresaService;
 import com.sompoble.cat.service.ServicioService;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Implementación de {@link ReservaRepository} utilizando Hibernate con Criteria
@@ -36,12 +48,26 @@ import java.util.stream.Collectors;
 @Transactional
 public class ReservaHibernate implements ReservaRepository {
 
+    /**
+     * Número máximo de reservas eliminadas por sentencia en los borrados
+     * masivos.
+     */
+    static final int LOTE_BORRADO = 1000;
+
     /**
      * EntityManager para gestionar las operaciones de persistencia.
      */
     @Autowired
     private EntityManager entityManager;
 
+    /**
+     * Filas que se piden al driver en cada lectura de una exportación. Con
+     * MySQL, {@link Integer#MIN_VALUE} hace que las filas lleguen de una en
+     * una; un valor positivo requiere {@code useCursorFetch=true} en la URL.
+     */
+    @Value("${exportacion.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSizeExportacion = Integer.MIN_VALUE;
+
     /**
      * Servicio para gestionar clientes.
      */
@@ -69,17 +95,11 @@ public class ReservaHibernate implements ReservaRepository {
      * DNI especificado.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ReservaDTO> findByClienteDni(String dni) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
-
-        Predicate dniPredicate = cb.equal(root.get("cliente").get("dni"), dni);
-        cq.where(dniPredicate);
-
-        List<Reserva> reservas = entityManager.createQuery(cq).getResultList();
-
-        return reservas.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return entityManager.createQuery(consultaListado("c.dni", ""), ReservaDTO.class)
+                .setParameter("valor", dni)
+                .getResultList();
     }
 
     /**
@@ -92,17 +112,184 @@ public class ReservaHibernate implements ReservaRepository {
      * especificada.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ReservaDTO> findByEmpresaIdentificadorFiscal(String identificadorFiscal) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
+        return entityManager.createQuery(consultaListado("e.identificadorFiscal", ""), ReservaDTO.class)
+                .setParameter("valor", identificadorFiscal)
+                .getResultList();
+    }
 
-        Predicate identificadorFiscalPredicate = cb.equal(root.get("empresa").get("identificadorFiscal"), identificadorFiscal);
-        cq.where(identificadorFiscalPredicate);
+    /**
+     * Obtiene una página de las reservas de un cliente.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param despues la posición de la última reserva de la página anterior,
+     * o {@code null} para la primera página.
+     * @param limite el número máximo de reservas a devolver.
+     * @return las reservas de la página.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReservaDTO> findPaginaByClienteDni(String dni, CursorReserva despues, int limite) {
+        return findPagina("c.dni", dni, despues, limite);
+    }
 
-        List<Reserva> reservas = entityManager.createQuery(cq).getResultList();
+    /**
+     * Obtiene una página de las reservas de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param despues la posición de la última reserva de la página anterior,
+     * o {@code null} para la primera página.
+     * @param limite el número máximo de reservas a devolver.
+     * @return las reservas de la página.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReservaDTO> findPaginaByEmpresaIdentificadorFiscal(String identificadorFiscal, CursorReserva despues, int limite) {
+        return findPagina("e.identificadorFiscal", identificadorFiscal, despues, limite);
+    }
 
-        return reservas.stream().map(this::convertToDTO).collect(Collectors.toList());
+    /**
+     * Recorre las reservas de un cliente.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerByClienteDni(String dni, Consumer<ReservaDTO> consumidor) {
+        recorrer("c.dni", dni, consumidor);
+    }
+
+    /**
+     * Recorre las reservas de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerByEmpresaIdentificadorFiscal(String identificadorFiscal, Consumer<ReservaDTO> consumidor) {
+        recorrer("e.identificadorFiscal", identificadorFiscal, consumidor);
+    }
+
+    /**
+     * Recorre las reservas de una empresa en un rango de fechas para
+     * exportarlas, con un cursor de solo avance que lee
+     * {@code exportacion.fetch-size} filas cada vez.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void recorrerExportacion(String identificadorFiscal, LocalDate desde, LocalDate hasta,
+            Consumer<ReservaExportacionDTO> consumidor) {
+        String consulta = """
+                SELECT new com.sompoble.cat.dto.ReservaExportacionDTO(
+                       r.idReserva, r.fechaReserva, r.hora, r.estado,
+                       c.dni, s.idServicio, s.nombre, s.precio)
+                FROM Reserva r JOIN r.cliente c JOIN r.empresa e JOIN r.servicio s
+                WHERE e.identificadorFiscal = :valor
+                %s %s
+                ORDER BY r.fechaReserva, r.hora, r.idReserva
+                """.formatted(desde != null ? "AND r.fechaReserva >= :desde" : "",
+                        hasta != null ? "AND r.fechaReserva <= :hasta" : "");
+        Query<ReservaExportacionDTO> query = entityManager.unwrap(Session.class)
+                .createQuery(consulta, ReservaExportacionDTO.class)
+                .setParameter("valor", identificadorFiscal);
+        if (desde != null) {
+            query.setParameter("desde", desde);
+        }
+        if (hasta != null) {
+            query.setParameter("hasta", hasta);
+        }
+        try (ScrollableResults<ReservaExportacionDTO> filas = query
+                .setFetchSize(fetchSizeExportacion)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (filas.next()) {
+                consumidor.accept(filas.get());
+            }
+        }
+    }
+
+    /**
+     * Consulta una página por clave: en lugar de saltar las filas anteriores
+     * con un desplazamiento, se filtran las reservas posteriores a la última
+     * posición devuelta, de modo que el coste no crece con el número de
+     * páginas.
+     *
+     * @param campo el campo por el que se filtra ({@code c.dni} o
+     * {@code e.identificadorFiscal}).
+     * @param valor el valor del filtro.
+     * @param despues la posición a partir de la cual empieza la página.
+     * @param limite el número máximo de reservas a devolver.
+     * @return las reservas de la página.
+     */
+    private List<ReservaDTO> findPagina(String campo, String valor, CursorReserva despues, int limite) {
+        String posicion = despues == null ? "" : """
+                  AND (r.fechaReserva > :fecha
+                       OR (r.fechaReserva = :fecha AND (r.hora > :hora
+                           OR (r.hora = :hora AND r.idReserva > :idReserva))))
+                """;
+        TypedQuery<ReservaDTO> query = entityManager.createQuery(consultaListado(campo, posicion), ReservaDTO.class)
+                .setParameter("valor", valor)
+                .setMaxResults(limite);
+        if (despues != null) {
+            query.setParameter("fecha", despues.getFechaReserva())
+                    .setParameter("hora", despues.getHora())
+                    .setParameter("idReserva", despues.getIdReserva());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Recorre las reservas con un cursor de solo avance. Se leen DTOs en
+     * lugar de entidades, por lo que el contexto de persistencia no crece
+     * durante el recorrido.
+     *
+     * @param campo el campo por el que se filtra.
+     * @param valor el valor del filtro.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    private void recorrer(String campo, String valor, Consumer<ReservaDTO> consumidor) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<ReservaDTO> filas = session.createQuery(consultaListado(campo, ""), ReservaDTO.class)
+                .setParameter("valor", valor)
+                // Con MySQL, Integer.MIN_VALUE hace que el driver lea las filas de una en una
+                .setFetchSize(Integer.MIN_VALUE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (filas.next()) {
+                consumidor.accept(filas.get());
+            }
+        }
+    }
+
+    /**
+     * Construye la consulta de listado de reservas en el orden (fecha, hora,
+     * idReserva). La consulta proyecta directamente sobre {@link ReservaDTO}
+     * con los datos del cliente, la empresa y el servicio obtenidos mediante
+     * joins, por lo que cada listado se resuelve en una única sentencia sin
+     * cargar entidades ni disparar consultas adicionales por reserva.
+     *
+     * @param campo el campo por el que se filtra.
+     * @param posicion la condición adicional de posición, o cadena vacía.
+     * @return la consulta JPQL.
+     */
+    private static String consultaListado(String campo, String posicion) {
+        return """
+                SELECT new com.sompoble.cat.dto.ReservaDTO(
+                       r.idReserva, r.fechaReserva, r.hora, r.estado,
+                       c.dni, e.identificadorFiscal, s.idServicio, s.nombre, r.version)
+                FROM Reserva r JOIN r.cliente c JOIN r.empresa e JOIN r.servicio s
+                WHERE %s = :valor
+                %s
+                ORDER BY r.fechaReserva, r.hora, r.idReserva
+                """.formatted(campo, posicion);
     }
 
     /**
@@ -118,6 +305,34 @@ public class ReservaHibernate implements ReservaRepository {
         return reserva != null ? convertToDTO(reserva) : null;
     }
 
+    /**
+     * Obtiene la fecha de alta de una reserva. Dentro de la transacción que
+     * ya la ha leído, la entidad sale del contexto de persistencia sin otra
+     * consulta.
+     *
+     * @param id el identificador de la reserva.
+     * @return la fecha de alta, o {@code null} si no se encuentra.
+     */
+    @Override
+    public LocalDateTime findFechaAltaById(Long id) {
+        Reserva reserva = entityManager.find(Reserva.class, id);
+        return reserva != null ? reserva.getFechaAlta() : null;
+    }
+
+    /**
+     * Obtiene el precio guardado en una reserva. Dentro de la transacción que
+     * ya la ha leído, la entidad sale del contexto de persistencia sin otra
+     * consulta.
+     *
+     * @param id el identificador de la reserva.
+     * @return el precio en céntimos, o {@code null} si no se encuentra.
+     */
+    @Override
+    public Long findPrecioCentimosById(Long id) {
+        Reserva reserva = entityManager.find(Reserva.class, id);
+        return reserva != null ? reserva.getPrecioCentimos() : null;
+    }
+
     /**
      * Busca una reserva completa por su identificador único.
      *
@@ -142,13 +357,31 @@ public class ReservaHibernate implements ReservaRepository {
     }
 
     /**
-     * Actualiza una reserva existente en la base de datos.
+     * Actualiza una reserva existente en la base de datos. La versión de la
+     * reserva recibida debe coincidir con la guardada; si otra transacción la
+     * ha modificado entretanto, la escritura se rechaza. Si la reserva no
+     * indica versión, se actualiza sobre la versión actual.
      *
      * @param reserva Objeto {@link Reserva} con la información actualizada.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException
+     * si la reserva ha sido modificada por otra transacción.
      */
     @Override
     public void updateReserva(Reserva reserva) {
+        if (reserva.getVersion() == null || reserva.getPrecioCentimos() == null) {
+            Reserva actual = entityManager.find(Reserva.class, reserva.getIdReserva());
+            if (actual != null) {
+                if (reserva.getVersion() == null) {
+                    reserva.setVersion(actual.getVersion());
+                }
+                if (reserva.getPrecioCentimos() == null) {
+                    reserva.setPrecioCentimos(actual.getPrecioCentimos());
+                }
+            }
+        }
         entityManager.merge(reserva);
+        // El conflicto de versiones se detecta aquí, y no al confirmar la transacción
+        entityManager.flush();
     }
 
     /**
@@ -168,20 +401,11 @@ public class ReservaHibernate implements ReservaRepository {
      * Elimina todas las reservas asociadas a un cliente mediante su DNI.
      *
      * @param dni el documento nacional de identidad del cliente.
+     * @return las reservas eliminadas por servicio y fecha, con sus precios.
      */
     @Override
-    public void deleteByClienteDni(String dni) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
-
-        Predicate dniPredicate = cb.equal(root.get("cliente").get("dni"), dni);
-        cq.where(dniPredicate);
-
-        List<Reserva> reservas = entityManager.createQuery(cq).getResultList();
-        for (Reserva reserva : reservas) {
-            entityManager.remove(reserva);
-        }
+    public Map<Long, Map<LocalDate, ReservasEliminadasDTO>> deleteByClienteDni(String dni) {
+        return borrarEnLotes("r.cliente.dni", dni);
     }
 
     /**
@@ -190,20 +414,11 @@ public class ReservaHibernate implements ReservaRepository {
      *
      * @param identificadorFiscal el identificador fiscal de la empresa o
      * autónomo.
+     * @return las reservas eliminadas por servicio y fecha, con sus precios.
      */
     @Override
-    public void deleteByEmpresaIdentificadorFiscal(String identificadorFiscal) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
-
-        Predicate identificadorFiscalPredicate = cb.equal(root.get("empresa").get("identificadorFiscal"), identificadorFiscal);
-        cq.where(identificadorFiscalPredicate);
-
-        List<Reserva> reservas = entityManager.createQuery(cq).getResultList();
-        for (Reserva reserva : reservas) {
-            entityManager.remove(reserva);
-        }
+    public Map<Long, Map<LocalDate, ReservasEliminadasDTO>> deleteByEmpresaIdentificadorFiscal(String identificadorFiscal) {
+        return borrarEnLotes("r.empresa.identificadorFiscal", identificadorFiscal);
     }
 
     /**
@@ -213,17 +428,66 @@ public class ReservaHibernate implements ReservaRepository {
      */
     @Override
     public void deleteByServicioId(Long servicioId) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
-
-        Predicate servicioIdPredicate = cb.equal(root.get("servicio").get("idServicio"), servicioId);
-        cq.where(servicioIdPredicate);
+        borrarEnLotes("r.servicio.idServicio", servicioId);
+    }
 
-        List<Reserva> reservas = entityManager.createQuery(cq).getResultList();
-        for (Reserva reserva : reservas) {
-            entityManager.remove(reserva);
-        }
+    /**
+     * Elimina las reservas que cumplen el filtro en lotes de
+     * {@link #LOTE_BORRADO}: cada lote lee los identificadores en orden y los
+     * elimina con un único {@code DELETE}, de modo que el número de sentencias
+     * crece con el número de lotes y no con el de reservas, y ninguna
+     * sentencia bloquea un número de filas ilimitado.
+     * <p>
+     * Ninguna otra tabla referencia a RESERVA; las plazas del libro de
+     * capacidad y los ingresos se devuelven agrupados para que el llamante
+     * los libere y los retire del resumen de métricas. Como
+     * los {@code DELETE} masivos no pasan por el contexto de persistencia, se
+     * sincroniza antes de empezar y se vacía al terminar, para que no queden
+     * reservas eliminadas en memoria ni en las colecciones de cliente,
+     * empresa o servicio.
+     * </p>
+     *
+     * @param campo el campo por el que se filtra.
+     * @param valor el valor del filtro.
+     * @return las reservas eliminadas por servicio y fecha, con sus precios.
+     */
+    private Map<Long, Map<LocalDate, ReservasEliminadasDTO>> borrarEnLotes(String campo, Object valor) {
+        entityManager.flush();
+
+        Map<Long, Map<LocalDate, ReservasEliminadasDTO>> eliminadas = new HashMap<>();
+        String consultaLote = """
+                SELECT r.idReserva, r.servicio.idServicio, r.fechaReserva, r.precioCentimos
+                FROM Reserva r
+                WHERE %s = :valor AND r.idReserva > :ultimoId
+                ORDER BY r.idReserva
+                """.formatted(campo);
+        long ultimoId = 0L;
+        List<Object[]> lote;
+        do {
+            lote = entityManager.createQuery(consultaLote, Object[].class)
+                    .setParameter("valor", valor)
+                    .setParameter("ultimoId", ultimoId)
+                    .setMaxResults(LOTE_BORRADO)
+                    .getResultList();
+            if (lote.isEmpty()) {
+                break;
+            }
+
+            List<Long> ids = new ArrayList<>(lote.size());
+            for (Object[] fila : lote) {
+                ids.add((Long) fila[0]);
+                eliminadas.computeIfAbsent((Long) fila[1], id -> new HashMap<>())
+                        .computeIfAbsent((LocalDate) fila[2], fecha -> new ReservasEliminadasDTO())
+                        .sumar((Long) fila[3]);
+            }
+            entityManager.createQuery("DELETE FROM Reserva r WHERE r.idReserva IN :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+            ultimoId = ids.get(ids.size() - 1);
+        } while (lote.size() == LOTE_BORRADO);
+
+        entityManager.clear();
+        return eliminadas;
     }
 
     /**
@@ -233,19 +497,17 @@ public class ReservaHibernate implements ReservaRepository {
      * @return el DTO ReservaDTO.
      */
     private ReservaDTO convertToDTO(Reserva reserva) {
-        ReservaDTO dto = new ReservaDTO(
+        return new ReservaDTO(
                 reserva.getIdReserva(),
                 reserva.getFechaReserva(),
                 reserva.getHora(),
                 reserva.getEstado(),
                 reserva.getCliente().getDni(),
                 reserva.getEmpresa().getIdentificadorFiscal(),
-                reserva.getServicio().getIdServicio()
+                reserva.getServicio().getIdServicio(),
+                reserva.getServicio().getNombre(),
+                reserva.getVersion()
         );
-
-        dto.setNombreServicio(reserva.getServicio().getNombre());
-
-        return dto;
     }
 
     /**
@@ -253,7 +515,8 @@ public class ReservaHibernate implements ReservaRepository {
      * <p>
      * Este método crea una nueva entidad Reserva y la completa con la
      * información contenida en el DTO proporcionado, incluyendo las relaciones
-     * con Cliente, Empresa y Servicio.
+     * con Cliente, Empresa y Servicio. La fecha y la hora del DTO se esperan
+     * en formato ISO (yyyy-MM-dd y HH:mm).
      * </p>
      *
      * @param reservaDTO El DTO que contiene la información de la reserva.
@@ -263,9 +526,10 @@ public class ReservaHibernate implements ReservaRepository {
         Reserva reserva = new Reserva();
 
         reserva.setIdReserva(reservaDTO.getIdReserva());
-        reserva.setFechaReserva(reservaDTO.getFechaReserva());
-        reserva.setHora(reservaDTO.getHora());
+        reserva.setFechaReserva(LocalDate.parse(reservaDTO.getFechaReserva()));
+        reserva.setHora(LocalTime.parse(reservaDTO.getHora()));
         reserva.setEstado(reservaDTO.getEstado());
+        reserva.setVersion(reservaDTO.getVersion());
 
         String dniCliente = reservaDTO.getDniCliente();
         String identificadorFiscal = reservaDTO.getIdentificadorFiscalEmpresa();
@@ -288,11 +552,11 @@ public class ReservaHibernate implements ReservaRepository {
      * determinada.
      *
      * @param servicioId el identificador del servicio.
-     * @param fechaReserva la fecha de la reserva en formato String.
+     * @param fechaReserva la fecha de la reserva.
      * @return el número de reservas existentes para ese servicio en esa fecha.
      */
     @Override
-    public int countByServicioIdAndFechaReserva(Long servicioId, String fechaReserva) {
+    public int countByServicioIdAndFechaReserva(Long servicioId, LocalDate fechaReserva) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> cq = cb.createQuery(Long.class);
         Root<Reserva> root = cq.from(Reserva.class);
@@ -306,35 +570,32 @@ public class ReservaHibernate implements ReservaRepository {
     }
 
     /**
-     * Obtiene todas las reservas próximas a ocurrir dentro de un rango de
-     * tiempo específico.
-     * <p>
-     * Este método busca reservas cuya fecha y hora de inicio estén entre la
-     * fecha actual y las próximas 24 horas. Se utiliza para identificar
-     * reservas que requieren recordatorios automáticos.
-     * </p>
+     * Cuenta las reservas de un servicio agrupadas por fecha dentro de un
+     * rango, recorriendo solo el índice (ID_SERVICIO, FECHA).
      *
-     * @return una lista de objetos {@link Reserva} que representan las reservas
-     * próximas. Si no hay reservas próximas, la lista estará vacía.
+     * @param servicioId el identificador del servicio.
+     * @param inicio la primera fecha del rango (inclusive).
+     * @param fin la última fecha del rango (inclusive).
+     * @return un mapa con el número de reservas por fecha.
      */
     @Override
-    public List<Reserva> findUpcomingReservations() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime tomorrow = now.plusDays(1);
-
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Reserva> cq = cb.createQuery(Reserva.class);
-        Root<Reserva> root = cq.from(Reserva.class);
-
-        // Predicado sobre fechaAlta
-        Predicate recent = cb.between(
-                root.get("fechaAlta"),
-                cb.literal(now),
-                cb.literal(tomorrow)
-        );
+    public Map<LocalDate, Integer> contarReservasPorFecha(Long servicioId, LocalDate inicio, LocalDate fin) {
+        List<Object[]> resultados = entityManager.createQuery("""
+                    SELECT r.fechaReserva, COUNT(r) FROM Reserva r
+                    WHERE r.servicio.idServicio = :servicioId
+                      AND r.fechaReserva BETWEEN :inicio AND :fin
+                    GROUP BY r.fechaReserva
+                """, Object[].class)
+                .setParameter("servicioId", servicioId)
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
+                .getResultList();
 
-        cq.where(recent);
-        return entityManager.createQuery(cq).getResultList();
+        Map<LocalDate, Integer> reservasPorFecha = new HashMap<>();
+        for (Object[] resultado : resultados) {
+            reservasPorFecha.put((LocalDate) resultado[0], ((Number) resultado[1]).intValue());
+        }
+        return reservasPorFecha;
     }
 
     //-------------------------------------------------------------------------------------------//
@@ -352,12 +613,12 @@ public class ReservaHibernate implements ReservaRepository {
     public Integer contarClientesUnicos(Long empresaId, LocalDate inicio, LocalDate fin) {
         return entityManager.createQuery("""
                     SELECT COUNT(DISTINCT r.cliente.idPersona) FROM Reserva r
-                    WHERE r.servicio.empresa.idEmpresa = :empresaId
+                    WHERE r.empresa.idEmpresa = :empresaId
                       AND r.fechaReserva BETWEEN :inicio AND :fin
                 """, Long.class)
                 .setParameter("empresaId", empresaId)
-                .setParameter("inicio", inicio.toString())
-                .setParameter("fin", fin.toString())
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
                 .getSingleResult()
                 .intValue();
     }
@@ -375,12 +636,12 @@ public class ReservaHibernate implements ReservaRepository {
     public Long contarReservasPorEmpresaYFechas(Long empresaId, LocalDate inicio, LocalDate fin) {
         return entityManager.createQuery("""
                     SELECT COUNT(r) FROM Reserva r
-                    WHERE r.servicio.empresa.idEmpresa = :empresaId
+                    WHERE r.empresa.idEmpresa = :empresaId
                       AND r.fechaReserva BETWEEN :inicio AND :fin
                 """, Long.class)
                 .setParameter("empresaId", empresaId)
-                .setParameter("inicio", inicio.toString())
-                .setParameter("fin", fin.toString())
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
                 .getSingleResult();
     }
 
@@ -397,50 +658,21 @@ public class ReservaHibernate implements ReservaRepository {
     public Double sumarIngresosPorEmpresaYFechas(Long empresaId, LocalDate inicio, LocalDate fin) {
         return entityManager.createQuery("""
                     SELECT SUM(r.servicio.precio) FROM Reserva r
-                    WHERE r.servicio.empresa.idEmpresa = :empresaId
+                    WHERE r.empresa.idEmpresa = :empresaId
                       AND r.fechaReserva BETWEEN :inicio AND :fin
                 """, Double.class)
                 .setParameter("empresaId", empresaId)
-                .setParameter("inicio", inicio.toString())
-                .setParameter("fin", fin.toString())
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
                 .getSingleResult();
     }
 
-    //IMPORTANTE: metodo comentado para futura implementacion. Inlcuido en TEA6 como mejora de la plataforma.
-    /**
-     * Obtiene un resumen de métricas por servicio, agrupado por nombre del
-     * servicio. Incluye la cantidad de reservas y el total de ingresos por cada
-     * servicio.
-     *
-     * @param empresaId ID único de la empresa.
-     * @param inicio Fecha de inicio del período (inclusive).
-     * @param fin Fecha de fin del período (inclusive).
-     * @return Lista de {@link ServicioResumenDTO} con métricas por servicio.
-     */
-    /*
-    @Override
-    public List<ServicioResumenDTO> obtenerMetricasPorServicio(Long empresaId, LocalDate inicio, LocalDate fin) {
-        return entityManager.createQuery("""
-                    SELECT new com.sompoble.cat.dto.PanelMetricasDTO$ServicioResumenDTO(
-                        r.servicio.nombre, COUNT(r), SUM(r.servicio.precio))
-                    FROM Reserva r
-                    WHERE r.servicio.empresa.idEmpresa = :empresaId
-                      AND r.fechaReserva BETWEEN :inicio AND :fin
-                    GROUP BY r.servicio.nombre
-                """, ServicioResumenDTO.class)
-                .setParameter("empresaId", empresaId)
-                .setParameter("inicio", inicio.toString())
-                .setParameter("fin", fin.toString())
-                .getResultList();
-    }
-     */
     /**
      * Obtiene métricas agregadas por mes (nombre del mes), incluyendo número
      * total de reservas y suma de ingresos por mes para una empresa.
      *
-     * Nota: El campo {@code fechaReserva} debe estar en formato ISO
-     * (yyyy-MM-dd) para que la función {@code to_char} lo procese
-     * correctamente.
+     * Nota: el filtro se aplica directamente sobre la columna {@code DATE}, de
+     * modo que el rango se resuelve con el índice (ID_EMPRESA, FECHA).
      *
      * @param empresaId ID único de la empresa.
      * @param inicio Fecha de inicio del período (inclusive).
@@ -451,19 +683,19 @@ public class ReservaHibernate implements ReservaRepository {
     public List<MetricasMensualesDTO> obtenerMetricasMensuales(Long empresaId, LocalDate inicio, LocalDate fin) {
         List<Object[]> resultados = entityManager.createQuery("""
             SELECT
-                FUNCTION('DATE_FORMAT', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'), '%M'),
+                FUNCTION('DATE_FORMAT', r.fechaReserva, '%M'),
                 COUNT(r),
                 SUM(r.servicio.precio)
             FROM Reserva r
-            WHERE r.servicio.empresa.idEmpresa = :empresaId
+            WHERE r.empresa.idEmpresa = :empresaId
               AND r.fechaReserva BETWEEN :inicio AND :fin
-            GROUP BY FUNCTION('DATE_FORMAT', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'), '%M'), 
-                     FUNCTION('MONTH', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'))
-            ORDER BY FUNCTION('MONTH', FUNCTION('STR_TO_DATE', r.fechaReserva, '%Y-%m-%d'))
+            GROUP BY FUNCTION('DATE_FORMAT', r.fechaReserva, '%M'), 
+                     FUNCTION('MONTH', r.fechaReserva)
+            ORDER BY FUNCTION('MONTH', r.fechaReserva)
         """, Object[].class)
                 .setParameter("empresaId", empresaId)
-                .setParameter("inicio", inicio.toString())
-                .setParameter("fin", fin.toString())
+                .setParameter("inicio", inicio)
+                .setParameter("fin", fin)
                 .getResultList();
 
         List<MetricasMensualesDTO> dtos = new ArrayList<>();
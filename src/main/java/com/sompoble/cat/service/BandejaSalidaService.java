@@ -0,0 +1,97 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.MensajeFallido;
+import com.sompoble.cat.domain.Notificacion;
+import java.util.List;
+
+/**
+ * Servicio de la bandeja de salida de correos y notificaciones.
+ * <p>
+ * Los mensajes se encolan dentro de la transacción de la operación que los
+ * origina, de modo que solo se envían si esta se confirma, y se entregan en
+ * segundo plano con reintentos. El hilo de la petición nunca contacta con el
+ * servidor SMTP.
+ * </p>
+ * <p>
+ * Las entregas respetan un límite de envíos para la cuenta y otro por dominio
+ * del destinatario; los mensajes que superan el límite se aplazan sin contar
+ * como intento. Los que no se pueden entregar pasan a la tabla de mensajes
+ * fallidos, desde donde pueden reenviarse.
+ * </p>
+ */
+public interface BandejaSalidaService {
+
+    /**
+     * Encola un correo para el cliente y la notificación asociada. Si existe
+     * una transacción activa, el mensaje se guarda dentro de ella.
+     *
+     * @param cliente el cliente destinatario.
+     * @param asunto el asunto del correo.
+     * @param cuerpo el cuerpo del correo.
+     * @param textoNotificacion el texto de la notificación a registrar.
+     * @param tipo el tipo de la notificación.
+     */
+    void encolar(Cliente cliente, String asunto, String cuerpo,
+            String textoNotificacion, Notificacion.TipoNotificacion tipo);
+
+    /**
+     * Busca los mensajes pendientes cuyo próximo intento ha vencido y los
+     * reparte por lotes entre los hilos del despachador.
+     */
+    void despacharPendientes();
+
+    /**
+     * Entrega un mensaje concreto: registra la notificación si aún no se ha
+     * hecho y envía el correo. Si el envío falla, el mensaje se reprograma
+     * con espera exponencial hasta agotar los intentos.
+     *
+     * @param idMensaje el identificador del mensaje.
+     */
+    void entregar(Long idMensaje);
+
+    /**
+     * Entrega un lote de mensajes enviando sus correos por la misma conexión
+     * SMTP. Cada mensaje se reclama, se marca y, si falla, se reprograma por
+     * separado, como en {@link #entregar(Long)}.
+     *
+     * @param idsMensajes los identificadores de los mensajes.
+     */
+    void entregarLote(List<Long> idsMensajes);
+
+    /**
+     * Elimina los mensajes enviados hace más de los días de retención, para
+     * que la bandeja de salida no crezca sin límite.
+     */
+    void purgarEnviados();
+
+    /**
+     * Lista los mensajes que no se han podido entregar.
+     *
+     * @param despuesDe el último identificador de la página anterior, o
+     * {@code null} para empezar por el primero.
+     * @param limite el número máximo de mensajes.
+     * @return los mensajes fallidos, ordenados por identificador.
+     */
+    List<MensajeFallido> listarFallidos(Long despuesDe, int limite);
+
+    /**
+     * Vuelve a encolar un mensaje fallido para entregarlo de nuevo.
+     *
+     * @param idFallido el identificador del mensaje fallido.
+     * @throws com.sompoble.cat.exception.ResourceNotFoundException si el
+     * mensaje no existe.
+     */
+    void reenviarFallido(Long idFallido);
+
+    /**
+     * Vuelve a encolar todos los mensajes fallidos, o los de un dominio. Se
+     * entregan respetando los límites de envío, por lo que reenviar muchos
+     * mensajes a la vez no satura el servidor de correo.
+     *
+     * @param dominio el dominio de los destinatarios, o {@code null} para
+     * reenviar todos.
+     * @return el número de mensajes encolados.
+     */
+    int reenviarFallidos(String dominio);
+}
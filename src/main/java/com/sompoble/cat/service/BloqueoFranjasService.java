@@ -0,0 +1,24 @@
+package com.sompoble.cat.service;
+
+import java.time.LocalDate;
+
+/**
+ * Servicio que serializa, dentro de esta instancia, las modificaciones que
+ * afectan a la capacidad de un mismo servicio y fecha.
+ */
+public interface BloqueoFranjasService {
+
+    /**
+     * Bloquea las franjas de origen y destino de un cambio de reserva hasta
+     * que termine la transacción actual. Ambas franjas pueden coincidir.
+     *
+     * @param idServicioOrigen el servicio original de la reserva.
+     * @param fechaOrigen la fecha original de la reserva.
+     * @param idServicioDestino el nuevo servicio de la reserva.
+     * @param fechaDestino la nueva fecha de la reserva.
+     * @throws com.sompoble.cat.exception.ConflictoException si alguna franja
+     * sigue bloqueada por otra petición transcurrido el tiempo de espera.
+     * @throws IllegalStateException si no hay una transacción activa.
+     */
+    void bloquear(Long idServicioOrigen, LocalDate fechaOrigen, Long idServicioDestino, LocalDate fechaDestino);
+}
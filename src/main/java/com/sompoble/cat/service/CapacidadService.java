@@ -0,0 +1,57 @@
+package com.sompoble.cat.service;
+
+import java.time.LocalDate;
+
+/**
+ * Servicio que gestiona el libro de capacidad de los servicios.
+ * <p>
+ * Mantiene, para cada par (servicio, fecha), el número de plazas ocupadas y
+ * resuelve la admisión de reservas como una única operación atómica frente al
+ * límite de reservas del servicio.
+ * </p>
+ */
+public interface CapacidadService {
+
+    /**
+     * Intenta ocupar una plaza del servicio en la fecha indicada.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     * @param limite el límite de reservas del servicio.
+     * @return {@code true} si se ha ocupado la plaza, {@code false} si ya se
+     * había alcanzado el límite.
+     */
+    boolean ocuparPlaza(Long idServicio, LocalDate fecha, int limite);
+
+    /**
+     * Libera plazas del servicio en la fecha indicada.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas liberadas.
+     * @param cantidad el número de plazas a liberar.
+     */
+    void liberarPlazas(Long idServicio, LocalDate fecha, int cantidad);
+
+    /**
+     * Traslada una plaza ocupada de un par (servicio, fecha) a otro. Si el
+     * destino está completo no se modifica el origen.
+     *
+     * @param idServicioOrigen el servicio original de la reserva.
+     * @param fechaOrigen la fecha original de la reserva.
+     * @param idServicioDestino el nuevo servicio de la reserva.
+     * @param fechaDestino la nueva fecha de la reserva.
+     * @param limiteDestino el límite de reservas del servicio destino.
+     * @return {@code true} si la plaza se ha trasladado, {@code false} si el
+     * destino estaba completo.
+     */
+    boolean moverPlaza(Long idServicioOrigen, LocalDate fechaOrigen,
+            Long idServicioDestino, LocalDate fechaDestino, int limiteDestino);
+
+    /**
+     * Elimina los contadores de un servicio, por ejemplo cuando se anulan
+     * todas sus reservas.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void eliminarContadoresServicio(Long idServicio);
+}
@@ -0,0 +1,40 @@
+package com.sompoble.cat.service;
+
+import java.time.LocalDate;
+
+/**
+ * Servicio que estima los clientes distintos con reserva en una empresa a
+ * partir de estimadores HyperLogLog diarios.
+ */
+public interface ClientesUnicosService {
+
+    /**
+     * Añade un cliente al estimador de una empresa y fecha. Se invoca dentro
+     * de la transacción que guarda la reserva.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param fecha la fecha de la reserva.
+     * @param idCliente el identificador del cliente.
+     */
+    void registrar(Long idEmpresa, LocalDate fecha, Long idCliente);
+
+    /**
+     * Estima los clientes distintos de una empresa en un período uniendo los
+     * estimadores de sus días.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return la estimación, con un error típico de en torno al 2 %.
+     */
+    int estimar(Long idEmpresa, LocalDate inicio, LocalDate fin);
+
+    /**
+     * Vuelve a calcular los estimadores de un período a partir de las
+     * reservas, lo que retira a los clientes cuyas reservas se han eliminado.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    void reconstruir(LocalDate inicio, LocalDate fin);
+}
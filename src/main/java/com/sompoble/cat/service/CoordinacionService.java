@@ -0,0 +1,49 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.util.Particion;
+
+/**
+ * Servicio que coordina las tareas programadas cuando la aplicación se
+ * ejecuta en varias instancias sobre la misma base de datos.
+ * <p>
+ * Ofrece dos mecanismos. Un arrendamiento con nombre permite que una tarea
+ * se ejecute en una sola instancia: la que lo obtiene lo conserva mientras
+ * siga renovándolo y, si se detiene, otra lo toma al vencer. Y cada
+ * instancia registra periódicamente un latido, a partir del cual se calcula
+ * la parte del trabajo que le corresponde entre las instancias activas.
+ * </p>
+ */
+public interface CoordinacionService {
+
+    /**
+     * Devuelve el identificador de esta instancia.
+     *
+     * @return el identificador.
+     */
+    String getIdNodo();
+
+    /**
+     * Toma o renueva el arrendamiento de una tarea. Si la base de datos no
+     * responde, se considera que no se ha obtenido.
+     *
+     * @param tarea el nombre de la tarea.
+     * @param duracionMs el tiempo durante el cual ninguna otra instancia
+     * puede tomarlo.
+     * @return {@code true} si esta instancia debe ejecutar la tarea.
+     */
+    boolean adquirir(String tarea, long duracionMs);
+
+    /**
+     * Devuelve la parte del trabajo de esta instancia según el último
+     * latido.
+     *
+     * @return la partición.
+     */
+    Particion getParticion();
+
+    /**
+     * Registra el latido de esta instancia y recalcula su partición a
+     * partir de las instancias activas.
+     */
+    void latido();
+}
@@ -0,0 +1,47 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.dto.DisponibilidadDTO;
+import java.time.LocalDate;
+
+/**
+ * Servicio que calcula el calendario de disponibilidad de los servicios.
+ * <p>
+ * El calendario se mantiene en caché por servicio y por día, y se invalida de
+ * forma selectiva cuando cambian las reservas o la configuración del
+ * servicio.
+ * </p>
+ */
+public interface DisponibilidadService {
+
+    /**
+     * Obtiene, para cada día del rango, las horas de inicio reservables y las
+     * plazas libres del servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param desde la primera fecha del rango (inclusive).
+     * @param hasta la última fecha del rango (inclusive).
+     * @return el calendario de disponibilidad.
+     * @throws com.sompoble.cat.exception.ResourceNotFoundException si el
+     * servicio no existe.
+     * @throws com.sompoble.cat.exception.BadRequestException si el rango no es
+     * válido.
+     */
+    DisponibilidadDTO obtenerDisponibilidad(Long idServicio, LocalDate desde, LocalDate hasta);
+
+    /**
+     * Invalida la disponibilidad en caché de un servicio en una fecha, tras
+     * crear, modificar o eliminar una reserva.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha afectada.
+     */
+    void invalidar(Long idServicio, LocalDate fecha);
+
+    /**
+     * Invalida toda la disponibilidad en caché de un servicio, tras modificar
+     * su horario, duración o límite de reservas, o al anularlo.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void invalidarServicio(Long idServicio);
+}
@@ -3,6 +3,8 @@ package com.sompoble.cat.service;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.dto.EmailDTO;
 import jakarta.mail.MessagingException;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interfaz que define los servicios relacionados con el envío de correos
@@ -53,8 +55,18 @@ public interface EmailService {
     void sendMail(EmailDTO email) throws MessagingException;
 
     /**
-     * Envía recordatorios automáticos por correo electrónico según la
-     * programación definida.
+     * Envía varios correos en un solo lote, por la misma conexión SMTP. Un
+     * correo que falla no impide el envío de los demás.
+     *
+     * @param emails los correos a enviar.
+     * @return los errores de los correos que no se han podido enviar, por su
+     * posición en la lista; vacío si se han enviado todos.
+     */
+    Map<Integer, Exception> sendMails(List<EmailDTO> emails);
+
+    /**
+     * Encola en la bandeja de salida recordatorios automáticos por correo
+     * electrónico según la programación definida.
      * <p>
      * Este método es invocado por el planificador de tareas para enviar
      * recordatorios a los usuarios según las reglas de negocio establecidas.
@@ -0,0 +1,57 @@
+package com.sompoble.cat.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Servicio que exporta las reservas y las métricas diarias de una empresa
+ * escribiéndolas directamente en un flujo de salida, sin cargarlas en
+ * memoria a la vez.
+ */
+public interface ExportacionService {
+
+    /**
+     * Formatos de exportación admitidos.
+     */
+    enum Formato {
+        /**
+         * Valores separados por comas, con una fila de cabecera.
+         */
+        CSV,
+        /**
+         * Un objeto JSON por línea.
+         */
+        NDJSON
+    }
+
+    /**
+     * Escribe las reservas de una empresa en un rango de fechas, en orden de
+     * fecha, hora e identificador.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param formato el formato de salida.
+     * @param salida el flujo en el que se escriben las reservas; no se
+     * cierra.
+     * @throws IOException si no se puede escribir en el flujo.
+     */
+    void exportarReservas(String identificadorFiscal, LocalDate desde, LocalDate hasta, Formato formato,
+            OutputStream salida) throws IOException;
+
+    /**
+     * Escribe las reservas e ingresos de cada servicio y día de una empresa
+     * en un rango de fechas, a partir del resumen diario.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param formato el formato de salida.
+     * @param salida el flujo en el que se escriben las métricas; no se
+     * cierra.
+     * @throws IOException si no se puede escribir en el flujo.
+     */
+    void exportarMetricas(Long idEmpresa, LocalDate desde, LocalDate hasta, Formato formato,
+            OutputStream salida) throws IOException;
+}
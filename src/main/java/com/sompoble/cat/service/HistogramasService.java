@@ -0,0 +1,60 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.dto.HistogramasServicioDTO;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Servicio que mantiene los histogramas diarios de las reservas de cada
+ * servicio, por hora del día y por antelación, y los combina en rangos de
+ * fechas junto con la ocupación de cada día respecto al límite de reservas.
+ */
+public interface HistogramasService {
+
+    /**
+     * Añade o retira reservas del histograma de un servicio y fecha. Se
+     * invoca dentro de la transacción que guarda o elimina la reserva.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha reservada.
+     * @param hora la hora reservada.
+     * @param fechaAlta el momento en que se hizo la reserva, o {@code null}
+     * si se acaba de hacer.
+     * @param cantidad el número de reservas que se añaden o, si es negativo,
+     * que se retiran.
+     */
+    void registrar(Long idServicio, LocalDate fecha, LocalTime hora, LocalDateTime fechaAlta, int cantidad);
+
+    /**
+     * Obtiene los histogramas de un servicio en un período sumando los de sus
+     * días. Si no se proporciona un rango de fechas, se considera por defecto
+     * los últimos 6 meses.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param inicio la fecha de inicio del período (opcional).
+     * @param fin la fecha de fin del período (opcional).
+     * @return los histogramas del período, en total y por día de la semana.
+     * @throws com.sompoble.cat.exception.ResourceNotFoundException si el
+     * servicio no existe.
+     * @throws com.sompoble.cat.exception.BadRequestException si el rango de
+     * fechas no es válido.
+     */
+    HistogramasServicioDTO obtener(Long idServicio, LocalDate inicio, LocalDate fin);
+
+    /**
+     * Vuelve a calcular los histogramas de un período a partir de las
+     * reservas, lo que recoge las reservas eliminadas en bloque.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    void reconstruir(LocalDate inicio, LocalDate fin);
+
+    /**
+     * Elimina los histogramas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void eliminarServicio(Long idServicio);
+}
@@ -0,0 +1,50 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+
+/**
+ * Servicio que registra las peticiones enviadas con la cabecera
+ * {@code Idempotency-Key} y sus respuestas.
+ * <p>
+ * La primera petición con una clave la reserva y, al terminar, guarda su
+ * respuesta; los reintentos con la misma clave reciben esa respuesta sin
+ * volver a procesarse.
+ * </p>
+ */
+public interface IdempotenciaService {
+
+    /**
+     * Intenta reservar una clave para procesar la petición.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @return {@code null} si la clave se ha reservado para esta petición; en
+     * caso contrario, la petición previa con la misma clave, que puede estar
+     * en curso o completada.
+     */
+    PeticionIdempotente iniciar(String clave, String huella);
+
+    /**
+     * Guarda la respuesta de una petición reservada.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @param codigoEstado el código de estado HTTP de la respuesta.
+     * @param tipoContenido el tipo de contenido de la respuesta.
+     * @param cuerpo el cuerpo de la respuesta.
+     */
+    void completar(String clave, String huella, int codigoEstado, String tipoContenido, byte[] cuerpo);
+
+    /**
+     * Libera una clave reservada sin guardar respuesta, para que un reintento
+     * pueda volver a procesar la petición.
+     *
+     * @param clave la clave de idempotencia.
+     */
+    void liberar(String clave);
+
+    /**
+     * Elimina las claves caducadas de la memoria y de la base de datos.
+     */
+    void purgarCaducadas();
+}
@@ -0,0 +1,94 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Servicio que gestiona las listas de espera de los servicios con la fecha
+ * completa. Cuando se libera una plaza, el primer cliente en espera obtiene
+ * la reserva automáticamente y recibe el aviso por correo y notificación.
+ */
+public interface ListaEsperaService {
+
+    /**
+     * Apunta a un cliente en la lista de espera de un servicio y fecha.
+     *
+     * @param cliente el cliente.
+     * @param servicio el servicio solicitado.
+     * @param fecha la fecha solicitada.
+     * @param hora la hora solicitada.
+     * @return la entrada creada con su posición.
+     * @throws com.sompoble.cat.exception.BadRequestException si la fecha ya ha
+     * pasado o el cliente ya está en espera para ese servicio y fecha.
+     */
+    EntradaListaEsperaDTO apuntar(Cliente cliente, Servicio servicio, LocalDate fecha, LocalTime hora);
+
+    /**
+     * Obtiene las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     * @return las entradas en espera con su posición.
+     */
+    List<EntradaListaEsperaDTO> findEnEsperaByClienteDni(String dni);
+
+    /**
+     * Cancela una entrada en espera.
+     *
+     * @param idEntrada el identificador de la entrada.
+     * @throws com.sompoble.cat.exception.ResourceNotFoundException si la
+     * entrada no existe o ya no está en espera.
+     */
+    void cancelar(Long idEntrada);
+
+    /**
+     * Cancela todas las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     */
+    void cancelarByClienteDni(String dni);
+
+    /**
+     * Avisa de que se han liberado plazas de un servicio en una fecha. La
+     * promoción se realiza en segundo plano tras confirmar la transacción
+     * actual, para no alargar la petición que ha liberado la plaza.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     */
+    void plazaLiberada(Long idServicio, LocalDate fecha);
+
+    /**
+     * Convierte en reservas las primeras entradas en espera de un servicio y
+     * fecha mientras queden plazas libres.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return el número de entradas promovidas.
+     */
+    int promover(Long idServicio, LocalDate fecha);
+
+    /**
+     * Caduca las entradas de fechas pasadas y promueve las listas de espera
+     * que tengan plazas libres. Recupera las promociones que no llegaron a
+     * ejecutarse, por ejemplo si el proceso se detuvo tras liberar la plaza.
+     */
+    void promoverPendientes();
+
+    /**
+     * Elimina las entradas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void eliminarPorServicio(Long idServicio);
+
+    /**
+     * Elimina las entradas de los servicios de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     */
+    void eliminarPorEmpresa(String identificadorFiscal);
+}
@@ -0,0 +1,32 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.dto.PanelPlataformaDTO;
+import java.time.LocalDate;
+
+/**
+ * Interfaz que define el cálculo de las métricas de toda la plataforma, con
+ * los totales de todas las empresas y sus clasificaciones por ingresos y por
+ * reservas.
+ * <p>
+ * A diferencia de {@link MetricasService}, que calcula el panel de una
+ * empresa, estas métricas se obtienen agrupando el resumen diario por empresa
+ * en una sola pasada, sin una consulta por empresa.
+ * </p>
+ */
+public interface MetricasPlataformaService {
+
+    /**
+     * Obtiene los totales de la plataforma y las empresas con más ingresos y
+     * con más reservas entre dos fechas. Si no se proporciona un rango de
+     * fechas, se considera por defecto los últimos 6 meses.
+     *
+     * @param fechaInicio Fecha de inicio del rango (opcional).
+     * @param fechaFin Fecha de fin del rango (opcional).
+     * @param top Número de empresas de cada clasificación (opcional).
+     * @return Un DTO {@link PanelPlataformaDTO} con los totales y las
+     * clasificaciones.
+     * @throws com.sompoble.cat.exception.BadRequestException si el rango de
+     * fechas o el número de empresas no son válidos.
+     */
+    PanelPlataformaDTO obtenerMetricasPlataforma(LocalDate fechaInicio, LocalDate fechaFin, Integer top);
+}
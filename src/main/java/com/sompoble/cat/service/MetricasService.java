@@ -1,5 +1,6 @@
 package com.sompoble.cat.service;
 
+import com.sompoble.cat.dto.EstadisticasCacheDTO;
 import com.sompoble.cat.dto.PanelMetricasDTO;
 import java.time.LocalDate;
 
@@ -12,6 +13,10 @@ import java.time.LocalDate;
  * determinado, incluyendo datos sobre reservas, ingresos y comportamiento de
  * clientes.
  * </p>
+ * <p>
+ * Los paneles se mantienen en caché por empresa y rango de fechas, y se
+ * invalidan cuando cambian las reservas, los servicios o la empresa.
+ * </p>
  */
 public interface MetricasService {
 
@@ -31,4 +36,44 @@ public interface MetricasService {
      * métricas.
      */
     PanelMetricasDTO obtenerMetricas(String identificadorFiscal, LocalDate fechaInicio, LocalDate fechaFin);
+
+    /**
+     * Invalida los paneles en caché de la empresa del servicio cuyo rango
+     * incluye la fecha, tras crear, modificar o eliminar una reserva.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     */
+    void invalidar(Long idServicio, LocalDate fecha);
+
+    /**
+     * Invalida todos los paneles en caché de la empresa del servicio, tras
+     * cambiar su nombre o al eliminarlo. Un cambio de precio no los altera,
+     * ya que cada reserva guarda su precio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    void invalidarServicio(Long idServicio);
+
+    /**
+     * Invalida la empresa y todos sus paneles en caché, tras modificarla o
+     * eliminarla.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     */
+    void invalidarEmpresa(Long idEmpresa);
+
+    /**
+     * Obtiene los contadores de aciertos, fallos y desalojos de cada nivel de
+     * la caché.
+     *
+     * @return las estadísticas de la caché.
+     */
+    EstadisticasCacheDTO estadisticasCache();
+
+    /**
+     * Vuelve a calcular el resumen diario de reservas e ingresos a partir de
+     * las reservas registradas.
+     */
+    void reconciliar();
 }
@@ -0,0 +1,56 @@
+package com.sompoble.cat.service;
+
+import com.sompoble.cat.domain.Notificacion;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Servicio que envía a los clientes conectados sus notificaciones en el
+ * momento en que se guardan, mediante Server-Sent Events.
+ * <p>
+ * Cada evento lleva como identificador el de la notificación. Si la conexión
+ * se corta, el navegador reconecta enviando la cabecera {@code Last-Event-ID}
+ * y el servicio reenvía desde la base de datos las notificaciones posteriores,
+ * de modo que no se pierde ninguna.
+ * </p>
+ */
+public interface NotificacionesEnVivoService {
+
+    /**
+     * Suscribe una conexión a las notificaciones de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     * @param ultimoId el identificador de la última notificación recibida, o
+     * {@code null} si la conexión es nueva.
+     * @return el emisor de la conexión.
+     */
+    SseEmitter suscribir(String dni, Long ultimoId);
+
+    /**
+     * Envía una notificación recién guardada a las conexiones de su cliente.
+     * Si hay una transacción activa, el envío se hace al confirmarla. Las
+     * notificaciones de empresarios se ignoran.
+     *
+     * @param notificacion la notificación guardada.
+     */
+    void publicar(Notificacion notificacion);
+
+    /**
+     * Envía un comentario vacío a todas las conexiones para que los
+     * intermediarios no las cierren por inactividad y para detectar las que
+     * ya se han cortado.
+     */
+    void enviarLatidos();
+
+    /**
+     * Envía a las conexiones de esta instancia las notificaciones guardadas
+     * recientemente en otras instancias.
+     */
+    void sincronizar();
+
+    /**
+     * Devuelve el número de conexiones abiertas en esta instancia.
+     *
+     * @return el número de conexiones.
+     */
+    int getSuscripciones();
+}
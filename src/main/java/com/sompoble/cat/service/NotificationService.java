@@ -1,5 +1,6 @@
 package com.sompoble.cat.service;
 
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
 import com.sompoble.cat.domain.Notificacion;
 
 import java.util.List;
@@ -40,14 +41,26 @@ public interface NotificationService {
     void deleteNotificationById(Long id);
 
     /**
-     * Establece la configuración de notificaciones.
+     * Establece la configuración de notificaciones y la guarda en la base de
+     * datos, de modo que la vean todas las instancias. Con la configuración
+     * activada y una frecuencia horaria o diaria, los correos informativos
+     * se agrupan en un resumen por destinatario.
      *
-     * @param enabled si las notificaciones están habilitadas
-     * @param frequency frecuencia de envío (e.g., "daily")
+     * @param enabled si el envío agrupado está habilitado
+     * @param frequency frecuencia de envío (e.g., "daily", "hourly")
      * @param sendTime hora de envío (e.g., "08:00")
+     * @throws com.sompoble.cat.exception.BadRequestException si la frecuencia
+     * o la hora no son válidas
      */
     void setConfig(Boolean enabled, String frequency, String sendTime);
 
+    /**
+     * Obtiene la configuración de notificaciones vigente.
+     *
+     * @return la configuración; si nunca se ha guardado, una sin activar
+     */
+    ConfiguracionNotificaciones getConfiguracion();
+
     /**
      * Comprueba si las notificaciones están habilitadas.
      *
@@ -1,34 +1,45 @@
 package com.sompoble.cat.service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 /**
  * Interfaz que define los servicios para la gestión de recordatorios
  * automáticos.
  * <p>
- * Esta interfaz proporciona métodos para procesar y enviar recordatorios
- * programados relacionados con las reservas y otros eventos del sistema,
- * ayudando a mejorar la comunicación con los clientes y reducir las
- * inasistencias.
+ * Los recordatorios se programan a partir de la fecha y hora de cada cita,
+ * con una o varias antelaciones configurables (por ejemplo, 24 horas y 2
+ * horas antes), ayudando a mejorar la comunicación con los clientes y reducir
+ * las inasistencias. Cada recordatorio se envía una sola vez.
  * </p>
  */
 public interface ReminderService {
 
     /**
-     * Envía recordatorios automáticos para reservas próximas. Este método se
-     * ejecuta de forma programada (ej.: diariamente a las 8:00 AM).
+     * Procesa los recordatorios pendientes en el sistema.
      * <p>
-     * Identifica las reservas que cumplen con los criterios para envío de
-     * recordatorios y genera las notificaciones correspondientes.
+     * Carga las citas de las ventanas de tiempo que aún no se han cargado y
+     * encola por lotes los recordatorios cuyo momento de envío ha llegado.
+     * Se ejecuta periódicamente, y puede invocarse a mano para adelantar el
+     * siguiente ciclo.
      * </p>
      */
-    void sendDailyReminders();
+    void processReminders();
 
     /**
-     * Procesa todos los recordatorios pendientes en el sistema.
-     * <p>
-     * Este método realiza la lógica de negocio para identificar qué
-     * recordatorios deben enviarse, a quién deben enviarse y con qué contenido,
-     * basándose en las reglas configuradas en el sistema.
-     * </p>
+     * Programa los recordatorios de una reserva creada o trasladada. Si existe
+     * una transacción activa, se programan cuando se confirma.
+     *
+     * @param idReserva el identificador de la reserva.
+     * @param fecha la fecha de la cita.
+     * @param hora la hora de la cita.
+     * @param fechaAlta el momento en que se hizo la reserva, o {@code null}.
      */
-    void processReminders();
+    void programarReserva(Long idReserva, LocalDate fecha, LocalTime hora, LocalDateTime fechaAlta);
+
+    /**
+     * Elimina el registro de los recordatorios de citas pasadas.
+     */
+    void purgarRecordatorios();
 }
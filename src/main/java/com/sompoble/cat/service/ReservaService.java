@@ -1,8 +1,11 @@
 package com.sompoble.cat.service;
 
+import com.sompoble.cat.dto.PaginaReservasDTO;
 import com.sompoble.cat.dto.ReservaDTO;
 import com.sompoble.cat.domain.Reserva;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Servicio para gestionar las reservas.
@@ -32,6 +35,56 @@ public interface ReservaService {
      */
     List<ReservaDTO> findByEmpresaIdentificadorFiscal(String identificadorFiscal);
 
+    /**
+     * Obtiene una página de las reservas de un cliente, ordenadas por fecha,
+     * hora e identificador.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param cursor el cursor devuelto con la página anterior, o {@code null}
+     * para la primera página.
+     * @param limite el número máximo de reservas de la página, o {@code null}
+     * para usar el valor por defecto.
+     * @return la página de reservas y el cursor de la siguiente.
+     * @throws com.sompoble.cat.exception.BadRequestException si el cursor o el
+     * límite no son válidos.
+     */
+    PaginaReservasDTO findPaginaByClienteDni(String dni, String cursor, Integer limite);
+
+    /**
+     * Obtiene una página de las reservas de una empresa o autónomo, ordenadas
+     * por fecha, hora e identificador.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa o
+     * autónomo.
+     * @param cursor el cursor devuelto con la página anterior, o {@code null}
+     * para la primera página.
+     * @param limite el número máximo de reservas de la página, o {@code null}
+     * para usar el valor por defecto.
+     * @return la página de reservas y el cursor de la siguiente.
+     * @throws com.sompoble.cat.exception.BadRequestException si el cursor o el
+     * límite no son válidos.
+     */
+    PaginaReservasDTO findPaginaByEmpresaIdentificadorFiscal(String identificadorFiscal, String cursor, Integer limite);
+
+    /**
+     * Recorre todas las reservas de un cliente sin cargarlas en memoria a la
+     * vez.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    void recorrerByClienteDni(String dni, Consumer<ReservaDTO> consumidor);
+
+    /**
+     * Recorre todas las reservas de una empresa o autónomo sin cargarlas en
+     * memoria a la vez.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa o
+     * autónomo.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    void recorrerByEmpresaIdentificadorFiscal(String identificadorFiscal, Consumer<ReservaDTO> consumidor);
+
     /**
      * Busca una reserva por su identificador único.
      *
@@ -50,28 +103,36 @@ public interface ReservaService {
     Reserva findByIdFull(Long id);
 
     /**
-     * Guarda una nueva reserva. Si la reserva ya existe, la actualiza.
+     * Guarda una nueva reserva ocupando una plaza del servicio en la fecha de
+     * la reserva y encola el correo de confirmación para el cliente.
      *
      * @param reserva la reserva a guardar.
+     * @throws com.sompoble.cat.exception.BadRequestException si se ha
+     * alcanzado el límite de reservas del servicio en esa fecha.
      */
     void addReserva(Reserva reserva);
 
     /**
-     * Actualiza una reserva existente.
+     * Actualiza una reserva existente, trasladando su plaza si cambia el
+     * servicio o la fecha, y encola el aviso de actualización al cliente.
      *
      * @param reserva la reserva con la información actualizada.
+     * @throws com.sompoble.cat.exception.BadRequestException si el nuevo
+     * servicio o fecha ya han alcanzado el límite de reservas.
      */
     void updateReserva(Reserva reserva);
 
     /**
-     * Elimina una reserva mediante su identificador.
+     * Elimina una reserva mediante su identificador y encola el aviso de
+     * cancelación al cliente.
      *
      * @param id el identificador de la reserva a eliminar.
      */
     void deleteById(Long id);
 
     /**
-     * Elimina todas las reservas asociadas a un cliente mediante su DNI.
+     * Elimina todas las reservas asociadas a un cliente mediante su DNI y
+     * encola el aviso de cancelación al cliente.
      *
      * @param dni el documento nacional de identidad del cliente.
      */
@@ -91,10 +152,10 @@ public interface ReservaService {
      * determinada.
      *
      * @param servicioId el identificador del servicio.
-     * @param fechaReserva la fecha de la reserva en formato String.
+     * @param fechaReserva la fecha de la reserva.
      * @return el número de reservas existentes para ese servicio en esa fecha.
      */
-    int countReservasByServicioIdAndFecha(Long servicioId, String fechaReserva);
+    int countReservasByServicioIdAndFecha(Long servicioId, LocalDate fechaReserva);
 
     /**
      * Elimina todas las reservas asociadas a un servicio mediante su ID.
@@ -0,0 +1,20 @@
+package com.sompoble.cat.service;
+
+/**
+ * Servicio de los resúmenes periódicos de notificaciones.
+ * <p>
+ * Cuando la configuración de notificaciones tiene una frecuencia horaria o
+ * diaria, la bandeja de salida aparta los correos informativos en lugar de
+ * enviarlos. Este servicio los agrupa por destinatario y encola un único
+ * correo con todos ellos en cada ventana, a la hora configurada.
+ * </p>
+ */
+public interface ResumenNotificacionesService {
+
+    /**
+     * Encola el resumen de cada destinatario con correos apartados antes del
+     * cierre de la última ventana. Si la frecuencia ha vuelto a ser
+     * inmediata, encola en el momento los correos que quedaban apartados.
+     */
+    void enviarResumenes();
+}
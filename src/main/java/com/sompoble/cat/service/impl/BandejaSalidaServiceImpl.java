@@ -0,0 +1,808 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.ConfiguracionNotificaciones.Frecuencia;
+import com.sompoble.cat.domain.MensajeFallido;
+import com.sompoble.cat.domain.MensajeSalida;
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ClienteRepository;
+import com.sompoble.cat.repository.MensajeFallidoRepository;
+import com.sompoble.cat.repository.MensajeSalidaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.EmailService;
+import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.util.CuboFichas;
+import jakarta.mail.internet.AddressException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementación de {@link BandejaSalidaService}.
+ * <p>
+ * Cada paso de la entrega (reclamar el mensaje, registrar la notificación y
+ * marcar el resultado) se confirma por separado, de modo que un fallo del
+ * servidor de correo no afecta a la reserva ya confirmada. La notificación se
+ * guarda en la misma transacción que su marca en el mensaje, por lo que un
+ * reintento nunca la duplica. El resultado de la entrega solo se guarda si el
+ * mensaje sigue reclamado por ella: si el reclamo caducó y otra instancia lo
+ * ha vuelto a reclamar, se registra en el log y no se sobrescribe su estado.
+ * </p>
+ * <p>
+ * Antes de enviar cada correo se toma una ficha del cubo de la cuenta y otra
+ * del cubo del dominio del destinatario; si alguno está vacío, el mensaje se
+ * aplaza hasta que haya fichas. Los errores del servidor se clasifican: los
+ * rechazos definitivos (dirección inexistente o mal formada) pasan
+ * directamente a los mensajes fallidos, las respuestas que indican que se está
+ * enviando demasiado pausan el cubo del dominio o de la cuenta sin gastar un
+ * intento, y el resto se reintenta con espera exponencial. Así, si el
+ * proveedor limita los envíos, el ritmo baja y los mensajes esperan en la
+ * bandeja en lugar de agotar sus intentos.
+ * </p>
+ * <p>
+ * Los límites configurados son los de todo el despliegue. Cada instancia
+ * guarda sus propios cubos, así que reparte la frecuencia y la ráfaga entre
+ * las instancias activas según el último latido de
+ * {@link CoordinacionService}; cuando cambia su número, los cubos se vuelven
+ * a crear con la nueva parte. El reparto supone que los envíos se distribuyen
+ * de forma parecida entre las instancias.
+ * </p>
+ */
+@Service
+public class BandejaSalidaServiceImpl implements BandejaSalidaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BandejaSalidaServiceImpl.class);
+
+    /**
+     * Tipos de fallo de una entrega, según la respuesta del servidor.
+     */
+    enum TipoFallo {
+        /**
+         * Error transitorio; se reintenta con espera exponencial.
+         */
+        TEMPORAL,
+        /**
+         * El dominio del destinatario rechaza temporalmente los envíos.
+         */
+        LIMITE_DOMINIO,
+        /**
+         * El proveedor limita los envíos de la cuenta.
+         */
+        LIMITE_CUENTA,
+        /**
+         * Rechazo definitivo; no tiene sentido reintentar.
+         */
+        PERMANENTE
+    }
+
+    /**
+     * Fragmentos de las respuestas SMTP con las que los proveedores indican
+     * que se está enviando demasiado.
+     */
+    private static final List<String> LIMITACION = List.of(
+            "rate limit", "too many", "throttl", "try again later", "5.4.5", "4.7.28");
+
+    /**
+     * Respuestas SMTP que indican que el buzón del destinatario está lleno:
+     * los códigos ampliados 4.2.2 y 5.2.2, o su texto habitual. Se comprueban
+     * antes que {@link #LIMITACION}, porque suelen mencionar una cuota que no
+     * es la de envíos.
+     */
+    private static final Pattern BUZON_LLENO = Pattern.compile(
+            "(?<![\\d.])[45]\\.2\\.2(?![\\d.])|mailbox (is )?full|over quota|mailbox quota");
+
+    /**
+     * Repositorio de la bandeja de salida.
+     */
+    @Autowired
+    private MensajeSalidaRepository mensajeSalidaRepository;
+
+    /**
+     * Repositorio de clientes, para asociar la notificación al cliente.
+     */
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    /**
+     * Repositorio de los mensajes que no se han podido entregar.
+     */
+    @Autowired
+    private MensajeFallidoRepository mensajeFallidoRepository;
+
+    /**
+     * Servicio para el envío de correos electrónicos.
+     */
+    @Autowired
+    private EmailService emailService;
+
+    /**
+     * Servicio para la gestión de notificaciones.
+     */
+    @Autowired
+    private NotificationService notificationService;
+
+    /**
+     * Plantilla para registrar cada notificación junto con su marca.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Coordinación con las demás instancias para la purga.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Grupo de hilos que realiza las entregas.
+     */
+    @Autowired
+    @Qualifier("despachadorExecutor")
+    private TaskExecutor despachadorExecutor;
+
+    /**
+     * Número máximo de mensajes que se recogen en cada pasada.
+     */
+    @Value("${bandeja.despachador.lote:50}")
+    private int lote = 50;
+
+    /**
+     * Número máximo de mensajes que se envían por la misma conexión SMTP en
+     * cada entrega por lotes.
+     */
+    @Value("${bandeja.despachador.lote-envio:10}")
+    private int loteEnvio = 10;
+
+    /**
+     * Número de intentos tras el cual un mensaje se marca como fallido.
+     */
+    @Value("${bandeja.despachador.max-intentos:6}")
+    private int maxIntentos = 6;
+
+    /**
+     * Espera antes del primer reintento; se duplica en cada fallo.
+     */
+    @Value("${bandeja.despachador.espera-inicial-segundos:30}")
+    private long esperaInicialSegundos = 30;
+
+    /**
+     * Tiempo durante el cual un mensaje reclamado no puede volver a
+     * reclamarse; si el proceso se detiene a mitad de una entrega, el mensaje
+     * se vuelve a intentar transcurrido este tiempo.
+     */
+    @Value("${bandeja.despachador.bloqueo-segundos:120}")
+    private long bloqueoSegundos = 120;
+
+    /**
+     * Correos por minuto que admite la cuenta de envío entre todas las
+     * instancias; 0 para no limitar.
+     */
+    @Value("${bandeja.limite.cuenta-por-minuto:60}")
+    private double cuentaPorMinuto = 60;
+
+    /**
+     * Correos que la cuenta puede enviar de golpe tras un periodo inactiva.
+     */
+    @Value("${bandeja.limite.cuenta-rafaga:20}")
+    private int cuentaRafaga = 20;
+
+    /**
+     * Correos por minuto que se envían a un mismo dominio entre todas las
+     * instancias; 0 para no limitar.
+     */
+    @Value("${bandeja.limite.dominio-por-minuto:20}")
+    private double dominioPorMinuto = 20;
+
+    /**
+     * Correos que se envían de golpe a un mismo dominio.
+     */
+    @Value("${bandeja.limite.dominio-rafaga:5}")
+    private int dominioRafaga = 5;
+
+    /**
+     * Número máximo de dominios de los que se guarda el cubo; se descartan
+     * los usados hace más tiempo.
+     */
+    @Value("${bandeja.limite.dominios-max:1000}")
+    private int dominiosMax = 1000;
+
+    /**
+     * Tiempo durante el cual no se envía a la cuenta o al dominio que ha
+     * respondido que se está enviando demasiado.
+     */
+    @Value("${bandeja.limite.pausa-segundos:300}")
+    private long pausaSegundos = 300;
+
+    /**
+     * Número de veces que un mensaje puede aplazarse porque el proveedor
+     * limita los envíos antes de darlo por fallido; estos aplazamientos no
+     * cuentan como intentos.
+     */
+    @Value("${bandeja.limite.max-aplazamientos:24}")
+    private int maxAplazamientos = 24;
+
+    /**
+     * Días que se conservan los mensajes enviados antes de eliminarlos.
+     */
+    @Value("${bandeja.retencion-dias:7}")
+    private int retencionDias = 7;
+
+    /**
+     * Intervalo de la purga de mensajes enviados, que es también la duración
+     * de su arrendamiento.
+     */
+    @Value("${bandeja.purga-intervalo-ms:3600000}")
+    private long purgaIntervaloMs = 3_600_000;
+
+    /**
+     * Número máximo de mensajes que se eliminan en cada sentencia de la purga.
+     */
+    @Value("${bandeja.purga-lote:1000}")
+    private int purgaLote = 1000;
+
+    /**
+     * Reloj del servicio.
+     */
+    private Clock reloj = Clock.systemDefaultZone();
+
+    /**
+     * Cubo de fichas de la cuenta de envío; se crea con el primer envío.
+     * Se protege, como los de los dominios, sincronizando sobre
+     * {@link #cubosDominio}.
+     */
+    private CuboFichas cuboCuenta;
+
+    /**
+     * Número de instancias entre las que se repartían los límites al crear
+     * los cubos actuales.
+     */
+    private int nodosCubos = 1;
+
+    /**
+     * Cubos de fichas por dominio, en orden de acceso.
+     */
+    private final Map<String, CuboFichas> cubosDominio = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CuboFichas> mayor) {
+            return size() > dominiosMax;
+        }
+    };
+
+    /**
+     * Encola el correo y la notificación en la transacción actual. Tras el
+     * commit se entrega directamente en el grupo de hilos, sin esperar a la
+     * siguiente pasada del despachador.
+     *
+     * @param cliente el cliente destinatario.
+     * @param asunto el asunto del correo.
+     * @param cuerpo el cuerpo del correo.
+     * @param textoNotificacion el texto de la notificación.
+     * @param tipo el tipo de la notificación.
+     */
+    @Override
+    public void encolar(Cliente cliente, String asunto, String cuerpo,
+            String textoNotificacion, Notificacion.TipoNotificacion tipo) {
+        MensajeSalida mensaje = new MensajeSalida();
+        mensaje.setDniCliente(cliente.getDni());
+        mensaje.setDestinatario(cliente.getEmail());
+        mensaje.setAsunto(asunto);
+        mensaje.setCuerpo(cuerpo);
+        mensaje.setTextoNotificacion(textoNotificacion);
+        mensaje.setTipoNotificacion(tipo);
+        mensaje.setProximoIntento(LocalDateTime.now(reloj));
+        mensajeSalidaRepository.save(mensaje);
+
+        Long idMensaje = mensaje.getIdMensaje();
+        if (idMensaje != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despachadorExecutor.execute(() -> entregar(idMensaje));
+                }
+            });
+        }
+    }
+
+    /**
+     * Recoge periódicamente los mensajes pendientes o que deben reintentarse
+     * y los entrega en lotes de {@code lote-envio} mensajes, cada uno en un
+     * hilo del despachador.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${bandeja.despachador.intervalo-ms:5000}")
+    public void despacharPendientes() {
+        List<Long> pendientes = mensajeSalidaRepository.findPendientes(LocalDateTime.now(reloj), lote);
+        for (int i = 0; i < pendientes.size(); i += loteEnvio) {
+            List<Long> grupo = List.copyOf(pendientes.subList(i, Math.min(i + loteEnvio, pendientes.size())));
+            despachadorExecutor.execute(() -> entregarLote(grupo));
+        }
+    }
+
+    /**
+     * Entrega un mensaje si consigue reclamarlo.
+     *
+     * @param idMensaje el identificador del mensaje.
+     */
+    @Override
+    public void entregar(Long idMensaje) {
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        LocalDateTime reclamo = finReclamo(ahora);
+        if (!mensajeSalidaRepository.reclamar(idMensaje, ahora, reclamo)) {
+            return;
+        }
+        MensajeSalida mensaje = mensajeSalidaRepository.findById(idMensaje);
+        if (aResumen(mensaje)) {
+            apartar(mensaje, reclamo, ahora);
+            return;
+        }
+        if (limitado(mensaje, reclamo, ahora)) {
+            return;
+        }
+        try {
+            registrarNotificacion(mensaje);
+
+            emailService.sendMail(email(mensaje));
+
+            marcarEnviado(mensaje, reclamo);
+        } catch (Exception e) {
+            registrarFallo(mensaje, reclamo, ahora, e);
+        }
+    }
+
+    /**
+     * Reclama los mensajes del lote, registra sus notificaciones y envía
+     * todos sus correos con una sola llamada al servicio de correo. Cada
+     * mensaje se marca como enviado o se reprograma según su propio
+     * resultado.
+     *
+     * @param idsMensajes los identificadores de los mensajes.
+     */
+    @Override
+    public void entregarLote(List<Long> idsMensajes) {
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        LocalDateTime reclamo = finReclamo(ahora);
+        List<MensajeSalida> reclamados = new ArrayList<>(idsMensajes.size());
+        List<EmailDTO> emails = new ArrayList<>(idsMensajes.size());
+        for (Long idMensaje : idsMensajes) {
+            if (!mensajeSalidaRepository.reclamar(idMensaje, ahora, reclamo)) {
+                continue;
+            }
+            MensajeSalida mensaje = mensajeSalidaRepository.findById(idMensaje);
+            if (aResumen(mensaje)) {
+                apartar(mensaje, reclamo, ahora);
+                continue;
+            }
+            if (limitado(mensaje, reclamo, ahora)) {
+                continue;
+            }
+            try {
+                registrarNotificacion(mensaje);
+                emails.add(email(mensaje));
+                reclamados.add(mensaje);
+            } catch (Exception e) {
+                registrarFallo(mensaje, reclamo, ahora, e);
+            }
+        }
+        if (emails.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Exception> errores;
+        try {
+            errores = emailService.sendMails(emails);
+        } catch (Exception e) {
+            errores = new HashMap<>();
+            for (int i = 0; i < emails.size(); i++) {
+                errores.put(i, e);
+            }
+        }
+        for (int i = 0; i < reclamados.size(); i++) {
+            MensajeSalida mensaje = reclamados.get(i);
+            Exception error = errores.get(i);
+            if (error == null) {
+                marcarEnviado(mensaje, reclamo);
+            } else {
+                registrarFallo(mensaje, reclamo, ahora, error);
+            }
+        }
+    }
+
+    /**
+     * Elimina periódicamente los mensajes enviados hace más de los días de
+     * retención. Solo la ejecuta la instancia que tiene el arrendamiento, y
+     * por bloques, cada uno en su propia transacción.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${bandeja.purga-intervalo-ms:3600000}")
+    public void purgarEnviados() {
+        if (!coordinacionService.adquirir("bandeja.purga", purgaIntervaloMs)) {
+            return;
+        }
+        LocalDateTime limite = LocalDateTime.now(reloj).minusDays(retencionDias);
+        int total = 0;
+        int eliminados;
+        do {
+            eliminados = mensajeSalidaRepository.deleteEnviados(limite, purgaLote);
+            total += eliminados;
+        } while (eliminados == purgaLote);
+        if (total > 0) {
+            logger.info("Eliminados {} mensajes enviados antes de {}", total, limite);
+        }
+    }
+
+    /**
+     * Lista una página de mensajes fallidos.
+     *
+     * @param despuesDe el último identificador de la página anterior.
+     * @param limite el número máximo de mensajes.
+     * @return los mensajes fallidos.
+     */
+    @Override
+    public List<MensajeFallido> listarFallidos(Long despuesDe, int limite) {
+        return mensajeFallidoRepository.findAll(despuesDe, limite);
+    }
+
+    /**
+     * Vuelve a encolar un mensaje fallido.
+     *
+     * @param idFallido el identificador del mensaje fallido.
+     */
+    @Override
+    public void reenviarFallido(Long idFallido) {
+        if (!mensajeFallidoRepository.reenviar(idFallido, LocalDateTime.now(reloj))) {
+            throw new ResourceNotFoundException("Mensaje fallido con ID " + idFallido + " no encontrado.");
+        }
+    }
+
+    /**
+     * Vuelve a encolar los mensajes fallidos, o los de un dominio.
+     *
+     * @param dominio el dominio de los destinatarios, o {@code null}.
+     * @return el número de mensajes encolados.
+     */
+    @Override
+    public int reenviarFallidos(String dominio) {
+        int reenviados = mensajeFallidoRepository.reenviarTodos(dominio, LocalDateTime.now(reloj));
+        logger.info("Reenviados {} mensajes fallidos{}", reenviados, dominio != null ? " de " + dominio : "");
+        return reenviados;
+    }
+
+    /**
+     * Indica si el correo de un mensaje debe esperar al resumen periódico de
+     * su destinatario: solo los informativos, y solo si la configuración de
+     * notificaciones tiene una frecuencia horaria o diaria. Las advertencias
+     * (recordatorios, cancelaciones) se envían siempre en el momento.
+     *
+     * @param mensaje el mensaje.
+     * @return {@code true} si debe ir en el resumen.
+     */
+    private boolean aResumen(MensajeSalida mensaje) {
+        return mensaje.getTipoNotificacion() == Notificacion.TipoNotificacion.INFORMACION
+                && notificationService.getConfiguracion().getFrecuenciaEfectiva() != Frecuencia.INMEDIATA;
+    }
+
+    /**
+     * Registra la notificación de un mensaje, que así aparece en el momento,
+     * y aparta su correo para el resumen.
+     *
+     * @param mensaje el mensaje reclamado.
+     * @param reclamo el fin del bloqueo con el que se reclamó.
+     * @param ahora el momento del intento.
+     */
+    private void apartar(MensajeSalida mensaje, LocalDateTime reclamo, LocalDateTime ahora) {
+        try {
+            registrarNotificacion(mensaje);
+            if (!mensajeSalidaRepository.marcarResumen(mensaje.getIdMensaje(), reclamo)) {
+                reclamoCaducado(mensaje, "apartarlo para el resumen");
+            }
+        } catch (Exception e) {
+            registrarFallo(mensaje, reclamo, ahora, e);
+        }
+    }
+
+    /**
+     * Marca un mensaje como enviado. Si su reclamo había caducado, otra
+     * entrega puede haberlo enviado también: se registra en el log.
+     *
+     * @param mensaje el mensaje enviado.
+     * @param reclamo el fin del bloqueo con el que se reclamó.
+     */
+    private void marcarEnviado(MensajeSalida mensaje, LocalDateTime reclamo) {
+        if (!mensajeSalidaRepository.marcarEnviado(mensaje.getIdMensaje(), reclamo)) {
+            reclamoCaducado(mensaje, "marcarlo como enviado; puede haberse enviado dos veces");
+        }
+    }
+
+    /**
+     * Registra en el log que el reclamo de un mensaje caducó antes de cerrar
+     * su entrega, de modo que el resultado no se ha guardado y queda a cargo
+     * de la entrega que lo reclamó después.
+     *
+     * @param mensaje el mensaje.
+     * @param accion lo que no se ha podido hacer.
+     */
+    private void reclamoCaducado(MensajeSalida mensaje, String accion) {
+        logger.warn("El reclamo del mensaje {} caducó antes de {}", mensaje.getIdMensaje(), accion);
+    }
+
+    /**
+     * Calcula el fin del bloqueo de un reclamo, con la precisión de la
+     * columna para que identifique el reclamo al compararlo.
+     *
+     * @param ahora el momento del reclamo.
+     * @return el fin del bloqueo, en microsegundos.
+     */
+    private LocalDateTime finReclamo(LocalDateTime ahora) {
+        return ahora.plusSeconds(bloqueoSegundos).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * Toma las fichas necesarias para enviar un mensaje o, si no hay, lo
+     * aplaza hasta que las haya sin contarlo como intento.
+     *
+     * @param mensaje el mensaje reclamado.
+     * @param reclamo el fin del bloqueo con el que se reclamó.
+     * @param ahora el momento del intento.
+     * @return {@code true} si el mensaje se ha aplazado.
+     */
+    private boolean limitado(MensajeSalida mensaje, LocalDateTime reclamo, LocalDateTime ahora) {
+        long espera = reservarEnvio(dominio(mensaje.getDestinatario()), reloj.millis());
+        if (espera == 0) {
+            return false;
+        }
+        if (!mensajeSalidaRepository.aplazar(mensaje.getIdMensaje(), reclamo, ahora.plus(Duration.ofMillis(espera)))) {
+            reclamoCaducado(mensaje, "aplazarlo");
+        }
+        return true;
+    }
+
+    /**
+     * Toma una ficha del cubo de la cuenta y otra del cubo del dominio, solo
+     * si ambos tienen.
+     *
+     * @param dominio el dominio del destinatario.
+     * @param ahora el momento actual, en milisegundos.
+     * @return {@code 0} si se han tomado las fichas, o la espera en
+     * milisegundos hasta que las haya.
+     */
+    long reservarEnvio(String dominio, long ahora) {
+        synchronized (cubosDominio) {
+            repartirLimites();
+            CuboFichas cuenta = cuboCuenta(ahora);
+            CuboFichas cubo = cuboDominio(dominio, ahora);
+            long espera = Math.max(cuenta.espera(ahora), cubo.espera(ahora));
+            if (espera == 0) {
+                cuenta.consumir(ahora);
+                cubo.consumir(ahora);
+            }
+            return espera;
+        }
+    }
+
+    /**
+     * Descarta los cubos si ha cambiado el número de instancias activas, para
+     * que se creen de nuevo con la parte de los límites que corresponde a
+     * esta instancia.
+     */
+    private void repartirLimites() {
+        int nodos = Math.max(1, coordinacionService.getParticion().getTotal());
+        synchronized (cubosDominio) {
+            if (nodos != nodosCubos) {
+                logger.info("Límites de envío repartidos entre {} instancias", nodos);
+                nodosCubos = nodos;
+                cuboCuenta = null;
+                cubosDominio.clear();
+            }
+        }
+    }
+
+    private CuboFichas cuboCuenta(long ahora) {
+        synchronized (cubosDominio) {
+            if (cuboCuenta == null) {
+                cuboCuenta = new CuboFichas(repartir(cuentaRafaga), cuentaPorMinuto / nodosCubos, ahora);
+            }
+            return cuboCuenta;
+        }
+    }
+
+    private CuboFichas cuboDominio(String dominio, long ahora) {
+        synchronized (cubosDominio) {
+            return cubosDominio.computeIfAbsent(dominio,
+                    d -> new CuboFichas(repartir(dominioRafaga), dominioPorMinuto / nodosCubos, ahora));
+        }
+    }
+
+    /**
+     * Calcula la parte de una ráfaga que corresponde a esta instancia,
+     * redondeando hacia arriba para que ninguna se quede sin envíos.
+     *
+     * @param rafaga la ráfaga de todo el despliegue.
+     * @return la ráfaga de esta instancia.
+     */
+    private int repartir(int rafaga) {
+        return (rafaga + nodosCubos - 1) / nodosCubos;
+    }
+
+    /**
+     * Obtiene el dominio de una dirección de correo.
+     *
+     * @param destinatario la dirección.
+     * @return el dominio en minúsculas, o la dirección entera si no tiene.
+     */
+    static String dominio(String destinatario) {
+        if (destinatario == null) {
+            return "";
+        }
+        int arroba = destinatario.lastIndexOf('@');
+        return destinatario.substring(arroba + 1).trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Clasifica el error de una entrega a partir del código y el texto de la
+     * respuesta SMTP que lo ha causado.
+     *
+     * @param e el error.
+     * @return el tipo de fallo.
+     */
+    static TipoFallo clasificar(Throwable e) {
+        int codigo = 0;
+        boolean porDestinatario = false;
+        StringBuilder texto = new StringBuilder();
+        Throwable causa = e;
+        for (int i = 0; causa != null && i < 10; i++, causa = causa.getCause()) {
+            if (causa instanceof AddressException) {
+                return TipoFallo.PERMANENTE;
+            }
+            if (causa.getMessage() != null) {
+                texto.append(causa.getMessage().toLowerCase(Locale.ROOT)).append('\n');
+            }
+            if (causa instanceof SMTPAddressFailedException rechazo) {
+                codigo = rechazo.getReturnCode();
+                porDestinatario = true;
+            } else if (codigo == 0 && causa instanceof SMTPSenderFailedException rechazo) {
+                codigo = rechazo.getReturnCode();
+            } else if (codigo == 0 && causa instanceof SMTPSendFailedException rechazo) {
+                codigo = rechazo.getReturnCode();
+            }
+        }
+        if (BUZON_LLENO.matcher(texto).find()) {
+            // Solo afecta a este destinatario: no se pausa su dominio ni la cuenta
+            return codigo >= 500 && codigo < 600 ? TipoFallo.PERMANENTE : TipoFallo.TEMPORAL;
+        }
+        if (codigo == 421 || LIMITACION.stream().anyMatch(fragmento -> texto.indexOf(fragmento) >= 0)) {
+            return porDestinatario ? TipoFallo.LIMITE_DOMINIO : TipoFallo.LIMITE_CUENTA;
+        }
+        if (codigo >= 500 && codigo < 600) {
+            return TipoFallo.PERMANENTE;
+        }
+        return TipoFallo.TEMPORAL;
+    }
+
+    /**
+     * Construye el correo de un mensaje.
+     *
+     * @param mensaje el mensaje.
+     * @return el correo.
+     */
+    private static EmailDTO email(MensajeSalida mensaje) {
+        EmailDTO emailDTO = new EmailDTO();
+        emailDTO.setDestinatario(mensaje.getDestinatario());
+        emailDTO.setAsunto(mensaje.getAsunto());
+        emailDTO.setMensaje(mensaje.getCuerpo());
+        return emailDTO;
+    }
+
+    /**
+     * Trata el fallo de una entrega según su tipo: si el proveedor limita los
+     * envíos, pausa el cubo correspondiente y aplaza el mensaje sin gastar un
+     * intento, salvo que ya se haya aplazado {@code max-aplazamientos} veces,
+     * en cuyo caso pasa a los fallidos; si el rechazo es definitivo o se han
+     * agotado los intentos,
+     * traslada el mensaje a los fallidos; y en otro caso lo reprograma con
+     * espera exponencial. Nada de ello se guarda si el reclamo del mensaje
+     * ha caducado.
+     *
+     * @param mensaje el mensaje.
+     * @param reclamo el fin del bloqueo con el que se reclamó.
+     * @param ahora el momento del intento.
+     * @param e el error del intento.
+     */
+    private void registrarFallo(MensajeSalida mensaje, LocalDateTime reclamo, LocalDateTime ahora, Exception e) {
+        TipoFallo tipo = clasificar(e);
+        String error = e.getMessage() != null && e.getMessage().length() > 1000
+                ? e.getMessage().substring(0, 1000) : e.getMessage();
+        if (tipo == TipoFallo.LIMITE_CUENTA || tipo == TipoFallo.LIMITE_DOMINIO) {
+            long hasta = reloj.millis() + pausaSegundos * 1000;
+            if (tipo == TipoFallo.LIMITE_CUENTA) {
+                cuboCuenta(reloj.millis()).pausar(hasta);
+            } else {
+                cuboDominio(dominio(mensaje.getDestinatario()), reloj.millis()).pausar(hasta);
+            }
+            logger.warn("Envíos {} pausados {} s: {}", tipo == TipoFallo.LIMITE_CUENTA ? "de la cuenta"
+                    : "a " + dominio(mensaje.getDestinatario()), pausaSegundos, error);
+            int aplazamientos = mensaje.getAplazamientos() + 1;
+            boolean guardado = aplazamientos > maxAplazamientos
+                    ? mensajeSalidaRepository.archivarFallido(mensaje.getIdMensaje(), reclamo, mensaje.getIntentos(),
+                            error, ahora)
+                    : mensajeSalidaRepository.posponer(mensaje.getIdMensaje(), reclamo, aplazamientos,
+                            ahora.plusSeconds(pausaSegundos), error);
+            if (!guardado) {
+                reclamoCaducado(mensaje, "aplazarlo");
+            }
+            return;
+        }
+        int intentos = mensaje.getIntentos() + 1;
+        boolean guardado;
+        if (tipo == TipoFallo.PERMANENTE || intentos >= maxIntentos) {
+            guardado = mensajeSalidaRepository.archivarFallido(mensaje.getIdMensaje(), reclamo, intentos, error, ahora);
+        } else {
+            guardado = mensajeSalidaRepository.reprogramar(mensaje.getIdMensaje(), reclamo, intentos,
+                    ahora.plus(espera(intentos)), error);
+        }
+        if (!guardado) {
+            reclamoCaducado(mensaje, "registrar el intento fallido");
+        }
+    }
+
+    /**
+     * Registra la notificación asociada al mensaje, si tiene y aún no se ha
+     * registrado. La marca del mensaje y la notificación se guardan en la
+     * misma transacción, de modo que una caída entre ambas no la duplica.
+     *
+     * @param mensaje el mensaje con los datos de la notificación.
+     */
+    private void registrarNotificacion(MensajeSalida mensaje) {
+        if (mensaje.getTextoNotificacion() == null || mensaje.isNotificacionRegistrada()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(estado -> {
+            if (!mensajeSalidaRepository.marcarNotificacionRegistrada(mensaje.getIdMensaje())) {
+                return;
+            }
+            Cliente cliente = clienteRepository.findByDNIFull(mensaje.getDniCliente());
+            if (cliente == null) {
+                return;
+            }
+            Notificacion notificacion = new Notificacion();
+            notificacion.setCliente(cliente);
+            notificacion.setMensaje(mensaje.getTextoNotificacion());
+            notificacion.setTipo(mensaje.getTipoNotificacion());
+            notificationService.saveNotification(notificacion);
+        });
+    }
+
+    /**
+     * Calcula la espera antes del siguiente intento.
+     *
+     * @param intentos el número de intentos fallidos.
+     * @return la espera, que se duplica con cada intento.
+     */
+    private Duration espera(int intentos) {
+        return Duration.ofSeconds(esperaInicialSegundos).multipliedBy(1L << Math.min(intentos - 1, 16));
+    }
+}
@@ -0,0 +1,124 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.exception.ConflictoException;
+import com.sompoble.cat.service.BloqueoFranjasService;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementación de {@link BloqueoFranjasService} con un número fijo de
+ * cerrojos repartidos por dispersión de (servicio, fecha).
+ * <p>
+ * Dos franjas distintas pueden compartir cerrojo, lo que solo serializa de más
+ * pero nunca de menos. Los cerrojos se adquieren siempre en orden de índice,
+ * para que dos traslados cruzados no se bloqueen mutuamente, y se liberan al
+ * terminar la transacción, de modo que la siguiente petición ya ve la
+ * ocupación confirmada. El libro de capacidad sigue siendo la garantía entre
+ * instancias; estos cerrojos evitan que las peticiones de una misma instancia
+ * compitan por las mismas filas.
+ * </p>
+ */
+@Service
+public class BloqueoFranjasServiceImpl implements BloqueoFranjasService {
+
+    /**
+     * Número de cerrojos.
+     */
+    static final int NUMERO_CERROJOS = 256;
+
+    /**
+     * Tiempo máximo de espera por un cerrojo antes de responder con un
+     * conflicto.
+     */
+    @Value("${reservas.bloqueo.espera-ms:2000}")
+    private long esperaMs = 2000;
+
+    /**
+     * Cerrojos, indexados por la dispersión de la franja.
+     */
+    private final ReentrantLock[] cerrojos = new ReentrantLock[NUMERO_CERROJOS];
+
+    /**
+     * Crea los cerrojos.
+     */
+    public BloqueoFranjasServiceImpl() {
+        for (int i = 0; i < NUMERO_CERROJOS; i++) {
+            cerrojos[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Bloquea las dos franjas en orden de índice y registra su liberación al
+     * terminar la transacción.
+     *
+     * @param idServicioOrigen el servicio original de la reserva.
+     * @param fechaOrigen la fecha original de la reserva.
+     * @param idServicioDestino el nuevo servicio de la reserva.
+     * @param fechaDestino la nueva fecha de la reserva.
+     */
+    @Override
+    public void bloquear(Long idServicioOrigen, LocalDate fechaOrigen, Long idServicioDestino, LocalDate fechaDestino) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo de franjas requiere una transacción activa");
+        }
+        int origen = indice(idServicioOrigen, fechaOrigen);
+        int destino = indice(idServicioDestino, fechaDestino);
+        ReentrantLock primero = cerrojos[Math.min(origen, destino)];
+        ReentrantLock segundo = origen != destino ? cerrojos[Math.max(origen, destino)] : null;
+
+        adquirir(primero);
+        if (segundo != null) {
+            try {
+                adquirir(segundo);
+            } catch (RuntimeException e) {
+                primero.unlock();
+                throw e;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (segundo != null) {
+                    segundo.unlock();
+                }
+                primero.unlock();
+            }
+        });
+    }
+
+    /**
+     * Calcula el cerrojo de una franja.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return el índice del cerrojo.
+     */
+    static int indice(Long idServicio, LocalDate fecha) {
+        int hash = Objects.hash(idServicio, fecha);
+        return (hash ^ (hash >>> 16)) & (NUMERO_CERROJOS - 1);
+    }
+
+    /**
+     * Adquiere un cerrojo esperando como máximo {@link #esperaMs}.
+     *
+     * @param cerrojo el cerrojo.
+     * @throws ConflictoException si no se obtiene a tiempo.
+     */
+    private void adquirir(ReentrantLock cerrojo) {
+        try {
+            if (cerrojo.tryLock(esperaMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ConflictoException(
+                "Hay otra modificación en curso para este servicio y fecha. Inténtelo de nuevo en unos segundos", 1);
+    }
+}
@@ -0,0 +1,96 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.repository.OcupacionServicioRepository;
+import com.sompoble.cat.service.CapacidadService;
+import java.time.LocalDate;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementación de {@link CapacidadService}.
+ * <p>
+ * La fila persistida de {@code OCUPACION_SERVICIO} es la única fuente de
+ * verdad y se actualiza con un incremento condicional, que es el que decide
+ * la admisión. La fila se crea la primera vez que el incremento no encuentra
+ * ninguna, de modo que en el caso habitual la admisión es una sola sentencia.
+ * </p>
+ */
+@Service
+@Transactional
+public class CapacidadServiceImpl implements CapacidadService {
+
+    /**
+     * Repositorio de contadores de ocupación.
+     */
+    @Autowired
+    private OcupacionServicioRepository ocupacionRepository;
+
+    /**
+     * Intenta ocupar una plaza. Si el incremento no se aplica, puede ser
+     * porque el servicio está completo o porque la fila aún no existe; en ese
+     * caso se crea y se repite el incremento.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     * @param limite el límite de reservas del servicio.
+     * @return {@code true} si se ha ocupado la plaza.
+     */
+    @Override
+    public boolean ocuparPlaza(Long idServicio, LocalDate fecha, int limite) {
+        if (ocupacionRepository.incrementarSiHayPlaza(idServicio, fecha, limite)) {
+            return true;
+        }
+        ocupacionRepository.inicializarSiNoExiste(idServicio, fecha);
+        return ocupacionRepository.incrementarSiHayPlaza(idServicio, fecha, limite);
+    }
+
+    /**
+     * Libera plazas del contador.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de las reservas liberadas.
+     * @param cantidad el número de plazas a liberar.
+     */
+    @Override
+    public void liberarPlazas(Long idServicio, LocalDate fecha, int cantidad) {
+        if (cantidad <= 0) {
+            return;
+        }
+        ocupacionRepository.decrementar(idServicio, fecha, cantidad);
+    }
+
+    /**
+     * Traslada una plaza ocupada entre dos pares (servicio, fecha).
+     *
+     * @param idServicioOrigen el servicio original de la reserva.
+     * @param fechaOrigen la fecha original de la reserva.
+     * @param idServicioDestino el nuevo servicio de la reserva.
+     * @param fechaDestino la nueva fecha de la reserva.
+     * @param limiteDestino el límite de reservas del servicio destino.
+     * @return {@code true} si la plaza se ha trasladado.
+     */
+    @Override
+    public boolean moverPlaza(Long idServicioOrigen, LocalDate fechaOrigen,
+            Long idServicioDestino, LocalDate fechaDestino, int limiteDestino) {
+        if (Objects.equals(idServicioOrigen, idServicioDestino) && Objects.equals(fechaOrigen, fechaDestino)) {
+            return true;
+        }
+        if (!ocuparPlaza(idServicioDestino, fechaDestino, limiteDestino)) {
+            return false;
+        }
+        liberarPlazas(idServicioOrigen, fechaOrigen, 1);
+        return true;
+    }
+
+    /**
+     * Elimina los contadores persistidos de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void eliminarContadoresServicio(Long idServicio) {
+        ocupacionRepository.deleteByServicioId(idServicio);
+    }
+}
@@ -0,0 +1,125 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.ClientesDiarios;
+import com.sompoble.cat.repository.ClientesDiariosRepository;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.util.HyperLogLog;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementación de {@link ClientesUnicosService}.
+ * <p>
+ * Un estimador HyperLogLog no permite retirar elementos, así que al eliminar
+ * o trasladar una reserva su cliente sigue contando en el día original hasta
+ * la reconciliación nocturna de métricas, que reconstruye los estimadores.
+ * </p>
+ * <p>
+ * Añadir un cliente solo sube un registro al máximo entre su valor y el del
+ * cliente, así que se fusiona en la base de datos sin leer el estimador y
+ * tras confirmar la reserva: la transacción de la reserva no bloquea la fila
+ * del día, que comparten todas las reservas de la empresa.
+ * </p>
+ */
+@Service
+public class ClientesUnicosServiceImpl implements ClientesUnicosService {
+
+    /**
+     * Logger de la clase.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ClientesUnicosServiceImpl.class);
+
+    /**
+     * Repositorio de los estimadores diarios.
+     */
+    @Autowired
+    private ClientesDiariosRepository clientesDiariosRepository;
+
+    /**
+     * Añade el cliente al estimador cuando se confirma la transacción en
+     * curso, o en el acto si no hay ninguna. Un fallo al fusionar solo se
+     * registra en el log: la reconciliación nocturna reconstruye el
+     * estimador.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param fecha la fecha de la reserva.
+     * @param idCliente el identificador del cliente.
+     */
+    @Override
+    public void registrar(Long idEmpresa, LocalDate fecha, Long idCliente) {
+        int indice = HyperLogLog.indice(idCliente);
+        byte posicion = HyperLogLog.posicion(idCliente);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fusionar(idEmpresa, fecha, indice, posicion);
+                }
+            });
+        } else {
+            fusionar(idEmpresa, fecha, indice, posicion);
+        }
+    }
+
+    /**
+     * Sube el registro del cliente en el estimador del día.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param fecha la fecha de la reserva.
+     * @param indice el índice del registro.
+     * @param posicion el valor del cliente para el registro.
+     */
+    private void fusionar(Long idEmpresa, LocalDate fecha, int indice, byte posicion) {
+        try {
+            clientesDiariosRepository.fusionar(idEmpresa, fecha, indice, posicion);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo registrar el cliente en el estimador de la empresa {} del {}",
+                    idEmpresa, fecha, e);
+        }
+    }
+
+    /**
+     * Une los estimadores del período y devuelve su estimación.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     * @return la estimación de clientes distintos.
+     */
+    @Override
+    public int estimar(Long idEmpresa, LocalDate inicio, LocalDate fin) {
+        HyperLogLog union = new HyperLogLog();
+        for (byte[] registros : clientesDiariosRepository.findRegistros(idEmpresa, inicio, fin)) {
+            union.unir(HyperLogLog.deRegistros(registros));
+        }
+        return (int) union.estimar();
+    }
+
+    /**
+     * Reconstruye los estimadores del período a partir de los clientes de
+     * cada empresa y día.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    @Override
+    public void reconstruir(LocalDate inicio, LocalDate fin) {
+        List<ClientesDiarios> estimadores = new ArrayList<>();
+        clientesDiariosRepository.findClientesPorEmpresaYDia(inicio, fin).forEach((idEmpresa, porDia)
+                -> porDia.forEach((fecha, clientes) -> {
+                    HyperLogLog hll = new HyperLogLog();
+                    for (Long idCliente : clientes) {
+                        hll.agregar(idCliente);
+                    }
+                    estimadores.add(new ClientesDiarios(idEmpresa, fecha, hll.getRegistros()));
+                }));
+        clientesDiariosRepository.sustituir(inicio, fin, estimadores);
+    }
+}
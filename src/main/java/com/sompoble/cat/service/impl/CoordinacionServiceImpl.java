@@ -0,0 +1,162 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.repository.CoordinacionRepository;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.util.Particion;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementación de {@link CoordinacionService} sobre la base de datos de la
+ * aplicación, sin servicios externos.
+ * <p>
+ * Las instancias activas son las que han registrado un latido dentro del
+ * plazo de caducidad. Ordenadas por identificador, la posición de esta
+ * instancia en la lista es el índice de su partición. Como cada instancia
+ * late por su cuenta, tras un alta o una baja puede pasar un intervalo de
+ * latido hasta que todas ven la misma lista; quien reparte el trabajo debe
+ * tolerar ese solapamiento. Al detenerse, la instancia libera sus
+ * arrendamientos y borra su latido para que las demás la sustituyan sin
+ * esperar a que venzan.
+ * </p>
+ */
+@Service
+public class CoordinacionServiceImpl implements CoordinacionService, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoordinacionServiceImpl.class);
+
+    /**
+     * Repositorio de los arrendamientos y los latidos.
+     */
+    @Autowired
+    private CoordinacionRepository coordinacionRepository;
+
+    /**
+     * Identificador de la instancia; si está vacío se genera a partir del
+     * nombre del equipo.
+     */
+    @Value("${planificador.nodo-id:}")
+    private String idNodo = "";
+
+    /**
+     * Antigüedad máxima del último latido de una instancia activa.
+     */
+    @Value("${planificador.nodo-caducidad-ms:30000}")
+    private long caducidadMs = 30_000;
+
+    /**
+     * Partición calculada en el último latido, o {@code null} si aún no ha
+     * habido ninguno.
+     */
+    private volatile Particion particion;
+
+    /**
+     * Devuelve el identificador de esta instancia, generándolo la primera
+     * vez si no se ha configurado.
+     *
+     * @return el identificador.
+     */
+    @Override
+    public synchronized String getIdNodo() {
+        if (idNodo == null || idNodo.isBlank()) {
+            idNodo = generarIdNodo();
+        }
+        return idNodo;
+    }
+
+    /**
+     * Toma o renueva el arrendamiento de una tarea.
+     *
+     * @param tarea el nombre de la tarea.
+     * @param duracionMs la duración del arrendamiento.
+     * @return {@code true} si esta instancia debe ejecutar la tarea.
+     */
+    @Override
+    public boolean adquirir(String tarea, long duracionMs) {
+        try {
+            return coordinacionRepository.adquirir(tarea, getIdNodo(), duracionMs);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido obtener el arrendamiento de {}: {}", tarea, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve la partición del último latido; si aún no ha habido ninguno,
+     * late en el momento.
+     *
+     * @return la partición, o todo el trabajo si la base de datos no
+     * responde.
+     */
+    @Override
+    public Particion getParticion() {
+        Particion actual = particion;
+        if (actual == null) {
+            latido();
+            actual = particion;
+        }
+        return actual != null ? actual : Particion.TODAS;
+    }
+
+    /**
+     * Registra el latido periódicamente. Si falla, se conserva la partición
+     * anterior: las demás instancias dejarán de contar con esta al caducar
+     * su latido, y el trabajo que se solape se descarta al registrarlo.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${planificador.latido-ms:10000}")
+    public void latido() {
+        String nodo = getIdNodo();
+        try {
+            coordinacionRepository.latido(nodo);
+            List<String> activos = coordinacionRepository.findNodosActivos(caducidadMs);
+            int indice = activos.indexOf(nodo);
+            Particion nueva = indice < 0 ? Particion.TODAS : new Particion(indice, activos.size());
+            if (!nueva.equals(particion)) {
+                logger.info("Instancia {}: partición {} de las instancias activas {}", nodo, nueva, activos);
+                particion = nueva;
+            }
+            coordinacionRepository.deleteNodosInactivos(caducidadMs * 10);
+        } catch (RuntimeException e) {
+            logger.warn("No se ha podido registrar el latido de la instancia {}: {}", nodo, e.getMessage());
+        }
+    }
+
+    /**
+     * Libera los arrendamientos y el latido al detener la aplicación.
+     */
+    @Override
+    public void destroy() {
+        try {
+            coordinacionRepository.liberar(getIdNodo());
+        } catch (RuntimeException e) {
+            logger.warn("No se han podido liberar los arrendamientos de la instancia {}: {}", idNodo, e.getMessage());
+        }
+    }
+
+    /**
+     * Genera un identificador con el nombre del equipo y un sufijo
+     * aleatorio, para distinguir instancias del mismo equipo y reinicios.
+     */
+    private static String generarIdNodo() {
+        String equipo;
+        try {
+            equipo = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            equipo = "nodo";
+        }
+        if (equipo.length() > 100) {
+            equipo = equipo.substring(0, 100);
+        }
+        return equipo + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,377 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Horario;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.DisponibilidadDTO;
+import com.sompoble.cat.dto.DisponibilidadDTO.DiaDisponibleDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.service.DisponibilidadService;
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Implementación de {@link DisponibilidadService}.
+ * <p>
+ * Para cada servicio se guarda en memoria una plantilla con las horas de
+ * inicio de cada día de la semana, calculada a partir de sus horarios y su
+ * duración, y el número de reservas de cada día ya consultado. Solo los días
+ * laborables que faltan en caché se cargan, con una única consulta agrupada
+ * para todo el rango.
+ * </p>
+ * <p>
+ * Las escrituras de esta instancia invalidan los días afectados, pero las de
+ * otras instancias no llegan aquí; por eso cada calendario caduca pasado
+ * {@code disponibilidad.cache-ttl-ms} y se vuelve a cargar entero, plantilla
+ * incluida. La caché puede mostrar, como mucho durante ese tiempo, reservas
+ * hechas en otra instancia como plazas libres; la admisión no depende de
+ * ella, sino del libro de capacidad.
+ * </p>
+ */
+@Service
+public class DisponibilidadServiceImpl implements DisponibilidadService {
+
+    /**
+     * Número máximo de días que se pueden consultar en una petición.
+     */
+    static final int MAX_DIAS = 92;
+
+    /**
+     * Formato de las horas devueltas, igual al de {@code Reserva.hora}.
+     */
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm");
+
+    /**
+     * Nombres de los días de la semana aceptados en
+     * {@code Horario.diasLaborables}, sin acentos y en minúsculas.
+     */
+    private static final Map<String, DayOfWeek> NOMBRES_DIAS = Map.ofEntries(
+            Map.entry("lunes", DayOfWeek.MONDAY), Map.entry("dilluns", DayOfWeek.MONDAY),
+            Map.entry("martes", DayOfWeek.TUESDAY), Map.entry("dimarts", DayOfWeek.TUESDAY),
+            Map.entry("miercoles", DayOfWeek.WEDNESDAY), Map.entry("dimecres", DayOfWeek.WEDNESDAY),
+            Map.entry("jueves", DayOfWeek.THURSDAY), Map.entry("dijous", DayOfWeek.THURSDAY),
+            Map.entry("viernes", DayOfWeek.FRIDAY), Map.entry("divendres", DayOfWeek.FRIDAY),
+            Map.entry("sabado", DayOfWeek.SATURDAY), Map.entry("dissabte", DayOfWeek.SATURDAY),
+            Map.entry("domingo", DayOfWeek.SUNDAY), Map.entry("diumenge", DayOfWeek.SUNDAY));
+
+    /**
+     * Repositorio para acceder a los servicios y sus horarios.
+     */
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    /**
+     * Repositorio para contar las reservas de cada día.
+     */
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    /**
+     * Tiempo durante el cual se reutiliza un calendario cargado.
+     */
+    @Value("${disponibilidad.cache-ttl-ms:30000}")
+    private long cacheTtlMs = 30_000;
+
+    /**
+     * Reloj del servicio.
+     */
+    private Clock reloj = Clock.systemDefaultZone();
+
+    /**
+     * Calendarios en caché, indexados por identificador de servicio.
+     */
+    private final Map<Long, Calendario> calendarios = new ConcurrentHashMap<>();
+
+    /**
+     * Obtiene el calendario de disponibilidad de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param desde la primera fecha del rango.
+     * @param hasta la última fecha del rango.
+     * @return el calendario de disponibilidad.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadDTO obtenerDisponibilidad(Long idServicio, LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            throw new BadRequestException("La fecha 'hasta' no puede ser anterior a la fecha 'desde'");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS) {
+            throw new BadRequestException("El rango de fechas no puede superar " + MAX_DIAS + " días");
+        }
+
+        long ahora = reloj.millis();
+        Calendario calendario = calendarios.get(idServicio);
+        if (calendario == null || calendario.caducado(ahora, cacheTtlMs)) {
+            Servicio servicio = servicioRepository.findById(idServicio);
+            if (servicio == null) {
+                throw new ResourceNotFoundException("No existe un servicio con el ID " + idServicio);
+            }
+            Calendario nuevo = new Calendario(servicio.getLimiteReservas(), calcularPlantilla(servicio), ahora);
+            calendario = calendarios.compute(idServicio,
+                    (id, actual) -> actual != null && !actual.caducado(ahora, cacheTtlMs) ? actual : nuevo);
+        }
+        calendario.descartarAnteriores(LocalDate.now(reloj));
+
+        // Días laborables del rango que todavía no están en caché
+        long version = calendario.version();
+        List<LocalDate> pendientes = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            if (!calendario.horas(dia).isEmpty() && calendario.reservas(dia) == null) {
+                pendientes.add(dia);
+            }
+        }
+        Map<LocalDate, Integer> cargadas = Collections.emptyMap();
+        if (!pendientes.isEmpty()) {
+            Map<LocalDate, Integer> porFecha = reservaRepository.contarReservasPorFecha(
+                    idServicio, pendientes.get(0), pendientes.get(pendientes.size() - 1));
+            cargadas = new HashMap<>();
+            for (LocalDate dia : pendientes) {
+                cargadas.put(dia, porFecha.getOrDefault(dia, 0));
+            }
+            calendario.guardar(version, cargadas);
+        }
+
+        List<DiaDisponibleDTO> dias = new ArrayList<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            List<String> horas = calendario.horas(dia);
+            int libres = 0;
+            if (!horas.isEmpty()) {
+                Integer reservas = cargadas.get(dia);
+                if (reservas == null) {
+                    reservas = calendario.reservas(dia);
+                }
+                libres = Math.max(0, calendario.limite - (reservas != null ? reservas : 0));
+            }
+            dias.add(new DiaDisponibleDTO(dia.toString(), libres, libres > 0 ? horas : List.of()));
+        }
+        return new DisponibilidadDTO(idServicio, desde.toString(), hasta.toString(), dias);
+    }
+
+    /**
+     * Invalida un día de la caché. Se invalida inmediatamente y de nuevo tras
+     * el commit, para descartar también lo que se haya cargado mientras la
+     * transacción estaba abierta.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha afectada.
+     */
+    @Override
+    public void invalidar(Long idServicio, LocalDate fecha) {
+        ahoraYTrasCommit(() -> {
+            Calendario calendario = calendarios.get(idServicio);
+            if (calendario != null) {
+                calendario.invalidar(fecha);
+            }
+        });
+    }
+
+    /**
+     * Elimina el calendario de un servicio de la caché.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void invalidarServicio(Long idServicio) {
+        ahoraYTrasCommit(() -> {
+            Calendario calendario = calendarios.remove(idServicio);
+            if (calendario != null) {
+                calendario.invalidarTodo();
+            }
+        });
+    }
+
+    /**
+     * Calcula las horas de inicio reservables de cada día de la semana: desde
+     * el inicio de cada horario, en saltos de la duración del servicio, siempre
+     * que el servicio termine antes del fin del horario.
+     *
+     * @param servicio el servicio con sus horarios.
+     * @return las horas de inicio de cada día de la semana.
+     */
+    static Map<DayOfWeek, List<String>> calcularPlantilla(Servicio servicio) {
+        Map<DayOfWeek, TreeSet<LocalTime>> horasPorDia = new EnumMap<>(DayOfWeek.class);
+        List<Horario> horarios = servicio.getHorarios() != null ? servicio.getHorarios() : List.of();
+        for (Horario horario : horarios) {
+            LocalTime inicio = horario.getHorarioInicio();
+            LocalTime fin = horario.getHorarioFin();
+            if (inicio == null || fin == null || !inicio.isBefore(fin)) {
+                continue;
+            }
+            List<LocalTime> horas = new ArrayList<>();
+            if (servicio.getDuracion() <= 0) {
+                horas.add(inicio);
+            } else {
+                for (LocalTime hora = inicio; hora.isBefore(fin); ) {
+                    LocalTime finServicio = hora.plusMinutes(servicio.getDuracion());
+                    if (finServicio.isAfter(fin) || !finServicio.isAfter(hora)) {
+                        break;
+                    }
+                    horas.add(hora);
+                    hora = finServicio;
+                }
+            }
+            for (DayOfWeek dia : diasLaborables(horario.getDiasLaborables())) {
+                horasPorDia.computeIfAbsent(dia, d -> new TreeSet<>()).addAll(horas);
+            }
+        }
+
+        Map<DayOfWeek, List<String>> plantilla = new EnumMap<>(DayOfWeek.class);
+        horasPorDia.forEach((dia, horas) -> {
+            if (!horas.isEmpty()) {
+                plantilla.put(dia, horas.stream().map(FORMATO_HORA::format).toList());
+            }
+        });
+        return plantilla;
+    }
+
+    /**
+     * Interpreta el campo {@code diasLaborables} de un horario, por ejemplo
+     * "Lunes,Martes" o "Lunes-Viernes". Si está vacío se consideran todos los
+     * días de la semana.
+     *
+     * @param diasLaborables el texto con los días laborables.
+     * @return los días de la semana correspondientes.
+     */
+    static Set<DayOfWeek> diasLaborables(String diasLaborables) {
+        if (diasLaborables == null || diasLaborables.isBlank()) {
+            return EnumSet.allOf(DayOfWeek.class);
+        }
+        String normalizado = Normalizer.normalize(diasLaborables, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase();
+        Set<DayOfWeek> dias = EnumSet.noneOf(DayOfWeek.class);
+        for (String parte : normalizado.split("[,;/\\s]+")) {
+            String[] rango = parte.split("-");
+            DayOfWeek primero = NOMBRES_DIAS.get(rango[0].trim());
+            if (primero == null) {
+                continue;
+            }
+            DayOfWeek ultimo = rango.length > 1 ? NOMBRES_DIAS.getOrDefault(rango[1].trim(), primero) : primero;
+            for (DayOfWeek dia = primero; ; dia = dia.plus(1)) {
+                dias.add(dia);
+                if (dia == ultimo) {
+                    break;
+                }
+            }
+        }
+        return dias;
+    }
+
+    /**
+     * Ejecuta la acción ahora y, si hay una transacción activa, también tras
+     * su commit.
+     *
+     * @param accion la acción a ejecutar.
+     */
+    private static void ahoraYTrasCommit(Runnable accion) {
+        accion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Calendario en caché de un servicio. La versión se incrementa con cada
+     * invalidación, de modo que una carga iniciada antes de la invalidación
+     * no sobrescribe la caché con datos antiguos.
+     */
+    private static final class Calendario {
+
+        /**
+         * Límite de reservas por día del servicio.
+         */
+        private final int limite;
+
+        /**
+         * Horas de inicio de cada día de la semana.
+         */
+        private final Map<DayOfWeek, List<String>> plantilla;
+
+        /**
+         * Número de reservas de cada día cargado.
+         */
+        private final TreeMap<LocalDate, Integer> reservasPorDia = new TreeMap<>();
+
+        /**
+         * Momento de la carga, en milisegundos.
+         */
+        private final long cargado;
+
+        /**
+         * Versión de la caché.
+         */
+        private long version;
+
+        Calendario(int limite, Map<DayOfWeek, List<String>> plantilla, long cargado) {
+            this.limite = limite;
+            this.plantilla = plantilla;
+            this.cargado = cargado;
+        }
+
+        boolean caducado(long ahora, long ttlMs) {
+            return ahora - cargado >= ttlMs;
+        }
+
+        List<String> horas(LocalDate dia) {
+            return plantilla.getOrDefault(dia.getDayOfWeek(), List.of());
+        }
+
+        synchronized Integer reservas(LocalDate dia) {
+            return reservasPorDia.get(dia);
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void guardar(long versionLeida, Map<LocalDate, Integer> reservas) {
+            if (versionLeida == version) {
+                reservasPorDia.putAll(reservas);
+            }
+        }
+
+        synchronized void invalidar(LocalDate dia) {
+            version++;
+            reservasPorDia.remove(dia);
+        }
+
+        synchronized void invalidarTodo() {
+            version++;
+            reservasPorDia.clear();
+        }
+
+        synchronized void descartarAnteriores(LocalDate hoy) {
+            reservasPorDia.headMap(hoy).clear();
+        }
+    }
+}
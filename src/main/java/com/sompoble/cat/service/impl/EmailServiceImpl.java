@@ -2,9 +2,14 @@ package com.sompoble.cat.service.impl;
 
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Notificacion;
-import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CoordinacionService;
 import com.sompoble.cat.service.EmailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -13,20 +18,36 @@ import org.thymeleaf.context.Context;
 import org.thymeleaf.context.IContext;
 
 import jakarta.mail.MessagingException;
+import jakarta.activation.DataHandler;
+import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.PreencodedMimeBodyPart;
+import jakarta.mail.util.ByteArrayDataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
-import org.springframework.jdbc.core.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Implementación del servicio de envío de correos electrónicos.
@@ -34,15 +55,132 @@ import org.springframework.jdbc.core.JdbcTemplate;
  * Utiliza Spring Mail y Thymeleaf para enviar emails basados en una plantilla
  * HTML.
  * </p>
+ * <p>
+ * La plantilla la analiza Thymeleaf una sola vez (su caché de plantillas está
+ * activa por defecto). Los cuerpos ya renderizados se guardan en una caché LRU
+ * por texto del mensaje, de modo que los textos repetidos no se vuelven a
+ * procesar. El logo se lee y se codifica en base64 una sola vez; cada correo
+ * lo adjunta ya codificado y comparte el mismo búfer, sin copiarlo.
+ * </p>
  */
 @Service
 public class EmailServiceImpl implements EmailService {
 
+    private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
+
     private final JavaMailSender javaMailSender;
     private final TemplateEngine templateEngine;
     private ResourceLoader resourceLoader;
     private final JdbcTemplate jdbcTemplate;
 
+    /**
+     * Ubicación del logo que se embebe en los correos.
+     */
+    static final String LOGO = "classpath:templates/SomPoble.png";
+
+    /**
+     * Número máximo de cuerpos renderizados que se conservan.
+     */
+    @Value("${email.plantilla.cuerpos-cache:500}")
+    private int capacidadCuerpos = 500;
+
+    /**
+     * Cuerpos HTML renderizados por texto del mensaje, en orden de acceso.
+     * Se sincronizan sobre el propio mapa.
+     */
+    private final Map<String, String> cuerpos = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> mayor) {
+            return size() > capacidadCuerpos;
+        }
+    };
+
+    /**
+     * Antelación con la que se registran los recordatorios automáticos: la
+     * del recordatorio de 24 horas del motor de recordatorios.
+     */
+    static final int ANTELACION_RECORDATORIOS = 1440;
+
+    /**
+     * Siguiente bloque de reservas de hoy y de mañana sin recordatorio, con
+     * el DNI, el nombre y el correo del cliente.
+     */
+    static final String SQL_RECORDATORIOS = """
+            SELECT r.ID_RESERVA, r.FECHA, r.HORA, c.DNI, c.NOMBRE, c.EMAIL
+            FROM RESERVA r JOIN CLIENTE c ON c.ID_PERSONA = r.ID_CLIENTE
+            WHERE r.FECHA BETWEEN CURDATE() AND CURDATE() + INTERVAL 1 DAY
+              AND TIMESTAMP(r.FECHA, r.HORA) > NOW()
+              AND NOT EXISTS (
+                  SELECT 1 FROM RECORDATORIO_ENVIADO e
+                  WHERE e.ID_RESERVA = r.ID_RESERVA AND e.ANTELACION_MINUTOS = ?
+                    AND e.FECHA_CITA = TIMESTAMP(r.FECHA, r.HORA))
+              AND r.ID_RESERVA > ?
+            ORDER BY r.ID_RESERVA
+            LIMIT ?
+            """;
+
+    /**
+     * Reclama un recordatorio registrándolo como enviado; la clave única
+     * descarta los que ya estaban registrados, de modo que solo lo reclama
+     * una ejecución.
+     */
+    static final String SQL_REGISTRAR_RECORDATORIO = """
+            INSERT IGNORE INTO RECORDATORIO_ENVIADO (ID_RESERVA, ANTELACION_MINUTOS, FECHA_CITA, FECHA_ENVIO)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    /**
+     * Nombre del arrendamiento de los recordatorios automáticos.
+     */
+    static final String TAREA_RECORDATORIOS = "email.recordatorios";
+
+    /**
+     * Reservas que se leen y se encolan en cada bloque de recordatorios
+     * automáticos.
+     */
+    @Value("${email.recordatorios.lote:500}")
+    private int loteRecordatorios = 500;
+
+    /**
+     * Filas que el driver lee de cada vez al leer un bloque. Con
+     * {@code Integer.MIN_VALUE}, MySQL las envía de una en una.
+     */
+    @Value("${email.recordatorios.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int fetchSizeRecordatorios = Integer.MIN_VALUE;
+
+    /**
+     * Duración del arrendamiento de los recordatorios automáticos: mientras
+     * una instancia los recorre, ninguna otra empieza.
+     */
+    @Value("${email.recordatorios.arrendamiento-ms:600000}")
+    private long arrendamientoRecordatoriosMs = 600_000;
+
+    /**
+     * Bandeja de salida en la que se encolan los recordatorios. Es perezosa
+     * porque la bandeja entrega los correos con este servicio.
+     */
+    @Autowired
+    @Lazy
+    private BandejaSalidaService bandejaSalidaService;
+
+    /**
+     * Plantilla para reclamar y encolar cada bloque en su propia transacción.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Coordinación con las demás instancias.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Logo codificado en base64 con saltos de línea MIME, o un array vacío si
+     * no existe. No se modifica una vez cargado.
+     */
+    private volatile byte[] logoCodificado;
+
     public EmailServiceImpl(JavaMailSender javaMailSender, TemplateEngine templateEngine,
             ResourceLoader resourceLoader, JdbcTemplate jdbcTemplate) {
         this.javaMailSender = javaMailSender;
@@ -60,9 +198,7 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendNotificationEmail(Notificacion notificacion) {
         String recipient = getRecipientEmail(notificacion);
-        Context context = new Context();
-        context.setVariable("message", notificacion.getMensaje());
-        String htmlContent = templateEngine.process("email", context);
+        String htmlContent = renderizar(notificacion.getMensaje());
 
         try {
             MimeMessage mimeMessage = javaMailSender.createMimeMessage();
@@ -70,10 +206,7 @@ public class EmailServiceImpl implements EmailService {
             helper.setTo(recipient);
             helper.setSubject(generateSubject(notificacion.getTipo()));
             helper.setText(htmlContent, true);
-            Resource logoResource = resourceLoader.getResource("classpath:templates/SomPoble.png");
-            if (logoResource.exists()) {
-                helper.addInline("logoImage", logoResource);
-            }
+            adjuntarLogo(helper);
             javaMailSender.send(mimeMessage);
         } catch (Exception e) {
             throw new RuntimeException("Error al enviar el email: " + e.getMessage(), e);
@@ -148,104 +281,299 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public void sendMail(EmailDTO email) throws MessagingException {
         try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setTo(email.getDestinatario());
-            helper.setSubject(email.getAsunto());
+            javaMailSender.send(crearMensaje(email));
+        } catch (Exception e) {
+            throw new RuntimeException("Error al enviar el correo: " + e.getMessage(), e);
 
-            Context context = new Context();
-            context.setVariable("message", email.getMensaje());
-            String contentHtml = templateEngine.process("email", (IContext) context);
+        }
 
-            helper.setText(contentHtml, true);
+    }
 
-            Resource logoResource = resourceLoader.getResource("classpath:templates/SomPoble.png");
-            helper.addInline("logoImage", logoResource);
+    /**
+     * Envía varios correos con una sola llamada a
+     * {@link JavaMailSender#send(MimeMessage...)}, que los entrega por la
+     * misma conexión SMTP. Los errores de la clase
+     * {@link MailSendException} se asignan a cada correo; cualquier otro
+     * error del envío se asigna a todos los correos del lote.
+     *
+     * @param emails los correos a enviar.
+     * @return los errores de los correos que no se han podido enviar, por su
+     * posición en la lista; vacío si se han enviado todos.
+     */
+    @Override
+    public Map<Integer, Exception> sendMails(List<EmailDTO> emails) {
+        Map<Integer, Exception> errores = new HashMap<>();
+        Map<MimeMessage, Integer> posiciones = new IdentityHashMap<>();
+        List<MimeMessage> mensajes = new ArrayList<>(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                MimeMessage mensaje = crearMensaje(emails.get(i));
+                posiciones.put(mensaje, i);
+                mensajes.add(mensaje);
+            } catch (Exception e) {
+                errores.put(i, e);
+            }
+        }
+        if (mensajes.isEmpty()) {
+            return errores;
+        }
+        try {
+            javaMailSender.send(mensajes.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> fallidos = e.getFailedMessages();
+            if (fallidos.isEmpty()) {
+                for (Integer posicion : posiciones.values()) {
+                    errores.put(posicion, e);
+                }
+            }
+            for (Map.Entry<Object, Exception> fallido : fallidos.entrySet()) {
+                Integer posicion = posiciones.get(fallido.getKey());
+                if (posicion != null) {
+                    errores.put(posicion, fallido.getValue());
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Integer posicion : posiciones.values()) {
+                errores.put(posicion, e);
+            }
+        }
+        return errores;
+    }
 
-            javaMailSender.send(message);
+    /**
+     * Construye el mensaje de un correo con la plantilla HTML y el logo
+     * embebido.
+     *
+     * @param email los datos del correo.
+     * @return el mensaje listo para enviar.
+     * @throws MessagingException si los datos del correo no son válidos.
+     */
+    private MimeMessage crearMensaje(EmailDTO email) throws MessagingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setTo(email.getDestinatario());
+        helper.setSubject(email.getAsunto());
+        helper.setText(renderizar(email.getMensaje()), true);
+        adjuntarLogo(helper);
+        return message;
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Error al enviar el correo: " + e.getMessage(), e);
+    /**
+     * Renderiza la plantilla con el texto de un mensaje, o devuelve el cuerpo
+     * ya renderizado para el mismo texto.
+     *
+     * @param mensaje el texto del mensaje.
+     * @return el cuerpo HTML.
+     */
+    String renderizar(String mensaje) {
+        String clave = mensaje != null ? mensaje : "";
+        synchronized (cuerpos) {
+            String cuerpo = cuerpos.get(clave);
+            if (cuerpo != null) {
+                return cuerpo;
+            }
+        }
+        Context context = new Context();
+        context.setVariable("message", mensaje);
+        String cuerpo = templateEngine.process("email", (IContext) context);
+        synchronized (cuerpos) {
+            cuerpos.put(clave, cuerpo);
+        }
+        return cuerpo;
+    }
 
+    /**
+     * Adjunta el logo como imagen embebida, ya codificada en base64.
+     *
+     * @param helper el ayudante del mensaje, en modo multiparte.
+     * @throws MessagingException si no se puede añadir la parte.
+     */
+    private void adjuntarLogo(MimeMessageHelper helper) throws MessagingException {
+        byte[] logo = logoCodificado();
+        if (logo.length == 0) {
+            return;
         }
+        MimeBodyPart parte = new PreencodedMimeBodyPart("base64");
+        parte.setDisposition(MimeBodyPart.INLINE);
+        parte.setContentID("<logoImage>");
+        parte.setDataHandler(new DataHandler(new ByteArrayDataSource(logo, "image/png")));
+        helper.getMimeMultipart().addBodyPart(parte);
+    }
 
+    /**
+     * Lee y codifica el logo la primera vez que se necesita.
+     *
+     * @return el logo codificado, o un array vacío si no existe.
+     */
+    private byte[] logoCodificado() {
+        byte[] logo = logoCodificado;
+        if (logo == null) {
+            synchronized (this) {
+                logo = logoCodificado;
+                if (logo == null) {
+                    Resource logoResource = resourceLoader.getResource(LOGO);
+                    if (logoResource.exists()) {
+                        try (InputStream entrada = logoResource.getInputStream()) {
+                            logo = Base64.getMimeEncoder().encode(entrada.readAllBytes());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException("No se ha podido leer el logo", e);
+                        }
+                    } else {
+                        logo = new byte[0];
+                    }
+                    logoCodificado = logo;
+                }
+            }
+        }
+        return logo;
     }
 
     /**
-     * Envía recordatorios automáticos por correo electrónico para las reservas
-     * próximas.
-     * <p>
-     * Este método consulta la base de datos en busca de reservas cuya fecha
-     * esté entre el día actual y el siguiente día. Por cada reserva encontrada,
-     * se genera una notificación de tipo "información" y se envía un correo
-     * electrónico al cliente asociado a la reserva.
-     * </p>
+     * Encola en la bandeja de salida recordatorios automáticos para las
+     * reservas de hoy y de mañana cuya cita aún no ha pasado.
      * <p>
-     * El envío de correos se realiza mediante el método
-     * {@code sendNotificationEmail(Notificacion notificacion)}.
+     * Solo los recorre la instancia que obtiene el arrendamiento
+     * {@value #TAREA_RECORDATORIOS}. Las reservas se leen por bloques de
+     * {@code email.recordatorios.lote}, en orden de identificador y a partir
+     * de la última del bloque anterior, con una consulta que trae también los
+     * datos del cliente. Cada bloque se lee en streaming con el
+     * {@code fetch-size} configurado y se procesa en una transacción que, por
+     * cada reserva, reclama el recordatorio de 24 horas de su cita en
+     * {@code RECORDATORIO_ENVIADO} con {@code INSERT IGNORE} y lo encola solo
+     * si lo ha reclamado. Así, ni otra ejecución ni el motor de recordatorios
+     * lo repiten, y si la transacción falla no queda ni reclamado ni
+     * encolado, y se reintenta en la siguiente ejecución. El envío, sus
+     * reintentos y los límites de frecuencia quedan a cargo de la bandeja.
+     * Solo se mantiene en memoria un bloque cada vez.
      * </p>
      */
     @Override
     public void sendAutomaticReminders() {
-        // Consultar reservas próximas
-        String sql = "SELECT ID_RESERVA, FECHA, HORA FROM RESERVA WHERE FECHA >= CURDATE() AND FECHA <= DATE_ADD(CURDATE(), INTERVAL 1 DAY)";
-        List<Reserva> reservasProximas = jdbcTemplate.query(sql, new ReservaRowMapper());
-
-        for (Reserva reserva : reservasProximas) {
-            Notificacion notificacion = new Notificacion();
-            notificacion.setTipo(Notificacion.TipoNotificacion.INFORMACION);
-            notificacion.setMensaje("Recuerda que tienes una reserva programada para el " + reserva.getFechaReserva());
-            notificacion.setCliente(reserva.getCliente());
-
-            // Enviar notificación por email
-            sendNotificationEmail(notificacion);
+        if (!coordinacionService.adquirir(TAREA_RECORDATORIOS, arrendamientoRecordatoriosMs)) {
+            return;
+        }
+        long ultimo = 0;
+        int encolados = 0;
+        List<RecordatorioAutomatico> bloque;
+        do {
+            bloque = leerBloque(ultimo);
+            if (bloque.isEmpty()) {
+                break;
+            }
+            ultimo = bloque.get(bloque.size() - 1).idReserva;
+            encolados += encolarBloque(bloque);
+        } while (bloque.size() == loteRecordatorios);
+        if (encolados > 0) {
+            logger.info("Encolados {} recordatorios automáticos", encolados);
         }
     }
 
     /**
-     * RowMapper para mapear los resultados de la consulta a objetos Reserva.
+     * Lee en streaming el siguiente bloque de reservas pendientes de
+     * recordatorio.
+     *
+     * @param despuesDe el identificador de la última reserva leída.
+     * @return las reservas del bloque, en orden de identificador.
      */
-    private static class ReservaRowMapper implements RowMapper {
-
-        public Reserva mapRow(ResultSet rs, int rowNum) throws SQLException {
-            Reserva reserva = new Reserva();
-
-            // Mapear ID de reserva
-            reserva.setIdReserva(rs.getLong("ID_RESERVA"));
-
-            // Parsear fecha desde String a LocalDate
-            String fechaStr = rs.getString("FECHA");
-            if (fechaStr != null && !fechaStr.isEmpty()) {
-                try {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                    LocalDate fecha = LocalDate.parse(fechaStr, formatter);
-                    reserva.setFechaReserva(fecha.toString()); // Convertir de nuevo a String
-                } catch (DateTimeParseException e) {
-                    throw new RuntimeException("Error al parsear la fecha: " + fechaStr, e);
-                }
-            }
+    private List<RecordatorioAutomatico> leerBloque(long despuesDe) {
+        List<RecordatorioAutomatico> bloque = new ArrayList<>(loteRecordatorios);
+        jdbcTemplate.query(con -> {
+            PreparedStatement consulta = con.prepareStatement(SQL_RECORDATORIOS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            consulta.setFetchSize(fetchSizeRecordatorios);
+            consulta.setInt(1, ANTELACION_RECORDATORIOS);
+            consulta.setLong(2, despuesDe);
+            consulta.setInt(3, loteRecordatorios);
+            return consulta;
+        }, (RowCallbackHandler) fila -> bloque.add(new RecordatorioAutomatico(
+                fila.getLong("ID_RESERVA"),
+                fila.getObject("FECHA", LocalDate.class),
+                fila.getObject("HORA", LocalTime.class),
+                fila.getString("DNI"),
+                fila.getString("NOMBRE"),
+                fila.getString("EMAIL"))));
+        return bloque;
+    }
 
-            // Parsear hora desde String a LocalTime
-            String horaStr = rs.getString("HORA");
-            if (horaStr != null && !horaStr.isEmpty()) {
-                try {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-                    LocalTime hora = LocalTime.parse(horaStr, formatter);
-                    reserva.setHora(hora.toString()); // Convertir de nuevo a String
-                } catch (DateTimeParseException e) {
-                    throw new RuntimeException("Error al parsear la hora: " + horaStr, e);
+    /**
+     * Reclama y encola los recordatorios de un bloque en una transacción. Si
+     * falla, se registra en el log y el bloque se reintenta en la siguiente
+     * ejecución.
+     *
+     * @param bloque las reservas del bloque.
+     * @return el número de recordatorios encolados.
+     */
+    private int encolarBloque(List<RecordatorioAutomatico> bloque) {
+        try {
+            Integer encolados = transactionTemplate.execute(estado -> {
+                Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+                int reclamados = 0;
+                for (RecordatorioAutomatico recordatorio : bloque) {
+                    if (jdbcTemplate.update(SQL_REGISTRAR_RECORDATORIO, recordatorio.idReserva,
+                            ANTELACION_RECORDATORIOS, Timestamp.valueOf(recordatorio.fecha.atTime(recordatorio.hora)),
+                            ahora) == 1) {
+                        encolar(recordatorio);
+                        reclamados++;
+                    }
                 }
-            }
+                return reclamados;
+            });
+            return encolados != null ? encolados : 0;
+        } catch (RuntimeException e) {
+            logger.error("No se ha podido encolar un bloque de {} recordatorios automáticos; se reintentará",
+                    bloque.size(), e);
+            return 0;
+        }
+    }
 
-            // Mapear cliente
-            Cliente cliente = new Cliente();
-            cliente.setEmail(rs.getString("EMAIL_CLIENTE"));
-            reserva.setCliente(cliente);
+    /**
+     * Encola el correo y la notificación de un recordatorio automático.
+     *
+     * @param recordatorio la reserva recordada, con los datos del cliente.
+     */
+    private void encolar(RecordatorioAutomatico recordatorio) {
+        Cliente cliente = new Cliente();
+        cliente.setDni(recordatorio.dni);
+        cliente.setNombre(recordatorio.nombre);
+        cliente.setEmail(recordatorio.email);
+        bandejaSalidaService.encolar(cliente,
+                "Recordatorio de Reserva",
+                String.format(
+                        "Estimado/a %s, recuerde que tiene una reserva programada para el %s a las %s.",
+                        recordatorio.nombre, recordatorio.fecha, recordatorio.hora),
+                String.format("Recordatorio: Su reserva es el día %s a las %s.",
+                        recordatorio.fecha, recordatorio.hora),
+                Notificacion.TipoNotificacion.ADVERTENCIA);
+    }
 
-            return reserva;
-        }
+    /**
+     * Reserva leída para un recordatorio automático, con los datos del
+     * cliente.
+     */
+    private static final class RecordatorioAutomatico {
 
+        private final long idReserva;
+
+        private final LocalDate fecha;
+
+        private final LocalTime hora;
+
+        private final String dni;
+
+        private final String nombre;
+
+        private final String email;
+
+        RecordatorioAutomatico(long idReserva, LocalDate fecha, LocalTime hora, String dni, String nombre,
+                String email) {
+            this.idReserva = idReserva;
+            this.fecha = fecha;
+            this.hora = hora;
+            this.dni = dni;
+            this.nombre = nombre;
+            this.email = email;
+        }
     }
 
     /**
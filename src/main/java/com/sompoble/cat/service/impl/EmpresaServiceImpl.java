@@ -8,6 +8,7 @@ import com.sompoble.cat.repository.EmpresaRepository;
 import com.sompoble.cat.service.CloudinaryService;
 import com.sompoble.cat.service.EmpresaService;
 import com.sompoble.cat.service.HorarioService;
+import com.sompoble.cat.service.MetricasService;
 import com.sompoble.cat.service.ReservaService;
 import com.sompoble.cat.service.ServicioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,14 @@ public class EmpresaServiceImpl implements EmpresaService {
     @Autowired
     private HorarioService horarioService;
 
+    /**
+     * Métricas del panel, cuya caché se invalida al modificar o eliminar la
+     * empresa.
+     */
+    @Autowired
+    @Lazy
+    private MetricasService metricasService;
+
     /**
      * {@inheritDoc}
      */
@@ -69,6 +78,7 @@ public class EmpresaServiceImpl implements EmpresaService {
     @Override
     public void updateEmpresa(Empresa empresa) {
         empresaRepository.updateEmpresa(empresa);
+        metricasService.invalidarEmpresa(empresa.getIdEmpresa());
     }
 
     /**
@@ -101,6 +111,7 @@ public class EmpresaServiceImpl implements EmpresaService {
     @Override
     public void deleteById(Long id) {
         empresaRepository.deleteById(id);
+        metricasService.invalidarEmpresa(id);
     }
 
     /**
@@ -133,6 +144,7 @@ public class EmpresaServiceImpl implements EmpresaService {
         }
 
         empresaRepository.deleteByIdentificadorFiscal(identificadorFiscal);
+        metricasService.invalidarEmpresa(idEmpresa);
     }
 
     /**
@@ -0,0 +1,201 @@
+package com.sompoble.cat.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sompoble.cat.dto.MetricaDiariaDTO;
+import com.sompoble.cat.dto.ReservaExportacionDTO;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.ExportacionService;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementación de {@link ExportacionService}.
+ * <p>
+ * Las filas se leen con un cursor de solo avance y se escriben a medida que
+ * llegan a través de un búfer de tamaño fijo, de modo que la memoria usada no
+ * depende del número de filas exportadas.
+ * </p>
+ */
+@Service
+public class ExportacionServiceImpl implements ExportacionService {
+
+    /**
+     * Tamaño del búfer de escritura, en caracteres.
+     */
+    private static final int TAMANO_BUFER = 8192;
+
+    /**
+     * Columnas de la exportación de reservas.
+     */
+    static final String[] COLUMNAS_RESERVAS = {
+        "idReserva", "fechaReserva", "hora", "estado", "dniCliente", "idServicio", "nombreServicio", "precio"
+    };
+
+    /**
+     * Columnas de la exportación de métricas.
+     */
+    static final String[] COLUMNAS_METRICAS = {
+        "fecha", "idServicio", "nombreServicio", "reservas", "ingresos"
+    };
+
+    /**
+     * Serializador de las filas en formato NDJSON.
+     */
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Repositorio del que se leen las reservas.
+     */
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    /**
+     * Repositorio del que se leen los resúmenes diarios.
+     */
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    /**
+     * Escribe las reservas de una empresa en un rango de fechas.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param formato el formato de salida.
+     * @param salida el flujo de salida.
+     * @throws IOException si no se puede escribir en el flujo.
+     */
+    @Override
+    public void exportarReservas(String identificadorFiscal, LocalDate desde, LocalDate hasta, Formato formato,
+            OutputStream salida) throws IOException {
+        exportar(formato, salida, COLUMNAS_RESERVAS,
+                reserva -> new Object[]{
+                    reserva.getIdReserva(), reserva.getFechaReserva(), reserva.getHora(), reserva.getEstado(),
+                    reserva.getDniCliente(), reserva.getIdServicio(), reserva.getNombreServicio(), reserva.getPrecio()
+                },
+                (Consumer<ReservaExportacionDTO> escritor) ->
+                        reservaRepository.recorrerExportacion(identificadorFiscal, desde, hasta, escritor));
+    }
+
+    /**
+     * Escribe las métricas diarias de una empresa en un rango de fechas.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @param desde la primera fecha (inclusive), o {@code null} sin límite.
+     * @param hasta la última fecha (inclusive), o {@code null} sin límite.
+     * @param formato el formato de salida.
+     * @param salida el flujo de salida.
+     * @throws IOException si no se puede escribir en el flujo.
+     */
+    @Override
+    public void exportarMetricas(Long idEmpresa, LocalDate desde, LocalDate hasta, Formato formato,
+            OutputStream salida) throws IOException {
+        exportar(formato, salida, COLUMNAS_METRICAS,
+                metrica -> new Object[]{
+                    metrica.getFecha(), metrica.getIdServicio(), metrica.getNombreServicio(),
+                    metrica.getReservas(), metrica.getIngresos()
+                },
+                (Consumer<MetricaDiariaDTO> escritor) ->
+                        metricaDiariaRepository.recorrer(idEmpresa, desde, hasta, escritor));
+    }
+
+    /**
+     * Escribe en el formato indicado las filas que el recorrido entrega al
+     * escritor. Los errores de escritura se propagan como
+     * {@link IOException}, lo que interrumpe el recorrido y cierra el cursor
+     * si el cliente abandona la descarga.
+     *
+     * @param formato el formato de salida.
+     * @param salida el flujo de salida.
+     * @param columnas los nombres de las columnas, para la cabecera CSV.
+     * @param valores los valores de una fila, en el orden de las columnas.
+     * @param recorrido el recorrido que entrega cada fila al escritor.
+     * @throws IOException si no se puede escribir en el flujo.
+     */
+    private static <T> void exportar(Formato formato, OutputStream salida, String[] columnas,
+            Function<T, Object[]> valores, Consumer<Consumer<T>> recorrido) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFER);
+        try {
+            if (formato == Formato.CSV) {
+                escribirCsv(escritor, columnas);
+                recorrido.accept(fila -> escribir(() -> escribirCsv(escritor, valores.apply(fila))));
+            } else {
+                recorrido.accept(fila -> escribir(() -> {
+                    escritor.write(JSON.writeValueAsString(fila));
+                    escritor.write('\n');
+                }));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+    }
+
+    /**
+     * Escribe una fila CSV según RFC 4180: los campos con comas, comillas o
+     * saltos de línea se entrecomillan, duplicando las comillas. Los textos
+     * que empiezan por un carácter de fórmula se prefijan con un apóstrofo
+     * para que las hojas de cálculo no los evalúen.
+     *
+     * @param escritor el escritor de salida.
+     * @param campos los campos de la fila.
+     * @throws IOException si no se puede escribir.
+     */
+    static void escribirCsv(Writer escritor, Object[] campos) throws IOException {
+        for (int i = 0; i < campos.length; i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            Object campo = campos[i];
+            if (campo == null) {
+                continue;
+            }
+            String texto = campo.toString();
+            if (campo instanceof String && !texto.isEmpty() && "=+-@\t\r".indexOf(texto.charAt(0)) >= 0) {
+                texto = "'" + texto;
+            }
+            if (texto.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+                escritor.write('"');
+                escritor.write(texto.replace("\"", "\"\""));
+                escritor.write('"');
+            } else {
+                escritor.write(texto);
+            }
+        }
+        escritor.write("\r\n");
+    }
+
+    /**
+     * Ejecuta una escritura dentro de un consumidor, envolviendo su
+     * {@link IOException}.
+     *
+     * @param escritura la escritura a ejecutar.
+     */
+    private static void escribir(Escritura escritura) {
+        try {
+            escritura.ejecutar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escritura que puede lanzar {@link IOException}.
+     */
+    @FunctionalInterface
+    private interface Escritura {
+
+        void ejecutar() throws IOException;
+    }
+}
@@ -0,0 +1,199 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.HistogramaDiario;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.HistogramasServicioDTO;
+import com.sompoble.cat.dto.HistogramasServicioDTO.HistogramaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.HistogramaDiarioRepository;
+import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.util.HistogramaReservas;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementación de {@link HistogramasService}.
+ * <p>
+ * Cada reserva incrementa dos cubetas del histograma de su servicio y fecha,
+ * que se bloquea durante la transacción como el estimador de clientes
+ * únicos. Al eliminar o trasladar una reserva se retira de su día original;
+ * las reservas eliminadas en bloque se retiran en la reconciliación nocturna
+ * de métricas, que reconstruye los histogramas. La ocupación no se guarda: se
+ * calcula al consultar a partir del total de cada día y del límite de
+ * reservas vigente del servicio.
+ * </p>
+ */
+@Service
+public class HistogramasServiceImpl implements HistogramasService {
+
+    /**
+     * Número de cubetas de ocupación: una por cada décima del límite y una
+     * para los días completos.
+     */
+    static final int CUBETAS_OCUPACION = 11;
+
+    /**
+     * Etiquetas de las cubetas de ocupación.
+     */
+    private static final List<String> ETIQUETAS_OCUPACION = List.of(
+            "0-10%", "10-20%", "20-30%", "30-40%", "40-50%", "50-60%", "60-70%", "70-80%", "80-90%", "90-100%",
+            "100%");
+
+    @Autowired
+    private HistogramaDiarioRepository histogramaDiarioRepository;
+
+    @Autowired
+    private ServicioRepository servicioRepository;
+
+    /**
+     * Añade o retira las reservas del histograma bloqueado.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha reservada.
+     * @param hora la hora reservada.
+     * @param fechaAlta el momento en que se hizo la reserva, o {@code null}.
+     * @param cantidad el número de reservas que se añaden o retiran.
+     */
+    @Override
+    public void registrar(Long idServicio, LocalDate fecha, LocalTime hora, LocalDateTime fechaAlta, int cantidad) {
+        if (cantidad == 0 || hora == null) {
+            return;
+        }
+        HistogramaDiario histograma = histogramaDiarioRepository.bloquear(idServicio, fecha);
+        HistogramaReservas cubetas = HistogramaReservas.deBytes(histograma.getCubetas());
+        cubetas.registrar(fecha, hora, fechaAlta != null ? fechaAlta : LocalDateTime.now(), cantidad);
+        histograma.setCubetas(cubetas.getBytes());
+    }
+
+    /**
+     * Suma los histogramas de los días del período, en total y por día de la
+     * semana, y clasifica cada día por su ocupación.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param inicio la fecha de inicio del período (opcional).
+     * @param fin la fecha de fin del período (opcional).
+     * @return los histogramas del período.
+     */
+    @Override
+    public HistogramasServicioDTO obtener(Long idServicio, LocalDate inicio, LocalDate fin) {
+        // Si no se proporcionan fechas, se usa el rango de los últimos 6 meses
+        if (inicio == null) {
+            inicio = LocalDate.now().minusMonths(6);
+        }
+        if (fin == null) {
+            fin = LocalDate.now();
+        }
+        if (fin.isBefore(inicio)) {
+            throw new BadRequestException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        Servicio servicio = servicioRepository.findById(idServicio);
+        if (servicio == null) {
+            throw new ResourceNotFoundException("Servicio con ID " + idServicio + " no encontrado");
+        }
+
+        int limite = servicio.getLimiteReservas();
+        Acumulador total = new Acumulador();
+        Acumulador[] porDia = new Acumulador[DayOfWeek.values().length];
+        for (int i = 0; i < porDia.length; i++) {
+            porDia[i] = new Acumulador();
+        }
+        for (HistogramaDiario diario : histogramaDiarioRepository.findByServicio(idServicio, inicio, fin)) {
+            HistogramaReservas histograma = HistogramaReservas.deBytes(diario.getCubetas());
+            if (histograma.isVacio()) {
+                continue;
+            }
+            int ocupacion = cubetaOcupacion(histograma.getTotal(), limite);
+            total.sumar(histograma, ocupacion);
+            porDia[diario.getFecha().getDayOfWeek().ordinal()].sumar(histograma, ocupacion);
+        }
+
+        List<HistogramaDTO> diasSemana = new ArrayList<>(porDia.length);
+        for (DayOfWeek dia : DayOfWeek.values()) {
+            diasSemana.add(porDia[dia.ordinal()].aDTO(dia.getDisplayName(TextStyle.FULL, Locale.ENGLISH)));
+        }
+        return new HistogramasServicioDTO(servicio.getIdServicio(), servicio.getNombre(), limite,
+                inicio.toString(), fin.toString(), HistogramaReservas.ETIQUETAS_ANTELACION, ETIQUETAS_OCUPACION,
+                total.aDTO(null), diasSemana);
+    }
+
+    /**
+     * Sustituye los histogramas del período por los calculados a partir de
+     * las reservas.
+     *
+     * @param inicio la fecha de inicio del período (inclusive).
+     * @param fin la fecha de fin del período (inclusive).
+     */
+    @Override
+    public void reconstruir(LocalDate inicio, LocalDate fin) {
+        histogramaDiarioRepository.sustituir(inicio, fin, histogramaDiarioRepository.calcular(inicio, fin));
+    }
+
+    /**
+     * Elimina los histogramas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void eliminarServicio(Long idServicio) {
+        histogramaDiarioRepository.deleteByServicioId(idServicio);
+    }
+
+    /**
+     * Obtiene la cubeta de ocupación de un día: la décima del límite que se ha
+     * alcanzado o, si se ha llegado al límite, la de los días completos.
+     *
+     * @param reservas las reservas del día.
+     * @param limite el límite de reservas diarias del servicio.
+     * @return el índice de la cubeta.
+     */
+    static int cubetaOcupacion(long reservas, int limite) {
+        if (limite <= 0 || reservas >= limite) {
+            return CUBETAS_OCUPACION - 1;
+        }
+        return (int) (reservas * (CUBETAS_OCUPACION - 1) / limite);
+    }
+
+    /**
+     * Suma de los histogramas de un conjunto de días.
+     */
+    private static final class Acumulador {
+
+        private int dias;
+
+        private long reservas;
+
+        private final long[] reservasPorHora = new long[HistogramaReservas.HORAS];
+
+        private final long[] antelacion = new long[HistogramaReservas.ANTELACIONES];
+
+        private final long[] ocupacion = new long[CUBETAS_OCUPACION];
+
+        void sumar(HistogramaReservas histograma, int cubetaOcupacion) {
+            dias++;
+            reservas += histograma.getTotal();
+            int[] horas = histograma.getPorHora();
+            for (int i = 0; i < horas.length; i++) {
+                reservasPorHora[i] += horas[i];
+            }
+            int[] antelaciones = histograma.getAntelacion();
+            for (int i = 0; i < antelaciones.length; i++) {
+                antelacion[i] += antelaciones[i];
+            }
+            ocupacion[cubetaOcupacion]++;
+        }
+
+        HistogramaDTO aDTO(String diaSemana) {
+            return new HistogramaDTO(diaSemana, dias, reservas, reservasPorHora, antelacion, ocupacion);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+import com.sompoble.cat.repository.PeticionIdempotenteRepository;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.IdempotenciaService;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementación de {@link IdempotenciaService}.
+ * <p>
+ * Las respuestas completadas se guardan en memoria, en un mapa acotado que
+ * descarta primero las menos usadas, y en la tabla PETICION_IDEMPOTENTE, que
+ * conserva las claves tras un reinicio y las comparte entre instancias. La
+ * reserva de una clave siempre se hace en la base de datos, de modo que dos
+ * reintentos simultáneos no pueden procesarse a la vez.
+ * </p>
+ */
+@Service
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+
+    /**
+     * Repositorio de las peticiones idempotentes.
+     */
+    @Autowired
+    private PeticionIdempotenteRepository peticionIdempotenteRepository;
+
+    /**
+     * Coordinación con las demás instancias para la purga.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Tiempo durante el cual se conserva la respuesta de una clave.
+     */
+    @Value("${idempotencia.ttl-horas:24}")
+    private long ttlHoras = 24;
+
+    /**
+     * Tiempo durante el cual una clave en curso no puede reutilizarse; si el
+     * proceso se detiene a mitad de la petición, la clave queda libre
+     * transcurrido este tiempo.
+     */
+    @Value("${idempotencia.bloqueo-segundos:60}")
+    private long bloqueoSegundos = 60;
+
+    /**
+     * Número máximo de respuestas guardadas en memoria.
+     */
+    @Value("${idempotencia.capacidad:10000}")
+    private int capacidad = 10000;
+
+    /**
+     * Intervalo de la purga, que es también la duración de su
+     * arrendamiento.
+     */
+    @Value("${idempotencia.purga-intervalo-ms:600000}")
+    private long purgaIntervaloMs = 600_000;
+
+    /**
+     * Respuestas completadas en memoria, en orden de uso. Los accesos se
+     * sincronizan sobre el propio mapa.
+     */
+    private final Map<String, PeticionIdempotente> completadas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PeticionIdempotente> mayor) {
+            return size() > capacidad;
+        }
+    };
+
+    /**
+     * Intenta reservar una clave. Si la respuesta ya está en memoria no se
+     * accede a la base de datos.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @return {@code null} si se ha reservado la clave, o la petición previa.
+     */
+    @Override
+    public PeticionIdempotente iniciar(String clave, String huella) {
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (completadas) {
+            PeticionIdempotente enMemoria = completadas.get(clave);
+            if (enMemoria != null) {
+                if (!enMemoria.caducada(ahora)) {
+                    return enMemoria;
+                }
+                completadas.remove(clave);
+            }
+        }
+
+        if (peticionIdempotenteRepository.reservar(clave, huella, ahora.plusSeconds(bloqueoSegundos))) {
+            return null;
+        }
+        PeticionIdempotente existente = peticionIdempotenteRepository.findByClave(clave);
+        if (existente != null && !existente.caducada(ahora)) {
+            if (existente.getEstado() == PeticionIdempotente.EstadoPeticion.COMPLETADA) {
+                recordar(existente);
+            }
+            return existente;
+        }
+
+        // La clave ha caducado (o se ha liberado entretanto): se vuelve a intentar
+        peticionIdempotenteRepository.deleteCaducada(clave, ahora);
+        if (peticionIdempotenteRepository.reservar(clave, huella, ahora.plusSeconds(bloqueoSegundos))) {
+            return null;
+        }
+        return peticionIdempotenteRepository.findByClave(clave);
+    }
+
+    /**
+     * Guarda la respuesta en la base de datos y en memoria.
+     *
+     * @param clave la clave de idempotencia.
+     * @param huella la huella de la petición.
+     * @param codigoEstado el código de estado HTTP.
+     * @param tipoContenido el tipo de contenido.
+     * @param cuerpo el cuerpo de la respuesta.
+     */
+    @Override
+    public void completar(String clave, String huella, int codigoEstado, String tipoContenido, byte[] cuerpo) {
+        PeticionIdempotente peticion = new PeticionIdempotente(clave, huella, codigoEstado, tipoContenido,
+                cuerpo, LocalDateTime.now().plusHours(ttlHoras));
+        peticionIdempotenteRepository.completar(peticion);
+        recordar(peticion);
+    }
+
+    /**
+     * Libera una clave reservada.
+     *
+     * @param clave la clave de idempotencia.
+     */
+    @Override
+    public void liberar(String clave) {
+        peticionIdempotenteRepository.liberar(clave);
+    }
+
+    /**
+     * Elimina periódicamente las claves caducadas: las de memoria en cada
+     * instancia, y las de la base de datos solo en la que tiene el
+     * arrendamiento de la purga.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${idempotencia.purga-intervalo-ms:600000}")
+    public void purgarCaducadas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        synchronized (completadas) {
+            completadas.values().removeIf(peticion -> peticion.caducada(ahora));
+        }
+        if (coordinacionService.adquirir("idempotencia.purga", purgaIntervaloMs)) {
+            peticionIdempotenteRepository.deleteCaducadas(ahora);
+        }
+    }
+
+    /**
+     * Guarda una respuesta completada en memoria.
+     *
+     * @param peticion la petición completada.
+     */
+    private void recordar(PeticionIdempotente peticion) {
+        synchronized (completadas) {
+            completadas.put(peticion.getClave(), peticion);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.EntradaListaEspera;
+import com.sompoble.cat.domain.EntradaListaEspera.EstadoEspera;
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ListaEsperaRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CapacidadService;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.ListaEsperaService;
+import com.sompoble.cat.service.MetricasService;
+import com.sompoble.cat.service.ReminderService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementación de {@link ListaEsperaService}.
+ * <p>
+ * Cada promoción se confirma en su propia transacción: se bloquea la primera
+ * entrada en espera, se ocupa la plaza en el libro de capacidad, se crea la
+ * reserva y se encola el aviso al cliente. Si la plaza ya no está libre no se
+ * modifica nada y la entrada sigue en espera con su posición.
+ * </p>
+ */
+@Service
+public class ListaEsperaServiceImpl implements ListaEsperaService {
+
+    /**
+     * Estado de las reservas creadas desde la lista de espera.
+     */
+    static final String ESTADO_RESERVA_PROMOVIDA = "CONFIRMADA";
+
+    /**
+     * Repositorio de las listas de espera.
+     */
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    /**
+     * Repositorio de reservas, donde se guardan las reservas promovidas.
+     */
+    @Autowired
+    private ReservaRepository reservaRepository;
+
+    /**
+     * Resumen diario de reservas, en el que se suman las promovidas.
+     */
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    /**
+     * Estimadores de clientes distintos, en los que se añaden los clientes
+     * promovidos.
+     */
+    @Autowired
+    private ClientesUnicosService clientesUnicosService;
+
+    /**
+     * Histogramas de reservas, en los que se añaden las reservas promovidas.
+     */
+    @Autowired
+    private HistogramasService histogramasService;
+
+    /**
+     * Motor de recordatorios, en el que se programan las reservas promovidas.
+     */
+    @Autowired
+    private ReminderService reminderService;
+
+    /**
+     * Servicio que controla el límite de reservas por servicio y fecha.
+     */
+    @Autowired
+    private CapacidadService capacidadService;
+
+    /**
+     * Calendario de disponibilidad, que se invalida al promover una entrada.
+     */
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    /**
+     * Métricas del panel, cuya caché se invalida al promover una entrada.
+     */
+    @Autowired
+    private MetricasService metricasService;
+
+    /**
+     * Bandeja de salida en la que se encolan los avisos de promoción.
+     */
+    @Autowired
+    private BandejaSalidaService bandejaSalidaService;
+
+    /**
+     * Plantilla con la que se abre una transacción por promoción.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Grupo de hilos en el que se realizan las promociones.
+     */
+    @Autowired
+    @Qualifier("despachadorExecutor")
+    private TaskExecutor despachadorExecutor;
+
+    /**
+     * Coordinación con las demás instancias para el barrido.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Intervalo del barrido, que es también la duración de su
+     * arrendamiento.
+     */
+    @Value("${lista-espera.barrido-intervalo-ms:60000}")
+    private long barridoIntervaloMs = 60_000;
+
+    /**
+     * Apunta a un cliente en la lista de espera. Tras confirmar se intenta
+     * una promoción, por si se ha liberado una plaza desde que se rechazó la
+     * reserva.
+     *
+     * @param cliente el cliente.
+     * @param servicio el servicio solicitado.
+     * @param fecha la fecha solicitada.
+     * @param hora la hora solicitada.
+     * @return la entrada creada con su posición.
+     */
+    @Override
+    @Transactional
+    public EntradaListaEsperaDTO apuntar(Cliente cliente, Servicio servicio, LocalDate fecha, LocalTime hora) {
+        if (fecha.isBefore(LocalDate.now())) {
+            throw new BadRequestException("No se puede entrar en la lista de espera de una fecha pasada");
+        }
+        if (listaEsperaRepository.existsEnEspera(cliente.getIdPersona(), servicio.getIdServicio(), fecha)) {
+            throw new BadRequestException("El cliente ya está en la lista de espera de este servicio para la fecha indicada");
+        }
+        EntradaListaEspera entrada = new EntradaListaEspera(cliente, servicio, fecha, hora);
+        listaEsperaRepository.save(entrada);
+        long posicion = listaEsperaRepository.posicion(entrada);
+        plazaLiberada(servicio.getIdServicio(), fecha);
+
+        return new EntradaListaEsperaDTO(entrada.getIdEntrada(), cliente.getDni(), servicio.getIdServicio(),
+                servicio.getNombre(), fecha, hora, EstadoEspera.EN_ESPERA, posicion, null);
+    }
+
+    /**
+     * Obtiene las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     * @return las entradas en espera con su posición.
+     */
+    @Override
+    public List<EntradaListaEsperaDTO> findEnEsperaByClienteDni(String dni) {
+        return listaEsperaRepository.findEnEsperaByClienteDni(dni);
+    }
+
+    /**
+     * Cancela una entrada en espera.
+     *
+     * @param idEntrada el identificador de la entrada.
+     */
+    @Override
+    public void cancelar(Long idEntrada) {
+        if (!listaEsperaRepository.cancelar(idEntrada)) {
+            throw new ResourceNotFoundException("No existe ninguna entrada en espera con ID " + idEntrada);
+        }
+    }
+
+    /**
+     * Cancela todas las entradas en espera de un cliente.
+     *
+     * @param dni el DNI del cliente.
+     */
+    @Override
+    public void cancelarByClienteDni(String dni) {
+        listaEsperaRepository.cancelarByClienteDni(dni);
+    }
+
+    /**
+     * Programa la promoción de la lista de espera tras el commit de la
+     * transacción actual, o inmediatamente si no hay transacción.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     */
+    @Override
+    public void plazaLiberada(Long idServicio, LocalDate fecha) {
+        Runnable promocion = () -> promover(idServicio, fecha);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despachadorExecutor.execute(promocion);
+                }
+            });
+        } else {
+            despachadorExecutor.execute(promocion);
+        }
+    }
+
+    /**
+     * Promueve entradas, una por transacción, hasta que no queden plazas
+     * libres o entradas en espera.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return el número de entradas promovidas.
+     */
+    @Override
+    public int promover(Long idServicio, LocalDate fecha) {
+        if (fecha.isBefore(LocalDate.now())) {
+            return 0;
+        }
+        int promovidas = 0;
+        while (Boolean.TRUE.equals(transactionTemplate.execute(estado -> promoverPrimera(idServicio, fecha)))) {
+            promovidas++;
+        }
+        return promovidas;
+    }
+
+    /**
+     * Caduca las entradas de fechas pasadas y recorre periódicamente las
+     * listas con entradas en espera. Con varias instancias, el barrido lo
+     * hace solo la que tiene su arrendamiento.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${lista-espera.barrido-intervalo-ms:60000}")
+    public void promoverPendientes() {
+        if (!coordinacionService.adquirir("lista-espera.barrido", barridoIntervaloMs)) {
+            return;
+        }
+        listaEsperaRepository.caducarAnteriores(LocalDate.now());
+        listaEsperaRepository.findFranjasEnEspera().forEach((idServicio, fechas) -> {
+            for (LocalDate fecha : fechas) {
+                promover(idServicio, fecha);
+            }
+        });
+    }
+
+    /**
+     * Elimina las entradas de un servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void eliminarPorServicio(Long idServicio) {
+        listaEsperaRepository.deleteByServicioId(idServicio);
+    }
+
+    /**
+     * Elimina las entradas de los servicios de una empresa.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa.
+     */
+    @Override
+    public void eliminarPorEmpresa(String identificadorFiscal) {
+        listaEsperaRepository.deleteByEmpresaIdentificadorFiscal(identificadorFiscal);
+    }
+
+    /**
+     * Convierte en reserva la primera entrada en espera si queda una plaza
+     * libre. Se ejecuta dentro de la transacción de la promoción.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha.
+     * @return {@code true} si se ha promovido una entrada.
+     */
+    private boolean promoverPrimera(Long idServicio, LocalDate fecha) {
+        EntradaListaEspera entrada = listaEsperaRepository.bloquearPrimera(idServicio, fecha);
+        if (entrada == null) {
+            return false;
+        }
+        Servicio servicio = entrada.getServicio();
+        if (!capacidadService.ocuparPlaza(idServicio, fecha, servicio.getLimiteReservas())) {
+            return false;
+        }
+
+        Cliente cliente = entrada.getCliente();
+        Reserva reserva = new Reserva();
+        reserva.setFechaReserva(fecha);
+        reserva.setHora(entrada.getHora());
+        reserva.setEstado(ESTADO_RESERVA_PROMOVIDA);
+        reserva.setCliente(cliente);
+        reserva.setEmpresa(servicio.getEmpresa());
+        reserva.setServicio(servicio);
+        long precio = reserva.fijarPrecio();
+        reservaRepository.addReserva(reserva);
+        metricaDiariaRepository.acumular(idServicio, fecha, 1, precio);
+        clientesUnicosService.registrar(servicio.getEmpresa().getIdEmpresa(), fecha, cliente.getIdPersona());
+        histogramasService.registrar(idServicio, fecha, entrada.getHora(), reserva.getFechaAlta(), 1);
+        reminderService.programarReserva(reserva.getIdReserva(), fecha, entrada.getHora(), reserva.getFechaAlta());
+
+        entrada.setEstado(EstadoEspera.PROMOVIDA);
+        entrada.setIdReserva(reserva.getIdReserva());
+        disponibilidadService.invalidar(idServicio, fecha);
+        metricasService.invalidar(idServicio, fecha);
+
+        bandejaSalidaService.encolar(cliente,
+                "Reserva confirmada desde la lista de espera",
+                String.format(
+                        "Estimado/a %s,\n\nSe ha liberado una plaza y su reserva ha sido confirmada.\n"
+                        + "Detalles de la reserva:\n"
+                        + "- Fecha: %s\n"
+                        + "- Hora: %s\n"
+                        + "- Servicio: %s\n"
+                        + "- Empresa: %s",
+                        cliente.getNombre(),
+                        fecha,
+                        entrada.getHora(),
+                        servicio.getNombre(),
+                        servicio.getEmpresa().getNombre()
+                ),
+                String.format(
+                        "Se ha liberado una plaza: su reserva para el servicio '%s' el día %s a las %s está confirmada.",
+                        servicio.getNombre(),
+                        fecha,
+                        entrada.getHora()
+                ),
+                Notificacion.TipoNotificacion.INFORMACION);
+        return true;
+    }
+}
@@ -0,0 +1,208 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.dto.MetricaEmpresaDTO;
+import com.sompoble.cat.dto.PanelPlataformaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.service.MetricasPlataformaService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Servicio que calcula las métricas de toda la plataforma a partir del
+ * resumen diario agrupado por empresa.
+ * <p>
+ * En lugar de una consulta por empresa, los identificadores de empresa se
+ * reparten en rangos contiguos y cada rango se agrupa en una única consulta
+ * que se lee con el índice (ID_EMPRESA, FECHA, ...). Con una sola partición
+ * es una única pasada en el hilo de la petición; con más, las particiones se
+ * calculan en paralelo en un grupo de hilos propio, que acota las conexiones
+ * que se usan a la vez. Las clasificaciones se eligen con un montículo del
+ * tamaño pedido, sin ordenar todas las empresas.
+ * </p>
+ */
+@Service
+public class MetricasPlataformaServiceImpl implements MetricasPlataformaService {
+
+    /**
+     * Orden por ingresos descendentes, con las reservas y el identificador
+     * para desempatar.
+     */
+    static final Comparator<MetricaEmpresaDTO> POR_INGRESOS = Comparator
+            .comparing(MetricaEmpresaDTO::getIngresos).reversed()
+            .thenComparing(Comparator.comparingLong(MetricaEmpresaDTO::getReservas).reversed())
+            .thenComparing(MetricaEmpresaDTO::getIdEmpresa);
+
+    /**
+     * Orden por reservas descendentes, con los ingresos y el identificador
+     * para desempatar.
+     */
+    static final Comparator<MetricaEmpresaDTO> POR_RESERVAS = Comparator
+            .comparingLong(MetricaEmpresaDTO::getReservas).reversed()
+            .thenComparing(Comparator.comparing(MetricaEmpresaDTO::getIngresos).reversed())
+            .thenComparing(MetricaEmpresaDTO::getIdEmpresa);
+
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    /**
+     * Ejecutor en el que se calculan las particiones.
+     */
+    @Autowired
+    @Qualifier("metricasPlataformaExecutor")
+    private TaskExecutor metricasPlataformaExecutor;
+
+    /**
+     * Número de rangos de empresas en que se reparte la pasada. Con uno, la
+     * pasada es una única consulta en el hilo de la petición.
+     */
+    @Value("${metricas.plataforma.particiones:4}")
+    private int particiones = 4;
+
+    /**
+     * Número de empresas de cada clasificación si no se indica.
+     */
+    @Value("${metricas.plataforma.top:10}")
+    private int topPorDefecto = 10;
+
+    /**
+     * Número máximo de empresas de cada clasificación.
+     */
+    @Value("${metricas.plataforma.top-maximo:100}")
+    private int topMaximo = 100;
+
+    /**
+     * Obtiene los totales de la plataforma y las empresas con más ingresos y
+     * con más reservas entre dos fechas.
+     *
+     * @param fechaInicio Fecha de inicio del rango (opcional).
+     * @param fechaFin Fecha de fin del rango (opcional).
+     * @param top Número de empresas de cada clasificación (opcional).
+     * @return Un DTO {@link PanelPlataformaDTO} con los totales y las
+     * clasificaciones.
+     * @throws BadRequestException si el rango de fechas o el número de
+     * empresas no son válidos.
+     */
+    @Override
+    public PanelPlataformaDTO obtenerMetricasPlataforma(LocalDate fechaInicio, LocalDate fechaFin, Integer top) {
+        // Si no se proporcionan fechas, se usa el rango de los últimos 6 meses
+        if (fechaInicio == null) {
+            fechaInicio = LocalDate.now().minusMonths(6);
+        }
+        if (fechaFin == null) {
+            fechaFin = LocalDate.now();
+        }
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new BadRequestException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        int limite = top != null ? top : topPorDefecto;
+        if (limite < 1 || limite > topMaximo) {
+            throw new BadRequestException("El número de empresas debe estar entre 1 y " + topMaximo);
+        }
+
+        long totalReservas = 0;
+        long totalCentimos = 0;
+        int empresas = 0;
+        PriorityQueue<MetricaEmpresaDTO> topIngresos = new PriorityQueue<>(POR_INGRESOS.reversed());
+        PriorityQueue<MetricaEmpresaDTO> topReservas = new PriorityQueue<>(POR_RESERVAS.reversed());
+        for (List<MetricaEmpresaDTO> particion : calcularParticiones(fechaInicio, fechaFin)) {
+            for (MetricaEmpresaDTO metrica : particion) {
+                empresas++;
+                totalReservas += metrica.getReservas();
+                totalCentimos += metrica.getIngresos().unscaledValue().longValue();
+                seleccionar(topIngresos, metrica, limite);
+                seleccionar(topReservas, metrica, limite);
+            }
+        }
+
+        return new PanelPlataformaDTO(fechaInicio.toString(), fechaFin.toString(), empresas, totalReservas,
+                BigDecimal.valueOf(totalCentimos, 2), ordenar(topIngresos, POR_INGRESOS),
+                ordenar(topReservas, POR_RESERVAS));
+    }
+
+    /**
+     * Reparte los identificadores de empresa en rangos contiguos y agrupa cada
+     * uno en una consulta. Si hay más de un rango, se calculan en paralelo y
+     * se espera a todos.
+     *
+     * @param fechaInicio Fecha de inicio del rango.
+     * @param fechaFin Fecha de fin del rango.
+     * @return las métricas de cada partición.
+     */
+    private List<List<MetricaEmpresaDTO>> calcularParticiones(LocalDate fechaInicio, LocalDate fechaFin) {
+        long[] rango = metricaDiariaRepository.obtenerRangoEmpresas();
+        if (rango.length == 0) {
+            return List.of();
+        }
+        long minimo = rango[0];
+        long maximo = rango[1];
+        long numero = Math.max(1, Math.min(particiones, maximo - minimo + 1));
+        if (numero == 1) {
+            return List.of(metricaDiariaRepository.obtenerMetricasPorEmpresa(minimo, maximo, fechaInicio, fechaFin));
+        }
+
+        long ancho = (maximo - minimo + numero) / numero;
+        List<CompletableFuture<List<MetricaEmpresaDTO>>> tareas = new ArrayList<>();
+        for (long desde = minimo; desde <= maximo; desde += ancho) {
+            long inicioRango = desde;
+            long finRango = Math.min(desde + ancho - 1, maximo);
+            tareas.add(CompletableFuture.supplyAsync(() -> metricaDiariaRepository.obtenerMetricasPorEmpresa(
+                    inicioRango, finRango, fechaInicio, fechaFin), metricasPlataformaExecutor));
+        }
+        try {
+            List<List<MetricaEmpresaDTO>> resultados = new ArrayList<>(tareas.size());
+            for (CompletableFuture<List<MetricaEmpresaDTO>> tarea : tareas) {
+                resultados.add(tarea.join());
+            }
+            return resultados;
+        } catch (CompletionException e) {
+            tareas.forEach(tarea -> tarea.cancel(false));
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException("Error al calcular las métricas de la plataforma", e.getCause());
+        }
+    }
+
+    /**
+     * Añade una empresa a un montículo cuya cabeza es la peor de las
+     * seleccionadas, descartando la peor si se supera el límite.
+     *
+     * @param monticulo las empresas seleccionadas.
+     * @param metrica la empresa candidata.
+     * @param limite el número máximo de empresas seleccionadas.
+     */
+    private static void seleccionar(PriorityQueue<MetricaEmpresaDTO> monticulo, MetricaEmpresaDTO metrica, int limite) {
+        if (monticulo.size() < limite) {
+            monticulo.add(metrica);
+        } else if (monticulo.comparator().compare(metrica, monticulo.peek()) > 0) {
+            monticulo.poll();
+            monticulo.add(metrica);
+        }
+    }
+
+    /**
+     * Devuelve las empresas seleccionadas de la mejor a la peor.
+     *
+     * @param monticulo las empresas seleccionadas.
+     * @param orden el orden de la clasificación.
+     * @return las empresas ordenadas.
+     */
+    private static List<MetricaEmpresaDTO> ordenar(PriorityQueue<MetricaEmpresaDTO> monticulo,
+            Comparator<MetricaEmpresaDTO> orden) {
+        List<MetricaEmpresaDTO> ordenadas = new ArrayList<>(monticulo);
+        ordenadas.sort(orden);
+        return ordenadas;
+    }
+}
@@ -1,23 +1,62 @@
 package com.sompoble.cat.service.impl;
 
 import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.EstadisticasCacheDTO;
+import com.sompoble.cat.dto.MetricaServicioMesDTO;
 import com.sompoble.cat.dto.PanelMetricasDTO;
 import com.sompoble.cat.repository.EmpresaRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
 import com.sompoble.cat.repository.ReservaRepository;
 import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.HistogramasService;
 import com.sompoble.cat.service.MetricasService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 
 /**
  * Servicio que procesa y agrega las métricas para el panel de control de
  * empresas. Se encarga de consultar los datos de reservas, ingresos y clientes,
  * tanto totales como desglosados, y empaquetarlos en un objeto
  * {@link PanelMetricasDTO}.
+ * <p>
+ * Las reservas y los ingresos se leen del resumen diario por servicio, que se
+ * reconcilia cada noche con las reservas. Una única consulta agrupada por
+ * servicio y mes basta para los totales, el desglose por servicio y el
+ * mensual, y los ingresos se suman en céntimos para que sean exactos. Los clientes únicos no se pueden
+ * sumar entre días: en rangos cortos se cuentan de forma exacta sobre las
+ * reservas y en el resto se estiman uniendo los estimadores HyperLogLog de
+ * cada día.
+ * </p>
+ * <p>
+ * La caché tiene tres niveles, todos con capacidad y tiempo de vida
+ * acotados: la empresa de cada identificador fiscal, la empresa de cada
+ * servicio y los paneles por empresa y rango de fechas. Al igual que el
+ * calendario de disponibilidad, se invalida inmediatamente y de nuevo tras
+ * el commit, y una versión por empresa, de un conjunto fijo de versiones,
+ * evita que un panel calculado antes de una invalidación se guarde después. Los paneles en caché se comparten
+ * entre peticiones y no se deben modificar.
+ * </p>
  */
 @Service
 public class MetricasServiceImpl implements MetricasService {
@@ -31,6 +70,104 @@ public class MetricasServiceImpl implements MetricasService {
     @Autowired
     private ServicioRepository servicioRepository;
 
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Autowired
+    private ClientesUnicosService clientesUnicosService;
+
+    @Autowired
+    private HistogramasService histogramasService;
+
+    /**
+     * Número máximo de días de un rango para el que los clientes únicos se
+     * cuentan de forma exacta.
+     */
+    @Value("${metricas.clientes-exactos.dias-maximos:31}")
+    private long diasMaximosClientesExactos = 31;
+
+    /**
+     * Plantilla con la que se abre una transacción por mes reconciliado.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Coordinación con las demás instancias para la reconciliación.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Duración del arrendamiento de la reconciliación: mientras dura, las
+     * demás instancias no la ejecutan aunque su reloj vaya con retraso.
+     */
+    @Value("${metricas.reconciliacion.arrendamiento-ms:3600000}")
+    private long arrendamientoReconciliacionMs = 3_600_000;
+
+    /**
+     * Número de días pendientes que se leen en cada consulta de la
+     * reconciliación.
+     */
+    @Value("${metricas.reconciliacion.lote:500}")
+    private int loteReconciliacion = 500;
+
+    /**
+     * Número máximo de entradas de cada nivel de la caché.
+     */
+    @Value("${metricas.cache.capacidad:1000}")
+    private int capacidadCache = 1000;
+
+    /**
+     * Tiempo de vida de las entradas de la caché, en segundos.
+     */
+    @Value("${metricas.cache.ttl-segundos:300}")
+    private long ttlCacheSegundos = 300;
+
+    /**
+     * Empresas en caché, indexadas por identificador fiscal.
+     */
+    private final Nivel<String, EmpresaCacheada> empresas = new Nivel<>();
+
+    /**
+     * Empresa de cada servicio, indexada por identificador de servicio. La
+     * empresa de un servicio no cambia, por lo que no se versiona.
+     */
+    private final Nivel<Long, Long> servicios = new Nivel<>();
+
+    /**
+     * Paneles en caché, indexados por empresa y rango de fechas.
+     */
+    private final Nivel<ClavePanel, PanelMetricasDTO> paneles = new Nivel<>();
+
+    /**
+     * Número de versiones por empresa. Las empresas se reparten entre ellas
+     * por su identificador, de modo que la memoria no crece con el número de
+     * empresas; dos empresas que comparten versión solo se invalidan de más.
+     */
+    static final int VERSIONES = 256;
+
+    /**
+     * Versiones de las empresas, que se incrementan al invalidar sus
+     * paneles. Se protegen con el monitor de {@link #paneles}.
+     */
+    private final long[] versiones = new long[VERSIONES];
+
+    /**
+     * Versión común a todas las empresas, que se incrementa al invalidar
+     * paneles de empresas desconocidas. Se protege con el monitor de
+     * {@link #paneles}.
+     */
+    private long epoca;
+
+    /**
+     * Versión del nivel de empresas. Se protege con el monitor de
+     * {@link #empresas}.
+     */
+    private long versionEmpresas;
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricasServiceImpl.class);
+
     /**
      * Obtiene las métricas generales y detalladas de una empresa entre dos
      * fechas. Si no se proporciona un rango de fechas, se considera por defecto
@@ -40,14 +177,13 @@ public class MetricasServiceImpl implements MetricasService {
      * @param fechaInicio Fecha de inicio del rango (opcional).
      * @param fechaFin Fecha de fin del rango (opcional).
      * @return Un DTO {@link PanelMetricasDTO} que contiene las métricas de
-     * reservas, ingresos y clientes.
+     * reservas, ingresos y clientes, posiblemente servido desde la caché.
      * @throws RuntimeException si la empresa no es encontrada por su
      * identificador fiscal.
      */
     @Override
     public PanelMetricasDTO obtenerMetricas(String identificadorFiscal, LocalDate fechaInicio, LocalDate fechaFin) {
-        Empresa empresa = Optional.ofNullable(empresaRepository.findByIdentificadorFiscalFull(identificadorFiscal))
-                .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
+        EmpresaCacheada empresa = resolverEmpresa(identificadorFiscal);
 
         // Si no se proporcionan fechas, se usa el rango de los últimos 6 meses
         if (fechaInicio == null) {
@@ -57,26 +193,422 @@ public class MetricasServiceImpl implements MetricasService {
             fechaFin = LocalDate.now();
         }
 
-        // Métricas totales
-        Long totalReservas = reservaRepository.contarReservasPorEmpresaYFechas(
-                empresa.getIdEmpresa(), fechaInicio, fechaFin);
-        Double totalIngresos = Optional.ofNullable(reservaRepository.sumarIngresosPorEmpresaYFechas(
-                empresa.getIdEmpresa(), fechaInicio, fechaFin)).orElse(0.0);
-        Integer clientesUnicos = reservaRepository.contarClientesUnicos(
-                empresa.getIdEmpresa(), fechaInicio, fechaFin);
+        ClavePanel clave = new ClavePanel(empresa.idEmpresa, fechaInicio, fechaFin);
+        PanelMetricasDTO panel = paneles.obtener(clave);
+        if (panel != null) {
+            return panel;
+        }
+        long version;
+        synchronized (paneles) {
+            version = version(empresa.idEmpresa);
+        }
+        panel = calcularPanel(empresa, fechaInicio, fechaFin);
+        synchronized (paneles) {
+            if (version(empresa.idEmpresa) == version) {
+                paneles.guardar(clave, panel);
+            }
+        }
+        return panel;
+    }
 
-        // Métricas mensuales
-        List<PanelMetricasDTO.MetricasMensualesDTO> mensual = reservaRepository.obtenerMetricasMensuales(
-                empresa.getIdEmpresa(), fechaInicio, fechaFin);
+    /**
+     * Calcula el panel de métricas de una empresa a partir del resumen
+     * diario.
+     *
+     * @param empresa Empresa del panel.
+     * @param fechaInicio Fecha de inicio del rango.
+     * @param fechaFin Fecha de fin del rango.
+     * @return El panel de métricas.
+     */
+    private PanelMetricasDTO calcularPanel(EmpresaCacheada empresa, LocalDate fechaInicio, LocalDate fechaFin) {
+        // Reservas e ingresos por servicio y mes, a partir del resumen diario
+        List<MetricaServicioMesDTO> filas = metricaDiariaRepository.obtenerMetricasPorServicioYMes(
+                empresa.idEmpresa, fechaInicio, fechaFin);
+
+        // Totales, desglose por servicio y desglose mensual en una sola pasada
+        long totalReservas = 0;
+        long totalCentimos = 0;
+        Map<Long, long[]> porServicio = new LinkedHashMap<>();
+        Map<Long, String> nombres = new HashMap<>();
+        SortedMap<Integer, long[]> porMes = new TreeMap<>();
+        for (MetricaServicioMesDTO fila : filas) {
+            totalReservas += fila.getReservas();
+            totalCentimos += fila.getIngresosCentimos();
+            acumular(porServicio.computeIfAbsent(fila.getIdServicio(), id -> new long[2]), fila);
+            acumular(porMes.computeIfAbsent(fila.getMes(), mes -> new long[2]), fila);
+            nombres.put(fila.getIdServicio(), fila.getNombreServicio());
+            servicios.guardar(fila.getIdServicio(), empresa.idEmpresa);
+        }
+
+        List<PanelMetricasDTO.ServicioResumenDTO> servicios = new ArrayList<>(porServicio.size());
+        porServicio.forEach((idServicio, suma) -> servicios.add(new PanelMetricasDTO.ServicioResumenDTO(
+                idServicio, nombres.get(idServicio), suma[0], BigDecimal.valueOf(suma[1], 2))));
+        servicios.sort(Comparator.comparing(PanelMetricasDTO.ServicioResumenDTO::getIngresos).reversed()
+                .thenComparing(PanelMetricasDTO.ServicioResumenDTO::getReservas, Comparator.reverseOrder()));
+
+        List<PanelMetricasDTO.MetricasMensualesDTO> mensual = new ArrayList<>(porMes.size());
+        porMes.forEach((mes, suma) -> mensual.add(new PanelMetricasDTO.MetricasMensualesDTO(
+                Month.of(mes).getDisplayName(TextStyle.FULL, Locale.ENGLISH), suma[0], BigDecimal.valueOf(suma[1], 2))));
+
+        Integer clientesUnicos = ChronoUnit.DAYS.between(fechaInicio, fechaFin) < diasMaximosClientesExactos
+                ? reservaRepository.contarClientesUnicos(empresa.idEmpresa, fechaInicio, fechaFin)
+                : clientesUnicosService.estimar(empresa.idEmpresa, fechaInicio, fechaFin);
 
         // Construcción del DTO
         PanelMetricasDTO panel = new PanelMetricasDTO();
-        panel.setNombreEmpresa(empresa.getNombre());
+        panel.setNombreEmpresa(empresa.nombre);
         panel.setTotalReservas(totalReservas);
-        panel.setTotalIngresos(totalIngresos);
+        panel.setTotalIngresos(BigDecimal.valueOf(totalCentimos, 2).doubleValue());
         panel.setClientesUnicos(clientesUnicos);
         panel.setMensual(mensual);
+        panel.setServicios(servicios);
 
         return panel;
     }
+
+    /**
+     * Obtiene la empresa de un identificador fiscal, de la caché o de la base
+     * de datos.
+     *
+     * @param identificadorFiscal Identificador fiscal de la empresa.
+     * @return La empresa.
+     * @throws RuntimeException si la empresa no es encontrada.
+     */
+    private EmpresaCacheada resolverEmpresa(String identificadorFiscal) {
+        EmpresaCacheada empresa = empresas.obtener(identificadorFiscal);
+        if (empresa != null) {
+            return empresa;
+        }
+        long version;
+        synchronized (empresas) {
+            version = versionEmpresas;
+        }
+        Empresa encontrada = Optional.ofNullable(empresaRepository.findByIdentificadorFiscalFull(identificadorFiscal))
+                .orElseThrow(() -> new RuntimeException("Empresa no encontrada"));
+        empresa = new EmpresaCacheada(encontrada.getIdEmpresa(), encontrada.getNombre());
+        synchronized (empresas) {
+            if (versionEmpresas == version) {
+                empresas.guardar(identificadorFiscal, empresa);
+            }
+        }
+        return empresa;
+    }
+
+    /**
+     * Invalida los paneles en caché de la empresa del servicio que incluyen
+     * la fecha. Si no se conoce la empresa, se invalidan los de todas.
+     *
+     * @param idServicio el identificador del servicio.
+     * @param fecha la fecha de la reserva.
+     */
+    @Override
+    public void invalidar(Long idServicio, LocalDate fecha) {
+        Long idEmpresa = empresaDeServicio(idServicio);
+        ahoraYTrasCommit(() -> invalidarPaneles(idEmpresa,
+                clave -> !fecha.isBefore(clave.inicio) && !fecha.isAfter(clave.fin)));
+    }
+
+    /**
+     * Invalida todos los paneles en caché de la empresa del servicio.
+     *
+     * @param idServicio el identificador del servicio.
+     */
+    @Override
+    public void invalidarServicio(Long idServicio) {
+        Long idEmpresa = empresaDeServicio(idServicio);
+        ahoraYTrasCommit(() -> {
+            servicios.invalidarSi((id, empresa) -> id.equals(idServicio));
+            invalidarPaneles(idEmpresa, clave -> true);
+        });
+    }
+
+    /**
+     * Invalida la empresa y todos sus paneles en caché.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     */
+    @Override
+    public void invalidarEmpresa(Long idEmpresa) {
+        ahoraYTrasCommit(() -> {
+            synchronized (empresas) {
+                versionEmpresas++;
+                empresas.invalidarSi((identificadorFiscal, empresa) -> Objects.equals(empresa.idEmpresa, idEmpresa));
+            }
+            invalidarPaneles(idEmpresa, clave -> true);
+        });
+    }
+
+    /**
+     * Obtiene los contadores de cada nivel de la caché.
+     *
+     * @return las estadísticas de la caché.
+     */
+    @Override
+    public EstadisticasCacheDTO estadisticasCache() {
+        return new EstadisticasCacheDTO(empresas.estadisticas(), servicios.estadisticas(), paneles.estadisticas());
+    }
+
+    /**
+     * Obtiene la empresa de un servicio, de la caché o de la base de datos.
+     *
+     * @param idServicio el identificador del servicio.
+     * @return el identificador de la empresa, o {@code null} si el servicio
+     * no existe.
+     */
+    private Long empresaDeServicio(Long idServicio) {
+        Long idEmpresa = servicios.obtener(idServicio);
+        if (idEmpresa == null) {
+            Servicio servicio = servicioRepository.findById(idServicio);
+            if (servicio == null || servicio.getEmpresa() == null) {
+                return null;
+            }
+            idEmpresa = servicio.getEmpresa().getIdEmpresa();
+            servicios.guardar(idServicio, idEmpresa);
+        }
+        return idEmpresa;
+    }
+
+    /**
+     * Incrementa la versión de una empresa y descarta sus paneles que cumplen
+     * la condición.
+     *
+     * @param idEmpresa el identificador de la empresa, o {@code null} para
+     * todas las empresas.
+     * @param condicion condición sobre la clave de cada panel.
+     */
+    private void invalidarPaneles(Long idEmpresa, Predicate<ClavePanel> condicion) {
+        synchronized (paneles) {
+            if (idEmpresa == null) {
+                epoca++;
+            } else {
+                versiones[indiceVersion(idEmpresa)]++;
+            }
+            paneles.invalidarSi((clave, panel) -> (idEmpresa == null || idEmpresa.equals(clave.idEmpresa))
+                    && condicion.test(clave));
+        }
+    }
+
+    /**
+     * Obtiene la versión de una empresa. Se debe llamar con el monitor de
+     * {@link #paneles}.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @return la versión.
+     */
+    private long version(Long idEmpresa) {
+        return epoca + versiones[indiceVersion(idEmpresa)];
+    }
+
+    /**
+     * Obtiene la posición de la versión de una empresa.
+     *
+     * @param idEmpresa el identificador de la empresa.
+     * @return la posición en {@link #versiones}.
+     */
+    private static int indiceVersion(Long idEmpresa) {
+        return Math.floorMod(idEmpresa.hashCode(), VERSIONES);
+    }
+
+    /**
+     * Ejecuta la acción ahora y, si hay una transacción activa, también tras
+     * su commit.
+     *
+     * @param accion la acción a ejecutar.
+     */
+    private static void ahoraYTrasCommit(Runnable accion) {
+        accion.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Suma las reservas y los céntimos de una fila al acumulado indicado.
+     *
+     * @param suma Acumulado de reservas (posición 0) y céntimos (posición 1).
+     * @param fila Fila de métricas de un servicio en un mes.
+     */
+    private static void acumular(long[] suma, MetricaServicioMesDTO fila) {
+        suma[0] += fila.getReservas();
+        suma[1] += fila.getIngresosCentimos();
+    }
+
+    /**
+     * Reconcilia cada noche el resumen diario, los estimadores de clientes y
+     * los histogramas con las reservas de los días pendientes, un día por
+     * transacción. Los días se marcan al retirar reservas, ya que los
+     * estimadores de clientes no admiten bajas y los histogramas no ven las
+     * eliminaciones en bloque; el resto del historial no se vuelve a leer.
+     * Los ingresos se recalculan con el precio guardado en cada reserva, por
+     * lo que un cambio de precio del servicio no los altera. Si un día falla,
+     * se registra, sigue pendiente y se continúa con el siguiente. Al
+     * terminar se descartan los paneles en caché que incluyen algún día
+     * reconciliado. Con varias instancias, la reconciliación la hace solo la
+     * que obtiene su arrendamiento; en las demás los paneles caducan por su
+     * tiempo de vida.
+     */
+    @Override
+    @Scheduled(cron = "${metricas.reconciliacion.cron:0 30 3 * * ?}", zone = "Europe/Madrid")
+    public void reconciliar() {
+        if (!coordinacionService.adquirir("metricas.reconciliacion", arrendamientoReconciliacionMs)) {
+            return;
+        }
+        SortedSet<LocalDate> reconciliados = new TreeSet<>();
+        LocalDate ultimo = null;
+        List<LocalDate> pendientes;
+        do {
+            pendientes = metricaDiariaRepository.findPendientes(ultimo, loteReconciliacion);
+            for (LocalDate dia : pendientes) {
+                try {
+                    transactionTemplate.executeWithoutResult(estado -> {
+                        metricaDiariaRepository.retirarPendiente(dia);
+                        metricaDiariaRepository.reconciliar(dia, dia);
+                        clientesUnicosService.reconstruir(dia, dia);
+                        histogramasService.reconstruir(dia, dia);
+                    });
+                    reconciliados.add(dia);
+                } catch (RuntimeException e) {
+                    logger.error("No se ha podido reconciliar el resumen de métricas del {}", dia, e);
+                }
+                ultimo = dia;
+            }
+        } while (pendientes.size() == loteReconciliacion);
+        if (!reconciliados.isEmpty()) {
+            invalidarPaneles(null, clave -> !clave.inicio.isAfter(clave.fin)
+                    && !reconciliados.subSet(clave.inicio, clave.fin.plusDays(1)).isEmpty());
+        }
+    }
+
+    /**
+     * Empresa en caché: solo los datos que necesita el panel.
+     */
+    private static final class EmpresaCacheada {
+
+        private final Long idEmpresa;
+
+        private final String nombre;
+
+        EmpresaCacheada(Long idEmpresa, String nombre) {
+            this.idEmpresa = idEmpresa;
+            this.nombre = nombre;
+        }
+    }
+
+    /**
+     * Clave de un panel en caché: empresa y rango de fechas.
+     */
+    private static final class ClavePanel {
+
+        private final Long idEmpresa;
+
+        private final LocalDate inicio;
+
+        private final LocalDate fin;
+
+        ClavePanel(Long idEmpresa, LocalDate inicio, LocalDate fin) {
+            this.idEmpresa = idEmpresa;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            if (this == otro) {
+                return true;
+            }
+            if (!(otro instanceof ClavePanel clave)) {
+                return false;
+            }
+            return Objects.equals(idEmpresa, clave.idEmpresa) && inicio.equals(clave.inicio) && fin.equals(clave.fin);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(idEmpresa, inicio, fin);
+        }
+    }
+
+    /**
+     * Valor en caché junto con el instante en que se guardó.
+     */
+    private static final class Entrada<V> {
+
+        private final V valor;
+
+        private final long guardada;
+
+        Entrada(V valor, long guardada) {
+            this.valor = valor;
+            this.guardada = guardada;
+        }
+    }
+
+    /**
+     * Nivel de la caché: un mapa LRU acotado a {@link #capacidadCache}
+     * entradas, cuyas entradas caducan tras {@link #ttlCacheSegundos}
+     * segundos, con sus contadores.
+     */
+    private final class Nivel<K, V> {
+
+        private final Map<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> mayor) {
+                if (size() > capacidadCache) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private long aciertos;
+
+        private long fallos;
+
+        private long desalojos;
+
+        private long caducadas;
+
+        private long invalidadas;
+
+        synchronized V obtener(K clave) {
+            Entrada<V> entrada = entradas.get(clave);
+            if (entrada != null && System.nanoTime() - entrada.guardada >= TimeUnit.SECONDS.toNanos(ttlCacheSegundos)) {
+                entradas.remove(clave);
+                caducadas++;
+                entrada = null;
+            }
+            if (entrada == null) {
+                fallos++;
+                return null;
+            }
+            aciertos++;
+            return entrada.valor;
+        }
+
+        synchronized void guardar(K clave, V valor) {
+            entradas.put(clave, new Entrada<>(valor, System.nanoTime()));
+        }
+
+        synchronized void invalidarSi(BiPredicate<K, V> condicion) {
+            Iterator<Map.Entry<K, Entrada<V>>> iterador = entradas.entrySet().iterator();
+            while (iterador.hasNext()) {
+                Map.Entry<K, Entrada<V>> entrada = iterador.next();
+                if (condicion.test(entrada.getKey(), entrada.getValue().valor)) {
+                    iterador.remove();
+                    invalidadas++;
+                }
+            }
+        }
+
+        synchronized EstadisticasCacheDTO.NivelDTO estadisticas() {
+            return new EstadisticasCacheDTO.NivelDTO(aciertos, fallos, desalojos, caducadas, invalidadas,
+                    entradas.size());
+        }
+    }
 }
@@ -0,0 +1,442 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.dto.NotificacionDTO;
+import com.sompoble.cat.repository.NotificacionRepository;
+import com.sompoble.cat.service.NotificacionesEnVivoService;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Implementación de {@link NotificacionesEnVivoService} que reparte las
+ * notificaciones entre las conexiones abiertas en esta instancia.
+ * <p>
+ * Cada conexión tiene una cola acotada. Publicar una notificación solo la
+ * añade a las colas de las conexiones de su cliente; los eventos los escribe
+ * el grupo de hilos {@code notificacionesEnVivoExecutor}, como mucho un hilo
+ * por conexión a la vez, de modo que un cliente lento no retrasa a los demás
+ * ni al hilo que guardó la notificación. Si la cola de una conexión se llena,
+ * la conexión se cierra: el navegador reconecta con la cabecera
+ * {@code Last-Event-ID} y recibe lo pendiente desde la base de datos.
+ * </p>
+ * <p>
+ * Las notificaciones guardadas en otra instancia no pasan por aquí; para
+ * ellas, cada pocos segundos se leen de la base de datos las creadas en el
+ * último margen de tiempo y se envían las que aún no se habían repartido.
+ * </p>
+ */
+@Service
+public class NotificacionesEnVivoServiceImpl implements NotificacionesEnVivoService, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionesEnVivoServiceImpl.class);
+
+    /**
+     * Repositorio de las notificaciones, para reanudar y sincronizar.
+     */
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    /**
+     * Grupo de hilos que escribe los eventos en las conexiones.
+     */
+    @Autowired
+    @Qualifier("notificacionesEnVivoExecutor")
+    private TaskExecutor executor;
+
+    /**
+     * Tiempo máximo de una conexión; al vencer se cierra y el navegador
+     * reconecta.
+     */
+    @Value("${notificaciones.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    /**
+     * Tiempo que espera el navegador antes de reconectar.
+     */
+    @Value("${notificaciones.stream.reintento-ms:3000}")
+    private long reintentoMs = 3000;
+
+    /**
+     * Notificaciones pendientes de escribir que admite cada conexión.
+     */
+    @Value("${notificaciones.stream.buffer:100}")
+    private int capacidadBuffer = 100;
+
+    /**
+     * Notificaciones leídas por consulta al reanudar una conexión.
+     */
+    @Value("${notificaciones.stream.lote-reanudacion:200}")
+    private int loteReanudacion = 200;
+
+    /**
+     * Antigüedad de las notificaciones que se leen en cada sincronización.
+     * Cubre el tiempo entre que otra instancia crea la notificación y
+     * confirma la transacción, y la diferencia entre los relojes.
+     */
+    @Value("${notificaciones.stream.sincronizacion-margen-ms:60000}")
+    private long margenSincronizacionMs = 60_000;
+
+    /**
+     * Notificaciones leídas por consulta al sincronizar.
+     */
+    @Value("${notificaciones.stream.sincronizacion-lote:500}")
+    private int loteSincronizacion = 500;
+
+    /**
+     * Identificadores recientes que se recuerdan para no repartir dos veces
+     * la misma notificación.
+     */
+    @Value("${notificaciones.stream.recientes:10000}")
+    private int capacidadRecientes = 10_000;
+
+    /**
+     * Reloj con el que se calcula el inicio de la sincronización; la fecha de
+     * alta de las notificaciones está en la zona de la JVM.
+     */
+    private Clock reloj = Clock.systemDefaultZone();
+
+    /**
+     * Conexiones abiertas, por DNI del cliente.
+     */
+    private final Map<String, Set<Suscripcion>> suscripciones = new ConcurrentHashMap<>();
+
+    /**
+     * Identificadores de las últimas notificaciones repartidas, en orden de
+     * reparto.
+     */
+    private final Map<Long, Boolean> recientes = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> mayor) {
+            return size() > capacidadRecientes;
+        }
+    };
+
+    /**
+     * Suscribe una conexión. La conexión empieza a recibir notificaciones en
+     * el momento; si se indica la última recibida, antes se le envían las
+     * posteriores guardadas en la base de datos.
+     *
+     * @param dni el DNI del cliente.
+     * @param ultimoId la última notificación recibida, o {@code null}.
+     * @return el emisor de la conexión.
+     */
+    @Override
+    public SseEmitter suscribir(String dni, Long ultimoId) {
+        SseEmitter emisor = crearEmisor();
+        Suscripcion suscripcion = new Suscripcion(dni, emisor, capacidadBuffer, ultimoId);
+        emisor.onCompletion(() -> eliminar(suscripcion));
+        emisor.onTimeout(() -> cerrar(suscripcion));
+        emisor.onError(e -> eliminar(suscripcion));
+        try {
+            emisor.send(SseEmitter.event().reconnectTime(reintentoMs).comment("conectado"));
+        } catch (IOException e) {
+            emisor.completeWithError(e);
+            return emisor;
+        }
+        suscripciones.compute(dni, (clave, actuales) -> {
+            Set<Suscripcion> conjunto = actuales != null ? actuales : ConcurrentHashMap.newKeySet();
+            conjunto.add(suscripcion);
+            return conjunto;
+        });
+        if (ultimoId != null) {
+            programar(suscripcion);
+        }
+        return emisor;
+    }
+
+    /**
+     * Reparte una notificación al confirmar la transacción en curso, o en el
+     * momento si no hay ninguna.
+     *
+     * @param notificacion la notificación guardada.
+     */
+    @Override
+    public void publicar(Notificacion notificacion) {
+        if (notificacion == null || notificacion.getIdNotificacion() == null || notificacion.getCliente() == null) {
+            return;
+        }
+        NotificacionDTO dto = NotificacionDTO.de(notificacion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    difundir(dto);
+                }
+            });
+        } else {
+            difundir(dto);
+        }
+    }
+
+    /**
+     * Marca todas las conexiones para que reciban un latido en su siguiente
+     * escritura.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${notificaciones.stream.latido-ms:20000}")
+    public void enviarLatidos() {
+        for (Set<Suscripcion> conjunto : suscripciones.values()) {
+            for (Suscripcion suscripcion : conjunto) {
+                suscripcion.latido = true;
+                programar(suscripcion);
+            }
+        }
+    }
+
+    /**
+     * Lee las notificaciones de clientes creadas en el margen de
+     * sincronización y reparte las que no se habían repartido. No consulta la
+     * base de datos si no hay conexiones abiertas.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${notificaciones.stream.sincronizacion-ms:2000}")
+    public void sincronizar() {
+        if (suscripciones.isEmpty()) {
+            return;
+        }
+        LocalDateTime desde = LocalDateTime.now(reloj).minus(margenSincronizacionMs, ChronoUnit.MILLIS);
+        long idDesde = 0;
+        try {
+            List<NotificacionDTO> lote;
+            do {
+                lote = notificacionRepository.findDeClientesDesde(desde, idDesde, loteSincronizacion);
+                for (NotificacionDTO notificacion : lote) {
+                    difundir(notificacion);
+                    idDesde = notificacion.getIdNotificacion();
+                }
+            } while (lote.size() == loteSincronizacion);
+        } catch (RuntimeException e) {
+            logger.warn("No se han podido sincronizar las notificaciones en vivo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve el número de conexiones abiertas.
+     *
+     * @return el número de conexiones.
+     */
+    @Override
+    public int getSuscripciones() {
+        int total = 0;
+        for (Set<Suscripcion> conjunto : suscripciones.values()) {
+            total += conjunto.size();
+        }
+        return total;
+    }
+
+    /**
+     * Cierra las conexiones al detener la aplicación para que los navegadores
+     * reconecten con otra instancia.
+     */
+    @Override
+    public void destroy() {
+        for (Set<Suscripcion> conjunto : suscripciones.values()) {
+            for (Suscripcion suscripcion : new ArrayList<>(conjunto)) {
+                cerrar(suscripcion);
+            }
+        }
+    }
+
+    /**
+     * Crea el emisor de una conexión.
+     *
+     * @return el emisor.
+     */
+    SseEmitter crearEmisor() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Añade una notificación a las colas de las conexiones de su cliente, si
+     * no se había repartido ya.
+     */
+    private void difundir(NotificacionDTO notificacion) {
+        synchronized (recientes) {
+            if (recientes.put(notificacion.getIdNotificacion(), Boolean.TRUE) != null) {
+                return;
+            }
+        }
+        Set<Suscripcion> conjunto = suscripciones.get(notificacion.getDniCliente());
+        if (conjunto == null) {
+            return;
+        }
+        for (Suscripcion suscripcion : conjunto) {
+            if (suscripcion.pendientes.offer(notificacion)) {
+                programar(suscripcion);
+            } else {
+                logger.debug("Cola llena en una conexión del cliente {}; se cierra para que reanude",
+                        suscripcion.dni);
+                cerrar(suscripcion);
+            }
+        }
+    }
+
+    /**
+     * Encarga la escritura de lo pendiente de una conexión, salvo que ya haya
+     * una en curso. Si el grupo de hilos no la admite, se cierra la conexión.
+     */
+    private void programar(Suscripcion suscripcion) {
+        if (suscripcion.cerrada || !suscripcion.programada.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> vaciar(suscripcion));
+        } catch (TaskRejectedException e) {
+            suscripcion.programada.set(false);
+            logger.warn("El canal de notificaciones en vivo está saturado; se cierra una conexión del cliente {}",
+                    suscripcion.dni);
+            cerrar(suscripcion);
+        }
+    }
+
+    /**
+     * Escribe en una conexión lo pendiente: primero las notificaciones de la
+     * reanudación, después las de la cola y por último el latido. Si al
+     * terminar ha llegado algo más, se vuelve a programar.
+     */
+    private void vaciar(Suscripcion suscripcion) {
+        try {
+            if (suscripcion.reanudarDesde != null) {
+                reanudar(suscripcion);
+            }
+            NotificacionDTO notificacion;
+            while (!suscripcion.cerrada && (notificacion = suscripcion.pendientes.poll()) != null) {
+                if (!suscripcion.reenviadas.remove(notificacion.getIdNotificacion())) {
+                    enviar(suscripcion, notificacion);
+                }
+            }
+            if (suscripcion.latido && !suscripcion.cerrada) {
+                suscripcion.latido = false;
+                suscripcion.emisor.send(SseEmitter.event().comment(""));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Conexión del cliente {} cortada: {}", suscripcion.dni, e.getMessage());
+            cerrar(suscripcion);
+        } finally {
+            suscripcion.programada.set(false);
+        }
+        if (!suscripcion.cerrada && (!suscripcion.pendientes.isEmpty() || suscripcion.latido)) {
+            programar(suscripcion);
+        }
+    }
+
+    /**
+     * Envía las notificaciones del cliente posteriores a la última recibida.
+     * Las que lleguen también por la cola se descartan allí.
+     */
+    private void reanudar(Suscripcion suscripcion) throws IOException {
+        long desde = suscripcion.reanudarDesde;
+        suscripcion.reanudarDesde = null;
+        List<NotificacionDTO> lote;
+        do {
+            lote = notificacionRepository.findByClienteDniDespuesDe(suscripcion.dni, desde, loteReanudacion);
+            for (NotificacionDTO notificacion : lote) {
+                enviar(suscripcion, notificacion);
+                suscripcion.reenviadas.add(notificacion.getIdNotificacion());
+                desde = notificacion.getIdNotificacion();
+            }
+        } while (lote.size() == loteReanudacion && !suscripcion.cerrada);
+    }
+
+    /**
+     * Escribe una notificación como evento, con su identificador.
+     */
+    private void enviar(Suscripcion suscripcion, NotificacionDTO notificacion) throws IOException {
+        suscripcion.emisor.send(SseEmitter.event()
+                .id(String.valueOf(notificacion.getIdNotificacion()))
+                .data(notificacion, MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * Cierra una conexión y deja de repartirle notificaciones.
+     */
+    private void cerrar(Suscripcion suscripcion) {
+        if (suscripcion.cerrada) {
+            return;
+        }
+        eliminar(suscripcion);
+        try {
+            suscripcion.emisor.complete();
+        } catch (RuntimeException e) {
+            logger.debug("Error al cerrar una conexión del cliente {}: {}", suscripcion.dni, e.getMessage());
+        }
+    }
+
+    /**
+     * Retira una conexión de las abiertas.
+     */
+    private void eliminar(Suscripcion suscripcion) {
+        suscripcion.cerrada = true;
+        suscripciones.computeIfPresent(suscripcion.dni, (clave, conjunto) -> {
+            conjunto.remove(suscripcion);
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+    }
+
+    /**
+     * Conexión abierta de un cliente con su cola de notificaciones
+     * pendientes.
+     */
+    private static final class Suscripcion {
+
+        private final String dni;
+
+        private final SseEmitter emisor;
+
+        private final BlockingQueue<NotificacionDTO> pendientes;
+
+        /**
+         * Indica si hay una escritura programada o en curso.
+         */
+        private final AtomicBoolean programada = new AtomicBoolean();
+
+        /**
+         * Notificaciones enviadas en la reanudación que aún pueden llegar por
+         * la cola. Solo la usa el hilo que escribe.
+         */
+        private final Set<Long> reenviadas = new HashSet<>();
+
+        /**
+         * Última notificación recibida antes de reconectar, mientras no se
+         * haya reanudado.
+         */
+        private volatile Long reanudarDesde;
+
+        private volatile boolean latido;
+
+        private volatile boolean cerrada;
+
+        private Suscripcion(String dni, SseEmitter emisor, int capacidad, Long reanudarDesde) {
+            this.dni = dni;
+            this.emisor = emisor;
+            this.pendientes = new ArrayBlockingQueue<>(capacidad);
+            this.reanudarDesde = reanudarDesde;
+        }
+    }
+}
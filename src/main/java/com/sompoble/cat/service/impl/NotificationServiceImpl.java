@@ -1,13 +1,22 @@
 package com.sompoble.cat.service.impl;
 
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
 import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.repository.ConfiguracionNotificacionesRepository;
 import com.sompoble.cat.repository.NotificacionRepository;
+import com.sompoble.cat.service.NotificacionesEnVivoService;
 import com.sompoble.cat.service.NotificationService;
 
 import jakarta.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -17,24 +26,61 @@ import java.util.List;
 @Service
 public class NotificationServiceImpl implements NotificationService {
 
+    /**
+     * Formato en que se acepta la hora de envío, con o sin cero inicial.
+     */
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("H:mm");
+
+    /**
+     * Formato en que se guarda la hora de envío.
+     */
+    private static final DateTimeFormatter FORMATO_HORA_ENVIO = DateTimeFormatter.ofPattern("HH:mm");
+
     private NotificacionRepository notificationRepository;
-    private Boolean configEnabled;
-    private String configFrequency;
-    private String configSendTime;
+    private ConfiguracionNotificacionesRepository configuracionRepository;
+    private NotificacionesEnVivoService notificacionesEnVivoService;
+
+    /**
+     * Tiempo durante el cual se reutiliza la configuración leída de la base
+     * de datos; los cambios hechos en otra instancia se ven, como mucho, con
+     * este retraso.
+     */
+    @Value("${notificaciones.config-cache-ms:30000}")
+    private long configCacheMs = 30000;
+
+    /**
+     * Última configuración leída o guardada.
+     */
+    private volatile ConfiguracionNotificaciones configuracion;
+
+    /**
+     * Momento, en milisegundos, en que se leyó {@link #configuracion}.
+     */
+    private volatile long configuracionLeida;
 
     /**
-     * Constructor con inyección de dependencias para el repositorio de
-     * notificaciones.
+     * Constructor con inyección de dependencias para los repositorios de
+     * notificaciones y de su configuración, y el canal de notificaciones en
+     * vivo.
      *
      * @param notificationRepository el repositorio para gestionar
      * notificaciones
+     * @param configuracionRepository el repositorio de la configuración de
+     * notificaciones
+     * @param notificacionesEnVivoService el servicio que envía las
+     * notificaciones a los clientes conectados
      */
-    public NotificationServiceImpl(NotificacionRepository notificationRepository) {
+    public NotificationServiceImpl(NotificacionRepository notificationRepository,
+            ConfiguracionNotificacionesRepository configuracionRepository,
+            NotificacionesEnVivoService notificacionesEnVivoService) {
         this.notificationRepository = notificationRepository;
+        this.configuracionRepository = configuracionRepository;
+        this.notificacionesEnVivoService = notificacionesEnVivoService;
     }
 
     /**
-     * Guarda una nueva notificación en la base de datos.
+     * Guarda una nueva notificación en la base de datos y, al confirmar la
+     * transacción, la envía a las conexiones abiertas de su cliente.
      *
      * @param notification la notificación a guardar
      */
@@ -43,6 +89,7 @@ public class NotificationServiceImpl implements NotificationService {
     public void saveNotification(Notificacion notification) {
         Notificacion saved = notificationRepository.save(notification);
         System.out.println("Guardada notificación con ID: " + saved.getIdNotificacion());
+        notificacionesEnVivoService.publicar(saved);
     }
 
     /**
@@ -78,17 +125,56 @@ public class NotificationServiceImpl implements NotificationService {
     }
 
     /**
-     * Establece la configuración de envío de notificaciones.
+     * Establece la configuración de envío de notificaciones y la guarda en la
+     * base de datos.
      *
-     * @param enabled Indica si las notificaciones están habilitadas o no.
+     * @param enabled Indica si el envío agrupado está habilitado o no.
      * @param freq La frecuencia con la que se deben enviar las notificaciones
-     * (por ejemplo, diaria, semanal).
+     * (inmediata, horaria o diaria).
      * @param time La hora del día a la que se deben enviar las notificaciones.
      */
+    @Override
     public void setConfig(Boolean enabled, String freq, String time) {
-        this.configEnabled = enabled;
-        this.configFrequency = freq;
-        this.configSendTime = time;
+        if (ConfiguracionNotificaciones.Frecuencia.desde(freq) == null) {
+            throw new BadRequestException("Frecuencia no válida: " + freq);
+        }
+        String hora = null;
+        if (time != null && !time.isBlank()) {
+            try {
+                hora = LocalTime.parse(time.trim(), FORMATO_HORA).format(FORMATO_HORA_ENVIO);
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Hora de envío no válida: " + time);
+            }
+        }
+        ConfiguracionNotificaciones nueva = new ConfiguracionNotificaciones();
+        nueva.setActivado(enabled);
+        nueva.setFrecuencia(freq);
+        nueva.setHoraEnvio(hora);
+        nueva.setFechaModificacion(LocalDateTime.now());
+        configuracionRepository.save(nueva);
+        configuracion = nueva;
+        configuracionLeida = System.currentTimeMillis();
+    }
+
+    /**
+     * Obtiene la configuración vigente, leyéndola de la base de datos si la
+     * copia local ha caducado.
+     *
+     * @return la configuración.
+     */
+    @Override
+    public ConfiguracionNotificaciones getConfiguracion() {
+        ConfiguracionNotificaciones actual = configuracion;
+        long ahora = System.currentTimeMillis();
+        if (actual == null || ahora - configuracionLeida > configCacheMs) {
+            actual = configuracionRepository.find();
+            if (actual == null) {
+                actual = new ConfiguracionNotificaciones();
+            }
+            configuracion = actual;
+            configuracionLeida = ahora;
+        }
+        return actual;
     }
 
     /**
@@ -97,18 +183,20 @@ public class NotificationServiceImpl implements NotificationService {
      * @return {@code true} si las notificaciones están habilitadas,
      * {@code false} en caso contrario.
      */
+    @Override
     public Boolean getConfigEnabled() {
-        return configEnabled;
+        return getConfiguracion().getActivado();
     }
 
     /**
      * Obtiene la frecuencia configurada para el envío de notificaciones.
      *
      * @return La frecuencia como cadena de texto (por ejemplo, "diaria",
-     * "semanal").
+     * "horaria").
      */
+    @Override
     public String getConfigFrequency() {
-        return configFrequency;
+        return getConfiguracion().getFrecuencia();
     }
 
     /**
@@ -117,8 +205,9 @@ public class NotificationServiceImpl implements NotificationService {
      * @return La hora de envío configurada, como una cadena de texto en formato
      * HH:mm.
      */
+    @Override
     public String getConfigSendTime() {
-        return configSendTime;
+        return getConfiguracion().getHoraEnvio();
     }
 
     /**
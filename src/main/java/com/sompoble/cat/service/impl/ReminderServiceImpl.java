@@ -1,77 +1,476 @@
 package com.sompoble.cat.service.impl;
 
+import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
-import com.sompoble.cat.repository.ReservaRepository;
-import com.sompoble.cat.service.EmailService;
-import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.dto.CitaRecordatorioDTO;
+import com.sompoble.cat.repository.RecordatorioEnviadoRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CoordinacionService;
 import com.sompoble.cat.service.ReminderService;
+import com.sompoble.cat.util.Particion;
+import com.sompoble.cat.util.RuedaTemporizadores;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.util.List;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Implementación del servicio de recordatorios automáticos.
  * <p>
- * Esta clase proporciona la implementación concreta de la interfaz
- * {@link ReminderService}, gestionando el envío de recordatorios a los clientes
- * sobre sus reservas próximas mediante notificaciones y correos electrónicos
- * programados.
+ * Los recordatorios se calculan a partir de la cita de cada reserva (fecha y
+ * hora) menos cada antelación configurada. Las citas se cargan por ventanas
+ * de tiempo consecutivas en una {@link RuedaTemporizadores} en memoria, y en
+ * cada tick se encolan por lotes en la bandeja de salida los recordatorios
+ * vencidos. Las reservas creadas o trasladadas cuyo recordatorio cae en una
+ * ventana ya cargada se añaden a la rueda al confirmarse.
+ * </p>
+ * <p>
+ * Cada recordatorio enviado se registra en {@code RECORDATORIO_ENVIADO} en la
+ * misma transacción que su mensaje, por lo que no se repite aunque la rueda
+ * lo contenga dos veces o haya varias instancias. Al arrancar, la primera
+ * ventana empieza unas horas atrás para recuperar los recordatorios que
+ * vencieron con la aplicación parada y cuya cita aún no ha pasado. No se
+ * envían los recordatorios cuyo momento es anterior al alta de la reserva,
+ * ni los atrasados cuyo recordatorio de menor antelación también ha vencido.
+ * </p>
+ * <p>
+ * Con varias instancias, solo carga las ventanas la que tiene el
+ * arrendamiento {@code recordatorios}; o bien, con
+ * {@code recordatorios.particionar}, cada instancia activa carga las reservas
+ * de su partición. Cuando cambia la parte que le toca a una instancia, vuelve
+ * a cargar desde el periodo de recuperación para no perder las reservas que
+ * acaba de recibir. Además, cada instancia programa las reservas que se
+ * crean o trasladan en ella aunque no le correspondan, hasta donde pueda
+ * haber cargado cualquier otra; el registro de enviados descarta los
+ * duplicados.
  * </p>
  */
 @Service
 public class ReminderServiceImpl implements ReminderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReminderServiceImpl.class);
+
     /**
-     * Repositorio para acceder a los datos de reservas.
+     * Cubetas de cada nivel de la rueda.
+     */
+    static final int RANURAS = 60;
+
+    /**
+     * Repositorio de las citas y los recordatorios enviados.
      */
     @Autowired
-    private ReservaRepository reservaRepository;
+    private RecordatorioEnviadoRepository recordatorioEnviadoRepository;
 
     /**
-     * Servicio para la gestión de notificaciones.
+     * Bandeja de salida en la que se encolan los recordatorios.
      */
     @Autowired
-    private NotificationService notificationService;
+    private BandejaSalidaService bandejaSalidaService;
 
     /**
-     * Servicio para el envío de correos electrónicos.
+     * Plantilla para encolar cada lote en su propia transacción.
      */
     @Autowired
-    private EmailService emailService;
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Coordinación con las demás instancias.
+     */
+    @Autowired
+    private CoordinacionService coordinacionService;
+
+    /**
+     * Indica si las instancias activas se reparten las reservas en lugar de
+     * cargarlas todas una sola.
+     */
+    @Value("${recordatorios.particionar:false}")
+    private boolean particionar = false;
+
+    /**
+     * Duración del arrendamiento de la instancia que carga las ventanas; si
+     * deja de renovarlo, otra la sustituye pasado este tiempo.
+     */
+    @Value("${recordatorios.liderazgo-ms:180000}")
+    private long liderazgoMs = 180_000;
+
+    /**
+     * Antelaciones de los recordatorios respecto a la cita, en minutos.
+     */
+    @Value("${recordatorios.antelaciones-minutos:1440,120}")
+    private int[] antelacionesMinutos = {1440, 120};
+
+    /**
+     * Duración de cada ventana de citas que se carga en la rueda.
+     */
+    @Value("${recordatorios.ventana-minutos:60}")
+    private long ventanaMinutos = 60;
+
+    /**
+     * Duración del tick de la rueda, igual al intervalo del ciclo.
+     */
+    @Value("${recordatorios.tick-ms:60000}")
+    private long tickMs = 60_000;
+
+    /**
+     * Horas hacia atrás en las que se buscan recordatorios no enviados al
+     * arrancar.
+     */
+    @Value("${recordatorios.recuperacion-horas:24}")
+    private long recuperacionHoras = 24;
+
+    /**
+     * Recordatorios que se encolan en cada transacción.
+     */
+    @Value("${recordatorios.lote:100}")
+    private int lote = 100;
+
+    /**
+     * Días que se conserva el registro de los recordatorios tras la cita.
+     */
+    @Value("${recordatorios.retencion-dias:7}")
+    private long retencionDias = 7;
+
+    /**
+     * Intervalo de la purga, que es también la duración de su
+     * arrendamiento.
+     */
+    @Value("${recordatorios.purga-intervalo-ms:3600000}")
+    private long purgaIntervaloMs = 3_600_000;
+
+    /**
+     * Zona horaria de las citas.
+     */
+    @Value("${recordatorios.zona:Europe/Madrid}")
+    private ZoneId zona = ZoneId.of("Europe/Madrid");
+
+    /**
+     * Reloj del que se toma el momento actual.
+     */
+    private Clock reloj = Clock.systemUTC();
+
+    /**
+     * Rueda con los recordatorios de las ventanas cargadas, creada en el
+     * primer ciclo. Se accede a ella sincronizando sobre el servicio.
+     */
+    private RuedaTemporizadores<Recordatorio> rueda;
+
+    /**
+     * Fin de la última ventana cargada: los recordatorios anteriores ya están
+     * en la rueda o enviados.
+     */
+    private LocalDateTime cargadoHasta;
+
+    /**
+     * Partición con la que se cargaron las ventanas, o {@code null} si esta
+     * instancia no las carga.
+     */
+    private Particion particionCargada;
+
+    /**
+     * Límite hasta el que se programan las reservas creadas o trasladadas en
+     * esta instancia; las posteriores se leerán al cargar su ventana.
+     */
+    private LocalDateTime programableHasta;
+
+    /**
+     * Carga las ventanas pendientes de la parte que corresponde a esta
+     * instancia hasta una ventana por delante del momento actual, avanza la
+     * rueda y encola los recordatorios vencidos.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${recordatorios.tick-ms:60000}")
+    public void processReminders() {
+        Particion particion = particion();
+        List<Recordatorio> vencidos;
+        synchronized (this) {
+            LocalDateTime ahora = ahora();
+            if (rueda == null) {
+                rueda = new RuedaTemporizadores<>(tickMs, RANURAS, epoch(ahora));
+            }
+            if (particion != null && !particion.equals(particionCargada)) {
+                if (particionCargada != null) {
+                    logger.info("Recordatorios: la partición pasa de {} a {}; se recargan las últimas {} horas",
+                            particionCargada, particion, recuperacionHoras);
+                }
+                cargadoHasta = ahora.minusHours(recuperacionHoras);
+            }
+            particionCargada = particion;
+            if (particion != null) {
+                LocalDateTime horizonte = ahora.plusMinutes(ventanaMinutos);
+                while (cargadoHasta.isBefore(horizonte)) {
+                    LocalDateTime fin = cargadoHasta.plusMinutes(ventanaMinutos);
+                    cargar(cargadoHasta, fin, ahora, particion);
+                    cargadoHasta = fin;
+                }
+            }
+            if (Particion.TODAS.equals(particion)) {
+                programableHasta = cargadoHasta;
+            } else {
+                // Otra instancia puede haber cargado hasta dos ventanas por
+                // delante, con un tick de diferencia en su reloj
+                LocalDateTime otras = ahora.plusMinutes(2 * ventanaMinutos).plus(Duration.ofMillis(tickMs));
+                programableHasta = cargadoHasta != null && cargadoHasta.isAfter(otras) ? cargadoHasta : otras;
+            }
+            vencidos = rueda.avanzar(epoch(ahora));
+        }
+        for (int i = 0; i < vencidos.size(); i += lote) {
+            enviar(vencidos.subList(i, Math.min(i + lote, vencidos.size())));
+        }
+    }
 
     /**
-     * Envía recordatorios automáticos para reservas próximas. Este método se
-     * ejecuta de forma programada diariamente a las 8:00 AM en la zona horaria
-     * de Europa/Madrid.
+     * Programa los recordatorios de una reserva cuyo momento de envío cae en
+     * una ventana ya cargada. Los de ventanas posteriores se leerán al
+     * cargarlas.
+     *
+     * @param idReserva el identificador de la reserva.
+     * @param fecha la fecha de la cita.
+     * @param hora la hora de la cita.
+     * @param fechaAlta el momento en que se hizo la reserva, o {@code null}.
      */
     @Override
-    @Scheduled(cron = "0 0 8 * * ?", zone = "Europe/Madrid")
-    public void sendDailyReminders() {
-        processReminders();
+    public void programarReserva(Long idReserva, LocalDate fecha, LocalTime hora, LocalDateTime fechaAlta) {
+        if (idReserva == null || fecha == null || hora == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    programar(idReserva, fecha.atTime(hora), fechaAlta);
+                }
+            });
+        } else {
+            programar(idReserva, fecha.atTime(hora), fechaAlta);
+        }
     }
 
     /**
-     * Procesa todos los recordatorios pendientes en el sistema.
-     * <p>
-     * Identifica las reservas próximas a través del repositorio, crea una
-     * notificación para cada una de ellas y envía correos electrónicos a los
-     * clientes correspondientes.
-     * </p>
+     * Elimina periódicamente el registro de los recordatorios de citas que
+     * pasaron hace más de los días de retención.
      */
     @Override
-    public void processReminders() {
-        List<Reserva> recent = reservaRepository.findUpcomingReservations();
-        for (Reserva r : recent) {
-            Notificacion n = new Notificacion(
-                    r.getCliente(),
-                    null,
-                    "Recordatorio: Su reserva está próxima",
-                    Notificacion.TipoNotificacion.ADVERTENCIA
-            );
-            notificationService.saveNotification(n);
-            emailService.sendNotificationEmail(n);
+    @Scheduled(fixedDelayString = "${recordatorios.purga-intervalo-ms:3600000}")
+    public void purgarRecordatorios() {
+        if (!coordinacionService.adquirir("recordatorios.purga", purgaIntervaloMs)) {
+            return;
+        }
+        int eliminados = recordatorioEnviadoRepository.deleteAnteriores(ahora().minusDays(retencionDias));
+        if (eliminados > 0) {
+            logger.debug("Eliminados {} recordatorios de citas pasadas", eliminados);
+        }
+    }
+
+    /**
+     * Devuelve la parte de las reservas cuyas ventanas carga esta instancia.
+     *
+     * @return la partición de la instancia; {@link Particion#TODAS} si tiene
+     * el arrendamiento de los recordatorios, o {@code null} si lo tiene otra.
+     */
+    private Particion particion() {
+        if (particionar) {
+            return coordinacionService.getParticion();
+        }
+        return coordinacionService.adquirir("recordatorios", liderazgoMs) ? Particion.TODAS : null;
+    }
+
+    /**
+     * Carga en la rueda los recordatorios cuyo momento de envío cae en una
+     * ventana, con una consulta por antelación.
+     *
+     * @param desde el inicio de la ventana (inclusive).
+     * @param hasta el fin de la ventana (exclusive).
+     * @param ahora el momento actual.
+     * @param particion la parte de las reservas que se carga.
+     */
+    private void cargar(LocalDateTime desde, LocalDateTime hasta, LocalDateTime ahora, Particion particion) {
+        for (int antelacion : antelacionesMinutos) {
+            List<CitaRecordatorioDTO> citas = recordatorioEnviadoRepository.findCitasPendientes(
+                    desde.plusMinutes(antelacion), hasta.plusMinutes(antelacion), antelacion, particion);
+            for (CitaRecordatorioDTO cita : citas) {
+                if (cita.getCita().isAfter(ahora) && !sustituido(cita.getCita(), antelacion, ahora)) {
+                    rueda.programar(epoch(cita.getCita().minusMinutes(antelacion)),
+                            new Recordatorio(cita.getIdReserva(), cita.getCita(), antelacion));
+                }
+            }
+        }
+    }
+
+    /**
+     * Añade a la rueda los recordatorios de una cita que ya no se leerán al
+     * cargar una ventana.
+     *
+     * @param idReserva el identificador de la reserva.
+     * @param cita la fecha y hora de la cita.
+     * @param fechaAlta el momento en que se hizo la reserva, o {@code null}.
+     */
+    private synchronized void programar(Long idReserva, LocalDateTime cita, LocalDateTime fechaAlta) {
+        if (rueda == null) {
+            return;
+        }
+        LocalDateTime ahora = ahora();
+        if (!cita.isAfter(ahora)) {
+            return;
+        }
+        LocalDateTime alta = fechaAlta != null ? fechaAlta : ahora;
+        for (int antelacion : antelacionesMinutos) {
+            LocalDateTime aviso = cita.minusMinutes(antelacion);
+            if (aviso.isBefore(programableHasta) && !aviso.isBefore(alta) && !sustituido(cita, antelacion, ahora)) {
+                rueda.programar(epoch(aviso), new Recordatorio(idReserva, cita, antelacion));
+            }
+        }
+    }
+
+    /**
+     * Indica si un recordatorio atrasado ya no tiene sentido porque el de una
+     * antelación menor también ha vencido, como ocurre al recuperar los
+     * recordatorios tras una parada larga.
+     *
+     * @param cita la fecha y hora de la cita.
+     * @param antelacion la antelación del recordatorio.
+     * @param ahora el momento actual.
+     * @return {@code true} si basta con el recordatorio más cercano.
+     */
+    private boolean sustituido(LocalDateTime cita, int antelacion, LocalDateTime ahora) {
+        for (int otra : antelacionesMinutos) {
+            if (otra < antelacion && !cita.minusMinutes(otra).isAfter(ahora)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Encola un lote de recordatorios en una transacción. Se descartan los de
+     * reservas eliminadas o trasladadas, los de citas ya pasadas y los que ya
+     * se habían enviado. Si la transacción falla, el lote vuelve a la rueda
+     * para el siguiente tick.
+     *
+     * @param recordatorios los recordatorios vencidos.
+     */
+    private void enviar(List<Recordatorio> recordatorios) {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                LocalDateTime ahora = ahora();
+                Set<Long> ids = new LinkedHashSet<>();
+                for (Recordatorio recordatorio : recordatorios) {
+                    ids.add(recordatorio.idReserva);
+                }
+                Map<Long, Reserva> reservas = new HashMap<>();
+                for (Reserva reserva : recordatorioEnviadoRepository.findReservas(ids)) {
+                    reservas.put(reserva.getIdReserva(), reserva);
+                }
+                for (Recordatorio recordatorio : recordatorios) {
+                    Reserva reserva = reservas.get(recordatorio.idReserva);
+                    if (reserva == null || !recordatorio.cita.isAfter(ahora)
+                            || !recordatorio.cita.equals(reserva.getFechaReserva().atTime(reserva.getHora()))) {
+                        continue;
+                    }
+                    if (recordatorioEnviadoRepository.registrar(recordatorio.idReserva,
+                            recordatorio.antelacionMinutos, recordatorio.cita, ahora)) {
+                        encolar(reserva, recordatorio.antelacionMinutos);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("No se ha podido encolar un lote de {} recordatorios; se reintentará", recordatorios.size(), e);
+            synchronized (this) {
+                long ahora = epoch(ahora());
+                for (Recordatorio recordatorio : recordatorios) {
+                    rueda.programar(ahora, recordatorio);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encola el correo y la notificación de un recordatorio.
+     *
+     * @param reserva la reserva recordada.
+     * @param antelacionMinutos la antelación del recordatorio.
+     */
+    private void encolar(Reserva reserva, int antelacionMinutos) {
+        Cliente cliente = reserva.getCliente();
+        bandejaSalidaService.encolar(cliente,
+                "Recordatorio de Reserva",
+                String.format(
+                        "Estimado/a %s,\n\nLe recordamos que tiene una reserva dentro de %s.\n"
+                        + "Detalles de la reserva:\n"
+                        + "- Fecha: %s\n"
+                        + "- Hora: %s\n"
+                        + "- Servicio: %s\n"
+                        + "- Empresa: %s",
+                        cliente.getNombre(),
+                        describirAntelacion(antelacionMinutos),
+                        reserva.getFechaReserva(),
+                        reserva.getHora(),
+                        reserva.getServicio().getNombre(),
+                        reserva.getEmpresa().getNombre()
+                ),
+                String.format(
+                        "Recordatorio: Su reserva para el servicio '%s' es el día %s a las %s.",
+                        reserva.getServicio().getNombre(),
+                        reserva.getFechaReserva(),
+                        reserva.getHora()
+                ),
+                Notificacion.TipoNotificacion.ADVERTENCIA);
+    }
+
+    /**
+     * Describe una antelación en horas o, si no son horas exactas, en
+     * minutos.
+     *
+     * @param minutos la antelación en minutos.
+     * @return la descripción.
+     */
+    static String describirAntelacion(int minutos) {
+        if (minutos % 60 != 0) {
+            return minutos == 1 ? "1 minuto" : minutos + " minutos";
+        }
+        int horas = minutos / 60;
+        return horas == 1 ? "1 hora" : horas + " horas";
+    }
+
+    private LocalDateTime ahora() {
+        return LocalDateTime.ofInstant(reloj.instant(), zona);
+    }
+
+    private long epoch(LocalDateTime momento) {
+        return momento.atZone(zona).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Recordatorio programado de una cita con una antelación.
+     */
+    static final class Recordatorio {
+
+        private final Long idReserva;
+
+        private final LocalDateTime cita;
+
+        private final int antelacionMinutos;
+
+        Recordatorio(Long idReserva, LocalDateTime cita, int antelacionMinutos) {
+            this.idReserva = idReserva;
+            this.cita = cita;
+            this.antelacionMinutos = antelacionMinutos;
         }
     }
 }
@@ -1,13 +1,43 @@
 package com.sompoble.cat.service.impl;
 
+import com.sompoble.cat.dto.CursorReserva;
+import com.sompoble.cat.dto.PaginaReservasDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.dto.ReservasEliminadasDTO;
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.LimiteReservasException;
+import com.sompoble.cat.repository.ClienteRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
 import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.BloqueoFranjasService;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.CapacidadService;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.ListaEsperaService;
+import com.sompoble.cat.service.MetricasService;
+import com.sompoble.cat.service.ReminderService;
 import com.sompoble.cat.service.ReservaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Implementación de {@link ReservaService}.
@@ -27,6 +57,90 @@ public class ReservaServiceImpl implements ReservaService {
     @Autowired
     private ReservaRepository reservaRepository;
 
+    /**
+     * Servicio que controla el límite de reservas por servicio y fecha.
+     */
+    @Autowired
+    private CapacidadService capacidadService;
+
+    /**
+     * Repositorio de clientes, para avisar al cliente cuyas reservas se
+     * eliminan.
+     */
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    /**
+     * Bandeja de salida en la que se encolan los correos y notificaciones de
+     * las reservas.
+     */
+    @Autowired
+    private BandejaSalidaService bandejaSalidaService;
+
+    /**
+     * Calendario de disponibilidad, que se invalida al cambiar las reservas.
+     */
+    @Autowired
+    private DisponibilidadService disponibilidadService;
+
+    /**
+     * Métricas del panel, cuya caché se invalida al cambiar las reservas.
+     */
+    @Autowired
+    private MetricasService metricasService;
+
+    /**
+     * Listas de espera, que se promueven al liberarse plazas.
+     */
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    /**
+     * Cerrojos por servicio y fecha que serializan los cambios de reserva.
+     */
+    @Autowired
+    private BloqueoFranjasService bloqueoFranjasService;
+
+    /**
+     * Resumen diario de reservas del panel de métricas.
+     */
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    /**
+     * Estimadores de clientes distintos del panel de métricas.
+     */
+    @Autowired
+    private ClientesUnicosService clientesUnicosService;
+
+    /**
+     * Histogramas de reservas por hora y antelación de cada servicio.
+     */
+    @Autowired
+    private HistogramasService histogramasService;
+
+    /**
+     * Motor de recordatorios, en el que se programan las citas nuevas o
+     * trasladadas.
+     */
+    @Autowired
+    private ReminderService reminderService;
+
+    /**
+     * Número de reservas por página cuando no se indica un límite.
+     */
+    static final int LIMITE_POR_DEFECTO = 50;
+
+    /**
+     * Número máximo de reservas por página.
+     */
+    static final int LIMITE_MAXIMO = 500;
+
+    /**
+     * Separador de los campos del cursor antes de codificarlo.
+     */
+    private static final String SEPARADOR_CURSOR = "_";
+
     /**
      * Obtiene todas las reservas asociadas a un cliente mediante su DNI.
      *
@@ -53,6 +167,61 @@ public class ReservaServiceImpl implements ReservaService {
         return reservaRepository.findByEmpresaIdentificadorFiscal(identificadorFiscal);
     }
 
+    /**
+     * Obtiene una página de las reservas de un cliente.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param cursor el cursor de la página anterior, o {@code null}.
+     * @param limite el número máximo de reservas, o {@code null}.
+     * @return la página de reservas.
+     */
+    @Override
+    public PaginaReservasDTO findPaginaByClienteDni(String dni, String cursor, Integer limite) {
+        int tamano = tamanoPagina(limite);
+        List<ReservaDTO> reservas = reservaRepository.findPaginaByClienteDni(dni, decodificarCursor(cursor), tamano + 1);
+        return pagina(reservas, tamano);
+    }
+
+    /**
+     * Obtiene una página de las reservas de una empresa o autónomo.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa o
+     * autónomo.
+     * @param cursor el cursor de la página anterior, o {@code null}.
+     * @param limite el número máximo de reservas, o {@code null}.
+     * @return la página de reservas.
+     */
+    @Override
+    public PaginaReservasDTO findPaginaByEmpresaIdentificadorFiscal(String identificadorFiscal, String cursor, Integer limite) {
+        int tamano = tamanoPagina(limite);
+        List<ReservaDTO> reservas = reservaRepository.findPaginaByEmpresaIdentificadorFiscal(
+                identificadorFiscal, decodificarCursor(cursor), tamano + 1);
+        return pagina(reservas, tamano);
+    }
+
+    /**
+     * Recorre todas las reservas de un cliente.
+     *
+     * @param dni el documento nacional de identidad del cliente.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    @Override
+    public void recorrerByClienteDni(String dni, Consumer<ReservaDTO> consumidor) {
+        reservaRepository.recorrerByClienteDni(dni, consumidor);
+    }
+
+    /**
+     * Recorre todas las reservas de una empresa o autónomo.
+     *
+     * @param identificadorFiscal el identificador fiscal de la empresa o
+     * autónomo.
+     * @param consumidor la acción que recibe cada reserva.
+     */
+    @Override
+    public void recorrerByEmpresaIdentificadorFiscal(String identificadorFiscal, Consumer<ReservaDTO> consumidor) {
+        reservaRepository.recorrerByEmpresaIdentificadorFiscal(identificadorFiscal, consumidor);
+    }
+
     /**
      * Busca una reserva por su identificador único.
      *
@@ -78,55 +247,230 @@ public class ReservaServiceImpl implements ReservaService {
     }
 
     /**
-     * Guarda una nueva reserva. Si la reserva ya existe, la actualiza.
+     * Guarda una nueva reserva ocupando antes una plaza en el libro de
+     * capacidad del servicio. La admisión y la inserción se realizan en la
+     * misma transacción, de modo que si la inserción falla la plaza se
+     * libera. El precio del servicio queda guardado en la reserva, y el aviso
+     * de confirmación al cliente se encola también en esta transacción.
      *
      * @param reserva la reserva a guardar o actualizar.
+     * @throws LimiteReservasException si se ha alcanzado el límite de
+     * reservas del servicio en la fecha indicada.
      */
     @Override
+    @Transactional
     public void addReserva(Reserva reserva) {
+        Servicio servicio = reserva.getServicio();
+        if (!capacidadService.ocuparPlaza(servicio.getIdServicio(), reserva.getFechaReserva(), servicio.getLimiteReservas())) {
+            throw new LimiteReservasException();
+        }
+        long precio = reserva.getPrecioCentimos() != null ? reserva.getPrecioCentimos() : reserva.fijarPrecio();
         reservaRepository.addReserva(reserva);
+        metricaDiariaRepository.acumular(servicio.getIdServicio(), reserva.getFechaReserva(), 1, precio);
+        clientesUnicosService.registrar(servicio.getEmpresa().getIdEmpresa(), reserva.getFechaReserva(),
+                reserva.getCliente().getIdPersona());
+        histogramasService.registrar(servicio.getIdServicio(), reserva.getFechaReserva(), reserva.getHora(),
+                reserva.getFechaAlta(), 1);
+        reminderService.programarReserva(reserva.getIdReserva(), reserva.getFechaReserva(), reserva.getHora(),
+                reserva.getFechaAlta());
+        disponibilidadService.invalidar(servicio.getIdServicio(), reserva.getFechaReserva());
+        metricasService.invalidar(servicio.getIdServicio(), reserva.getFechaReserva());
+
+        Cliente cliente = reserva.getCliente();
+        bandejaSalidaService.encolar(cliente,
+                "Confirmación de Reserva",
+                String.format(
+                        "Estimado/a %s,\n\nSu reserva ha sido confirmada con éxito.\n"
+                        + "Detalles de la reserva:\n"
+                        + "- Fecha: %s\n"
+                        + "- Hora: %s\n"
+                        + "- Servicio: %s\n"
+                        + "- Empresa: %s",
+                        cliente.getNombre(),
+                        reserva.getFechaReserva(),
+                        reserva.getHora(),
+                        servicio.getNombre(),
+                        reserva.getEmpresa().getNombre()
+                ),
+                String.format(
+                        "Se ha realizado una nueva reserva para el servicio '%s' el día %s a las %s.",
+                        servicio.getNombre(),
+                        reserva.getFechaReserva(),
+                        reserva.getHora()
+                ),
+                Notificacion.TipoNotificacion.INFORMACION);
     }
 
     /**
-     * Actualiza una reserva existente en la base de datos.
+     * Actualiza una reserva existente en la base de datos. Si cambia el
+     * servicio o la fecha, la plaza se traslada en el libro de capacidad y la
+     * plaza liberada se ofrece a la lista de espera. La reserva conserva su
+     * precio salvo si pasa a otro servicio. Las franjas de origen y
+     * destino quedan bloqueadas hasta el final de la transacción, y la
+     * versión de la reserva se comprueba al guardarla. El aviso de
+     * actualización al cliente se encola en la misma transacción.
      *
      * @param reserva la reserva con la información actualizada.
+     * @throws LimiteReservasException si el nuevo servicio o fecha ya han
+     * alcanzado el límite de reservas.
+     * @throws com.sompoble.cat.exception.ConflictoException si las franjas
+     * están bloqueadas por otra petición.
      */
     @Override
+    @Transactional
     public void updateReserva(Reserva reserva) {
+        ReservaDTO original = reservaRepository.findById(reserva.getIdReserva());
+        // El cliente solo se añade al estimador del día si cambia el día, el cliente o la empresa
+        boolean nuevoCliente = true;
+        if (original != null) {
+            Servicio servicio = reserva.getServicio();
+            LocalDate fechaOriginal = LocalDate.parse(original.getFechaReserva());
+            nuevoCliente = !fechaOriginal.equals(reserva.getFechaReserva())
+                    || !Objects.equals(original.getDniCliente(), reserva.getCliente().getDni())
+                    || !Objects.equals(original.getIdentificadorFiscalEmpresa(),
+                            servicio.getEmpresa().getIdentificadorFiscal());
+            bloqueoFranjasService.bloquear(original.getIdServicio(), fechaOriginal,
+                    servicio.getIdServicio(), reserva.getFechaReserva());
+            if (!capacidadService.moverPlaza(original.getIdServicio(), fechaOriginal,
+                    servicio.getIdServicio(), reserva.getFechaReserva(), servicio.getLimiteReservas())) {
+                throw new LimiteReservasException();
+            }
+            disponibilidadService.invalidar(original.getIdServicio(), fechaOriginal);
+            metricasService.invalidar(original.getIdServicio(), fechaOriginal);
+            disponibilidadService.invalidar(servicio.getIdServicio(), reserva.getFechaReserva());
+            metricasService.invalidar(servicio.getIdServicio(), reserva.getFechaReserva());
+            if (!original.getIdServicio().equals(servicio.getIdServicio())
+                    || !fechaOriginal.equals(reserva.getFechaReserva())) {
+                long precioOriginal = reservaRepository.findPrecioCentimosById(reserva.getIdReserva());
+                long precio = original.getIdServicio().equals(servicio.getIdServicio())
+                        ? precioOriginal : reserva.fijarPrecio();
+                metricaDiariaRepository.acumular(original.getIdServicio(), fechaOriginal, -1, -precioOriginal);
+                metricaDiariaRepository.acumular(servicio.getIdServicio(), reserva.getFechaReserva(), 1, precio);
+                listaEsperaService.plazaLiberada(original.getIdServicio(), fechaOriginal);
+            } else if (!Objects.equals(original.getDniCliente(), reserva.getCliente().getDni())) {
+                // El estimador de clientes del día no admite bajas: se recalcula esa noche
+                metricaDiariaRepository.marcarPendiente(fechaOriginal);
+            }
+            LocalTime horaOriginal = original.getHora() != null ? LocalTime.parse(original.getHora()) : null;
+            if (!original.getIdServicio().equals(servicio.getIdServicio())
+                    || !fechaOriginal.equals(reserva.getFechaReserva())
+                    || !reserva.getHora().equals(horaOriginal)) {
+                LocalDateTime fechaAlta = reservaRepository.findFechaAltaById(reserva.getIdReserva());
+                histogramasService.registrar(original.getIdServicio(), fechaOriginal, horaOriginal, fechaAlta, -1);
+                histogramasService.registrar(servicio.getIdServicio(), reserva.getFechaReserva(), reserva.getHora(),
+                        fechaAlta, 1);
+                reminderService.programarReserva(reserva.getIdReserva(), reserva.getFechaReserva(), reserva.getHora(),
+                        fechaAlta);
+            }
+        }
         reservaRepository.updateReserva(reserva);
+        if (nuevoCliente) {
+            clientesUnicosService.registrar(reserva.getServicio().getEmpresa().getIdEmpresa(),
+                    reserva.getFechaReserva(), reserva.getCliente().getIdPersona());
+        }
+
+        Cliente cliente = reserva.getCliente();
+        bandejaSalidaService.encolar(cliente,
+                "Actualización de Reserva",
+                String.format(
+                        "Estimado/a %s,\n\nSu reserva ha sido actualizada con éxito.\n"
+                        + "Detalles actualizados:\n"
+                        + "- Fecha: %s\n"
+                        + "- Hora: %s",
+                        cliente.getNombre(),
+                        reserva.getFechaReserva(),
+                        reserva.getHora()
+                ),
+                String.format(
+                        "Se ha actualizado su reserva para el día %s a las %s.",
+                        reserva.getFechaReserva(),
+                        reserva.getHora()
+                ),
+                Notificacion.TipoNotificacion.INFORMACION);
     }
 
     /**
-     * Elimina una reserva mediante su identificador.
+     * Elimina una reserva mediante su identificador, libera su plaza, la
+     * ofrece a la lista de espera y encola el aviso de cancelación al cliente.
      *
      * @param id el identificador de la reserva a eliminar.
      */
     @Override
+    @Transactional
     public void deleteById(Long id) {
+        Reserva existente = reservaRepository.findByIdFull(id);
         reservaRepository.deleteById(id);
+        if (existente == null) {
+            return;
+        }
+        capacidadService.liberarPlazas(existente.getServicio().getIdServicio(), existente.getFechaReserva(), 1);
+        metricaDiariaRepository.acumular(existente.getServicio().getIdServicio(), existente.getFechaReserva(), -1,
+                -existente.getPrecioCentimos());
+        histogramasService.registrar(existente.getServicio().getIdServicio(), existente.getFechaReserva(),
+                existente.getHora(), existente.getFechaAlta(), -1);
+        disponibilidadService.invalidar(existente.getServicio().getIdServicio(), existente.getFechaReserva());
+        metricasService.invalidar(existente.getServicio().getIdServicio(), existente.getFechaReserva());
+        listaEsperaService.plazaLiberada(existente.getServicio().getIdServicio(), existente.getFechaReserva());
+
+        Cliente cliente = existente.getCliente();
+        bandejaSalidaService.encolar(cliente,
+                "Cancelación de Reserva",
+                String.format(
+                        "Estimado/a %s,\n\nSu reserva ha sido cancelada.\n"
+                        + "Detalles de la reserva cancelada:\n"
+                        + "- Fecha: %s\n"
+                        + "- Hora: %s",
+                        cliente.getNombre(),
+                        existente.getFechaReserva(),
+                        existente.getHora()
+                ),
+                String.format(
+                        "Se ha cancelado su reserva para el día %s a las %s.",
+                        existente.getFechaReserva(),
+                        existente.getHora()
+                ),
+                Notificacion.TipoNotificacion.ADVERTENCIA);
     }
 
     /**
-     * Elimina todas las reservas asociadas a un cliente mediante su DNI.
+     * Elimina todas las reservas asociadas a un cliente mediante su DNI y
+     * sus entradas en listas de espera, libera sus plazas para las listas de
+     * espera y encola el aviso de cancelación al cliente.
      *
      * @param dni el documento nacional de identidad del cliente.
      */
     @Override
+    @Transactional
     public void deleteByClienteDni(String dni) {
-        reservaRepository.deleteByClienteDni(dni);
+        listaEsperaService.cancelarByClienteDni(dni);
+        liberarPlazas(reservaRepository.deleteByClienteDni(dni), true);
+
+        Cliente cliente = clienteRepository.findByDNIFull(dni);
+        if (cliente != null) {
+            bandejaSalidaService.encolar(cliente,
+                    "Cancelación de Reservas",
+                    String.format(
+                            "Estimado/a %s,\n\nTodas sus reservas han sido canceladas.",
+                            cliente.getNombre()
+                    ),
+                    "Se han cancelado todas sus reservas.",
+                    Notificacion.TipoNotificacion.ADVERTENCIA);
+        }
     }
 
     /**
      * Elimina todas las reservas asociadas a una empresa o autónomo mediante su
-     * identificador fiscal.
+     * identificador fiscal, junto con las listas de espera de sus servicios,
+     * y libera sus plazas.
      *
      * @param identificadorFiscal el identificador fiscal de la empresa o
      * autónomo.
      */
     @Override
+    @Transactional
     public void deleteByEmpresaIdentificadorFiscal(String identificadorFiscal) {
-        reservaRepository.deleteByEmpresaIdentificadorFiscal(identificadorFiscal);
+        listaEsperaService.eliminarPorEmpresa(identificadorFiscal);
+        liberarPlazas(reservaRepository.deleteByEmpresaIdentificadorFiscal(identificadorFiscal), false);
     }
 
     /**
@@ -134,21 +478,115 @@ public class ReservaServiceImpl implements ReservaService {
      * determinada.
      *
      * @param servicioId el identificador del servicio.
-     * @param fechaReserva la fecha de la reserva en formato String.
+     * @param fechaReserva la fecha de la reserva.
      * @return el número de reservas existentes para ese servicio en esa fecha.
      */
     @Override
-    public int countReservasByServicioIdAndFecha(Long servicioId, String fechaReserva) {
+    public int countReservasByServicioIdAndFecha(Long servicioId, LocalDate fechaReserva) {
         return reservaRepository.countByServicioIdAndFechaReserva(servicioId, fechaReserva);
     }
 
     /**
-     * Elimina todas las reservas asociadas a un servicio mediante su ID.
+     * Elimina todas las reservas y la lista de espera asociadas a un
+     * servicio mediante su ID.
      *
      * @param servicioId el identificador del servicio.
      */
     @Override
+    @Transactional
     public void deleteByServicioId(Long servicioId) {
+        listaEsperaService.eliminarPorServicio(servicioId);
         reservaRepository.deleteByServicioId(servicioId);
+        capacidadService.eliminarContadoresServicio(servicioId);
+        metricaDiariaRepository.deleteByServicioId(servicioId);
+        histogramasService.eliminarServicio(servicioId);
+        disponibilidadService.invalidarServicio(servicioId);
+        metricasService.invalidarServicio(servicioId);
+    }
+
+    /**
+     * Libera en el libro de capacidad las plazas de las reservas eliminadas,
+     * agrupadas por servicio y fecha, las retira del resumen de métricas con
+     * sus precios e invalida esos días del calendario de disponibilidad.
+     *
+     * @param porFranja las reservas eliminadas por servicio y fecha.
+     * @param promoverListaEspera si las plazas liberadas se ofrecen a las
+     * listas de espera; no se hace cuando los servicios van a eliminarse.
+     */
+    private void liberarPlazas(Map<Long, Map<LocalDate, ReservasEliminadasDTO>> porFranja,
+            boolean promoverListaEspera) {
+        porFranja.forEach((idServicio, porFecha) -> porFecha.forEach((fecha, eliminadas) -> {
+            capacidadService.liberarPlazas(idServicio, fecha, eliminadas.getReservas());
+            metricaDiariaRepository.acumular(idServicio, fecha, -eliminadas.getReservas(),
+                    -eliminadas.getIngresosCentimos());
+            disponibilidadService.invalidar(idServicio, fecha);
+            metricasService.invalidar(idServicio, fecha);
+            if (promoverListaEspera) {
+                listaEsperaService.plazaLiberada(idServicio, fecha);
+            }
+        }));
+    }
+
+    /**
+     * Valida el tamaño de página solicitado.
+     *
+     * @param limite el tamaño solicitado, o {@code null}.
+     * @return el tamaño de página a utilizar.
+     */
+    private static int tamanoPagina(Integer limite) {
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new BadRequestException("El límite debe estar entre 1 y " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    /**
+     * Construye la página a partir de las reservas leídas. Se pide una reserva
+     * más de las necesarias para saber si existe una página siguiente sin
+     * hacer una consulta adicional.
+     *
+     * @param reservas las reservas leídas, como máximo {@code tamano + 1}.
+     * @param tamano el tamaño de la página.
+     * @return la página con el cursor de la siguiente, si la hay.
+     */
+    private static PaginaReservasDTO pagina(List<ReservaDTO> reservas, int tamano) {
+        if (reservas.size() <= tamano) {
+            return new PaginaReservasDTO(reservas, null);
+        }
+        List<ReservaDTO> contenido = reservas.subList(0, tamano);
+        ReservaDTO ultima = contenido.get(tamano - 1);
+        // La hora expuesta por la API no lleva segundos; el cursor usa la
+        // guardada para que la comparación con r.hora sea exacta.
+        String hora = ultima.getHoraExacta() != null ? ultima.getHoraExacta().toString() : ultima.getHora();
+        String siguiente = ultima.getFechaReserva() + SEPARADOR_CURSOR + hora
+                + SEPARADOR_CURSOR + ultima.getIdReserva();
+        return new PaginaReservasDTO(new ArrayList<>(contenido),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(siguiente.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Decodifica el cursor recibido del cliente.
+     *
+     * @param cursor el cursor, o {@code null} para la primera página.
+     * @return la posición codificada en el cursor, o {@code null}.
+     * @throws BadRequestException si el cursor no es válido.
+     */
+    private static CursorReserva decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARADOR_CURSOR);
+            if (partes.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return new CursorReserva(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("El cursor de paginación no es válido");
+        }
     }
 }
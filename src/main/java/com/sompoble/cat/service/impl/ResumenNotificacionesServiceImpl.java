@@ -0,0 +1,258 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
+import com.sompoble.cat.domain.ConfiguracionNotificaciones.Frecuencia;
+import com.sompoble.cat.domain.MensajeSalida;
+import com.sompoble.cat.repository.MensajeSalidaRepository;
+import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.service.ResumenNotificacionesService;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementación de {@link ResumenNotificacionesService}.
+ * <p>
+ * No guarda estado entre ejecuciones: en cada pasada calcula el cierre de la
+ * última ventana (la última hora en punto más el minuto configurado, o la
+ * última hora de envío diaria) y resume los correos apartados antes de ese
+ * momento. El resumen de cada destinatario se prepara en una transacción que
+ * bloquea sus mensajes, los marca como enviados y encola el correo
+ * consolidado en la bandeja de salida, de modo que aunque varias instancias
+ * ejecuten la pasada a la vez cada mensaje se resume una sola vez.
+ * </p>
+ * <p>
+ * El cuerpo se guarda en una columna {@code TEXT} de 65.535 bytes: si los
+ * mensajes de un destinatario no caben en un solo correo se reparten en
+ * varios resúmenes, porque un cuerpo mayor haría fallar la transacción en
+ * cada pasada y los mensajes no saldrían nunca.
+ * </p>
+ */
+@Service
+public class ResumenNotificacionesServiceImpl implements ResumenNotificacionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenNotificacionesServiceImpl.class);
+
+    /**
+     * Asunto de los correos que agrupan varios mensajes.
+     */
+    static final String ASUNTO = "Resumen de notificaciones - SomPoble";
+
+    /**
+     * Tamaño máximo en bytes del cuerpo de un resumen, el de la columna
+     * {@code CUERPO}.
+     */
+    static final int MAX_CUERPO = 65_535;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    /**
+     * Repositorio de la bandeja de salida.
+     */
+    @Autowired
+    private MensajeSalidaRepository mensajeSalidaRepository;
+
+    /**
+     * Servicio de notificaciones, del que se lee la configuración.
+     */
+    @Autowired
+    private NotificationService notificationService;
+
+    /**
+     * Plantilla para preparar cada resumen en su propia transacción.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Número de destinatarios que se buscan en cada consulta.
+     */
+    @Value("${notificaciones.resumen.lote:200}")
+    private int lote = 200;
+
+    /**
+     * Reloj del servicio.
+     */
+    private Clock reloj = Clock.systemDefaultZone();
+
+    /**
+     * Comprueba cada minuto si se ha cerrado una ventana y encola los
+     * resúmenes pendientes.
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${notificaciones.resumen.intervalo-ms:60000}")
+    public void enviarResumenes() {
+        ConfiguracionNotificaciones configuracion = notificationService.getConfiguracion();
+        LocalDateTime corte = corte(configuracion.getFrecuenciaEfectiva(), configuracion.getHoraEnvioEfectiva(),
+                LocalDateTime.now(reloj));
+        int resumenes = 0;
+        List<String> destinatarios;
+        int encolados;
+        do {
+            destinatarios = mensajeSalidaRepository.findDestinatariosResumen(corte, lote);
+            encolados = 0;
+            for (String destinatario : destinatarios) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(estado -> resumir(destinatario, corte)))) {
+                        encolados++;
+                    }
+                } catch (Exception e) {
+                    logger.warn("No se ha podido preparar el resumen de {}: {}", destinatario, e.getMessage());
+                }
+            }
+            resumenes += encolados;
+        } while (destinatarios.size() == lote && encolados > 0);
+        if (resumenes > 0) {
+            logger.info("Encolados {} resúmenes de notificaciones (cierre {})", resumenes, corte);
+        }
+    }
+
+    /**
+     * Prepara el resumen de un destinatario. Debe ejecutarse en una
+     * transacción.
+     *
+     * @param destinatario la dirección del destinatario.
+     * @param corte el cierre de la ventana.
+     * @return {@code true} si se ha encolado algún correo.
+     */
+    private boolean resumir(String destinatario, LocalDateTime corte) {
+        List<MensajeSalida> mensajes = mensajeSalidaRepository.bloquearResumen(destinatario, corte);
+        if (mensajes.isEmpty()) {
+            return false;
+        }
+        for (List<MensajeSalida> parte : repartir(mensajes)) {
+            MensajeSalida primero = parte.get(0);
+            MensajeSalida resumen = new MensajeSalida();
+            resumen.setDniCliente(primero.getDniCliente());
+            resumen.setDestinatario(destinatario);
+            if (parte.size() == 1) {
+                resumen.setAsunto(primero.getAsunto());
+                resumen.setCuerpo(primero.getCuerpo());
+            } else {
+                resumen.setAsunto(ASUNTO);
+                resumen.setCuerpo(componer(parte));
+            }
+            resumen.setProximoIntento(LocalDateTime.now(reloj));
+            mensajeSalidaRepository.save(resumen);
+        }
+
+        List<Long> ids = new ArrayList<>(mensajes.size());
+        for (MensajeSalida mensaje : mensajes) {
+            ids.add(mensaje.getIdMensaje());
+        }
+        mensajeSalidaRepository.marcarResumidos(ids);
+        return true;
+    }
+
+    /**
+     * Compone el cuerpo de un resumen con el asunto, la fecha y el cuerpo de
+     * cada mensaje.
+     *
+     * @param mensajes los mensajes, por orden de alta.
+     * @return el cuerpo del resumen.
+     */
+    static String componer(List<MensajeSalida> mensajes) {
+        StringBuilder cuerpo = new StringBuilder(cabecera(mensajes.size()));
+        for (MensajeSalida mensaje : mensajes) {
+            cuerpo.append(entrada(mensaje));
+        }
+        return cuerpo.toString().stripTrailing();
+    }
+
+    /**
+     * Reparte los mensajes, por orden, en grupos cuyo resumen cabe en
+     * {@link #MAX_CUERPO} bytes. Un mensaje solo forma su propio grupo y se
+     * envía con su cuerpo original, que ya cabe en la columna.
+     *
+     * @param mensajes los mensajes, por orden de alta.
+     * @return los grupos de mensajes, cada uno con al menos un mensaje.
+     */
+    static List<List<MensajeSalida>> repartir(List<MensajeSalida> mensajes) {
+        List<List<MensajeSalida>> partes = new ArrayList<>();
+        List<MensajeSalida> parte = new ArrayList<>();
+        int bytes = 0;
+        for (MensajeSalida mensaje : mensajes) {
+            int tamano = bytes(entrada(mensaje));
+            if (!parte.isEmpty() && bytes(cabecera(parte.size() + 1)) + bytes + tamano > MAX_CUERPO) {
+                partes.add(parte);
+                parte = new ArrayList<>();
+                bytes = 0;
+            }
+            parte.add(mensaje);
+            bytes += tamano;
+        }
+        partes.add(parte);
+        return partes;
+    }
+
+    /**
+     * Devuelve la cabecera de un resumen.
+     *
+     * @param mensajes el número de mensajes del resumen.
+     * @return la cabecera.
+     */
+    private static String cabecera(int mensajes) {
+        return "Tiene " + mensajes + " notificaciones nuevas:\n\n";
+    }
+
+    /**
+     * Devuelve el bloque de un mensaje dentro de un resumen: el asunto, la
+     * fecha y el cuerpo.
+     *
+     * @param mensaje el mensaje.
+     * @return el bloque del mensaje.
+     */
+    private static String entrada(MensajeSalida mensaje) {
+        StringBuilder entrada = new StringBuilder("— ").append(mensaje.getAsunto());
+        if (mensaje.getFechaAlta() != null) {
+            entrada.append(" (").append(mensaje.getFechaAlta().format(FORMATO_FECHA)).append(')');
+        }
+        return entrada.append("\n").append(mensaje.getCuerpo()).append("\n\n").toString();
+    }
+
+    /**
+     * Devuelve el tamaño de un texto en la base de datos, en UTF-8.
+     *
+     * @param texto el texto.
+     * @return el número de bytes.
+     */
+    private static int bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Calcula el cierre de la última ventana de resumen.
+     *
+     * @param frecuencia la frecuencia de los resúmenes.
+     * @param hora la hora de envío; en los horarios solo cuenta el minuto.
+     * @param ahora el momento actual.
+     * @return el último cierre no posterior a {@code ahora}; con frecuencia
+     * inmediata, el propio {@code ahora}.
+     */
+    static LocalDateTime corte(Frecuencia frecuencia, LocalTime hora, LocalDateTime ahora) {
+        switch (frecuencia) {
+            case HORARIA: {
+                LocalDateTime corte = ahora.truncatedTo(ChronoUnit.HOURS).withMinute(hora.getMinute());
+                return corte.isAfter(ahora) ? corte.minusHours(1) : corte;
+            }
+            case DIARIA: {
+                LocalDateTime corte = ahora.toLocalDate().atTime(hora);
+                return corte.isAfter(ahora) ? corte.minusDays(1) : corte;
+            }
+            default:
+                return ahora;
+        }
+    }
+}
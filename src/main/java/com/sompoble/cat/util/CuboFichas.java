@@ -0,0 +1,93 @@
+package com.sompoble.cat.util;
+
+/**
+ * Cubo de fichas para limitar la frecuencia de una operación.
+ * <p>
+ * El cubo se llena a razón de {@code fichasPorMinuto} hasta un máximo de
+ * {@code capacidad} fichas, que es la ráfaga que se admite tras un periodo de
+ * inactividad. Cada operación consume una ficha. Además, el cubo puede
+ * pausarse hasta un momento dado, por ejemplo cuando el servidor de correo
+ * indica que se está enviando demasiado; al reanudarse empieza vacío. Un cubo
+ * con una frecuencia no positiva no limita nada.
+ * </p>
+ * <p>
+ * Los momentos se indican en milisegundos. Los métodos están sincronizados.
+ * </p>
+ */
+public final class CuboFichas {
+
+    private final double capacidad;
+
+    private final double fichasPorMs;
+
+    private double fichas;
+
+    private long ultimo;
+
+    private long pausadoHasta = Long.MIN_VALUE;
+
+    /**
+     * Crea un cubo lleno.
+     *
+     * @param capacidad el número máximo de fichas acumuladas.
+     * @param fichasPorMinuto el número de fichas que se reponen por minuto.
+     * @param ahora el momento actual.
+     */
+    public CuboFichas(int capacidad, double fichasPorMinuto, long ahora) {
+        this.capacidad = Math.max(1, capacidad);
+        this.fichasPorMs = fichasPorMinuto / 60_000d;
+        this.fichas = this.capacidad;
+        this.ultimo = ahora;
+    }
+
+    /**
+     * Devuelve cuánto falta para disponer de una ficha, sin consumirla.
+     *
+     * @param ahora el momento actual.
+     * @return la espera en milisegundos, o {@code 0} si hay una ficha.
+     */
+    public synchronized long espera(long ahora) {
+        if (ahora < pausadoHasta) {
+            return pausadoHasta - ahora;
+        }
+        if (fichasPorMs <= 0) {
+            return 0;
+        }
+        reponer(ahora);
+        return fichas >= 1 ? 0 : (long) Math.ceil((1 - fichas) / fichasPorMs);
+    }
+
+    /**
+     * Consume una ficha. Debe llamarse tras comprobar que
+     * {@link #espera(long)} es cero.
+     *
+     * @param ahora el momento actual.
+     */
+    public synchronized void consumir(long ahora) {
+        if (fichasPorMs <= 0) {
+            return;
+        }
+        reponer(ahora);
+        fichas = Math.max(0, fichas - 1);
+    }
+
+    /**
+     * Vacía el cubo y no entrega fichas hasta el momento indicado.
+     *
+     * @param hasta el momento en que el cubo vuelve a llenarse.
+     */
+    public synchronized void pausar(long hasta) {
+        if (hasta > pausadoHasta) {
+            pausadoHasta = hasta;
+            fichas = 0;
+            ultimo = hasta;
+        }
+    }
+
+    private void reponer(long ahora) {
+        if (ahora > ultimo) {
+            fichas = Math.min(capacidad, fichas + (ahora - ultimo) * fichasPorMs);
+            ultimo = ahora;
+        }
+    }
+}
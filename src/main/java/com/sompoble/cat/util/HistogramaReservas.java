@@ -0,0 +1,220 @@
+package com.sompoble.cat.util;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Histograma de cubetas fijas de las reservas de un servicio en un día: cuántas
+ * hay en cada hora del día y cuántas se hicieron con cada antelación.
+ * <p>
+ * Las cubetas son contadores enteros en un array, de modo que registrar una
+ * reserva es incrementar dos posiciones y el histograma de un rango de días
+ * es la suma de los histogramas de esos días. A diferencia de
+ * {@link HyperLogLog}, admite retirar reservas. Serializado ocupa
+ * {@link #BYTES} bytes.
+ * </p>
+ *
+ * @author SomPoble
+ */
+public final class HistogramaReservas {
+
+    /**
+     * Número de cubetas por hora del día.
+     */
+    public static final int HORAS = 24;
+
+    /**
+     * Límites superiores (exclusivos) de las cubetas de antelación, en horas:
+     * menos de 1 hora, de 1 a 3, de 3 a 6, de 6 a 12, de 12 a 24, de 1 a 2
+     * días, de 2 a 3, de 3 a 7, de 7 a 14, de 14 a 30, de 30 a 60 y, en la
+     * última cubeta, 60 días o más.
+     */
+    private static final long[] LIMITES_ANTELACION_HORAS = {1, 3, 6, 12, 24, 48, 72, 168, 336, 720, 1440};
+
+    /**
+     * Número de cubetas de antelación: una más que límites.
+     */
+    public static final int ANTELACIONES = 12;
+
+    /**
+     * Etiquetas de las cubetas de antelación, en el mismo orden.
+     */
+    public static final List<String> ETIQUETAS_ANTELACION = List.of(
+            "<1h", "1-3h", "3-6h", "6-12h", "12-24h", "1-2d", "2-3d", "3-7d", "7-14d", "14-30d", "30-60d", ">=60d");
+
+    /**
+     * Número total de cubetas.
+     */
+    public static final int CUBETAS = HORAS + ANTELACIONES;
+
+    /**
+     * Tamaño en bytes del histograma serializado.
+     */
+    public static final int BYTES = CUBETAS * Integer.BYTES;
+
+    /**
+     * Cubetas: primero las horas del día y después las antelaciones.
+     */
+    private final int[] cubetas;
+
+    /**
+     * Crea un histograma vacío.
+     */
+    public HistogramaReservas() {
+        this.cubetas = new int[CUBETAS];
+    }
+
+    private HistogramaReservas(int[] cubetas) {
+        this.cubetas = cubetas;
+    }
+
+    /**
+     * Reconstruye un histograma a partir de sus cubetas serializadas.
+     *
+     * @param bytes las cubetas, tal como las devuelve {@link #getBytes()}.
+     * @return el histograma.
+     * @throws IllegalArgumentException si el tamaño no es {@link #BYTES}.
+     */
+    public static HistogramaReservas deBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != BYTES) {
+            throw new IllegalArgumentException("Un histograma de reservas debe ocupar " + BYTES + " bytes");
+        }
+        int[] cubetas = new int[CUBETAS];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(cubetas);
+        return new HistogramaReservas(cubetas);
+    }
+
+    /**
+     * Obtiene la cubeta de antelación que corresponde a un número de minutos.
+     * Las antelaciones negativas, de reservas registradas después de su hora,
+     * cuentan en la primera cubeta.
+     *
+     * @param minutos la antelación en minutos.
+     * @return el índice de la cubeta, entre 0 y {@link #ANTELACIONES} - 1.
+     */
+    public static int cubetaAntelacion(long minutos) {
+        for (int i = 0; i < LIMITES_ANTELACION_HORAS.length; i++) {
+            if (minutos < LIMITES_ANTELACION_HORAS[i] * 60) {
+                return i;
+            }
+        }
+        return LIMITES_ANTELACION_HORAS.length;
+    }
+
+    /**
+     * Añade o retira reservas de una hora y antelación. Las cubetas no bajan
+     * de cero.
+     *
+     * @param hora la hora del día de las reservas, de 0 a 23.
+     * @param minutosAntelacion la antelación con que se hicieron, en minutos.
+     * @param cantidad el número de reservas que se añaden o, si es negativo,
+     * que se retiran.
+     */
+    public void registrar(int hora, long minutosAntelacion, int cantidad) {
+        if (hora < 0 || hora >= HORAS) {
+            throw new IllegalArgumentException("Hora fuera de rango: " + hora);
+        }
+        sumar(hora, cantidad);
+        sumar(HORAS + cubetaAntelacion(minutosAntelacion), cantidad);
+    }
+
+    /**
+     * Añade o retira reservas de una franja, con la antelación que hay entre
+     * su alta y la fecha y hora reservadas.
+     *
+     * @param fecha la fecha reservada.
+     * @param hora la hora reservada.
+     * @param fechaAlta el momento en que se hicieron las reservas.
+     * @param cantidad el número de reservas que se añaden o, si es negativo,
+     * que se retiran.
+     */
+    public void registrar(LocalDate fecha, LocalTime hora, LocalDateTime fechaAlta, int cantidad) {
+        registrar(hora.getHour(), Duration.between(fechaAlta, fecha.atTime(hora)).toMinutes(), cantidad);
+    }
+
+    /**
+     * Suma otro histograma a este.
+     *
+     * @param otro el histograma que se suma.
+     */
+    public void unir(HistogramaReservas otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] += otro.cubetas[i];
+        }
+    }
+
+    /**
+     * Obtiene el número de reservas del histograma.
+     *
+     * @return la suma de las cubetas por hora.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (int i = 0; i < HORAS; i++) {
+            total += cubetas[i];
+        }
+        return total;
+    }
+
+    /**
+     * Obtiene una copia de las cubetas por hora del día.
+     *
+     * @return las reservas de cada hora, de 0 a 23.
+     */
+    public int[] getPorHora() {
+        return Arrays.copyOfRange(cubetas, 0, HORAS);
+    }
+
+    /**
+     * Obtiene una copia de las cubetas de antelación.
+     *
+     * @return las reservas de cada cubeta de antelación.
+     */
+    public int[] getAntelacion() {
+        return Arrays.copyOfRange(cubetas, HORAS, CUBETAS);
+    }
+
+    /**
+     * Serializa las cubetas para guardarlas.
+     *
+     * @return las cubetas, en {@link #BYTES} bytes.
+     */
+    public byte[] getBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        buffer.asIntBuffer().put(cubetas);
+        return buffer.array();
+    }
+
+    /**
+     * Indica si el histograma no tiene ninguna reserva.
+     *
+     * @return {@code true} si todas las cubetas están a cero.
+     */
+    public boolean isVacio() {
+        for (int cubeta : cubetas) {
+            if (cubeta != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HistogramaReservas otro && Arrays.equals(cubetas, otro.cubetas);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cubetas);
+    }
+
+    private void sumar(int cubeta, int cantidad) {
+        cubetas[cubeta] = Math.max(cubetas[cubeta] + cantidad, 0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.sompoble.cat.util;
+
+import java.util.Arrays;
+
+/**
+ * Estimador HyperLogLog del número de elementos distintos de un conjunto.
+ * <p>
+ * Usa 2^11 registros de un byte, de modo que cada estimador ocupa 2 KB y el
+ * error típico es de en torno al 2,3 %. Dos estimadores se unen tomando el
+ * máximo de cada registro, por lo que la estimación de un rango de días es la
+ * unión de los estimadores de esos días. No admite borrados.
+ * </p>
+ *
+ * @author SomPoble
+ */
+public final class HyperLogLog {
+
+    /**
+     * Bits del hash que seleccionan el registro.
+     */
+    public static final int PRECISION = 11;
+
+    /**
+     * Número de registros y tamaño en bytes del estimador.
+     */
+    public static final int REGISTROS = 1 << PRECISION;
+
+    /**
+     * Valor máximo de un registro.
+     */
+    private static final int MAXIMO_REGISTRO = Long.SIZE - PRECISION + 1;
+
+    /**
+     * Constante del estimador para un número de registros grande.
+     */
+    private static final double ALFA = 1 / (2 * Math.log(2));
+
+    /**
+     * Registros: cada uno guarda la mayor posición del primer bit a uno
+     * observada entre los hashes que le corresponden.
+     */
+    private final byte[] registros;
+
+    /**
+     * Crea un estimador vacío.
+     */
+    public HyperLogLog() {
+        this.registros = new byte[REGISTROS];
+    }
+
+    private HyperLogLog(byte[] registros) {
+        this.registros = registros;
+    }
+
+    /**
+     * Reconstruye un estimador a partir de sus registros serializados.
+     *
+     * @param registros los registros, tal como los devuelve
+     * {@link #getRegistros()}.
+     * @return el estimador.
+     * @throws IllegalArgumentException si el tamaño no es
+     * {@link #REGISTROS}.
+     */
+    public static HyperLogLog deRegistros(byte[] registros) {
+        if (registros == null || registros.length != REGISTROS) {
+            throw new IllegalArgumentException("Un estimador HyperLogLog debe tener " + REGISTROS + " registros");
+        }
+        return new HyperLogLog(registros.clone());
+    }
+
+    /**
+     * Añade un elemento al estimador.
+     *
+     * @param valor el elemento.
+     * @return {@code true} si ha cambiado algún registro.
+     */
+    public boolean agregar(long valor) {
+        int indice = indice(valor);
+        byte posicion = posicion(valor);
+        if (posicion > registros[indice]) {
+            registros[indice] = posicion;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene el registro que corresponde a un elemento.
+     *
+     * @param valor el elemento.
+     * @return el índice del registro, entre 0 y {@link #REGISTROS} - 1.
+     */
+    public static int indice(long valor) {
+        return (int) (mezclar(valor) >>> (Long.SIZE - PRECISION));
+    }
+
+    /**
+     * Obtiene el valor que un elemento aporta a su registro: la posición del
+     * primer bit a uno del resto de su hash. Añadir el elemento a un
+     * estimador equivale a quedarse con el máximo entre este valor y el del
+     * registro, por lo que se puede hacer sin leer el estimador.
+     *
+     * @param valor el elemento.
+     * @return la posición, entre 1 y el valor máximo de un registro.
+     */
+    public static byte posicion(long valor) {
+        // El bit centinela limita la posición cuando el resto del hash es cero
+        return (byte) (Long.numberOfLeadingZeros((mezclar(valor) << PRECISION) | (1L << (PRECISION - 1))) + 1);
+    }
+
+    /**
+     * Une otro estimador a este.
+     *
+     * @param otro el estimador que se une.
+     */
+    public void unir(HyperLogLog otro) {
+        for (int i = 0; i < REGISTROS; i++) {
+            if (otro.registros[i] > registros[i]) {
+                registros[i] = otro.registros[i];
+            }
+        }
+    }
+
+    /**
+     * Estima el número de elementos distintos añadidos con el estimador
+     * mejorado de Ertl, que corrige el sesgo del estimador original tanto en
+     * conjuntos pequeños como en la transición al recuento lineal, sin tablas
+     * de corrección.
+     *
+     * @return la estimación.
+     */
+    public long estimar() {
+        int[] frecuencias = new int[MAXIMO_REGISTRO + 1];
+        for (byte registro : registros) {
+            frecuencias[registro]++;
+        }
+        if (frecuencias[0] == REGISTROS) {
+            return 0;
+        }
+        double z = REGISTROS * tau(1 - (double) frecuencias[MAXIMO_REGISTRO] / REGISTROS);
+        for (int k = MAXIMO_REGISTRO - 1; k >= 1; k--) {
+            z = 0.5 * (z + frecuencias[k]);
+        }
+        z += REGISTROS * sigma((double) frecuencias[0] / REGISTROS);
+        return Math.round(ALFA * REGISTROS * REGISTROS / z);
+    }
+
+    /**
+     * Obtiene una copia de los registros para guardarlos.
+     *
+     * @return los registros.
+     */
+    public byte[] getRegistros() {
+        return registros.clone();
+    }
+
+    /**
+     * Indica si el estimador no tiene ningún elemento.
+     *
+     * @return {@code true} si todos los registros están a cero.
+     */
+    public boolean isVacio() {
+        for (byte registro : registros) {
+            if (registro != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof HyperLogLog otro && Arrays.equals(registros, otro.registros);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(registros);
+    }
+
+    /**
+     * Corrección de los registros vacíos del estimador de Ertl.
+     *
+     * @param x la fracción de registros vacíos, menor que 1.
+     * @return el término de corrección.
+     */
+    private static double sigma(double x) {
+        double y = 1;
+        double z = x;
+        double anterior;
+        do {
+            x *= x;
+            anterior = z;
+            z += x * y;
+            y += y;
+        } while (z != anterior);
+        return z;
+    }
+
+    /**
+     * Corrección de los registros saturados del estimador de Ertl.
+     *
+     * @param x la fracción de registros no saturados.
+     * @return el término de corrección.
+     */
+    private static double tau(double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double y = 1;
+        double z = 1 - x;
+        double anterior;
+        do {
+            x = Math.sqrt(x);
+            anterior = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while (z != anterior);
+        return z / 3;
+    }
+
+    /**
+     * Dispersa un valor en 64 bits (finalizador de MurmurHash3), para que
+     * identificadores consecutivos repartan bien entre registros.
+     *
+     * @param valor el valor.
+     * @return el hash.
+     */
+    static long mezclar(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
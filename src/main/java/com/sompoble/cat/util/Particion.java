@@ -0,0 +1,77 @@
+package com.sompoble.cat.util;
+
+/**
+ * Parte del trabajo que corresponde a una instancia cuando varias se lo
+ * reparten: la instancia número {@code indice} de {@code total} se ocupa de
+ * los identificadores cuyo resto al dividirlos entre {@code total} es
+ * {@code indice}. Los identificadores son secuenciales, por lo que el resto
+ * los reparte de forma uniforme.
+ */
+public final class Particion {
+
+    /**
+     * Todas las partes del trabajo, para una sola instancia.
+     */
+    public static final Particion TODAS = new Particion(0, 1);
+
+    private final int indice;
+
+    private final int total;
+
+    /**
+     * Crea una partición.
+     *
+     * @param indice la posición de la instancia, entre 0 y {@code total - 1}.
+     * @param total el número de instancias.
+     */
+    public Particion(int indice, int total) {
+        if (total < 1 || indice < 0 || indice >= total) {
+            throw new IllegalArgumentException("Partición no válida: " + indice + " de " + total);
+        }
+        this.indice = indice;
+        this.total = total;
+    }
+
+    /**
+     * Indica si un identificador pertenece a la partición.
+     *
+     * @param id el identificador.
+     * @return {@code true} si corresponde a esta instancia.
+     */
+    public boolean incluye(long id) {
+        return Math.floorMod(id, total) == indice;
+    }
+
+    /**
+     * Obtiene la posición de la instancia.
+     *
+     * @return la posición, desde 0.
+     */
+    public int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Obtiene el número de instancias.
+     *
+     * @return el número de instancias.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof Particion p && p.indice == indice && p.total == total;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * indice + total;
+    }
+
+    @Override
+    public String toString() {
+        return indice + "/" + total;
+    }
+}
@@ -0,0 +1,200 @@
+package com.sompoble.cat.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporizadores jerárquica.
+ * <p>
+ * Cada nivel es un anillo de {@code ranuras} cubetas; las cubetas del primer
+ * nivel duran un tick y las de cada nivel siguiente duran la vuelta completa
+ * del anterior. Un elemento se guarda en el nivel más bajo cuyo horizonte lo
+ * alcanza y, cuando llega la cubeta que lo contiene, baja al nivel inferior
+ * hasta vencer en el primero. Programar y vencer un elemento cuesta
+ * {@code O(1)} por nivel, sin ordenar los elementos pendientes. Los niveles se
+ * crean a medida que hacen falta.
+ * </p>
+ * <p>
+ * Un elemento vence en el tick que contiene su momento de vencimiento, por lo
+ * que puede entregarse hasta un tick antes. Los elementos cuyo vencimiento ya
+ * ha pasado se entregan en el siguiente avance. La clase no es segura para
+ * hilos.
+ * </p>
+ *
+ * @param <T> el tipo de los elementos programados.
+ */
+public final class RuedaTemporizadores<T> {
+
+    private final long tick;
+
+    private final int ranuras;
+
+    private final List<Nivel<T>> niveles = new ArrayList<>();
+
+    private List<T> vencidos = new ArrayList<>();
+
+    private long actual;
+
+    private int pendientes;
+
+    /**
+     * Crea una rueda vacía.
+     *
+     * @param tick la duración de un tick, en milisegundos.
+     * @param ranuras el número de cubetas de cada nivel.
+     * @param inicio el momento inicial, en milisegundos.
+     */
+    public RuedaTemporizadores(long tick, int ranuras, long inicio) {
+        if (tick <= 0 || ranuras < 2) {
+            throw new IllegalArgumentException("Tick o número de ranuras no válidos");
+        }
+        this.tick = tick;
+        this.ranuras = ranuras;
+        this.actual = Math.floorDiv(inicio, tick) * tick;
+        niveles.add(new Nivel<>(tick, ranuras, actual));
+    }
+
+    /**
+     * Programa un elemento.
+     *
+     * @param vencimiento el momento en que vence, en milisegundos.
+     * @param elemento el elemento.
+     */
+    public void programar(long vencimiento, T elemento) {
+        pendientes++;
+        if (!insertar(new Entrada<>(vencimiento, elemento))) {
+            vencidos.add(elemento);
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta un momento y devuelve los elementos vencidos.
+     *
+     * @param ahora el momento actual, en milisegundos.
+     * @return los elementos vencidos, en orden de tick.
+     */
+    public List<T> avanzar(long ahora) {
+        while (actual + tick <= ahora) {
+            actual += tick;
+            for (Nivel<T> nivel : niveles) {
+                if (actual % nivel.tick == 0) {
+                    nivel.actual = actual;
+                }
+            }
+            // De arriba abajo, para que lo que baja de un nivel venza en este
+            // mismo tick si le toca.
+            for (int i = niveles.size() - 1; i >= 0; i--) {
+                Nivel<T> nivel = niveles.get(i);
+                if (actual % nivel.tick == 0) {
+                    for (Entrada<T> entrada : nivel.vaciar(actual)) {
+                        if (!insertar(entrada)) {
+                            vencidos.add(entrada.elemento);
+                        }
+                    }
+                }
+            }
+        }
+        List<T> resultado = vencidos;
+        vencidos = new ArrayList<>();
+        pendientes -= resultado.size();
+        return resultado;
+    }
+
+    /**
+     * Devuelve el número de elementos programados que aún no se han
+     * entregado.
+     *
+     * @return el número de elementos pendientes.
+     */
+    public int size() {
+        return pendientes;
+    }
+
+    /**
+     * Devuelve el número de niveles creados.
+     *
+     * @return el número de niveles.
+     */
+    int getNiveles() {
+        return niveles.size();
+    }
+
+    /**
+     * Guarda una entrada en el nivel más bajo que la alcanza.
+     *
+     * @return {@code false} si la entrada ya ha vencido.
+     */
+    private boolean insertar(Entrada<T> entrada) {
+        for (int i = 0; ; i++) {
+            if (i == niveles.size()) {
+                Nivel<T> anterior = niveles.get(i - 1);
+                niveles.add(new Nivel<>(anterior.intervalo, ranuras, actual));
+            }
+            Nivel<T> nivel = niveles.get(i);
+            if (entrada.vencimiento < nivel.actual + nivel.tick) {
+                return false;
+            }
+            if (entrada.vencimiento < nivel.actual + nivel.intervalo) {
+                nivel.agregar(entrada);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Anillo de cubetas de un nivel.
+     */
+    private static final class Nivel<T> {
+
+        private final long tick;
+
+        private final long intervalo;
+
+        private final List<List<Entrada<T>>> cubetas;
+
+        private long actual;
+
+        Nivel(long tick, int ranuras, long inicio) {
+            this.tick = tick;
+            this.intervalo = tick * ranuras;
+            this.actual = Math.floorDiv(inicio, tick) * tick;
+            this.cubetas = new ArrayList<>(ranuras);
+            for (int i = 0; i < ranuras; i++) {
+                cubetas.add(new ArrayList<>());
+            }
+        }
+
+        void agregar(Entrada<T> entrada) {
+            cubetas.get(indice(entrada.vencimiento)).add(entrada);
+        }
+
+        List<Entrada<T>> vaciar(long momento) {
+            int indice = indice(momento);
+            List<Entrada<T>> cubeta = cubetas.get(indice);
+            if (cubeta.isEmpty()) {
+                return cubeta;
+            }
+            cubetas.set(indice, new ArrayList<>());
+            return cubeta;
+        }
+
+        private int indice(long momento) {
+            return (int) Math.floorMod(Math.floorDiv(momento, tick), (long) cubetas.size());
+        }
+    }
+
+    /**
+     * Elemento programado con su vencimiento.
+     */
+    private static final class Entrada<T> {
+
+        private final long vencimiento;
+
+        private final T elemento;
+
+        Entrada(long vencimiento, T elemento) {
+            this.vencimiento = vencimiento;
+            this.elemento = elemento;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Libro de capacidad por servicio y fecha (ver OcupacionServicio).
+-- El esquema se gestiona manualmente (spring.jpa.hibernate.ddl-auto=none).
+CREATE TABLE IF NOT EXISTS OCUPACION_SERVICIO (
+    ID_OCUPACION BIGINT NOT NULL AUTO_INCREMENT,
+    ID_SERVICIO BIGINT NOT NULL,
+    FECHA VARCHAR(50) NOT NULL,
+    OCUPADAS INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (ID_OCUPACION),
+    CONSTRAINT UK_OCUPACION_SERVICIO_FECHA UNIQUE (ID_SERVICIO, FECHA)
+);
+
+-- Carga inicial a partir de las reservas existentes. Los días que no se carguen
+-- aquí se inicializan de forma perezosa en la primera admisión.
+INSERT IGNORE INTO OCUPACION_SERVICIO (ID_SERVICIO, FECHA, OCUPADAS)
+SELECT ID_SERVICIO, FECHA, COUNT(*) FROM RESERVA GROUP BY ID_SERVICIO, FECHA;
@@ -0,0 +1,20 @@
+-- Bandeja de salida de correos y notificaciones (ver MensajeSalida).
+-- Las filas se escriben en la misma transacción que la reserva y las entrega
+-- en segundo plano el despachador de BandejaSalidaServiceImpl.
+CREATE TABLE IF NOT EXISTS MENSAJE_SALIDA (
+    ID_MENSAJE BIGINT NOT NULL AUTO_INCREMENT,
+    DNI_CLIENTE VARCHAR(50),
+    DESTINATARIO VARCHAR(255) NOT NULL,
+    ASUNTO VARCHAR(255) NOT NULL,
+    CUERPO TEXT NOT NULL,
+    TEXTO_NOTIFICACION VARCHAR(500),
+    TIPO_NOTIFICACION VARCHAR(20),
+    NOTIFICACION_REGISTRADA BOOLEAN NOT NULL DEFAULT FALSE,
+    ESTADO VARCHAR(20) NOT NULL,
+    INTENTOS INT NOT NULL DEFAULT 0,
+    PROXIMO_INTENTO DATETIME(6) NOT NULL,
+    ULTIMO_ERROR VARCHAR(1000),
+    FECHA_ALTA DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_MENSAJE),
+    INDEX IDX_MENSAJE_SALIDA_ESTADO (ESTADO, PROXIMO_INTENTO)
+);
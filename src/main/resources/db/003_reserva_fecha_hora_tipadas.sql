@@ -0,0 +1,60 @@
+-- Fecha y hora de RESERVA como DATE y TIME, e índices para las consultas por
+-- rango de fechas (ver Reserva). Ejecutar con la aplicación detenida.
+-- El esquema se gestiona manualmente (spring.jpa.hibernate.ddl-auto=none).
+
+ALTER TABLE RESERVA
+    ADD COLUMN FECHA_TIPADA DATE NULL,
+    ADD COLUMN HORA_TIPADA TIME NULL;
+
+-- Se aceptan los formatos yyyy-MM-dd y dd/MM/yyyy para la fecha, y HH:mm o
+-- HH:mm:ss para la hora.
+UPDATE RESERVA SET
+    FECHA_TIPADA = CASE
+        WHEN FECHA REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}' THEN STR_TO_DATE(LEFT(FECHA, 10), '%Y-%m-%d')
+        WHEN FECHA REGEXP '^[0-9]{2}/[0-9]{2}/[0-9]{4}$' THEN STR_TO_DATE(FECHA, '%d/%m/%Y')
+    END,
+    HORA_TIPADA = CASE
+        WHEN HORA REGEXP '^[0-9]{1,2}:[0-9]{2}(:[0-9]{2})?$' THEN CAST(HORA AS TIME)
+    END;
+
+-- Comprobación: si alguna fila no se ha podido convertir, el INSERT viola la
+-- restricción CHECK y el script se detiene aquí, antes de borrar las columnas
+-- originales, de modo que no se pierde ningún valor. Las filas se corrigen a
+-- mano (FECHA y HORA, o directamente FECHA_TIPADA y HORA_TIPADA) y se vuelve a
+-- ejecutar el script a partir de esta comprobación:
+-- SELECT ID_RESERVA, FECHA, HORA FROM RESERVA WHERE FECHA_TIPADA IS NULL OR HORA_TIPADA IS NULL;
+CREATE TEMPORARY TABLE COMPROBACION_RESERVA_TIPADA (
+    SIN_CONVERTIR INT NOT NULL,
+    CONSTRAINT CHK_RESERVA_TIPADA_COMPLETA CHECK (SIN_CONVERTIR = 0)
+);
+
+INSERT INTO COMPROBACION_RESERVA_TIPADA (SIN_CONVERTIR)
+SELECT COUNT(*) FROM RESERVA WHERE FECHA_TIPADA IS NULL OR HORA_TIPADA IS NULL;
+
+DROP TEMPORARY TABLE COMPROBACION_RESERVA_TIPADA;
+
+ALTER TABLE RESERVA
+    DROP COLUMN FECHA,
+    DROP COLUMN HORA,
+    RENAME COLUMN FECHA_TIPADA TO FECHA,
+    RENAME COLUMN HORA_TIPADA TO HORA;
+
+ALTER TABLE RESERVA
+    MODIFY FECHA DATE NOT NULL,
+    MODIFY HORA TIME NOT NULL;
+
+-- Métricas por empresa: el rango de fechas y los servicios y clientes se leen
+-- del propio índice.
+CREATE INDEX IDX_RESERVA_EMPRESA_FECHA ON RESERVA (ID_EMPRESA, FECHA, ID_SERVICIO, ID_CLIENTE);
+
+-- Libro de capacidad y calendario de disponibilidad por servicio.
+CREATE INDEX IDX_RESERVA_SERVICIO_FECHA ON RESERVA (ID_SERVICIO, FECHA);
+
+-- El libro de capacidad pasa también a DATE. Se vuelve a cargar a partir de las
+-- reservas ya convertidas.
+DELETE FROM OCUPACION_SERVICIO;
+
+ALTER TABLE OCUPACION_SERVICIO MODIFY FECHA DATE NOT NULL;
+
+INSERT INTO OCUPACION_SERVICIO (ID_SERVICIO, FECHA, OCUPADAS)
+SELECT ID_SERVICIO, FECHA, COUNT(*) FROM RESERVA GROUP BY ID_SERVICIO, FECHA;
@@ -0,0 +1,10 @@
+-- Índices para los listados paginados de reservas por cliente y por empresa
+-- (ver ReservaHibernate#findPagina). Las consultas ordenan por
+-- (FECHA, HORA, ID_RESERVA); InnoDB añade la clave primaria al final de cada
+-- índice secundario, por lo que el orden completo se lee del índice y cada
+-- página empieza directamente en la posición del cursor.
+-- El esquema se gestiona manualmente (spring.jpa.hibernate.ddl-auto=none).
+
+CREATE INDEX IDX_RESERVA_CLIENTE_ORDEN ON RESERVA (ID_CLIENTE, FECHA, HORA);
+
+CREATE INDEX IDX_RESERVA_EMPRESA_ORDEN ON RESERVA (ID_EMPRESA, FECHA, HORA);
@@ -0,0 +1,15 @@
+-- Claves de idempotencia de las peticiones de reservas (ver PeticionIdempotente
+-- e IdempotenciaFilter). Cada fila se reserva con INSERT IGNORE al empezar la
+-- petición y guarda la respuesta al terminar; IdempotenciaServiceImpl elimina
+-- periódicamente las filas caducadas.
+CREATE TABLE IF NOT EXISTS PETICION_IDEMPOTENTE (
+    CLAVE VARCHAR(255) NOT NULL,
+    HUELLA VARCHAR(64) NOT NULL,
+    ESTADO VARCHAR(20) NOT NULL,
+    CODIGO_ESTADO INT,
+    TIPO_CONTENIDO VARCHAR(255),
+    CUERPO MEDIUMBLOB,
+    EXPIRA_EN DATETIME(6) NOT NULL,
+    PRIMARY KEY (CLAVE),
+    INDEX IDX_PETICION_IDEMPOTENTE_EXPIRA (EXPIRA_EN)
+);
@@ -0,0 +1,22 @@
+-- Lista de espera de los servicios con la fecha completa (ver EntradaListaEspera
+-- y ListaEsperaServiceImpl). Las entradas EN_ESPERA se atienden por orden de
+-- ID_ENTRADA; IDX_LISTA_ESPERA_COLA permite leer la primera entrada de cada
+-- servicio y fecha, y recorrer las colas pendientes, sin ordenar filas. Las
+-- entradas se eliminan junto con su cliente o su servicio.
+CREATE TABLE IF NOT EXISTS LISTA_ESPERA (
+    ID_ENTRADA BIGINT NOT NULL AUTO_INCREMENT,
+    ID_CLIENTE BIGINT NOT NULL,
+    ID_SERVICIO BIGINT NOT NULL,
+    FECHA DATE NOT NULL,
+    HORA TIME NOT NULL,
+    ESTADO VARCHAR(20) NOT NULL,
+    ID_RESERVA BIGINT,
+    FECHA_ALTA DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_ENTRADA),
+    INDEX IDX_LISTA_ESPERA_COLA (ESTADO, ID_SERVICIO, FECHA, ID_ENTRADA),
+    INDEX IDX_LISTA_ESPERA_CLIENTE (ID_CLIENTE, ESTADO),
+    CONSTRAINT FK_LISTA_ESPERA_CLIENTE FOREIGN KEY (ID_CLIENTE)
+        REFERENCES CLIENTE (ID_PERSONA) ON DELETE CASCADE,
+    CONSTRAINT FK_LISTA_ESPERA_SERVICIO FOREIGN KEY (ID_SERVICIO)
+        REFERENCES SERVICIO (ID_SERVICIO) ON DELETE CASCADE
+);
@@ -0,0 +1,5 @@
+-- Columna VERSION para el bloqueo optimista de RESERVA, SERVICIO y HORARIO
+-- (ver @Version en las entidades). Las filas existentes empiezan en la versión 0.
+ALTER TABLE RESERVA ADD COLUMN VERSION BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE SERVICIO ADD COLUMN VERSION BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE HORARIO ADD COLUMN VERSION BIGINT NOT NULL DEFAULT 0;
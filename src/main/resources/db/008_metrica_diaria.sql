@@ -0,0 +1,21 @@
+-- Resumen diario de reservas e ingresos por servicio para el panel de
+-- métricas (ver MetricaDiaria y MetricasServiceImpl). Se mantiene de forma
+-- incremental desde ReservaServiceImpl y ListaEsperaServiceImpl, y se
+-- reconcilia cada noche con RESERVA.
+CREATE TABLE IF NOT EXISTS METRICA_DIARIA (
+    ID_METRICA BIGINT NOT NULL AUTO_INCREMENT,
+    ID_EMPRESA BIGINT NOT NULL,
+    ID_SERVICIO BIGINT NOT NULL,
+    FECHA DATE NOT NULL,
+    RESERVAS BIGINT NOT NULL DEFAULT 0,
+    INGRESOS DOUBLE NOT NULL DEFAULT 0,
+    PRIMARY KEY (ID_METRICA),
+    CONSTRAINT UK_METRICA_DIARIA_SERVICIO_FECHA UNIQUE (ID_SERVICIO, FECHA),
+    INDEX IDX_METRICA_DIARIA_EMPRESA_FECHA (ID_EMPRESA, FECHA)
+);
+
+-- Carga inicial a partir de las reservas existentes.
+INSERT INTO METRICA_DIARIA (ID_EMPRESA, ID_SERVICIO, FECHA, RESERVAS, INGRESOS)
+SELECT s.ID_EMPRESA, r.ID_SERVICIO, r.FECHA, COUNT(*), COUNT(*) * s.PRECIO
+FROM RESERVA r JOIN SERVICIO s ON s.ID_SERVICIO = r.ID_SERVICIO
+GROUP BY s.ID_EMPRESA, r.ID_SERVICIO, r.FECHA, s.PRECIO;
@@ -0,0 +1,12 @@
+-- Estimadores HyperLogLog de clientes distintos por empresa y día para el
+-- panel de métricas (ver ClientesDiarios y ClientesUnicosServiceImpl). Cada
+-- fila ocupa 2 KB. Se rellenan en la primera reconciliación nocturna de
+-- métricas, o al ejecutarla a mano.
+CREATE TABLE IF NOT EXISTS CLIENTES_DIARIOS (
+    ID_CLIENTES_DIARIOS BIGINT NOT NULL AUTO_INCREMENT,
+    ID_EMPRESA BIGINT NOT NULL,
+    FECHA DATE NOT NULL,
+    REGISTROS VARBINARY(2048) NOT NULL,
+    PRIMARY KEY (ID_CLIENTES_DIARIOS),
+    CONSTRAINT UK_CLIENTES_DIARIOS_EMPRESA_FECHA UNIQUE (ID_EMPRESA, FECHA)
+);
@@ -0,0 +1,14 @@
+-- Los ingresos del resumen diario pasan a céntimos enteros para que las sumas
+-- del panel de métricas sean exactas (ver MetricaDiaria). El precio de cada
+-- servicio se redondea a céntimos antes de multiplicar por las reservas.
+ALTER TABLE METRICA_DIARIA ADD COLUMN INGRESOS_CENTIMOS BIGINT NOT NULL DEFAULT 0;
+
+UPDATE METRICA_DIARIA m JOIN SERVICIO s ON s.ID_SERVICIO = m.ID_SERVICIO
+SET m.INGRESOS_CENTIMOS = m.RESERVAS * ROUND(s.PRECIO * 100);
+
+ALTER TABLE METRICA_DIARIA DROP COLUMN INGRESOS;
+
+-- El desglose por servicio y mes se lee del índice sin acceder a la tabla.
+DROP INDEX IDX_METRICA_DIARIA_EMPRESA_FECHA ON METRICA_DIARIA;
+CREATE INDEX IDX_METRICA_DIARIA_EMPRESA_FECHA
+    ON METRICA_DIARIA (ID_EMPRESA, FECHA, ID_SERVICIO, RESERVAS, INGRESOS_CENTIMOS);
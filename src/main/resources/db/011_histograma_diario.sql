@@ -0,0 +1,13 @@
+-- Histogramas de reservas por servicio y día, por hora del día y por
+-- antelación (ver HistogramaDiario y HistogramasServiceImpl). Cada fila ocupa
+-- 144 bytes de cubetas. Se rellenan en la primera reconciliación nocturna de
+-- métricas, o al ejecutarla a mano.
+CREATE TABLE IF NOT EXISTS HISTOGRAMA_DIARIO (
+    ID_HISTOGRAMA_DIARIO BIGINT NOT NULL AUTO_INCREMENT,
+    ID_EMPRESA BIGINT NOT NULL,
+    ID_SERVICIO BIGINT NOT NULL,
+    FECHA DATE NOT NULL,
+    CUBETAS VARBINARY(144) NOT NULL,
+    PRIMARY KEY (ID_HISTOGRAMA_DIARIO),
+    CONSTRAINT UK_HISTOGRAMA_DIARIO_SERVICIO_FECHA UNIQUE (ID_SERVICIO, FECHA)
+);
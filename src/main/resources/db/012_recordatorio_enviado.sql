@@ -0,0 +1,20 @@
+-- Recordatorios de reservas ya encolados (ver RecordatorioEnviado y
+-- ReminderServiceImpl). Cada fila se inserta en la misma transacción que el
+-- mensaje de la bandeja de salida, de modo que un recordatorio (reserva,
+-- antelación y fecha de la cita) se envía una sola vez aunque la aplicación se
+-- reinicie o haya varias instancias. Si la reserva cambia de fecha u hora, la
+-- nueva cita vuelve a recibir sus recordatorios. Las filas de citas pasadas se
+-- purgan periódicamente.
+CREATE TABLE IF NOT EXISTS RECORDATORIO_ENVIADO (
+    ID_RECORDATORIO_ENVIADO BIGINT NOT NULL AUTO_INCREMENT,
+    ID_RESERVA BIGINT NOT NULL,
+    ANTELACION_MINUTOS INT NOT NULL,
+    FECHA_CITA DATETIME NOT NULL,
+    FECHA_ENVIO DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_RECORDATORIO_ENVIADO),
+    CONSTRAINT UK_RECORDATORIO_ENVIADO UNIQUE (ID_RESERVA, ANTELACION_MINUTOS, FECHA_CITA),
+    INDEX IDX_RECORDATORIO_ENVIADO_CITA (FECHA_CITA)
+);
+
+-- Búsqueda de las citas de cada ventana de recordatorios por fecha y hora.
+CREATE INDEX IDX_RESERVA_FECHA_HORA ON RESERVA (FECHA, HORA);
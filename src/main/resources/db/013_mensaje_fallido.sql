@@ -0,0 +1,33 @@
+-- Correos de la bandeja de salida que no se han podido entregar (ver
+-- MensajeFallido). Un mensaje se traslada aquí desde MENSAJE_SALIDA cuando
+-- agota sus intentos o el servidor lo rechaza de forma definitiva, y vuelve a
+-- la bandeja de salida cuando se reenvía desde /api/email/fallidos.
+CREATE TABLE IF NOT EXISTS MENSAJE_FALLIDO (
+    ID_FALLIDO BIGINT NOT NULL AUTO_INCREMENT,
+    ID_MENSAJE_ORIGINAL BIGINT NOT NULL,
+    DNI_CLIENTE VARCHAR(50),
+    DESTINATARIO VARCHAR(255) NOT NULL,
+    ASUNTO VARCHAR(255) NOT NULL,
+    CUERPO TEXT NOT NULL,
+    TEXTO_NOTIFICACION VARCHAR(500),
+    TIPO_NOTIFICACION VARCHAR(20),
+    NOTIFICACION_REGISTRADA BOOLEAN NOT NULL DEFAULT FALSE,
+    INTENTOS INT NOT NULL DEFAULT 0,
+    ULTIMO_ERROR VARCHAR(1000),
+    FECHA_ALTA DATETIME(6) NOT NULL,
+    FECHA_FALLO DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_FALLIDO),
+    INDEX IDX_MENSAJE_FALLIDO_FECHA (FECHA_FALLO)
+);
+
+-- Los mensajes que ya estaban marcados como fallidos pasan a la nueva tabla;
+-- el estado FALLIDO deja de usarse en MENSAJE_SALIDA.
+INSERT INTO MENSAJE_FALLIDO (ID_MENSAJE_ORIGINAL, DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO,
+        TEXTO_NOTIFICACION, TIPO_NOTIFICACION, NOTIFICACION_REGISTRADA, INTENTOS, ULTIMO_ERROR,
+        FECHA_ALTA, FECHA_FALLO)
+    SELECT ID_MENSAJE, DNI_CLIENTE, DESTINATARIO, ASUNTO, CUERPO, TEXTO_NOTIFICACION,
+        TIPO_NOTIFICACION, NOTIFICACION_REGISTRADA, INTENTOS, ULTIMO_ERROR, FECHA_ALTA,
+        PROXIMO_INTENTO
+    FROM MENSAJE_SALIDA WHERE ESTADO = 'FALLIDO';
+
+DELETE FROM MENSAJE_SALIDA WHERE ESTADO = 'FALLIDO';
@@ -0,0 +1,15 @@
+-- Configuración del envío de notificaciones por correo (ver
+-- ConfiguracionNotificaciones). Una sola fila compartida por todas las
+-- instancias; se escribe desde /api/email/configure-notifications.
+CREATE TABLE IF NOT EXISTS CONFIGURACION_NOTIFICACIONES (
+    ID_CONFIGURACION BIGINT NOT NULL,
+    ACTIVADO BOOLEAN,
+    FRECUENCIA VARCHAR(20),
+    HORA_ENVIO VARCHAR(5),
+    FECHA_MODIFICACION DATETIME(6),
+    PRIMARY KEY (ID_CONFIGURACION)
+);
+
+-- Los correos informativos que esperan al resumen quedan en la bandeja de
+-- salida con ESTADO = 'RESUMEN'; el resumen se busca por destinatario.
+CREATE INDEX IDX_MENSAJE_SALIDA_RESUMEN ON MENSAJE_SALIDA (ESTADO, DESTINATARIO, FECHA_ALTA);
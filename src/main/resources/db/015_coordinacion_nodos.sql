@@ -0,0 +1,23 @@
+-- Coordinación de las tareas programadas entre instancias (ver
+-- CoordinacionService). Cada fila de BLOQUEO_PLANIFICADOR es un arrendamiento
+-- con nombre: la instancia que lo tiene ejecuta la tarea y lo renueva en cada
+-- ejecución; si deja de renovarlo, otra lo toma cuando vence. Cada instancia
+-- registra un latido en NODO_PLANIFICADOR, y las que tienen un latido reciente
+-- se reparten las reservas de los recordatorios. Los momentos se guardan en la
+-- hora UTC de la base de datos, de modo que no influye el reloj de cada
+-- instancia.
+CREATE TABLE IF NOT EXISTS BLOQUEO_PLANIFICADOR (
+    NOMBRE VARCHAR(100) NOT NULL,
+    PROPIETARIO VARCHAR(150) NOT NULL,
+    BLOQUEADO_HASTA DATETIME(6) NOT NULL,
+    FECHA_BLOQUEO DATETIME(6) NOT NULL,
+    PRIMARY KEY (NOMBRE)
+);
+
+CREATE TABLE IF NOT EXISTS NODO_PLANIFICADOR (
+    ID_NODO VARCHAR(150) NOT NULL,
+    ULTIMO_LATIDO DATETIME(6) NOT NULL,
+    FECHA_ALTA DATETIME(6) NOT NULL,
+    PRIMARY KEY (ID_NODO),
+    INDEX IDX_NODO_PLANIFICADOR_LATIDO (ULTIMO_LATIDO)
+);
@@ -0,0 +1,9 @@
+-- Índice para la sincronización del canal de notificaciones en vivo (ver
+-- NotificacionHibernate#findDeClientesDesde). Cada instancia lee
+-- periódicamente las notificaciones creadas en los últimos segundos para
+-- enviar a sus suscriptores las que se guardaron en otra instancia; con el
+-- índice la consulta recorre solo ese intervalo.
+-- La reanudación por cliente (findByClienteDniDespuesDe) usa el índice de la
+-- clave ajena ID_CLIENTE, al que InnoDB añade la clave primaria.
+
+CREATE INDEX IDX_NOTIFICACION_FECHA_ALTA ON NOTIFICACION (FECHA_ALTA);
@@ -0,0 +1,22 @@
+-- Precio de cada reserva en céntimos, fijado al crearla (ver Reserva). El
+-- resumen diario suma y resta este precio, y la reconciliación lo lee de
+-- RESERVA, de modo que un cambio de precio del servicio no reescribe los
+-- ingresos pasados. Las reservas existentes toman el precio actual de su
+-- servicio, que es el que usaba hasta ahora el resumen.
+ALTER TABLE RESERVA ADD COLUMN PRECIO_CENTIMOS BIGINT NULL;
+
+UPDATE RESERVA r JOIN SERVICIO s ON s.ID_SERVICIO = r.ID_SERVICIO
+SET r.PRECIO_CENTIMOS = ROUND(s.PRECIO * 100);
+
+ALTER TABLE RESERVA MODIFY PRECIO_CENTIMOS BIGINT NOT NULL;
+
+-- Días que la reconciliación nocturna debe recalcular (ver
+-- MetricaDiariaHibernate y MetricasServiceImpl). Se marcan al retirar
+-- reservas, ya que los estimadores de clientes no admiten bajas; la
+-- reconciliación solo recorre estos días y no todo el historial. Las
+-- reservas escritas fuera de la aplicación se recogen insertando aquí su
+-- fecha.
+CREATE TABLE IF NOT EXISTS METRICA_DIA_PENDIENTE (
+    FECHA DATE NOT NULL,
+    PRIMARY KEY (FECHA)
+);
@@ -0,0 +1,5 @@
+-- Veces que se ha aplazado un mensaje porque el proveedor limitaba los envíos
+-- de la cuenta o del dominio (ver BandejaSalidaServiceImpl). Estos aplazamientos
+-- no cuentan como intentos, así que tienen su propio máximo: al superarlo, el
+-- mensaje pasa a MENSAJE_FALLIDO en lugar de aplazarse indefinidamente.
+ALTER TABLE MENSAJE_SALIDA ADD COLUMN APLAZAMIENTOS INT NOT NULL DEFAULT 0;
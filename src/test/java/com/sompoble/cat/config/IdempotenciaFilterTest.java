@@ -0,0 +1,145 @@
+package com.sompoble.cat.config;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+import com.sompoble.cat.domain.PeticionIdempotente.EstadoPeticion;
+import com.sompoble.cat.service.IdempotenciaService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaFilterTest {
+
+    private static final String CUERPO = "{\"reserva\":{\"fechaReserva\":\"2025-04-15\"}}";
+
+    @Mock
+    private IdempotenciaService idempotenciaService;
+
+    private IdempotenciaFilter filtro;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        filtro = new IdempotenciaFilter(idempotenciaService);
+        request = new MockHttpServletRequest("POST", "/api/reservas");
+        request.setContent(CUERPO.getBytes(StandardCharsets.UTF_8));
+        request.setContentType("application/json");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void sinClaveNoSeFiltraTest() throws Exception {
+        FilterChain cadena = mock(FilterChain.class);
+
+        filtro.doFilter(request, response, cadena);
+
+        verify(cadena).doFilter(request, response);
+        verifyNoInteractions(idempotenciaService);
+    }
+
+    @Test
+    void primeraPeticionGuardaRespuestaTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "clave-1");
+        when(idempotenciaService.iniciar(eq("clave-1"), anyString())).thenReturn(null);
+
+        filtro.doFilter(request, response, (req, res) -> {
+            // El controlador puede leer el cuerpo aunque el filtro ya lo haya leído
+            assertEquals(CUERPO, new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(201);
+            http.setContentType("application/json");
+            http.getWriter().write("{\"idReserva\":1}");
+        });
+
+        assertEquals(201, response.getStatus());
+        assertEquals("{\"idReserva\":1}", response.getContentAsString());
+        verify(idempotenciaService).completar(eq("clave-1"), anyString(), eq(201), eq("application/json"),
+                aryEq("{\"idReserva\":1}".getBytes(StandardCharsets.UTF_8)));
+        verify(idempotenciaService, never()).liberar(anyString());
+    }
+
+    @Test
+    void reintentoRecibeRespuestaGuardadaTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "clave-1");
+        String huella = IdempotenciaFilter.huella(request, CUERPO.getBytes(StandardCharsets.UTF_8));
+        PeticionIdempotente previa = new PeticionIdempotente("clave-1", huella, 201, "application/json",
+                "{\"idReserva\":1}".getBytes(StandardCharsets.UTF_8), LocalDateTime.now().plusHours(1));
+        when(idempotenciaService.iniciar("clave-1", huella)).thenReturn(previa);
+        FilterChain cadena = mock(FilterChain.class);
+
+        filtro.doFilter(request, response, cadena);
+
+        verifyNoInteractions(cadena);
+        assertEquals(201, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotenciaFilter.CABECERA_REPETIDA));
+        assertEquals("{\"idReserva\":1}", response.getContentAsString());
+    }
+
+    @Test
+    void claveReutilizadaConOtroCuerpoTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "clave-1");
+        PeticionIdempotente previa = new PeticionIdempotente("clave-1", "otra-huella", 201, "application/json",
+                new byte[0], LocalDateTime.now().plusHours(1));
+        when(idempotenciaService.iniciar(eq("clave-1"), anyString())).thenReturn(previa);
+        FilterChain cadena = mock(FilterChain.class);
+
+        filtro.doFilter(request, response, cadena);
+
+        verifyNoInteractions(cadena);
+        assertEquals(422, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"status\":422"));
+    }
+
+    @Test
+    void peticionEnCursoTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "clave-1");
+        String huella = IdempotenciaFilter.huella(request, CUERPO.getBytes(StandardCharsets.UTF_8));
+        PeticionIdempotente enCurso = new PeticionIdempotente();
+        enCurso.setClave("clave-1");
+        enCurso.setHuella(huella);
+        enCurso.setEstado(EstadoPeticion.EN_CURSO);
+        when(idempotenciaService.iniciar("clave-1", huella)).thenReturn(enCurso);
+
+        filtro.doFilter(request, response, mock(FilterChain.class));
+
+        assertEquals(409, response.getStatus());
+    }
+
+    @Test
+    void errorDelServidorLiberaLaClaveTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "clave-1");
+        when(idempotenciaService.iniciar(eq("clave-1"), anyString())).thenReturn(null);
+
+        filtro.doFilter(request, response, (req, res) -> ((HttpServletResponse) res).setStatus(500));
+
+        assertEquals(500, response.getStatus());
+        verify(idempotenciaService).liberar("clave-1");
+        verify(idempotenciaService, never()).completar(anyString(), anyString(), anyInt(), any(), any());
+    }
+
+    @Test
+    void claveDemasiadoLargaTest() throws Exception {
+        request.addHeader(IdempotenciaFilter.CABECERA_CLAVE, "x".repeat(IdempotenciaFilter.LONGITUD_MAXIMA_CLAVE + 1));
+
+        filtro.doFilter(request, response, mock(FilterChain.class));
+
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(idempotenciaService);
+    }
+}
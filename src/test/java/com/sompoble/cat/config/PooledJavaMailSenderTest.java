@@ -0,0 +1,228 @@
+package com.sompoble.cat.config;
+
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledJavaMailSenderTest {
+
+    private ServidorSmtpLocal servidor;
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = new ServidorSmtpLocal();
+        mailSender = emisor(2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        mailSender.destroy();
+        servidor.close();
+    }
+
+    @Test
+    void reutilizaLaConexionEntreEnviosTest() throws Exception {
+        mailSender.send(mensajes("a@correo.com", "b@correo.com", "c@correo.com", "d@correo.com", "e@correo.com"));
+        mailSender.send(mensajes("f@correo.com"));
+        mailSender.send(mensajes("g@correo.com"));
+
+        assertEquals(7, servidor.mensajes.get());
+        assertEquals(1, servidor.conexiones.get());
+        assertEquals(1, mailSender.getConexionesAbiertas());
+        assertEquals(7, mailSender.getMensajesEnviados());
+    }
+
+    @Test
+    void destinatarioRechazadoNoDetieneElLoteTest() throws Exception {
+        MimeMessage[] lote = mensajes("a@correo.com", "rechazado@correo.com", "c@correo.com");
+
+        MailSendException error = assertThrows(MailSendException.class, () -> mailSender.send(lote));
+
+        assertEquals(1, error.getFailedMessages().size());
+        assertTrue(error.getFailedMessages().containsKey(lote[1]));
+        assertEquals(2, servidor.mensajes.get());
+        assertEquals(1, servidor.conexiones.get());
+    }
+
+    @Test
+    void reabreLaConexionCortadaPorElServidorTest() throws Exception {
+        mailSender.send(mensajes("a@correo.com"));
+        servidor.cortarConexiones();
+
+        mailSender.send(mensajes("b@correo.com", "c@correo.com"));
+
+        assertEquals(3, servidor.mensajes.get());
+        assertEquals(2, servidor.conexiones.get());
+    }
+
+    @Test
+    void limitaLasConexionesAbiertasTest() throws Exception {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                tareas.add(ejecutor.submit(() -> {
+                    mailSender.send(mensajes("a@correo.com", "b@correo.com", "c@correo.com"));
+                    return null;
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        assertEquals(18, servidor.mensajes.get());
+        assertTrue(servidor.maximoSimultaneas.get() <= 2);
+        assertTrue(servidor.conexiones.get() <= 2);
+    }
+
+    private PooledJavaMailSender emisor(int conexiones) {
+        PooledJavaMailSender emisor = new PooledJavaMailSender(conexiones, 60_000);
+        emisor.setHost("127.0.0.1");
+        emisor.setPort(servidor.getPuerto());
+        Properties propiedades = new Properties();
+        propiedades.put("mail.smtp.timeout", "5000");
+        propiedades.put("mail.smtp.connectiontimeout", "5000");
+        emisor.setJavaMailProperties(propiedades);
+        return emisor;
+    }
+
+    private MimeMessage[] mensajes(String... destinatarios) throws Exception {
+        Session sesion = mailSender.getSession();
+        MimeMessage[] mensajes = new MimeMessage[destinatarios.length];
+        for (int i = 0; i < destinatarios.length; i++) {
+            MimeMessage mensaje = new MimeMessage(sesion);
+            mensaje.setFrom(new InternetAddress("sompoble@correo.com"));
+            mensaje.setRecipients(MimeMessage.RecipientType.TO, destinatarios[i]);
+            mensaje.setSubject("Recordatorio de Reserva");
+            mensaje.setText("Su reserva es mañana", "UTF-8");
+            mensajes[i] = mensaje;
+        }
+        return mensajes;
+    }
+
+    /**
+     * Servidor SMTP mínimo en un puerto local que acepta todos los mensajes
+     * salvo los dirigidos a {@code rechazado@...}, y cuenta las conexiones y
+     * los mensajes recibidos.
+     */
+    private static final class ServidorSmtpLocal implements AutoCloseable {
+
+        private final ServerSocket socket = new ServerSocket(0);
+
+        private final Set<Socket> abiertas = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger conexiones = new AtomicInteger();
+
+        private final AtomicInteger simultaneas = new AtomicInteger();
+
+        private final AtomicInteger maximoSimultaneas = new AtomicInteger();
+
+        private final AtomicInteger mensajes = new AtomicInteger();
+
+        ServidorSmtpLocal() throws IOException {
+            Thread aceptador = new Thread(this::aceptar, "smtp-local");
+            aceptador.setDaemon(true);
+            aceptador.start();
+        }
+
+        int getPuerto() {
+            return socket.getLocalPort();
+        }
+
+        void cortarConexiones() throws IOException {
+            for (Socket abierta : abiertas) {
+                abierta.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+            cortarConexiones();
+        }
+
+        private void aceptar() {
+            while (!socket.isClosed()) {
+                try {
+                    Socket cliente = socket.accept();
+                    conexiones.incrementAndGet();
+                    maximoSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+                    abiertas.add(cliente);
+                    Thread sesion = new Thread(() -> atender(cliente), "smtp-local-sesion");
+                    sesion.setDaemon(true);
+                    sesion.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void atender(Socket cliente) {
+            try (cliente) {
+                BufferedReader entrada = new BufferedReader(
+                        new InputStreamReader(cliente.getInputStream(), StandardCharsets.UTF_8));
+                OutputStream salida = cliente.getOutputStream();
+                responder(salida, "220 localhost ESMTP");
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    String comando = linea.toUpperCase();
+                    if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                        responder(salida, "250-localhost\r\n250 8BITMIME");
+                    } else if (comando.startsWith("RCPT") && comando.contains("RECHAZADO@")) {
+                        responder(salida, "550 Usuario desconocido");
+                    } else if (comando.startsWith("DATA")) {
+                        responder(salida, "354 Fin con <CRLF>.<CRLF>");
+                        while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                            // Se descarta el contenido
+                        }
+                        mensajes.incrementAndGet();
+                        responder(salida, "250 OK");
+                    } else if (comando.startsWith("QUIT")) {
+                        responder(salida, "221 Adios");
+                        return;
+                    } else {
+                        responder(salida, "250 OK");
+                    }
+                }
+            } catch (IOException e) {
+                // Conexión cortada
+            } finally {
+                abiertas.remove(cliente);
+                simultaneas.decrementAndGet();
+            }
+        }
+
+        private static void responder(OutputStream salida, String respuesta) throws IOException {
+            salida.write((respuesta + "\r\n").getBytes(StandardCharsets.UTF_8));
+            salida.flush();
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.sompoble.cat.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.MensajeFallido;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.exception.BadRequestException;
 import com.sompoble.cat.exception.GlobalExceptionHandler;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.service.BandejaSalidaService;
 import com.sompoble.cat.service.EmailService;
 import com.sompoble.cat.service.NotificationService;
 import com.sompoble.cat.service.ReminderService;
@@ -23,12 +27,15 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import jakarta.mail.MessagingException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +56,9 @@ public class EmailControllerTest {
     @Mock
     private ReminderService reminderService;
 
+    @Mock
+    private BandejaSalidaService bandejaSalidaService;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
     private EmailDTO emailDTO;
@@ -174,4 +184,77 @@ public class EmailControllerTest {
 
         verify(emailService, times(1)).sendPlainTextTestEmail();
     }
+
+    @Test
+    public void testListarFallidos() throws Exception {
+        MensajeFallido fallido = new MensajeFallido();
+        fallido.setIdFallido(7L);
+        fallido.setDestinatario("juan@example.com");
+        fallido.setUltimoError("550 5.1.1 Usuario desconocido");
+        when(bandejaSalidaService.listarFallidos(5L, 500)).thenReturn(List.of(fallido));
+
+        mockMvc.perform(get("/api/email/fallidos").param("despuesDe", "5").param("limite", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].idFallido").value(7))
+                .andExpect(jsonPath("$[0].ultimoError").value("550 5.1.1 Usuario desconocido"));
+    }
+
+    @Test
+    public void testConfigureNotifications() throws Exception {
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("enabled", true);
+        cfg.put("frequency", "diaria");
+        cfg.put("sendTime", "08:00");
+
+        mockMvc.perform(post("/api/email/configure-notifications")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(cfg)))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Configuración actualizada: enabled=true, frequency=diaria, sendTime=08:00"));
+
+        verify(notificationService).setConfig(true, "diaria", "08:00");
+    }
+
+    @Test
+    public void testConfigureNotificationsFrecuenciaNoValida() throws Exception {
+        doThrow(new BadRequestException("Frecuencia de notificaciones no válida: semanal"))
+                .when(notificationService).setConfig(true, "semanal", "08:00");
+        Map<String, Object> cfg = new HashMap<>();
+        cfg.put("enabled", true);
+        cfg.put("frequency", "semanal");
+        cfg.put("sendTime", "08:00");
+
+        mockMvc.perform(post("/api/email/configure-notifications")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(cfg)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Frecuencia de notificaciones no válida: semanal"));
+    }
+
+    @Test
+    public void testReenviarFallido() throws Exception {
+        mockMvc.perform(post("/api/email/fallidos/7/reenviar"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Correo encolado de nuevo"));
+
+        verify(bandejaSalidaService).reenviarFallido(7L);
+    }
+
+    @Test
+    public void testReenviarFallidoNoEncontrado() throws Exception {
+        doThrow(new ResourceNotFoundException("Mensaje fallido con ID 9 no encontrado."))
+                .when(bandejaSalidaService).reenviarFallido(9L);
+
+        mockMvc.perform(post("/api/email/fallidos/9/reenviar"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testReenviarFallidosDeUnDominio() throws Exception {
+        when(bandejaSalidaService.reenviarFallidos("gmail.com")).thenReturn(12);
+
+        mockMvc.perform(post("/api/email/fallidos/reenviar").param("dominio", "gmail.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reenviados").value(12));
+    }
 }
@@ -9,24 +9,34 @@ import com.sompoble.cat.exception.GlobalExceptionHandler;
 import com.sompoble.cat.repository.impl.EmpresarioHibernate;
 import com.sompoble.cat.service.EmpresaService;
 import com.sompoble.cat.service.EmpresarioService;
+import com.sompoble.cat.service.ExportacionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -52,6 +62,9 @@ public class EmpresaControllerTest {
     @Mock
     private EmpresarioHibernate empresarioHibernate;
 
+    @Mock
+    private ExportacionService exportacionService;
+
     private MockMvc mockMvc;
 
     private ObjectMapper objectMapper;
@@ -559,4 +572,105 @@ public class EmpresaControllerTest {
         verify(empresaService, times(1)).existsByIdentificadorFiscal("A12345678");
         verify(empresaService, never()).deleteByIdentificadorFiscal(anyString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Prueba la exportación de reservas en CSV: la respuesta se escribe en
+     * streaming con el tipo de contenido y el nombre de fichero adecuados.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testExportarReservasCsv() throws Exception {
+        when(empresaService.findByIdentificadorFiscal("A12345678")).thenReturn(empresaDTO1);
+        doAnswer(invocation -> {
+            OutputStream salida = invocation.getArgument(4);
+            salida.write("idReserva\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportacionService).exportarReservas(eq("A12345678"), eq(LocalDate.parse("2024-01-01")),
+                eq(LocalDate.parse("2024-01-31")), eq(ExportacionService.Formato.CSV), any());
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.get("/api/empresas/A12345678/export")
+                .param("format", "csv")
+                .param("desde", "2024-01-01")
+                .param("hasta", "2024-01-31"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reservas-A12345678.csv\""))
+                .andExpect(MockMvcResultMatchers.content().string("idReserva\r\n1\r\n"));
+    }
+
+    /**
+     * Prueba la exportación de métricas en NDJSON comprimida con gzip cuando
+     * el cliente la acepta.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testExportarMetricasNdjsonGzip() throws Exception {
+        when(empresaService.findByIdentificadorFiscal("A12345678")).thenReturn(empresaDTO1);
+        doAnswer(invocation -> {
+            OutputStream salida = invocation.getArgument(4);
+            salida.write("{\"reservas\":4}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportacionService).exportarMetricas(eq(1L), isNull(), isNull(),
+                eq(ExportacionService.Formato.NDJSON), any());
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.get("/api/empresas/A12345678/export")
+                .param("format", "ndjson")
+                .param("datos", "metricas")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        byte[] cuerpo = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream descomprimido = new GZIPInputStream(new ByteArrayInputStream(cuerpo))) {
+            assertEquals("{\"reservas\":4}\n", new String(descomprimido.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Prueba que un formato o un rango de fechas no válidos se rechazan con
+     * un 400 antes de empezar la exportación.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testExportarParametrosNoValidos() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/empresas/A12345678/export")
+                .param("format", "xlsx"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/empresas/A12345678/export")
+                .param("format", "csv")
+                .param("desde", "2024-02-01")
+                .param("hasta", "2024-01-01"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+        verifyNoInteractions(exportacionService);
+    }
+
+    /**
+     * Prueba que la exportación de una empresa inexistente devuelve un 404.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testExportarEmpresaNoEncontrada() throws Exception {
+        when(empresaService.findByIdentificadorFiscal("Z99999999")).thenReturn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/empresas/Z99999999/export")
+                .param("format", "csv"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        verifyNoInteractions(exportacionService);
+    }
+}
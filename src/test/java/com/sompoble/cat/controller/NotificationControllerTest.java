@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.dto.ClienteDTO;
 import com.sompoble.cat.service.ClienteService;
+import com.sompoble.cat.service.NotificacionesEnVivoService;
 import com.sompoble.cat.service.NotificationService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,6 +14,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.Arrays;
 import java.util.Collections;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +36,9 @@ public class NotificationControllerTest {
     @MockBean
     private ClienteService clienteService;
 
+    @MockBean
+    private NotificacionesEnVivoService notificacionesEnVivoService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,6 +58,34 @@ public class NotificationControllerTest {
                .andExpect(jsonPath("$[0].idNotificacion").value(1L));
     }
 
+    @Test
+    @WithMockUser(username = "user", roles = {"ADMIN"})
+    public void testSuscribirNotificacionesReanudaDesdeLastEventId() throws Exception {
+        String dni = "12345678A";
+        Mockito.when(clienteService.findByDni(dni)).thenReturn(Mockito.mock(ClienteDTO.class));
+        Mockito.when(notificacionesEnVivoService.suscribir(dni, 41L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/notifications/stream/{dni}", dni)
+                .header("Last-Event-ID", "41")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        Mockito.verify(notificacionesEnVivoService).suscribir(dni, 41L);
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"ADMIN"})
+    public void testSuscribirNotificacionesConLastEventIdNoValido() throws Exception {
+        String dni = "12345678A";
+        Mockito.when(clienteService.findByDni(dni)).thenReturn(Mockito.mock(ClienteDTO.class));
+
+        mockMvc.perform(get("/api/notifications/stream/{dni}", dni)
+                .header("Last-Event-ID", "abc"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(notificacionesEnVivoService);
+    }
+
     @Test
     @WithMockUser(username = "user", roles = {"ADMIN"})
     public void testObtenerNotificacionesPorIdentificador() throws Exception {
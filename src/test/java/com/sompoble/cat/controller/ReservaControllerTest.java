@@ -3,20 +3,24 @@ package com.sompoble.cat.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.EntradaListaEspera.EstadoEspera;
 import com.sompoble.cat.domain.Horario;
-import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
 import com.sompoble.cat.dto.ClienteDTO;
-import com.sompoble.cat.dto.EmailDTO;
 import com.sompoble.cat.dto.EmpresaDTO;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import com.sompoble.cat.dto.PaginaReservasDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ConflictoException;
 import com.sompoble.cat.exception.GlobalExceptionHandler;
+import com.sompoble.cat.exception.LimiteReservasException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
 import com.sompoble.cat.repository.impl.ReservaHibernate;
 import com.sompoble.cat.service.ClienteService;
-import com.sompoble.cat.service.EmailService;
 import com.sompoble.cat.service.EmpresaService;
-import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.service.ListaEsperaService;
 import com.sompoble.cat.service.ReservaService;
 import com.sompoble.cat.service.ServicioService;
 
@@ -26,17 +30,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import org.springframework.http.MediaType;
 
@@ -67,12 +77,9 @@ public class ReservaControllerTest {
 
     @Mock
     private ReservaHibernate reservaHibernate;
-    
-    @Mock
-    private EmailService emailService;
-    
+
     @Mock
-    private NotificationService notificationService;
+    private ListaEsperaService listaEsperaService;
 
     private MockMvc mockMvc;
 
@@ -177,8 +184,8 @@ public class ReservaControllerTest {
 
         reserva1 = new Reserva();
         reserva1.setIdReserva(1L);
-        reserva1.setFechaReserva("2025-04-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2025-04-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("CONFIRMADA");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
@@ -186,8 +193,8 @@ public class ReservaControllerTest {
 
         reserva2 = new Reserva();
         reserva2.setIdReserva(2L);
-        reserva2.setFechaReserva("2025-04-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2025-04-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -268,6 +275,97 @@ public class ReservaControllerTest {
         verify(reservaService, never()).findByEmpresaIdentificadorFiscal(anyString());
     }
 
+    /**
+     * Prueba la recuperación paginada de reservas de un cliente cuando se
+     * indica un límite.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testGetReservasByClientePaginadas() throws Exception {
+        when(clienteService.findByDni("12345678A")).thenReturn(clienteDTO);
+        when(reservaService.findPaginaByClienteDni("12345678A", null, 1))
+                .thenReturn(new PaginaReservasDTO(List.of(reservaDTO1), "c2lndWllbnRl"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reservas/clientes/12345678A")
+                .param("limite", "1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reservas.length()").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reservas[0].idReserva").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.siguienteCursor").value("c2lndWllbnRl"));
+
+        verify(reservaService, never()).findByClienteDni(anyString());
+    }
+
+    /**
+     * Prueba la recuperación de la página siguiente de reservas de una empresa
+     * a partir de un cursor.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testGetReservasByEmpresaPaginaSiguiente() throws Exception {
+        when(empresaService.findByIdentificadorFiscal("B12345678")).thenReturn(empresaDTO);
+        when(reservaService.findPaginaByEmpresaIdentificadorFiscal("B12345678", "c2lndWllbnRl", null))
+                .thenReturn(new PaginaReservasDTO(List.of(reservaDTO2), null));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reservas/empresas/B12345678")
+                .param("cursor", "c2lndWllbnRl"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.reservas[0].idReserva").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.siguienteCursor").doesNotExist());
+    }
+
+    /**
+     * Prueba el envío de las reservas de un cliente en formato NDJSON.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testStreamReservasByCliente() throws Exception {
+        when(clienteService.findByDni("12345678A")).thenReturn(clienteDTO);
+        doAnswer(invocation -> {
+            Consumer<ReservaDTO> consumidor = invocation.getArgument(1);
+            consumidor.accept(reservaDTO1);
+            consumidor.accept(reservaDTO2);
+            return null;
+        }).when(reservaService).recorrerByClienteDni(eq("12345678A"), any());
+
+        MvcResult resultado = mockMvc.perform(MockMvcRequestBuilders.get("/api/reservas/clientes/12345678A")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        String cuerpo = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lineas = cuerpo.split("\n");
+        assertEquals(2, lineas.length);
+        assertEquals(1L,
+                objectMapper.readValue(lineas[0], ReservaDTO.class).getIdReserva());
+        assertEquals(2L,
+                objectMapper.readValue(lineas[1], ReservaDTO.class).getIdReserva());
+        verify(reservaService, never()).findByClienteDni(anyString());
+    }
+
+    /**
+     * Prueba el envío en formato NDJSON para una empresa que no existe.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testStreamReservasByEmpresaNotFound() throws Exception {
+        when(empresaService.findByIdentificadorFiscal("Z87654321")).thenReturn(null);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reservas/empresas/Z87654321")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        verify(reservaService, never()).recorrerByEmpresaIdentificadorFiscal(anyString(), any());
+    }
+
     /**
      * Prueba la recuperación de una reserva por su ID.
      * 
@@ -333,15 +431,11 @@ public class ReservaControllerTest {
         when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
         when(servicioService.existePorId(1L)).thenReturn(true);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-15")).thenReturn(5);
         doAnswer(invocation -> {
             Reserva reserva = invocation.getArgument(0);
             reserva.setIdReserva(1L);
             return null;
         }).when(reservaService).addReserva(any(Reserva.class));
-        
-        doNothing().when(emailService).sendMail(any(EmailDTO.class));
-        doNothing().when(notificationService).saveNotification(any(Notificacion.class));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -353,8 +447,6 @@ public class ReservaControllerTest {
         verify(empresaService, times(1)).existsByIdentificadorFiscal("B12345678");
         verify(servicioService, times(1)).existePorId(1L);
         verify(reservaService, times(1)).addReserva(any(Reserva.class));
-        verify(emailService, times(1)).sendMail(any(EmailDTO.class));
-        verify(notificationService, times(1)).saveNotification(any(Notificacion.class));
     }
 
     /**
@@ -513,7 +605,8 @@ public class ReservaControllerTest {
         when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
         when(servicioService.existePorId(1L)).thenReturn(true);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-15")).thenReturn(10);
+        doThrow(new BadRequestException("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada"))
+                .when(reservaService).addReserva(any(Reserva.class));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
                 .contentType("application/json")
@@ -525,8 +618,89 @@ public class ReservaControllerTest {
         verify(empresaService, times(1)).existsByIdentificadorFiscal("B12345678");
         verify(servicioService, times(1)).existePorId(1L);
         verify(servicioService, times(1)).obtenerPorId(1L);
-        verify(reservaService, times(1)).countReservasByServicioIdAndFecha(1L, "2025-04-15");
-        verify(reservaService, never()).addReserva(any(Reserva.class));
+        verify(reservaService, never()).countReservasByServicioIdAndFecha(anyLong(), any(LocalDate.class));
+        verifyNoInteractions(listaEsperaService);
+    }
+
+    /**
+     * Prueba que, con el servicio completo y la lista de espera solicitada,
+     * el cliente se apunta en la lista de espera y se responde 202.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testCreateReservaListaEspera() throws Exception {
+        Map<String, Object> clienteData = new HashMap<>();
+        clienteData.put("dni", "12345678A");
+
+        Map<String, Object> empresaData = new HashMap<>();
+        empresaData.put("identificadorFiscal", "B12345678");
+
+        Map<String, Object> servicioData = new HashMap<>();
+        servicioData.put("idServicio", 1);
+
+        Map<String, Object> reservaData = new HashMap<>();
+        reservaData.put("fechaReserva", "2025-04-15");
+        reservaData.put("hora", "10:00");
+        reservaData.put("estado", "CONFIRMADA");
+        reservaData.put("cliente", clienteData);
+        reservaData.put("empresa", empresaData);
+        reservaData.put("servicio", servicioData);
+        reservaData.put("listaEspera", true);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("reserva", reservaData);
+
+        when(clienteService.existsByDni("12345678A")).thenReturn(true);
+        when(clienteService.findByDniFull("12345678A")).thenReturn(cliente);
+        when(empresaService.existsByIdentificadorFiscal("B12345678")).thenReturn(true);
+        when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
+        when(servicioService.existePorId(1L)).thenReturn(true);
+        when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
+        doThrow(new LimiteReservasException()).when(reservaService).addReserva(any(Reserva.class));
+        when(listaEsperaService.apuntar(cliente, servicio, LocalDate.of(2025, 4, 15), LocalTime.of(10, 0)))
+                .thenReturn(new EntradaListaEsperaDTO(7L, "12345678A", 1L, "Servicio", LocalDate.of(2025, 4, 15),
+                        LocalTime.of(10, 0), EstadoEspera.EN_ESPERA, 3L, null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.idEntrada").value(7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.posicion").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.estado").value("EN_ESPERA"));
+    }
+
+    /**
+     * Prueba la consulta de las entradas en espera de un cliente.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testGetListaEsperaByCliente() throws Exception {
+        when(clienteService.existsByDni("12345678A")).thenReturn(true);
+        when(listaEsperaService.findEnEsperaByClienteDni("12345678A")).thenReturn(List.of(
+                new EntradaListaEsperaDTO(7L, "12345678A", 1L, "Servicio", LocalDate.of(2025, 4, 15),
+                        LocalTime.of(10, 0), EstadoEspera.EN_ESPERA, 1L, null)));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/reservas/lista-espera/clientes/12345678A"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].hora").value("10:00"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].posicion").value(1));
+    }
+
+    /**
+     * Prueba la cancelación de una entrada que ya no está en espera.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testDeleteEntradaListaEsperaNotFound() throws Exception {
+        doThrow(new ResourceNotFoundException("No existe ninguna entrada en espera con ID 7"))
+                .when(listaEsperaService).cancelar(7L);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/reservas/lista-espera/7"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
     /**
@@ -541,17 +715,10 @@ public class ReservaControllerTest {
         updates.put("hora", "15:00");
         updates.put("estado", "CONFIRMADA");
 
-        when(reservaService.findByIdFull(1L)).thenReturn(reserva1);
         when(reservaService.findById(1L)).thenReturn(reservaDTO1);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-20")).thenReturn(5);
         when(reservaHibernate.convertToEntity(any(ReservaDTO.class))).thenReturn(reserva1);
         doNothing().when(reservaService).updateReserva(any(Reserva.class));
-        when(clienteService.findByDniFull(anyString())).thenReturn(cliente);
-        
-        // Mockeamos el servicio de email y notificaciones
-        doNothing().when(emailService).sendMail(any(EmailDTO.class));
-        doNothing().when(notificationService).saveNotification(any(Notificacion.class));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -559,11 +726,62 @@ public class ReservaControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk())
                 .andExpect(MockMvcResultMatchers.content().string("Reserva con ID 1 actualizada correctamente"));
 
-        verify(reservaService, times(1)).findByIdFull(1L);
         verify(reservaService, times(1)).findById(1L);
         verify(reservaService, times(1)).updateReserva(any(Reserva.class));
-        verify(emailService, times(1)).sendMail(any(EmailDTO.class));
-        verify(notificationService, times(1)).saveNotification(any(Notificacion.class));
+    }
+
+    /**
+     * Prueba que se rechaza con un conflicto la actualización de una reserva
+     * modificada desde la versión que indica el cliente.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testUpdateReservaVersionObsoleta() throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("hora", "15:00");
+        updates.put("version", 2);
+        reservaDTO1.setVersion(3L);
+
+        when(reservaService.findById(1L)).thenReturn(reservaDTO1);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("Retry-After"));
+
+        verify(reservaService, never()).updateReserva(any(Reserva.class));
+    }
+
+    /**
+     * Prueba que un conflicto de versión detectado al guardar no indica
+     * {@code Retry-After}, mientras que una franja bloqueada sí lo indica.
+     *
+     * @throws Exception Si ocurre un error durante la ejecución de la prueba
+     */
+    @Test
+    public void testUpdateReservaConflictosRetryAfter() throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("estado", "CONFIRMADA");
+
+        when(reservaService.findById(1L)).thenReturn(reservaDTO1);
+        when(reservaHibernate.convertToEntity(any(ReservaDTO.class))).thenReturn(reserva1);
+        doThrow(new ObjectOptimisticLockingFailureException(Reserva.class, 1L))
+                .doThrow(new ConflictoException("Franja bloqueada", 1))
+                .when(reservaService).updateReserva(any(Reserva.class));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("Retry-After"));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(MockMvcResultMatchers.status().isConflict())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
     }
 
     /**
@@ -577,14 +795,14 @@ public class ReservaControllerTest {
         updates.put("fechaReserva", "2025-04-20");
         updates.put("hora", "15:00");
 
-        when(reservaService.findByIdFull(99L)).thenReturn(null);
+        when(reservaService.findById(99L)).thenReturn(null);
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/99")
                 .contentType("application/json")
                 .content(objectMapper.writeValueAsString(updates)))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
 
-        verify(reservaService, times(1)).findByIdFull(99L);
+        verify(reservaService, times(1)).findById(99L);
         verify(reservaService, never()).updateReserva(any(Reserva.class));
     }
 
@@ -601,7 +819,6 @@ public class ReservaControllerTest {
         Map<String, Object> updates = new HashMap<>();
         updates.put("empresa", empresaData);
 
-        when(reservaService.findByIdFull(1L)).thenReturn(reserva1);
         when(reservaService.findById(1L)).thenReturn(reservaDTO1);
         when(empresaService.existsByIdentificadorFiscal("Z99999999")).thenReturn(false);
 
@@ -611,7 +828,7 @@ public class ReservaControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("No existe una empresa con identificador fiscal Z99999999"));
 
-        verify(reservaService, times(1)).findByIdFull(1L);
+        verify(reservaService, times(1)).findById(1L);
         verify(empresaService, times(1)).existsByIdentificadorFiscal("Z99999999");
         verify(reservaService, never()).updateReserva(any(Reserva.class));
     }
@@ -651,10 +868,11 @@ public class ReservaControllerTest {
         updates.put("fechaReserva", "2025-04-20");
         updates.put("hora", "15:00");
 
-        when(reservaService.findByIdFull(1L)).thenReturn(reserva1);
         when(reservaService.findById(1L)).thenReturn(reservaDTO1);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-20")).thenReturn(10);
+        when(reservaHibernate.convertToEntity(any(ReservaDTO.class))).thenReturn(reserva1);
+        doThrow(new BadRequestException("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada"))
+                .when(reservaService).updateReserva(any(Reserva.class));
 
         mockMvc.perform(MockMvcRequestBuilders.put("/api/reservas/1")
                 .contentType("application/json")
@@ -662,11 +880,9 @@ public class ReservaControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Se ha alcanzado el límite de reservas para este servicio en la fecha indicada"));
 
-        verify(reservaService, times(1)).findByIdFull(1L);
         verify(reservaService, times(1)).findById(1L);
         verify(servicioService, times(1)).obtenerPorId(1L);
-        verify(reservaService, times(1)).countReservasByServicioIdAndFecha(1L, "2025-04-20");
-        verify(reservaService, never()).updateReserva(any(Reserva.class));
+        verify(reservaService, never()).countReservasByServicioIdAndFecha(anyLong(), any(LocalDate.class));
     }
 
     @Test
@@ -674,7 +890,6 @@ public class ReservaControllerTest {
         Map<String, Object> updates = new HashMap<>();
         updates.put("hora", "22:00");
 
-        when(reservaService.findByIdFull(1L)).thenReturn(reserva1);
         when(reservaService.findById(1L)).thenReturn(reservaDTO1);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
 
@@ -684,7 +899,6 @@ public class ReservaControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("La hora de reserva no está dentro del horario disponible para este servicio"));
 
-        verify(reservaService, times(1)).findByIdFull(1L);
         verify(reservaService, times(1)).findById(1L);
         verify(servicioService, times(1)).obtenerPorId(1L);
         verify(reservaService, never()).updateReserva(any(Reserva.class));
@@ -698,7 +912,6 @@ public class ReservaControllerTest {
         Map<String, Object> updates = new HashMap<>();
         updates.put("cliente", clienteData);
 
-        when(reservaService.findByIdFull(1L)).thenReturn(reserva1);
         when(reservaService.findById(1L)).thenReturn(reservaDTO1);
         when(clienteService.existsByDni("99999999Z")).thenReturn(false);
 
@@ -708,7 +921,7 @@ public class ReservaControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("No existe un cliente con DNI 99999999Z"));
 
-        verify(reservaService, times(1)).findByIdFull(1L);
+        verify(reservaService, times(1)).findById(1L);
         verify(clienteService, times(1)).existsByDni("99999999Z");
         verify(reservaService, never()).updateReserva(any(Reserva.class));
     }
@@ -741,7 +954,6 @@ public class ReservaControllerTest {
         when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
         when(servicioService.existePorId(1L)).thenReturn(true);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-15")).thenReturn(5);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
                 .contentType("application/json")
@@ -753,7 +965,44 @@ public class ReservaControllerTest {
         verify(empresaService, times(1)).existsByIdentificadorFiscal("B12345678");
         verify(servicioService, times(1)).existePorId(1L);
         verify(servicioService, times(1)).obtenerPorId(1L);
-        verify(reservaService, times(1)).countReservasByServicioIdAndFecha(1L, "2025-04-15");
+        verify(reservaService, never()).countReservasByServicioIdAndFecha(anyLong(), any(LocalDate.class));
+    }
+
+    @Test
+    public void testCreateReservaFechaFormatoInvalido() throws Exception {
+        Map<String, Object> clienteData = new HashMap<>();
+        clienteData.put("dni", "12345678A");
+
+        Map<String, Object> empresaData = new HashMap<>();
+        empresaData.put("identificadorFiscal", "B12345678");
+
+        Map<String, Object> servicioData = new HashMap<>();
+        servicioData.put("idServicio", 1);
+
+        Map<String, Object> reservaData = new HashMap<>();
+        reservaData.put("fechaReserva", "15/04/2025");
+        reservaData.put("hora", "10:00");
+        reservaData.put("estado", "CONFIRMADA");
+        reservaData.put("cliente", clienteData);
+        reservaData.put("empresa", empresaData);
+        reservaData.put("servicio", servicioData);
+
+        Map<String, Object> request = new HashMap<>();
+        request.put("reserva", reservaData);
+
+        when(clienteService.existsByDni("12345678A")).thenReturn(true);
+        when(clienteService.findByDniFull("12345678A")).thenReturn(cliente);
+        when(empresaService.existsByIdentificadorFiscal("B12345678")).thenReturn(true);
+        when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
+        when(servicioService.existePorId(1L)).thenReturn(true);
+        when(servicioService.obtenerPorId(1L)).thenReturn(servicio);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
+                .contentType("application/json")
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("La fecha debe tener el formato yyyy-MM-dd y la hora el formato HH:mm"));
+
         verify(reservaService, never()).addReserva(any(Reserva.class));
     }
 
@@ -831,7 +1080,6 @@ public class ReservaControllerTest {
         when(empresaService.findByIdentificadorFiscalFull("B12345678")).thenReturn(empresa);
         when(servicioService.existePorId(1L)).thenReturn(true);
         when(servicioService.obtenerPorId(1L)).thenReturn(servicioSinHorarios);
-        when(reservaService.countReservasByServicioIdAndFecha(1L, "2025-04-15")).thenReturn(5);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/reservas")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,79 @@
+package com.sompoble.cat.controller;
+
+import com.sompoble.cat.dto.DisponibilidadDTO;
+import com.sompoble.cat.dto.DisponibilidadDTO.DiaDisponibleDTO;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.service.DisponibilidadService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Clase de prueba para el controlador ServicioController.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ServicioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DisponibilidadService disponibilidadService;
+
+    @Test
+    @WithMockUser(username = "user", roles = {"ADMIN"})
+    public void testGetDisponibilidad() throws Exception {
+        LocalDate desde = LocalDate.of(2025, 4, 14);
+        LocalDate hasta = LocalDate.of(2025, 4, 15);
+        DisponibilidadDTO disponibilidad = new DisponibilidadDTO(1L, "2025-04-14", "2025-04-15", List.of(
+                new DiaDisponibleDTO("2025-04-14", 2, List.of("09:00", "10:00")),
+                new DiaDisponibleDTO("2025-04-15", 0, List.of())));
+        Mockito.when(disponibilidadService.obtenerDisponibilidad(1L, desde, hasta)).thenReturn(disponibilidad);
+
+        mockMvc.perform(get("/api/servicios/{id}/disponibilidad", 1L)
+                .param("desde", "2025-04-14")
+                .param("hasta", "2025-04-15"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.idServicio").value(1))
+                .andExpect(jsonPath("$.dias[0].plazasLibres").value(2))
+                .andExpect(jsonPath("$.dias[0].horas[1]").value("10:00"))
+                .andExpect(jsonPath("$.dias[1].horas").isEmpty());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"ADMIN"})
+    public void testGetDisponibilidadRangoPorDefecto() throws Exception {
+        LocalDate desde = LocalDate.of(2025, 4, 14);
+        Mockito.when(disponibilidadService.obtenerDisponibilidad(1L, desde, desde.plusDays(29)))
+                .thenReturn(new DisponibilidadDTO(1L, "2025-04-14", "2025-05-13", List.of()));
+
+        mockMvc.perform(get("/api/servicios/{id}/disponibilidad", 1L)
+                .param("desde", "2025-04-14"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasta").value("2025-05-13"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"ADMIN"})
+    public void testGetDisponibilidadServicioNoExiste() throws Exception {
+        Mockito.when(disponibilidadService.obtenerDisponibilidad(eq(99L), any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new ResourceNotFoundException("No existe un servicio con el ID 99"));
+
+        mockMvc.perform(get("/api/servicios/{id}/disponibilidad", 99L))
+                .andExpect(status().isNotFound());
+    }
+}
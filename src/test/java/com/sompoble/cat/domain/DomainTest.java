@@ -1,5 +1,6 @@
 package com.sompoble.cat.domain;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -174,7 +175,7 @@ public class DomainTest {
         Servicio servicio = new Servicio("Servicio A", "Descripción del servicio A", 60, 150, 10, empresa);
 
         // Creación de la reserva
-        Reserva reserva = new Reserva(empresa, cliente, servicio, "2025-03-15", "10:30", "Confirmada");
+        Reserva reserva = new Reserva(empresa, cliente, servicio, LocalDate.parse("2025-03-15"), LocalTime.parse("10:30"), "Confirmada");
 
         // Verificación de relación entre empresa y empresario
         Empresario result = empresa.getEmpresario();
@@ -8,6 +8,7 @@ import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
 import com.sompoble.cat.dto.PanelMetricasDTO.MetricasMensualesDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.dto.ReservasEliminadasDTO;
 import com.sompoble.cat.service.ClienteService;
 import com.sompoble.cat.service.EmpresaService;
 import com.sompoble.cat.service.ServicioService;
@@ -21,6 +22,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
@@ -28,7 +31,9 @@ import jakarta.persistence.criteria.Root;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -103,8 +108,8 @@ class ReservaHibernateTest {
     @Test
     void addReservaTest() {
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva("2023-05-15");
-        reserva.setHora("10:00");
+        reserva.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva.setHora(LocalTime.parse("10:00"));
         reserva.setEstado("PENDIENTE");
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
@@ -121,8 +126,8 @@ class ReservaHibernateTest {
     @Test
     void updateReservaTest() {
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva("2023-05-15");
-        reserva.setHora("10:00");
+        reserva.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva.setHora(LocalTime.parse("10:00"));
         reserva.setEstado("PENDIENTE");
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
@@ -141,8 +146,8 @@ class ReservaHibernateTest {
     @Test
     void findByIdTest() {
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva("2023-05-15");
-        reserva.setHora("10:00");
+        reserva.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva.setHora(LocalTime.parse("10:00"));
         reserva.setEstado("PENDIENTE");
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
@@ -152,8 +157,8 @@ class ReservaHibernateTest {
 
         ReservaDTO result = reservaHibernate.findById(reserva.getIdReserva());
         assertNotNull(result);
-        assertEquals(reserva.getFechaReserva(), result.getFechaReserva());
-        assertEquals(reserva.getHora(), result.getHora());
+        assertEquals("2023-05-15", result.getFechaReserva());
+        assertEquals("10:00", result.getHora());
         assertEquals(cliente.getDni(), result.getDniCliente());
         assertEquals(empresa.getIdentificadorFiscal(), result.getIdentificadorFiscalEmpresa());
 
@@ -164,8 +169,8 @@ class ReservaHibernateTest {
     @Test
     void findByIdFullTest() {
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva("2023-05-15");
-        reserva.setHora("10:00");
+        reserva.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva.setHora(LocalTime.parse("10:00"));
         reserva.setEstado("PENDIENTE");
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
@@ -187,16 +192,16 @@ class ReservaHibernateTest {
     @Test
     void findByClienteDniTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -217,16 +222,16 @@ class ReservaHibernateTest {
     @Test
     void findByEmpresaIdentificadorFiscalTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -244,11 +249,54 @@ class ReservaHibernateTest {
         assertTrue(resultNoExiste.isEmpty());
     }
 
+    @Test
+    void listadosUnaSentenciaPorConsultaTest() {
+        Statistics estadisticas = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+
+        crearReservas(1);
+        long sentenciasConUnaReserva = contarSentencias(estadisticas, 1);
+
+        crearReservas(9);
+        long sentenciasConDiezReservas = contarSentencias(estadisticas, 10);
+
+        assertEquals(2, sentenciasConUnaReserva);
+        assertEquals(sentenciasConUnaReserva, sentenciasConDiezReservas);
+    }
+
+    private void crearReservas(int numero) {
+        for (int i = 0; i < numero; i++) {
+            Reserva reserva = new Reserva();
+            reserva.setFechaReserva(LocalDate.parse("2023-05-15").plusDays(i));
+            reserva.setHora(LocalTime.parse("10:00"));
+            reserva.setEstado("PENDIENTE");
+            reserva.setCliente(cliente);
+            reserva.setEmpresa(empresa);
+            reserva.setServicio(servicio);
+            reservaHibernate.addReserva(reserva);
+        }
+        entityManager.flush();
+    }
+
+    private long contarSentencias(Statistics estadisticas, int reservasEsperadas) {
+        entityManager.clear();
+        estadisticas.clear();
+
+        List<ReservaDTO> porCliente = reservaHibernate.findByClienteDni(cliente.getDni());
+        List<ReservaDTO> porEmpresa = reservaHibernate.findByEmpresaIdentificadorFiscal(empresa.getIdentificadorFiscal());
+
+        assertEquals(reservasEsperadas, porCliente.size());
+        assertEquals(reservasEsperadas, porEmpresa.size());
+        assertEquals(servicio.getNombre(), porCliente.get(0).getNombreServicio());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        return estadisticas.getPrepareStatementCount();
+    }
+
     @Test
     void deleteByIdTest() {
         Reserva reserva = new Reserva();
-        reserva.setFechaReserva("2023-05-15");
-        reserva.setHora("10:00");
+        reserva.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva.setHora(LocalTime.parse("10:00"));
         reserva.setEstado("PENDIENTE");
         reserva.setCliente(cliente);
         reserva.setEmpresa(empresa);
@@ -265,16 +313,16 @@ class ReservaHibernateTest {
     @Test
     void deleteByClienteDniTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -283,8 +331,12 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva1);
         reservaHibernate.addReserva(reserva2);
 
-        reservaHibernate.deleteByClienteDni(cliente.getDni());
+        Map<Long, Map<LocalDate, ReservasEliminadasDTO>> eliminadas = reservaHibernate.deleteByClienteDni(cliente.getDni());
 
+        assertEquals(Map.of(servicio.getIdServicio(), Map.of(
+                LocalDate.parse("2023-05-15"), new ReservasEliminadasDTO(1, 5000),
+                LocalDate.parse("2023-05-16"), new ReservasEliminadasDTO(1, 5000))), eliminadas);
+        assertFalse(entityManager.contains(reserva1));
         List<ReservaDTO> reservas = reservaHibernate.findByClienteDni(cliente.getDni());
         assertTrue(reservas.isEmpty());
     }
@@ -292,16 +344,16 @@ class ReservaHibernateTest {
     @Test
     void deleteByEmpresaIdentificadorFiscalTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -316,6 +368,25 @@ class ReservaHibernateTest {
         assertTrue(reservas.isEmpty());
     }
 
+    @Test
+    void deleteByEmpresaIdentificadorFiscalPorLotesTest() {
+        crearReservas(ReservaHibernate.LOTE_BORRADO + 5);
+        Statistics estadisticas = entityManager.unwrap(Session.class).getSessionFactory().getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+
+        Map<Long, Map<LocalDate, ReservasEliminadasDTO>> eliminadas =
+                reservaHibernate.deleteByEmpresaIdentificadorFiscal(empresa.getIdentificadorFiscal());
+
+        // Dos lotes: una lectura de identificadores y un DELETE por lote
+        assertEquals(4, estadisticas.getPrepareStatementCount());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        assertEquals(ReservaHibernate.LOTE_BORRADO + 5,
+                eliminadas.get(servicio.getIdServicio()).values().stream()
+                        .mapToInt(ReservasEliminadasDTO::getReservas).sum());
+        assertTrue(reservaHibernate.findByEmpresaIdentificadorFiscal(empresa.getIdentificadorFiscal()).isEmpty());
+    }
+
     @Test
     void convertToEntityTest() {
         ReservaDTO reservaDTO = new ReservaDTO(
@@ -331,8 +402,8 @@ class ReservaHibernateTest {
         Reserva reserva = reservaHibernate.convertToEntity(reservaDTO);
 
         assertNotNull(reserva);
-        assertEquals(reservaDTO.getFechaReserva(), reserva.getFechaReserva());
-        assertEquals(reservaDTO.getHora(), reserva.getHora());
+        assertEquals(LocalDate.parse(reservaDTO.getFechaReserva()), reserva.getFechaReserva());
+        assertEquals(LocalTime.parse(reservaDTO.getHora()), reserva.getHora());
         assertEquals(reservaDTO.getEstado(), reserva.getEstado());
         assertEquals(cliente, reserva.getCliente());
         assertEquals(empresa, reserva.getEmpresa());
@@ -342,24 +413,24 @@ class ReservaHibernateTest {
     @Test
     void countByServicioIdAndFechaReservaTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-15");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
         reserva2.setServicio(servicio);
 
         Reserva reserva3 = new Reserva();
-        reserva3.setFechaReserva("2023-05-16");
-        reserva3.setHora("10:00");
+        reserva3.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva3.setHora(LocalTime.parse("10:00"));
         reserva3.setEstado("PENDIENTE");
         reserva3.setCliente(cliente);
         reserva3.setEmpresa(empresa);
@@ -369,29 +440,29 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva2);
         reservaHibernate.addReserva(reserva3);
 
-        int count = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), "2023-05-15");
+        int count = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), LocalDate.parse("2023-05-15"));
         assertEquals(2, count);
 
-        int countOtraFecha = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), "2023-05-16");
+        int countOtraFecha = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), LocalDate.parse("2023-05-16"));
         assertEquals(1, countOtraFecha);
 
-        int countFechaInexistente = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), "2023-05-17");
+        int countFechaInexistente = reservaHibernate.countByServicioIdAndFechaReserva(servicio.getIdServicio(), LocalDate.parse("2023-05-17"));
         assertEquals(0, countFechaInexistente);
     }
 
     @Test
     void deleteByServicioIdTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
         reserva1.setServicio(servicio);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -409,8 +480,8 @@ class ReservaHibernateTest {
         entityManager.persist(servicio2);
 
         Reserva reserva3 = new Reserva();
-        reserva3.setFechaReserva("2023-05-17");
-        reserva3.setHora("12:00");
+        reserva3.setFechaReserva(LocalDate.parse("2023-05-17"));
+        reserva3.setHora(LocalTime.parse("12:00"));
         reserva3.setEstado("PENDIENTE");
         reserva3.setCliente(cliente);
         reserva3.setEmpresa(empresa);
@@ -447,8 +518,8 @@ class ReservaHibernateTest {
         entityManager.persist(cliente2);
 
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
@@ -456,8 +527,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva1);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -465,8 +536,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva2);
 
         Reserva reserva3 = new Reserva();
-        reserva3.setFechaReserva("2023-05-17");
-        reserva3.setHora("12:00");
+        reserva3.setFechaReserva(LocalDate.parse("2023-05-17"));
+        reserva3.setHora(LocalTime.parse("12:00"));
         reserva3.setEstado("PENDIENTE");
         reserva3.setCliente(cliente2);
         reserva3.setEmpresa(empresa);
@@ -474,8 +545,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva3);
 
         Reserva reserva4 = new Reserva();
-        reserva4.setFechaReserva("2023-06-01");
-        reserva4.setHora("09:00");
+        reserva4.setFechaReserva(LocalDate.parse("2023-06-01"));
+        reserva4.setHora(LocalTime.parse("09:00"));
         reserva4.setEstado("PENDIENTE");
         reserva4.setCliente(cliente);
         reserva4.setEmpresa(empresa);
@@ -494,8 +565,8 @@ class ReservaHibernateTest {
     @Test
     void contarReservasPorEmpresaYFechasTest() {
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
@@ -503,8 +574,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva1);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16"); 
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16")); 
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -512,8 +583,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva2);
 
         Reserva reserva3 = new Reserva();
-        reserva3.setFechaReserva("2023-06-01");
-        reserva3.setHora("09:00");
+        reserva3.setFechaReserva(LocalDate.parse("2023-06-01"));
+        reserva3.setHora(LocalTime.parse("09:00"));
         reserva3.setEstado("PENDIENTE");
         reserva3.setCliente(cliente);
         reserva3.setEmpresa(empresa);
@@ -550,8 +621,8 @@ class ReservaHibernateTest {
         entityManager.persist(servicio2);
 
         Reserva reserva1 = new Reserva();
-        reserva1.setFechaReserva("2023-05-15"); 
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15")); 
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
@@ -559,8 +630,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva1);
 
         Reserva reserva2 = new Reserva();
-        reserva2.setFechaReserva("2023-05-16"); 
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16")); 
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -568,8 +639,8 @@ class ReservaHibernateTest {
         reservaHibernate.addReserva(reserva2);
 
         Reserva reserva3 = new Reserva();
-        reserva3.setFechaReserva("2023-06-01"); 
-        reserva3.setHora("09:00");
+        reserva3.setFechaReserva(LocalDate.parse("2023-06-01")); 
+        reserva3.setHora(LocalTime.parse("09:00"));
         reserva3.setEstado("PENDIENTE");
         reserva3.setCliente(cliente);
         reserva3.setEmpresa(empresa);
@@ -0,0 +1,572 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
+import com.sompoble.cat.domain.MensajeSalida;
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ClienteRepository;
+import com.sompoble.cat.repository.MensajeFallidoRepository;
+import com.sompoble.cat.repository.MensajeSalidaRepository;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.EmailService;
+import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.util.Particion;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BandejaSalidaServiceImplTest {
+
+    @Mock
+    private MensajeSalidaRepository mensajeSalidaRepository;
+
+    @Mock
+    private MensajeFallidoRepository mensajeFallidoRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private TaskExecutor despachadorExecutor;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CoordinacionService coordinacionService;
+
+    @InjectMocks
+    private BandejaSalidaServiceImpl bandejaSalidaService;
+
+    @Captor
+    private ArgumentCaptor<List<EmailDTO>> emails;
+
+    private Cliente cliente;
+    private MensajeSalida mensaje;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        cliente.setDni("12345678A");
+        cliente.setNombre("Juan");
+        cliente.setEmail("juan@ejemplo.com");
+
+        mensaje = new MensajeSalida();
+        mensaje.setIdMensaje(1L);
+        mensaje.setDniCliente("12345678A");
+        mensaje.setDestinatario("juan@ejemplo.com");
+        mensaje.setAsunto("Confirmación de Reserva");
+        mensaje.setCuerpo("Su reserva ha sido confirmada");
+        mensaje.setTextoNotificacion("Se ha realizado una nueva reserva");
+        mensaje.setTipoNotificacion(Notificacion.TipoNotificacion.INFORMACION);
+        mensaje.setProximoIntento(LocalDateTime.now());
+
+        lenient().when(notificationService.getConfiguracion()).thenReturn(new ConfiguracionNotificaciones());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(mensajeSalidaRepository.marcarNotificacionRegistrada(anyLong())).thenReturn(true);
+        lenient().when(mensajeSalidaRepository.marcarEnviado(anyLong(), any(LocalDateTime.class))).thenReturn(true);
+        lenient().when(mensajeSalidaRepository.reprogramar(anyLong(), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any())).thenReturn(true);
+        lenient().when(mensajeSalidaRepository.posponer(anyLong(), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any())).thenReturn(true);
+        lenient().when(mensajeSalidaRepository.aplazar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(true);
+        lenient().when(mensajeSalidaRepository.archivarFallido(anyLong(), any(LocalDateTime.class), anyInt(), any(),
+                any(LocalDateTime.class))).thenReturn(true);
+        lenient().when(mensajeSalidaRepository.marcarResumen(anyLong(), any(LocalDateTime.class))).thenReturn(true);
+        lenient().when(coordinacionService.getParticion()).thenReturn(Particion.TODAS);
+    }
+
+    @Test
+    void encolarTest() {
+        bandejaSalidaService.encolar(cliente, "Asunto", "Cuerpo", "Texto",
+                Notificacion.TipoNotificacion.ADVERTENCIA);
+
+        ArgumentCaptor<MensajeSalida> captor = ArgumentCaptor.forClass(MensajeSalida.class);
+        verify(mensajeSalidaRepository).save(captor.capture());
+        MensajeSalida guardado = captor.getValue();
+        assertEquals("12345678A", guardado.getDniCliente());
+        assertEquals("juan@ejemplo.com", guardado.getDestinatario());
+        assertEquals("Asunto", guardado.getAsunto());
+        assertEquals("Cuerpo", guardado.getCuerpo());
+        assertEquals("Texto", guardado.getTextoNotificacion());
+        assertEquals(Notificacion.TipoNotificacion.ADVERTENCIA, guardado.getTipoNotificacion());
+        assertEquals(MensajeSalida.EstadoMensaje.PENDIENTE, guardado.getEstado());
+        assertNotNull(guardado.getProximoIntento());
+        verifyNoInteractions(emailService, notificationService, despachadorExecutor);
+    }
+
+    @Test
+    void despacharPendientesTest() {
+        when(mensajeSalidaRepository.findPendientes(any(LocalDateTime.class), eq(50))).thenReturn(Arrays.asList(1L, 2L));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(despachadorExecutor).execute(any(Runnable.class));
+        when(mensajeSalidaRepository.reclamar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+
+        bandejaSalidaService.despacharPendientes();
+
+        // Los dos mensajes caben en un mismo lote de envío
+        verify(despachadorExecutor).execute(any(Runnable.class));
+        verify(mensajeSalidaRepository).reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository).reclamar(eq(2L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void despacharPendientesPorLotesTest() {
+        ReflectionTestUtils.setField(bandejaSalidaService, "loteEnvio", 2);
+        when(mensajeSalidaRepository.findPendientes(any(LocalDateTime.class), eq(50))).thenReturn(Arrays.asList(1L, 2L, 3L));
+
+        bandejaSalidaService.despacharPendientes();
+
+        verify(despachadorExecutor, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void entregarLoteTest() throws Exception {
+        MensajeSalida segundo = new MensajeSalida();
+        segundo.setIdMensaje(2L);
+        segundo.setDestinatario("ana@ejemplo.com");
+        segundo.setAsunto("Recordatorio de Reserva");
+        segundo.setCuerpo("Su reserva es mañana");
+        segundo.setIntentos(1);
+        when(mensajeSalidaRepository.reclamar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.reclamar(eq(3L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(mensajeSalidaRepository.findById(2L)).thenReturn(segundo);
+        when(clienteRepository.findByDNIFull("12345678A")).thenReturn(cliente);
+        when(emailService.sendMails(anyList())).thenReturn(Map.of(1, new RuntimeException("Buzón lleno")));
+
+        bandejaSalidaService.entregarLote(List.of(1L, 2L, 3L));
+
+        verify(emailService).sendMails(emails.capture());
+        assertEquals(2, emails.getValue().size());
+        assertEquals("juan@ejemplo.com", emails.getValue().get(0).getDestinatario());
+        assertEquals("ana@ejemplo.com", emails.getValue().get(1).getDestinatario());
+        verify(mensajeSalidaRepository).marcarNotificacionRegistrada(1L);
+        verify(mensajeSalidaRepository).marcarEnviado(eq(1L), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository).reprogramar(eq(2L), any(LocalDateTime.class), eq(2), any(LocalDateTime.class), eq("Buzón lleno"));
+        verify(mensajeSalidaRepository, never()).findById(3L);
+        verify(emailService, never()).sendMail(any(EmailDTO.class));
+    }
+
+    @Test
+    void entregarLoteFalloDelEnvioTest() {
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(emailService.sendMails(anyList())).thenThrow(new RuntimeException("SMTP no disponible"));
+
+        bandejaSalidaService.entregarLote(List.of(1L));
+
+        verify(mensajeSalidaRepository).reprogramar(eq(1L), any(LocalDateTime.class), eq(1), any(LocalDateTime.class),
+                eq("SMTP no disponible"));
+        verify(mensajeSalidaRepository, never()).marcarEnviado(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarTest() throws Exception {
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(clienteRepository.findByDNIFull("12345678A")).thenReturn(cliente);
+
+        bandejaSalidaService.entregar(1L);
+
+        ArgumentCaptor<Notificacion> notificacion = ArgumentCaptor.forClass(Notificacion.class);
+        verify(notificationService).saveNotification(notificacion.capture());
+        assertEquals(cliente, notificacion.getValue().getCliente());
+        assertEquals("Se ha realizado una nueva reserva", notificacion.getValue().getMensaje());
+        verify(mensajeSalidaRepository).marcarNotificacionRegistrada(1L);
+
+        ArgumentCaptor<EmailDTO> email = ArgumentCaptor.forClass(EmailDTO.class);
+        verify(emailService).sendMail(email.capture());
+        assertEquals("juan@ejemplo.com", email.getValue().getDestinatario());
+        assertEquals("Confirmación de Reserva", email.getValue().getAsunto());
+        assertEquals("Su reserva ha sido confirmada", email.getValue().getMensaje());
+        verify(mensajeSalidaRepository).marcarEnviado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarNoReclamadoTest() {
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(false);
+
+        bandejaSalidaService.entregar(1L);
+
+        verify(mensajeSalidaRepository, never()).findById(anyLong());
+        verifyNoInteractions(emailService, notificationService);
+    }
+
+    @Test
+    void entregarCierraLaEntregaConSuReclamoTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+
+        bandejaSalidaService.entregar(1L);
+
+        ArgumentCaptor<LocalDateTime> reclamo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mensajeSalidaRepository).reclamar(eq(1L), any(LocalDateTime.class), reclamo.capture());
+        // Con la precisión de DATETIME(6), para que la comparación con la columna identifique el reclamo
+        assertEquals(0, reclamo.getValue().getNano() % 1000);
+        verify(mensajeSalidaRepository).marcarEnviado(1L, reclamo.getValue());
+    }
+
+    @Test
+    void entregarReclamoCaducadoNoSobrescribeTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(mensajeSalidaRepository.marcarEnviado(eq(1L), any(LocalDateTime.class))).thenReturn(false);
+
+        assertDoesNotThrow(() -> bandejaSalidaService.entregar(1L));
+
+        // Otra entrega lo ha reclamado de nuevo: su estado queda a su cargo
+        verify(mensajeSalidaRepository, never()).reprogramar(anyLong(), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any());
+        verify(mensajeSalidaRepository, never()).archivarFallido(anyLong(), any(LocalDateTime.class), anyInt(), any(),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarReintentoNoDuplicaNotificacionTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        mensaje.setIntentos(2);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+
+        bandejaSalidaService.entregar(1L);
+
+        verify(notificationService, never()).saveNotification(any(Notificacion.class));
+        verify(emailService).sendMail(any(EmailDTO.class));
+        verify(mensajeSalidaRepository).marcarEnviado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarNotificacionYaMarcadaNoSeDuplicaTest() throws Exception {
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(mensajeSalidaRepository.marcarNotificacionRegistrada(1L)).thenReturn(false);
+
+        bandejaSalidaService.entregar(1L);
+
+        verify(transactionTemplate).executeWithoutResult(any());
+        verify(clienteRepository, never()).findByDNIFull(anyString());
+        verify(notificationService, never()).saveNotification(any(Notificacion.class));
+        verify(emailService).sendMail(any(EmailDTO.class));
+        verify(mensajeSalidaRepository).marcarEnviado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void purgarEnviadosPorBloquesTest() {
+        when(coordinacionService.adquirir("bandeja.purga", 3_600_000)).thenReturn(true);
+        when(mensajeSalidaRepository.deleteEnviados(any(LocalDateTime.class), eq(1000))).thenReturn(1000, 3);
+
+        LocalDateTime antes = LocalDateTime.now().minusDays(7);
+        bandejaSalidaService.purgarEnviados();
+
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mensajeSalidaRepository, times(2)).deleteEnviados(limite.capture(), eq(1000));
+        assertFalse(limite.getValue().isBefore(antes));
+    }
+
+    @Test
+    void purgarEnviadosEnOtraInstanciaTest() {
+        when(coordinacionService.adquirir("bandeja.purga", 3_600_000)).thenReturn(false);
+
+        bandejaSalidaService.purgarEnviados();
+
+        verify(mensajeSalidaRepository, never()).deleteEnviados(any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    void entregarFalloReprogramaTest() throws Exception {
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(clienteRepository.findByDNIFull("12345678A")).thenReturn(cliente);
+        doThrow(new RuntimeException("SMTP no disponible")).when(emailService).sendMail(any(EmailDTO.class));
+
+        LocalDateTime antes = LocalDateTime.now();
+        bandejaSalidaService.entregar(1L);
+
+        ArgumentCaptor<LocalDateTime> proximo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mensajeSalidaRepository).marcarNotificacionRegistrada(1L);
+        verify(mensajeSalidaRepository).reprogramar(eq(1L), any(LocalDateTime.class), eq(1), proximo.capture(), eq("SMTP no disponible"));
+        assertFalse(proximo.getValue().isBefore(antes.plusSeconds(30)));
+        verify(mensajeSalidaRepository, never()).marcarEnviado(anyLong(), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository, never()).archivarFallido(anyLong(), any(LocalDateTime.class), anyInt(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarFalloDefinitivoTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        mensaje.setIntentos(5);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        doThrow(new RuntimeException("SMTP no disponible")).when(emailService).sendMail(any(EmailDTO.class));
+
+        bandejaSalidaService.entregar(1L);
+
+        verify(mensajeSalidaRepository).archivarFallido(eq(1L), any(LocalDateTime.class), eq(6), eq("SMTP no disponible"), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository, never()).reprogramar(anyLong(), any(LocalDateTime.class), anyInt(), any(LocalDateTime.class), anyString());
+    }
+
+    @Test
+    void entregarRechazoDefinitivoSeArchivaTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        doThrow(rechazo(550, "550 5.1.1 Usuario desconocido")).when(emailService).sendMail(any(EmailDTO.class));
+
+        bandejaSalidaService.entregar(1L);
+
+        verify(mensajeSalidaRepository).archivarFallido(eq(1L), any(LocalDateTime.class), eq(1), anyString(), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository, never()).reprogramar(anyLong(), any(LocalDateTime.class), anyInt(), any(LocalDateTime.class), anyString());
+    }
+
+    @Test
+    void entregarSuperaElLimiteDelDominioTest() throws Exception {
+        ReflectionTestUtils.setField(bandejaSalidaService, "dominioRafaga", 1);
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+
+        bandejaSalidaService.entregar(1L);
+        bandejaSalidaService.entregar(1L);
+
+        // El segundo envío al mismo dominio espera a la siguiente ficha, sin gastar un intento
+        verify(emailService, times(1)).sendMail(any(EmailDTO.class));
+        verify(mensajeSalidaRepository).aplazar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(mensajeSalidaRepository, never()).reprogramar(anyLong(), any(LocalDateTime.class), anyInt(), any(LocalDateTime.class), any());
+    }
+
+    @Test
+    void reservarEnvioReparteLosLimitesEntreLasInstanciasTest() {
+        ReflectionTestUtils.setField(bandejaSalidaService, "dominioRafaga", 4);
+        ReflectionTestUtils.setField(bandejaSalidaService, "dominioPorMinuto", 20d);
+        when(coordinacionService.getParticion()).thenReturn(new Particion(0, 2));
+
+        // Con dos instancias, a esta le corresponden 2 de los 4 envíos de la ráfaga
+        assertEquals(0, bandejaSalidaService.reservarEnvio("ejemplo.com", 0));
+        assertEquals(0, bandejaSalidaService.reservarEnvio("ejemplo.com", 0));
+        // y una ficha cada 6 segundos en lugar de cada 3
+        assertEquals(6_000, bandejaSalidaService.reservarEnvio("ejemplo.com", 0));
+
+        // Si queda sola, los cubos se crean de nuevo con todo el límite
+        when(coordinacionService.getParticion()).thenReturn(Particion.TODAS);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, bandejaSalidaService.reservarEnvio("ejemplo.com", 0));
+        }
+        assertEquals(3_000, bandejaSalidaService.reservarEnvio("ejemplo.com", 0));
+    }
+
+    @Test
+    void entregarLimitacionRepetidaPasaAFallidosTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        mensaje.setIntentos(1);
+        mensaje.setAplazamientos(24);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        doThrow(rechazo(450, "450 4.2.1 Too many messages, slow down")).when(emailService).sendMail(any(EmailDTO.class));
+
+        bandejaSalidaService.entregar(1L);
+
+        // Tras max-aplazamientos aplazamientos sin gastar intentos, el mensaje deja de reintentarse
+        verify(mensajeSalidaRepository).archivarFallido(eq(1L), any(LocalDateTime.class), eq(1), anyString(),
+                any(LocalDateTime.class));
+        verify(mensajeSalidaRepository, never()).posponer(anyLong(), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any());
+    }
+
+    @Test
+    void entregarBuzonLlenoNoPausaElDominioTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        doThrow(rechazo(452, "452 4.2.2 The email account that you tried to reach is over quota"))
+                .doNothing().when(emailService).sendMail(any(EmailDTO.class));
+
+        bandejaSalidaService.entregar(1L);
+        bandejaSalidaService.entregar(1L);
+
+        // El fallo gasta un intento de ese mensaje y el siguiente envío al dominio no espera
+        verify(mensajeSalidaRepository).reprogramar(eq(1L), any(LocalDateTime.class), eq(1), any(LocalDateTime.class),
+                anyString());
+        verify(mensajeSalidaRepository, never()).posponer(anyLong(), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any());
+        verify(emailService, times(2)).sendMail(any(EmailDTO.class));
+        verify(mensajeSalidaRepository).marcarEnviado(eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarLoteLimitacionDelDominioPausaSinGastarIntentosTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        mensaje.setIntentos(2);
+        MensajeSalida otroDominio = new MensajeSalida();
+        otroDominio.setIdMensaje(2L);
+        otroDominio.setDestinatario("ana@otro.com");
+        otroDominio.setAsunto("Recordatorio de Reserva");
+        otroDominio.setCuerpo("Su reserva es mañana");
+        when(mensajeSalidaRepository.reclamar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(mensajeSalidaRepository.findById(2L)).thenReturn(otroDominio);
+        when(emailService.sendMails(anyList()))
+                .thenReturn(Map.of(0, rechazo(450, "450 4.2.1 Too many messages, slow down")))
+                .thenReturn(Map.of());
+
+        bandejaSalidaService.entregarLote(List.of(1L, 2L));
+        bandejaSalidaService.entregarLote(List.of(1L, 2L));
+
+        ArgumentCaptor<LocalDateTime> proximo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mensajeSalidaRepository).posponer(eq(1L), any(LocalDateTime.class), eq(1), proximo.capture(), anyString());
+        verify(mensajeSalidaRepository, never()).reprogramar(eq(1L), any(LocalDateTime.class), anyInt(),
+                any(LocalDateTime.class), any());
+        assertFalse(proximo.getValue().isBefore(LocalDateTime.now().plusSeconds(290)));
+        // El dominio pausado no recibe más envíos; el otro dominio sigue
+        verify(mensajeSalidaRepository).aplazar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(emailService, times(2)).sendMails(emails.capture());
+        assertEquals(List.of("ana@otro.com"),
+                emails.getAllValues().get(1).stream().map(EmailDTO::getDestinatario).toList());
+        verify(mensajeSalidaRepository, times(2)).marcarEnviado(eq(2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarApartaLosInformativosParaElResumenTest() throws Exception {
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("daily"));
+        when(mensajeSalidaRepository.reclamar(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(clienteRepository.findByDNIFull("12345678A")).thenReturn(cliente);
+
+        bandejaSalidaService.entregar(1L);
+
+        // La notificación se registra en el momento; el correo espera al resumen
+        verify(notificationService).saveNotification(any(Notificacion.class));
+        verify(mensajeSalidaRepository).marcarResumen(eq(1L), any(LocalDateTime.class));
+        verify(emailService, never()).sendMail(any(EmailDTO.class));
+        verify(mensajeSalidaRepository, never()).marcarEnviado(anyLong(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void entregarLoteEnviaLasAdvertenciasAunqueHayaResumenTest() throws Exception {
+        mensaje.setNotificacionRegistrada(true);
+        MensajeSalida recordatorio = new MensajeSalida();
+        recordatorio.setIdMensaje(2L);
+        recordatorio.setDestinatario("juan@ejemplo.com");
+        recordatorio.setAsunto("Recordatorio de Reserva");
+        recordatorio.setCuerpo("Su reserva es mañana");
+        recordatorio.setTipoNotificacion(Notificacion.TipoNotificacion.ADVERTENCIA);
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("hourly"));
+        when(mensajeSalidaRepository.reclamar(anyLong(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(true);
+        when(mensajeSalidaRepository.findById(1L)).thenReturn(mensaje);
+        when(mensajeSalidaRepository.findById(2L)).thenReturn(recordatorio);
+        when(emailService.sendMails(anyList())).thenReturn(Map.of());
+
+        bandejaSalidaService.entregarLote(List.of(1L, 2L));
+
+        verify(mensajeSalidaRepository).marcarResumen(eq(1L), any(LocalDateTime.class));
+        verify(emailService).sendMails(emails.capture());
+        assertEquals(1, emails.getValue().size());
+        assertEquals("Recordatorio de Reserva", emails.getValue().get(0).getAsunto());
+        verify(mensajeSalidaRepository).marcarEnviado(eq(2L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void reenviarFallidoInexistenteTest() {
+        when(mensajeFallidoRepository.reenviar(eq(9L), any(LocalDateTime.class))).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> bandejaSalidaService.reenviarFallido(9L));
+    }
+
+    @Test
+    void reenviarFallidosTest() {
+        when(mensajeFallidoRepository.reenviarTodos(eq("ejemplo.com"), any(LocalDateTime.class))).thenReturn(3);
+
+        assertEquals(3, bandejaSalidaService.reenviarFallidos("ejemplo.com"));
+    }
+
+    @Test
+    void clasificarTest() throws Exception {
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.PERMANENTE,
+                BandejaSalidaServiceImpl.clasificar(rechazo(550, "550 5.1.1 Usuario desconocido")));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.LIMITE_DOMINIO,
+                BandejaSalidaServiceImpl.clasificar(rechazo(450, "450 4.2.1 Too many messages")));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.LIMITE_CUENTA, BandejaSalidaServiceImpl.clasificar(
+                new MailSendException("Error", new SMTPSendFailedException("DATA", 550,
+                        "550 5.4.5 Daily user sending quota exceeded", null, null, null, null))));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.LIMITE_CUENTA, BandejaSalidaServiceImpl.clasificar(
+                new MailSendException("Error", new SMTPSendFailedException("MAIL", 421,
+                        "421 4.7.0 Servicio no disponible", null, null, null, null))));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.PERMANENTE,
+                BandejaSalidaServiceImpl.clasificar(new AddressException("Dirección no válida")));
+        // Un buzón lleno es un fallo del mensaje, aunque la respuesta hable de cuota
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.TEMPORAL, BandejaSalidaServiceImpl.clasificar(
+                rechazo(452, "452 4.2.2 The email account that you tried to reach is over quota")));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.PERMANENTE, BandejaSalidaServiceImpl.clasificar(
+                rechazo(552, "552 5.2.2 Mailbox quota exceeded")));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.TEMPORAL, BandejaSalidaServiceImpl.clasificar(
+                rechazo(450, "450 Mailbox full, try again later")));
+        assertEquals(BandejaSalidaServiceImpl.TipoFallo.TEMPORAL,
+                BandejaSalidaServiceImpl.clasificar(new RuntimeException("SMTP no disponible")));
+    }
+
+    @Test
+    void dominioTest() {
+        assertEquals("ejemplo.com", BandejaSalidaServiceImpl.dominio("Juan@Ejemplo.COM"));
+        assertEquals("", BandejaSalidaServiceImpl.dominio(null));
+    }
+
+    private static ConfiguracionNotificaciones configuracion(String frecuencia) {
+        ConfiguracionNotificaciones configuracion = new ConfiguracionNotificaciones();
+        configuracion.setActivado(true);
+        configuracion.setFrecuencia(frecuencia);
+        return configuracion;
+    }
+
+    /**
+     * Error de envío con el rechazo de un destinatario, como lo devuelve el
+     * servidor SMTP.
+     */
+    private static MessagingException rechazo(int codigo, String respuesta) throws Exception {
+        SendFailedException error = new SendFailedException("Invalid Addresses");
+        error.setNextException(new SMTPAddressFailedException(new InternetAddress("juan@ejemplo.com"),
+                "RCPT TO:<juan@ejemplo.com>", codigo, respuesta));
+        return error;
+    }
+}
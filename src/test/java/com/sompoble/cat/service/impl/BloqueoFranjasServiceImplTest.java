@@ -0,0 +1,290 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.exception.ConflictoException;
+import com.sompoble.cat.exception.LimiteReservasException;
+import com.sompoble.cat.repository.ClienteRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CapacidadService;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.ListaEsperaService;
+import com.sompoble.cat.service.MetricasService;
+import com.sompoble.cat.service.ReminderService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BloqueoFranjasServiceImplTest {
+
+    private static final LocalDate ORIGEN = LocalDate.parse("2030-05-15");
+
+    private static final LocalDate DESTINO = LocalDate.parse("2030-05-20");
+
+    private static final int HILOS = 40;
+
+    @Spy
+    private BloqueoFranjasServiceImpl bloqueoFranjasService = new BloqueoFranjasServiceImpl();
+
+    @Spy
+    private CapacidadNoAtomica capacidad = new CapacidadNoAtomica(HILOS);
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private BandejaSalidaService bandejaSalidaService;
+
+    @Mock
+    private DisponibilidadService disponibilidadService;
+
+    @Mock
+    private MetricasService metricasService;
+
+    @Mock
+    private ListaEsperaService listaEsperaService;
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Mock
+    private ClientesUnicosService clientesUnicosService;
+
+    @Mock
+    private HistogramasService histogramasService;
+
+    @Mock
+    private ReminderService reminderService;
+
+    @InjectMocks
+    private ReservaServiceImpl reservaService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bloqueoFranjasService, "esperaMs", 50L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bloquearSinTransaccionTest() {
+        assertThrows(IllegalStateException.class, () -> bloqueoFranjasService.bloquear(1L, ORIGEN, 1L, DESTINO));
+    }
+
+    @Test
+    void bloquearSeLiberaAlTerminarLaTransaccionTest() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        bloqueoFranjasService.bloquear(1L, ORIGEN, 1L, DESTINO);
+
+        // Otro hilo no obtiene la franja mientras dura la transacción
+        assertInstanceOf(ConflictoException.class, bloquearEnOtroHilo());
+
+        completar();
+        assertNull(bloquearEnOtroHilo());
+    }
+
+    @Test
+    void bloquearMismaFranjaTest() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        bloqueoFranjasService.bloquear(1L, ORIGEN, 1L, ORIGEN);
+
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        completar();
+        assertNull(bloquearEnOtroHilo());
+    }
+
+    @Test
+    void indiceDentroDeRangoTest() {
+        for (long id = 0; id < 1000; id++) {
+            int indice = BloqueoFranjasServiceImpl.indice(id, ORIGEN.plusDays(id));
+            assertTrue(indice >= 0 && indice < BloqueoFranjasServiceImpl.NUMERO_CERROJOS);
+        }
+    }
+
+    /**
+     * Muchos hilos trasladan a la vez reservas distintas a la misma franja
+     * usando un libro de capacidad que no es atómico por sí mismo. Con los
+     * cerrojos, solo se confirman tantos traslados como plazas hay.
+     */
+    @Test
+    void trasladosConcurrentesNoSobrepasanElLimiteTest() throws Exception {
+        int limite = 5;
+        when(reservaRepository.findById(anyLong())).thenAnswer(inv -> new ReservaDTO(inv.getArgument(0),
+                ORIGEN.toString(), "10:00", "PENDIENTE", "12345678A", "A12345678", 1L));
+        ReflectionTestUtils.setField(bloqueoFranjasService, "esperaMs", 10_000L);
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        AtomicInteger confirmadas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (long id = 1; id <= HILOS; id++) {
+                Reserva reserva = reserva(id, limite);
+                tareas.add(ejecutor.submit(() -> {
+                    salida.await();
+                    TransactionSynchronizationManager.initSynchronization();
+                    try {
+                        reservaService.updateReserva(reserva);
+                        confirmadas.incrementAndGet();
+                    } catch (LimiteReservasException e) {
+                        rechazadas.incrementAndGet();
+                    } finally {
+                        completar();
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        assertEquals(limite, confirmadas.get());
+        assertEquals(HILOS - limite, rechazadas.get());
+        assertEquals(limite, capacidad.ocupadasDestino);
+        assertEquals(HILOS - limite, capacidad.ocupadasOrigen);
+    }
+
+    /**
+     * Intenta bloquear las mismas franjas desde otro hilo.
+     *
+     * @return la excepción lanzada, o {@code null} si se obtuvo el bloqueo.
+     */
+    private RuntimeException bloquearEnOtroHilo() throws Exception {
+        ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+        try {
+            return ejecutor.submit(() -> {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    bloqueoFranjasService.bloquear(1L, DESTINO, 1L, ORIGEN);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                } finally {
+                    completar();
+                }
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Simula el final de la transacción del hilo actual.
+     */
+    private static void completar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization sincronizacion : sincronizaciones) {
+            sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    private Reserva reserva(Long idReserva, int limite) {
+        Empresa empresa = new Empresa();
+        empresa.setNombre("Empresa S.A.");
+        Servicio servicio = new Servicio();
+        servicio.setIdServicio(1L);
+        servicio.setLimiteReservas(limite);
+        servicio.setEmpresa(empresa);
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Juan");
+
+        Reserva reserva = new Reserva();
+        reserva.setIdReserva(idReserva);
+        reserva.setFechaReserva(DESTINO);
+        reserva.setHora(LocalTime.of(10, 0));
+        reserva.setCliente(cliente);
+        reserva.setEmpresa(empresa);
+        reserva.setServicio(servicio);
+        return reserva;
+    }
+
+    /**
+     * Libro de capacidad en memoria que comprueba y ocupa la plaza en dos
+     * pasos, dejando una ventana en la que otro hilo puede colarse.
+     */
+    private static class CapacidadNoAtomica implements CapacidadService {
+
+        private volatile int ocupadasOrigen;
+
+        private volatile int ocupadasDestino;
+
+        CapacidadNoAtomica(int ocupadasOrigen) {
+            this.ocupadasOrigen = ocupadasOrigen;
+        }
+
+        @Override
+        public boolean moverPlaza(Long idServicioOrigen, LocalDate fechaOrigen,
+                Long idServicioDestino, LocalDate fechaDestino, int limiteDestino) {
+            int ocupadas = ocupadasDestino;
+            if (ocupadas >= limiteDestino) {
+                return false;
+            }
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ocupadasDestino = ocupadas + 1;
+            ocupadasOrigen--;
+            return true;
+        }
+
+        @Override
+        public boolean ocuparPlaza(Long idServicio, LocalDate fecha, int limite) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void liberarPlazas(Long idServicio, LocalDate fecha, int cantidad) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void eliminarContadoresServicio(Long idServicio) {
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.repository.OcupacionServicioRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CapacidadServiceImplTest {
+
+    @Mock
+    private OcupacionServicioRepository ocupacionRepository;
+
+    @InjectMocks
+    private CapacidadServiceImpl capacidadService;
+
+    @Test
+    void ocuparPlazaConFilaExistenteEsUnaSolaSentenciaTest() {
+        when(ocupacionRepository.incrementarSiHayPlaza(1L, LocalDate.parse("2025-04-15"), 2)).thenReturn(true);
+
+        assertTrue(capacidadService.ocuparPlaza(1L, LocalDate.parse("2025-04-15"), 2));
+
+        verify(ocupacionRepository, never()).inicializarSiNoExiste(anyLong(), any(LocalDate.class));
+    }
+
+    @Test
+    void ocuparPlazaCreaLaFilaSiNoExisteTest() {
+        when(ocupacionRepository.incrementarSiHayPlaza(1L, LocalDate.parse("2025-04-15"), 5)).thenReturn(false, true);
+
+        assertTrue(capacidadService.ocuparPlaza(1L, LocalDate.parse("2025-04-15"), 5));
+
+        verify(ocupacionRepository).inicializarSiNoExiste(1L, LocalDate.parse("2025-04-15"));
+        verify(ocupacionRepository, times(2)).incrementarSiHayPlaza(1L, LocalDate.parse("2025-04-15"), 5);
+    }
+
+    @Test
+    void ocuparPlazaLimiteAlcanzadoTest() {
+        when(ocupacionRepository.incrementarSiHayPlaza(1L, LocalDate.parse("2025-04-15"), 3)).thenReturn(false);
+
+        assertFalse(capacidadService.ocuparPlaza(1L, LocalDate.parse("2025-04-15"), 3));
+
+        verify(ocupacionRepository).inicializarSiNoExiste(1L, LocalDate.parse("2025-04-15"));
+    }
+
+    @Test
+    void liberarPlazasTest() {
+        capacidadService.liberarPlazas(1L, LocalDate.parse("2025-04-15"), 3);
+        capacidadService.liberarPlazas(1L, LocalDate.parse("2025-04-15"), 0);
+
+        verify(ocupacionRepository, times(1)).decrementar(1L, LocalDate.parse("2025-04-15"), 3);
+    }
+
+    @Test
+    void moverPlazaTest() {
+        when(ocupacionRepository.incrementarSiHayPlaza(2L, LocalDate.parse("2025-04-20"), 5)).thenReturn(true);
+
+        assertTrue(capacidadService.moverPlaza(1L, LocalDate.parse("2025-04-15"), 2L, LocalDate.parse("2025-04-20"), 5));
+
+        verify(ocupacionRepository).decrementar(1L, LocalDate.parse("2025-04-15"), 1);
+    }
+
+    @Test
+    void moverPlazaDestinoCompletoTest() {
+        when(ocupacionRepository.incrementarSiHayPlaza(1L, LocalDate.parse("2025-04-20"), 5)).thenReturn(false);
+
+        assertFalse(capacidadService.moverPlaza(1L, LocalDate.parse("2025-04-15"), 1L, LocalDate.parse("2025-04-20"), 5));
+
+        verify(ocupacionRepository, never()).decrementar(anyLong(), any(LocalDate.class), anyInt());
+    }
+
+    @Test
+    void moverPlazaMismaFranjaTest() {
+        assertTrue(capacidadService.moverPlaza(1L, LocalDate.parse("2025-04-15"), 1L, LocalDate.parse("2025-04-15"), 5));
+
+        verifyNoInteractions(ocupacionRepository);
+    }
+
+    @Test
+    void eliminarContadoresServicioTest() {
+        capacidadService.eliminarContadoresServicio(1L);
+
+        verify(ocupacionRepository).deleteByServicioId(1L);
+    }
+}
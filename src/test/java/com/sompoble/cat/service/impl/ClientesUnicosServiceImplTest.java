@@ -0,0 +1,105 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.ClientesDiarios;
+import com.sompoble.cat.repository.ClientesDiariosRepository;
+import com.sompoble.cat.util.HyperLogLog;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientesUnicosServiceImplTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2024, 3, 4);
+
+    private static final LocalDate MARTES = LocalDate.of(2024, 3, 5);
+
+    @Mock
+    private ClientesDiariosRepository clientesDiariosRepository;
+
+    @InjectMocks
+    private ClientesUnicosServiceImpl clientesUnicosService;
+
+    @Test
+    void registrarFusionaElRegistroDelClienteTest() {
+        clientesUnicosService.registrar(1L, LUNES, 5L);
+
+        verify(clientesDiariosRepository).fusionar(1L, LUNES, HyperLogLog.indice(5L), HyperLogLog.posicion(5L));
+        HyperLogLog hll = new HyperLogLog();
+        hll.agregar(5L);
+        assertEquals(HyperLogLog.posicion(5L), hll.getRegistros()[HyperLogLog.indice(5L)]);
+    }
+
+    @Test
+    void registrarEnTransaccionFusionaTrasConfirmarTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            clientesUnicosService.registrar(1L, LUNES, 5L);
+
+            verifyNoInteractions(clientesDiariosRepository);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(clientesDiariosRepository).fusionar(1L, LUNES, HyperLogLog.indice(5L), HyperLogLog.posicion(5L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void registrarFalloAlFusionarNoPropagaTest() {
+        doThrow(new RuntimeException("Deadlock")).when(clientesDiariosRepository)
+                .fusionar(anyLong(), any(LocalDate.class), anyInt(), anyByte());
+
+        assertDoesNotThrow(() -> clientesUnicosService.registrar(1L, LUNES, 5L));
+    }
+
+    @Test
+    void estimarUneLosDiasTest() {
+        HyperLogLog lunes = new HyperLogLog();
+        HyperLogLog martes = new HyperLogLog();
+        for (long id = 1; id <= 20; id++) {
+            lunes.agregar(id);
+            martes.agregar(id + 10);
+        }
+        when(clientesDiariosRepository.findRegistros(1L, LUNES, MARTES))
+                .thenReturn(List.of(lunes.getRegistros(), martes.getRegistros()));
+
+        assertEquals(30, clientesUnicosService.estimar(1L, LUNES, MARTES));
+    }
+
+    @Test
+    void estimarSinDatosTest() {
+        when(clientesDiariosRepository.findRegistros(1L, LUNES, MARTES)).thenReturn(List.of());
+
+        assertEquals(0, clientesUnicosService.estimar(1L, LUNES, MARTES));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconstruirTest() {
+        when(clientesDiariosRepository.findClientesPorEmpresaYDia(LUNES, MARTES)).thenReturn(Map.of(
+                1L, Map.of(LUNES, List.of(5L, 6L), MARTES, List.of(5L)),
+                2L, Map.of(LUNES, List.of(7L))));
+
+        clientesUnicosService.reconstruir(LUNES, MARTES);
+
+        ArgumentCaptor<List<ClientesDiarios>> estimadores = ArgumentCaptor.forClass(List.class);
+        verify(clientesDiariosRepository).sustituir(eq(LUNES), eq(MARTES), estimadores.capture());
+        assertEquals(3, estimadores.getValue().size());
+        ClientesDiarios lunesEmpresa1 = estimadores.getValue().stream()
+                .filter(e -> e.getIdEmpresa().equals(1L) && e.getFecha().equals(LUNES))
+                .findFirst().orElseThrow();
+        assertEquals(2, HyperLogLog.deRegistros(lunesEmpresa1.getRegistros()).estimar());
+    }
+}
@@ -0,0 +1,101 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.repository.CoordinacionRepository;
+import com.sompoble.cat.util.Particion;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoordinacionServiceImplTest {
+
+    @Mock
+    private CoordinacionRepository coordinacionRepository;
+
+    @InjectMocks
+    private CoordinacionServiceImpl coordinacionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(coordinacionService, "idNodo", "nodo-b");
+    }
+
+    @Test
+    void adquirirTest() {
+        when(coordinacionRepository.adquirir("recordatorios", "nodo-b", 180_000)).thenReturn(true);
+
+        assertTrue(coordinacionService.adquirir("recordatorios", 180_000));
+    }
+
+    @Test
+    void adquirirSinBaseDeDatosNoEjecutaLaTareaTest() {
+        when(coordinacionRepository.adquirir(anyString(), anyString(), anyLong()))
+                .thenThrow(new RuntimeException("Conexión perdida"));
+
+        assertFalse(coordinacionService.adquirir("recordatorios", 180_000));
+    }
+
+    @Test
+    void latidoCalculaLaParticionTest() {
+        when(coordinacionRepository.findNodosActivos(30_000)).thenReturn(List.of("nodo-a", "nodo-b", "nodo-c"));
+
+        coordinacionService.latido();
+
+        verify(coordinacionRepository).latido("nodo-b");
+        verify(coordinacionRepository).deleteNodosInactivos(300_000);
+        assertEquals(new Particion(1, 3), coordinacionService.getParticion());
+        verify(coordinacionRepository, times(1)).findNodosActivos(anyLong());
+    }
+
+    @Test
+    void getParticionLateSiAunNoLoHaHechoTest() {
+        when(coordinacionRepository.findNodosActivos(30_000)).thenReturn(List.of("nodo-b", "nodo-c"));
+
+        assertEquals(new Particion(0, 2), coordinacionService.getParticion());
+        verify(coordinacionRepository).latido("nodo-b");
+    }
+
+    @Test
+    void latidoFallidoConservaLaParticionTest() {
+        when(coordinacionRepository.findNodosActivos(30_000))
+                .thenReturn(List.of("nodo-a", "nodo-b"))
+                .thenThrow(new RuntimeException("Conexión perdida"));
+
+        coordinacionService.latido();
+        coordinacionService.latido();
+
+        assertEquals(new Particion(1, 2), coordinacionService.getParticion());
+    }
+
+    @Test
+    void getParticionSinBaseDeDatosEsTodoTest() {
+        doThrow(new RuntimeException("Conexión perdida")).when(coordinacionRepository).latido("nodo-b");
+
+        assertEquals(Particion.TODAS, coordinacionService.getParticion());
+    }
+
+    @Test
+    void destroyLiberaLosArrendamientosTest() {
+        coordinacionService.destroy();
+
+        verify(coordinacionRepository).liberar("nodo-b");
+    }
+
+    @Test
+    void generaElIdentificadorSiNoSeConfiguraTest() {
+        ReflectionTestUtils.setField(coordinacionService, "idNodo", "");
+
+        String id = coordinacionService.getIdNodo();
+
+        assertFalse(id.isBlank());
+        assertEquals(id, coordinacionService.getIdNodo());
+    }
+}
@@ -0,0 +1,181 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Horario;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.DisponibilidadDTO;
+import com.sompoble.cat.dto.DisponibilidadDTO.DiaDisponibleDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.repository.ServicioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DisponibilidadServiceImplTest {
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @InjectMocks
+    private DisponibilidadServiceImpl disponibilidadService;
+
+    private Servicio servicio;
+    private LocalDate lunes;
+
+    @BeforeEach
+    void setUp() {
+        servicio = new Servicio();
+        servicio.setIdServicio(1L);
+        servicio.setDuracion(60);
+        servicio.setLimiteReservas(3);
+        Horario horario = new Horario("Lunes,Martes", LocalTime.of(9, 0), LocalTime.of(12, 30), null);
+        servicio.setHorarios(List.of(horario));
+
+        lunes = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    void calcularPlantillaTest() {
+        Map<DayOfWeek, List<String>> plantilla = DisponibilidadServiceImpl.calcularPlantilla(servicio);
+
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY), plantilla.keySet());
+        assertEquals(List.of("09:00", "10:00", "11:00"), plantilla.get(DayOfWeek.MONDAY));
+    }
+
+    @Test
+    void diasLaborablesTest() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+                DisponibilidadServiceImpl.diasLaborables("Lunes, Miércoles"));
+        assertEquals(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+                DisponibilidadServiceImpl.diasLaborables("Lunes-Viernes"));
+        assertEquals(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY),
+                DisponibilidadServiceImpl.diasLaborables("dissabte,diumenge"));
+        assertEquals(EnumSet.allOf(DayOfWeek.class), DisponibilidadServiceImpl.diasLaborables(""));
+    }
+
+    @Test
+    void obtenerDisponibilidadTest() {
+        LocalDate miercoles = lunes.plusDays(2);
+        when(servicioRepository.findById(1L)).thenReturn(servicio);
+        when(reservaRepository.contarReservasPorFecha(1L, lunes, lunes.plusDays(1)))
+                .thenReturn(Map.of(lunes, 3, lunes.plusDays(1), 1));
+
+        DisponibilidadDTO disponibilidad = disponibilidadService.obtenerDisponibilidad(1L, lunes, miercoles);
+
+        assertEquals(3, disponibilidad.getDias().size());
+        DiaDisponibleDTO completo = disponibilidad.getDias().get(0);
+        assertEquals(lunes.toString(), completo.getFecha());
+        assertEquals(0, completo.getPlazasLibres());
+        assertTrue(completo.getHoras().isEmpty());
+        DiaDisponibleDTO martes = disponibilidad.getDias().get(1);
+        assertEquals(2, martes.getPlazasLibres());
+        assertEquals(List.of("09:00", "10:00", "11:00"), martes.getHoras());
+        DiaDisponibleDTO cerrado = disponibilidad.getDias().get(2);
+        assertEquals(0, cerrado.getPlazasLibres());
+        assertTrue(cerrado.getHoras().isEmpty());
+    }
+
+    @Test
+    void obtenerDisponibilidadUsaCacheTest() {
+        when(servicioRepository.findById(1L)).thenReturn(servicio);
+        when(reservaRepository.contarReservasPorFecha(1L, lunes, lunes)).thenReturn(Map.of(lunes, 1));
+
+        disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+        DisponibilidadDTO disponibilidad = disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+
+        assertEquals(2, disponibilidad.getDias().get(0).getPlazasLibres());
+        verify(servicioRepository, times(1)).findById(1L);
+        verify(reservaRepository, times(1)).contarReservasPorFecha(anyLong(), any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    void invalidarRecargaElDiaTest() {
+        when(servicioRepository.findById(1L)).thenReturn(servicio);
+        when(reservaRepository.contarReservasPorFecha(1L, lunes, lunes))
+                .thenReturn(Map.of(lunes, 1))
+                .thenReturn(Map.of(lunes, 2));
+
+        disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+        disponibilidadService.invalidar(1L, lunes);
+        DisponibilidadDTO disponibilidad = disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+
+        assertEquals(1, disponibilidad.getDias().get(0).getPlazasLibres());
+        verify(reservaRepository, times(2)).contarReservasPorFecha(1L, lunes, lunes);
+        verify(servicioRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void calendarioCaducadoSeRecargaTest() {
+        Clock inicio = Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneId.systemDefault());
+        ReflectionTestUtils.setField(disponibilidadService, "reloj", inicio);
+        when(servicioRepository.findById(1L)).thenReturn(servicio);
+        when(reservaRepository.contarReservasPorFecha(1L, lunes, lunes))
+                .thenReturn(Map.of(lunes, 1))
+                .thenReturn(Map.of(lunes, 3));
+
+        disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+        ReflectionTestUtils.setField(disponibilidadService, "reloj", Clock.offset(inicio, Duration.ofSeconds(29)));
+        DisponibilidadDTO enCache = disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+        ReflectionTestUtils.setField(disponibilidadService, "reloj", Clock.offset(inicio, Duration.ofSeconds(30)));
+        DisponibilidadDTO recargada = disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+
+        assertEquals(2, enCache.getDias().get(0).getPlazasLibres());
+        assertEquals(0, recargada.getDias().get(0).getPlazasLibres());
+        verify(servicioRepository, times(2)).findById(1L);
+        verify(reservaRepository, times(2)).contarReservasPorFecha(1L, lunes, lunes);
+    }
+
+    @Test
+    void invalidarServicioRecargaLaPlantillaTest() {
+        when(servicioRepository.findById(1L)).thenReturn(servicio);
+        when(reservaRepository.contarReservasPorFecha(1L, lunes, lunes)).thenReturn(Map.of());
+
+        disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+        disponibilidadService.invalidarServicio(1L);
+        disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes);
+
+        verify(servicioRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void obtenerDisponibilidadServicioNoExisteTest() {
+        when(servicioRepository.findById(99L)).thenReturn(null);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> disponibilidadService.obtenerDisponibilidad(99L, lunes, lunes));
+        verifyNoInteractions(reservaRepository);
+    }
+
+    @Test
+    void obtenerDisponibilidadRangoInvalidoTest() {
+        assertThrows(BadRequestException.class,
+                () -> disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes.minusDays(1)));
+        assertThrows(BadRequestException.class,
+                () -> disponibilidadService.obtenerDisponibilidad(1L, lunes, lunes.plusDays(DisponibilidadServiceImpl.MAX_DIAS)));
+        verifyNoInteractions(servicioRepository, reservaRepository);
+    }
+}
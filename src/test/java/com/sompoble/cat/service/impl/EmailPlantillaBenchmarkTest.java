@@ -0,0 +1,151 @@
+package com.sompoble.cat.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.sompoble.cat.dto.EmailDTO;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Mide la memoria reservada y el tiempo por correo al componer y serializar
+ * recordatorios idénticos: renderizando la plantilla y leyendo y codificando
+ * el logo en cada correo, como se hacía antes, frente a reutilizar el cuerpo
+ * renderizado y el logo ya codificado.
+ * <p>
+ * La memoria se mide con el contador de bytes reservados por hilo de la JVM.
+ * Solo se ejecuta con
+ * {@code mvn test -Dtest=EmailPlantillaBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class EmailPlantillaBenchmarkTest {
+
+    private static final int CORREOS = 200;
+
+    private static final int REPETICIONES = 3;
+
+    private static final String MENSAJE = "Le recordamos que tiene una reserva de Corte de pelo "
+            + "dentro de 24 horas, el 2030-05-15 a las 10:00.";
+
+    private final com.sun.management.ThreadMXBean hilos =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final JavaMailSenderImpl sesion = new JavaMailSenderImpl();
+
+    @Test
+    void memoriaPorCorreoTest() throws Exception {
+        SpringTemplateEngine templateEngine = plantillas();
+        JavaMailSender javaMailSender = Mockito.mock(JavaMailSender.class);
+        Mockito.when(javaMailSender.createMimeMessage()).thenAnswer(inv -> sesion.createMimeMessage());
+        Mockito.doAnswer(inv -> {
+            // Mockito entrega los argumentos variables por separado
+            for (Object mensaje : inv.getArguments()) {
+                serializar((MimeMessage) mensaje);
+            }
+            return null;
+        }).when(javaMailSender).send(Mockito.any(MimeMessage[].class));
+        EmailServiceImpl emailService = new EmailServiceImpl(javaMailSender, templateEngine,
+                new DefaultResourceLoader(), null);
+        List<EmailDTO> lote = new ArrayList<>();
+        for (int i = 0; i < CORREOS; i++) {
+            EmailDTO email = new EmailDTO();
+            email.setDestinatario("cliente" + i + "@correo.com");
+            email.setAsunto("Recordatorio de Reserva");
+            email.setMensaje(MENSAJE);
+            lote.add(email);
+        }
+
+        long[] anterior = medir(() -> {
+            for (EmailDTO email : lote) {
+                serializar(sinCache(templateEngine, email));
+            }
+        });
+        long[] actual = medir(() -> assertTrue(emailService.sendMails(lote).isEmpty()));
+
+        System.out.printf("%22s %16s %16s%n", "", "KB por correo", "us por correo");
+        System.out.printf("%22s %16.1f %16.1f%n", "renderizar cada vez",
+                anterior[0] / 1024.0 / CORREOS, anterior[1] / 1e3 / CORREOS);
+        System.out.printf("%22s %16.1f %16.1f%n", "cuerpo y logo en cache",
+                actual[0] / 1024.0 / CORREOS, actual[1] / 1e3 / CORREOS);
+        assertTrue(actual[0] < anterior[0]);
+    }
+
+    /**
+     * Compone un correo como antes: renderiza la plantilla y adjunta el logo
+     * como recurso, que se lee y se codifica al serializarlo.
+     */
+    private MimeMessage sinCache(SpringTemplateEngine templateEngine, EmailDTO email) throws MessagingException {
+        MimeMessage message = sesion.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(email.getDestinatario());
+        helper.setSubject(email.getAsunto());
+        Context context = new Context();
+        context.setVariable("message", email.getMensaje());
+        helper.setText(templateEngine.process("email", context), true);
+        Resource logoResource = new ClassPathResource("templates/SomPoble.png");
+        helper.addInline("logoImage", logoResource);
+        return message;
+    }
+
+    private static void serializar(MimeMessage mensaje) throws MessagingException, IOException {
+        mensaje.saveChanges();
+        mensaje.writeTo(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Devuelve la mejor de varias repeticiones como bytes reservados y
+     * nanosegundos, tras una ejecución de calentamiento.
+     */
+    private long[] medir(Tarea tarea) throws Exception {
+        tarea.run();
+        long memoria = Long.MAX_VALUE;
+        long tiempo = Long.MAX_VALUE;
+        long hilo = Thread.currentThread().getId();
+        for (int i = 0; i < REPETICIONES; i++) {
+            long bytes = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            tarea.run();
+            tiempo = Math.min(tiempo, System.nanoTime() - inicio);
+            memoria = Math.min(memoria, hilos.getThreadAllocatedBytes(hilo) - bytes);
+        }
+        return new long[]{memoria, tiempo};
+    }
+
+    private static SpringTemplateEngine plantillas() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return templateEngine;
+    }
+
+    @FunctionalInterface
+    private interface Tarea {
+
+        void run() throws Exception;
+    }
+}
@@ -3,19 +3,44 @@ package com.sompoble.cat.service.impl;
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Notificacion.TipoNotificacion;
+import com.sompoble.cat.dto.EmailDTO;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CoordinacionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +63,18 @@ class EmailServiceImplTest {
     @Mock
     private MimeMessage mimeMessage;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BandejaSalidaService bandejaSalidaService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CoordinacionService coordinacionService;
+
     @InjectMocks
     private EmailServiceImpl emailService;
 
@@ -62,6 +99,7 @@ class EmailServiceImplTest {
         when(javaMailSender.createMimeMessage()).thenReturn(mimeMessage);
         when(resourceLoader.getResource("classpath:templates/SomPoble.png")).thenReturn(logoResource);
         when(logoResource.exists()).thenReturn(true);
+        when(logoResource.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[] {1, 2, 3}));
 
         // Act
         emailService.sendNotificationEmail(notificacion);
@@ -83,6 +121,231 @@ class EmailServiceImplTest {
         assertTrue(exception.getMessage().contains("no tiene un email configurado"));
     }
 
+    @Test
+    void testSendMails_unaLlamadaParaTodoElLote() {
+        when(templateEngine.process(eq("email"), any(Context.class))).thenReturn("<html>Email content</html>");
+        when(javaMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+        when(resourceLoader.getResource("classpath:templates/SomPoble.png"))
+                .thenReturn(new ClassPathResource("templates/SomPoble.png"));
+
+        Map<Integer, Exception> errores = emailService.sendMails(List.of(email("a@correo.com"), email("b@correo.com")));
+
+        assertTrue(errores.isEmpty());
+        ArgumentCaptor<MimeMessage[]> mensajes = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(javaMailSender).send(mensajes.capture());
+        assertEquals(2, mensajes.getValue().length);
+    }
+
+    @Test
+    void testSendMails_erroresPorCorreo() {
+        MimeMessage primero = new MimeMessage((Session) null);
+        MimeMessage segundo = new MimeMessage((Session) null);
+        MimeMessage tercero = new MimeMessage((Session) null);
+        when(templateEngine.process(eq("email"), any(Context.class))).thenReturn("<html>Email content</html>");
+        when(javaMailSender.createMimeMessage()).thenReturn(primero, segundo, tercero);
+        when(resourceLoader.getResource("classpath:templates/SomPoble.png"))
+                .thenReturn(new ClassPathResource("templates/SomPoble.png"));
+        Exception rechazo = new MessagingException("550 Usuario desconocido");
+        doThrow(new MailSendException(Map.of(tercero, rechazo))).when(javaMailSender).send(any(MimeMessage[].class));
+
+        // El segundo correo no tiene una dirección válida y no llega a enviarse
+        Map<Integer, Exception> errores = emailService.sendMails(
+                List.of(email("a@correo.com"), email("no es una dirección"), email("c@correo.com")));
+
+        assertEquals(2, errores.size());
+        assertInstanceOf(MessagingException.class, errores.get(1));
+        assertSame(rechazo, errores.get(2));
+        ArgumentCaptor<MimeMessage[]> mensajes = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(javaMailSender).send(mensajes.capture());
+        assertEquals(2, mensajes.getValue().length);
+    }
+
+    @Test
+    void testSendMails_falloDeConexionAfectaATodos() {
+        when(templateEngine.process(eq("email"), any(Context.class))).thenReturn("<html>Email content</html>");
+        when(javaMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+        when(resourceLoader.getResource("classpath:templates/SomPoble.png"))
+                .thenReturn(new ClassPathResource("templates/SomPoble.png"));
+        doThrow(new MailAuthenticationException("Credenciales no válidas")).when(javaMailSender)
+                .send(any(MimeMessage[].class));
+
+        Map<Integer, Exception> errores = emailService.sendMails(List.of(email("a@correo.com"), email("b@correo.com")));
+
+        assertEquals(2, errores.size());
+        assertInstanceOf(MailAuthenticationException.class, errores.get(0));
+    }
+
+    @Test
+    void testSendMails_reutilizaElCuerpoYElLogo() throws Exception {
+        when(templateEngine.process(eq("email"), any(Context.class))).thenReturn("<html>Email content</html>");
+        when(javaMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+        when(resourceLoader.getResource("classpath:templates/SomPoble.png"))
+                .thenReturn(new ClassPathResource("templates/SomPoble.png"));
+
+        emailService.sendMails(List.of(email("a@correo.com"), email("b@correo.com")));
+        emailService.sendMails(List.of(email("c@correo.com")));
+
+        verify(templateEngine, times(1)).process(eq("email"), any(Context.class));
+        verify(resourceLoader, times(1)).getResource(anyString());
+        ArgumentCaptor<MimeMessage[]> mensajes = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(javaMailSender, times(2)).send(mensajes.capture());
+        MimeMessage mensaje = mensajes.getAllValues().get(1)[0];
+        mensaje.saveChanges();
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        mensaje.writeTo(salida);
+        String contenido = salida.toString(StandardCharsets.US_ASCII);
+        assertTrue(contenido.contains("Content-ID: <logoImage>"));
+        assertTrue(contenido.contains("image/png"));
+        assertTrue(contenido.contains("Content-Transfer-Encoding: base64"));
+    }
+
+    @Test
+    void testSendMails_textosDistintosSeRenderizanPorSeparado() {
+        when(templateEngine.process(eq("email"), any(Context.class))).thenReturn("<html>Email content</html>");
+        when(javaMailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+        when(resourceLoader.getResource("classpath:templates/SomPoble.png")).thenReturn(logoResource);
+        when(logoResource.exists()).thenReturn(false);
+        EmailDTO otro = email("b@correo.com");
+        otro.setMensaje("Su reserva ha sido cancelada");
+
+        Map<Integer, Exception> errores = emailService.sendMails(List.of(email("a@correo.com"), otro));
+
+        assertTrue(errores.isEmpty());
+        verify(templateEngine, times(2)).process(eq("email"), any(Context.class));
+    }
+
+    @Test
+    void testSendAutomaticReminders_PorBloquesDesdeElUltimoLeido() throws Exception {
+        EmailServiceImpl servicio = recordatorios(Map.of(
+                0L, List.of(fila(1L, "Juan", "juan@correo.com"), fila(2L, "Ana", "ana@correo.com")),
+                2L, List.<Object[]>of(fila(5L, "Luis", "luis@correo.com"))));
+        when(jdbcTemplate.update(eq(EmailServiceImpl.SQL_REGISTRAR_RECORDATORIO), any(Object[].class))).thenReturn(1);
+
+        servicio.sendAutomaticReminders();
+
+        // Cada bloque se reclama y se encola en su propia transacción, sin enviar nada directamente
+        verify(transactionTemplate, times(2)).execute(any());
+        ArgumentCaptor<Cliente> clientes = ArgumentCaptor.forClass(Cliente.class);
+        ArgumentCaptor<String> cuerpos = ArgumentCaptor.forClass(String.class);
+        verify(bandejaSalidaService, times(3)).encolar(clientes.capture(), eq("Recordatorio de Reserva"),
+                cuerpos.capture(), anyString(), eq(TipoNotificacion.ADVERTENCIA));
+        assertEquals("luis@correo.com", clientes.getAllValues().get(2).getEmail());
+        assertEquals("DNI-1", clientes.getAllValues().get(0).getDni());
+        assertTrue(cuerpos.getAllValues().get(0).startsWith("Estimado/a Juan"));
+        ArgumentCaptor<Object[]> reclamados = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(3)).update(eq(EmailServiceImpl.SQL_REGISTRAR_RECORDATORIO), reclamados.capture());
+        Object[] ultimo = reclamados.getAllValues().get(2);
+        assertEquals(5L, ultimo[0]);
+        assertEquals(EmailServiceImpl.ANTELACION_RECORDATORIOS, ultimo[1]);
+        assertEquals(Timestamp.valueOf("2030-05-15 10:00:00"), ultimo[2]);
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        verify(servicio, never()).sendMails(anyList());
+    }
+
+    @Test
+    void testSendAutomaticReminders_SoloEncolaLosReclamados() throws Exception {
+        EmailServiceImpl servicio = recordatorios(Map.of(
+                0L, List.of(fila(1L, "Juan", "juan@correo.com"), fila(2L, "Ana", "ana@correo.com"))));
+        // Otra ejecución o el motor de recordatorios ya reclamó el de la reserva 1
+        when(jdbcTemplate.update(eq(EmailServiceImpl.SQL_REGISTRAR_RECORDATORIO), any(Object[].class)))
+                .thenReturn(0, 1);
+
+        servicio.sendAutomaticReminders();
+
+        ArgumentCaptor<Cliente> clientes = ArgumentCaptor.forClass(Cliente.class);
+        verify(bandejaSalidaService).encolar(clientes.capture(), anyString(), anyString(), anyString(),
+                any(TipoNotificacion.class));
+        assertEquals("ana@correo.com", clientes.getValue().getEmail());
+    }
+
+    @Test
+    void testSendAutomaticReminders_FalloDelBloqueNoInterrumpeLosSiguientes() throws Exception {
+        EmailServiceImpl servicio = recordatorios(Map.of(
+                0L, List.of(fila(1L, "Juan", "juan@correo.com"), fila(2L, "Ana", "ana@correo.com")),
+                2L, List.<Object[]>of(fila(5L, "Luis", "luis@correo.com"))));
+        when(jdbcTemplate.update(eq(EmailServiceImpl.SQL_REGISTRAR_RECORDATORIO), any(Object[].class)))
+                .thenThrow(new RuntimeException("Deadlock")).thenReturn(1);
+
+        assertDoesNotThrow(servicio::sendAutomaticReminders);
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(bandejaSalidaService).encolar(any(Cliente.class), anyString(), anyString(), anyString(),
+                any(TipoNotificacion.class));
+    }
+
+    @Test
+    void testSendAutomaticReminders_SinArrendamientoNoHaceNada() throws Exception {
+        EmailServiceImpl servicio = recordatorios(Map.of(
+                0L, List.<Object[]>of(fila(1L, "Juan", "juan@correo.com"))));
+        when(coordinacionService.adquirir(EmailServiceImpl.TAREA_RECORDATORIOS, 600_000)).thenReturn(false);
+
+        servicio.sendAutomaticReminders();
+
+        verifyNoInteractions(jdbcTemplate, bandejaSalidaService, transactionTemplate);
+    }
+
+    @Test
+    void testSendAutomaticReminders_SinReservasNoEnviaNada() throws Exception {
+        EmailServiceImpl servicio = recordatorios(Map.of());
+
+        servicio.sendAutomaticReminders();
+
+        verify(servicio, never()).sendMails(anyList());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verifyNoInteractions(bandejaSalidaService, transactionTemplate);
+    }
+
+    /**
+     * Crea un servicio con los bloques de lotes de dos reservas que devuelve
+     * la consulta según la última reserva leída. El servicio tiene el
+     * arrendamiento y ejecuta las transacciones en el acto.
+     */
+    private EmailServiceImpl recordatorios(Map<Long, List<Object[]>> bloques) throws Exception {
+        EmailServiceImpl servicio = spy(new EmailServiceImpl(javaMailSender, templateEngine, resourceLoader,
+                jdbcTemplate));
+        ReflectionTestUtils.setField(servicio, "loteRecordatorios", 2);
+        ReflectionTestUtils.setField(servicio, "bandejaSalidaService", bandejaSalidaService);
+        ReflectionTestUtils.setField(servicio, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(servicio, "coordinacionService", coordinacionService);
+        when(coordinacionService.adquirir(EmailServiceImpl.TAREA_RECORDATORIOS, 600_000)).thenReturn(true);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0)
+                .doInTransaction(null));
+        doAnswer(inv -> {
+            Connection conexion = mock(Connection.class);
+            PreparedStatement consulta = mock(PreparedStatement.class);
+            when(conexion.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(consulta);
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(conexion);
+            verify(consulta).setFetchSize(Integer.MIN_VALUE);
+            ArgumentCaptor<Long> despuesDe = ArgumentCaptor.forClass(Long.class);
+            verify(consulta).setLong(eq(2), despuesDe.capture());
+            RowCallbackHandler manejador = inv.getArgument(1);
+            for (Object[] valores : bloques.getOrDefault(despuesDe.getValue(), List.of())) {
+                ResultSet fila = mock(ResultSet.class);
+                when(fila.getLong("ID_RESERVA")).thenReturn((Long) valores[0]);
+                when(fila.getObject("FECHA", LocalDate.class)).thenReturn(LocalDate.of(2030, 5, 15));
+                when(fila.getObject("HORA", LocalTime.class)).thenReturn(LocalTime.of(10, 0));
+                when(fila.getString("DNI")).thenReturn("DNI-" + valores[0]);
+                when(fila.getString("NOMBRE")).thenReturn((String) valores[1]);
+                when(fila.getString("EMAIL")).thenReturn((String) valores[2]);
+                manejador.processRow(fila);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        return servicio;
+    }
+
+    private static Object[] fila(Long idReserva, String nombre, String email) {
+        return new Object[]{idReserva, nombre, email};
+    }
+
+    private static EmailDTO email(String destinatario) {
+        EmailDTO email = new EmailDTO();
+        email.setDestinatario(destinatario);
+        email.setAsunto("Recordatorio de Reserva");
+        email.setMensaje("Su reserva es mañana");
+        return email;
+    }
+
     @Test
     void testGenerateSubject() {
         assertEquals("Información sobre su reserva - SomPoble", 
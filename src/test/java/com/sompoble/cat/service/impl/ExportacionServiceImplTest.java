@@ -0,0 +1,132 @@
+package com.sompoble.cat.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sompoble.cat.dto.MetricaDiariaDTO;
+import com.sompoble.cat.dto.ReservaExportacionDTO;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.ExportacionService.Formato;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacionServiceImplTest {
+
+    private static final LocalDate DESDE = LocalDate.parse("2024-01-01");
+
+    private static final LocalDate HASTA = LocalDate.parse("2024-01-31");
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @InjectMocks
+    private ExportacionServiceImpl exportacionService;
+
+    @Test
+    void exportarReservasCsvTest() throws IOException {
+        reservas(new ReservaExportacionDTO(1L, LocalDate.parse("2024-01-10"), LocalTime.of(9, 30), "PENDIENTE",
+                        "12345678A", 3L, "Corte, lavado y \"peinado\"", 12.5f),
+                new ReservaExportacionDTO(2L, LocalDate.parse("2024-01-11"), LocalTime.of(10, 0), "=HYPERLINK()",
+                        "12345678B", 3L, "Tinte", 0.1f));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionService.exportarReservas("A12345678", DESDE, HASTA, Formato.CSV, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lineas.length);
+        assertEquals("idReserva,fechaReserva,hora,estado,dniCliente,idServicio,nombreServicio,precio", lineas[0]);
+        assertEquals("1,2024-01-10,09:30,PENDIENTE,12345678A,3,\"Corte, lavado y \"\"peinado\"\"\",12.50", lineas[1]);
+        assertEquals("2,2024-01-11,10:00,'=HYPERLINK(),12345678B,3,Tinte,0.10", lineas[2]);
+    }
+
+    @Test
+    void exportarReservasNdjsonTest() throws IOException {
+        reservas(new ReservaExportacionDTO(1L, LocalDate.parse("2024-01-10"), LocalTime.of(9, 30), "PENDIENTE",
+                "12345678A", 3L, "Corte", 12.5f));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionService.exportarReservas("A12345678", DESDE, HASTA, Formato.NDJSON, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lineas.length);
+        JsonNode reserva = new ObjectMapper().readTree(lineas[0]);
+        assertEquals(1L, reserva.get("idReserva").asLong());
+        assertEquals("2024-01-10", reserva.get("fechaReserva").asText());
+        assertTrue(lineas[0].contains("\"precio\":12.50"));
+    }
+
+    @Test
+    void exportarMetricasCsvTest() throws IOException {
+        doAnswer(invocation -> {
+            Consumer<MetricaDiariaDTO> consumidor = invocation.getArgument(3);
+            consumidor.accept(new MetricaDiariaDTO(LocalDate.parse("2024-01-10"), 3L, "Corte", 4L, 5000L));
+            return null;
+        }).when(metricaDiariaRepository).recorrer(eq(1L), eq(DESDE), eq(HASTA), any());
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionService.exportarMetricas(1L, DESDE, HASTA, Formato.CSV, salida);
+
+        assertEquals("fecha,idServicio,nombreServicio,reservas,ingresos\r\n2024-01-10,3,Corte,4,50.00\r\n",
+                salida.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Si el cliente abandona la descarga, el error de escritura interrumpe el
+     * recorrido en lugar de leer el resto de filas.
+     */
+    @Test
+    void exportarReservasErrorDeEscrituraInterrumpeTest() {
+        AtomicInteger entregadas = new AtomicInteger();
+        doAnswer(invocation -> {
+            Consumer<ReservaExportacionDTO> consumidor = invocation.getArgument(3);
+            for (long id = 1; id <= 100_000; id++) {
+                entregadas.incrementAndGet();
+                consumidor.accept(new ReservaExportacionDTO(id, DESDE, LocalTime.NOON, "PENDIENTE",
+                        "12345678A", 3L, "Corte", 12.5f));
+            }
+            return null;
+        }).when(reservaRepository).recorrerExportacion(eq("A12345678"), eq(DESDE), eq(HASTA), any());
+
+        OutputStream cerrada = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Conexión cerrada");
+            }
+        };
+
+        IOException error = assertThrows(IOException.class,
+                () -> exportacionService.exportarReservas("A12345678", DESDE, HASTA, Formato.CSV, cerrada));
+        assertEquals("Conexión cerrada", error.getMessage());
+        assertTrue(entregadas.get() < 100_000);
+    }
+
+    private void reservas(ReservaExportacionDTO... reservas) {
+        doAnswer(invocation -> {
+            Consumer<ReservaExportacionDTO> consumidor = invocation.getArgument(3);
+            for (ReservaExportacionDTO reserva : reservas) {
+                consumidor.accept(reserva);
+            }
+            return null;
+        }).when(reservaRepository).recorrerExportacion(eq("A12345678"), eq(DESDE), eq(HASTA), any());
+    }
+}
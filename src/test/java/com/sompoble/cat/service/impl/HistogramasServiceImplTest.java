@@ -0,0 +1,137 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.HistogramaDiario;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.HistogramasServicioDTO;
+import com.sompoble.cat.dto.HistogramasServicioDTO.HistogramaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.HistogramaDiarioRepository;
+import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.util.HistogramaReservas;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistogramasServiceImplTest {
+
+    private static final LocalDate LUNES = LocalDate.of(2024, 3, 4);
+
+    private static final LocalDate MARTES = LocalDate.of(2024, 3, 5);
+
+    private static final LocalDate LUNES_SIGUIENTE = LocalDate.of(2024, 3, 11);
+
+    @Mock
+    private HistogramaDiarioRepository histogramaDiarioRepository;
+
+    @Mock
+    private ServicioRepository servicioRepository;
+
+    @InjectMocks
+    private HistogramasServiceImpl histogramasService;
+
+    @Test
+    void registrarActualizaCubetasTest() {
+        HistogramaDiario diario = new HistogramaDiario(1L, 2L, LUNES, new byte[HistogramaReservas.BYTES]);
+        when(histogramaDiarioRepository.bloquear(2L, LUNES)).thenReturn(diario);
+
+        histogramasService.registrar(2L, LUNES, LocalTime.of(9, 30), LUNES.minusDays(10).atStartOfDay(), 1);
+
+        HistogramaReservas histograma = HistogramaReservas.deBytes(diario.getCubetas());
+        assertEquals(1, histograma.getPorHora()[9]);
+        // De 7 a 14 días de antelación
+        assertEquals(1, histograma.getAntelacion()[8]);
+    }
+
+    @Test
+    void registrarSinHoraNoBloqueaTest() {
+        histogramasService.registrar(2L, LUNES, null, null, 1);
+        histogramasService.registrar(2L, LUNES, LocalTime.NOON, null, 0);
+
+        verifyNoInteractions(histogramaDiarioRepository);
+    }
+
+    @Test
+    void obtenerSumaPorDiaSemanaYOcupacionTest() {
+        Servicio servicio = new Servicio();
+        servicio.setIdServicio(2L);
+        servicio.setNombre("Corte");
+        servicio.setLimiteReservas(4);
+        when(servicioRepository.findById(2L)).thenReturn(servicio);
+        when(histogramaDiarioRepository.findByServicio(2L, LUNES, LUNES_SIGUIENTE)).thenReturn(List.of(
+                diario(LUNES, 10, 4),
+                diario(MARTES, 18, 1),
+                diario(LUNES_SIGUIENTE, 10, 2)));
+
+        HistogramasServicioDTO histogramas = histogramasService.obtener(2L, LUNES, LUNES_SIGUIENTE);
+
+        assertEquals(4, histogramas.getLimiteReservas());
+        HistogramaDTO total = histogramas.getTotal();
+        assertNull(total.getDiaSemana());
+        assertEquals(3, total.getDias());
+        assertEquals(7, total.getReservas());
+        assertEquals(6, total.getReservasPorHora()[10]);
+        assertEquals(1, total.getReservasPorHora()[18]);
+        assertEquals(7, total.getAntelacion()[5]);
+        // Un día completo, uno a la mitad y uno a un cuarto
+        assertEquals(1, total.getOcupacion()[10]);
+        assertEquals(1, total.getOcupacion()[5]);
+        assertEquals(1, total.getOcupacion()[2]);
+
+        assertEquals(7, histogramas.getPorDiaSemana().size());
+        HistogramaDTO lunes = histogramas.getPorDiaSemana().get(0);
+        assertEquals("Monday", lunes.getDiaSemana());
+        assertEquals(2, lunes.getDias());
+        assertEquals(6, lunes.getReservasPorHora()[10]);
+        assertEquals(0, histogramas.getPorDiaSemana().get(2).getReservas());
+    }
+
+    @Test
+    void obtenerServicioInexistenteTest() {
+        when(servicioRepository.findById(9L)).thenReturn(null);
+
+        assertThrows(ResourceNotFoundException.class, () -> histogramasService.obtener(9L, LUNES, MARTES));
+        assertThrows(BadRequestException.class, () -> histogramasService.obtener(9L, MARTES, LUNES));
+        verifyNoInteractions(histogramaDiarioRepository);
+    }
+
+    @Test
+    void cubetaOcupacionTest() {
+        assertEquals(0, HistogramasServiceImpl.cubetaOcupacion(0, 10));
+        assertEquals(9, HistogramasServiceImpl.cubetaOcupacion(9, 10));
+        assertEquals(10, HistogramasServiceImpl.cubetaOcupacion(10, 10));
+        assertEquals(10, HistogramasServiceImpl.cubetaOcupacion(12, 10));
+        assertEquals(10, HistogramasServiceImpl.cubetaOcupacion(1, 0));
+    }
+
+    @Test
+    void reconstruirSustituyeElPeriodoTest() {
+        List<HistogramaDiario> calculados = List.of(diario(LUNES, 10, 1));
+        when(histogramaDiarioRepository.calcular(LUNES, MARTES)).thenReturn(calculados);
+
+        histogramasService.reconstruir(LUNES, MARTES);
+
+        verify(histogramaDiarioRepository).sustituir(LUNES, MARTES, calculados);
+    }
+
+    /**
+     * Crea el histograma de un día con reservas a una hora, hechas un día y
+     * medio antes.
+     */
+    private static HistogramaDiario diario(LocalDate fecha, int hora, int reservas) {
+        HistogramaReservas histograma = new HistogramaReservas();
+        LocalDateTime alta = fecha.atTime(hora, 0).minusHours(36);
+        histograma.registrar(fecha, LocalTime.of(hora, 0), alta, reservas);
+        return new HistogramaDiario(1L, 2L, fecha, histograma.getBytes());
+    }
+}
@@ -0,0 +1,142 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.PeticionIdempotente;
+import com.sompoble.cat.domain.PeticionIdempotente.EstadoPeticion;
+import com.sompoble.cat.repository.PeticionIdempotenteRepository;
+import com.sompoble.cat.service.CoordinacionService;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotenciaServiceImplTest {
+
+    @Mock
+    private PeticionIdempotenteRepository peticionIdempotenteRepository;
+
+    @Mock
+    private CoordinacionService coordinacionService;
+
+    @InjectMocks
+    private IdempotenciaServiceImpl idempotenciaService;
+
+    @Test
+    void iniciarReservaClaveNuevaTest() {
+        when(peticionIdempotenteRepository.reservar(eq("clave-1"), eq("huella"), any(LocalDateTime.class))).thenReturn(true);
+
+        assertNull(idempotenciaService.iniciar("clave-1", "huella"));
+        verify(peticionIdempotenteRepository, never()).findByClave(anyString());
+    }
+
+    @Test
+    void iniciarDevuelvePeticionEnCursoTest() {
+        PeticionIdempotente enCurso = new PeticionIdempotente();
+        enCurso.setClave("clave-1");
+        enCurso.setHuella("huella");
+        enCurso.setEstado(EstadoPeticion.EN_CURSO);
+        enCurso.setExpiraEn(LocalDateTime.now().plusMinutes(1));
+        when(peticionIdempotenteRepository.reservar(eq("clave-1"), eq("huella"), any(LocalDateTime.class))).thenReturn(false);
+        when(peticionIdempotenteRepository.findByClave("clave-1")).thenReturn(enCurso);
+
+        assertSame(enCurso, idempotenciaService.iniciar("clave-1", "huella"));
+    }
+
+    @Test
+    void iniciarRespuestaCompletadaDesdeMemoriaTest() {
+        idempotenciaService.completar("clave-1", "huella", 201, "application/json", "{}".getBytes());
+
+        PeticionIdempotente previa = idempotenciaService.iniciar("clave-1", "huella");
+
+        assertNotNull(previa);
+        assertEquals(EstadoPeticion.COMPLETADA, previa.getEstado());
+        assertEquals(201, previa.getCodigoEstado());
+        verify(peticionIdempotenteRepository).completar(any(PeticionIdempotente.class));
+        verify(peticionIdempotenteRepository, never()).reservar(anyString(), anyString(), any());
+    }
+
+    @Test
+    void iniciarRespuestaCompletadaDesdeBaseDeDatosTest() {
+        PeticionIdempotente guardada = new PeticionIdempotente("clave-1", "huella", 201, "application/json",
+                "{}".getBytes(), LocalDateTime.now().plusHours(1));
+        when(peticionIdempotenteRepository.reservar(eq("clave-1"), eq("huella"), any(LocalDateTime.class))).thenReturn(false);
+        when(peticionIdempotenteRepository.findByClave("clave-1")).thenReturn(guardada);
+
+        assertSame(guardada, idempotenciaService.iniciar("clave-1", "huella"));
+        // El segundo reintento se resuelve en memoria
+        assertSame(guardada, idempotenciaService.iniciar("clave-1", "huella"));
+        verify(peticionIdempotenteRepository, times(1)).findByClave("clave-1");
+    }
+
+    @Test
+    void iniciarClaveCaducadaSeReutilizaTest() {
+        PeticionIdempotente caducada = new PeticionIdempotente("clave-1", "otra", 201, "application/json",
+                "{}".getBytes(), LocalDateTime.now().minusMinutes(1));
+        when(peticionIdempotenteRepository.reservar(eq("clave-1"), eq("huella"), any(LocalDateTime.class)))
+                .thenReturn(false, true);
+        when(peticionIdempotenteRepository.findByClave("clave-1")).thenReturn(caducada);
+
+        assertNull(idempotenciaService.iniciar("clave-1", "huella"));
+        verify(peticionIdempotenteRepository).deleteCaducada(eq("clave-1"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void completarGuardaRespuestaConCaducidadTest() {
+        idempotenciaService.completar("clave-1", "huella", 400, "application/json", "{\"status\":400}".getBytes());
+
+        ArgumentCaptor<PeticionIdempotente> captor = ArgumentCaptor.forClass(PeticionIdempotente.class);
+        verify(peticionIdempotenteRepository).completar(captor.capture());
+        PeticionIdempotente guardada = captor.getValue();
+        assertEquals("clave-1", guardada.getClave());
+        assertEquals("huella", guardada.getHuella());
+        assertEquals(400, guardada.getCodigoEstado());
+        assertTrue(guardada.getExpiraEn().isAfter(LocalDateTime.now().plusHours(23)));
+    }
+
+    @Test
+    void memoriaAcotadaDescartaLaMenosUsadaTest() {
+        ReflectionTestUtils.setField(idempotenciaService, "capacidad", 2);
+        idempotenciaService.completar("clave-1", "huella", 201, null, new byte[0]);
+        idempotenciaService.completar("clave-2", "huella", 201, null, new byte[0]);
+        idempotenciaService.iniciar("clave-1", "huella");
+        idempotenciaService.completar("clave-3", "huella", 201, null, new byte[0]);
+
+        when(peticionIdempotenteRepository.reservar(eq("clave-2"), eq("huella"), any(LocalDateTime.class))).thenReturn(true);
+
+        assertNotNull(idempotenciaService.iniciar("clave-1", "huella"));
+        assertNull(idempotenciaService.iniciar("clave-2", "huella"));
+    }
+
+    @Test
+    void liberarTest() {
+        idempotenciaService.liberar("clave-1");
+
+        verify(peticionIdempotenteRepository).liberar("clave-1");
+    }
+
+    @Test
+    void purgarCaducadasTest() {
+        when(coordinacionService.adquirir("idempotencia.purga", 600_000)).thenReturn(true);
+
+        idempotenciaService.purgarCaducadas();
+
+        verify(peticionIdempotenteRepository).deleteCaducadas(any(LocalDateTime.class));
+    }
+
+    @Test
+    void purgarCaducadasEnOtraInstanciaTest() {
+        when(coordinacionService.adquirir("idempotencia.purga", 600_000)).thenReturn(false);
+
+        idempotenciaService.purgarCaducadas();
+
+        verify(peticionIdempotenteRepository, never()).deleteCaducadas(any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,269 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.EntradaListaEspera;
+import com.sompoble.cat.domain.EntradaListaEspera.EstadoEspera;
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.domain.Reserva;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.EntradaListaEsperaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ResourceNotFoundException;
+import com.sompoble.cat.repository.ListaEsperaRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CapacidadService;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.MetricasService;
+import com.sompoble.cat.service.ReminderService;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListaEsperaServiceImplTest {
+
+    @Mock
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Mock
+    private ReservaRepository reservaRepository;
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Mock
+    private ClientesUnicosService clientesUnicosService;
+
+    @Mock
+    private HistogramasService histogramasService;
+
+    @Mock
+    private ReminderService reminderService;
+
+    @Mock
+    private CapacidadService capacidadService;
+
+    @Mock
+    private DisponibilidadService disponibilidadService;
+
+    @Mock
+    private MetricasService metricasService;
+
+    @Mock
+    private BandejaSalidaService bandejaSalidaService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TaskExecutor despachadorExecutor;
+
+    @Mock
+    private CoordinacionService coordinacionService;
+
+    @InjectMocks
+    private ListaEsperaServiceImpl listaEsperaService;
+
+    private Cliente cliente;
+
+    private Servicio servicio;
+
+    private LocalDate manana;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        ReflectionTestUtils.setField(cliente, "idPersona", 5L);
+        cliente.setDni("12345678A");
+        cliente.setNombre("Juan");
+
+        Empresa empresa = new Empresa();
+        empresa.setNombre("Empresa S.A.");
+
+        servicio = new Servicio();
+        servicio.setIdServicio(1L);
+        servicio.setNombre("Servicio de prueba");
+        servicio.setLimiteReservas(2);
+        servicio.setPrecio(20);
+        servicio.setEmpresa(empresa);
+
+        manana = LocalDate.now().plusDays(1);
+    }
+
+    @Test
+    void apuntarTest() {
+        when(listaEsperaRepository.existsEnEspera(5L, 1L, manana)).thenReturn(false);
+        doAnswer(inv -> {
+            inv.<EntradaListaEspera>getArgument(0).setIdEntrada(7L);
+            return null;
+        }).when(listaEsperaRepository).save(any(EntradaListaEspera.class));
+        when(listaEsperaRepository.posicion(any(EntradaListaEspera.class))).thenReturn(3L);
+
+        EntradaListaEsperaDTO entrada = listaEsperaService.apuntar(cliente, servicio, manana, LocalTime.of(10, 0));
+
+        assertEquals(7L, entrada.getIdEntrada());
+        assertEquals(3L, entrada.getPosicion());
+        assertEquals("EN_ESPERA", entrada.getEstado());
+        assertEquals("10:00", entrada.getHora());
+        // Sin transacción activa la promoción se lanza inmediatamente
+        verify(despachadorExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void apuntarYaEnEsperaTest() {
+        when(listaEsperaRepository.existsEnEspera(5L, 1L, manana)).thenReturn(true);
+
+        assertThrows(BadRequestException.class,
+                () -> listaEsperaService.apuntar(cliente, servicio, manana, LocalTime.of(10, 0)));
+        verify(listaEsperaRepository, never()).save(any());
+    }
+
+    @Test
+    void apuntarFechaPasadaTest() {
+        assertThrows(BadRequestException.class,
+                () -> listaEsperaService.apuntar(cliente, servicio, LocalDate.now().minusDays(1), LocalTime.of(10, 0)));
+        verifyNoInteractions(listaEsperaRepository);
+    }
+
+    @Test
+    void promoverCreaReservaYAvisaTest() {
+        ejecutarTransacciones();
+        EntradaListaEspera entrada = entrada(7L);
+        when(listaEsperaRepository.bloquearPrimera(1L, manana)).thenReturn(entrada, (EntradaListaEspera) null);
+        when(capacidadService.ocuparPlaza(1L, manana, 2)).thenReturn(true);
+        doAnswer(inv -> {
+            inv.<Reserva>getArgument(0).setIdReserva(30L);
+            return null;
+        }).when(reservaRepository).addReserva(any(Reserva.class));
+
+        assertEquals(1, listaEsperaService.promover(1L, manana));
+
+        ArgumentCaptor<Reserva> reserva = ArgumentCaptor.forClass(Reserva.class);
+        verify(reservaRepository).addReserva(reserva.capture());
+        assertSame(cliente, reserva.getValue().getCliente());
+        assertEquals(LocalTime.of(10, 0), reserva.getValue().getHora());
+        assertEquals(ListaEsperaServiceImpl.ESTADO_RESERVA_PROMOVIDA, reserva.getValue().getEstado());
+        assertEquals(EstadoEspera.PROMOVIDA, entrada.getEstado());
+        assertEquals(30L, entrada.getIdReserva());
+        verify(disponibilidadService).invalidar(1L, manana);
+        verify(metricaDiariaRepository).acumular(1L, manana, 1, 2000);
+        assertEquals(2000L, reserva.getValue().getPrecioCentimos());
+        verify(clientesUnicosService).registrar(any(), eq(manana), eq(5L));
+        verify(histogramasService).registrar(1L, manana, LocalTime.of(10, 0), null, 1);
+        verify(reminderService).programarReserva(any(), eq(manana), eq(LocalTime.of(10, 0)), isNull());
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Reserva confirmada desde la lista de espera"),
+                contains("Servicio de prueba"), contains(manana.toString()), eq(Notificacion.TipoNotificacion.INFORMACION));
+    }
+
+    @Test
+    void promoverAtiendeEnOrdenMientrasHayPlazasTest() {
+        ejecutarTransacciones();
+        EntradaListaEspera primera = entrada(7L);
+        EntradaListaEspera segunda = entrada(8L);
+        EntradaListaEspera tercera = entrada(9L);
+        when(listaEsperaRepository.bloquearPrimera(1L, manana)).thenReturn(primera, segunda, tercera);
+        when(capacidadService.ocuparPlaza(1L, manana, 2)).thenReturn(true, true, false);
+
+        assertEquals(2, listaEsperaService.promover(1L, manana));
+
+        assertEquals(EstadoEspera.PROMOVIDA, primera.getEstado());
+        assertEquals(EstadoEspera.PROMOVIDA, segunda.getEstado());
+        assertEquals(EstadoEspera.EN_ESPERA, tercera.getEstado());
+        verify(reservaRepository, times(2)).addReserva(any(Reserva.class));
+    }
+
+    @Test
+    void promoverSinPlazaNoCreaReservaTest() {
+        ejecutarTransacciones();
+        EntradaListaEspera entrada = entrada(7L);
+        when(listaEsperaRepository.bloquearPrimera(1L, manana)).thenReturn(entrada);
+        when(capacidadService.ocuparPlaza(1L, manana, 2)).thenReturn(false);
+
+        assertEquals(0, listaEsperaService.promover(1L, manana));
+
+        assertEquals(EstadoEspera.EN_ESPERA, entrada.getEstado());
+        verify(reservaRepository, never()).addReserva(any());
+        verifyNoInteractions(bandejaSalidaService);
+    }
+
+    @Test
+    void promoverFechaPasadaTest() {
+        assertEquals(0, listaEsperaService.promover(1L, LocalDate.now().minusDays(1)));
+
+        verifyNoInteractions(transactionTemplate, listaEsperaRepository);
+    }
+
+    @Test
+    void plazaLiberadaPromueveTrasElCommitTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            listaEsperaService.plazaLiberada(1L, manana);
+
+            verifyNoInteractions(despachadorExecutor);
+            List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, sincronizaciones.size());
+            sincronizaciones.get(0).afterCommit();
+            verify(despachadorExecutor).execute(any(Runnable.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void promoverPendientesTest() {
+        when(coordinacionService.adquirir("lista-espera.barrido", 60_000)).thenReturn(true);
+        ejecutarTransacciones();
+        when(listaEsperaRepository.findFranjasEnEspera()).thenReturn(Map.of(1L, List.of(manana, manana.plusDays(1))));
+
+        listaEsperaService.promoverPendientes();
+
+        verify(listaEsperaRepository).caducarAnteriores(LocalDate.now());
+        verify(listaEsperaRepository).bloquearPrimera(1L, manana);
+        verify(listaEsperaRepository).bloquearPrimera(1L, manana.plusDays(1));
+    }
+
+    @Test
+    void cancelarNoEnEsperaTest() {
+        when(listaEsperaRepository.cancelar(7L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> listaEsperaService.cancelar(7L));
+    }
+
+    /**
+     * Hace que la plantilla de transacciones ejecute directamente cada
+     * promoción.
+     */
+    private void ejecutarTransacciones() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    private EntradaListaEspera entrada(Long idEntrada) {
+        EntradaListaEspera entrada = new EntradaListaEspera(cliente, servicio, manana, LocalTime.of(10, 0));
+        entrada.setIdEntrada(idEntrada);
+        return entrada;
+    }
+}
@@ -0,0 +1,147 @@
+package com.sompoble.cat.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sompoble.cat.dto.MetricaEmpresaDTO;
+import com.sompoble.cat.dto.PanelPlataformaDTO;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+
+/**
+ * Compara cómo escala el cálculo de las métricas de la plataforma con el
+ * número de empresas: una consulta por empresa, como al llamar al panel de
+ * cada empresa en un bucle, frente a una única pasada agrupada y a la pasada
+ * repartida en particiones paralelas.
+ * <p>
+ * El repositorio simula la latencia de la base de datos: un coste fijo por
+ * consulta y otro por empresa agrupada. Solo se ejecuta con
+ * {@code mvn test -Dtest=MetricasPlataformaBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MetricasPlataformaBenchmarkTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+
+    private static final LocalDate FIN = LocalDate.of(2024, 12, 31);
+
+    /**
+     * Coste simulado de ida y vuelta de una consulta.
+     */
+    private static final long IDA_Y_VUELTA_NS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    /**
+     * Coste simulado de agrupar los resúmenes de una empresa.
+     */
+    private static final long POR_EMPRESA_NS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private static final int HILOS = 4;
+
+    private static final int REPETICIONES = 3;
+
+    @Test
+    void escaladoConElNumeroDeEmpresasTest() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(HILOS);
+        executor.setMaxPoolSize(HILOS);
+        executor.initialize();
+        try {
+            System.out.printf("%10s %14s %14s %14s%n", "empresas", "bucle (ms)", "pasada (ms)", "paralelo (ms)");
+            for (int empresas : new int[]{50, 200, 1000, 5000}) {
+                MetricaDiariaRepository repositorio = repositorio(empresas);
+                MetricasPlataformaServiceImpl unaPasada = servicio(repositorio, executor, 1);
+                MetricasPlataformaServiceImpl paralelo = servicio(repositorio, executor, HILOS);
+
+                long bucle = medir(() -> bucle(repositorio, empresas));
+                long pasada = medir(() -> unaPasada.obtenerMetricasPlataforma(INICIO, FIN, 10));
+                long particiones = medir(() -> paralelo.obtenerMetricasPlataforma(INICIO, FIN, 10));
+                System.out.printf("%10d %14.1f %14.1f %14.1f%n", empresas,
+                        bucle / 1e6, pasada / 1e6, particiones / 1e6);
+
+                PanelPlataformaDTO esperado = unaPasada.obtenerMetricasPlataforma(INICIO, FIN, 10);
+                PanelPlataformaDTO obtenido = paralelo.obtenerMetricasPlataforma(INICIO, FIN, 10);
+                assertEquals(empresas, obtenido.getEmpresas());
+                assertEquals(esperado.getTotalIngresos(), obtenido.getTotalIngresos());
+                assertEquals(ids(esperado.getTopIngresos()), ids(obtenido.getTopIngresos()));
+                assertEquals(ids(esperado.getTopReservas()), ids(obtenido.getTopReservas()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Una consulta por empresa, como hace el panel de cada empresa.
+     */
+    private static long bucle(MetricaDiariaRepository repositorio, int empresas) {
+        long reservas = 0;
+        for (long id = 1; id <= empresas; id++) {
+            for (MetricaEmpresaDTO metrica : repositorio.obtenerMetricasPorEmpresa(id, id, INICIO, FIN)) {
+                reservas += metrica.getReservas();
+            }
+        }
+        return reservas;
+    }
+
+    /**
+     * Mide el mejor tiempo de varias repeticiones, en nanosegundos.
+     */
+    private static long medir(Runnable tarea) {
+        tarea.run();
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            tarea.run();
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return mejor;
+    }
+
+    private static MetricasPlataformaServiceImpl servicio(MetricaDiariaRepository repositorio,
+            ThreadPoolTaskExecutor executor, int particiones) {
+        MetricasPlataformaServiceImpl servicio = new MetricasPlataformaServiceImpl();
+        ReflectionTestUtils.setField(servicio, "metricaDiariaRepository", repositorio);
+        ReflectionTestUtils.setField(servicio, "metricasPlataformaExecutor", executor);
+        ReflectionTestUtils.setField(servicio, "particiones", particiones);
+        return servicio;
+    }
+
+    /**
+     * Repositorio con empresas de identificadores 1..n cuyas consultas
+     * esperan el coste simulado.
+     */
+    private static MetricaDiariaRepository repositorio(int empresas) {
+        LongFunction<MetricaEmpresaDTO> metrica = id -> new MetricaEmpresaDTO(id, "B" + id, "Empresa " + id,
+                (id * 7919) % 1000 + 1, (id * 104729) % 1_000_000 + 1);
+        MetricaDiariaRepository repositorio = Mockito.mock(MetricaDiariaRepository.class);
+        Mockito.when(repositorio.obtenerRangoEmpresas()).thenReturn(new long[]{1L, empresas});
+        Mockito.when(repositorio.obtenerMetricasPorEmpresa(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(),
+                Mockito.any())).thenAnswer(inv -> {
+                    long desde = inv.getArgument(0);
+                    long hasta = inv.getArgument(1);
+                    LockSupport.parkNanos(IDA_Y_VUELTA_NS + (hasta - desde + 1) * POR_EMPRESA_NS);
+                    List<MetricaEmpresaDTO> filas = new ArrayList<>();
+                    for (long id = desde; id <= hasta; id++) {
+                        filas.add(metrica.apply(id));
+                    }
+                    return filas;
+                });
+        return repositorio;
+    }
+
+    private static List<Long> ids(List<MetricaEmpresaDTO> metricas) {
+        return metricas.stream().map(MetricaEmpresaDTO::getIdEmpresa).toList();
+    }
+}
@@ -0,0 +1,137 @@
+package com.sompoble.cat.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.sompoble.cat.dto.MetricaEmpresaDTO;
+import com.sompoble.cat.dto.PanelPlataformaDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MetricasPlataformaServiceImplTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+
+    private static final LocalDate FIN = LocalDate.of(2024, 12, 31);
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @InjectMocks
+    private MetricasPlataformaServiceImpl metricasPlataformaService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(metricasPlataformaService, "metricasPlataformaExecutor", new SyncTaskExecutor());
+    }
+
+    @Test
+    void unaParticionEsUnaSolaConsultaTest() {
+        ReflectionTestUtils.setField(metricasPlataformaService, "particiones", 1);
+        when(metricaDiariaRepository.obtenerRangoEmpresas()).thenReturn(new long[]{1L, 4L});
+        when(metricaDiariaRepository.obtenerMetricasPorEmpresa(1L, 4L, INICIO, FIN)).thenReturn(List.of(
+                metrica(1L, 10L, 50000L),
+                metrica(2L, 30L, 30000L),
+                metrica(3L, 20L, 90000L),
+                metrica(4L, 5L, 1L)));
+
+        PanelPlataformaDTO panel = metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 2);
+
+        assertEquals(4, panel.getEmpresas());
+        assertEquals(65L, panel.getTotalReservas());
+        assertEquals(new BigDecimal("1700.01"), panel.getTotalIngresos());
+        assertEquals(List.of(3L, 1L), ids(panel.getTopIngresos()));
+        assertEquals(List.of(2L, 3L), ids(panel.getTopReservas()));
+        verify(metricaDiariaRepository, times(1)).obtenerMetricasPorEmpresa(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void particionesCubrenElRangoSinSolaparseTest() {
+        ReflectionTestUtils.setField(metricasPlataformaService, "particiones", 3);
+        when(metricaDiariaRepository.obtenerRangoEmpresas()).thenReturn(new long[]{1L, 10L});
+        when(metricaDiariaRepository.obtenerMetricasPorEmpresa(anyLong(), anyLong(), eq(INICIO), eq(FIN)))
+                .thenAnswer(inv -> List.of(metrica(inv.getArgument(0), 1L, 100L)));
+
+        PanelPlataformaDTO panel = metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 10);
+
+        verify(metricaDiariaRepository).obtenerMetricasPorEmpresa(1L, 4L, INICIO, FIN);
+        verify(metricaDiariaRepository).obtenerMetricasPorEmpresa(5L, 8L, INICIO, FIN);
+        verify(metricaDiariaRepository).obtenerMetricasPorEmpresa(9L, 10L, INICIO, FIN);
+        assertEquals(3, panel.getEmpresas());
+        assertEquals(new BigDecimal("3.00"), panel.getTotalIngresos());
+    }
+
+    @Test
+    void empateSeResuelvePorIdentificadorTest() {
+        ReflectionTestUtils.setField(metricasPlataformaService, "particiones", 1);
+        when(metricaDiariaRepository.obtenerRangoEmpresas()).thenReturn(new long[]{1L, 3L});
+        when(metricaDiariaRepository.obtenerMetricasPorEmpresa(1L, 3L, INICIO, FIN)).thenReturn(List.of(
+                metrica(3L, 2L, 1000L),
+                metrica(1L, 2L, 1000L),
+                metrica(2L, 2L, 1000L)));
+
+        PanelPlataformaDTO panel = metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 2);
+
+        assertEquals(List.of(1L, 2L), ids(panel.getTopIngresos()));
+        assertEquals(List.of(1L, 2L), ids(panel.getTopReservas()));
+    }
+
+    @Test
+    void sinResumenesDevuelvePanelVacioTest() {
+        when(metricaDiariaRepository.obtenerRangoEmpresas()).thenReturn(new long[0]);
+
+        PanelPlataformaDTO panel = metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, null);
+
+        assertEquals(0, panel.getEmpresas());
+        assertEquals(new BigDecimal("0.00"), panel.getTotalIngresos());
+        assertTrue(panel.getTopIngresos().isEmpty());
+        verify(metricaDiariaRepository, never()).obtenerMetricasPorEmpresa(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    void parametrosInvalidosTest() {
+        assertThrows(BadRequestException.class,
+                () -> metricasPlataformaService.obtenerMetricasPlataforma(FIN, INICIO, 10));
+        assertThrows(BadRequestException.class,
+                () -> metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 0));
+        assertThrows(BadRequestException.class,
+                () -> metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 101));
+        verifyNoInteractions(metricaDiariaRepository);
+    }
+
+    @Test
+    void errorEnUnaParticionSePropagaTest() {
+        ReflectionTestUtils.setField(metricasPlataformaService, "particiones", 2);
+        when(metricaDiariaRepository.obtenerRangoEmpresas()).thenReturn(new long[]{1L, 2L});
+        when(metricaDiariaRepository.obtenerMetricasPorEmpresa(anyLong(), anyLong(), any(), any()))
+                .thenThrow(new IllegalStateException("conexión perdida"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> metricasPlataformaService.obtenerMetricasPlataforma(INICIO, FIN, 10));
+        assertEquals("conexión perdida", e.getMessage());
+    }
+
+    private static MetricaEmpresaDTO metrica(Long idEmpresa, Long reservas, Long ingresosCentimos) {
+        return new MetricaEmpresaDTO(idEmpresa, "B" + idEmpresa, "Empresa " + idEmpresa, reservas, ingresosCentimos);
+    }
+
+    private static List<Long> ids(List<MetricaEmpresaDTO> metricas) {
+        return metricas.stream().map(MetricaEmpresaDTO::getIdEmpresa).collect(Collectors.toList());
+    }
+}
@@ -7,6 +7,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,13 +15,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.EstadisticasCacheDTO;
+import com.sompoble.cat.dto.MetricaServicioMesDTO;
 import com.sompoble.cat.dto.PanelMetricasDTO;
 import com.sompoble.cat.dto.PanelMetricasDTO.MetricasMensualesDTO;
+import com.sompoble.cat.dto.PanelMetricasDTO.ServicioResumenDTO;
 import com.sompoble.cat.repository.EmpresaRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
 import com.sompoble.cat.repository.ReservaRepository;
 import com.sompoble.cat.repository.ServicioRepository;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.service.HistogramasService;
 
 @ExtendWith(MockitoExtension.class)
 class MetricasServiceImplTest {
@@ -34,13 +46,28 @@ class MetricasServiceImplTest {
     @Mock
     private ServicioRepository servicioRepository;
 
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ClientesUnicosService clientesUnicosService;
+
+    @Mock
+    private HistogramasService histogramasService;
+
+    @Mock
+    private CoordinacionService coordinacionService;
+
     @InjectMocks
     private MetricasServiceImpl metricasService;
 
     private Empresa empresa;
     private LocalDate fechaInicio;
     private LocalDate fechaFin;
-    private List<MetricasMensualesDTO> metricasMensuales;
+    private List<MetricaServicioMesDTO> filas;
 
     @BeforeEach
     void setUp() {
@@ -54,20 +81,45 @@ class MetricasServiceImplTest {
         fechaInicio = LocalDate.of(2023, 1, 1);
         fechaFin = LocalDate.of(2023, 12, 31);
 
-        // Crear datos de métricas mensuales de ejemplo
-        MetricasMensualesDTO enero = new MetricasMensualesDTO("January", 10L, new BigDecimal("1000.00"));
-        MetricasMensualesDTO febrero = new MetricasMensualesDTO("February", 15L, new BigDecimal("1500.00"));
-        metricasMensuales = Arrays.asList(enero, febrero);
+        // Crear datos de métricas por servicio y mes de ejemplo
+        filas = Arrays.asList(
+                new MetricaServicioMesDTO(1L, "Corte", 1, 6L, 60000L),
+                new MetricaServicioMesDTO(2L, "Tinte", 1, 4L, 40000L),
+                new MetricaServicioMesDTO(1L, "Corte", 2, 15L, 150000L));
+    }
+
+    /**
+     * Comprueba el desglose mensual y por servicio que resulta de las filas
+     * de ejemplo.
+     */
+    private void assertDesgloses(PanelMetricasDTO resultado) {
+        List<MetricasMensualesDTO> mensual = resultado.getMensual();
+        assertEquals(2, mensual.size());
+        assertEquals("January", mensual.get(0).getMes());
+        assertEquals(10L, mensual.get(0).getReservas());
+        assertEquals(new BigDecimal("1000.00"), mensual.get(0).getIngresos());
+        assertEquals("February", mensual.get(1).getMes());
+        assertEquals(15L, mensual.get(1).getReservas());
+        assertEquals(new BigDecimal("1500.00"), mensual.get(1).getIngresos());
+
+        List<ServicioResumenDTO> servicios = resultado.getServicios();
+        assertEquals(2, servicios.size());
+        assertEquals(1L, servicios.get(0).getIdServicio());
+        assertEquals("Corte", servicios.get(0).getNombre());
+        assertEquals(21L, servicios.get(0).getReservas());
+        assertEquals(new BigDecimal("2100.00"), servicios.get(0).getIngresos());
+        assertEquals(2L, servicios.get(1).getIdServicio());
+        assertEquals("Tinte", servicios.get(1).getNombre());
+        assertEquals(4L, servicios.get(1).getReservas());
+        assertEquals(new BigDecimal("400.00"), servicios.get(1).getIngresos());
     }
 
     @Test
     void testObtenerMetricas_ConFechasProporcionadas() {
         // Configurar los mocks
         when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
-        when(reservaRepository.contarReservasPorEmpresaYFechas(1L, fechaInicio, fechaFin)).thenReturn(25L);
-        when(reservaRepository.sumarIngresosPorEmpresaYFechas(1L, fechaInicio, fechaFin)).thenReturn(2500.0);
-        when(reservaRepository.contarClientesUnicos(1L, fechaInicio, fechaFin)).thenReturn(15);
-        when(reservaRepository.obtenerMetricasMensuales(1L, fechaInicio, fechaFin)).thenReturn(metricasMensuales);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(filas);
 
         // Ejecutar el método a probar
         PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
@@ -78,14 +130,12 @@ class MetricasServiceImplTest {
         assertEquals(25L, resultado.getTotalReservas());
         assertEquals(2500.0, resultado.getTotalIngresos());
         assertEquals(15, resultado.getClientesUnicos());
-        assertEquals(metricasMensuales, resultado.getMensual());
+        assertDesgloses(resultado);
         
         // Verificar que se llamaron los métodos correctos
         verify(empresaRepository).findByIdentificadorFiscalFull("A12345678");
-        verify(reservaRepository).contarReservasPorEmpresaYFechas(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).sumarIngresosPorEmpresaYFechas(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).contarClientesUnicos(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).obtenerMetricasMensuales(1L, fechaInicio, fechaFin);
+        verify(clientesUnicosService).estimar(1L, fechaInicio, fechaFin);
+        verify(metricaDiariaRepository).obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin);
     }
 
     @Test
@@ -96,10 +146,8 @@ class MetricasServiceImplTest {
         
         // Configurar los mocks
         when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
-        when(reservaRepository.contarReservasPorEmpresaYFechas(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(25L);
-        when(reservaRepository.sumarIngresosPorEmpresaYFechas(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(2500.0);
-        when(reservaRepository.contarClientesUnicos(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(15);
-        when(reservaRepository.obtenerMetricasMensuales(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(metricasMensuales);
+        when(clientesUnicosService.estimar(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), any(LocalDate.class))).thenReturn(filas);
 
         // Ejecutar el método a probar
         PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", null, null);
@@ -110,14 +158,12 @@ class MetricasServiceImplTest {
         assertEquals(25L, resultado.getTotalReservas());
         assertEquals(2500.0, resultado.getTotalIngresos());
         assertEquals(15, resultado.getClientesUnicos());
-        assertEquals(metricasMensuales, resultado.getMensual());
+        assertDesgloses(resultado);
         
         // Verificar que se llamaron los métodos correctos con las fechas adecuadas
         verify(empresaRepository).findByIdentificadorFiscalFull("A12345678");
-        verify(reservaRepository).contarReservasPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(ahora));
-        verify(reservaRepository).sumarIngresosPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(ahora));
-        verify(reservaRepository).contarClientesUnicos(eq(1L), any(LocalDate.class), eq(ahora));
-        verify(reservaRepository).obtenerMetricasMensuales(eq(1L), any(LocalDate.class), eq(ahora));
+        verify(clientesUnicosService).estimar(eq(1L), any(LocalDate.class), eq(ahora));
+        verify(metricaDiariaRepository).obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), eq(ahora));
     }
 
     @Test
@@ -137,10 +183,8 @@ class MetricasServiceImplTest {
         verify(empresaRepository).findByIdentificadorFiscalFull("B87654321");
         
         // Verificar que no se llamaron los otros métodos
-        verify(reservaRepository, never()).contarReservasPorEmpresaYFechas(anyLong(), any(LocalDate.class), any(LocalDate.class));
-        verify(reservaRepository, never()).sumarIngresosPorEmpresaYFechas(anyLong(), any(LocalDate.class), any(LocalDate.class));
-        verify(reservaRepository, never()).contarClientesUnicos(anyLong(), any(LocalDate.class), any(LocalDate.class));
-        verify(reservaRepository, never()).obtenerMetricasMensuales(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(clientesUnicosService, never()).estimar(anyLong(), any(LocalDate.class), any(LocalDate.class));
+        verify(metricaDiariaRepository, never()).obtenerMetricasPorServicioYMes(anyLong(), any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -150,10 +194,8 @@ class MetricasServiceImplTest {
         
         // Configurar los mocks
         when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
-        when(reservaRepository.contarReservasPorEmpresaYFechas(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(25L);
-        when(reservaRepository.sumarIngresosPorEmpresaYFechas(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(2500.0);
-        when(reservaRepository.contarClientesUnicos(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(15);
-        when(reservaRepository.obtenerMetricasMensuales(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(metricasMensuales);
+        when(clientesUnicosService.estimar(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(eq(1L), eq(fechaInicio), any(LocalDate.class))).thenReturn(filas);
 
         // Ejecutar el método a probar
         PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", fechaInicio, null);
@@ -164,14 +206,12 @@ class MetricasServiceImplTest {
         assertEquals(25L, resultado.getTotalReservas());
         assertEquals(2500.0, resultado.getTotalIngresos());
         assertEquals(15, resultado.getClientesUnicos());
-        assertEquals(metricasMensuales, resultado.getMensual());
+        assertDesgloses(resultado);
         
         // Verificar que se llamaron los métodos correctos con las fechas adecuadas
         verify(empresaRepository).findByIdentificadorFiscalFull("A12345678");
-        verify(reservaRepository).contarReservasPorEmpresaYFechas(eq(1L), eq(fechaInicio), eq(ahora));
-        verify(reservaRepository).sumarIngresosPorEmpresaYFechas(eq(1L), eq(fechaInicio), eq(ahora));
-        verify(reservaRepository).contarClientesUnicos(eq(1L), eq(fechaInicio), eq(ahora));
-        verify(reservaRepository).obtenerMetricasMensuales(eq(1L), eq(fechaInicio), eq(ahora));
+        verify(clientesUnicosService).estimar(eq(1L), eq(fechaInicio), eq(ahora));
+        verify(metricaDiariaRepository).obtenerMetricasPorServicioYMes(eq(1L), eq(fechaInicio), eq(ahora));
     }
 
     @Test
@@ -180,12 +220,11 @@ class MetricasServiceImplTest {
         LocalDate ahora = LocalDate.now();
         LocalDate seisMesesAtras = ahora.minusMonths(6);
         
-        // Configurar los mocks
+        // Configurar los mocks; el rango queda invertido y es corto, así que
+        // los clientes se cuentan de forma exacta
         when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
-        when(reservaRepository.contarReservasPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(fechaFin))).thenReturn(25L);
-        when(reservaRepository.sumarIngresosPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(fechaFin))).thenReturn(2500.0);
         when(reservaRepository.contarClientesUnicos(eq(1L), any(LocalDate.class), eq(fechaFin))).thenReturn(15);
-        when(reservaRepository.obtenerMetricasMensuales(eq(1L), any(LocalDate.class), eq(fechaFin))).thenReturn(metricasMensuales);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), eq(fechaFin))).thenReturn(filas);
 
         // Ejecutar el método a probar
         PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", null, fechaFin);
@@ -196,41 +235,233 @@ class MetricasServiceImplTest {
         assertEquals(25L, resultado.getTotalReservas());
         assertEquals(2500.0, resultado.getTotalIngresos());
         assertEquals(15, resultado.getClientesUnicos());
-        assertEquals(metricasMensuales, resultado.getMensual());
+        assertDesgloses(resultado);
         
         // Verificar que se llamaron los métodos correctos con las fechas adecuadas
         verify(empresaRepository).findByIdentificadorFiscalFull("A12345678");
-        verify(reservaRepository).contarReservasPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(fechaFin));
-        verify(reservaRepository).sumarIngresosPorEmpresaYFechas(eq(1L), any(LocalDate.class), eq(fechaFin));
         verify(reservaRepository).contarClientesUnicos(eq(1L), any(LocalDate.class), eq(fechaFin));
-        verify(reservaRepository).obtenerMetricasMensuales(eq(1L), any(LocalDate.class), eq(fechaFin));
+        verify(metricaDiariaRepository).obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), eq(fechaFin));
     }
 
     @Test
-    void testObtenerMetricas_SinIngresos() {
-        // Configurar los mocks con ingresos nulos
+    void testObtenerMetricas_SinReservas() {
+        // Sin resúmenes en el rango, los totales son cero
         when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
-        when(reservaRepository.contarReservasPorEmpresaYFechas(1L, fechaInicio, fechaFin)).thenReturn(25L);
-        when(reservaRepository.sumarIngresosPorEmpresaYFechas(1L, fechaInicio, fechaFin)).thenReturn(null);
-        when(reservaRepository.contarClientesUnicos(1L, fechaInicio, fechaFin)).thenReturn(15);
-        when(reservaRepository.obtenerMetricasMensuales(1L, fechaInicio, fechaFin)).thenReturn(metricasMensuales);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(0);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(List.of());
 
         // Ejecutar el método a probar
         PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
 
-        // Verificar resultado, especialmente que los ingresos son 0 cuando se devuelve null
+        // Verificar resultado
         assertNotNull(resultado);
-        assertEquals("Empresa Test", resultado.getNombreEmpresa());
-        assertEquals(25L, resultado.getTotalReservas());
+        assertEquals(0L, resultado.getTotalReservas());
         assertEquals(0.0, resultado.getTotalIngresos());
-        assertEquals(15, resultado.getClientesUnicos());
-        assertEquals(metricasMensuales, resultado.getMensual());
-        
-        // Verificar que se llamaron los métodos correctos
-        verify(empresaRepository).findByIdentificadorFiscalFull("A12345678");
-        verify(reservaRepository).contarReservasPorEmpresaYFechas(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).sumarIngresosPorEmpresaYFechas(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).contarClientesUnicos(1L, fechaInicio, fechaFin);
-        verify(reservaRepository).obtenerMetricasMensuales(1L, fechaInicio, fechaFin);
+        assertEquals(0, resultado.getClientesUnicos());
+        assertTrue(resultado.getMensual().isEmpty());
+        assertTrue(resultado.getServicios().isEmpty());
+    }
+
+    @Test
+    void testObtenerMetricas_IngresosExactosEnCentimos() {
+        // Sumar 0.10 tres veces en coma flotante no da 0.30
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(3);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(List.of(
+                new MetricaServicioMesDTO(3L, "Consulta", 3, 1L, 10L),
+                new MetricaServicioMesDTO(3L, "Consulta", 4, 1L, 10L),
+                new MetricaServicioMesDTO(3L, "Consulta", 5, 1L, 10L)));
+
+        PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        assertEquals(0.30, resultado.getTotalIngresos());
+        assertEquals(new BigDecimal("0.30"), resultado.getServicios().get(0).getIngresos());
+        assertEquals(3L, resultado.getServicios().get(0).getReservas());
+    }
+
+    @Test
+    void testObtenerMetricas_RangoCortoClientesExactos() {
+        LocalDate inicioMes = LocalDate.of(2023, 3, 1);
+        LocalDate finMes = LocalDate.of(2023, 3, 31);
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(reservaRepository.contarClientesUnicos(1L, inicioMes, finMes)).thenReturn(7);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, inicioMes, finMes)).thenReturn(List.of());
+
+        PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", inicioMes, finMes);
+
+        assertEquals(7, resultado.getClientesUnicos());
+        verifyNoInteractions(clientesUnicosService);
+    }
+
+    @Test
+    void testReconciliar_SoloDiasPendientesUnaTransaccionPorDia() {
+        ReflectionTestUtils.setField(metricasService, "loteReconciliacion", 2);
+        when(coordinacionService.adquirir("metricas.reconciliacion", 3_600_000)).thenReturn(true);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        LocalDate dia1 = LocalDate.of(2024, 1, 10);
+        LocalDate dia2 = LocalDate.of(2024, 2, 3);
+        LocalDate dia3 = LocalDate.of(2024, 2, 20);
+        when(metricaDiariaRepository.findPendientes(null, 2)).thenReturn(List.of(dia1, dia2));
+        when(metricaDiariaRepository.findPendientes(dia2, 2)).thenReturn(List.of(dia3));
+        doThrow(new RuntimeException("Bloqueo")).when(metricaDiariaRepository).reconciliar(dia1, dia1);
+
+        metricasService.reconciliar();
+
+        // El fallo de un día no impide reconciliar los siguientes
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        for (LocalDate dia : List.of(dia2, dia3)) {
+            verify(metricaDiariaRepository).retirarPendiente(dia);
+            verify(metricaDiariaRepository).reconciliar(dia, dia);
+            verify(clientesUnicosService).reconstruir(dia, dia);
+            verify(histogramasService).reconstruir(dia, dia);
+        }
+        verify(clientesUnicosService, never()).reconstruir(dia1, dia1);
+    }
+
+    @Test
+    void testReconciliar_SoloInvalidaLosPanelesDeDiasReconciliados() {
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        LocalDate enero = LocalDate.of(2024, 1, 1);
+        LocalDate febrero = LocalDate.of(2024, 2, 1);
+        metricasService.obtenerMetricas("A12345678", enero, enero.plusDays(10));
+        metricasService.obtenerMetricas("A12345678", febrero, febrero.plusDays(10));
+        when(coordinacionService.adquirir("metricas.reconciliacion", 3_600_000)).thenReturn(true);
+        when(metricaDiariaRepository.findPendientes(null, 500)).thenReturn(List.of(LocalDate.of(2024, 2, 5)));
+
+        metricasService.reconciliar();
+
+        assertEquals(1, metricasService.estadisticasCache().getPaneles().getInvalidadas());
+        assertEquals(1, metricasService.estadisticasCache().getPaneles().getEntradas());
+    }
+
+    @Test
+    void testReconciliar_LaHaceOtraInstancia() {
+        when(coordinacionService.adquirir("metricas.reconciliacion", 3_600_000)).thenReturn(false);
+
+        metricasService.reconciliar();
+
+        verifyNoInteractions(metricaDiariaRepository, transactionTemplate);
+    }
+
+    @Test
+    void testObtenerMetricas_SegundaConsultaDesdeCache() {
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(filas);
+
+        PanelMetricasDTO primero = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        PanelMetricasDTO segundo = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        assertSame(primero, segundo);
+        verify(empresaRepository, times(1)).findByIdentificadorFiscalFull("A12345678");
+        verify(metricaDiariaRepository, times(1)).obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin);
+        EstadisticasCacheDTO estadisticas = metricasService.estadisticasCache();
+        assertEquals(1, estadisticas.getPaneles().getAciertos());
+        assertEquals(1, estadisticas.getPaneles().getFallos());
+        assertEquals(1, estadisticas.getEmpresas().getAciertos());
+        assertEquals(1, estadisticas.getPaneles().getEntradas());
+    }
+
+    @Test
+    void testInvalidar_SoloPanelesQueIncluyenLaFecha() {
+        LocalDate inicioMarzo = LocalDate.of(2023, 3, 1);
+        LocalDate finMarzo = LocalDate.of(2023, 3, 31);
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(reservaRepository.contarClientesUnicos(1L, inicioMarzo, finMarzo)).thenReturn(3);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(filas);
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        metricasService.obtenerMetricas("A12345678", inicioMarzo, finMarzo);
+
+        // Una reserva de julio del servicio 1, cuya empresa ya se conoce por
+        // las filas del panel, solo afecta al panel del año
+        metricasService.invalidar(1L, LocalDate.of(2023, 7, 10));
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        metricasService.obtenerMetricas("A12345678", inicioMarzo, finMarzo);
+
+        verify(metricaDiariaRepository, times(2)).obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin);
+        verify(metricaDiariaRepository, times(1)).obtenerMetricasPorServicioYMes(1L, inicioMarzo, finMarzo);
+        verifyNoInteractions(servicioRepository);
+        assertEquals(1, metricasService.estadisticasCache().getPaneles().getInvalidadas());
+    }
+
+    @Test
+    void testInvalidar_VersionesAcotadasPorEmpresa() {
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        for (long idEmpresa = 1; idEmpresa <= 10_000; idEmpresa++) {
+            metricasService.invalidarEmpresa(idEmpresa);
+        }
+
+        PanelMetricasDTO primero = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        PanelMetricasDTO segundo = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        assertSame(primero, segundo);
+        assertEquals(MetricasServiceImpl.VERSIONES,
+                ((long[]) ReflectionTestUtils.getField(metricasService, "versiones")).length);
+    }
+
+    @Test
+    void testInvalidarServicio_ServicioNuevoSeResuelveUnaVez() {
+        Servicio servicio = new Servicio();
+        servicio.setIdServicio(9L);
+        servicio.setEmpresa(empresa);
+        when(servicioRepository.findById(9L)).thenReturn(servicio);
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(filas);
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        metricasService.invalidar(9L, LocalDate.of(2023, 2, 1));
+        metricasService.invalidar(9L, LocalDate.of(2023, 2, 2));
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        verify(servicioRepository, times(1)).findById(9L);
+        verify(metricaDiariaRepository, times(2)).obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin);
+    }
+
+    @Test
+    void testInvalidarEmpresa_VuelveAResolverLaEmpresa() {
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin)).thenReturn(filas);
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        empresa.setNombre("Empresa Renombrada");
+        metricasService.invalidarEmpresa(1L);
+        PanelMetricasDTO resultado = metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+
+        assertEquals("Empresa Renombrada", resultado.getNombreEmpresa());
+        verify(empresaRepository, times(2)).findByIdentificadorFiscalFull("A12345678");
+        assertEquals(1, metricasService.estadisticasCache().getEmpresas().getInvalidadas());
+    }
+
+    @Test
+    void testCache_CapacidadYCaducidad() {
+        ReflectionTestUtils.setField(metricasService, "capacidadCache", 1);
+        LocalDate inicioMarzo = LocalDate.of(2023, 3, 1);
+        LocalDate finMarzo = LocalDate.of(2023, 3, 31);
+        when(empresaRepository.findByIdentificadorFiscalFull("A12345678")).thenReturn(empresa);
+        when(clientesUnicosService.estimar(1L, fechaInicio, fechaFin)).thenReturn(15);
+        when(reservaRepository.contarClientesUnicos(1L, inicioMarzo, finMarzo)).thenReturn(3);
+        when(metricaDiariaRepository.obtenerMetricasPorServicioYMes(eq(1L), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of());
+
+        // Con una sola entrada por nivel, el segundo panel desaloja al primero
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        metricasService.obtenerMetricas("A12345678", inicioMarzo, finMarzo);
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        assertEquals(2, metricasService.estadisticasCache().getPaneles().getDesalojos());
+
+        // Sin tiempo de vida, ninguna entrada se sirve desde la caché
+        ReflectionTestUtils.setField(metricasService, "ttlCacheSegundos", 0L);
+        metricasService.obtenerMetricas("A12345678", fechaInicio, fechaFin);
+        EstadisticasCacheDTO.NivelDTO paneles = metricasService.estadisticasCache().getPaneles();
+        assertEquals(0, paneles.getAciertos());
+        assertEquals(1, paneles.getCaducadas());
+        verify(metricaDiariaRepository, times(3)).obtenerMetricasPorServicioYMes(1L, fechaInicio, fechaFin);
     }
-}
\ No newline at end of file
+}
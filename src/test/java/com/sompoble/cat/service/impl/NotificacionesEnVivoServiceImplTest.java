@@ -0,0 +1,174 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.Notificacion;
+import com.sompoble.cat.domain.Notificacion.TipoNotificacion;
+import com.sompoble.cat.dto.NotificacionDTO;
+import com.sompoble.cat.repository.NotificacionRepository;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificacionesEnVivoServiceImplTest {
+
+    @Mock
+    private NotificacionRepository notificacionRepository;
+
+    @Mock
+    private TaskExecutor executor;
+
+    @Mock
+    private SseEmitter emisor;
+
+    @Mock
+    private SseEmitter otroEmisor;
+
+    @InjectMocks
+    private NotificacionesEnVivoServiceImpl notificacionesEnVivoService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocacion -> {
+            ((Runnable) invocacion.getArgument(0)).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        notificacionesEnVivoService = spy(notificacionesEnVivoService);
+        lenient().doReturn(emisor, otroEmisor).when(notificacionesEnVivoService).crearEmisor();
+    }
+
+    @Test
+    void publicarEnviaSoloALasConexionesDelClienteTest() throws IOException {
+        notificacionesEnVivoService.suscribir("11111111A", null);
+        notificacionesEnVivoService.suscribir("22222222B", null);
+
+        notificacionesEnVivoService.publicar(notificacion(7L, "11111111A"));
+
+        assertEquals(List.of(7L), enviadas(emisor));
+        assertEquals(List.of(), enviadas(otroEmisor));
+        assertEquals(2, notificacionesEnVivoService.getSuscripciones());
+    }
+
+    @Test
+    void publicarEnUnaTransaccionEsperaALaConfirmacionTest() throws IOException {
+        notificacionesEnVivoService.suscribir("11111111A", null);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            notificacionesEnVivoService.publicar(notificacion(7L, "11111111A"));
+            assertEquals(List.of(), enviadas(emisor));
+
+            for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+                sincronizacion.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(7L), enviadas(emisor));
+    }
+
+    @Test
+    void reanudarEnviaLasPosterioresSinRepetirlasTest() throws IOException {
+        when(notificacionRepository.findByClienteDniDespuesDe("11111111A", 40L, 200))
+                .thenReturn(List.of(dto(41L, "11111111A"), dto(42L, "11111111A")));
+
+        notificacionesEnVivoService.suscribir("11111111A", 40L);
+        notificacionesEnVivoService.publicar(notificacion(42L, "11111111A"));
+        notificacionesEnVivoService.publicar(notificacion(43L, "11111111A"));
+
+        assertEquals(List.of(41L, 42L, 43L), enviadas(emisor));
+    }
+
+    @Test
+    void colaLlenaCierraLaConexionTest() throws IOException {
+        ReflectionTestUtils.setField(notificacionesEnVivoService, "capacidadBuffer", 1);
+        doNothing().when(executor).execute(any(Runnable.class));
+        notificacionesEnVivoService.suscribir("11111111A", null);
+
+        notificacionesEnVivoService.publicar(notificacion(7L, "11111111A"));
+        notificacionesEnVivoService.publicar(notificacion(8L, "11111111A"));
+
+        verify(emisor).complete();
+        assertEquals(0, notificacionesEnVivoService.getSuscripciones());
+    }
+
+    @Test
+    void conexionCortadaSeEliminaAlEnviarElLatidoTest() throws IOException {
+        doNothing().doThrow(new IOException("Broken pipe"))
+                .when(emisor).send(any(SseEmitter.SseEventBuilder.class));
+        notificacionesEnVivoService.suscribir("11111111A", null);
+
+        notificacionesEnVivoService.enviarLatidos();
+
+        verify(emisor, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(emisor).complete();
+        assertEquals(0, notificacionesEnVivoService.getSuscripciones());
+    }
+
+    @Test
+    void sincronizarEnviaLasDeOtrasInstanciasUnaVezTest() throws IOException {
+        notificacionesEnVivoService.suscribir("11111111A", null);
+        notificacionesEnVivoService.publicar(notificacion(5L, "11111111A"));
+        when(notificacionRepository.findDeClientesDesde(any(LocalDateTime.class), eq(0L), eq(500)))
+                .thenReturn(List.of(dto(5L, "11111111A"), dto(6L, "11111111A"), dto(9L, "33333333C")));
+
+        notificacionesEnVivoService.sincronizar();
+        notificacionesEnVivoService.sincronizar();
+
+        assertEquals(List.of(5L, 6L), enviadas(emisor));
+    }
+
+    @Test
+    void sincronizarSinConexionesNoConsultaTest() {
+        notificacionesEnVivoService.sincronizar();
+
+        verifyNoInteractions(notificacionRepository);
+    }
+
+    private static Notificacion notificacion(long id, String dni) {
+        Cliente cliente = new Cliente();
+        cliente.setDni(dni);
+        Notificacion notificacion = new Notificacion(cliente, null, "Mensaje " + id, TipoNotificacion.INFORMACION);
+        ReflectionTestUtils.setField(notificacion, "idNotificacion", id);
+        return notificacion;
+    }
+
+    private static NotificacionDTO dto(long id, String dni) {
+        return new NotificacionDTO(id, dni, "Mensaje " + id, TipoNotificacion.INFORMACION, LocalDateTime.now());
+    }
+
+    /**
+     * Identificadores de las notificaciones escritas en un emisor, en orden.
+     */
+    private static List<Long> enviadas(SseEmitter emisor) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> eventos = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emisor, atLeast(0)).send(eventos.capture());
+        List<Long> ids = new ArrayList<>();
+        for (SseEmitter.SseEventBuilder evento : eventos.getAllValues()) {
+            for (ResponseBodyEmitter.DataWithMediaType dato : evento.build()) {
+                if (dato.getData() instanceof NotificacionDTO enviada) {
+                    ids.add(enviada.getIdNotificacion());
+                }
+            }
+        }
+        return ids;
+    }
+}
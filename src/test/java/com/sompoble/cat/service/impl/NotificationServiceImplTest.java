@@ -1,9 +1,13 @@
 package com.sompoble.cat.service.impl;
 
 import com.sompoble.cat.domain.Cliente;
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
 import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Notificacion.TipoNotificacion;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.repository.ConfiguracionNotificacionesRepository;
 import com.sompoble.cat.repository.NotificacionRepository;
+import com.sompoble.cat.service.NotificacionesEnVivoService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,12 @@ class NotificationServiceImplTest {
     @Mock
     private NotificacionRepository notificacionRepository;
 
+    @Mock
+    private ConfiguracionNotificacionesRepository configuracionRepository;
+
+    @Mock
+    private NotificacionesEnVivoService notificacionesEnVivoService;
+
     @InjectMocks
     private NotificationServiceImpl notificationService;
 
@@ -43,6 +53,7 @@ class NotificationServiceImplTest {
         notificationService.saveNotification(notificacion);
 
         verify(notificacionRepository).save(notificacion);
+        verify(notificacionesEnVivoService).publicar(notificacion);
     }
 
     @Test
@@ -101,4 +112,41 @@ class NotificationServiceImplTest {
         assertEquals("diaria", notificationService.getConfigFrequency());
         assertEquals("08:00", notificationService.getConfigSendTime());
     }
+
+    @Test
+    void testSetConfigGuardaLaConfiguracion() {
+        notificationService.setConfig(true, "hourly", "9:30");
+
+        ArgumentCaptor<ConfiguracionNotificaciones> guardada = ArgumentCaptor.forClass(ConfiguracionNotificaciones.class);
+        verify(configuracionRepository).save(guardada.capture());
+        assertEquals(ConfiguracionNotificaciones.Frecuencia.HORARIA, guardada.getValue().getFrecuenciaEfectiva());
+        assertEquals("09:30", guardada.getValue().getHoraEnvio());
+    }
+
+    @Test
+    void testSetConfigRechazaValoresNoValidos() {
+        assertThrows(BadRequestException.class, () -> notificationService.setConfig(true, "semanal", "08:00"));
+        assertThrows(BadRequestException.class, () -> notificationService.setConfig(true, "diaria", "25:00"));
+        verify(configuracionRepository, never()).save(any());
+    }
+
+    @Test
+    void testGetConfiguracionLeeLaGuardadaPorOtraInstancia() {
+        ConfiguracionNotificaciones guardada = new ConfiguracionNotificaciones();
+        guardada.setActivado(true);
+        guardada.setFrecuencia("daily");
+        when(configuracionRepository.find()).thenReturn(guardada);
+
+        assertEquals(ConfiguracionNotificaciones.Frecuencia.DIARIA,
+                notificationService.getConfiguracion().getFrecuenciaEfectiva());
+        assertEquals("daily", notificationService.getConfigFrequency());
+        // La copia local se reutiliza mientras no caduque
+        verify(configuracionRepository, times(1)).find();
+    }
+
+    @Test
+    void testGetConfiguracionSinGuardarEsInmediata() {
+        assertEquals(ConfiguracionNotificaciones.Frecuencia.INMEDIATA,
+                notificationService.getConfiguracion().getFrecuenciaEfectiva());
+    }
 }
@@ -1,96 +1,322 @@
 package com.sompoble.cat.service.impl;
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Empresa;
+import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
-import com.sompoble.cat.repository.ReservaRepository;
-import com.sompoble.cat.service.EmailService;
-import com.sompoble.cat.service.NotificationService;
+import com.sompoble.cat.dto.CitaRecordatorioDTO;
+import com.sompoble.cat.repository.RecordatorioEnviadoRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.CoordinacionService;
+import com.sompoble.cat.util.Particion;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class ReminderServiceImplTest {
 
+    private static final ZoneId ZONA = ZoneId.of("Europe/Madrid");
+
+    @Mock
+    private RecordatorioEnviadoRepository recordatorioEnviadoRepository;
+
     @Mock
-    private ReservaRepository reservaRepository;
+    private BandejaSalidaService bandejaSalidaService;
 
     @Mock
-    private NotificationService notificationService;
+    private TransactionTemplate transactionTemplate;
 
     @Mock
-    private EmailService emailService;
+    private CoordinacionService coordinacionService;
 
     @InjectMocks
     private ReminderServiceImpl reminderService;
 
+    private Cliente cliente;
     private Reserva reserva1;
-    private Reserva reserva2;
 
     @BeforeEach
     void setUp() {
-        // Mockear dependencias necesarias
-        Empresa empresaMock = mock(Empresa.class);
-        Servicio servicioMock = mock(Servicio.class);
-        Cliente cliente1 = mock(Cliente.class);
-        Cliente cliente2 = mock(Cliente.class);
+        Empresa empresa = new Empresa();
+        empresa.setNombre("Empresa S.A.");
+        Servicio servicio = new Servicio();
+        servicio.setNombre("Corte de pelo");
+        cliente = new Cliente();
+        cliente.setNombre("Juan");
 
-        // Crear reservas con datos válidos
         reserva1 = new Reserva(
-                empresaMock,
-                cliente1,
-                servicioMock,
-                "2024-05-01",
-                "10:00",
+                empresa,
+                cliente,
+                servicio,
+                LocalDate.parse("2030-05-15"),
+                LocalTime.parse("10:00"),
                 "Pendiente"
         );
         reserva1.setIdReserva(1L);
 
-        reserva2 = new Reserva(
-                empresaMock,
-                cliente2,
-                servicioMock,
-                "2024-05-02",
-                "15:30",
-                "Confirmada"
-        );
-        reserva2.setIdReserva(2L);
+        situarEn("2030-05-14T10:00");
+        lenient().when(coordinacionService.adquirir(anyString(), anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void testProcessReminders_EnviaElRecordatorioDe24Horas() {
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(eq(1L), eq(1440), eq(LocalDateTime.parse("2030-05-15T10:00")),
+                any())).thenReturn(true);
+
+        reminderService.processReminders();
+
+        ArgumentCaptor<String> cuerpo = ArgumentCaptor.forClass(String.class);
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Recordatorio de Reserva"), cuerpo.capture(),
+                contains("Corte de pelo"), eq(Notificacion.TipoNotificacion.ADVERTENCIA));
+        assertTrue(cuerpo.getValue().contains("dentro de 24 horas"));
+        assertTrue(cuerpo.getValue().contains("2030-05-15"));
+    }
+
+    @Test
+    void testProcessReminders_NoRepiteUnRecordatorioYaEnviado() {
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(false);
+
+        reminderService.processReminders();
+
+        verifyNoInteractions(bandejaSalidaService);
+    }
+
+    @Test
+    void testProcessReminders_EsperaAlMomentoDelRecordatorio() {
+        reserva1.setHora(LocalTime.parse("12:00"));
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+
+        reminderService.processReminders();
+        situarEn("2030-05-14T11:30");
+        reminderService.processReminders();
+
+        verifyNoInteractions(transactionTemplate, bandejaSalidaService);
+
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
+        situarEn("2030-05-14T12:00");
+        reminderService.processReminders();
+
+        verify(recordatorioEnviadoRepository).registrar(eq(1L), eq(1440), eq(LocalDateTime.parse("2030-05-15T12:00")),
+                any());
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), any(), any(), any());
+    }
+
+    @Test
+    void testProcessReminders_DescartaReservasTrasladadas() {
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+        transacciones();
+        reserva1.setHora(LocalTime.parse("18:00"));
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+
+        reminderService.processReminders();
+
+        verify(recordatorioEnviadoRepository, never()).registrar(anyLong(), anyInt(), any(), any());
+        verifyNoInteractions(bandejaSalidaService);
+    }
+
+    @Test
+    void testProcessReminders_ReintentaElLoteSiFallaLaTransaccion() {
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+        doThrow(new RuntimeException("Conexión perdida"))
+                .doAnswer(inv -> {
+                    inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                }).when(transactionTemplate).executeWithoutResult(any());
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
+
+        reminderService.processReminders();
+        verifyNoInteractions(bandejaSalidaService);
+
+        situarEn("2030-05-14T10:01");
+        reminderService.processReminders();
+
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), any(), any(), any());
+    }
+
+    @Test
+    void testProcessReminders_RecuperaLosRecordatoriosVencidosAlArrancar() {
+        // El recordatorio de 2 horas venció a las 9:00 con la aplicación parada
+        reserva1.setFechaReserva(LocalDate.parse("2030-05-14"));
+        reserva1.setHora(LocalTime.parse("11:00"));
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()));
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
 
-        // Simular respuesta del repositorio
-        when(reservaRepository.findUpcomingReservations())
-                .thenReturn(Arrays.asList(reserva1, reserva2));
+        reminderService.processReminders();
+
+        verify(recordatorioEnviadoRepository).registrar(eq(1L), eq(120), eq(LocalDateTime.parse("2030-05-14T11:00")),
+                any());
+        verify(recordatorioEnviadoRepository, never()).registrar(anyLong(), eq(1440), any(), any());
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), contains("dentro de 2 horas"), any(), any());
     }
 
     @Test
-    void testProcessReminders_CreaNotificacionesYEnviaCorreos() {
-        // Ejecutar el método
+    void testProgramarReserva_EnUnaVentanaYaCargada() {
+        citas();
         reminderService.processReminders();
 
-        // Verificar llamadas a los servicios
-        verify(notificationService, times(2)).saveNotification(any());
-        verify(emailService, times(2)).sendNotificationEmail(any());
+        reserva1.setFechaReserva(LocalDate.parse("2030-05-14"));
+        reserva1.setHora(LocalTime.parse("12:30"));
+        reminderService.programarReserva(1L, reserva1.getFechaReserva(), reserva1.getHora(),
+                LocalDateTime.parse("2030-05-14T09:00"));
+        // Reservada después del momento del recordatorio: no se programa
+        reminderService.programarReserva(2L, LocalDate.parse("2030-05-14"), LocalTime.parse("11:30"),
+                LocalDateTime.parse("2030-05-14T09:45"));
+
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
+        situarEn("2030-05-14T10:30");
+        reminderService.processReminders();
+
+        verify(recordatorioEnviadoRepository).findReservas(argThat(lote -> lote.size() == 1 && lote.contains(1L)));
+        verify(recordatorioEnviadoRepository).registrar(eq(1L), eq(120), eq(LocalDateTime.parse("2030-05-14T12:30")),
+                any());
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), any(), any(), any());
     }
 
     @Test
-    void testProcessReminders_SinReservas_NoHaceNada() {
-        // Simular que no hay reservas
-        when(reservaRepository.findUpcomingReservations()).thenReturn(List.of());
+    void testProcessReminders_SinArrendamientoSoloEnviaLasReservasDeEstaInstancia() {
+        when(coordinacionService.adquirir("recordatorios", 180_000)).thenReturn(false);
+        reminderService.processReminders();
 
-        // Ejecutar el método
+        reserva1.setFechaReserva(LocalDate.parse("2030-05-14"));
+        reserva1.setHora(LocalTime.parse("11:30"));
+        reminderService.programarReserva(1L, reserva1.getFechaReserva(), reserva1.getHora(),
+                LocalDateTime.parse("2030-05-14T09:00"));
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
+        situarEn("2030-05-14T10:01");
         reminderService.processReminders();
 
-        // Verificar que no se llamó a los servicios
-        verify(notificationService, never()).saveNotification(any());
-        verify(emailService, never()).sendNotificationEmail(any());
+        verify(recordatorioEnviadoRepository, never()).findCitasPendientes(any(), any(), anyInt(), any());
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), contains("dentro de 2 horas"), any(), any());
+    }
+
+    @Test
+    void testProcessReminders_ParticionadoCargaSoloSusReservas() {
+        ReflectionTestUtils.setField(reminderService, "particionar", true);
+        when(coordinacionService.getParticion()).thenReturn(new Particion(1, 2));
+        Reserva reserva2 = new Reserva(reserva1.getEmpresa(), cliente, reserva1.getServicio(),
+                reserva1.getFechaReserva(), reserva1.getHora(), "Pendiente");
+        reserva2.setIdReserva(2L);
+        citas(new CitaRecordatorioDTO(1L, reserva1.getFechaReserva(), reserva1.getHora()),
+                new CitaRecordatorioDTO(2L, reserva2.getFechaReserva(), reserva2.getHora()));
+        transacciones();
+        when(recordatorioEnviadoRepository.findReservas(any())).thenReturn(List.of(reserva1));
+        when(recordatorioEnviadoRepository.registrar(anyLong(), anyInt(), any(), any())).thenReturn(true);
+
+        reminderService.processReminders();
+
+        verify(recordatorioEnviadoRepository).findReservas(argThat(lote -> lote.size() == 1 && lote.contains(1L)));
+        verify(bandejaSalidaService).encolar(eq(cliente), any(), any(), any(), any());
+        verify(coordinacionService, never()).adquirir(eq("recordatorios"), anyLong());
+    }
+
+    @Test
+    void testProcessReminders_RecargaAlCambiarLaParticion() {
+        ReflectionTestUtils.setField(reminderService, "particionar", true);
+        when(coordinacionService.getParticion()).thenReturn(Particion.TODAS, new Particion(1, 2));
+        citas();
+
+        reminderService.processReminders();
+        situarEn("2030-05-14T10:01");
+        reminderService.processReminders();
+
+        // Vuelve a cargar desde el periodo de recuperación con la nueva partición
+        verify(recordatorioEnviadoRepository).findCitasPendientes(eq(LocalDateTime.parse("2030-05-14T10:00")),
+                eq(LocalDateTime.parse("2030-05-14T11:00")), eq(1440), eq(Particion.TODAS));
+        verify(recordatorioEnviadoRepository).findCitasPendientes(eq(LocalDateTime.parse("2030-05-14T10:01")),
+                eq(LocalDateTime.parse("2030-05-14T11:01")), eq(1440), eq(new Particion(1, 2)));
+    }
+
+    @Test
+    void testPurgarRecordatorios() {
+        reminderService.purgarRecordatorios();
+
+        verify(recordatorioEnviadoRepository).deleteAnteriores(LocalDateTime.parse("2030-05-07T10:00"));
+    }
+
+    @Test
+    void testPurgarRecordatorios_LaHaceOtraInstancia() {
+        when(coordinacionService.adquirir("recordatorios.purga", 3_600_000)).thenReturn(false);
+
+        reminderService.purgarRecordatorios();
+
+        verifyNoInteractions(recordatorioEnviadoRepository);
+    }
+
+    @Test
+    void testDescribirAntelacion() {
+        assertEquals("24 horas", ReminderServiceImpl.describirAntelacion(1440));
+        assertEquals("1 hora", ReminderServiceImpl.describirAntelacion(60));
+        assertEquals("90 minutos", ReminderServiceImpl.describirAntelacion(90));
+    }
+
+    /**
+     * Fija el momento actual del servicio.
+     */
+    private void situarEn(String fechaHora) {
+        ReflectionTestUtils.setField(reminderService, "reloj",
+                Clock.fixed(LocalDateTime.parse(fechaHora).atZone(ZONA).toInstant(), ZONA));
+    }
+
+    /**
+     * Simula la consulta de citas pendientes sobre una lista de citas.
+     */
+    private void citas(CitaRecordatorioDTO... citas) {
+        when(recordatorioEnviadoRepository.findCitasPendientes(any(), any(), anyInt(), any())).thenAnswer(inv -> {
+            LocalDateTime desde = inv.getArgument(0);
+            LocalDateTime hasta = inv.getArgument(1);
+            Particion particion = inv.getArgument(3);
+            List<CitaRecordatorioDTO> resultado = new ArrayList<>();
+            for (CitaRecordatorioDTO cita : citas) {
+                if (!cita.getCita().isBefore(desde) && cita.getCita().isBefore(hasta)
+                        && particion.incluye(cita.getIdReserva())) {
+                    resultado.add(cita);
+                }
+            }
+            return resultado;
+        });
+    }
+
+    private void transacciones() {
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
     }
-}
\ No newline at end of file
+}
@@ -3,21 +3,47 @@ package com.sompoble.cat.service.impl;
 import com.sompoble.cat.domain.Cliente;
 import com.sompoble.cat.domain.Empresa;
 import com.sompoble.cat.domain.Empresario;
+import com.sompoble.cat.domain.Notificacion;
 import com.sompoble.cat.domain.Reserva;
 import com.sompoble.cat.domain.Servicio;
+import com.sompoble.cat.dto.CursorReserva;
+import com.sompoble.cat.dto.PaginaReservasDTO;
 import com.sompoble.cat.dto.ReservaDTO;
+import com.sompoble.cat.dto.ReservasEliminadasDTO;
+import com.sompoble.cat.exception.BadRequestException;
+import com.sompoble.cat.exception.ConflictoException;
+import com.sompoble.cat.exception.LimiteReservasException;
+import com.sompoble.cat.repository.ClienteRepository;
+import com.sompoble.cat.repository.MetricaDiariaRepository;
 import com.sompoble.cat.repository.ReservaRepository;
+import com.sompoble.cat.service.BandejaSalidaService;
+import com.sompoble.cat.service.BloqueoFranjasService;
+import com.sompoble.cat.service.CapacidadService;
+import com.sompoble.cat.service.ClientesUnicosService;
+import com.sompoble.cat.service.DisponibilidadService;
+import com.sompoble.cat.service.HistogramasService;
+import com.sompoble.cat.service.MetricasService;
+import com.sompoble.cat.service.ReminderService;
+import com.sompoble.cat.service.ListaEsperaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,6 +52,39 @@ class ReservaServiceImplTest {
     @Mock
     private ReservaRepository reservaRepository;
 
+    @Mock
+    private CapacidadService capacidadService;
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @Mock
+    private BandejaSalidaService bandejaSalidaService;
+
+    @Mock
+    private DisponibilidadService disponibilidadService;
+
+    @Mock
+    private MetricasService metricasService;
+
+    @Mock
+    private ListaEsperaService listaEsperaService;
+
+    @Mock
+    private BloqueoFranjasService bloqueoFranjasService;
+
+    @Mock
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Mock
+    private ClientesUnicosService clientesUnicosService;
+
+    @Mock
+    private HistogramasService histogramasService;
+
+    @Mock
+    private ReminderService reminderService;
+
     @InjectMocks
     private ReservaServiceImpl reservaService;
 
@@ -75,8 +134,8 @@ class ReservaServiceImplTest {
 
         reserva1 = new Reserva();
         reserva1.setIdReserva(1L);
-        reserva1.setFechaReserva("2023-05-15");
-        reserva1.setHora("10:00");
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-15"));
+        reserva1.setHora(LocalTime.parse("10:00"));
         reserva1.setEstado("PENDIENTE");
         reserva1.setCliente(cliente);
         reserva1.setEmpresa(empresa);
@@ -84,8 +143,8 @@ class ReservaServiceImplTest {
 
         reserva2 = new Reserva();
         reserva2.setIdReserva(2L);
-        reserva2.setFechaReserva("2023-05-16");
-        reserva2.setHora("11:00");
+        reserva2.setFechaReserva(LocalDate.parse("2023-05-16"));
+        reserva2.setHora(LocalTime.parse("11:00"));
         reserva2.setEstado("PENDIENTE");
         reserva2.setCliente(cliente);
         reserva2.setEmpresa(empresa);
@@ -166,56 +225,344 @@ class ReservaServiceImplTest {
 
     @Test
     void addReservaTest() {
+        when(capacidadService.ocuparPlaza(1L, LocalDate.parse("2023-05-15"), 5)).thenReturn(true);
         doNothing().when(reservaRepository).addReserva(reserva1);
+        servicio.setLimiteReservas(5);
 
         reservaService.addReserva(reserva1);
         
+        verify(capacidadService).ocuparPlaza(1L, LocalDate.parse("2023-05-15"), 5);
         verify(reservaRepository).addReserva(reserva1);
+        verify(reservaRepository, never()).countByServicioIdAndFechaReserva(anyLong(), any(LocalDate.class));
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-15"), 1, 5000);
+        assertEquals(5000L, reserva1.getPrecioCentimos());
+        verify(clientesUnicosService).registrar(empresa.getIdEmpresa(), LocalDate.parse("2023-05-15"), cliente.getIdPersona());
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("10:00"), null, 1);
+        verify(reminderService).programarReserva(1L, LocalDate.parse("2023-05-15"),
+                LocalTime.parse("10:00"), null);
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-15"));
+        verify(metricasService).invalidar(1L, LocalDate.parse("2023-05-15"));
+
+        ArgumentCaptor<String> cuerpo = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> notificacion = ArgumentCaptor.forClass(String.class);
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Confirmación de Reserva"), cuerpo.capture(),
+                notificacion.capture(), eq(Notificacion.TipoNotificacion.INFORMACION));
+        assertTrue(cuerpo.getValue().contains("Juan"));
+        assertTrue(cuerpo.getValue().contains("Servicio de prueba"));
+        assertTrue(cuerpo.getValue().contains("Empresa S.A."));
+        assertTrue(notificacion.getValue().contains("2023-05-15"));
+    }
+
+    @Test
+    void addReservaLimiteAlcanzadoTest() {
+        when(capacidadService.ocuparPlaza(1L, LocalDate.parse("2023-05-15"), 5)).thenReturn(false);
+        servicio.setLimiteReservas(5);
+
+        assertThrows(LimiteReservasException.class, () -> reservaService.addReserva(reserva1));
+        
+        verify(reservaRepository, never()).addReserva(any(Reserva.class));
+        verifyNoInteractions(bandejaSalidaService, disponibilidadService);
     }
 
     @Test
     void updateReservaTest() {
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-20"), 5)).thenReturn(true);
+        when(reservaRepository.findPrecioCentimosById(1L)).thenReturn(4000L);
         doNothing().when(reservaRepository).updateReserva(reserva1);
+        servicio.setLimiteReservas(5);
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-20"));
 
         reservaService.updateReserva(reserva1);
         
+        verify(bloqueoFranjasService).bloquear(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-20"));
+        verify(capacidadService).moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-20"), 5);
+        verify(reservaRepository).updateReserva(reserva1);
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-15"));
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-20"));
+        verify(listaEsperaService).plazaLiberada(1L, LocalDate.parse("2023-05-15"));
+        // La reserva conserva el precio guardado aunque el servicio haya cambiado de precio
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-15"), -1, -4000);
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-20"), 1, 4000);
+        assertNull(reserva1.getPrecioCentimos());
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("10:00"), null, -1);
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-20"), LocalTime.parse("10:00"), null, 1);
+        verify(clientesUnicosService).registrar(empresa.getIdEmpresa(), LocalDate.parse("2023-05-20"), cliente.getIdPersona());
+
+        ArgumentCaptor<String> cuerpo = ArgumentCaptor.forClass(String.class);
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Actualización de Reserva"), cuerpo.capture(),
+                contains("2023-05-20"), eq(Notificacion.TipoNotificacion.INFORMACION));
+        assertTrue(cuerpo.getValue().contains("2023-05-20"));
+        assertTrue(cuerpo.getValue().contains("10:00"));
+    }
+
+    @Test
+    void updateReservaLimiteAlcanzadoTest() {
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-20"), 5)).thenReturn(false);
+        servicio.setLimiteReservas(5);
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-20"));
+
+        assertThrows(BadRequestException.class, () -> reservaService.updateReserva(reserva1));
+        
+        verify(reservaRepository, never()).updateReserva(any(Reserva.class));
+        verifyNoInteractions(bandejaSalidaService, listaEsperaService);
+    }
+
+    @Test
+    void updateReservaCambioDeServicioFijaElPrecioNuevoTest() {
+        Servicio servicio2 = new Servicio();
+        servicio2.setIdServicio(2L);
+        servicio2.setPrecio(75);
+        servicio2.setLimiteReservas(5);
+        servicio2.setEmpresa(empresa);
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(reservaRepository.findPrecioCentimosById(1L)).thenReturn(4000L);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 2L, LocalDate.parse("2023-05-15"), 5))
+                .thenReturn(true);
+        reserva1.setServicio(servicio2);
+
+        reservaService.updateReserva(reserva1);
+
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-15"), -1, -4000);
+        verify(metricaDiariaRepository).acumular(2L, LocalDate.parse("2023-05-15"), 1, 7500);
+        assertEquals(7500L, reserva1.getPrecioCentimos());
+    }
+
+    @Test
+    void updateReservaCambioDeClienteMarcaElDiaPendienteTest() {
+        Cliente otro = new Cliente();
+        otro.setDni("99999999Z");
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-15"), 5))
+                .thenReturn(true);
+        servicio.setLimiteReservas(5);
+        reserva1.setCliente(otro);
+
+        reservaService.updateReserva(reserva1);
+
+        verify(metricaDiariaRepository).marcarPendiente(LocalDate.parse("2023-05-15"));
+        verify(metricaDiariaRepository, never()).acumular(anyLong(), any(LocalDate.class), anyLong(), anyLong());
+        verify(clientesUnicosService).registrar(empresa.getIdEmpresa(), LocalDate.parse("2023-05-15"), otro.getIdPersona());
+    }
+
+    @Test
+    void updateReservaFranjaBloqueadaTest() {
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        doThrow(new ConflictoException("Franja bloqueada", 1)).when(bloqueoFranjasService)
+                .bloquear(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-20"));
+        reserva1.setFechaReserva(LocalDate.parse("2023-05-20"));
+
+        assertThrows(ConflictoException.class, () -> reservaService.updateReserva(reserva1));
+
+        verifyNoInteractions(capacidadService, bandejaSalidaService, listaEsperaService);
+        verify(reservaRepository, never()).updateReserva(any(Reserva.class));
+    }
+
+    @Test
+    void updateReservaMismaFechaNoPromueveListaEsperaTest() {
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-15"), 5)).thenReturn(true);
+        servicio.setLimiteReservas(5);
+
+        reservaService.updateReserva(reserva1);
+
         verify(reservaRepository).updateReserva(reserva1);
+        verifyNoInteractions(listaEsperaService, metricaDiariaRepository, histogramasService, clientesUnicosService);
+    }
+
+    @Test
+    void updateReservaCambioDeHoraMueveElHistogramaTest() {
+        LocalDateTime alta = LocalDateTime.parse("2023-05-01T12:00:00");
+        when(reservaRepository.findById(1L)).thenReturn(reservaDTO1);
+        when(reservaRepository.findFechaAltaById(1L)).thenReturn(alta);
+        when(capacidadService.moverPlaza(1L, LocalDate.parse("2023-05-15"), 1L, LocalDate.parse("2023-05-15"), 5)).thenReturn(true);
+        servicio.setLimiteReservas(5);
+        reserva1.setHora(LocalTime.parse("17:30"));
+
+        reservaService.updateReserva(reserva1);
+
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("10:00"), alta, -1);
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("17:30"), alta, 1);
+        verify(reminderService).programarReserva(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("17:30"), alta);
+        verifyNoInteractions(listaEsperaService, metricaDiariaRepository);
     }
 
     @Test
     void deleteByIdTest() {
+        reserva1.setPrecioCentimos(4000L);
+        when(reservaRepository.findByIdFull(1L)).thenReturn(reserva1);
         doNothing().when(reservaRepository).deleteById(1L);
 
         reservaService.deleteById(1L);
         
         verify(reservaRepository).deleteById(1L);
+        verify(capacidadService).liberarPlazas(1L, LocalDate.parse("2023-05-15"), 1);
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-15"), -1, -4000);
+        verify(histogramasService).registrar(1L, LocalDate.parse("2023-05-15"), LocalTime.parse("10:00"), null, -1);
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-15"));
+        verify(metricasService).invalidar(1L, LocalDate.parse("2023-05-15"));
+        verify(listaEsperaService).plazaLiberada(1L, LocalDate.parse("2023-05-15"));
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Cancelación de Reserva"), contains("2023-05-15"),
+                contains("cancelado"), eq(Notificacion.TipoNotificacion.ADVERTENCIA));
     }
 
     @Test
     void deleteByClienteDniTest() {
-        doNothing().when(reservaRepository).deleteByClienteDni("12345678A");
+        when(reservaRepository.deleteByClienteDni("12345678A")).thenReturn(Map.of(1L, Map.of(
+                LocalDate.parse("2023-05-15"), new ReservasEliminadasDTO(2, 9000),
+                LocalDate.parse("2023-05-16"), new ReservasEliminadasDTO(1, 5000))));
+        when(clienteRepository.findByDNIFull("12345678A")).thenReturn(cliente);
 
         reservaService.deleteByClienteDni("12345678A");
         
         verify(reservaRepository).deleteByClienteDni("12345678A");
+        verify(capacidadService).liberarPlazas(1L, LocalDate.parse("2023-05-15"), 2);
+        verify(capacidadService).liberarPlazas(1L, LocalDate.parse("2023-05-16"), 1);
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-15"), -2, -9000);
+        verify(metricaDiariaRepository).acumular(1L, LocalDate.parse("2023-05-16"), -1, -5000);
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-15"));
+        verify(disponibilidadService).invalidar(1L, LocalDate.parse("2023-05-16"));
+        verify(listaEsperaService).cancelarByClienteDni("12345678A");
+        verify(listaEsperaService).plazaLiberada(1L, LocalDate.parse("2023-05-15"));
+        verify(listaEsperaService).plazaLiberada(1L, LocalDate.parse("2023-05-16"));
+        verify(bandejaSalidaService).encolar(eq(cliente), eq("Cancelación de Reservas"), contains("Juan"),
+                eq("Se han cancelado todas sus reservas."), eq(Notificacion.TipoNotificacion.ADVERTENCIA));
     }
 
     @Test
     void deleteByEmpresaIdentificadorFiscalTest() {
-        doNothing().when(reservaRepository).deleteByEmpresaIdentificadorFiscal("A12345678");
+        when(reservaRepository.deleteByEmpresaIdentificadorFiscal("A12345678"))
+                .thenReturn(Map.of(1L, Map.of(LocalDate.parse("2023-05-15"), new ReservasEliminadasDTO(1, 5000))));
 
         reservaService.deleteByEmpresaIdentificadorFiscal("A12345678");
         
         verify(reservaRepository).deleteByEmpresaIdentificadorFiscal("A12345678");
+        verify(capacidadService).liberarPlazas(1L, LocalDate.parse("2023-05-15"), 1);
+        verify(listaEsperaService).eliminarPorEmpresa("A12345678");
+        verify(listaEsperaService, never()).plazaLiberada(anyLong(), any(LocalDate.class));
+        verifyNoInteractions(bandejaSalidaService);
     }
 
     @Test
     void countReservasByServicioIdAndFechaTest() {
-        when(reservaRepository.countByServicioIdAndFechaReserva(1L, "2023-05-15")).thenReturn(2);
+        when(reservaRepository.countByServicioIdAndFechaReserva(1L, LocalDate.parse("2023-05-15"))).thenReturn(2);
 
-        int count = reservaService.countReservasByServicioIdAndFecha(1L, "2023-05-15");
+        int count = reservaService.countReservasByServicioIdAndFecha(1L, LocalDate.parse("2023-05-15"));
         
         assertEquals(2, count);
-        verify(reservaRepository).countByServicioIdAndFechaReserva(1L, "2023-05-15");
+        verify(reservaRepository).countByServicioIdAndFechaReserva(1L, LocalDate.parse("2023-05-15"));
+    }
+
+    @Test
+    void deleteByServicioIdTest() {
+        doNothing().when(reservaRepository).deleteByServicioId(1L);
+
+        reservaService.deleteByServicioId(1L);
+        
+        verify(reservaRepository).deleteByServicioId(1L);
+        verify(capacidadService).eliminarContadoresServicio(1L);
+        verify(metricaDiariaRepository).deleteByServicioId(1L);
+        verify(histogramasService).eliminarServicio(1L);
+        verify(disponibilidadService).invalidarServicio(1L);
+        verify(metricasService).invalidarServicio(1L);
+        verify(listaEsperaService).eliminarPorServicio(1L);
+    }
+
+    @Test
+    void findPaginaByClienteDniPrimeraPaginaTest() {
+        when(reservaRepository.findPaginaByClienteDni("12345678A", null, 2))
+                .thenReturn(Arrays.asList(reservaDTO1));
+
+        PaginaReservasDTO pagina = reservaService.findPaginaByClienteDni("12345678A", null, 1);
+
+        assertEquals(List.of(reservaDTO1), pagina.getReservas());
+        assertNull(pagina.getSiguienteCursor());
+    }
+
+    @Test
+    void findPaginaByClienteDniCursorSiguienteTest() {
+        when(reservaRepository.findPaginaByClienteDni("12345678A", null, 2))
+                .thenReturn(Arrays.asList(reservaDTO1, reservaDTO2));
+
+        PaginaReservasDTO pagina = reservaService.findPaginaByClienteDni("12345678A", null, 1);
+
+        assertEquals(List.of(reservaDTO1), pagina.getReservas());
+        assertNotNull(pagina.getSiguienteCursor());
+
+        ArgumentCaptor<CursorReserva> captor = ArgumentCaptor.forClass(CursorReserva.class);
+        when(reservaRepository.findPaginaByClienteDni(eq("12345678A"), captor.capture(), eq(2)))
+                .thenReturn(Arrays.asList(reservaDTO2));
+
+        PaginaReservasDTO siguiente = reservaService.findPaginaByClienteDni("12345678A", pagina.getSiguienteCursor(), 1);
+
+        assertEquals(List.of(reservaDTO2), siguiente.getReservas());
+        assertNull(siguiente.getSiguienteCursor());
+        assertEquals(LocalDate.parse("2023-05-15"), captor.getValue().getFechaReserva());
+        assertEquals(LocalTime.parse("10:00"), captor.getValue().getHora());
+        assertEquals(1L, captor.getValue().getIdReserva());
+    }
+
+    @Test
+    void findPaginaCursorConservaLosSegundosDeLaHoraTest() {
+        ReservaDTO conSegundos = new ReservaDTO(1L, LocalDate.of(2023, 5, 15), LocalTime.of(10, 0, 30),
+                "PENDIENTE", "12345678A", "A12345678", 1L, "Corte", 0L);
+        when(reservaRepository.findPaginaByClienteDni("12345678A", null, 2))
+                .thenReturn(Arrays.asList(conSegundos, reservaDTO2));
+
+        PaginaReservasDTO pagina = reservaService.findPaginaByClienteDni("12345678A", null, 1);
+
+        assertEquals("10:00", conSegundos.getHora());
+        ArgumentCaptor<CursorReserva> captor = ArgumentCaptor.forClass(CursorReserva.class);
+        when(reservaRepository.findPaginaByClienteDni(eq("12345678A"), captor.capture(), eq(2)))
+                .thenReturn(Arrays.asList(reservaDTO2));
+
+        reservaService.findPaginaByClienteDni("12345678A", pagina.getSiguienteCursor(), 1);
+
+        assertEquals(LocalTime.of(10, 0, 30), captor.getValue().getHora());
+    }
+
+    @Test
+    void findPaginaByEmpresaIdentificadorFiscalLimitePorDefectoTest() {
+        when(reservaRepository.findPaginaByEmpresaIdentificadorFiscal("A12345678", null,
+                ReservaServiceImpl.LIMITE_POR_DEFECTO + 1)).thenReturn(Arrays.asList(reservaDTO1, reservaDTO2));
+
+        PaginaReservasDTO pagina = reservaService.findPaginaByEmpresaIdentificadorFiscal("A12345678", null, null);
+
+        assertEquals(2, pagina.getReservas().size());
+        assertNull(pagina.getSiguienteCursor());
+    }
+
+    @Test
+    void findPaginaLimiteInvalidoTest() {
+        assertThrows(BadRequestException.class,
+                () -> reservaService.findPaginaByClienteDni("12345678A", null, 0));
+        assertThrows(BadRequestException.class,
+                () -> reservaService.findPaginaByClienteDni("12345678A", null, ReservaServiceImpl.LIMITE_MAXIMO + 1));
+        verifyNoInteractions(reservaRepository);
+    }
+
+    @Test
+    void findPaginaCursorInvalidoTest() {
+        BadRequestException exception = assertThrows(BadRequestException.class,
+                () -> reservaService.findPaginaByEmpresaIdentificadorFiscal("A12345678", "no-es-un-cursor", 10));
+
+        assertEquals("El cursor de paginación no es válido", exception.getMessage());
+        verifyNoInteractions(reservaRepository);
+    }
+
+    @Test
+    void recorrerByClienteDniTest() {
+        doAnswer(invocation -> {
+            Consumer<ReservaDTO> consumidor = invocation.getArgument(1);
+            consumidor.accept(reservaDTO1);
+            consumidor.accept(reservaDTO2);
+            return null;
+        }).when(reservaRepository).recorrerByClienteDni(eq("12345678A"), any());
+
+        List<ReservaDTO> recibidas = new ArrayList<>();
+        reservaService.recorrerByClienteDni("12345678A", recibidas::add);
+
+        assertEquals(List.of(reservaDTO1, reservaDTO2), recibidas);
     }
-}
\ No newline at end of file
+}
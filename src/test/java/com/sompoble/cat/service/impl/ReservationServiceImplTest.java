@@ -13,6 +13,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import com.sompoble.cat.domain.Notificacion; 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import static org.mockito.Mockito.*;
@@ -48,8 +50,8 @@ public class ReservationServiceImplTest {
             empresaMock,
             cliente,
             servicioMock,
-            "2024-05-01",
-            "10:00",
+            LocalDate.parse("2024-05-01"),
+            LocalTime.parse("10:00"),
             "Pendiente"
         );
         reserva.setIdReserva(null); // Simular nueva reserva
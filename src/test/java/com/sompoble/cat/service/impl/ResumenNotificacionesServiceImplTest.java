@@ -0,0 +1,178 @@
+package com.sompoble.cat.service.impl;
+
+import com.sompoble.cat.domain.ConfiguracionNotificaciones;
+import com.sompoble.cat.domain.ConfiguracionNotificaciones.Frecuencia;
+import com.sompoble.cat.domain.MensajeSalida;
+import com.sompoble.cat.repository.MensajeSalidaRepository;
+import com.sompoble.cat.service.NotificationService;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumenNotificacionesServiceImplTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2030, 5, 15, 10, 20);
+
+    @Mock
+    private MensajeSalidaRepository mensajeSalidaRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ResumenNotificacionesServiceImpl resumenService;
+
+    @BeforeEach
+    void setUp() {
+        ZoneId zona = ZoneId.systemDefault();
+        ReflectionTestUtils.setField(resumenService, "reloj", Clock.fixed(AHORA.atZone(zona).toInstant(), zona));
+        ReflectionTestUtils.setField(resumenService, "lote", 2);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void corteHorarioTest() {
+        assertEquals(LocalDateTime.of(2030, 5, 15, 10, 15),
+                ResumenNotificacionesServiceImpl.corte(Frecuencia.HORARIA, LocalTime.of(8, 15), AHORA));
+        assertEquals(LocalDateTime.of(2030, 5, 15, 9, 30),
+                ResumenNotificacionesServiceImpl.corte(Frecuencia.HORARIA, LocalTime.of(8, 30), AHORA));
+    }
+
+    @Test
+    void corteDiarioTest() {
+        assertEquals(LocalDateTime.of(2030, 5, 15, 8, 0),
+                ResumenNotificacionesServiceImpl.corte(Frecuencia.DIARIA, LocalTime.of(8, 0), AHORA));
+        assertEquals(LocalDateTime.of(2030, 5, 14, 18, 0),
+                ResumenNotificacionesServiceImpl.corte(Frecuencia.DIARIA, LocalTime.of(18, 0), AHORA));
+    }
+
+    @Test
+    void corteInmediatoTest() {
+        assertEquals(AHORA, ResumenNotificacionesServiceImpl.corte(Frecuencia.INMEDIATA, LocalTime.of(8, 0), AHORA));
+    }
+
+    @Test
+    void enviarResumenesAgrupaLosMensajesDeCadaDestinatarioTest() {
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("diaria", "08:00"));
+        LocalDateTime corte = LocalDateTime.of(2030, 5, 15, 8, 0);
+        when(mensajeSalidaRepository.findDestinatariosResumen(corte, 2)).thenReturn(List.of("juan@ejemplo.com"));
+        when(mensajeSalidaRepository.bloquearResumen("juan@ejemplo.com", corte)).thenReturn(List.of(
+                mensaje(1L, "Confirmación de Reserva", "Su reserva ha sido confirmada"),
+                mensaje(2L, "Reserva modificada", "Su reserva ha cambiado de hora")));
+
+        resumenService.enviarResumenes();
+
+        ArgumentCaptor<MensajeSalida> resumen = ArgumentCaptor.forClass(MensajeSalida.class);
+        verify(mensajeSalidaRepository).save(resumen.capture());
+        assertEquals(ResumenNotificacionesServiceImpl.ASUNTO, resumen.getValue().getAsunto());
+        assertEquals("juan@ejemplo.com", resumen.getValue().getDestinatario());
+        assertEquals("12345678A", resumen.getValue().getDniCliente());
+        assertTrue(resumen.getValue().getCuerpo().startsWith("Tiene 2 notificaciones nuevas:"));
+        assertTrue(resumen.getValue().getCuerpo().contains("Su reserva ha cambiado de hora"));
+        assertTrue(bytes(resumen.getValue().getCuerpo()) <= ResumenNotificacionesServiceImpl.MAX_CUERPO);
+        assertEquals(AHORA, resumen.getValue().getProximoIntento());
+        verify(mensajeSalidaRepository).marcarResumidos(List.of(1L, 2L));
+    }
+
+    @Test
+    void enviarResumenesRepartePorTamanoDelCuerpoTest() {
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("diaria", "08:00"));
+        LocalDateTime corte = LocalDateTime.of(2030, 5, 15, 8, 0);
+        when(mensajeSalidaRepository.findDestinatariosResumen(corte, 2)).thenReturn(List.of("juan@ejemplo.com"));
+        // Cinco cuerpos de 30.000 bytes: caben dos por resumen
+        String cuerpo = "ñ".repeat(15_000);
+        when(mensajeSalidaRepository.bloquearResumen("juan@ejemplo.com", corte)).thenReturn(List.of(
+                mensaje(1L, "Reserva 1", cuerpo), mensaje(2L, "Reserva 2", cuerpo), mensaje(3L, "Reserva 3", cuerpo),
+                mensaje(4L, "Reserva 4", cuerpo), mensaje(5L, "Reserva 5", cuerpo)));
+
+        resumenService.enviarResumenes();
+
+        ArgumentCaptor<MensajeSalida> resumenes = ArgumentCaptor.forClass(MensajeSalida.class);
+        verify(mensajeSalidaRepository, times(3)).save(resumenes.capture());
+        for (MensajeSalida resumen : resumenes.getAllValues()) {
+            assertTrue(bytes(resumen.getCuerpo()) <= ResumenNotificacionesServiceImpl.MAX_CUERPO);
+        }
+        assertTrue(resumenes.getAllValues().get(0).getCuerpo().startsWith("Tiene 2 notificaciones nuevas:"));
+        assertTrue(resumenes.getAllValues().get(1).getCuerpo().startsWith("Tiene 2 notificaciones nuevas:"));
+        // El último grupo tiene un solo mensaje y se envía tal cual
+        assertEquals("Reserva 5", resumenes.getAllValues().get(2).getAsunto());
+        assertEquals(cuerpo, resumenes.getAllValues().get(2).getCuerpo());
+        verify(mensajeSalidaRepository).marcarResumidos(List.of(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    void enviarResumenesConUnSoloMensajeConservaElOriginalTest() {
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("hourly", "08:00"));
+        when(mensajeSalidaRepository.findDestinatariosResumen(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of("juan@ejemplo.com"));
+        when(mensajeSalidaRepository.bloquearResumen(eq("juan@ejemplo.com"), any(LocalDateTime.class)))
+                .thenReturn(List.of(mensaje(1L, "Confirmación de Reserva", "Su reserva ha sido confirmada")));
+
+        resumenService.enviarResumenes();
+
+        ArgumentCaptor<MensajeSalida> resumen = ArgumentCaptor.forClass(MensajeSalida.class);
+        verify(mensajeSalidaRepository).save(resumen.capture());
+        assertEquals("Confirmación de Reserva", resumen.getValue().getAsunto());
+        assertEquals("Su reserva ha sido confirmada", resumen.getValue().getCuerpo());
+        verify(mensajeSalidaRepository).marcarResumidos(List.of(1L));
+    }
+
+    @Test
+    void enviarResumenesSinMensajesBloqueadosNoEncolaNadaTest() {
+        when(notificationService.getConfiguracion()).thenReturn(configuracion("daily", "08:00"));
+        when(mensajeSalidaRepository.findDestinatariosResumen(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of("juan@ejemplo.com", "ana@ejemplo.com"));
+        when(mensajeSalidaRepository.bloquearResumen(anyString(), any(LocalDateTime.class))).thenReturn(List.of());
+
+        resumenService.enviarResumenes();
+
+        // Otra instancia los ha resumido: no se vuelve a pedir otra página
+        verify(mensajeSalidaRepository, times(1)).findDestinatariosResumen(any(LocalDateTime.class), eq(2));
+        verify(mensajeSalidaRepository, never()).save(any(MensajeSalida.class));
+        verify(mensajeSalidaRepository, never()).marcarResumidos(anyList());
+    }
+
+    private static ConfiguracionNotificaciones configuracion(String frecuencia, String hora) {
+        ConfiguracionNotificaciones configuracion = new ConfiguracionNotificaciones();
+        configuracion.setActivado(true);
+        configuracion.setFrecuencia(frecuencia);
+        configuracion.setHoraEnvio(hora);
+        return configuracion;
+    }
+
+    private static int bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static MensajeSalida mensaje(Long id, String asunto, String cuerpo) {
+        MensajeSalida mensaje = new MensajeSalida();
+        mensaje.setIdMensaje(id);
+        mensaje.setDniCliente("12345678A");
+        mensaje.setDestinatario("juan@ejemplo.com");
+        mensaje.setAsunto(asunto);
+        mensaje.setCuerpo(cuerpo);
+        mensaje.setEstado(MensajeSalida.EstadoMensaje.RESUMEN);
+        return mensaje;
+    }
+}
@@ -0,0 +1,59 @@
+package com.sompoble.cat.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CuboFichasTest {
+
+    @Test
+    void admiteUnaRafagaYLuegoElRitmoTest() {
+        // 60 fichas por minuto: una por segundo
+        CuboFichas cubo = new CuboFichas(3, 60, 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, cubo.espera(0));
+            cubo.consumir(0);
+        }
+
+        assertEquals(1000, cubo.espera(0));
+        assertEquals(400, cubo.espera(600));
+        assertEquals(0, cubo.espera(1000));
+        cubo.consumir(1000);
+        assertEquals(1000, cubo.espera(1000));
+    }
+
+    @Test
+    void noAcumulaMasQueLaCapacidadTest() {
+        CuboFichas cubo = new CuboFichas(2, 60, 0);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, cubo.espera(3_600_000));
+            cubo.consumir(3_600_000);
+        }
+        assertTrue(cubo.espera(3_600_000) > 0);
+    }
+
+    @Test
+    void pausarVaciaElCuboHastaElMomentoIndicadoTest() {
+        CuboFichas cubo = new CuboFichas(5, 60, 0);
+
+        cubo.pausar(10_000);
+
+        assertEquals(10_000, cubo.espera(0));
+        assertEquals(1000, cubo.espera(10_000));
+        assertEquals(0, cubo.espera(11_000));
+    }
+
+    @Test
+    void sinFrecuenciaNoLimitaTest() {
+        CuboFichas cubo = new CuboFichas(1, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, cubo.espera(0));
+            cubo.consumir(0);
+        }
+
+        cubo.pausar(500);
+        assertEquals(500, cubo.espera(0));
+        assertEquals(0, cubo.espera(500));
+    }
+}
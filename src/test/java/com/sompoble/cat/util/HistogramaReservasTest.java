@@ -0,0 +1,80 @@
+package com.sompoble.cat.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramaReservasTest {
+
+    @Test
+    void vacioTest() {
+        HistogramaReservas histograma = new HistogramaReservas();
+
+        assertTrue(histograma.isVacio());
+        assertEquals(0, histograma.getTotal());
+        assertEquals(144, HistogramaReservas.BYTES);
+        assertEquals(HistogramaReservas.ANTELACIONES, HistogramaReservas.ETIQUETAS_ANTELACION.size());
+    }
+
+    @Test
+    void cubetasDeAntelacionTest() {
+        assertEquals(0, HistogramaReservas.cubetaAntelacion(-30));
+        assertEquals(0, HistogramaReservas.cubetaAntelacion(59));
+        assertEquals(1, HistogramaReservas.cubetaAntelacion(60));
+        assertEquals(4, HistogramaReservas.cubetaAntelacion(23 * 60 + 59));
+        assertEquals(5, HistogramaReservas.cubetaAntelacion(24 * 60));
+        assertEquals(7, HistogramaReservas.cubetaAntelacion(6 * 24 * 60));
+        assertEquals(HistogramaReservas.ANTELACIONES - 1, HistogramaReservas.cubetaAntelacion(400L * 24 * 60));
+    }
+
+    @Test
+    void registrarYRetirarTest() {
+        HistogramaReservas histograma = new HistogramaReservas();
+        LocalDate fecha = LocalDate.of(2030, 5, 15);
+        LocalDateTime alta = LocalDateTime.of(2030, 5, 13, 9, 0);
+
+        histograma.registrar(fecha, LocalTime.of(10, 30), alta, 1);
+        histograma.registrar(fecha, LocalTime.of(10, 0), alta, 1);
+        histograma.registrar(fecha, LocalTime.of(17, 0), alta, 1);
+
+        assertEquals(3, histograma.getTotal());
+        assertEquals(2, histograma.getPorHora()[10]);
+        assertEquals(1, histograma.getPorHora()[17]);
+        // De 48 a 72 horas de antelación
+        assertEquals(3, histograma.getAntelacion()[6]);
+
+        // Las cubetas no bajan de cero
+        histograma.registrar(fecha, LocalTime.of(17, 0), alta, -1);
+        histograma.registrar(fecha, LocalTime.of(17, 0), alta, -1);
+        assertEquals(0, histograma.getPorHora()[17]);
+        assertEquals(1, histograma.getAntelacion()[6]);
+        assertEquals(2, histograma.getTotal());
+    }
+
+    @Test
+    void serializarYUnirTest() {
+        HistogramaReservas a = new HistogramaReservas();
+        a.registrar(9, 90, 2);
+        HistogramaReservas b = new HistogramaReservas();
+        b.registrar(9, 10, 1);
+        b.registrar(20, 100_000, 1);
+
+        HistogramaReservas copia = HistogramaReservas.deBytes(a.getBytes());
+        assertEquals(a, copia);
+
+        copia.unir(b);
+        assertEquals(4, copia.getTotal());
+        assertEquals(3, copia.getPorHora()[9]);
+        assertArrayEquals(new int[]{1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1}, copia.getAntelacion());
+        assertEquals(2, a.getTotal());
+    }
+
+    @Test
+    void datosInvalidosTest() {
+        assertThrows(IllegalArgumentException.class, () -> HistogramaReservas.deBytes(new byte[10]));
+        assertThrows(IllegalArgumentException.class, () -> new HistogramaReservas().registrar(24, 0, 1));
+    }
+}
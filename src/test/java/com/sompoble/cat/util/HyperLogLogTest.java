@@ -0,0 +1,105 @@
+package com.sompoble.cat.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void vacioTest() {
+        HyperLogLog hll = new HyperLogLog();
+
+        assertTrue(hll.isVacio());
+        assertEquals(0, hll.estimar());
+    }
+
+    @Test
+    void conjuntoPequenoTest() {
+        HyperLogLog hll = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) {
+            hll.agregar(id);
+            // Los repetidos no cambian la estimación
+            hll.agregar(id);
+        }
+
+        assertEquals(50, hll.estimar(), 2);
+    }
+
+    @Test
+    void conjuntoGrandeDentroDelErrorTest() {
+        HyperLogLog hll = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) {
+            hll.agregar(id);
+        }
+
+        assertEquals(100_000, hll.estimar(), 100_000 * 0.05);
+    }
+
+    @Test
+    void transicionSinSesgoTest() {
+        // Entre 2 y 3 veces el número de registros el estimador original tiene
+        // un sesgo de más del 5 %; el error medio de muchos conjuntos debe
+        // quedarse cerca de cero
+        double errorTotal = 0;
+        int conjuntos = 0;
+        for (long total = 4000; total <= 6000; total += 500) {
+            for (long conjunto = 0; conjunto < 20; conjunto++) {
+                HyperLogLog hll = new HyperLogLog();
+                for (long id = 1; id <= total; id++) {
+                    hll.agregar(conjunto * 1_000_000 + id);
+                }
+                errorTotal += (hll.estimar() - total) / (double) total;
+                conjuntos++;
+            }
+        }
+
+        assertEquals(0, errorTotal / conjuntos, 0.01);
+    }
+
+    @Test
+    void agregarRepetidoNoCambiaRegistrosTest() {
+        HyperLogLog hll = new HyperLogLog();
+
+        assertTrue(hll.agregar(42L));
+        assertFalse(hll.agregar(42L));
+    }
+
+    @Test
+    void unirEquivaleAlConjuntoUnionTest() {
+        HyperLogLog lunes = new HyperLogLog();
+        HyperLogLog martes = new HyperLogLog();
+        HyperLogLog semana = new HyperLogLog();
+        for (long id = 1; id <= 3000; id++) {
+            lunes.agregar(id);
+            semana.agregar(id);
+        }
+        for (long id = 2000; id <= 5000; id++) {
+            martes.agregar(id);
+            semana.agregar(id);
+        }
+
+        lunes.unir(martes);
+
+        assertEquals(semana, lunes);
+        assertEquals(5000, lunes.estimar(), 5000 * 0.05);
+    }
+
+    @Test
+    void registrosIdaYVueltaTest() {
+        HyperLogLog hll = new HyperLogLog();
+        for (long id = 1; id <= 500; id++) {
+            hll.agregar(id);
+        }
+
+        byte[] registros = hll.getRegistros();
+
+        assertEquals(HyperLogLog.REGISTROS, registros.length);
+        assertEquals(hll, HyperLogLog.deRegistros(registros));
+    }
+
+    @Test
+    void registrosDeTamanoIncorrectoTest() {
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.deRegistros(new byte[10]));
+    }
+}
@@ -0,0 +1,36 @@
+package com.sompoble.cat.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParticionTest {
+
+    @Test
+    void cadaIdentificadorPerteneceAUnaSolaParticionTest() {
+        Particion[] particiones = {new Particion(0, 3), new Particion(1, 3), new Particion(2, 3)};
+        for (long id = 1; id <= 30; id++) {
+            int incluido = 0;
+            for (Particion particion : particiones) {
+                if (particion.incluye(id)) {
+                    incluido++;
+                }
+            }
+            assertEquals(1, incluido);
+        }
+        assertTrue(particiones[1].incluye(7));
+    }
+
+    @Test
+    void todoIncluyeCualquierIdentificadorTest() {
+        assertTrue(Particion.TODAS.incluye(1));
+        assertTrue(Particion.TODAS.incluye(123_456_789L));
+    }
+
+    @Test
+    void rechazaParticionesNoValidasTest() {
+        assertThrows(IllegalArgumentException.class, () -> new Particion(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Particion(3, 3));
+        assertThrows(IllegalArgumentException.class, () -> new Particion(-1, 2));
+    }
+}
@@ -0,0 +1,84 @@
+package com.sompoble.cat.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuedaTemporizadoresTest {
+
+    @Test
+    void venceEnSuTickTest() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(10, 8, 1000);
+        rueda.programar(1035, "a");
+        rueda.programar(1010, "b");
+
+        assertEquals(List.of(), rueda.avanzar(1009));
+        assertEquals(List.of("b"), rueda.avanzar(1010));
+        assertEquals(List.of(), rueda.avanzar(1029));
+        assertEquals(List.of("a"), rueda.avanzar(1030));
+        assertEquals(0, rueda.size());
+    }
+
+    @Test
+    void vencidosSeEntreganEnElSiguienteAvanceTest() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(10, 8, 1000);
+        rueda.programar(500, "pasado");
+        rueda.programar(1005, "actual");
+
+        assertEquals(2, rueda.size());
+        assertEquals(List.of("pasado", "actual"), rueda.avanzar(1000));
+    }
+
+    @Test
+    void nivelesSuperioresBajanHastaVencerTest() {
+        RuedaTemporizadores<Integer> rueda = new RuedaTemporizadores<>(10, 4, 0);
+        // Horizonte del primer nivel: 40; del segundo: 160; del tercero: 640
+        rueda.programar(55, 1);
+        rueda.programar(170, 2);
+        rueda.programar(639, 3);
+
+        assertEquals(3, rueda.getNiveles());
+        assertEquals(List.of(), rueda.avanzar(49));
+        assertEquals(List.of(1), rueda.avanzar(50));
+        assertEquals(List.of(), rueda.avanzar(169));
+        assertEquals(List.of(2), rueda.avanzar(170));
+        assertEquals(List.of(), rueda.avanzar(629));
+        assertEquals(List.of(3), rueda.avanzar(630));
+    }
+
+    @Test
+    void ningunElementoSeAdelantaNiSePierdeTest() {
+        Random aleatorio = new Random(42);
+        RuedaTemporizadores<Long> rueda = new RuedaTemporizadores<>(1, 16, 0);
+        List<Long> vencimientos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long vencimiento = aleatorio.nextInt(5000);
+            vencimientos.add(vencimiento);
+            rueda.programar(vencimiento, vencimiento);
+        }
+
+        List<Long> entregados = new ArrayList<>();
+        for (long ahora = 0; ahora < 5000; ahora += 1 + aleatorio.nextInt(7)) {
+            for (Long vencimiento : rueda.avanzar(ahora)) {
+                assertTrue(vencimiento <= ahora, "Entregado antes de tiempo");
+                entregados.add(vencimiento);
+            }
+            // Programados durante el avance
+            long nuevo = ahora + aleatorio.nextInt(300);
+            if (nuevo < 5000) {
+                vencimientos.add(nuevo);
+                rueda.programar(nuevo, nuevo);
+            }
+        }
+        entregados.addAll(rueda.avanzar(5000));
+
+        assertEquals(vencimientos.size(), entregados.size());
+        assertEquals(0, rueda.size());
+        vencimientos.sort(null);
+        entregados.sort(null);
+        assertEquals(vencimientos, entregados);
+    }
+}